@@ -0,0 +1,78 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Holds the user on whose behalf the current thread is working.
+ *
+ * The read replica router (waltz-data) uses this to keep a user's reads on the
+ * primary database shortly after they have made a change (read-your-writes).
+ * Threads without a bound user are never held on the primary.
+ */
+public class ReplicaSession {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+
+    public static void bind(String username) {
+        if (username == null) {
+            CURRENT_USER.remove();
+        } else {
+            CURRENT_USER.set(username);
+        }
+    }
+
+
+    public static void clear() {
+        CURRENT_USER.remove();
+    }
+
+
+    public static Optional<String> currentUser() {
+        return Optional.ofNullable(CURRENT_USER.get());
+    }
+
+
+    /**
+     * Wraps the task so that it runs with the given user bound, used when
+     * handing work to another thread.
+     */
+    public static <T> Callable<T> bindTo(String username, Callable<T> task) {
+        return () -> {
+            String previous = CURRENT_USER.get();
+            bind(username);
+            try {
+                return task.call();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+
+    /**
+     * Wraps the task so that it runs with the user currently bound to this thread.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        return bindTo(CURRENT_USER.get(), task);
+    }
+}
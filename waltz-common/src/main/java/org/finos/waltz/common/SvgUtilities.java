@@ -24,8 +24,20 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.TransformerException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -33,6 +45,13 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -40,28 +59,53 @@ import static org.finos.waltz.common.XmlUtilities.*;
 
 public class SvgUtilities {
 
-    public static String convertVisioSvg(String key, String svgStr) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.getNodeName().contains("custProps"))
-                        .forEach(c -> stream(c.getChildNodes())
-                                .filter(cp -> cp.getNodeName().contains("cp"))
-                                .map(cp -> (Element) cp)
-                                .filter(cp -> key.equals(cp.getAttribute("v:lbl")))
-                                .map(cp -> cp.getAttribute("v:val"))
-                                .map(v -> v.replaceAll("^.*\\((.*)\\)$", "$1"))
-                                .forEach(v -> ((Element) n).setAttribute("data-"+key, v))
-                        )
-                );
-
-        return printDocument(svg, false); // do NOT toPrettyString print visio
+    /**
+     * Visio stores custom shape properties in <code>v:custProps/v:cp</code>
+     * elements.  For each shape which has a custom property labelled
+     * <code>key</code> we copy its value onto the shape as a
+     * <code>data-[key]</code> attribute so the UI can find it.
+     *
+     * The conversion is done as two streaming (StAX) passes, the first finds
+     * which elements need decorating (the attribute belongs on an element we
+     * have already seen by the time we read the property), the second copies
+     * the document adding the attributes.  Unlike a DOM based approach the
+     * whole document is never held in memory as a tree, which matters as Visio
+     * exports can be several MB.
+     */
+    public static String convertVisioSvg(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = findVisioCustomPropertyValues(key, svgStr);
+
+        XMLInputFactory inputFactory = createNonValidatingInputFactory();
+        XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+        StringWriter out = new StringWriter(svgStr.length() + valuesByElementIdx.size() * 32);
+
+        XMLEventReader reader = inputFactory.createXMLEventReader(new StringReader(svgStr));
+        XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out);
+        QName attrName = new QName("data-" + key);
+
+        try {
+            int elementIdx = -1;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.getEventType() == XMLStreamConstants.DTD) {
+                    continue; // we never resolve external DTDs, so do not advertise one either
+                }
+                if (event.isStartElement()) {
+                    elementIdx++;
+                    String value = valuesByElementIdx.get(elementIdx);
+                    if (value != null) {
+                        event = withAttribute(eventFactory, event.asStartElement(), attrName, value);
+                    }
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        return out.toString();
     }
 
 
@@ -97,4 +141,101 @@ public class SvgUtilities {
         return printDocument(svg, false);
     }
 
+
+    // -- helpers --
+
+    /**
+     * @return map of element index (document order) to the value of the
+     * <code>key</code> custom property declared via its
+     * <code>custProps/cp</code> grandchild
+     */
+    private static Map<Integer, String> findVisioCustomPropertyValues(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = new HashMap<>();
+        XMLStreamReader reader = createNonValidatingInputFactory().createXMLStreamReader(new StringReader(svgStr));
+
+        try {
+            List<Integer> elementIdxStack = new ArrayList<>();
+            List<String> nameStack = new ArrayList<>();
+            int elementIdx = -1;
+
+            while (reader.hasNext()) {
+                int eventType = reader.next();
+                if (eventType == XMLStreamConstants.START_ELEMENT) {
+                    elementIdx++;
+                    String name = toQualifiedName(reader.getPrefix(), reader.getLocalName());
+                    int depth = nameStack.size();
+
+                    if (depth >= 2
+                            && name.contains("cp")
+                            && nameStack.get(depth - 1).contains("custProps")
+                            && key.equals(getAttributeValue(reader, "v:lbl"))) {
+                        String value = Optional
+                                .ofNullable(getAttributeValue(reader, "v:val"))
+                                .orElse("")
+                                .replaceAll("^.*\\((.*)\\)$", "$1");
+                        valuesByElementIdx.put(elementIdxStack.get(depth - 2), value);
+                    }
+
+                    elementIdxStack.add(elementIdx);
+                    nameStack.add(name);
+                } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                    elementIdxStack.remove(elementIdxStack.size() - 1);
+                    nameStack.remove(nameStack.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return valuesByElementIdx;
+    }
+
+
+    private static String getAttributeValue(XMLStreamReader reader, String qualifiedName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            QName attr = reader.getAttributeName(i);
+            if (qualifiedName.equals(toQualifiedName(attr.getPrefix(), attr.getLocalPart()))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+
+    private static String toQualifiedName(String prefix, String localName) {
+        return StringUtilities.isEmpty(prefix)
+                ? localName
+                : prefix + ":" + localName;
+    }
+
+
+    private static StartElement withAttribute(XMLEventFactory eventFactory,
+                                              StartElement element,
+                                              QName attrName,
+                                              String value) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<?> existing = element.getAttributes();
+        while (existing.hasNext()) {
+            Attribute attr = (Attribute) existing.next();
+            if (! attr.getName().equals(attrName)) {
+                attributes.add(attr);
+            }
+        }
+        attributes.add(eventFactory.createAttribute(attrName, value));
+
+        return eventFactory.createStartElement(
+                element.getName(),
+                attributes.iterator(),
+                element.getNamespaces());
+    }
+
+
+    private static XMLInputFactory createNonValidatingInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
 }
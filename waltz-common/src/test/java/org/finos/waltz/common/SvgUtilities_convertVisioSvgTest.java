@@ -0,0 +1,92 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SvgUtilities_convertVisioSvgTest {
+
+    private static final String VISIO_SVG = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\">" +
+            "<g id=\"shape1\">" +
+            "<title>Sheet.1</title>" +
+            "<v:custProps>" +
+            "<v:cp v:lbl=\"other\" v:val=\"VT4(ignore)\"/>" +
+            "<v:cp v:lbl=\"appId\" v:val=\"VT4(APP-123)\"/>" +
+            "</v:custProps>" +
+            "<g id=\"shape2\">" +
+            "<v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(APP-456)\"/></v:custProps>" +
+            "<rect width=\"10\" height=\"10\"/>" +
+            "</g>" +
+            "</g>" +
+            "<g id=\"shape3\"><rect width=\"10\" height=\"10\"/></g>" +
+            "</svg>";
+
+
+    @Test
+    public void shapesWithMatchingCustomPropertyGainDataAttribute() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("appId", VISIO_SVG);
+
+        assertTrue(hasStartTag(result, "id=\"shape1\"", "data-appId=\"APP-123\""));
+        assertTrue(hasStartTag(result, "id=\"shape2\"", "data-appId=\"APP-456\""));
+        assertTrue(result.contains("<g id=\"shape3\">"));
+        assertFalse(result.contains("data-appId=\"ignore\""));
+    }
+
+
+    @Test
+    public void contentIsPreservedWhenNoPropertiesMatch() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("unknown", VISIO_SVG);
+
+        assertFalse(result.contains("data-"));
+        assertTrue(result.contains("<v:cp v:lbl=\"appId\" v:val=\"VT4(APP-123)\"></v:cp>")
+                || result.contains("<v:cp v:lbl=\"appId\" v:val=\"VT4(APP-123)\"/>"));
+        assertTrue(result.contains("<title>Sheet.1</title>"));
+    }
+
+
+    @Test
+    public void malformedSvgIsRejected() {
+        assertThrows(
+                XMLStreamException.class,
+                () -> SvgUtilities.convertVisioSvg("appId", "<svg><g></svg>"));
+    }
+
+
+    private static boolean hasStartTag(String xml, String... attributes) {
+        Matcher matcher = Pattern.compile("<g [^>]*>").matcher(xml);
+        while (matcher.find()) {
+            String tag = matcher.group();
+            if (Stream.of(attributes).allMatch(tag::contains)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data;
+
+import org.finos.waltz.common.EnumUtilities;
+import org.finos.waltz.model.CommonTableFields;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record4;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.determineCommonTableFields;
+import static org.finos.waltz.data.JooqUtilities.inIds;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * In-memory cache of entity references (name, external id and lifecycle
+ * status) keyed by kind and id.
+ *
+ * Polymorphic queries can select just the kind and id of the entities they
+ * refer to and then use this cache to enrich the results, rather than
+ * embedding a correlated sub-select per entity kind (see
+ * {@link InlineSelectFieldFactory}).
+ *
+ * Missing entries are fetched in bulk, one query per kind for every
+ * {@link #BATCH_SIZE} ids.  Entries are evicted when a change log entry is
+ * written for the entity (see <code>ChangeLogDao</code>) and are treated as
+ * stale after {@link #MAX_AGE_MILLIS} to cover writes which are not logged.
+ * At most {@link #MAX_ENTRIES} references are held, the least recently used
+ * are evicted first.
+ */
+@Repository
+public class EntityReferenceCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityReferenceCache.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_ENTRIES = 100_000;
+
+    private static final Field<Long> ID = DSL.field("ref_id", Long.class);
+    private static final Field<String> NAME = DSL.field("ref_name", String.class);
+    private static final Field<String> EXTERNAL_ID = DSL.field("ref_external_id", String.class);
+    private static final Field<String> LIFECYCLE = DSL.field("ref_lifecycle", String.class);
+
+    private final DSLContext dsl;
+    // guarded by itself, access ordered so the least recently used entry is evicted first
+    private final Map<Tuple2<EntityKind, Long>, Entry> entries = new LinkedHashMap<Tuple2<EntityKind, Long>, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Tuple2<EntityKind, Long>, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Set<EntityKind> unsupportedKinds = ConcurrentHashMap.newKeySet();
+
+
+    private static class Entry {
+        private final EntityReference ref;
+        private final long loadedAt;
+
+        private Entry(EntityReference ref, long loadedAt) {
+            this.ref = ref;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+
+    @Autowired
+    public EntityReferenceCache(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public Optional<EntityReference> resolve(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        return Optional.ofNullable(resolve(ref.kind(), newArrayList(ref.id())).get(ref.id()));
+    }
+
+
+    /**
+     * Returns the given references enriched with their name, external id
+     * and lifecycle status.  Order is preserved, references which cannot be
+     * resolved (e.g. the entity no longer exists) are returned unchanged.
+     */
+    public List<EntityReference> resolve(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+
+        Map<EntityKind, Set<Long>> idsByKind = refs
+                .stream()
+                .collect(groupingBy(
+                        EntityReference::kind,
+                        mapping(EntityReference::id, toSet())));
+
+        Map<EntityKind, Map<Long, EntityReference>> resolvedByKind = new HashMap<>();
+        idsByKind.forEach((kind, ids) -> resolvedByKind.put(kind, resolve(kind, ids)));
+
+        List<EntityReference> result = new ArrayList<>(refs.size());
+        for (EntityReference ref : refs) {
+            result.add(resolvedByKind
+                    .get(ref.kind())
+                    .getOrDefault(ref.id(), ref));
+        }
+        return result;
+    }
+
+
+    /**
+     * @return map of id to resolved reference, ids which cannot be resolved are omitted
+     */
+    public Map<Long, EntityReference> resolve(EntityKind kind, Collection<Long> ids) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(ids, "ids cannot be null");
+
+        Map<Long, EntityReference> result = new HashMap<>();
+        if (unsupportedKinds.contains(kind)) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Long> missing = new ArrayList<>();
+
+        synchronized (entries) {
+            for (Long id : new HashSet<>(ids)) {
+                Entry entry = entries.get(tuple(kind, id));
+                if (entry == null || now - entry.loadedAt > MAX_AGE_MILLIS) {
+                    missing.add(id);
+                } else {
+                    result.put(id, entry.ref);
+                }
+            }
+        }
+
+        if (! missing.isEmpty()) {
+            List<EntityReference> loaded = load(kind, missing);
+            synchronized (entries) {
+                loaded.forEach(ref -> entries.put(tuple(kind, ref.id()), new Entry(ref, now)));
+            }
+            loaded.forEach(ref -> result.put(ref.id(), ref));
+        }
+
+        return result;
+    }
+
+
+    public void evict(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        synchronized (entries) {
+            entries.remove(tuple(ref.kind(), ref.id()));
+        }
+    }
+
+
+    public void evictAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+
+    // -- helpers --
+
+    private List<EntityReference> load(EntityKind kind, List<Long> ids) {
+        CommonTableFields<?> ctf;
+        try {
+            ctf = determineCommonTableFields(kind);
+        } catch (UnsupportedOperationException e) {
+            LOG.debug("Cannot resolve references of kind: {}", kind);
+            unsupportedKinds.add(kind);
+            return new ArrayList<>();
+        }
+
+        Field<String> nameField = Optional
+                .ofNullable(ctf.nameField())
+                .orElse(CommonTableFields.NA_FIELD_VAL);
+
+        Field<String> externalIdField = Optional
+                .ofNullable(ctf.externalIdField())
+                .orElse(CommonTableFields.NA_FIELD_VAL);
+
+        List<EntityReference> refs = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+            dsl.select(ctf.idField().as(ID),
+                       nameField.as(NAME),
+                       externalIdField.as(EXTERNAL_ID),
+                       ctf.lifecycleField().as(LIFECYCLE))
+                    .from(ctf.table())
+                    .where(inIds(dsl, ctf.idField(), batch))
+                    .fetch()
+                    .forEach(r -> refs.add(toRef(kind, r)));
+        }
+        return refs;
+    }
+
+
+    private static EntityReference toRef(EntityKind kind, Record4<Long, String, String, String> r) {
+        return ImmutableEntityReference
+                .builder()
+                .kind(kind)
+                .id(r.get(ID))
+                .name(Optional.ofNullable(r.get(NAME)))
+                .externalId(Optional.ofNullable(r.get(EXTERNAL_ID)))
+                .entityLifecycleStatus(EnumUtilities.readEnum(
+                        r.get(LIFECYCLE),
+                        EntityLifecycleStatus.class,
+                        s -> EntityLifecycleStatus.ACTIVE))
+                .build();
+    }
+}
@@ -36,11 +36,13 @@ import org.jooq.CommonTableExpression;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.QueryPart;
 import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.Record2;
 import org.jooq.Record3;
 import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
 import org.jooq.SQL;
 import org.jooq.SQLDialect;
 import org.jooq.Select;
@@ -53,6 +55,7 @@ import org.jooq.impl.DSL;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -259,6 +262,101 @@ public class JooqUtilities {
     }
 
 
+    /**
+     * Conditions (typically selectors) carrying more than this number of bind values
+     * are inlined rather than bound.  SQL Server rejects statements with more than 2100
+     * parameters, this leaves some headroom for the binds in the enclosing query.
+     */
+    public static final int MAX_BIND_VALUES = 2000;
+
+
+    /**
+     * Prepares a condition (typically built from an id selector) for use in a query.
+     *
+     * In the common case the condition is returned untouched so its values are sent
+     * as bind parameters, giving the database a stable statement text whose plan
+     * can be cached and re-used.  Only when the condition carries more values than
+     * the driver can bind ({@link #MAX_BIND_VALUES}) is it rendered inline, which
+     * was previously done unconditionally via <code>dsl.renderInlined(...)</code>.
+     *
+     * @param dsl  context used to inspect (and, if needed, render) the condition
+     * @param condition  the condition to prepare
+     * @return a condition suitable for inclusion in a where/on clause
+     */
+    public static Condition bindOrInline(DSLContext dsl, Condition condition) {
+        checkNotNull(condition, "condition cannot be null");
+        return exceedsBindLimit(dsl, condition)
+                ? DSL.condition(dsl.renderInlined(condition))
+                : condition;
+    }
+
+
+    /**
+     * Equivalent of <code>dsl.resultQuery(dsl.renderInlined(qry))</code> but retains
+     * bind parameters unless the query exceeds {@link #MAX_BIND_VALUES}.
+     *
+     * @param dsl  context to execute the query against
+     * @param qry  query, possibly detached (e.g. built via <code>DSL.select</code>)
+     * @return an executable plain sql query with the same projection as <code>qry</code>
+     */
+    public static ResultQuery<Record> bindOrInline(DSLContext dsl, ResultQuery<?> qry) {
+        checkNotNull(qry, "qry cannot be null");
+        List<Object> bindValues = dsl.extractBindValues(qry);
+        return bindValues.size() > MAX_BIND_VALUES
+                ? dsl.resultQuery(dsl.renderInlined(qry))
+                : dsl.resultQuery(dsl.render(qry), bindValues.toArray());
+    }
+
+
+    /**
+     * Membership test for a (potentially large) collection of ids.
+     *
+     * On Postgres this is rendered as <code>field = any(?)</code> with the ids sent
+     * as a single array parameter, so the statement text (and plan) does not vary
+     * with the number of ids.  Other dialects fall back to an <code>in</code> list,
+     * padded up to the next power of two (but never beyond {@link #MAX_BIND_VALUES})
+     * by repeating the last id, and inlined if it exceeds {@link #MAX_BIND_VALUES}.
+     * jOOQ's own in-list padding is disabled on SQL Server as it pads past the
+     * 2100 parameter limit.
+     *
+     * @param dsl  context used to determine the dialect
+     * @param field  id field to test
+     * @param ids  ids to test against
+     * @return condition which is true if the field value is one of the ids
+     */
+    public static Condition inIds(DSLContext dsl, Field<Long> field, Collection<Long> ids) {
+        checkNotNull(field, "field cannot be null");
+        checkNotNull(ids, "ids cannot be null");
+        return isPostgres(dsl.dialect())
+                ? field.eq(DSL.any(ids.toArray(new Long[0])))
+                : bindOrInline(dsl, field.in(padIds(ids)));
+    }
+
+
+    private static List<Long> padIds(Collection<Long> ids) {
+        List<Long> padded = new ArrayList<>(ids);
+        int size = padded.size();
+        if (size == 0 || size > MAX_BIND_VALUES) {
+            return padded;
+        }
+
+        int target = Math.min(
+                MAX_BIND_VALUES,
+                size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1);
+
+        Long last = padded.get(size - 1);
+        while (padded.size() < target) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+
+    private static boolean exceedsBindLimit(DSLContext dsl, QueryPart part) {
+        return dsl.extractBindValues(part).size() > MAX_BIND_VALUES;
+    }
+
+
     public static class MSSQL {
 
         public static SQL mkContains(Collection<String> terms) {
@@ -303,7 +401,7 @@ public class JooqUtilities {
                 fieldToTally,
                 DSL.count(fieldToTally).as(TALLY_COUNT_FIELD))
                 .from(table)
-                .where(dsl.renderInlined(recordsInScopeCondition))
+                .where(bindOrInline(dsl, recordsInScopeCondition))
                 .groupBy(fieldToTally);
     }
 
@@ -318,7 +416,7 @@ public class JooqUtilities {
                 DSL.count(fieldToTally).as(TALLY_COUNT_FIELD),
                 DSL.rowNumber().over(DSL.orderBy(DSL.count(fieldToTally).desc())))
                 .from(table)
-                .where(dsl.renderInlined(recordsInScopeCondition))
+                .where(bindOrInline(dsl, recordsInScopeCondition))
                 .groupBy(fieldToTally);
     }
 
@@ -0,0 +1,120 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import org.jooq.TransactionContext;
+import org.jooq.TransactionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Allows work (typically cache eviction or notification) to be deferred until
+ * the jOOQ transaction running on the current thread has committed.
+ *
+ * The {@link #LISTENER} must be registered with the jOOQ configuration, if it
+ * is not (or no transaction is in progress) callbacks are run immediately.
+ * Nested transactions are tracked so callbacks only run when the outermost
+ * transaction commits, if it rolls back they are discarded.
+ */
+public class TransactionCallbacks {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionCallbacks.class);
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    public static final TransactionListener LISTENER = new TransactionListener() {
+        @Override
+        public void beginStart(TransactionContext ctx) {
+            State state = STATE.get();
+            if (state == null) {
+                state = new State();
+                STATE.set(state);
+            }
+            state.depth++;
+        }
+
+        @Override
+        public void beginEnd(TransactionContext ctx) {
+        }
+
+        @Override
+        public void commitStart(TransactionContext ctx) {
+        }
+
+        @Override
+        public void commitEnd(TransactionContext ctx) {
+            State state = STATE.get();
+            if (state != null && --state.depth <= 0) {
+                STATE.remove();
+                state.callbacks.forEach(TransactionCallbacks::runSafely);
+            }
+        }
+
+        @Override
+        public void rollbackStart(TransactionContext ctx) {
+        }
+
+        @Override
+        public void rollbackEnd(TransactionContext ctx) {
+            State state = STATE.get();
+            if (state != null && --state.depth <= 0) {
+                STATE.remove();
+            }
+        }
+    };
+
+
+    /**
+     * Runs the callback once the current transaction commits, or immediately
+     * if there is no transaction in progress on this thread.
+     */
+    public static void afterCommit(Runnable callback) {
+        checkNotNull(callback, "callback cannot be null");
+
+        State state = STATE.get();
+        if (state == null) {
+            runSafely(callback);
+        } else {
+            state.callbacks.add(callback);
+        }
+    }
+
+
+    private static void runSafely(Runnable callback) {
+        // the transaction has already committed, a failing callback must not make it look as if it had not
+        try {
+            callback.run();
+        } catch (Exception e) {
+            LOG.warn("After commit callback failed", e);
+        }
+    }
+
+
+    private static class State {
+        private int depth = 0;
+        private final List<Runnable> callbacks = new ArrayList<>();
+    }
+
+}
@@ -23,6 +23,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.schema.Tables.APPLICATION;
@@ -111,7 +112,7 @@ public class AppCountWidgetDao {
         SelectConditionStep<Record2<Long, Integer>> countStuff = dsl
                 .selectDistinct(APPLICATION.ID, isAppStillAlive)
                 .from(APPLICATION)
-                .where(dsl.renderInlined(APPLICATION.ID.in(diagramApplicationIdSelector)));
+                .where(bindOrInline(dsl, APPLICATION.ID.in(diagramApplicationIdSelector)));
 
         return countStuff.fetchMap(
                 APPLICATION.ID,
@@ -25,6 +25,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.schema.Tables.*;
@@ -123,7 +124,7 @@ public class TargetAppCostWidgetDao {
                 .from(APPLICATION)
                 .leftJoin(COST)
                 .on(costJoinCondition)
-                .where(dsl.renderInlined(costCondition));
+                .where(bindOrInline(dsl, costCondition));
 
         return costStuff.fetchMap(
                 APPLICATION.ID,
@@ -45,6 +45,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.ALLOCATION;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
 import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
@@ -98,7 +99,7 @@ public class AllocationDao {
                 .innerJoin(MEASURABLE_RATING).on(ALLOCATION.MEASURABLE_RATING_ID.eq(MEASURABLE_RATING.ID))
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
                         .and(MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector))))
                 .fetch(TO_DOMAIN_MAPPER);
     }
@@ -111,7 +112,7 @@ public class AllocationDao {
                 .innerJoin(MEASURABLE_RATING).on(ALLOCATION.MEASURABLE_RATING_ID.eq(MEASURABLE_RATING.ID))
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)))
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
 
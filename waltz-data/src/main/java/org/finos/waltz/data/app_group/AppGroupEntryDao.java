@@ -52,6 +52,9 @@ import java.util.Set;
 
 import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -80,11 +83,15 @@ public class AppGroupEntryDao {
 
 
     private final DSLContext dsl;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
 
 
     @Autowired
-    public AppGroupEntryDao(DSLContext dsl) {
+    public AppGroupEntryDao(DSLContext dsl,
+                            AppGroupResolvedMemberDao appGroupResolvedMemberDao) {
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao cannot be null");
         this.dsl = dsl;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
     }
 
 
@@ -100,12 +107,17 @@ public class AppGroupEntryDao {
     }
 
     public int addApplication(long groupId, long applicationId) {
-        return dsl
-                .insertInto(age)
-                .set(age.GROUP_ID, groupId)
-                .set(age.APPLICATION_ID, applicationId)
-                .onDuplicateKeyIgnore()
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int added = tx
+                    .insertInto(age)
+                    .set(age.GROUP_ID, groupId)
+                    .set(age.APPLICATION_ID, applicationId)
+                    .onDuplicateKeyIgnore()
+                    .execute();
+            appGroupResolvedMemberDao.refreshForGroups(tx, asSet(groupId));
+            return added;
+        });
     }
 
 
@@ -118,27 +130,33 @@ public class AppGroupEntryDao {
                         .set(age.APPLICATION_ID, id)
                         .onDuplicateKeyIgnore())
                 .toArray(Query[]::new);
-        return dsl.batch(queries).execute();
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int[] added = tx.batch(queries).execute();
+            appGroupResolvedMemberDao.refreshForGroups(tx, asSet(groupId));
+            return added;
+        });
     }
 
 
     public int removeApplication(long groupId, long applicationId) {
-        return dsl
-                .delete(age)
-                .where(age.GROUP_ID.eq(groupId))
-                .and(age.APPLICATION_ID.eq(applicationId)
-                        .and(age.IS_READONLY.isFalse()))
-                .execute();
+        return removeApplications(groupId, asList(applicationId));
     }
 
 
     public int removeApplications(long groupId, List<Long> applicationIds) {
-        return dsl
-                .delete(age)
-                .where(age.GROUP_ID.eq(groupId))
-                .and(age.APPLICATION_ID.in(applicationIds)
-                        .and(age.IS_READONLY.isFalse()))
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int removed = tx
+                    .delete(age)
+                    .where(age.GROUP_ID.eq(groupId))
+                    .and(age.APPLICATION_ID.in(applicationIds)
+                            .and(age.IS_READONLY.isFalse()))
+                    .execute();
+            appGroupResolvedMemberDao.refreshForGroups(tx, asSet(groupId));
+            return removed;
+        });
     }
 
     public void replaceGroupApplicationEntries(Set<Tuple2<Long, Set<AppGroupEntry>>> entriesForGroups) {
@@ -166,6 +184,8 @@ public class AppGroupEntryDao {
                             }))
                     .collect(collectingAndThen(toSet(), tx::batchInsert))
                     .execute();
+
+            appGroupResolvedMemberDao.refreshForGroups(tx, groupIds);
         });
     }
 
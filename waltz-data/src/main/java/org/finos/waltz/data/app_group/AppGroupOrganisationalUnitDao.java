@@ -27,16 +27,23 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
+
 import static org.finos.waltz.schema.tables.ApplicationGroupOuEntry.APPLICATION_GROUP_OU_ENTRY;
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
 
 @Repository
 public class AppGroupOrganisationalUnitDao {
     private final DSLContext dsl;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
 
     @Autowired
-    public AppGroupOrganisationalUnitDao(DSLContext dsl) {
+    public AppGroupOrganisationalUnitDao(DSLContext dsl,
+                                         AppGroupResolvedMemberDao appGroupResolvedMemberDao) {
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao cannot be null");
         this.dsl = dsl;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
     }
 
 
@@ -64,18 +71,28 @@ public class AppGroupOrganisationalUnitDao {
 
 
     public int removeOrgUnit(long groupId, long orgUnitId) {
-        return dsl.delete(APPLICATION_GROUP_OU_ENTRY)
-                .where(APPLICATION_GROUP_OU_ENTRY.GROUP_ID.eq(groupId))
-                .and(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID.eq(orgUnitId))
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int removed = tx.delete(APPLICATION_GROUP_OU_ENTRY)
+                    .where(APPLICATION_GROUP_OU_ENTRY.GROUP_ID.eq(groupId))
+                    .and(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID.eq(orgUnitId))
+                    .execute();
+            appGroupResolvedMemberDao.refreshForGroups(tx, asSet(groupId));
+            return removed;
+        });
     }
 
 
     public int addOrgUnit(long groupId, long orgUnitId) {
-        return dsl.insertInto(APPLICATION_GROUP_OU_ENTRY)
-                .set(APPLICATION_GROUP_OU_ENTRY.GROUP_ID, groupId)
-                .set(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID, orgUnitId)
-                .onDuplicateKeyIgnore()
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int added = tx.insertInto(APPLICATION_GROUP_OU_ENTRY)
+                    .set(APPLICATION_GROUP_OU_ENTRY.GROUP_ID, groupId)
+                    .set(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID, orgUnitId)
+                    .onDuplicateKeyIgnore()
+                    .execute();
+            appGroupResolvedMemberDao.refreshForGroups(tx, asSet(groupId));
+            return added;
+        });
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.app_group;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.ApplicationGroupResolvedMember;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP_ENTRY;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP_OU_ENTRY;
+import static org.finos.waltz.schema.Tables.APPLICATION_GROUP_RESOLVED_MEMBER;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+
+/**
+ * Maintains <code>application_group_resolved_member</code>, the flattened
+ * membership of each app group.  An application is a member if it is a
+ * direct entry of the group or if it belongs to an org unit which is (or is
+ * beneath) one of the group's org unit entries.
+ *
+ * The table is derived from <code>application_group_entry</code>,
+ * <code>application_group_ou_entry</code>, <code>entity_hierarchy</code> and
+ * application org units, so must be refreshed whenever any of those change.
+ * Entry writes via {@link AppGroupEntryDao} and
+ * {@link AppGroupOrganisationalUnitDao} refresh their group in the same
+ * transaction, other changes refresh the groups they may affect and the
+ * scheduler periodically reconciles every group (see {@link #rebuild()}) to
+ * catch anything missed, e.g. bulk loads.  Refreshes only write the
+ * differences.
+ */
+@Repository
+public class AppGroupResolvedMemberDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AppGroupResolvedMemberDao.class);
+
+    private static final ApplicationGroupResolvedMember agrm = APPLICATION_GROUP_RESOLVED_MEMBER.as("agrm");
+
+    private static final String GROUP_ID = "group_id";
+    private static final String APPLICATION_ID = "application_id";
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public AppGroupResolvedMemberDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return selector for the ids of the applications in the given group
+     */
+    public static Select<Record1<Long>> mkApplicationIdSelector(long groupId) {
+        return DSL
+                .select(agrm.APPLICATION_ID)
+                .from(agrm)
+                .where(agrm.GROUP_ID.eq(groupId));
+    }
+
+
+    public Set<Long> findApplicationIdsForGroup(long groupId) {
+        return dsl
+                .fetch(mkApplicationIdSelector(groupId))
+                .intoSet(agrm.APPLICATION_ID);
+    }
+
+
+    public int refreshForGroups(Collection<Long> groupIds) {
+        return refreshForGroups(dsl, groupIds);
+    }
+
+
+    /**
+     * @param tx  context to use, allows refreshing within the transaction changing the entries
+     */
+    public int refreshForGroups(DSLContext tx, Collection<Long> groupIds) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(groupIds, "groupIds cannot be null");
+        if (groupIds.isEmpty()) {
+            return 0;
+        }
+        return refresh(tx, groupIdField -> groupIdField.in(groupIds));
+    }
+
+
+    /**
+     * Refreshes the groups whose org unit entries cover any of the given
+     * org units, e.g. after applications have been added to, or moved
+     * between, those org units.
+     */
+    public int refreshForOrgUnits(Collection<Long> orgUnitIds) {
+        checkNotNull(orgUnitIds, "orgUnitIds cannot be null");
+        if (orgUnitIds.isEmpty()) {
+            return 0;
+        }
+
+        Select<Record1<Long>> coveringGroupIds = DSL
+                .selectDistinct(APPLICATION_GROUP_OU_ENTRY.GROUP_ID)
+                .from(APPLICATION_GROUP_OU_ENTRY)
+                .innerJoin(ENTITY_HIERARCHY)
+                .on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID)
+                        .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.ORG_UNIT.name())))
+                .where(ENTITY_HIERARCHY.ID.in(orgUnitIds));
+
+        return refresh(dsl, groupIdField -> groupIdField.in(coveringGroupIds));
+    }
+
+
+    /**
+     * Refreshes every group with an org unit entry, e.g. after the org unit hierarchy has been rebuilt.
+     */
+    public int refreshGroupsWithOrgUnitEntries() {
+        return refresh(dsl, groupIdField -> groupIdField.in(DSL
+                .selectDistinct(APPLICATION_GROUP_OU_ENTRY.GROUP_ID)
+                .from(APPLICATION_GROUP_OU_ENTRY)));
+    }
+
+
+    public int rebuild() {
+        return refresh(dsl, groupIdField -> DSL.trueCondition());
+    }
+
+
+    // -- HELPERS ---
+
+    /**
+     * @param groupCondition  given a group id field, returns the condition restricting the groups to refresh
+     * @return number of memberships added and removed
+     */
+    private static int refresh(DSLContext dsl,
+                               Function<Field<Long>, Condition> groupCondition) {
+        long st = System.currentTimeMillis();
+
+        Table<Record2<Long, Long>> resolved = mkResolvedMembers(groupCondition).asTable("resolved");
+        Field<Long> resolvedGroupId = resolved.field(GROUP_ID, Long.class);
+        Field<Long> resolvedAppId = resolved.field(APPLICATION_ID, Long.class);
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int removed = tx
+                    .deleteFrom(APPLICATION_GROUP_RESOLVED_MEMBER)
+                    .where(groupCondition.apply(APPLICATION_GROUP_RESOLVED_MEMBER.GROUP_ID))
+                    .andNotExists(DSL
+                            .selectOne()
+                            .from(resolved)
+                            .where(resolvedGroupId.eq(APPLICATION_GROUP_RESOLVED_MEMBER.GROUP_ID))
+                            .and(resolvedAppId.eq(APPLICATION_GROUP_RESOLVED_MEMBER.APPLICATION_ID)))
+                    .execute();
+
+            int added = tx
+                    .insertInto(APPLICATION_GROUP_RESOLVED_MEMBER)
+                    .columns(APPLICATION_GROUP_RESOLVED_MEMBER.GROUP_ID, APPLICATION_GROUP_RESOLVED_MEMBER.APPLICATION_ID)
+                    .select(DSL
+                            .select(resolvedGroupId, resolvedAppId)
+                            .from(resolved)
+                            .whereNotExists(DSL
+                                    .selectOne()
+                                    .from(agrm)
+                                    .where(agrm.GROUP_ID.eq(resolvedGroupId))
+                                    .and(agrm.APPLICATION_ID.eq(resolvedAppId))))
+                    .execute();
+
+            LOG.debug("Refreshed app group resolved members, added: {}, removed: {}, duration: {}ms",
+                    added,
+                    removed,
+                    System.currentTimeMillis() - st);
+
+            return added + removed;
+        });
+    }
+
+
+    private static Select<Record2<Long, Long>> mkResolvedMembers(Function<Field<Long>, Condition> groupCondition) {
+        Select<Record2<Long, Long>> directApps = DSL
+                .select(APPLICATION_GROUP_ENTRY.GROUP_ID.as(GROUP_ID),
+                        APPLICATION_GROUP_ENTRY.APPLICATION_ID.as(APPLICATION_ID))
+                .from(APPLICATION_GROUP_ENTRY)
+                .where(groupCondition.apply(APPLICATION_GROUP_ENTRY.GROUP_ID));
+
+        Select<Record2<Long, Long>> appsViaOrgUnits = DSL
+                .select(APPLICATION_GROUP_OU_ENTRY.GROUP_ID,
+                        APPLICATION.ID)
+                .from(APPLICATION_GROUP_OU_ENTRY)
+                .innerJoin(ENTITY_HIERARCHY)
+                .on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID)
+                        .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.ORG_UNIT.name())))
+                .innerJoin(APPLICATION)
+                .on(APPLICATION.ORGANISATIONAL_UNIT_ID.eq(ENTITY_HIERARCHY.ID))
+                .where(groupCondition.apply(APPLICATION_GROUP_OU_ENTRY.GROUP_ID));
+
+        return directApps.union(appsViaOrgUnits);
+    }
+}
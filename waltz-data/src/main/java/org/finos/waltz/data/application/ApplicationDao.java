@@ -20,6 +20,7 @@ package org.finos.waltz.data.application;
 
 
 import org.finos.waltz.data.JooqUtilities;
+import org.finos.waltz.data.rollup.RollupDirtyNodeDao;
 import org.finos.waltz.model.Criticality;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
@@ -41,6 +42,7 @@ import org.jooq.Record1;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
 import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -55,6 +57,7 @@ import static java.util.Optional.ofNullable;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.EXTERNAL_IDENTIFIER;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 
@@ -92,11 +95,15 @@ public class ApplicationDao {
 
 
     private final DSLContext dsl;
+    private final RollupDirtyNodeDao rollupDirtyNodeDao;
 
 
     @Autowired
-    public ApplicationDao(DSLContext dsl) {
+    public ApplicationDao(DSLContext dsl,
+                          RollupDirtyNodeDao rollupDirtyNodeDao) {
+        checkNotNull(rollupDirtyNodeDao, "rollupDirtyNodeDao cannot be null");
         this.dsl = dsl;
+        this.rollupDirtyNodeDao = rollupDirtyNodeDao;
     }
 
 
@@ -244,16 +251,25 @@ public class ApplicationDao {
                 .id()
                 .orElseThrow(() -> new IllegalArgumentException("Cannot update an application without an id"));
 
-        return dsl.executeUpdate(
-                record,
-                APPLICATION.ID.eq(appId));
+        // the app may move org unit or change lifecycle, so both its old
+        // and new rollup nodes are marked
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            Select<Record1<Long>> appIdSelector = DSL.select(DSL.val(appId));
+            rollupDirtyNodeDao.markNodesContainingApps(tx, appIdSelector);
+            int updated = tx.executeUpdate(
+                    record,
+                    APPLICATION.ID.eq(appId));
+            rollupDirtyNodeDao.markNodesContainingApps(tx, appIdSelector);
+            return updated;
+        });
     }
 
 
     public List<Application> findByAppIdSelector(Select<Record1<Long>> selector) {
         return dsl.select(APPLICATION.fields())
                 .from(APPLICATION)
-                .where(dsl.renderInlined(APPLICATION.ID.in(selector)))
+                .where(bindOrInline(dsl, APPLICATION.ID.in(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
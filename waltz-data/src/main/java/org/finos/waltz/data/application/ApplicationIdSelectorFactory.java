@@ -19,6 +19,7 @@
 package org.finos.waltz.data.application;
 
 import org.finos.waltz.data.SelectorUtilities;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
@@ -41,7 +42,6 @@ import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectOrderByStep;
-import org.jooq.SelectWhereStep;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Service;
 
@@ -53,7 +53,6 @@ import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.HierarchyQueryScope.EXACT;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
-import static org.finos.waltz.schema.tables.ApplicationGroupEntry.APPLICATION_GROUP_ENTRY;
 import static org.finos.waltz.schema.tables.EntityRelationship.ENTITY_RELATIONSHIP;
 import static org.finos.waltz.schema.tables.FlowDiagramEntity.FLOW_DIAGRAM_ENTITY;
 import static org.finos.waltz.schema.tables.Involvement.INVOLVEMENT;
@@ -494,36 +493,11 @@ public class ApplicationIdSelectorFactory implements Function<IdSelectionOptions
 
         Condition applicationConditions = SelectorUtilities.mkApplicationConditions(app, options);
 
-        SelectConditionStep<Record1<Long>> associatedOrgUnits = DSL
-                .selectDistinct(ENTITY_HIERARCHY.ID)
-                .from(APPLICATION_GROUP_OU_ENTRY)
-                .innerJoin(ENTITY_HIERARCHY)
-                .on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(APPLICATION_GROUP_OU_ENTRY.ORG_UNIT_ID)
-                        .and(ENTITY_HIERARCHY.KIND.eq(DSL.val(EntityKind.ORG_UNIT.name()))))
-                .where(APPLICATION_GROUP_OU_ENTRY.GROUP_ID.eq(options.entityReference().id()));
-
-        SelectConditionStep<Record1<Long>> applicationIdsFromAssociatedOrgUnits = DSL
-                .select(app.ID)
-                .from(app)
-                .innerJoin(ORGANISATIONAL_UNIT)
-                .on(app.ORGANISATIONAL_UNIT_ID.eq(ORGANISATIONAL_UNIT.ID))
-                .where(ORGANISATIONAL_UNIT.ID.in(associatedOrgUnits));
-
-        SelectConditionStep<Record1<Long>> directApps = DSL
-                .select(APPLICATION_GROUP_ENTRY.APPLICATION_ID)
-                .from(APPLICATION_GROUP_ENTRY)
-                .where(APPLICATION_GROUP_ENTRY.GROUP_ID.eq(options.entityReference().id()));
-
-        SelectWhereStep<Record1<Long>> appIds = DSL
-                .selectFrom(directApps
-                        .union(applicationIdsFromAssociatedOrgUnits)
-                        .asTable());
-
+        // membership, incl. apps beneath org unit entries, is maintained by the AppGroupResolvedMemberDao
         return DSL
                 .select(app.ID)
                 .from(app)
-                .where(app.ID.in(appIds))
-                //                    .where(app.ID.in(directApps).or(app.ID.in(applicationIdsFromAssociatedOrgUnits)))
+                .where(app.ID.in(AppGroupResolvedMemberDao.mkApplicationIdSelector(options.entityReference().id())))
                 .and(applicationConditions);
     }
 
@@ -83,6 +83,7 @@ import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
 import static org.finos.waltz.common.StringUtilities.sanitizeCharacters;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.RATING_SCHEME_ITEM;
 import static org.finos.waltz.schema.Tables.USER_ROLE;
@@ -364,7 +365,7 @@ public class AssessmentRatingDao {
                 .select(ENTITY_NAME_FIELD)
                 .from(ar)
                 .innerJoin(rsi).on(ar.RATING_ID.eq(rsi.ID))
-                .where(dsl.renderInlined(entityCondition))
+                .where(bindOrInline(dsl, entityCondition))
                 .fetch();
 
         Map<Long, Collection<Tuple2<String, EntityReference>>> groupedByDef = groupBy(data,
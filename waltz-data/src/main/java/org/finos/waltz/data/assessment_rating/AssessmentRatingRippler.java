@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.MapUtilities;
 import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.settings.SettingsDao;
@@ -12,7 +13,6 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdSelectionOptions;
-import org.finos.waltz.model.PairDiffResult;
 import org.finos.waltz.model.assessment_definition.AssessmentRipplerJobConfiguration;
 import org.finos.waltz.model.assessment_definition.AssessmentRipplerJobStep;
 import org.finos.waltz.model.assessment_definition.ImmutableAssessmentRipplerJobConfiguration;
@@ -34,13 +34,15 @@ import org.finos.waltz.schema.tables.RatingScheme;
 import org.finos.waltz.schema.tables.RatingSchemeItem;
 import org.finos.waltz.schema.tables.records.AssessmentDefinitionRecord;
 import org.finos.waltz.schema.tables.records.AssessmentRatingRecord;
+import org.jooq.BatchBindStep;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.Record4;
-import org.jooq.Result;
 import org.jooq.Select;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
@@ -49,25 +51,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
 import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.StringUtilities.safeEq;
-import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.model.EntityReference.mkRef;
-import static org.finos.waltz.model.PairDiffResult.mkPairDiff;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
@@ -94,12 +107,26 @@ public class AssessmentRatingRippler {
 
     private final DSLContext dsl;
     private final SettingsDao settingsDao;
+    private final DBExecutorPoolInterface dbExecutorPool;
+
+    // steps are fully reconciled at least this often, picking up changes which do not touch
+    // the source ratings themselves (e.g. new flows, removed measurable ratings or edited targets)
+    private static final long FULL_RIPPLE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    // 'from->to' -> watermark of the step when last rippled
+    private final ConcurrentMap<String, Watermark> watermarksByStep = new ConcurrentHashMap<>();
 
     @Autowired
     public AssessmentRatingRippler(DSLContext dsl,
-                                   SettingsDao settingsDao) {
+                                   SettingsDao settingsDao,
+                                   DBExecutorPoolInterface dbExecutorPool) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(settingsDao, "settingsDao cannot be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+
         this.dsl = dsl;
         this.settingsDao = settingsDao;
+        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -117,32 +144,168 @@ public class AssessmentRatingRippler {
 
 
     /**
-     * Ripple all assessments configured in the settings table
+     * Ripple all assessments configured in the settings table.
+     *
+     * Configurations which do not share any assessment definitions are
+     * independent of each other and are rippled in parallel, each in its
+     * own transaction.  Steps whose source ratings have not changed since they
+     * were last rippled are skipped, and steps where source ratings have only
+     * been added or updated re-ripple just the targets those ratings reach.
      *
      * @return  the number of steps taken, where a step is a source assessment def and a target assessment def
      */
     public final Long rippleAssessments() {
-        Set<AssessmentRipplerJobConfiguration> rippleConfig = findRippleConfig();
+        List<Future<Integer>> lanes = mkLanes(findRippleConfig())
+                .stream()
+                .map(steps -> dbExecutorPool.submit(() -> rippleLane(steps)))
+                .collect(Collectors.toList());
+
+        long stepCount = 0;
+        RuntimeException failure = null;
+
+        for (Future<Integer> lane : lanes) {
+            try {
+                stepCount += lane.get();
+            } catch (InterruptedException | ExecutionException e) {
+                LOG.error("Assessment Rippler: failed to ripple lane", e);
+                failure = new IllegalStateException("Failed to ripple assessments", e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return stepCount;
+    }
+
+
+    /**
+     * Groups the steps of the given configurations into lanes.  Each lane
+     * holds the steps (in config order) of all configurations which,
+     * directly or transitively, share an assessment definition.  Lanes can
+     * therefore be rippled independently of each other.
+     *
+     * @param configs  ripple configurations
+     * @return  lists of steps which must be rippled sequentially
+     */
+    static Collection<List<AssessmentRipplerJobStep>> mkLanes(Collection<AssessmentRipplerJobConfiguration> configs) {
+        List<Tuple2<Set<String>, List<AssessmentRipplerJobStep>>> lanes = new ArrayList<>();
+
+        configs.stream()
+                .sorted(Comparator.comparing(AssessmentRipplerJobConfiguration::name))
+                .forEach(config -> {
+                    Set<String> defs = config
+                            .steps()
+                            .stream()
+                            .flatMap(step -> Stream.of(step.fromDef(), step.toDef()))
+                            .collect(toSet());
+
+                    Tuple2<Set<String>, List<AssessmentRipplerJobStep>> merged = tuple(new HashSet<>(defs), new ArrayList<>());
+
+                    Iterator<Tuple2<Set<String>, List<AssessmentRipplerJobStep>>> it = lanes.iterator();
+                    while (it.hasNext()) {
+                        Tuple2<Set<String>, List<AssessmentRipplerJobStep>> lane = it.next();
+                        if (! Collections.disjoint(lane.v1, defs)) {
+                            merged.v1.addAll(lane.v1);
+                            merged.v2.addAll(lane.v2);
+                            it.remove();
+                        }
+                    }
 
-        return dsl.transactionResult(ctx -> {
+                    merged.v2.addAll(config.steps());
+                    lanes.add(merged);
+                });
+
+        return lanes
+                .stream()
+                .map(Tuple2::v2)
+                .collect(Collectors.toList());
+    }
+
+
+    private int rippleLane(List<AssessmentRipplerJobStep> steps) {
+        Map<String, Watermark> rippledWatermarks = new HashMap<>();
+
+        int stepCount = dsl.transactionResult(ctx -> {
             DSLContext tx = ctx.dsl();
-            return rippleConfig
-                    .stream()
-                    .flatMap(config -> config.steps().stream())
-                    .map(step -> {
-                        rippleAssessment(
-                                tx,
-                                "waltz",
-                                "waltz-assessment-rippler",
-                                step.fromDef(),
-                                step.toDef(),
-                                Optional.empty());
-                        return 1;
-                    })
-                    .count();
+            long now = System.currentTimeMillis();
+            for (AssessmentRipplerJobStep step : steps) {
+                String stepKey = step.fromDef() + "->" + step.toDef();
+                Tuple2<AssessmentDefinitionRecord, AssessmentDefinitionRecord> defs = fetchDefinitions(tx, step.fromDef(), step.toDef());
+                Tuple2<Integer, Timestamp> sourceSummary = summariseRatings(tx, defs.v1);
+                Watermark mark = watermarksByStep.get(stepKey);
+
+                Tuple2<Select<Record4<Long, Long, Long, String>>, Optional<Select>> source = mkRippleSource(tx, defs.v1, defs.v2, Optional.empty());
+                long fullRippleAt;
+
+                if (mark == null || now - mark.fullRippleAt > FULL_RIPPLE_INTERVAL_MILLIS) {
+                    rippleAssessments(tx, "waltz", "waltz-assessment-rippler", defs.v1, defs.v2, source.v1, source.v2);
+                    fullRippleAt = now;
+                } else if (mark.source.equals(sourceSummary)) {
+                    LOG.info("Assessment Rippler: {}, unchanged since last ripple, skipping", stepKey);
+                    continue;
+                } else if (mark.hasOnlyNewerSourceRatings(sourceSummary)) {
+                    rippleChangedSubjects(tx, defs.v1, defs.v2, source.v1, mark.source.v2);
+                    fullRippleAt = mark.fullRippleAt;
+                } else {
+                    // source ratings have been removed or back-dated, so reconcile the whole step
+                    rippleAssessments(tx, "waltz", "waltz-assessment-rippler", defs.v1, defs.v2, source.v1, source.v2);
+                    fullRippleAt = now;
+                }
+
+                rippledWatermarks.put(stepKey, new Watermark(sourceSummary, fullRippleAt));
+            }
+            return steps.size();
         });
+
+        // only remember watermarks once the lane has been committed
+        watermarksByStep.putAll(rippledWatermarks);
+        return stepCount;
+    }
+
+
+    /**
+     * Re-ripples only the targets reached from source entities whose ratings have been
+     * written since the given high-water mark.  All source rows of those targets are
+     * used, so their descriptions (which list every source) remain complete.
+     */
+    private static void rippleChangedSubjects(DSLContext tx,
+                                              AssessmentDefinitionRecord from,
+                                              AssessmentDefinitionRecord to,
+                                              Select<Record4<Long, Long, Long, String>> source,
+                                              Timestamp highWaterMark) {
+        AssessmentRating changed = ar.as("changed");
+        Table<?> changedSource = source.asTable("changed_source", "target_id", "rating_id", "source_id", "source_name");
+        Table<?> stepSource = source.asTable("step_source", "target_id", "rating_id", "source_id", "source_name");
+        Field<Long> targetId = stepSource.field("target_id", Long.class);
+
+        Select<Record1<Long>> changedTargets = DSL
+                .selectDistinct(changedSource.field("target_id", Long.class))
+                .from(changedSource)
+                .where(changedSource.field("source_id", Long.class).in(DSL
+                        .select(changed.ENTITY_ID)
+                        .from(changed)
+                        .where(changed.ASSESSMENT_DEFINITION_ID.eq(from.getId()))
+                        .and(changed.LAST_UPDATED_AT.gt(highWaterMark))));
+
+        rippleAssessments(
+                tx,
+                "waltz",
+                "waltz-assessment-rippler",
+                from,
+                to,
+                tx.select(
+                            targetId,
+                            stepSource.field("rating_id", Long.class),
+                            stepSource.field("source_id", Long.class),
+                            stepSource.field("source_name", String.class))
+                        .from(stepSource)
+                        .where(targetId.in(changedTargets)),
+                Optional.of(changedTargets));
     }
 
+
     /**
      * Ripple all assessments configured in the settings table for a particular scope
      *
@@ -189,7 +352,14 @@ public class AssessmentRatingRippler {
                                         String from,
                                         String to,
                                         Optional<IdSelectionOptions> scope) {
+        Tuple2<AssessmentDefinitionRecord, AssessmentDefinitionRecord> defs = fetchDefinitions(tx, from, to);
+        rippleAssessment(tx, userId, provenance, defs.v1, defs.v2, scope);
+    }
 
+
+    private static Tuple2<AssessmentDefinitionRecord, AssessmentDefinitionRecord> fetchDefinitions(DSLContext tx,
+                                                                                                   String from,
+                                                                                                   String to) {
         Map<String, AssessmentDefinitionRecord> defs = tx
                 .selectFrom(ad)
                 .where(ad.EXTERNAL_ID.in(from, to))
@@ -198,8 +368,8 @@ public class AssessmentRatingRippler {
         AssessmentDefinitionRecord fromDef = defs.get(from);
         Checks.checkNotNull(fromDef, "Cannot ripple assessment as definition: %s not found", from);
         AssessmentDefinitionRecord toDef = defs.get(to);
-        Checks.checkNotNull(toDef, "Cannot ripple assessment as definition: %s not found", toDef);
-        rippleAssessment(tx, userId, provenance, fromDef, toDef, scope);
+        Checks.checkNotNull(toDef, "Cannot ripple assessment as definition: %s not found", to);
+        return tuple(fromDef, toDef);
     }
 
 
@@ -209,6 +379,28 @@ public class AssessmentRatingRippler {
                                          AssessmentDefinitionRecord from,
                                          AssessmentDefinitionRecord to,
                                          Optional<IdSelectionOptions> scope) {
+        Tuple2<Select<Record4<Long, Long, Long, String>>, Optional<Select>> source = mkRippleSource(tx, from, to, scope);
+
+        rippleAssessments(
+                tx,
+                userId,
+                provenance,
+                from,
+                to,
+                source.v1,
+                source.v2);
+    }
+
+
+    /**
+     * Builds the query providing the rippled (target id, rating id, source id, source name)
+     * rows for the given definitions, along with an optional selector restricting the
+     * targets which should be considered.
+     */
+    private static Tuple2<Select<Record4<Long, Long, Long, String>>, Optional<Select>> mkRippleSource(DSLContext tx,
+                                                                                                    AssessmentDefinitionRecord from,
+                                                                                                    AssessmentDefinitionRecord to,
+                                                                                                    Optional<IdSelectionOptions> scope) {
         checkTrue(
                 from.getRatingSchemeId().equals(to.getRatingSchemeId()),
                 "Assessments must share a rating scheme when rippling (%s -> %s)",
@@ -221,12 +413,7 @@ public class AssessmentRatingRippler {
 
         if (kinds.equals(tuple(EntityKind.PHYSICAL_SPECIFICATION, EntityKind.PHYSICAL_FLOW))) {
             // PHYSICAL_SPEC -> PHYSICAL_FLOW
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(pf.ID, ar.RATING_ID, ps.ID, ps.NAME)
                             .from(ar)
                             .innerJoin(ps)
@@ -258,12 +445,7 @@ public class AssessmentRatingRippler {
             Optional<Select> targetScopeSelector = scope
                     .map(k -> logicalFlowSelector.selector());
 
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(lf.ID, ar.RATING_ID, pf.ID, pf.NAME)
                             .from(ar)
                             .innerJoin(pf).on(pf.ID.eq(ar.ENTITY_ID))
@@ -296,12 +478,7 @@ public class AssessmentRatingRippler {
                     sourceName,
                     DSL.value(" -> "),
                     targetName);
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(lf.SOURCE_ENTITY_ID, ar.RATING_ID, lf.ID, flowDesc)
                             .from(ar)
                             .innerJoin(lf).on(lf.ID.eq(ar.ENTITY_ID))
@@ -330,12 +507,7 @@ public class AssessmentRatingRippler {
                     Optional.empty());
         } else if (kinds.v1 == EntityKind.MEASURABLE && kinds.v2 == EntityKind.APPLICATION) {
             // MEASURABLE -> APPLICATION
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(mr.ENTITY_ID, ar.RATING_ID, m.ID, m.NAME)
                             .from(ar)
                             .innerJoin(mr).on(mr.MEASURABLE_ID.eq(ar.ENTITY_ID))
@@ -345,12 +517,7 @@ public class AssessmentRatingRippler {
                     Optional.empty());
         } else if (kinds.v1 == EntityKind.MEASURABLE && kinds.v2 == EntityKind.MEASURABLE_RATING) {
             // MEASURABLE -> MEASURABLE_RATING
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(mr.ID, ar.RATING_ID, m.ID, m.NAME)
                             .from(ar)
                             .innerJoin(mr).on(mr.MEASURABLE_ID.eq(ar.ENTITY_ID))
@@ -360,12 +527,7 @@ public class AssessmentRatingRippler {
                     Optional.empty());
         } else if (kinds.v1 == EntityKind.CHANGE_INITIATIVE && kinds.v2 == EntityKind.APPLICATION) {
             // CHANGE_INITIATIVE -> APPLICATION
-            rippleAssessments(
-                    tx,
-                    userId,
-                    provenance,
-                    from,
-                    to,
+            return tuple(
                     tx.select(er.ID_B, ar.RATING_ID, ci.ID, ci.NAME)
                             .from(er)
                             .innerJoin(ci).on(ci.ID.eq(er.ID_A).and(er.KIND_A.eq(EntityKind.CHANGE_INITIATIVE.name())))
@@ -389,67 +551,136 @@ public class AssessmentRatingRippler {
                                           AssessmentDefinitionRecord to,
                                           Select<Record4<Long, Long, Long, String>> targetAndRatingProvider,
                                           Optional<Select> selector) {
+        long st = System.currentTimeMillis();
         Timestamp now = nowUtcTimestamp();
-        Set<AssessmentRatingRecord> required = MapUtilities
+
+        Table<?> source = targetAndRatingProvider.asTable("ripple_source", "target_id", "rating_id", "source_id", "source_name");
+        Field<Long> sourceTargetId = source.field("target_id", Long.class);
+        Field<Long> sourceRatingId = source.field("rating_id", Long.class);
+
+        Condition selectorCondition = selector.isPresent() ? ar.ENTITY_ID.in(selector.get()) : DSL.trueCondition();
+        Condition isTarget = ar.ASSESSMENT_DEFINITION_ID.eq(to.getId()).and(selectorCondition);
+
+        Map<Tuple2<Long, Long>, String> requiredDescriptions = MapUtilities
                 .groupAndThen(
                         targetAndRatingProvider.fetch(),
                         r -> tuple(r.get(0, Long.class), r.get(1, Long.class)),
-                        xs -> xs.stream()
-                                .map(x -> mkRef(
-                                        EntityKind.valueOf(from.getEntityKind()),
-                                        x.get(2, Long.class),
-                                        x.get(3, String.class)))
-                                .sorted(Comparator.comparing(d -> d.name().orElse("??")))
-                                .collect(Collectors.toList()))
+                        xs -> calcDescription(
+                                from,
+                                xs.stream()
+                                        .map(x -> mkRef(
+                                                EntityKind.valueOf(from.getEntityKind()),
+                                                x.get(2, Long.class),
+                                                x.get(3, String.class)))
+                                        .sorted(Comparator.comparing(d -> d.name().orElse("??")))
+                                        .collect(Collectors.toList())));
+
+        Map<Tuple2<Long, Long>, String> existingDescriptions = tx
+                .select(ar.ENTITY_ID, ar.RATING_ID, ar.DESCRIPTION)
+                .from(ar)
+                .where(isTarget)
+                .fetchMap(
+                        r -> tuple(r.get(ar.ENTITY_ID), r.get(ar.RATING_ID)),
+                        r -> r.get(ar.DESCRIPTION));
+
+        // ratings which are no longer backed by the source are removed in a single statement
+        int rmCount = tx
+                .deleteFrom(ar)
+                .where(isTarget)
+                .andNotExists(DSL
+                        .selectOne()
+                        .from(source)
+                        .where(sourceTargetId.eq(ar.ENTITY_ID))
+                        .and(sourceRatingId.eq(ar.RATING_ID)))
+                .execute();
+
+        // missing ratings are inserted directly from the source, their descriptions are filled in below
+        AssessmentRating existing = ar.as("existing");
+
+        int createCount = tx
+                .insertInto(ar)
+                .columns(ar.ENTITY_ID,
+                        ar.RATING_ID,
+                        ar.ENTITY_KIND,
+                        ar.ASSESSMENT_DEFINITION_ID,
+                        ar.LAST_UPDATED_AT,
+                        ar.LAST_UPDATED_BY,
+                        ar.PROVENANCE,
+                        ar.IS_READONLY)
+                .select(DSL
+                        .selectDistinct(
+                                sourceTargetId,
+                                sourceRatingId,
+                                DSL.val(to.getEntityKind()),
+                                DSL.val(to.getId()),
+                                DSL.val(now),
+                                DSL.val(userId),
+                                DSL.val(provenance),
+                                DSL.val(true))
+                        .from(source)
+                        .where(selector.isPresent() ? sourceTargetId.in(selector.get()) : DSL.trueCondition())
+                        .andNotExists(DSL
+                                .selectOne()
+                                .from(existing)
+                                .where(existing.ASSESSMENT_DEFINITION_ID.eq(to.getId()))
+                                .and(existing.ENTITY_KIND.eq(to.getEntityKind()))
+                                .and(existing.ENTITY_ID.eq(sourceTargetId))
+                                .and(existing.RATING_ID.eq(sourceRatingId))))
+                .execute();
+
+        // descriptions depend on the (sorted) names of all sources so are derived here,
+        // only changed descriptions are written, as a single batched statement
+        List<Map.Entry<Tuple2<Long, Long>, String>> changedDescriptions = requiredDescriptions
                 .entrySet()
                 .stream()
-                .map(kv -> {
-                    String desc = calcDescription(from, kv.getValue());
-
-                    AssessmentRatingRecord record = tx.newRecord(ar);
-                    record.setAssessmentDefinitionId(to.getId());
-                    record.setEntityId(kv.getKey().v1);
-                    record.setEntityKind(to.getEntityKind());
-                    record.setRatingId(kv.getKey().v2);
-                    record.setLastUpdatedAt(now);
-                    record.setIsReadonly(true);
-                    record.setLastUpdatedBy(userId);
-                    record.setProvenance(provenance);
-                    record.setDescription(desc);
-                    return record;
-                })
-                .collect(toSet());
-
-        Condition selectorCondition = selector.isPresent() ? ar.ENTITY_ID.in(selector.get()) : DSL.trueCondition();
+                .filter(kv -> ! safeEq(kv.getValue(), existingDescriptions.get(kv.getKey())))
+                .collect(Collectors.toList());
+
+        if (! changedDescriptions.isEmpty()) {
+            BatchBindStep updateDescription = tx.batch(tx
+                    .update(ar)
+                    .set(ar.DESCRIPTION, (String) null)
+                    .set(ar.LAST_UPDATED_AT, (Timestamp) null)
+                    .where(ar.ASSESSMENT_DEFINITION_ID.eq(to.getId()))
+                    .and(ar.ENTITY_KIND.eq(to.getEntityKind()))
+                    .and(ar.ENTITY_ID.eq((Long) null))
+                    .and(ar.RATING_ID.eq((Long) null)));
+
+            changedDescriptions.forEach(kv -> updateDescription.bind(
+                    kv.getValue(),
+                    now,
+                    to.getId(),
+                    to.getEntityKind(),
+                    kv.getKey().v1,
+                    kv.getKey().v2));
+
+            updateDescription.execute();
+        }
 
-        Result<AssessmentRatingRecord> existing = tx
-                .selectFrom(ar)
-                .where(ar.ASSESSMENT_DEFINITION_ID.eq(to.getId()))
-                .and(selectorCondition)
-                .fetch();
-
-        PairDiffResult<AssessmentRatingRecord, AssessmentRatingRecord> diff = mkPairDiff(
-                existing,
-                required,
-                a -> tuple(a.getEntityId(), a.getRatingId()),
-                b -> tuple(b.getEntityId(), b.getRatingId()),
-                (a, b) -> safeEq(a.getDescription(), b.getDescription()));
-
-        int insertCount = summarizeResults(tx.batchInsert(diff.otherOnly()).execute());
-        int rmCount = summarizeResults(tx.batchDelete(diff.waltzOnly()).execute());
-        int updCount = summarizeResults(diff.differingIntersection()
-                .stream()
-                .map(t -> tx.update(ar).set(ar.DESCRIPTION, t.v2.getDescription()).where(ar.ID.eq(t.v1.getId())))
-                .collect(Collectors.collectingAndThen(toSet(), tx::batch))
-                .execute());
+        long duration = System.currentTimeMillis() - st;
 
         LOG.info(format(
-                "Assessment Rippler: %s -> %s, created: %d ratings, removed: %d ratings, updated: %d ratings",
+                "Assessment Rippler: %s -> %s, required: %d ratings, created: %d, removed: %d, updated: %d, duration: %dms, throughput: %d ratings/sec",
                 from.getExternalId(),
                 to.getExternalId(),
-                insertCount,
+                requiredDescriptions.size(),
+                createCount,
                 rmCount,
-                updCount));
+                changedDescriptions.stream().filter(kv -> existingDescriptions.containsKey(kv.getKey())).count(),
+                duration,
+                duration == 0 ? requiredDescriptions.size() : (requiredDescriptions.size() * 1000L) / duration));
+    }
+
+
+    private static Tuple2<Integer, Timestamp> summariseRatings(DSLContext tx,
+                                                               AssessmentDefinitionRecord def) {
+        Record2<Integer, Timestamp> summary = tx
+                .select(DSL.count(), DSL.max(ar.LAST_UPDATED_AT))
+                .from(ar)
+                .where(ar.ASSESSMENT_DEFINITION_ID.eq(def.getId()))
+                .fetchOne();
+
+        return tuple(summary.value1(), summary.value2());
     }
 
 
@@ -541,4 +772,35 @@ public class AssessmentRatingRippler {
                 .filter(Objects::nonNull)
                 .collect(toSet());
     }
+
+
+    /**
+     * The state of a step when it was last rippled, as a (count, latest update) summary
+     * of the ratings held against its source definition.  The summary is read via
+     * idx_assessment_rating_def_updated, so checking an unchanged step is cheap.
+     */
+    private static class Watermark {
+
+        private final Tuple2<Integer, Timestamp> source;
+        private final long fullRippleAt;
+
+
+        private Watermark(Tuple2<Integer, Timestamp> source,
+                          long fullRippleAt) {
+            this.source = source;
+            this.fullRippleAt = fullRippleAt;
+        }
+
+
+        /**
+         * True if, going by the summaries, the source ratings have only been added to or
+         * updated since the watermark, so every change is later than its high-water mark.
+         */
+        private boolean hasOnlyNewerSourceRatings(Tuple2<Integer, Timestamp> current) {
+            return source.v2 != null
+                    && current.v2 != null
+                    && current.v2.after(source.v2)
+                    && current.v1 >= source.v1;
+        }
+    }
 }
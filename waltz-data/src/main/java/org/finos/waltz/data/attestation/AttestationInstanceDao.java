@@ -79,6 +79,7 @@ import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
@@ -574,7 +575,7 @@ public class AttestationInstanceDao {
                 .leftJoin(appAttestations)
                 .on(attestationExistsForThisTargetEntityAndAppCondition)
                 .where(APPLICATION.ID.in(appSelector))
-                .and(dsl.renderInlined(filterCondition))
+                .and(bindOrInline(dsl, filterCondition))
                 .fetch(r -> tuple(
                         EntityKind.valueOf(r.get(possibleAttestationKinds.field(ATTESTATION_RUN.ATTESTED_ENTITY_KIND))),
                         r.get(possibleAttestationKinds.field(ATTESTATION_RUN.ATTESTED_ENTITY_ID)),
@@ -18,12 +18,16 @@
 
 package org.finos.waltz.data.attestation;
 
+import org.finos.waltz.data.bulk_load.BulkLoaders;
 import org.finos.waltz.schema.tables.records.AttestationInstanceRecipientRecord;
 import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.finos.waltz.schema.tables.AttestationInstance.ATTESTATION_INSTANCE;
 import static org.finos.waltz.schema.tables.AttestationInstanceRecipient.ATTESTATION_INSTANCE_RECIPIENT;
@@ -52,6 +56,27 @@ public class AttestationInstanceRecipientDao {
     }
 
 
+    /**
+     * Creates recipients for many instances at once using the dialect's
+     * bulk load mechanism.
+     *
+     * @param userIdsByInstanceId  recipient user ids keyed by attestation instance id
+     * @return number of recipients created
+     */
+    public int createAll(Map<Long, ? extends Collection<String>> userIdsByInstanceId) {
+        List<AttestationInstanceRecipientRecord> records = new ArrayList<>();
+
+        userIdsByInstanceId.forEach((instanceId, userIds) -> userIds.forEach(userId -> {
+            AttestationInstanceRecipientRecord record = dsl.newRecord(ATTESTATION_INSTANCE_RECIPIENT);
+            record.setAttestationInstanceId(instanceId);
+            record.setUserId(userId);
+            records.add(record);
+        }));
+
+        return BulkLoaders.bulkLoad(dsl, records);
+    }
+
+
     public List<String> findRecipientsByRunId(Long id) {
 
         return dsl
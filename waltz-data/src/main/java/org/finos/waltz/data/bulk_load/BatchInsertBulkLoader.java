@@ -0,0 +1,65 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.TableRecord;
+
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.stream.IntStream.of;
+
+
+/**
+ * Default loader, uses jdbc batches of single row insert statements.
+ *
+ * This works on every supported database (and is the path taken for H2) but
+ * is the slowest option as most drivers still send each row as its own
+ * statement.
+ */
+public class BatchInsertBulkLoader implements BulkLoader {
+
+    private static final int BATCH_SIZE = 1_000;
+
+
+    @Override
+    public <R extends TableRecord<R>> int load(DSLContext dsl, Collection<R> records) {
+        return BulkLoaders
+                .groupByLoadedFields(records)
+                .values()
+                .stream()
+                .mapToInt(group -> insertChunked(dsl, group))
+                .sum();
+    }
+
+
+    private static <R extends TableRecord<R>> int insertChunked(DSLContext dsl, List<R> records) {
+        int inserted = 0;
+        for (int i = 0; i < records.size(); i += BATCH_SIZE) {
+            List<R> chunk = records.subList(i, Math.min(records.size(), i + BATCH_SIZE));
+            // some drivers report SUCCESS_NO_INFO (-2) per row, count those as a single row
+            inserted += of(dsl.batchInsert(chunk).execute())
+                    .map(c -> c < 0 ? 1 : c)
+                    .sum();
+        }
+        return inserted;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.TableRecord;
+
+import java.util.Collection;
+
+
+/**
+ * Strategy for writing a large number of records into a table.
+ *
+ * The columns written for each record are those which have been explicitly
+ * set (i.e. marked as changed) on it, so identity columns which have not been
+ * assigned are left for the database to populate.  Records may set different
+ * columns, implementations load each distinct column set separately.
+ *
+ * Implementations do not manage transactions, pass a transactional
+ * <code>DSLContext</code> if the load needs to be atomic.
+ *
+ * @see BulkLoaders#forDialect(org.jooq.SQLDialect)
+ */
+public interface BulkLoader {
+
+    /**
+     * @param dsl      context used to obtain the connection
+     * @param records  records to insert, all should belong to the same table
+     * @param <R>      record type
+     * @return number of rows inserted
+     */
+    <R extends TableRecord<R>> int load(DSLContext dsl, Collection<R> records);
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.jooq.TableRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.isMariaDB;
+import static org.finos.waltz.data.JooqUtilities.isPostgres;
+import static org.finos.waltz.data.JooqUtilities.isSQLServer;
+
+
+/**
+ * Selects the fastest {@link BulkLoader} for a dialect:
+ *
+ * <ul>
+ *     <li>Postgres: <code>COPY ... FROM STDIN</code></li>
+ *     <li>SQL Server: <code>SQLServerBulkCopy</code></li>
+ *     <li>MariaDB: multi-row inserts</li>
+ *     <li>anything else (e.g. H2): batched inserts</li>
+ * </ul>
+ *
+ * MariaDB's <code>LOAD DATA LOCAL INFILE</code> is deliberately not used
+ * as it requires local infile support to be enabled on both the client and
+ * server, which is commonly disabled for security reasons.
+ */
+public class BulkLoaders {
+
+    private static final BulkLoader BATCH_INSERT = new BatchInsertBulkLoader();
+    private static final BulkLoader MULTI_ROW_INSERT = new MultiRowInsertBulkLoader();
+    private static final BulkLoader POSTGRES_COPY = new PostgresCopyBulkLoader();
+    private static final BulkLoader SQL_SERVER_BULK_COPY = new SqlServerBulkCopyLoader();
+
+
+    public static BulkLoader forDialect(SQLDialect dialect) {
+        checkNotNull(dialect, "dialect cannot be null");
+
+        if (isPostgres(dialect)) {
+            return POSTGRES_COPY;
+        }
+
+        if (isSQLServer(dialect)) {
+            return SQL_SERVER_BULK_COPY;
+        }
+
+        if (isMariaDB(dialect)) {
+            return MULTI_ROW_INSERT;
+        }
+
+        return BATCH_INSERT;
+    }
+
+
+    /**
+     * Loads the records using the loader for the dialect of the given context.
+     *
+     * @param dsl      context (typically transactional) used to write the records
+     * @param records  records to insert
+     * @param <R>      record type
+     * @return number of rows inserted
+     */
+    public static <R extends TableRecord<R>> int bulkLoad(DSLContext dsl, Collection<R> records) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(records, "records cannot be null");
+
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        return forDialect(dsl.dialect()).load(dsl, records);
+    }
+
+
+    /**
+     * Groups records by the (ordered) fields which have been explicitly set on
+     * them, preserving the original record order within each group.
+     */
+    static <R extends TableRecord<R>> Map<List<Field<?>>, List<R>> groupByLoadedFields(Collection<R> records) {
+        Map<List<Field<?>>, List<R>> groups = new LinkedHashMap<>();
+        for (R record : records) {
+            List<Field<?>> fields = Stream
+                    .of(record.fields())
+                    .filter(record::changed)
+                    .collect(Collectors.toList());
+            groups.computeIfAbsent(fields, k -> new ArrayList<>()).add(record);
+        }
+        return groups;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.TableRecord;
+import org.jooq.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Base for loaders which use a vendor specific bulk api exposed by the jdbc
+ * driver.
+ *
+ * Drivers are only present when the matching build profile is active, so the
+ * driver api is reached reflectively via <code>Connection.unwrap</code>.  If
+ * the api cannot be resolved (e.g. the connection is not from the expected
+ * driver) a warning is logged and this, and all subsequent, loads fall back
+ * to batched inserts.  The api is resolved before any rows are written so a
+ * fallback never results in a partial load.
+ */
+abstract class DriverBulkLoader<A> implements BulkLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DriverBulkLoader.class);
+
+    private final BulkLoader fallback = new BatchInsertBulkLoader();
+
+    private volatile boolean driverApiAvailable = true;
+
+
+    @Override
+    public <R extends TableRecord<R>> int load(DSLContext dsl, Collection<R> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        if (! driverApiAvailable) {
+            return fallback.load(dsl, records);
+        }
+
+        Integer loaded = dsl.connectionResult(conn -> {
+            A api;
+            try {
+                api = resolveApi(conn);
+            } catch (ReflectiveOperationException | SQLException e) {
+                LOG.warn("{} unavailable, falling back to batched inserts: {}", getClass().getSimpleName(), e.toString());
+                driverApiAvailable = false;
+                return null;
+            }
+
+            int count = 0;
+            for (Map.Entry<List<Field<?>>, List<R>> group : BulkLoaders.groupByLoadedFields(records).entrySet()) {
+                try {
+                    count += loadGroup(dsl, api, group.getKey(), group.getValue());
+                } catch (InvocationTargetException e) {
+                    throw new DataAccessException("Bulk load failed: " + e.getCause().getMessage(), e.getCause());
+                } catch (ReflectiveOperationException e) {
+                    throw new DataAccessException("Bulk load failed: " + e.getMessage(), e);
+                }
+            }
+            return count;
+        });
+
+        return loaded == null
+                ? fallback.load(dsl, records)
+                : loaded;
+    }
+
+
+    /**
+     * Obtains the driver specific api for the given connection.  Must not
+     * write anything.
+     */
+    protected abstract A resolveApi(Connection conn) throws ReflectiveOperationException, SQLException;
+
+
+    /**
+     * Loads records which all have the same table and the given fields.
+     *
+     * @return number of rows loaded
+     */
+    protected abstract <R extends TableRecord<R>> int loadGroup(DSLContext dsl,
+                                                                A api,
+                                                                List<Field<?>> fields,
+                                                                List<R> records) throws ReflectiveOperationException;
+
+
+    protected static Class<?> driverClass(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, DriverBulkLoader.class.getClassLoader());
+    }
+
+}
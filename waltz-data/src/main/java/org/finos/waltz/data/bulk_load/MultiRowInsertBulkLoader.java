@@ -0,0 +1,75 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStepN;
+import org.jooq.TableRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Writes records using multi-row <code>INSERT ... VALUES (..), (..), ...</code>
+ * statements rather than one statement per row.
+ *
+ * Chunks are sized so that we stay inside the lowest common
+ * denominator of the supported databases (SQL Server allows at most
+ * 1000 rows per values clause and 2100 bind parameters per statement).
+ */
+public class MultiRowInsertBulkLoader implements BulkLoader {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1_000;
+    private static final int MAX_PARAMS_PER_STATEMENT = 2_000;
+
+
+    @Override
+    public <R extends TableRecord<R>> int load(DSLContext dsl, Collection<R> records) {
+        int inserted = 0;
+        for (Map.Entry<List<Field<?>>, List<R>> group : BulkLoaders.groupByLoadedFields(records).entrySet()) {
+            inserted += insert(dsl, group.getKey(), group.getValue());
+        }
+        return inserted;
+    }
+
+
+    private static <R extends TableRecord<R>> int insert(DSLContext dsl,
+                                                         List<Field<?>> fields,
+                                                         List<R> records) {
+        int chunkSize = Math.max(1, Math.min(MAX_ROWS_PER_STATEMENT, MAX_PARAMS_PER_STATEMENT / Math.max(1, fields.size())));
+
+        int inserted = 0;
+        for (int i = 0; i < records.size(); i += chunkSize) {
+            List<R> chunk = records.subList(i, Math.min(records.size(), i + chunkSize));
+            InsertValuesStepN<R> insert = dsl.insertInto(chunk.get(0).getTable(), fields);
+            for (R record : chunk) {
+                List<Object> values = new ArrayList<>(fields.size());
+                fields.forEach(f -> values.add(record.get(f)));
+                insert = insert.values(values);
+            }
+            inserted += insert.execute();
+        }
+        return inserted;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.bulk_load;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.TableRecord;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+
+/**
+ * Loads records via the SQL Server driver's <code>SQLServerBulkCopy</code>,
+ * which uses the TDS bulk load protocol rather than insert statements.
+ *
+ * Identity values which have been explicitly set on the records are kept.
+ */
+public class SqlServerBulkCopyLoader extends DriverBulkLoader<Connection> {
+
+    private static final String BULK_COPY_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopy";
+    private static final String BULK_COPY_OPTIONS_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions";
+
+
+    @Override
+    protected Connection resolveApi(Connection conn) throws ReflectiveOperationException, SQLException {
+        // resolve the bulk copy classes up front so a missing driver is detected before anything is written
+        driverClass(BULK_COPY_CLASS);
+        driverClass(BULK_COPY_OPTIONS_CLASS);
+        return (Connection) conn.unwrap(driverClass("com.microsoft.sqlserver.jdbc.ISQLServerConnection"));
+    }
+
+
+    @Override
+    protected <R extends TableRecord<R>> int loadGroup(DSLContext dsl,
+                                                       Connection sqlServerConnection,
+                                                       List<Field<?>> fields,
+                                                       List<R> records) throws ReflectiveOperationException {
+        Class<?> bulkCopyClass = driverClass(BULK_COPY_CLASS);
+        Class<?> optionsClass = driverClass(BULK_COPY_OPTIONS_CLASS);
+
+        Object options = optionsClass.getConstructor().newInstance();
+        optionsClass.getMethod("setKeepIdentity", boolean.class).invoke(options, true);
+        optionsClass.getMethod("setKeepNulls", boolean.class).invoke(options, true);
+        optionsClass.getMethod("setBulkCopyTimeout", int.class).invoke(options, 0);
+
+        Field<?>[] columns = fields.toArray(new Field<?>[0]);
+        Result<Record> rows = dsl.newResult(columns);
+        records.forEach(r -> rows.add(r.into(columns)));
+
+        Object bulkCopy = bulkCopyClass.getConstructor(Connection.class).newInstance(sqlServerConnection);
+        try {
+            bulkCopyClass.getMethod("setBulkCopyOptions", optionsClass).invoke(bulkCopy, options);
+            bulkCopyClass.getMethod("setDestinationTableName", String.class).invoke(bulkCopy, dsl.render(records.get(0).getTable()));
+            for (Field<?> field : fields) {
+                bulkCopyClass.getMethod("addColumnMapping", String.class, String.class).invoke(bulkCopy, field.getName(), field.getName());
+            }
+            bulkCopyClass.getMethod("writeToServer", ResultSet.class).invoke(bulkCopy, rows.intoResultSet());
+        } finally {
+            bulkCopyClass.getMethod("close").invoke(bulkCopy);
+        }
+
+        return records.size();
+    }
+
+}
@@ -43,6 +43,7 @@ import java.util.List;
 
 import static java.util.Optional.ofNullable;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.ChangeInitiative.CHANGE_INITIATIVE;
 import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 
@@ -99,7 +100,7 @@ public class ChangeInitiativeDao implements FindEntityReferencesByIdSelector {
         return dsl
                 .select(CHANGE_INITIATIVE.fields())
                 .from(CHANGE_INITIATIVE)
-                .where(dsl.renderInlined(CHANGE_INITIATIVE.ID.in(selector)))
+                .where(bindOrInline(dsl, CHANGE_INITIATIVE.ID.in(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
@@ -18,25 +18,33 @@
 
 package org.finos.waltz.data.changelog;
 
+import org.finos.waltz.data.EntityReferenceCache;
+import org.finos.waltz.data.TransactionCallbacks;
+import org.finos.waltz.data.client_cache_key.CacheInvalidationEventDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.ImmutableEntityReference;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogCursor;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
 import org.finos.waltz.model.tally.OrderedTally;
 import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.schema.tables.AttestationInstance;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Query;
+import org.jooq.Field;
 import org.jooq.Record;
-import org.jooq.Record4;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Record3;
 import org.jooq.RecordMapper;
 import org.jooq.SelectConditionStep;
-import org.jooq.SelectOrderByStep;
+import org.jooq.SelectHavingStep;
+import org.jooq.Select;
 import org.jooq.Table;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,23 +52,66 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.common.ListUtilities.map;
 import static org.finos.waltz.data.JooqUtilities.*;
+import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.PERSON;
 import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
 public class ChangeLogDao {
 
+    /**
+     * Cache key under which an invalidation event is published for every
+     * entity (parent and child) named in a change log entry.
+     */
+    public static final String ENTITY_CACHE_KEY = "ENTITY";
+
+    /**
+     * Entries moved out of the change log by {@link #archiveOlderThan}.  The
+     * archive has the same shape as <code>change_log</code>, so it is addressed
+     * as a renamed change log table allowing queries to be built for either.
+     */
+    public static final org.finos.waltz.schema.tables.ChangeLog ARCHIVED_CHANGE_LOG = CHANGE_LOG.rename("change_log_archive");
+
     private final DSLContext dsl;
+    private final EntityReferenceCache entityReferenceCache;
+    private final ChangeLogRollupDao changeLogRollupDao;
+    private final CacheInvalidationEventDao cacheInvalidationEventDao;
+
+    /**
+     * How long a check finding the archive empty is trusted for.  Archiving
+     * is normally done on another node, and only ever moves old entries, so
+     * they may take this long to re-appear in reads on this node.
+     */
+    private static final long ARCHIVE_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Set once the archive is known to hold entries, until then reads skip
+     * it and the archive is re-checked every {@link #ARCHIVE_CHECK_INTERVAL_MILLIS}.
+     * Archival is disabled by default so most installations never use it.
+     */
+    private volatile boolean archiveInUse = false;
+    private volatile long archiveCheckedAt = 0;
 
     public static final RecordMapper<? super Record, ChangeLog> TO_DOMAIN_MAPPER = r -> {
         ChangeLogRecord record = r.into(ChangeLogRecord.class);
@@ -71,6 +122,7 @@ public class ChangeLogDao {
                 .build();
 
         return ImmutableChangeLog.builder()
+                .id(Optional.ofNullable(record.getId()).map(Integer::longValue))
                 .userId(record.getUserId())
                 .message(record.getMessage())
                 .severity(Severity.valueOf(record.getSeverity()))
@@ -83,48 +135,64 @@ public class ChangeLogDao {
     };
 
 
-    public static SelectConditionStep<Record> mkUnattestedChangesQuery(EntityReference ref) {
-        org.finos.waltz.schema.tables.ChangeLog cl = org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG.as("cl");
-        AttestationInstance ai = AttestationInstance.ATTESTATION_INSTANCE.as("ai");
+    /**
+     * Entries for the entity which were made <em>after</em> the latest
+     * attestation of their child kind, read from the change log and, if it
+     * holds anything, the archive.
+     *
+     * @param ref  the attested entity
+     * @param childKind  optionally restricts the entries to those about a single (attested) kind
+     * @return query giving the change log fields
+     */
+    public Select<Record> mkUnattestedChangesQuery(EntityReference ref,
+                                                   Optional<EntityKind> childKind) {
+        checkNotNull(ref, "ref must not be null");
+        checkNotNull(childKind, "childKind must not be null");
 
-        Condition changeLogEntryOfInterest = cl.OPERATION.in(
-                Operation.UPDATE.name(),
-                Operation.ADD.name(),
-                Operation.REMOVE.name());
-
-        // this query works by first finding the latest attestations for the given entity
-        Table<Record4<String, Long, String, Timestamp>> latestAttestationsSubQuery = DSL
-                .select(ai.PARENT_ENTITY_KIND.as("pek"),
-                        ai.PARENT_ENTITY_ID .as("pei"),
-                        ai.ATTESTED_ENTITY_KIND.as("aek"),
-                        DSL.max(ai.ATTESTED_AT).as("aat"))
-                .from(ai)
-                .where(ai.PARENT_ENTITY_ID.eq(ref.id()))
-                .and(ai.PARENT_ENTITY_KIND.eq(ref.kind().name()))
-                .and(ai.ATTESTED_AT.isNotNull())
-                .groupBy(ai.PARENT_ENTITY_KIND, ai.PARENT_ENTITY_ID, ai.ATTESTED_ENTITY_KIND)
-                .asTable("latest_attestation");
+        return mkChangeLogQuery(t -> mkUnattestedCondition(t, ref)
+                .and(childKind
+                        .map(k -> t.CHILD_KIND.eq(k.name()))
+                        .orElse(DSL.trueCondition())));
+    }
 
-        // and joining that query to the changelog (for that entity)
-        Condition joinChangeLogToLatestAttestationCondition = latestAttestationsSubQuery.field("pek", String.class).eq(cl.PARENT_KIND)
-                .and(latestAttestationsSubQuery.field("pei", Long.class).eq(cl.PARENT_ID))
-                .and(latestAttestationsSubQuery.field("aek", String.class).eq(cl.CHILD_KIND));
 
-        // giving the final query which limits the changelog based to those entries after the latest attestation:
-        return DSL
-                .select(cl.fields())
-                .from(cl)
-                .innerJoin(latestAttestationsSubQuery)
-                .on(joinChangeLogToLatestAttestationCondition)
-                .where(cl.CREATED_AT.greaterThan(latestAttestationsSubQuery.field("aat", Timestamp.class)))
-                .and(changeLogEntryOfInterest);
+    /**
+     * Entries matching the condition, read from the change log and, if it
+     * holds anything, the archive.
+     *
+     * @param conditionFn  gives the condition for either table
+     * @return query giving the change log fields
+     */
+    public Select<Record> mkChangeLogQuery(Function<org.finos.waltz.schema.tables.ChangeLog, Condition> conditionFn) {
+        checkNotNull(conditionFn, "conditionFn must not be null");
+
+        SelectConditionStep<Record> live = DSL
+                .select(CHANGE_LOG.fields())
+                .from(CHANGE_LOG)
+                .where(conditionFn.apply(CHANGE_LOG));
+
+        return isArchiveInUse()
+                ? live.unionAll(DSL
+                        .select(ARCHIVED_CHANGE_LOG.fields())
+                        .from(ARCHIVED_CHANGE_LOG)
+                        .where(conditionFn.apply(ARCHIVED_CHANGE_LOG)))
+                : live;
     }
 
 
     @Autowired
-    public ChangeLogDao(DSLContext dsl) {
+    public ChangeLogDao(DSLContext dsl,
+                        EntityReferenceCache entityReferenceCache,
+                        ChangeLogRollupDao changeLogRollupDao,
+                        CacheInvalidationEventDao cacheInvalidationEventDao) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(entityReferenceCache, "entityReferenceCache must not be null");
+        checkNotNull(changeLogRollupDao, "changeLogRollupDao must not be null");
+        checkNotNull(cacheInvalidationEventDao, "cacheInvalidationEventDao must not be null");
         this.dsl = dsl;
+        this.entityReferenceCache = entityReferenceCache;
+        this.changeLogRollupDao = changeLogRollupDao;
+        this.cacheInvalidationEventDao = cacheInvalidationEventDao;
     }
 
 
@@ -133,20 +201,10 @@ public class ChangeLogDao {
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
-                .and(dateCondition)
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return findNewestFirst(
+                t -> mkParentCondition(t, ref)
+                        .and(mkOptionalDateCondition(t, date)),
+                limit.orElse(Integer.MAX_VALUE));
     }
 
 
@@ -155,34 +213,9 @@ public class ChangeLogDao {
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        SelectConditionStep<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(dateCondition)
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()));
-
-        SelectConditionStep<Record> byUserId = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .innerJoin(PERSON).on(PERSON.EMAIL.eq(CHANGE_LOG.USER_ID))
-                .where(PERSON.ID.eq(ref.id()))
-                .and(dateCondition);
-
-        SelectOrderByStep<Record> union = byParentRef.unionAll(byUserId);
-
-        return dsl
-                .select(union.fields())
-                .from(union.asTable())
-                .orderBy(union.field("created_at").desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return findNewestFirst(
+                mkPersonBranches(ref, t -> mkOptionalDateCondition(t, date)),
+                limit.orElse(Integer.MAX_VALUE));
     }
 
 
@@ -192,18 +225,10 @@ public class ChangeLogDao {
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
-                .and(dateCondition)
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return findNewestFirst(
+                t -> mkParentCondition(t, ref)
+                        .and(mkDateRangeCondition(t.CREATED_AT, startDate, endDate)),
+                limit.orElse(Integer.MAX_VALUE));
     }
 
 
@@ -213,54 +238,123 @@ public class ChangeLogDao {
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
+        return findNewestFirst(
+                mkPersonBranches(ref, t -> mkDateRangeCondition(t.CREATED_AT, startDate, endDate)),
+                limit.orElse(Integer.MAX_VALUE));
+    }
 
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
 
-        SelectConditionStep<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(dateCondition)
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()));
+    public List<ChangeLog> findByUser(String userName,
+                                      Optional<Integer> limit) {
+        checkNotEmpty(userName, "Username cannot be empty");
 
-        SelectConditionStep<Record> byUserId = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .innerJoin(PERSON).on(PERSON.EMAIL.eq(CHANGE_LOG.USER_ID))
-                .where(PERSON.ID.eq(ref.id()))
-                .and(dateCondition);
+        return findNewestFirst(
+                t -> t.USER_ID.equalIgnoreCase(userName),
+                limit.orElse(Integer.MAX_VALUE));
+    }
 
-        SelectOrderByStep<Record> union = byParentRef.unionAll(byUserId);
 
-        return dsl
-                .select(union.fields())
-                .from(union.asTable())
-                .orderBy(union.field("created_at").desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+    /**
+     * Keyset paging, gives up to <code>limit</code> entries which are older than the cursor.
+     */
+    public List<ChangeLog> findPageByParentReference(EntityReference ref,
+                                                     Optional<ChangeLogCursor> after,
+                                                     int limit) {
+        checkNotNull(ref, "ref must not be null");
+
+        return findNewestFirst(
+                t -> mkParentCondition(t, ref)
+                        .and(mkKeysetCondition(t, after)),
+                limit);
     }
 
 
-    public List<ChangeLog> findByUser(String userName,
-                                      Optional<Integer> limit) {
+    public List<ChangeLog> findPageByPersonReference(EntityReference ref,
+                                                     Optional<ChangeLogCursor> after,
+                                                     int limit) {
+        checkNotNull(ref, "ref must not be null");
+
+        return findNewestFirst(
+                mkPersonBranches(ref, t -> mkKeysetCondition(t, after)),
+                limit);
+    }
+
+
+    public List<ChangeLog> findPageByUser(String userName,
+                                          Optional<ChangeLogCursor> after,
+                                          int limit) {
         checkNotEmpty(userName, "Username cannot be empty");
 
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.USER_ID.equalIgnoreCase(userName))
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limit.orElse(Integer.MAX_VALUE))
-                .fetch(TO_DOMAIN_MAPPER);
+        return findNewestFirst(
+                t -> t.USER_ID.equalIgnoreCase(userName)
+                        .and(mkKeysetCondition(t, after)),
+                limit);
+    }
+
+
+    /**
+     * Moves entries created before the cutoff from <code>change_log</code> to
+     * <code>change_log_archive</code>, in batches (one transaction per batch).
+     *
+     * @return number of entries archived
+     */
+    public int archiveOlderThan(LocalDateTime cutoff, int batchSize) {
+        checkNotNull(cutoff, "cutoff must not be null");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+
+        Condition olderThanCutoff = CHANGE_LOG.CREATED_AT.lt(Timestamp.valueOf(cutoff));
+
+        int total = 0;
+        int moved;
+        do {
+            moved = dsl.transactionResult(ctx -> {
+                DSLContext tx = ctx.dsl();
+
+                Table<Record1<Integer>> batchIds = DSL
+                        .select(CHANGE_LOG.ID)
+                        .from(CHANGE_LOG)
+                        .where(olderThanCutoff)
+                        .orderBy(CHANGE_LOG.ID)
+                        .limit(batchSize)
+                        .asTable("batch_ids");
+
+                Integer maxId = tx
+                        .select(DSL.max(batchIds.field(CHANGE_LOG.ID)))
+                        .from(batchIds)
+                        .fetchOne()
+                        .value1();
+
+                if (maxId == null) {
+                    return 0;
+                }
+
+                Condition inBatch = olderThanCutoff.and(CHANGE_LOG.ID.le(maxId));
+
+                tx.insertInto(ARCHIVED_CHANGE_LOG, ARCHIVED_CHANGE_LOG.fields())
+                        .select(DSL
+                                .select(CHANGE_LOG.fields())
+                                .from(CHANGE_LOG)
+                                .where(inBatch))
+                        .execute();
+
+                return tx
+                        .deleteFrom(CHANGE_LOG)
+                        .where(inBatch)
+                        .execute();
+            });
+            total += moved;
+        } while (moved > 0);
+
+        if (total > 0) {
+            archiveInUse = true;
+        }
+
+        return total;
     }
 
 
     public List<OrderedTally<String>> getContributionLeaderBoard(int limit) {
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    DSL.trueCondition())
+        return mkContributionTallyQuery(Optional.empty())
                 .orderBy(TALLY_COUNT_FIELD.desc())
                 .limit(limit)
                 .fetch(TO_ORDERED_STRING_TALLY);
@@ -269,15 +363,9 @@ public class ChangeLogDao {
 
 
     public List<OrderedTally<String>> getContributionLeaderBoardLastMonth(int limit) {
+        LocalDate monthStart = nowUtc().toLocalDate().withDayOfMonth(1);
 
-        LocalDateTime monthStart = LocalDateTime.of(nowUtc().getYear(), nowUtc().getMonth(), 1, 0, 0);
-        Condition condition = CHANGE_LOG.CREATED_AT.greaterThan(Timestamp.valueOf(monthStart));
-
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    condition)
+        return mkContributionTallyQuery(Optional.of(monthStart))
                 .orderBy(TALLY_COUNT_FIELD.desc())
                 .limit(limit)
                 .fetch(TO_ORDERED_STRING_TALLY);
@@ -285,63 +373,69 @@ public class ChangeLogDao {
 
 
     public List<OrderedTally<String>> getRankingOfContributors() {
-
-        return makeOrderedTallyQuery(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                DSL.trueCondition())
+        return mkContributionTallyQuery(Optional.empty())
                 .fetch(TO_ORDERED_STRING_TALLY);
     }
 
 
     public List<Tally<String>> getContributionScoresForUsers(List<String> userIds) {
-        return calculateStringTallies(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                CHANGE_LOG.USER_ID.in(userIds));
+        Table<Record2<String, Integer>> counts = changeLogRollupDao.mkUserCountsTable(Optional.empty());
+        Field<String> userId = counts.field(ChangeLogRollupDao.USER_ID);
+
+        return dsl
+                .select(userId, sumOfCounts(counts))
+                .from(counts)
+                .where(userId.in(userIds))
+                .groupBy(userId)
+                .fetch(TO_STRING_TALLY);
     }
 
 
     public int write(Optional<DSLContext> tx, ChangeLog changeLog) {
         checkNotNull(changeLog, "changeLog must not be null");
-        DSLContext dslContext = tx.orElse(dsl);
-
-        return dslContext
-                .insertInto(CHANGE_LOG)
-                .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(Enum::name).orElse(null))
-                .set(CHANGE_LOG.CHILD_ID, changeLog.childId().orElse(null))
-                .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt()))
-                .execute();
+        ChangeLogRecord record = mkRecord(changeLog);
+
+        return tx
+                .map(t -> writeRecords(t, singletonList(record)))
+                .orElseGet(() -> dsl.transactionResult(ctx -> writeRecords(ctx.dsl(), singletonList(record))))[0];
     }
 
 
     public int[] write(Collection<ChangeLog> changeLogs) {
         checkNotNull(changeLogs, "changeLogs must not be null");
+        List<ChangeLogRecord> records = map(changeLogs, ChangeLogDao::mkRecord);
 
-        Query[] queries = changeLogs
-                .stream()
-                .map(changeLog -> DSL.insertInto(CHANGE_LOG)
-                        .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                        .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                        .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                        .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                        .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                        .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(Enum::name).orElse(null))
-                        .set(CHANGE_LOG.CHILD_ID, changeLog.childId().orElse(null))
-                        .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                        .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
-                .toArray(Query[]::new);
-        return dsl
-                .batch(queries)
+        return dsl.transactionResult(ctx -> writeRecords(ctx.dsl(), records));
+    }
+
+
+    /**
+     * Writes the change log entries in the given transaction.  It also
+     * publishes {@link #ENTITY_CACHE_KEY} invalidation events for the changed
+     * entities, in the same transaction so other nodes only see them once it
+     * commits.  This node's reference cache is evicted once the transaction
+     * commits.
+     *
+     * @param tx  transaction to write the entries in
+     * @param records  change log entries to write
+     * @return insert counts, one per entry
+     */
+    public int[] writeRecords(DSLContext tx, Collection<ChangeLogRecord> records) {
+        checkNotNull(tx, "tx must not be null");
+        checkNotNull(records, "records must not be null");
+
+        if (records.isEmpty()) {
+            return new int[0];
+        }
+
+        int[] insertCounts = tx
+                .batchInsert(records)
                 .execute();
+
+        cacheInvalidationEventDao.publish(tx, mkInvalidationEvents(records));
+        TransactionCallbacks.afterCommit(() -> records.forEach(this::evictChangedEntities));
+
+        return insertCounts;
     }
 
 
@@ -354,12 +448,237 @@ public class ChangeLogDao {
      * @return list of changes (empty if no attestations or if no changes)
      */
     public List<ChangeLog> findUnattestedChanges(EntityReference ref) {
+        return dsl
+                .fetch(mkUnattestedChangesQuery(ref, Optional.empty()))
+                .map(TO_DOMAIN_MAPPER);
+    }
+
 
-        SelectConditionStep<Record> qry = mkUnattestedChangesQuery(ref);
+    /**
+     * Gives the newest entries matching the condition from both the change
+     * log and its archive, ordered by (created_at, id) descending.  Each
+     * table is limited independently before the results are merged.
+     */
+    private List<ChangeLog> findNewestFirst(Function<org.finos.waltz.schema.tables.ChangeLog, Condition> conditionFn,
+                                            int limit) {
+        return findNewestFirst(singletonList(conditionFn), limit);
+    }
+
+
+    /**
+     * As above, but for entries matching any of the branch conditions.  Each
+     * branch (of each table) is queried, and limited, separately so it can
+     * use its own index, and the results merged.  Branches should not
+     * overlap, otherwise entries are repeated.
+     */
+    private List<ChangeLog> findNewestFirst(List<Function<org.finos.waltz.schema.tables.ChangeLog, Condition>> branches,
+                                            int limit) {
+        Stream<org.finos.waltz.schema.tables.ChangeLog> tables = isArchiveInUse()
+                ? Stream.of(CHANGE_LOG, ARCHIVED_CHANGE_LOG)
+                : Stream.of(CHANGE_LOG);
+
+        List<Select<Record>> queries = tables
+                .flatMap(t -> branches
+                        .stream()
+                        .map(conditionFn -> mkNewestFirstQuery(t, conditionFn, limit)))
+                .collect(toList());
+
+        if (queries.size() == 1) {
+            return dsl
+                    .fetch(queries.get(0))
+                    .map(TO_DOMAIN_MAPPER);
+        }
+
+        Table<Record> combined = queries
+                .stream()
+                .<Select<Record>>map(q -> DSL.selectFrom(q.asTable()))
+                .reduce(Select::unionAll)
+                .map(u -> u.asTable("combined_change_log"))
+                .orElseThrow(() -> new IllegalStateException("No change log queries"));
 
         return dsl
-                .selectQuery(qry)
+                .selectFrom(combined)
+                .orderBy(combined.field(CHANGE_LOG.CREATED_AT).desc(),
+                        combined.field(CHANGE_LOG.ID).desc())
+                .limit(limit)
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+    private Select<Record> mkNewestFirstQuery(org.finos.waltz.schema.tables.ChangeLog t,
+                                              Function<org.finos.waltz.schema.tables.ChangeLog, Condition> conditionFn,
+                                              int limit) {
+        return DSL
+                .select(t.fields())
+                .from(t)
+                .where(bindOrInline(dsl, conditionFn.apply(t)))
+                .orderBy(t.CREATED_AT.desc(), t.ID.desc())
+                .limit(limit);
+    }
+
+
+    private boolean isArchiveInUse() {
+        long now = System.currentTimeMillis();
+        if (!archiveInUse && now - archiveCheckedAt > ARCHIVE_CHECK_INTERVAL_MILLIS) {
+            archiveCheckedAt = now;
+            archiveInUse = dsl.fetchExists(ARCHIVED_CHANGE_LOG);
+        }
+        return archiveInUse;
+    }
+
+
+    /**
+     * Works by comparing each entry with the latest attestation of the
+     * entity for the entry's child kind, entries with no such attestation
+     * are not included.
+     */
+    private static Condition mkUnattestedCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                                   EntityReference ref) {
+        AttestationInstance ai = AttestationInstance.ATTESTATION_INSTANCE.as("ai");
+
+        Field<Timestamp> latestAttestation = DSL
+                .select(DSL.max(ai.ATTESTED_AT))
+                .from(ai)
+                .where(ai.PARENT_ENTITY_ID.eq(t.PARENT_ID))
+                .and(ai.PARENT_ENTITY_KIND.eq(t.PARENT_KIND))
+                .and(ai.ATTESTED_ENTITY_KIND.eq(t.CHILD_KIND))
+                .and(ai.ATTESTED_AT.isNotNull())
+                .asField();
+
+        return mkParentCondition(t, ref)
+                .and(t.OPERATION.in(
+                        Operation.UPDATE.name(),
+                        Operation.ADD.name(),
+                        Operation.REMOVE.name()))
+                .and(t.CREATED_AT.greaterThan(latestAttestation));
+    }
+
+
+    private static Condition mkParentCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                               EntityReference ref) {
+        return t.PARENT_ID.eq(ref.id())
+                .and(t.PARENT_KIND.eq(ref.kind().name()));
+    }
+
+
+    /**
+     * Entries about the person, or made by the person, as two branches (see
+     * {@link #findNewestFirst(List, int)}) so each can use the parent or user
+     * index.  Entries made by the person about themselves are only given by
+     * the first.
+     */
+    private static List<Function<org.finos.waltz.schema.tables.ChangeLog, Condition>> mkPersonBranches(EntityReference ref,
+                                                                                                     Function<org.finos.waltz.schema.tables.ChangeLog, Condition> conditionFn) {
+        return asList(
+                t -> mkParentCondition(t, ref)
+                        .and(conditionFn.apply(t)),
+                t -> t.USER_ID.in(DSL
+                                .select(PERSON.EMAIL)
+                                .from(PERSON)
+                                .where(PERSON.ID.eq(ref.id())))
+                        .andNot(mkParentCondition(t, ref))
+                        .and(conditionFn.apply(t)));
+    }
+
+
+    private static Condition mkOptionalDateCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                                     Optional<java.util.Date> date) {
+        return date
+                .map(d -> mkDateRangeCondition(t.CREATED_AT, d))
+                .orElse(DSL.trueCondition());
+    }
+
+
+    private static Condition mkKeysetCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                               Optional<ChangeLogCursor> after) {
+        return after
+                .map(c -> DSL
+                        .row(t.CREATED_AT, t.ID)
+                        .lt(Timestamp.valueOf(c.createdAt()), Math.toIntExact(c.id())))
+                .orElse(DSL.trueCondition());
+    }
+
+
+    /**
+     * Contributions (change log entries) per user, read from the daily
+     * rollups (plus today's entries).  Gives: user, count, rank.
+     */
+    private SelectHavingStep<Record3<String, Integer, Integer>> mkContributionTallyQuery(Optional<LocalDate> since) {
+        Table<Record2<String, Integer>> counts = changeLogRollupDao.mkUserCountsTable(since);
+        Field<String> userId = counts.field(ChangeLogRollupDao.USER_ID);
+        Field<Integer> count = sumOfCounts(counts);
+
+        return dsl
+                .select(userId,
+                        count.as(TALLY_COUNT_FIELD),
+                        DSL.rowNumber().over(DSL.orderBy(count.desc())))
+                .from(counts)
+                .groupBy(userId);
+    }
+
+
+    private static Field<Integer> sumOfCounts(Table<?> counts) {
+        return DSL
+                .sum(counts.field(ChangeLogRollupDao.CHANGE_COUNT))
+                .cast(Integer.class);
+    }
+
+
+    /**
+     * Change log entries are our change events, any cached details of the
+     * changed entities are discarded.  This is done once the change has
+     * committed, otherwise a concurrent read could re-cache the old details.
+     */
+    private void evictChangedEntities(ChangeLogRecord record) {
+        evict(record.getParentKind(), record.getParentId());
+        evict(record.getChildKind(), record.getChildId());
+    }
+
+
+    private void evict(String kind, Long id) {
+        toEntityRef(kind, id).ifPresent(entityReferenceCache::evict);
+    }
+
+
+    private List<CacheInvalidationEvent> mkInvalidationEvents(Collection<ChangeLogRecord> records) {
+        return records
+                .stream()
+                .flatMap(r -> {
+                    Operation operation = readEnum(r.getOperation(), Operation.class, o -> Operation.UNKNOWN);
+                    return Stream
+                            .of(toEntityRef(r.getParentKind(), r.getParentId()),
+                                toEntityRef(r.getChildKind(), r.getChildId()))
+                            .filter(Optional::isPresent)
+                            .map(ref -> tuple(ref, operation));
+                })
+                .distinct()
+                .map(t -> cacheInvalidationEventDao.mkEvent(ENTITY_CACHE_KEY, t.v1, t.v2))
+                .collect(toList());
+    }
+
+
+    private static Optional<EntityReference> toEntityRef(String kind, Long id) {
+        // some writers (e.g. relationship bulk uploads) log against kinds which are not entity kinds
+        EntityKind entityKind = readEnum(kind, EntityKind.class, k -> null);
+
+        return entityKind != null && id != null
+                ? Optional.of(mkRef(entityKind, id))
+                : Optional.empty();
+    }
+
+
+    public static ChangeLogRecord mkRecord(ChangeLog changeLog) {
+        ChangeLogRecord record = new ChangeLogRecord();
+        record.setMessage(changeLog.message());
+        record.setParentId(changeLog.parentReference().id());
+        record.setParentKind(changeLog.parentReference().kind().name());
+        record.setUserId(changeLog.userId());
+        record.setSeverity(changeLog.severity().name());
+        record.setChildKind(changeLog.childKind().map(Enum::name).orElse(null));
+        record.setChildId(changeLog.childId().orElse(null));
+        record.setOperation(changeLog.operation().name());
+        record.setCreatedAt(Timestamp.valueOf(changeLog.createdAt()));
+        return record;
+    }
+
 }
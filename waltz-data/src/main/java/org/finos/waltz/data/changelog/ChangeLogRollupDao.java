@@ -0,0 +1,496 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data.changelog;
+
+import org.finos.waltz.data.GenericSelector;
+import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.ChangeLogEntityRollup;
+import org.finos.waltz.schema.tables.ChangeLogUserRollup;
+import org.finos.waltz.schema.tables.records.ChangeLogRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record2;
+import org.jooq.Record5;
+import org.jooq.Record6;
+import org.jooq.SelectConditionStep;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple4;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+import static org.finos.waltz.schema.tables.ChangeLogEntityRollup.CHANGE_LOG_ENTITY_ROLLUP;
+import static org.finos.waltz.schema.tables.ChangeLogUserRollup.CHANGE_LOG_USER_ROLLUP;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Maintains (and reads) the daily change log rollups.
+ *
+ * Every day up to (but excluding) the {@link #getRolledUpUntil() rolled up until}
+ * date is read from the rollup tables, anything after that is aggregated
+ * directly from the (indexed) tail of <code>change_log</code>.  Once a day has
+ * been rolled up, entries written for it are added to the rollups by the
+ * writer (see {@link #recordChanges(DSLContext, Collection)}), so the tail is
+ * normally empty.  Readers always see current counts, even if the rollups
+ * are lagging, and if the rollups have never been built readers simply fall
+ * back to the change log.
+ *
+ * The entity rollup also holds the parent name, captured when the row is
+ * first written, so readers do not need to join back to the parent tables.
+ */
+@Repository
+public class ChangeLogRollupDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogRollupDao.class);
+
+    private static final ChangeLogEntityRollup cler = CHANGE_LOG_ENTITY_ROLLUP;
+    private static final ChangeLogUserRollup clur = CHANGE_LOG_USER_ROLLUP;
+
+    private static final Field<Date> CREATED_DATE = DSL.date(CHANGE_LOG.CREATED_AT);
+
+    public static final Field<Date> DAY = DSL.field(DSL.name("rollup_date"), Date.class);
+    public static final Field<String> PARENT_KIND = DSL.field(DSL.name("parent_kind"), String.class);
+    public static final Field<Long> PARENT_ID = DSL.field(DSL.name("parent_id"), Long.class);
+    public static final Field<String> PARENT_NAME = DSL.field(DSL.name("parent_name"), String.class);
+    public static final Field<String> CHILD_KIND = DSL.field(DSL.name("child_kind"), String.class);
+    public static final Field<String> USER_ID = DSL.field(DSL.name("user_id"), String.class);
+    public static final Field<Integer> CHANGE_COUNT = DSL.field(DSL.name("change_count"), Integer.class);
+
+    private static final Collection<EntityKind> NAMED_PARENT_KINDS = newArrayList(EntityKind.APPLICATION);
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public ChangeLogRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return the first day which is <em>not</em> covered by the rollups, or empty if the rollups have not been built
+     */
+    public Optional<LocalDate> getRolledUpUntil() {
+        return getRolledUpUntil(dsl);
+    }
+
+
+    private static Optional<LocalDate> getRolledUpUntil(DSLContext ctx) {
+        Date lastRolledUpDay = ctx
+                .select(DSL.max(clur.ROLLUP_DATE))
+                .from(clur)
+                .fetchOne()
+                .value1();
+
+        return Optional
+                .ofNullable(lastRolledUpDay)
+                .map(d -> d.toLocalDate().plusDays(1));
+    }
+
+
+    /**
+     * Daily change counts for the parents given by the selector, one row per
+     * (<code>DAY</code>, <code>PARENT_KIND</code>, <code>PARENT_ID</code>, <code>CHILD_KIND</code>),
+     * <code>PARENT_NAME</code> is only given for applications.
+     *
+     * @param selector  parent entities of interest
+     * @param from  optional first day (inclusive)
+     * @param until  optional last day (exclusive)
+     * @return derived table combining the rollups with the un-rolled tail of the change log
+     */
+    public Table<Record6<Date, String, Long, String, String, Integer>> mkEntityCountsTable(GenericSelector selector,
+                                                                                          Optional<LocalDate> from,
+                                                                                          Optional<LocalDate> until) {
+        checkNotNull(selector, "selector cannot be null");
+        Optional<LocalDate> rolledUpUntil = getRolledUpUntil();
+
+        Condition rolledUpCondition = cler.PARENT_ID.in(selector.selector())
+                .and(cler.PARENT_KIND.eq(selector.kind().name()))
+                .and(mkDayRangeCondition(cler.ROLLUP_DATE, from, earliest(until, rolledUpUntil)));
+
+        Condition tailCondition = CHANGE_LOG.PARENT_ID.in(selector.selector())
+                .and(CHANGE_LOG.PARENT_KIND.eq(selector.kind().name()))
+                .and(mkTimestampRangeCondition(CHANGE_LOG.CREATED_AT, latest(from, rolledUpUntil), until));
+
+        return DSL
+                .select(cler.ROLLUP_DATE.as(DAY),
+                        cler.PARENT_KIND.as(PARENT_KIND),
+                        cler.PARENT_ID.as(PARENT_ID),
+                        cler.PARENT_NAME.as(PARENT_NAME),
+                        cler.CHILD_KIND.as(CHILD_KIND),
+                        cler.CHANGE_COUNT.as(CHANGE_COUNT))
+                .from(cler)
+                .where(rolledUpCondition)
+                .unionAll(DSL
+                        .select(CREATED_DATE.as(DAY),
+                                CHANGE_LOG.PARENT_KIND.as(PARENT_KIND),
+                                CHANGE_LOG.PARENT_ID.as(PARENT_ID),
+                                mkParentNameField(CHANGE_LOG.PARENT_ID, CHANGE_LOG.PARENT_KIND).as(PARENT_NAME),
+                                CHANGE_LOG.CHILD_KIND.as(CHILD_KIND),
+                                DSL.count().as(CHANGE_COUNT))
+                        .from(CHANGE_LOG)
+                        .where(tailCondition)
+                        .groupBy(CREATED_DATE,
+                                CHANGE_LOG.PARENT_KIND,
+                                CHANGE_LOG.PARENT_ID,
+                                CHANGE_LOG.CHILD_KIND))
+                .asTable("entity_change_counts");
+    }
+
+
+    /**
+     * Change counts per user (<code>USER_ID</code>, <code>CHANGE_COUNT</code>),
+     * a user may appear twice (once for the rollups and once for the tail),
+     * callers should sum the counts.
+     *
+     * @param from  optional first day (inclusive)
+     * @return derived table combining the rollups with the un-rolled tail of the change log
+     */
+    public Table<Record2<String, Integer>> mkUserCountsTable(Optional<LocalDate> from) {
+        Optional<LocalDate> rolledUpUntil = getRolledUpUntil();
+
+        return DSL
+                .select(clur.USER_ID.as(USER_ID),
+                        DSL.sum(clur.CHANGE_COUNT).cast(Integer.class).as(CHANGE_COUNT))
+                .from(clur)
+                .where(mkDayRangeCondition(clur.ROLLUP_DATE, from, rolledUpUntil))
+                .groupBy(clur.USER_ID)
+                .unionAll(DSL
+                        .select(CHANGE_LOG.USER_ID.as(USER_ID),
+                                DSL.count().as(CHANGE_COUNT))
+                        .from(CHANGE_LOG)
+                        .where(mkTimestampRangeCondition(CHANGE_LOG.CREATED_AT, latest(from, rolledUpUntil), Optional.empty()))
+                        .groupBy(CHANGE_LOG.USER_ID))
+                .asTable("user_change_counts");
+    }
+
+
+    /**
+     * (Re)computes the rollups for the days in the given range.  Existing
+     * rollups for those days are replaced, so this is safe to repeat.
+     *
+     * @param from  first day (inclusive)
+     * @param until  last day (exclusive)
+     * @return number of rollup rows written
+     */
+    public int rollupDays(LocalDate from, LocalDate until) {
+        checkNotNull(from, "from cannot be null");
+        checkNotNull(until, "until cannot be null");
+        checkTrue(from.isBefore(until), "from (%s) must be before until (%s)", from, until);
+
+        // archived entries are included, otherwise rebuilding would lose their days
+        Table<Record5<Timestamp, String, Long, String, String>> source = mkSourceQuery(CHANGE_LOG, from, until)
+                .unionAll(mkSourceQuery(ChangeLogDao.ARCHIVED_CHANGE_LOG, from, until))
+                .asTable("change_log_source");
+
+        Field<Date> createdDate = DSL.date(source.field(CHANGE_LOG.CREATED_AT));
+        Field<String> parentKind = source.field(CHANGE_LOG.PARENT_KIND);
+        Field<Long> parentId = source.field(CHANGE_LOG.PARENT_ID);
+        Field<String> childKind = source.field(CHANGE_LOG.CHILD_KIND);
+        Field<String> userId = source.field(CHANGE_LOG.USER_ID);
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            tx.deleteFrom(cler)
+                    .where(mkDayRangeCondition(cler.ROLLUP_DATE, Optional.of(from), Optional.of(until)))
+                    .execute();
+
+            tx.deleteFrom(clur)
+                    .where(mkDayRangeCondition(clur.ROLLUP_DATE, Optional.of(from), Optional.of(until)))
+                    .execute();
+
+            int entityRows = tx
+                    .insertInto(cler,
+                            cler.ROLLUP_DATE,
+                            cler.PARENT_KIND,
+                            cler.PARENT_ID,
+                            cler.CHILD_KIND,
+                            cler.CHANGE_COUNT)
+                    .select(DSL
+                            .select(createdDate,
+                                    parentKind,
+                                    parentId,
+                                    childKind,
+                                    DSL.count())
+                            .from(source)
+                            .groupBy(createdDate,
+                                    parentKind,
+                                    parentId,
+                                    childKind))
+                    .execute();
+
+            tx.update(cler)
+                    .set(cler.PARENT_NAME, mkParentNameField(cler.PARENT_ID, cler.PARENT_KIND))
+                    .where(mkDayRangeCondition(cler.ROLLUP_DATE, Optional.of(from), Optional.of(until)))
+                    .and(cler.PARENT_KIND.in(NAMED_PARENT_KINDS.stream().map(Enum::name).toArray(String[]::new)))
+                    .execute();
+
+            int userRows = tx
+                    .insertInto(clur,
+                            clur.ROLLUP_DATE,
+                            clur.USER_ID,
+                            clur.CHANGE_COUNT)
+                    .select(DSL
+                            .select(createdDate,
+                                    userId,
+                                    DSL.count())
+                            .from(source)
+                            .groupBy(createdDate,
+                                    userId))
+                    .execute();
+
+            return entityRows + userRows;
+        });
+    }
+
+
+    /**
+     * Adds just written change log entries to the rollups.  This must be
+     * called in the transaction which wrote the entries so the counts commit
+     * (or roll back) with them.  Entries for days which have not been rolled
+     * up yet are skipped, readers take those from the change log tail until
+     * they are rolled up.
+     *
+     * Entity rollup rows are updated, or inserted if the key is new.  Two
+     * writers racing to insert the same key may leave two rows, this is
+     * harmless as readers sum the counts and the next roll up of that day
+     * replaces them.
+     *
+     * @param tx  the transaction used to write the entries
+     * @param changes  the change log entries written
+     */
+    public void recordChanges(DSLContext tx, Collection<ChangeLogRecord> changes) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(changes, "changes cannot be null");
+
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Optional<LocalDate> rolledUpUntil = getRolledUpUntil(tx);
+        if (!rolledUpUntil.isPresent()) {
+            return;
+        }
+
+        Date rolledUpUntilDate = toSqlDate(rolledUpUntil.get());
+        Date today = toSqlDate(nowUtc().toLocalDate());
+
+        Map<Tuple4<Date, String, Long, String>, Long> entityCounts = changes
+                .stream()
+                .filter(c -> toRollupDate(c, today).before(rolledUpUntilDate))
+                .collect(groupingBy(
+                        c -> tuple(toRollupDate(c, today), c.getParentKind(), c.getParentId(), c.getChildKind()),
+                        counting()));
+
+        Map<Tuple2<Date, String>, Long> userCounts = changes
+                .stream()
+                .filter(c -> toRollupDate(c, today).before(rolledUpUntilDate))
+                .collect(groupingBy(
+                        c -> tuple(toRollupDate(c, today), c.getUserId()),
+                        counting()));
+
+        entityCounts.forEach((k, count) -> incrementEntityCount(tx, k, count.intValue()));
+        userCounts.forEach((k, count) -> incrementUserCount(tx, k, count.intValue()));
+    }
+
+
+    /**
+     * Discards all rollups and rebuilds them, a month at a time, for every
+     * day before <code>until</code>.  Whilst this is running readers fall
+     * back to the change log for any days not yet rebuilt.
+     *
+     * @param until  last day (exclusive), usually tomorrow
+     * @return number of rollup rows written
+     */
+    public int rebuild(LocalDate until) {
+        checkNotNull(until, "until cannot be null");
+
+        dsl.deleteFrom(cler).execute();
+        dsl.deleteFrom(clur).execute();
+
+        Timestamp earliest = earliestOf(
+                getEarliestCreatedAt(CHANGE_LOG),
+                getEarliestCreatedAt(ChangeLogDao.ARCHIVED_CHANGE_LOG));
+
+        if (earliest == null) {
+            return 0;
+        }
+
+        int rowCount = 0;
+        for (LocalDate monthStart = earliest.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+             monthStart.isBefore(until);
+             monthStart = monthStart.plusMonths(1)) {
+
+            LocalDate monthEnd = monthStart.plusMonths(1);
+            int monthCount = rollupDays(monthStart, monthEnd.isBefore(until) ? monthEnd : until);
+            LOG.debug("Rolled up change log for month starting {}, rows: {}", monthStart, monthCount);
+            rowCount += monthCount;
+        }
+
+        return rowCount;
+    }
+
+
+    // -- HELPERS ---
+
+    private static void incrementEntityCount(DSLContext tx,
+                                             Tuple4<Date, String, Long, String> key,
+                                             int count) {
+        Condition childKindCondition = key.v4 == null
+                ? cler.CHILD_KIND.isNull()
+                : cler.CHILD_KIND.eq(key.v4);
+
+        int updated = tx
+                .update(cler)
+                .set(cler.CHANGE_COUNT, cler.CHANGE_COUNT.plus(count))
+                .where(cler.ROLLUP_DATE.eq(key.v1))
+                .and(cler.PARENT_KIND.eq(key.v2))
+                .and(cler.PARENT_ID.eq(key.v3))
+                .and(childKindCondition)
+                .execute();
+
+        if (updated == 0) {
+            tx.insertInto(cler,
+                            cler.ROLLUP_DATE,
+                            cler.PARENT_KIND,
+                            cler.PARENT_ID,
+                            cler.PARENT_NAME,
+                            cler.CHILD_KIND,
+                            cler.CHANGE_COUNT)
+                    .select(DSL
+                            .select(DSL.val(key.v1),
+                                    DSL.val(key.v2),
+                                    DSL.val(key.v3),
+                                    mkParentNameField(DSL.val(key.v3), DSL.val(key.v2)),
+                                    DSL.val(key.v4, String.class),
+                                    DSL.val(count)))
+                    .execute();
+        }
+    }
+
+
+    private static void incrementUserCount(DSLContext tx,
+                                           Tuple2<Date, String> key,
+                                           int count) {
+        tx.insertInto(clur)
+                .set(clur.ROLLUP_DATE, key.v1)
+                .set(clur.USER_ID, key.v2)
+                .set(clur.CHANGE_COUNT, count)
+                .onDuplicateKeyUpdate()
+                .set(clur.CHANGE_COUNT, clur.CHANGE_COUNT.plus(count))
+                .execute();
+    }
+
+
+    private static Date toRollupDate(ChangeLogRecord change, Date today) {
+        // created_at defaults to now in the database when not given
+        return change.getCreatedAt() == null
+                ? today
+                : toSqlDate(change.getCreatedAt().toLocalDateTime().toLocalDate());
+    }
+
+
+    private static Field<String> mkParentNameField(Field<Long> parentId, Field<String> parentKind) {
+        return InlineSelectFieldFactory.mkNameField(parentId, parentKind, NAMED_PARENT_KINDS);
+    }
+
+
+    private Timestamp getEarliestCreatedAt(org.finos.waltz.schema.tables.ChangeLog t) {
+        return dsl
+                .select(DSL.min(t.CREATED_AT))
+                .from(t)
+                .fetchOne()
+                .value1();
+    }
+
+
+    private static Timestamp earliestOf(Timestamp a, Timestamp b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.before(b) ? a : b;
+    }
+
+
+    private static SelectConditionStep<Record5<Timestamp, String, Long, String, String>> mkSourceQuery(org.finos.waltz.schema.tables.ChangeLog t,
+                                                                                              LocalDate from,
+                                                                                              LocalDate until) {
+        return DSL
+                .select(t.CREATED_AT,
+                        t.PARENT_KIND,
+                        t.PARENT_ID,
+                        t.CHILD_KIND,
+                        t.USER_ID)
+                .from(t)
+                .where(mkTimestampRangeCondition(t.CREATED_AT, Optional.of(from), Optional.of(until)));
+    }
+
+
+    private static Condition mkDayRangeCondition(Field<Date> field,
+                                                 Optional<LocalDate> from,
+                                                 Optional<LocalDate> until) {
+        return from.map(d -> field.ge(toSqlDate(d))).orElse(DSL.trueCondition())
+                .and(until.map(d -> field.lt(toSqlDate(d))).orElse(DSL.trueCondition()));
+    }
+
+
+    private static Condition mkTimestampRangeCondition(Field<Timestamp> field,
+                                                       Optional<LocalDate> from,
+                                                       Optional<LocalDate> until) {
+        return from.map(d -> field.ge(Timestamp.valueOf(d.atStartOfDay()))).orElse(DSL.trueCondition())
+                .and(until.map(d -> field.lt(Timestamp.valueOf(d.atStartOfDay()))).orElse(DSL.trueCondition()));
+    }
+
+
+    private static Optional<LocalDate> earliest(Optional<LocalDate> a, Optional<LocalDate> b) {
+        if (!a.isPresent()) return b;
+        if (!b.isPresent()) return a;
+        return a.get().isBefore(b.get()) ? a : b;
+    }
+
+
+    private static Optional<LocalDate> latest(Optional<LocalDate> a, Optional<LocalDate> b) {
+        if (!a.isPresent()) return b;
+        if (!b.isPresent()) return a;
+        return a.get().isAfter(b.get()) ? a : b;
+    }
+}
@@ -19,20 +19,19 @@
 package org.finos.waltz.data.changelog;
 
 import org.finos.waltz.data.GenericSelector;
-import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.tally.ChangeLogTally;
 import org.finos.waltz.model.tally.DateTally;
 import org.finos.waltz.model.tally.ImmutableChangeLogTally;
 import org.finos.waltz.model.tally.ImmutableDateTally;
-import org.jooq.AggregateFunction;
-import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record2;
 import org.jooq.Record5;
+import org.jooq.Record6;
 import org.jooq.RecordMapper;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -41,10 +40,7 @@ import java.sql.Date;
 import java.util.List;
 import java.util.Optional;
 
-import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.ListUtilities.newArrayList;
-import static org.finos.waltz.data.JooqUtilities.mkDateRangeCondition;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
 
@@ -52,12 +48,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 public class ChangeLogSummariesDao {
 
     private final DSLContext dsl;
-
-    private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
-            CHANGE_LOG.PARENT_ID,
-            CHANGE_LOG.PARENT_KIND,
-            newArrayList(EntityKind.APPLICATION))
-            .as("entity_name");
+    private final ChangeLogRollupDao changeLogRollupDao;
 
 
     private static final RecordMapper<Record2<Date,Integer>, DateTally> TO_DATE_TALLY_MAPPER = record -> {
@@ -88,9 +79,12 @@ public class ChangeLogSummariesDao {
 
 
     @Autowired
-    public ChangeLogSummariesDao(DSLContext dsl) {
+    public ChangeLogSummariesDao(DSLContext dsl,
+                                 ChangeLogRollupDao changeLogRollupDao) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(changeLogRollupDao, "changeLogRollupDao must not be null");
         this.dsl = dsl;
+        this.changeLogRollupDao = changeLogRollupDao;
     }
 
 
@@ -98,13 +92,16 @@ public class ChangeLogSummariesDao {
                                                                   Optional<Integer> limit) {
         checkNotNull(selector, "selector must not be null");
 
-        Field<Date> date = DSL.date(CHANGE_LOG.CREATED_AT);
+        Table<Record6<Date, String, Long, String, String, Integer>> counts = changeLogRollupDao.mkEntityCountsTable(
+                selector,
+                Optional.empty(),
+                Optional.empty());
+
+        Field<Date> date = counts.field(ChangeLogRollupDao.DAY);
 
         return dsl
-                .select(date, DSL.count(CHANGE_LOG.ID))
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.in(selector.selector())
-                .and(CHANGE_LOG.PARENT_KIND.eq(selector.kind().name())))
+                .select(date, sumOfCounts(counts))
+                .from(counts)
                 .groupBy(date)
                 .orderBy(date.desc())
                 .limit(limit.orElse(365))
@@ -117,25 +114,39 @@ public class ChangeLogSummariesDao {
                                                                                     Date endDate,
                                                                                     Optional<Integer> limit) {
         checkNotNull(genericSelector, "genericSelector must not be null");
+        checkNotNull(startDate, "startDate must not be null");
+        checkNotNull(endDate, "endDate must not be null");
+
+        Table<Record6<Date, String, Long, String, String, Integer>> counts = changeLogRollupDao.mkEntityCountsTable(
+                genericSelector,
+                Optional.of(startDate.toLocalDate()),
+                Optional.of(endDate.toLocalDate().plusDays(1)));
+
+        Field<Long> parentId = counts.field(ChangeLogRollupDao.PARENT_ID);
+        Field<String> parentKind = counts.field(ChangeLogRollupDao.PARENT_KIND);
+        Field<String> childKind = counts.field(ChangeLogRollupDao.CHILD_KIND);
+        Field<Integer> count = sumOfCounts(counts);
 
-        AggregateFunction<Integer> count = DSL.count(CHANGE_LOG.ID);
-        Condition dateRangeCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
+        Field<String> entityName = DSL.max(counts.field(ChangeLogRollupDao.PARENT_NAME)).as("entity_name");
 
         return dsl
-                .select(CHANGE_LOG.PARENT_ID,
-                        CHANGE_LOG.PARENT_KIND,
-                        ENTITY_NAME_FIELD,
-                        CHANGE_LOG.CHILD_KIND,
+                .select(parentId,
+                        parentKind,
+                        entityName,
+                        childKind,
                         count)
-                .from(CHANGE_LOG)
-                .where(dsl
-                        .renderInlined(CHANGE_LOG.PARENT_ID.in(genericSelector.selector())
-                                .and(CHANGE_LOG.PARENT_KIND.eq(genericSelector.kind().name()))
-                                .and(dateRangeCondition)))
-                .groupBy(CHANGE_LOG.PARENT_ID, CHANGE_LOG.PARENT_KIND, CHANGE_LOG.CHILD_KIND)
+                .from(counts)
+                .groupBy(parentId, parentKind, childKind)
                 .orderBy(count.desc())
                 .limit(limit.orElse(Integer.MAX_VALUE))
                 .fetch(TO_CHANGE_LOG_TALLY_MAPPER);
     }
 
+
+    private static Field<Integer> sumOfCounts(Table<?> counts) {
+        return DSL
+                .sum(counts.field(ChangeLogRollupDao.CHANGE_COUNT))
+                .cast(Integer.class);
+    }
+
 }
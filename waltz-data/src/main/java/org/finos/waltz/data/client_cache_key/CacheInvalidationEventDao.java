@@ -0,0 +1,206 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.client_cache_key;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
+import org.finos.waltz.model.client_cache_key.ImmutableCacheInvalidationEvent;
+import org.finos.waltz.schema.tables.records.CacheInvalidationEventRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlTimestamp;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.CACHE_INVALIDATION_EVENT;
+
+
+/**
+ * Stores the events tailed by each node's cache invalidation service.  The
+ * dao also identifies the node (process) it is running in, events published
+ * through it carry that id so the node does not re-apply its own events.
+ */
+@Repository
+public class CacheInvalidationEventDao {
+
+    public static final RecordMapper<Record, CacheInvalidationEvent> TO_DOMAIN_MAPPER = r -> {
+        CacheInvalidationEventRecord record = r.into(CACHE_INVALIDATION_EVENT);
+        return ImmutableCacheInvalidationEvent.builder()
+                .id(record.getId())
+                .cacheKey(record.getCacheKey())
+                .entityReference(Optional
+                        .ofNullable(record.getEntityKind())
+                        .map(kind -> mkRef(EntityKind.valueOf(kind), record.getEntityId())))
+                .operation(Operation.valueOf(record.getOperation()))
+                .nodeId(record.getNodeId())
+                .publishedAt(record.getPublishedAt().toLocalDateTime())
+                .build();
+    };
+
+    private final DSLContext dsl;
+    private final String nodeId = mkNodeId();
+
+
+    @Autowired
+    public CacheInvalidationEventDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+
+    /**
+     * @return an event from this node for the cache key, optionally restricted to a single entity
+     */
+    public CacheInvalidationEvent mkEvent(String cacheKey,
+                                          Optional<EntityReference> ref,
+                                          Operation operation) {
+        checkNotEmpty(cacheKey, "cacheKey cannot be empty");
+        checkNotNull(ref, "ref cannot be null");
+        checkNotNull(operation, "operation cannot be null");
+
+        return ImmutableCacheInvalidationEvent
+                .builder()
+                .cacheKey(cacheKey)
+                .entityReference(ref)
+                .operation(operation)
+                .nodeId(nodeId)
+                .build();
+    }
+
+
+    public int publish(Collection<CacheInvalidationEvent> events) {
+        return publish(dsl, events);
+    }
+
+
+    /**
+     * Inserts the events in the given transaction, other nodes will only see
+     * them once it commits.
+     */
+    public int publish(DSLContext tx, Collection<CacheInvalidationEvent> events) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(events, "events cannot be null");
+
+        List<CacheInvalidationEventRecord> records = events
+                .stream()
+                .map(e -> {
+                    CacheInvalidationEventRecord r = tx.newRecord(CACHE_INVALIDATION_EVENT);
+                    r.setCacheKey(e.cacheKey());
+                    e.entityReference().ifPresent(ref -> {
+                        r.setEntityKind(ref.kind().name());
+                        r.setEntityId(ref.id());
+                    });
+                    r.setOperation(e.operation().name());
+                    r.setNodeId(e.nodeId());
+                    r.setPublishedAt(toSqlTimestamp(e.publishedAt()));
+                    return r;
+                })
+                .collect(toList());
+
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        return records.size() == 1
+                ? records.get(0).insert()
+                : tx.batchInsert(records).execute().length;
+    }
+
+
+    /**
+     * @return the id of the most recently published event, or zero if there are none
+     */
+    public long getHighWaterMark() {
+        Long max = dsl
+                .select(CACHE_INVALIDATION_EVENT.ID.max())
+                .from(CACHE_INVALIDATION_EVENT)
+                .fetchOne()
+                .value1();
+
+        return max == null ? 0 : max;
+    }
+
+
+    /**
+     * Events are returned in id order.  Ids are allocated when an event is
+     * inserted but only become visible when it commits, so callers should
+     * pass ids skipped by previous reads (<code>gapIds</code>) to pick up
+     * events which commit late.
+     */
+    public List<CacheInvalidationEvent> findAfter(long highWaterMark,
+                                                  Collection<Long> gapIds,
+                                                  int limit) {
+        checkNotNull(gapIds, "gapIds cannot be null");
+
+        Condition condition = gapIds.isEmpty()
+                ? CACHE_INVALIDATION_EVENT.ID.gt(highWaterMark)
+                : CACHE_INVALIDATION_EVENT.ID.gt(highWaterMark).or(CACHE_INVALIDATION_EVENT.ID.in(gapIds));
+
+        return dsl
+                .select(CACHE_INVALIDATION_EVENT.fields())
+                .from(CACHE_INVALIDATION_EVENT)
+                .where(condition)
+                .orderBy(CACHE_INVALIDATION_EVENT.ID)
+                .limit(limit)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    public int deletePublishedBefore(LocalDateTime cutoff) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+        return dsl
+                .deleteFrom(CACHE_INVALIDATION_EVENT)
+                .where(CACHE_INVALIDATION_EVENT.PUBLISHED_AT.lt(toSqlTimestamp(cutoff)))
+                .execute();
+    }
+
+
+    // -- HELPERS ---
+
+    private static String mkNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
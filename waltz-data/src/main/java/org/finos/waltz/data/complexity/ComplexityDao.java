@@ -270,8 +270,8 @@ public class ComplexityDao {
                 .select(entityCount,
                         entityWithComplexityCount)
                 .from(entityIds)
-                .leftJoin(dsl.renderInlined(entityWithComplexity))
-                .on(dsl.renderInlined(entityIds.field(0, Long.class).eq(entityWithComplexity.field(0, Long.class))))
+                .leftJoin(entityWithComplexity)
+                .on(entityIds.field(0, Long.class).eq(entityWithComplexity.field(0, Long.class)))
                 .fetchOne(r -> tuple(
                         r.get(entityWithComplexityCount),
                         r.get(entityCount) - r.get(entityWithComplexityCount)));
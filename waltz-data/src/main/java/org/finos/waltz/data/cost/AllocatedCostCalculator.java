@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.cost;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Columnar equivalent of {@link CostUtils#calculateAllocatedCosts}.
+ *
+ * Rating rows are accumulated into primitive arrays (rating id, app index,
+ * allocation percentage) alongside the overall cost of the app.  Per-app
+ * rating counts and explicit allocation totals are then tallied in a single
+ * pass, so the allocation of each row is computed without building any
+ * intermediate per-app collections.
+ *
+ * Rounding is identical to {@link CostUtils}.
+ */
+public class AllocatedCostCalculator {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final int NO_ALLOCATION = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<Long, Integer> appIndexById = new HashMap<>();
+
+    private long[] ratingIds = new long[INITIAL_CAPACITY];
+    private int[] appIndexes = new int[INITIAL_CAPACITY];
+    private int[] allocationPercentages = new int[INITIAL_CAPACITY];
+    private BigDecimal[] overallCosts = new BigDecimal[INITIAL_CAPACITY];
+    private int size = 0;
+
+
+    /**
+     * @param ratingId  measurable rating the cost will be allocated to
+     * @param appId  application which owns the rating (and the overall cost)
+     * @param allocationPercentage  explicit allocation, or null if the share should be derived
+     * @param overallCost  source cost for the application
+     */
+    public void add(long ratingId,
+                    long appId,
+                    Integer allocationPercentage,
+                    BigDecimal overallCost) {
+        checkNotNull(overallCost, "overallCost cannot be null");
+        checkTrue(allocationPercentage == null || allocationPercentage >= 0, "allocationPercentage cannot be negative");
+
+        if (size == ratingIds.length) {
+            int capacity = size * 2;
+            ratingIds = Arrays.copyOf(ratingIds, capacity);
+            appIndexes = Arrays.copyOf(appIndexes, capacity);
+            allocationPercentages = Arrays.copyOf(allocationPercentages, capacity);
+            overallCosts = Arrays.copyOf(overallCosts, capacity);
+        }
+
+        ratingIds[size] = ratingId;
+        appIndexes[size] = appIndexById.computeIfAbsent(appId, k -> appIndexById.size());
+        allocationPercentages[size] = allocationPercentage == null
+                ? NO_ALLOCATION
+                : allocationPercentage;
+        overallCosts[size] = overallCost;
+        size++;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public long ratingId(int idx) {
+        checkTrue(idx >= 0 && idx < size, "idx %d is out of range", idx);
+        return ratingIds[idx];
+    }
+
+
+    /**
+     * @return allocated cost for each row, in the order the rows were added
+     */
+    public BigDecimal[] calculate() {
+        int appCount = appIndexById.size();
+        int[] ratingCounts = new int[appCount];
+        int[] explicitCounts = new int[appCount];
+        long[] explicitTotals = new long[appCount];
+
+        for (int i = 0; i < size; i++) {
+            int app = appIndexes[i];
+            ratingCounts[app]++;
+            if (allocationPercentages[i] != NO_ALLOCATION) {
+                explicitCounts[app]++;
+                explicitTotals[app] += allocationPercentages[i];
+            }
+        }
+
+        BigDecimal[] allocatedCosts = new BigDecimal[size];
+
+        for (int i = 0; i < size; i++) {
+            int app = appIndexes[i];
+            BigDecimal overallCost = overallCosts[i];
+
+            if (allocationPercentages[i] != NO_ALLOCATION) {
+                allocatedCosts[i] = BigDecimal
+                        .valueOf(allocationPercentages[i])
+                        .divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP)
+                        .multiply(overallCost);
+            } else if (ratingCounts[app] == 1) {
+                // only one rating, therefore entire cost is on this measurable
+                allocatedCosts[i] = overallCost;
+            } else if (explicitCounts[app] == 0) {
+                // no other allocations (but more than 1 rating), therefore share the total out equally
+                allocatedCosts[i] = overallCost
+                        .divide(BigDecimal.valueOf(ratingCounts[app]), 2, RoundingMode.HALF_UP);
+            } else {
+                BigDecimal shareOfUnallocated = BigDecimal
+                        .valueOf(100 - explicitTotals[app])
+                        .divide(BigDecimal.valueOf(ratingCounts[app] - explicitCounts[app]), 2, RoundingMode.HALF_UP);
+
+                allocatedCosts[i] = shareOfUnallocated
+                        .divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP)
+                        .multiply(overallCost);
+            }
+        }
+
+        return allocatedCosts;
+    }
+}
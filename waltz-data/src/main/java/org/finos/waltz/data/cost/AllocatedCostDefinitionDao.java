@@ -22,21 +22,19 @@ import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.model.DiffResult;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
-import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AllocationDerivation;
-import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableMeasurableCostEntry;
-import org.finos.waltz.model.aggregate_overlay_diagram.overlay.MeasurableCostEntry;
 import org.finos.waltz.model.cost.AllocatedCostDefinition;
+import org.finos.waltz.model.cost.AllocatedCostPopulationSummary;
 import org.finos.waltz.model.cost.ImmutableAllocatedCostDefinition;
+import org.finos.waltz.model.cost.ImmutableAllocatedCostPopulationSummary;
 import org.finos.waltz.schema.tables.AllocationScheme;
 import org.finos.waltz.schema.tables.Cost;
 import org.finos.waltz.schema.tables.CostKind;
 import org.finos.waltz.schema.tables.records.AllocatedCostDefinitionRecord;
 import org.finos.waltz.schema.tables.records.CostRecord;
-import org.jooq.Condition;
+import org.jooq.BatchBindStep;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.Record1;
-import org.jooq.Record7;
 import org.jooq.RecordMapper;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
@@ -49,16 +47,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Timestamp;
 import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
+import java.util.HashSet;
 import java.util.Set;
 
 import static java.lang.String.format;
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toSet;
-import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
-import static org.finos.waltz.data.cost.CostUtils.calculateAllocatedCosts;
 import static org.finos.waltz.model.DiffResult.mkDiff;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.ALLOCATED_COST_DEFINITION;
@@ -122,33 +115,34 @@ public class AllocatedCostDefinitionDao {
     }
 
 
-    public void allocateCostsByDefinition(AllocatedCostDefinition defn, Integer year) {
+    /**
+     * Allocates the source costs for the given year onto the measurable ratings
+     * of the definition's allocation scheme.  Only rows whose amount differs
+     * from the existing target costs are written.
+     */
+    public AllocatedCostPopulationSummary allocateCostsByDefinition(AllocatedCostDefinition defn, int year) {
 
+        long start = System.currentTimeMillis();
         Timestamp now = DateTimeUtilities.nowUtcTimestamp();
 
-        Set<MeasurableCostEntry> measurableCosts = findRequiredMeasurableCosts(defn, Optional.of(year));
+        AllocatedCostCalculator calculator = loadAllocationInputs(defn, year);
+        BigDecimal[] allocatedCosts = calculator.calculate();
 
-        Map<Long, Collection<MeasurableCostEntry>> costDataByAppId = groupBy(
-                measurableCosts,
-                MeasurableCostEntry::appId);
-
-        Set<MeasurableCostEntry> measurableCostsWithAllocatedCostValue = calculateAllocatedCosts(measurableCosts, costDataByAppId);
-
-        dsl.transaction(ctx -> {
+        return dsl.transactionResult(ctx -> {
 
             DSLContext tx = ctx.dsl();
 
-            Set<CostRecord> requiredRatingCosts = measurableCostsWithAllocatedCostValue
-                    .stream()
-                    .map(mc -> mkCostRecord(
-                            tx,
-                            defn.targetCostKind().id(),
-                            EntityKind.MEASURABLE_RATING,
-                            mc.measurableRatingId(),
-                            mc.allocatedCost(),
-                            mc.year(),
-                            now))
-                    .collect(toSet());
+            Set<CostRecord> requiredRatingCosts = new HashSet<>(calculator.size());
+            for (int i = 0; i < calculator.size(); i++) {
+                requiredRatingCosts.add(mkCostRecord(
+                        tx,
+                        defn.targetCostKind().id(),
+                        EntityKind.MEASURABLE_RATING,
+                        calculator.ratingId(i),
+                        allocatedCosts[i],
+                        year,
+                        now));
+            }
 
             Set<CostRecord> existingRatingCosts = tx
                     .selectFrom(c)
@@ -166,46 +160,75 @@ public class AllocatedCostDefinitionDao {
 
             int createdCosts = summarizeResults(tx.batchInsert(toAdd).execute());
             int removedCosts = summarizeResults(tx.batchDelete(toRemove).execute());
-
-            int updatedCosts = summarizeResults(toUpdate
-                    .stream()
-                    .map(r -> tx
-                            .update(c)
-                            .set(c.AMOUNT, r.getAmount())
-                            .set(c.LAST_UPDATED_AT, now)
-                            .set(c.LAST_UPDATED_BY, "admin")
-                            .set(c.PROVENANCE, PROVENANCE)
-                            .where(c.COST_KIND_ID.eq(r.getCostKindId())
-                                    .and(c.ENTITY_KIND.eq(r.getEntityKind())
-                                            .and(c.ENTITY_ID.eq(r.getEntityId())
-                                                    .and(c.YEAR.eq(r.getYear()))))))
-                    .collect(collectingAndThen(toSet(), tx::batch))
-                    .execute());
+            int updatedCosts = updateAmounts(tx, toUpdate, now);
+
+            AllocatedCostPopulationSummary summary = ImmutableAllocatedCostPopulationSummary
+                    .builder()
+                    .definition(defn)
+                    .year(year)
+                    .ratingCount(calculator.size())
+                    .createdCount(createdCosts)
+                    .updatedCount(updatedCosts)
+                    .removedCount(removedCosts)
+                    .unchangedCount(diff.intersection().size() - toUpdate.size())
+                    .durationMillis(System.currentTimeMillis() - start)
+                    .build();
 
             LOG.debug(format("Created %d costs, Updated %d costs, Removed %d costs", createdCosts, updatedCosts, removedCosts));
+
+            return summary;
         });
     }
 
 
-    private Set<MeasurableCostEntry> findRequiredMeasurableCosts(AllocatedCostDefinition defn, Optional<Integer> year) {
+    /**
+     * Issues a single prepared statement for all changed amounts, binding
+     * each row rather than rendering one statement per cost.
+     */
+    private static int updateAmounts(DSLContext tx,
+                                     Collection<CostRecord> toUpdate,
+                                     Timestamp now) {
+        if (toUpdate.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = tx.batch(tx
+                .update(COST)
+                .set(COST.AMOUNT, DSL.param("amount", BigDecimal.class))
+                .set(COST.LAST_UPDATED_AT, DSL.param("lastUpdatedAt", Timestamp.class))
+                .set(COST.LAST_UPDATED_BY, DSL.inline("admin"))
+                .set(COST.PROVENANCE, DSL.inline(PROVENANCE))
+                .where(COST.COST_KIND_ID.eq(DSL.param("costKindId", Long.class)))
+                .and(COST.ENTITY_KIND.eq(DSL.param("entityKind", String.class)))
+                .and(COST.ENTITY_ID.eq(DSL.param("entityId", Long.class)))
+                .and(COST.YEAR.eq(DSL.param("year", Integer.class))));
+
+        toUpdate.forEach(r -> batch.bind(
+                r.getAmount(),
+                now,
+                r.getCostKindId(),
+                r.getEntityKind(),
+                r.getEntityId(),
+                r.getYear()));
+
+        return summarizeResults(batch.execute());
+    }
+
+
+    private AllocatedCostCalculator loadAllocationInputs(AllocatedCostDefinition defn, int year) {
 
         SelectConditionStep<Record1<Long>> categoryId = DSL
                 .select(allocScheme.MEASURABLE_CATEGORY_ID)
                 .from(allocScheme)
                 .where(allocScheme.ID.eq(defn.allocationScheme().id()));
 
-        Condition yearCondition = year
-                .map(yr -> c.YEAR.eq(yr))
-                .orElse(DSL.trueCondition());
+        AllocatedCostCalculator calculator = new AllocatedCostCalculator();
 
-        SelectConditionStep<Record7<Long, Long, Long, Integer, Long, BigDecimal, Integer>> qry = dsl
+        dsl
                 .select(mr.ID,
-                        mr.MEASURABLE_ID,
                         mr.ENTITY_ID,
                         a.ALLOCATION_PERCENTAGE,
-                        c.COST_KIND_ID,
-                        c.AMOUNT,
-                        c.YEAR)
+                        c.AMOUNT)
                 .from(mr)
                 .innerJoin(m).on(m.ID.eq(mr.MEASURABLE_ID).and(m.MEASURABLE_CATEGORY_ID.eq(categoryId)))
                 .innerJoin(c).on(mr.ENTITY_ID.eq(c.ENTITY_ID)
@@ -213,22 +236,15 @@ public class AllocatedCostDefinitionDao {
                         .and(c.COST_KIND_ID.eq(defn.sourceCostKind().id()))) // Only interested where the source app has a cost
                 .leftJoin(a).on(mr.ID.eq(a.MEASURABLE_RATING_ID)
                         .and(a.ALLOCATION_SCHEME_ID.eq(defn.allocationScheme().id())))
-                .where(yearCondition);
-
-        return qry
-                .fetchSet(r -> ImmutableMeasurableCostEntry
-                        .builder()
-                        .measurableId(r.get(mr.MEASURABLE_ID))
-                        .appId(r.get(mr.ENTITY_ID))
-                        .measurableRatingId(r.get(mr.ID))
-                        .allocationPercentage(r.get(a.ALLOCATION_PERCENTAGE))
-                        .allocationDerivation(r.get(a.ALLOCATION_PERCENTAGE) == null
-                                ? AllocationDerivation.DERIVED
-                                : AllocationDerivation.EXPLICIT)
-                        .costKindId(r.get(c.COST_KIND_ID))
-                        .year(r.get(c.YEAR))
-                        .overallCost(r.get(c.AMOUNT))
-                        .build());
+                .where(c.YEAR.eq(year))
+                .fetchSize(5_000)
+                .forEach(r -> calculator.add(
+                        r.get(mr.ID),
+                        r.get(mr.ENTITY_ID),
+                        r.get(a.ALLOCATION_PERCENTAGE),
+                        r.get(c.AMOUNT)));
+
+        return calculator;
     }
 
 
@@ -48,6 +48,7 @@ import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.JooqUtilities.selectorToCTE;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.COST;
@@ -159,7 +160,7 @@ public class CostDao {
         SelectConditionStep<Record1<BigDecimal>> qry = dsl
                 .select(total)
                 .from(COST)
-                .where(dsl.renderInlined(condition));
+                .where(bindOrInline(dsl, condition));
 
         return qry
                 .fetchOne(total);
@@ -193,8 +194,8 @@ public class CostDao {
                 .select(appCount,
                         appsWithCostsCount)
                 .from(appIds)
-                .leftJoin(dsl.renderInlined(appsWithCosts))
-                .on(dsl.renderInlined(appIds.field(0, Long.class).eq(appsWithCosts.field(0, Long.class))));
+                .leftJoin(appsWithCosts)
+                .on(appIds.field(0, Long.class).eq(appsWithCosts.field(0, Long.class)));
 
         return qry
                 .fetchOne(r -> tuple(
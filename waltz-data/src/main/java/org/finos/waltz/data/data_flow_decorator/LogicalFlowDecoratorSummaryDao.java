@@ -40,6 +40,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -103,8 +104,8 @@ public class LogicalFlowDecoratorSummaryDao {
                 .select(countField)
                 .from(LOGICAL_FLOW_DECORATOR)
                 .innerJoin(LOGICAL_FLOW)
-                .on(dsl.renderInlined(dataFlowJoinCondition))
-                .where(dsl.renderInlined(condition))
+                .on(bindOrInline(dsl, dataFlowJoinCondition))
+                .where(bindOrInline(dsl, condition))
                 .groupBy(groupingFields)
                 .fetch(r -> {
                     EntityKind decoratorEntityKind = EntityKind.valueOf(r.getValue(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND));
@@ -164,7 +165,7 @@ public class LogicalFlowDecoratorSummaryDao {
                 .on(sourceAppId.eq(lf.SOURCE_ENTITY_ID))
                 .leftJoin(targetApp)
                 .on(targetAppId.eq(lf.TARGET_ENTITY_ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetchGroups(
                         k -> DataTypeDirectionKey.mkKey(
                                 k.get(lfd.DECORATOR_ENTITY_ID),
@@ -20,6 +20,8 @@ package org.finos.waltz.data.datatype_decorator;
 
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.data.rollup.RollupDirtyNodeDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
@@ -29,6 +31,7 @@ import org.finos.waltz.model.datatype.FlowDataType;
 import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.datatype.ImmutableDataTypeUsageCharacteristics;
 import org.finos.waltz.model.datatype.ImmutableFlowDataType;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRule;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.Application;
@@ -45,7 +48,9 @@ import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
+import org.jooq.SelectJoinStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -60,15 +65,18 @@ import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.JooqUtilities.readRef;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION_RULE;
 import static org.finos.waltz.schema.Tables.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_DATA_TYPE;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -126,11 +134,15 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
     };
 
     private final DSLContext dsl;
+    private final RollupDirtyNodeDao rollupDirtyNodeDao;
 
     @Autowired
-    public LogicalFlowDecoratorDao(DSLContext dsl) {
+    public LogicalFlowDecoratorDao(DSLContext dsl,
+                                   RollupDirtyNodeDao rollupDirtyNodeDao) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(rollupDirtyNodeDao, "rollupDirtyNodeDao cannot be null");
         this.dsl = dsl;
+        this.rollupDirtyNodeDao = rollupDirtyNodeDao;
     }
 
 
@@ -160,7 +172,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
                 .and(LOGICAL_NOT_REMOVED)
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetch(TO_DECORATOR_MAPPER);
     }
 
@@ -177,7 +189,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .from(LOGICAL_FLOW_DECORATOR)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .and(LOGICAL_NOT_REMOVED)
                 .fetch(TO_DECORATOR_MAPPER);
     }
@@ -230,6 +242,36 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .fetch(TO_DECORATOR_MAPPER);
     }
 
+    /**
+     * Fetches the decorators of a logical flow along with the (inbound and
+     * outbound) classification rules which determined their ratings in a
+     * single query.  Each decorator appears once per applied rule, or once
+     * with no rule if its ratings were not determined by any rule.
+     *
+     * @param flowId  logical flow id
+     * @return decorator and applied rule pairs
+     */
+    public List<Tuple2<DataTypeDecorator, Optional<FlowClassificationRule>>> findByEntityIdWithAppliedRules(long flowId) {
+        SelectJoinStep<Record> qry = dsl
+                .select(LOGICAL_FLOW_DECORATOR.fields())
+                .select(ENTITY_NAME_FIELD)
+                .select(FlowClassificationRuleDao.DOMAIN_FIELDS)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .leftJoin(FLOW_CLASSIFICATION_RULE)
+                .on(FLOW_CLASSIFICATION_RULE.ID.eq(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID)
+                        .or(FLOW_CLASSIFICATION_RULE.ID.eq(LOGICAL_FLOW_DECORATOR.INBOUND_FLOW_CLASSIFICATION_RULE_ID)));
+
+        return FlowClassificationRuleDao
+                .joinSubjectOrgUnit(qry)
+                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(flowId))
+                .fetch(r -> tuple(
+                        TO_DECORATOR_MAPPER.map(r),
+                        r.get(FLOW_CLASSIFICATION_RULE.ID) == null
+                                ? Optional.<FlowClassificationRule>empty()
+                                : Optional.of(FlowClassificationRuleDao.TO_DOMAIN_MAPPER.map(r))));
+    }
+
+
     @Override
     public List<DataTypeDecorator> findByEntityIdSelector(Select<Record1<Long>> entityIdSelector,
                                                           Optional<EntityKind> entityKind) {
@@ -254,13 +296,24 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
 
     @Override
     public int removeDataTypes(EntityReference associatedEntityRef, Collection<Long> dataTypeIds) {
-        return dsl
-                .deleteFrom(LOGICAL_FLOW_DECORATOR)
-                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(associatedEntityRef.id()))
-                .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()))
-                .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.in(dataTypeIds))
-                        .and(LOGICAL_FLOW_DECORATOR.IS_READONLY.isFalse())
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int removed = tx
+                    .deleteFrom(LOGICAL_FLOW_DECORATOR)
+                    .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(associatedEntityRef.id()))
+                    .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()))
+                    .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.in(dataTypeIds))
+                            .and(LOGICAL_FLOW_DECORATOR.IS_READONLY.isFalse())
+                    .execute();
+
+            if (removed > 0) {
+                // deletions leave no timestamp behind for the rollup refresh to find
+                rollupDirtyNodeDao.markNodesContainingFlows(
+                        tx,
+                        DSL.select(DSL.val(associatedEntityRef.id())));
+            }
+            return removed;
+        });
     }
 
 
@@ -443,7 +496,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .select(LOGICAL_FLOW_DECORATOR.fields())
                 .select(ENTITY_NAME_FIELD)
                 .from(LOGICAL_FLOW_DECORATOR)
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetchSet(TO_DECORATOR_MAPPER);
     }
 
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.data.datatype_decorator;
 
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
@@ -28,15 +29,19 @@ import org.finos.waltz.model.datatype.ImmutableDataTypeUsageCharacteristics;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.records.PhysicalSpecDataTypeRecord;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.Record7;
 import org.jooq.RecordMapper;
+import org.jooq.Result;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -50,17 +55,23 @@ import java.util.function.Function;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.DATA_TYPE;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.schema.tables.PhysicalFlow.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_DATA_TYPE;
+import static org.finos.waltz.schema.tables.PhysicalSpecDataTypeRipple.PHYSICAL_SPEC_DATA_TYPE_RIPPLE;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
 
+    private static final int RIPPLE_BATCH_SIZE = 1000;
+
     public static final RecordMapper<? super Record, DataTypeDecorator> TO_DOMAIN_MAPPER = r -> {
         PhysicalSpecDataTypeRecord record = r.into(PHYSICAL_SPEC_DATA_TYPE);
         return ImmutableDataTypeDecorator.builder()
@@ -165,8 +176,16 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
                 .map(TO_RECORD_MAPPER)
                 .collect(toList());
 
-        return dsl.batchInsert(records)
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int[] result = tx.batchInsert(records)
+                    .execute();
+
+            markForRipple(tx, Tables.PHYSICAL_SPECIFICATION.ID.in(map(specificationDataTypes, d -> d.entityReference().id())));
+
+            return result;
+        });
     }
 
 
@@ -234,7 +253,109 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    /**
+     * Ripples the data types of every specification to the logical flows
+     * which have active physical flows using that specification.  Any
+     * specifications waiting to be rippled are covered by this sweep and are
+     * cleared.
+     *
+     * @return number of logical flow decorators created
+     */
     public int rippleDataTypesToLogicalFlows() {
+        List<Long> pendingIds = dsl
+                .select(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID)
+                .from(PHYSICAL_SPEC_DATA_TYPE_RIPPLE)
+                .fetch(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID);
+
+        int inserted = rippleDataTypesToLogicalFlows(dsl, DSL.trueCondition());
+
+        dsl.deleteFrom(PHYSICAL_SPEC_DATA_TYPE_RIPPLE)
+                .where(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID.in(pendingIds))
+                .execute();
+
+        return inserted;
+    }
+
+
+    public boolean hasPendingRipples() {
+        return dsl.fetchExists(PHYSICAL_SPEC_DATA_TYPE_RIPPLE);
+    }
+
+
+    /**
+     * Ripples the data types of specifications which have been marked (see
+     * {@link #markForRipple(DSLContext, Condition)}) to their logical flows.
+     * Marks are claimed and processed in batches of {@link #RIPPLE_BATCH_SIZE},
+     * each batch in its own transaction.
+     *
+     * @return number of logical flow decorators created
+     */
+    public int ripplePendingDataTypesToLogicalFlows() {
+        int total = 0;
+        while (true) {
+            Tuple2<Integer, Integer> claimedAndInserted = dsl.transactionResult(ctx -> {
+                DSLContext tx = ctx.dsl();
+
+                Result<Record2<Long, Long>> pending = tx
+                        .select(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID, PHYSICAL_SPEC_DATA_TYPE_RIPPLE.SPECIFICATION_ID)
+                        .from(PHYSICAL_SPEC_DATA_TYPE_RIPPLE)
+                        .orderBy(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID)
+                        .limit(RIPPLE_BATCH_SIZE)
+                        .fetch();
+
+                if (pending.isEmpty()) {
+                    return tuple(0, 0);
+                }
+
+                // deleting first claims the marks, a concurrent sweep of the same marks will delete nothing
+                int claimed = tx
+                        .deleteFrom(PHYSICAL_SPEC_DATA_TYPE_RIPPLE)
+                        .where(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID.in(pending.getValues(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.ID)))
+                        .execute();
+
+                if (claimed == 0) {
+                    return tuple(0, 0);
+                }
+
+                Set<Long> specIds = SetUtilities.fromCollection(pending.getValues(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.SPECIFICATION_ID));
+
+                return tuple(
+                        pending.size(),
+                        rippleDataTypesToLogicalFlows(tx, PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.in(specIds)));
+            });
+
+            total += claimedAndInserted.v2;
+
+            if (claimedAndInserted.v1 < RIPPLE_BATCH_SIZE) {
+                return total;
+            }
+        }
+    }
+
+
+    /**
+     * Records that the data types of the given specifications need rippling
+     * to their logical flows, e.g. because data types have been added or a
+     * physical flow now uses them.  Removals need no ripple as rippling only
+     * ever adds logical flow data types.
+     *
+     * @param dsl  context to use, should be the transaction making the change
+     * @param specificationCondition  condition on <code>PHYSICAL_SPECIFICATION</code> selecting the specs to mark
+     * @return number of specifications marked
+     */
+    public static int markForRipple(DSLContext dsl, Condition specificationCondition) {
+        return dsl
+                .insertInto(PHYSICAL_SPEC_DATA_TYPE_RIPPLE)
+                .columns(PHYSICAL_SPEC_DATA_TYPE_RIPPLE.SPECIFICATION_ID, PHYSICAL_SPEC_DATA_TYPE_RIPPLE.TOUCHED_AT)
+                .select(DSL
+                        .select(Tables.PHYSICAL_SPECIFICATION.ID, DSL.val(nowUtcTimestamp()))
+                        .from(Tables.PHYSICAL_SPECIFICATION)
+                        .where(specificationCondition))
+                .execute();
+    }
+
+
+    private static int rippleDataTypesToLogicalFlows(DSLContext dsl, Condition specCondition) {
         SelectConditionStep<Record7<Long, String, Long, String, String, Timestamp, String>> qry = DSL
                 .selectDistinct(
                         PHYSICAL_FLOW.LOGICAL_FLOW_ID,
@@ -264,7 +385,8 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
                 .on(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(Tables.LOGICAL_FLOW.ID)
                         .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.eq(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID))
                         .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))
-                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.isNull());
+                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.isNull())
+                .and(specCondition);
 
         return dsl
                 .insertInto(LOGICAL_FLOW_DECORATOR)
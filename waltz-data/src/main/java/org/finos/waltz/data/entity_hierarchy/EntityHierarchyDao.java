@@ -21,6 +21,7 @@ package org.finos.waltz.data.entity_hierarchy;
 import org.finos.waltz.schema.tables.EntityHierarchy;
 import org.finos.waltz.schema.tables.records.EntityHierarchyRecord;
 import org.finos.waltz.data.JooqUtilities;
+import org.finos.waltz.data.bulk_load.BulkLoaders;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
@@ -114,10 +115,7 @@ public class EntityHierarchyDao {
                     .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
                     .and(deleteFilter)
                     .execute();
-            return txDsl
-                    .batchInsert(records)
-                    .execute()
-                    .length;
+            return BulkLoaders.bulkLoad(txDsl, records);
         });
     }
 
@@ -38,6 +38,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.EntityStatisticDefinition.ENTITY_STATISTIC_DEFINITION;
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
 
@@ -77,7 +78,7 @@ public class EntityStatisticDao implements FindEntityReferencesByIdSelector {
                 .from(es)
                 .innerJoin(esv)
                 .on(esv.STATISTIC_ID.eq(es.ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetch(TO_COMPOUND_MAPPER);
     }
 
@@ -0,0 +1,284 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_statistic;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.tally.ImmutableTally;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.EntityStatisticDefinition;
+import org.finos.waltz.schema.tables.EntityStatisticValue;
+import org.finos.waltz.schema.tables.records.EntityStatisticRollupRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.DataType;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record3;
+import org.jooq.Record8;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.data.rollup.RollupMembership.APP_ID;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_ID;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_KIND;
+import static org.finos.waltz.data.rollup.RollupMembership.mkMembershipTable;
+import static org.finos.waltz.data.rollup.RollupMembership.mkNodeCondition;
+import static org.finos.waltz.data.rollup.RollupMembership.mkNodesContainingApps;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_DEFINITION;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_ROLLUP;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_VALUE;
+
+
+/**
+ * Precomputed tallies of current application statistic values for each
+ * rollup node (see {@link org.finos.waltz.data.rollup.RollupMembership}).
+ *
+ * Each cell holds the entity count, the numeric sum and the count of
+ * numeric values per (node, statistic, outcome), from which the
+ * count, sum and average rollups can all be derived.  Sums are only
+ * calculated for statistics with a value based rollup kind as other
+ * statistics may have non-numeric values.
+ */
+@Repository
+public class EntityStatisticRollupDao {
+
+    public static final String ROLLUP_NAME = "ENTITY_STATISTIC";
+
+    private static final EntityStatisticValue esv = ENTITY_STATISTIC_VALUE.as("esv_rollup");
+    private static final EntityStatisticDefinition esd = ENTITY_STATISTIC_DEFINITION.as("esd_rollup");
+
+    private static final DataType<BigDecimal> decimalValueDataType = SQLDataType.DECIMAL(38, 12);
+
+    private static final int TOTAL_SCALE = 2;
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntityStatisticRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * Gives one tally pack per requested statistic, statistics without any
+     * values give an empty pack.
+     */
+    public List<TallyPack<String>> findTallies(EntityReference node,
+                                               Collection<Long> statisticIds,
+                                               RollupKind rollupKind) {
+        checkNotNull(node, "node cannot be null");
+        checkNotNull(statisticIds, "statisticIds cannot be null");
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+
+        if (statisticIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, List<EntityStatisticRollupRecord>> cellsByStatisticId = dsl
+                .selectFrom(ENTITY_STATISTIC_ROLLUP)
+                .where(ENTITY_STATISTIC_ROLLUP.NODE_KIND.eq(node.kind().name()))
+                .and(ENTITY_STATISTIC_ROLLUP.NODE_ID.eq(node.id()))
+                .and(ENTITY_STATISTIC_ROLLUP.STATISTIC_ID.in(statisticIds))
+                .fetch()
+                .stream()
+                .collect(groupingBy(EntityStatisticRollupRecord::getStatisticId));
+
+        return statisticIds
+                .stream()
+                .map(statisticId -> mkTallyPack(
+                        statisticId,
+                        cellsByStatisticId.getOrDefault(statisticId, Collections.emptyList()),
+                        rollupKind))
+                .collect(toList());
+    }
+
+
+    /**
+     * Gives the nodes with a member application whose statistic values have
+     * been (re)loaded after the given time.
+     */
+    public Set<EntityReference> findNodesWithChangesSince(LocalDateTime since) {
+        checkNotNull(since, "since cannot be null");
+
+        Select<Record1<Long>> changedAppIds = DSL
+                .selectDistinct(ENTITY_STATISTIC_VALUE.ENTITY_ID)
+                .from(ENTITY_STATISTIC_VALUE)
+                .where(ENTITY_STATISTIC_VALUE.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .and(ENTITY_STATISTIC_VALUE.CREATED_AT.gt(Timestamp.valueOf(since)));
+
+        return dsl
+                .fetch(mkNodesContainingApps(changedAppIds))
+                .stream()
+                .map(r -> mkRef(EntityKind.valueOf(r.value1()), r.value2()))
+                .collect(toSet());
+    }
+
+
+    /**
+     * Discards all cells and recalculates them for every node.
+     *
+     * @return number of cells written
+     */
+    public int rebuild() {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(ENTITY_STATISTIC_ROLLUP).execute();
+            return insertCells(tx, Optional.empty());
+        });
+    }
+
+
+    /**
+     * Recalculates the cells of the given nodes only.
+     *
+     * @return number of cells written
+     */
+    public int refresh(Set<EntityReference> nodes) {
+        checkNotNull(nodes, "nodes cannot be null");
+
+        if (nodes.isEmpty()) {
+            return 0;
+        }
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(ENTITY_STATISTIC_ROLLUP)
+                    .where(mkNodeCondition(ENTITY_STATISTIC_ROLLUP.NODE_KIND, ENTITY_STATISTIC_ROLLUP.NODE_ID, nodes))
+                    .execute();
+            return insertCells(tx, Optional.of(nodes));
+        });
+    }
+
+
+    // -- HELPERS ---
+
+    private static int insertCells(DSLContext tx, Optional<Set<EntityReference>> nodes) {
+        return tx
+                .insertInto(ENTITY_STATISTIC_ROLLUP,
+                        ENTITY_STATISTIC_ROLLUP.NODE_KIND,
+                        ENTITY_STATISTIC_ROLLUP.NODE_ID,
+                        ENTITY_STATISTIC_ROLLUP.STATISTIC_ID,
+                        ENTITY_STATISTIC_ROLLUP.OUTCOME,
+                        ENTITY_STATISTIC_ROLLUP.ENTITY_COUNT,
+                        ENTITY_STATISTIC_ROLLUP.VALUE_SUM,
+                        ENTITY_STATISTIC_ROLLUP.VALUE_COUNT,
+                        ENTITY_STATISTIC_ROLLUP.MAX_CREATED_AT)
+                .select(mkCellsQuery(nodes))
+                .execute();
+    }
+
+
+    private static Select<Record8<String, Long, Long, String, Integer, BigDecimal, Integer, Timestamp>> mkCellsQuery(Optional<Set<EntityReference>> nodes) {
+        Table<Record3<String, Long, Long>> members = mkMembershipTable("members", nodes);
+        Field<String> nodeKind = members.field(NODE_KIND);
+        Field<Long> nodeId = members.field(NODE_ID);
+
+        Condition isValueRollup = esd.ROLLUP_KIND.in(
+                RollupKind.SUM_BY_VALUE.name(),
+                RollupKind.AVG_BY_VALUE.name());
+
+        Field<BigDecimal> numericValue = DSL.when(isValueRollup, DSL.cast(esv.VALUE, decimalValueDataType));
+
+        return DSL
+                .select(nodeKind,
+                        nodeId,
+                        esv.STATISTIC_ID,
+                        esv.OUTCOME,
+                        DSL.count(),
+                        DSL.sum(numericValue),
+                        DSL.count(numericValue),
+                        DSL.max(esv.CREATED_AT))
+                .from(members)
+                .innerJoin(esv)
+                    .on(esv.ENTITY_ID.eq(members.field(APP_ID))
+                            .and(esv.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                            .and(esv.CURRENT.isTrue()))
+                .leftJoin(esd).on(esd.ID.eq(esv.STATISTIC_ID))
+                .groupBy(nodeKind, nodeId, esv.STATISTIC_ID, esv.OUTCOME);
+    }
+
+
+    private static TallyPack<String> mkTallyPack(Long statisticId,
+                                                 List<EntityStatisticRollupRecord> cells,
+                                                 RollupKind rollupKind) {
+        List<Tally<String>> tallies = cells
+                .stream()
+                .map(cell -> ImmutableTally.<String>builder()
+                        .id(cell.getOutcome())
+                        .count(toTotal(cell, rollupKind))
+                        .build())
+                .collect(toList());
+
+        LocalDateTime lastUpdatedAt = cells
+                .stream()
+                .map(cell -> cell.getMaxCreatedAt().toLocalDateTime())
+                .max(LocalDateTime::compareTo)
+                .orElseGet(() -> nowUtc());
+
+        return ImmutableTallyPack.<String>builder()
+                .entityReference(mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
+                .tallies(tallies)
+                .lastUpdatedAt(lastUpdatedAt)
+                .build();
+    }
+
+
+    private static double toTotal(EntityStatisticRollupRecord cell, RollupKind rollupKind) {
+        BigDecimal sum = Optional.ofNullable(cell.getValueSum()).orElse(BigDecimal.ZERO);
+        switch (rollupKind) {
+            case COUNT_BY_ENTITY:
+                return cell.getEntityCount();
+            case SUM_BY_VALUE:
+                return sum.setScale(TOTAL_SCALE, RoundingMode.HALF_UP).doubleValue();
+            case AVG_BY_VALUE:
+                return cell.getValueCount() == 0
+                        ? 0
+                        : sum.divide(BigDecimal.valueOf(cell.getValueCount()), TOTAL_SCALE, RoundingMode.HALF_UP).doubleValue();
+            default:
+                throw new IllegalArgumentException(String.format("Rollup kind [%s] cannot be answered from the rollups", rollupKind));
+        }
+    }
+}
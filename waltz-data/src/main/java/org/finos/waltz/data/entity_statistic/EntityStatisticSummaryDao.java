@@ -49,9 +49,11 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.function.Function;
 
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
 import static java.util.stream.Collectors.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -173,7 +175,7 @@ public class EntityStatisticSummaryDao {
         Result<Record4<Long, String, String, Timestamp>> values = dsl
                 .select(esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE, max(esv.CREATED_AT).as(maxCreatedAtField))
                 .from(esv)
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .groupBy(esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
                 .fetch();
 
@@ -212,8 +214,8 @@ public class EntityStatisticSummaryDao {
         Result<Record4<java.sql.Date, Long, String, String>> values = dsl
                 .select(esvCreatedAtDateOnly, esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
                 .from(esv)
-                .where(dsl.renderInlined(condition))
-                .and(dsl.renderInlined(mkHistoryDurationCondition(duration)))
+                .where(bindOrInline(dsl, condition))
+                .and(bindOrInline(dsl, mkHistoryDurationCondition(duration)))
                 .groupBy(castDateField, esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
                 .orderBy(esvCreatedAtDateOnly.asc())
                 .fetch();
@@ -243,39 +245,18 @@ public class EntityStatisticSummaryDao {
                                                   Select<Record1<Long>> appIdSelector,
                                                   Field<T> aggregateField,
                                                   Function<T, Double> toTally) {
-
-        Condition condition = mkSummaryCondition(
+        return generateSummaries(
                 newArrayList(statisticId),
                 appIdSelector,
-                esv.CURRENT.eq(true));
-
-        Result<Record3<String, T, Timestamp>> values = dsl
-                .select(esv.OUTCOME, aggregateField, max(esv.CREATED_AT).as(maxCreatedAtField))
-                .from(esv)
-                .where(dsl.renderInlined(condition))
-                .groupBy(esv.OUTCOME)
-                .fetch();
-
-        LocalDateTime maxCreatedAt = values.isNotEmpty()
-                                        ? values.get(0).getValue(maxCreatedAtField).toLocalDateTime()
-                                        : nowUtc();
-
-        List<Tally<String>> tallies = values
-                .stream()
-                .map(r -> ImmutableTally.<String>builder()
-                        .count(toTally.apply(r.getValue(aggregateField)))
-                        .id(r.getValue(esv.OUTCOME))
-                        .build())
-                .collect(toList());
-
-        return ImmutableTallyPack.<String>builder()
-                .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
-                .tallies(tallies)
-                .lastUpdatedAt(maxCreatedAt)
-                .build();
+                aggregateField,
+                toTally).get(0);
     }
 
 
+    /**
+     * Summarises all the statistics in a single query, giving one tally pack
+     * per requested statistic (statistics without values give an empty pack).
+     */
     private <T> List<TallyPack<String>> generateSummaries(Collection<Long> statisticIds,
                                                           Select<Record1<Long>> appIdSelector,
                                                           Field<T> aggregateField,
@@ -290,14 +271,45 @@ public class EntityStatisticSummaryDao {
             return Collections.emptyList();
         }
 
-        List<Future<TallyPack<String>>> summaryFutures = statisticIds.stream()
-                .map(statId -> dbExecutorPool.submit(() ->
-                        generateSummary(statId, appIdSelector, aggregateField, toTally)))
-                .collect(toList());
+        Condition condition = mkSummaryCondition(
+                statisticIds,
+                appIdSelector,
+                esv.CURRENT.eq(true));
 
-        return summaryFutures.stream()
-                .map(f -> Unchecked.supplier(f::get)
-                        .get())
+        Map<Long, Result<Record4<Long, String, T, Timestamp>>> valuesByStatisticId = dsl
+                .select(esv.STATISTIC_ID, esv.OUTCOME, aggregateField, max(esv.CREATED_AT).as(maxCreatedAtField))
+                .from(esv)
+                .where(bindOrInline(dsl, condition))
+                .groupBy(esv.STATISTIC_ID, esv.OUTCOME)
+                .fetchGroups(esv.STATISTIC_ID);
+
+        return statisticIds
+                .stream()
+                .map(statisticId -> {
+                    List<Record4<Long, String, T, Timestamp>> values = valuesByStatisticId.containsKey(statisticId)
+                            ? valuesByStatisticId.get(statisticId)
+                            : Collections.emptyList();
+
+                    LocalDateTime maxCreatedAt = values
+                            .stream()
+                            .map(r -> r.getValue(maxCreatedAtField).toLocalDateTime())
+                            .max(LocalDateTime::compareTo)
+                            .orElseGet(() -> nowUtc());
+
+                    List<Tally<String>> tallies = values
+                            .stream()
+                            .map(r -> ImmutableTally.<String>builder()
+                                    .count(toTally.apply(r.getValue(aggregateField)))
+                                    .id(r.getValue(esv.OUTCOME))
+                                    .build())
+                            .collect(toList());
+
+                    return ImmutableTallyPack.<String>builder()
+                            .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
+                            .tallies(tallies)
+                            .lastUpdatedAt(maxCreatedAt)
+                            .build();
+                })
                 .collect(toList());
     }
 
@@ -322,8 +334,8 @@ public class EntityStatisticSummaryDao {
         Result<Record3<Date, String, T>> values = dsl
                 .select(esvCreatedAtDateOnly, esv.OUTCOME, aggregateField)
                 .from(esv)
-                .where(dsl.renderInlined(condition))
-                .and(dsl.renderInlined(mkHistoryDurationCondition(duration)))
+                .where(bindOrInline(dsl, condition))
+                .and(bindOrInline(dsl, mkHistoryDurationCondition(duration)))
                 .groupBy(castDateField, esv.OUTCOME)
                 .orderBy(esvCreatedAtDateOnly.asc())
                 .fetch();
@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
 
@@ -126,7 +127,7 @@ public class EntityStatisticValueDao {
                 .from(esv)
                 .join(app)
                 .on(esv.ENTITY_ID.eq(app.ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetch(TO_VALUE_MAPPER);
 
         return fetch;
@@ -143,7 +144,7 @@ public class EntityStatisticValueDao {
                 .from(app)
                 .join(esv)
                 .on(esv.ENTITY_ID.eq(app.ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetch(ApplicationDao.TO_DOMAIN_MAPPER);
     }
 
@@ -52,9 +52,11 @@ import org.jooq.RecordMapper;
 import org.jooq.Result;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
+import org.jooq.SelectJoinStep;
 import org.jooq.SelectOnConditionStep;
 import org.jooq.SelectSeekStep2;
 import org.jooq.SelectSeekStep6;
+import org.jooq.Table;
 import org.jooq.UpdateConditionStep;
 import org.jooq.UpdateSetMoreStep;
 import org.jooq.impl.DSL;
@@ -74,9 +76,12 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.concat;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -125,7 +130,15 @@ public class FlowClassificationRuleDao {
 
     private final DSLContext dsl;
 
-    private static final RecordMapper<Record, FlowClassificationRule> TO_DOMAIN_MAPPER = r -> {
+    /**
+     * Fields needed by {@link #TO_DOMAIN_MAPPER}, the rule table must be
+     * joined via {@link #joinSubjectOrgUnit(SelectJoinStep)}.
+     */
+    public static final List<Field<?>> DOMAIN_FIELDS = concat(
+            newArrayList(PARENT_NAME_FIELD, SUBJECT_NAME_FIELD, ORGANISATIONAL_UNIT.ID, ORGANISATIONAL_UNIT.NAME),
+            asList(FLOW_CLASSIFICATION_RULE.fields()));
+
+    public static final RecordMapper<Record, FlowClassificationRule> TO_DOMAIN_MAPPER = r -> {
         FlowClassificationRuleRecord record = r.into(FlowClassificationRuleRecord.class);
 
         EntityReference parentRef = ImmutableEntityReference.builder()
@@ -355,7 +368,7 @@ public class FlowClassificationRuleDao {
                 .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.DATA_TYPE.name()))
                 .innerJoin(org.finos.waltz.schema.tables.DataType.DATA_TYPE).on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID))
                 .innerJoin(FLOW_CLASSIFICATION).on(LOGICAL_FLOW_DECORATOR.RATING.eq(FLOW_CLASSIFICATION.CODE))
-                .where(dsl.renderInlined(org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID.eq(rule.dataTypeId())
+                .where(bindOrInline(dsl, org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID.eq(rule.dataTypeId())
                         .and(LOGICAL_FLOW.SOURCE_ENTITY_ID.eq(rule.subjectReference().id())
                                 .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(EntityKind.APPLICATION.name())
                                         .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(rule.vantagePointReference().kind().name())
@@ -389,7 +402,42 @@ public class FlowClassificationRuleDao {
                 .or(actorVantagePointCondition)
                 .or(orgUnitVantagePointCondition);
 
-        SelectConditionStep<Record11<Long, String, Integer, Long, Integer, Long, String, String, Long, String, String>> select = dsl
+        return findExpandedFlowClassificationRuleVantagePoints(
+                direction,
+                ehOrgUnit.ID.in(orgVantagePointIds),
+                vantagePointCondition);
+    }
+
+
+    /**
+     * Expands every rule in the given direction, org unit rules are expanded
+     * to every org unit beneath the rule's org unit and data type rules to
+     * every data type beneath the rule's data type.
+     */
+    public List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(FlowDirection direction) {
+        return findExpandedFlowClassificationRuleVantagePoints(
+                direction,
+                DSL.trueCondition(),
+                DSL.trueCondition());
+    }
+
+
+    /**
+     * @return number of vantage points {@link #findExpandedFlowClassificationRuleVantagePoints(FlowDirection)} would return
+     */
+    public int countExpandedFlowClassificationRuleVantagePoints(FlowDirection direction) {
+        return dsl
+                .selectCount()
+                .from(mkExpandedVantagePointsTable(direction, DSL.trueCondition()))
+                .fetchOne()
+                .value1();
+    }
+
+
+    private List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(FlowDirection direction,
+                                                                                                     Condition orgUnitExpansionCondition,
+                                                                                                     Condition vantagePointCondition) {
+        return dsl
                 .select(vantagePointId,
                         FLOW_CLASSIFICATION_RULE.PARENT_KIND,
                         vantagePointLevel,
@@ -401,7 +449,15 @@ public class FlowClassificationRuleDao {
                         FLOW_CLASSIFICATION_RULE.ID,
                         FLOW_CLASSIFICATION_RULE.MESSAGE,
                         FLOW_CLASSIFICATION_RULE.MESSAGE_SEVERITY)
-                .from(FLOW_CLASSIFICATION_RULE)
+                .from(mkExpandedVantagePointsTable(direction, orgUnitExpansionCondition))
+                .where(vantagePointCondition)
+                .fetch(TO_VANTAGE_MAPPER);
+    }
+
+
+    private Table<Record> mkExpandedVantagePointsTable(FlowDirection direction,
+                                                       Condition orgUnitExpansionCondition) {
+        return FLOW_CLASSIFICATION_RULE
                 .innerJoin(FLOW_CLASSIFICATION).on(FLOW_CLASSIFICATION.DIRECTION.eq(direction.name())
                         .and(FLOW_CLASSIFICATION_RULE.FLOW_CLASSIFICATION_ID.eq(FLOW_CLASSIFICATION.ID)))
                 .leftJoin(ehDataType)
@@ -411,10 +467,7 @@ public class FlowClassificationRuleDao {
                 .on(FLOW_CLASSIFICATION_RULE.PARENT_KIND.eq(EntityKind.ORG_UNIT.name())
                         .and(ehOrgUnit.KIND.eq(EntityKind.ORG_UNIT.name())
                                 .and(ehOrgUnit.ANCESTOR_ID.eq(FLOW_CLASSIFICATION_RULE.PARENT_ID)
-                                        .and(ehOrgUnit.ID.in(orgVantagePointIds)))))
-                .where(vantagePointCondition);
-
-        return select.fetch(TO_VANTAGE_MAPPER);
+                                        .and(orgUnitExpansionCondition))));
     }
 
 
@@ -584,12 +637,18 @@ public class FlowClassificationRuleDao {
     // -- HELPERS --
 
     private SelectOnConditionStep<Record> baseSelect() {
-        return dsl
-                .select(PARENT_NAME_FIELD)
-                .select(SUBJECT_NAME_FIELD)
-                .select(ORGANISATIONAL_UNIT.ID, ORGANISATIONAL_UNIT.NAME)
-                .select(FLOW_CLASSIFICATION_RULE.fields())
-                .from(FLOW_CLASSIFICATION_RULE)
+        return joinSubjectOrgUnit(dsl
+                .select(DOMAIN_FIELDS)
+                .from(FLOW_CLASSIFICATION_RULE));
+    }
+
+
+    /**
+     * Joins the org unit of the rule subject (if it has one), required by {@link #TO_DOMAIN_MAPPER}.
+     * The given query must already include the <code>FLOW_CLASSIFICATION_RULE</code> table.
+     */
+    public static <R extends Record> SelectOnConditionStep<R> joinSubjectOrgUnit(SelectJoinStep<R> qry) {
+        return qry
                 .leftJoin(SUBJECT_APP)
                 .on(SUBJECT_APP.ID.eq(FLOW_CLASSIFICATION_RULE.SUBJECT_ENTITY_ID)
                         .and(FLOW_CLASSIFICATION_RULE.SUBJECT_ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
@@ -22,6 +22,7 @@ import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.data.person.PersonDao;
+import org.finos.waltz.data.rollup.RollupDirtyNodeDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.ImmutableEntityReference;
@@ -57,6 +58,8 @@ import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.APPLICATION;
 import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
 import static org.finos.waltz.schema.Tables.END_USER_APPLICATION;
 import static org.finos.waltz.schema.tables.Involvement.INVOLVEMENT;
@@ -68,6 +71,7 @@ import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
 public class InvolvementDao {
 
     private final DSLContext dsl;
+    private final RollupDirtyNodeDao rollupDirtyNodeDao;
 
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory
             .mkNameField(
@@ -109,10 +113,13 @@ public class InvolvementDao {
 
 
     @Autowired
-    public InvolvementDao(DSLContext dsl) {
+    public InvolvementDao(DSLContext dsl,
+                          RollupDirtyNodeDao rollupDirtyNodeDao) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(rollupDirtyNodeDao, "rollupDirtyNodeDao must not be null");
 
         this.dsl = dsl;
+        this.rollupDirtyNodeDao = rollupDirtyNodeDao;
     }
 
 
@@ -230,7 +237,12 @@ public class InvolvementDao {
 
     public int save(Involvement involvement) {
         return ! exists(involvement)
-                ? dsl.executeInsert(TO_RECORD_MAPPER.apply(involvement))
+                ? dsl.transactionResult(ctx -> {
+                    DSLContext tx = ctx.dsl();
+                    int inserted = tx.executeInsert(TO_RECORD_MAPPER.apply(involvement));
+                    markPeopleInvolvedWithApps(tx, asSet(involvement));
+                    return inserted;
+                })
                 : 0;
     }
 
@@ -238,9 +250,13 @@ public class InvolvementDao {
     public int remove(Involvement involvement) {
 
         return exists(involvement)
-                ? dsl.deleteFrom(INVOLVEMENT)
-                    .where(involvementRecordSelectCondition(involvement))
-                    .execute()
+                ? dsl.transactionResult(ctx -> {
+                    DSLContext tx = ctx.dsl();
+                    markPeopleInvolvedWithApps(tx, asSet(involvement));
+                    return tx.deleteFrom(INVOLVEMENT)
+                        .where(involvementRecordSelectCondition(involvement))
+                        .execute();
+                })
                 : 0;
     }
 
@@ -274,11 +290,17 @@ public class InvolvementDao {
      * @return count of removed involvements
      */
     public int deleteByGenericEntitySelector(GenericSelector genericSelector) {
-        return dsl
-                .deleteFrom(INVOLVEMENT)
-                .where(INVOLVEMENT.ENTITY_KIND.eq(genericSelector.kind().name()))
-                .and(INVOLVEMENT.ENTITY_ID.in(genericSelector.selector()))
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            if (genericSelector.kind() == EntityKind.APPLICATION) {
+                rollupDirtyNodeDao.markPeopleInvolvedWithApps(tx, genericSelector.selector());
+            }
+            return tx
+                    .deleteFrom(INVOLVEMENT)
+                    .where(INVOLVEMENT.ENTITY_KIND.eq(genericSelector.kind().name()))
+                    .and(INVOLVEMENT.ENTITY_ID.in(genericSelector.selector()))
+                    .execute();
+        });
     }
 
 
@@ -342,8 +364,12 @@ public class InvolvementDao {
 
     public int bulkStoreInvolvements(Set<Involvement> involvements) {
         Set<InvolvementRecord> involvementRecords = SetUtilities.map(involvements, TO_RECORD_MAPPER);
-        int[] inserted = dsl.batchInsert(involvementRecords).execute();
-        return IntStream.of(inserted).sum();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            int[] inserted = tx.batchInsert(involvementRecords).execute();
+            markPeopleInvolvedWithApps(tx, involvements);
+            return IntStream.of(inserted).sum();
+        });
     }
 
     public Set<Involvement> findByKindIdAndEntityKind(long id, EntityKind kind) {
@@ -358,15 +384,40 @@ public class InvolvementDao {
     }
 
     public int bulkDeleteInvolvements(Set<Involvement> involvements) {
-        int[] removedInvolvements = involvements
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            markPeopleInvolvedWithApps(tx, involvements);
+            int[] removedInvolvements = involvements
+                    .stream()
+                    .map(involvement -> tx
+                            .deleteFrom(INVOLVEMENT)
+                            .where(INVOLVEMENT.ENTITY_KIND.eq(involvement.entityReference().kind().name())
+                                    .and(INVOLVEMENT.ENTITY_ID.eq(involvement.entityReference().id()))
+                                    .and(INVOLVEMENT.EMPLOYEE_ID.eq(involvement.employeeId()))
+                                    .and(INVOLVEMENT.KIND_ID.eq(involvement.kindId()))))
+                    .collect(collectingAndThen(toSet(), xs -> tx.batch(xs).execute()));
+            return IntStream.of(removedInvolvements).sum();
+        });
+    }
+
+
+    /**
+     * Person rollup nodes contain the apps people (and their reportees) are
+     * involved with.  Removals must be marked before the delete and
+     * additions after the insert.
+     */
+    private void markPeopleInvolvedWithApps(DSLContext tx, Collection<Involvement> involvements) {
+        Set<Long> appIds = involvements
                 .stream()
-                .map(involvement -> dsl
-                        .deleteFrom(INVOLVEMENT)
-                        .where(INVOLVEMENT.ENTITY_KIND.eq(involvement.entityReference().kind().name())
-                                .and(INVOLVEMENT.ENTITY_ID.eq(involvement.entityReference().id()))
-                                .and(INVOLVEMENT.EMPLOYEE_ID.eq(involvement.employeeId()))
-                                .and(INVOLVEMENT.KIND_ID.eq(involvement.kindId()))))
-                .collect(collectingAndThen(toSet(), xs -> dsl.batch(xs).execute()));
-        return IntStream.of(removedInvolvements).sum();
+                .map(Involvement::entityReference)
+                .filter(ref -> ref.kind() == EntityKind.APPLICATION)
+                .map(EntityReference::id)
+                .collect(toSet());
+
+        if (!appIds.isEmpty()) {
+            rollupDirtyNodeDao.markPeopleInvolvedWithApps(
+                    tx,
+                    DSL.select(APPLICATION.ID).from(APPLICATION).where(APPLICATION.ID.in(appIds)));
+        }
     }
 }
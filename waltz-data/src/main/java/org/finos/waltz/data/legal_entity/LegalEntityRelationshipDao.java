@@ -32,6 +32,7 @@ import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.ObjectUtilities.firstNotNull;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.assessment_definition.AssessmentVisibility.PRIMARY;
@@ -131,7 +132,7 @@ public class LegalEntityRelationshipDao {
                 .select(ENTITY_EXTERNAL_ID_FIELD)
                 .from(LEGAL_ENTITY_RELATIONSHIP)
                 .innerJoin(LEGAL_ENTITY).on(LEGAL_ENTITY_RELATIONSHIP.LEGAL_ENTITY_ID.eq(LEGAL_ENTITY.ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
 
@@ -206,10 +207,10 @@ public class LegalEntityRelationshipDao {
                 .select(ar.ASSESSMENT_DEFINITION_ID,
                         ar.RATING_ID)
                 .from(ler)
-                .innerJoin(ar).on(dsl.renderInlined(ar.ASSESSMENT_DEFINITION_ID.in(primaryAssessmentDefs.keySet())
+                .innerJoin(ar).on(bindOrInline(dsl, ar.ASSESSMENT_DEFINITION_ID.in(primaryAssessmentDefs.keySet())
                         .and(ar.ENTITY_KIND.eq(EntityKind.LEGAL_ENTITY_RELATIONSHIP.name())
                                 .and(ler.ID.eq(ar.ENTITY_ID)))))
-                .where(dsl.renderInlined(condition));
+                .where(bindOrInline(dsl, condition));
 
         return qry
                 .fetchSet(r -> ImmutableLegalEntityRelationshipAssessmentInfo
@@ -18,7 +18,8 @@
 
 package org.finos.waltz.data.logical_flow;
 
-import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.data.EntityReferenceCache;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
@@ -31,7 +32,6 @@ import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.schema.tables.records.LogicalFlowRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.RecordMapper;
@@ -54,8 +54,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.map;
@@ -67,6 +67,8 @@ import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
+import static org.finos.waltz.data.JooqUtilities.inIds;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
@@ -82,28 +84,6 @@ public class LogicalFlowDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowDao.class);
 
-    private static final Field<String> SOURCE_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
-            LOGICAL_FLOW.SOURCE_ENTITY_ID,
-            LOGICAL_FLOW.SOURCE_ENTITY_KIND,
-            newArrayList(EntityKind.APPLICATION, EntityKind.ACTOR, EntityKind.END_USER_APPLICATION));
-
-
-    private static final Field<String> TARGET_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
-            LOGICAL_FLOW.TARGET_ENTITY_ID,
-            LOGICAL_FLOW.TARGET_ENTITY_KIND,
-            newArrayList(EntityKind.APPLICATION, EntityKind.ACTOR, EntityKind.END_USER_APPLICATION));
-
-    private static final Field<String> SOURCE_EXTERNAL_ID_FIELD = InlineSelectFieldFactory.mkExternalIdField(
-            LOGICAL_FLOW.SOURCE_ENTITY_ID,
-            LOGICAL_FLOW.SOURCE_ENTITY_KIND,
-            newArrayList(EntityKind.APPLICATION, EntityKind.ACTOR, EntityKind.END_USER_APPLICATION));
-
-    private static final Field<String> TARGET_EXTERNAL_ID_FIELD = InlineSelectFieldFactory.mkExternalIdField(
-            LOGICAL_FLOW.TARGET_ENTITY_ID,
-            LOGICAL_FLOW.TARGET_ENTITY_KIND,
-            newArrayList(EntityKind.APPLICATION, EntityKind.ACTOR, EntityKind.END_USER_APPLICATION));
-
-
     public static final RecordMapper<Record, LogicalFlow> TO_DOMAIN_MAPPER = r -> {
         LogicalFlowRecord record = r.into(LogicalFlowRecord.class);
 
@@ -113,14 +93,10 @@ public class LogicalFlowDao {
                 .source(ImmutableEntityReference.builder()
                         .kind(EntityKind.valueOf(record.getSourceEntityKind()))
                         .id(record.getSourceEntityId())
-                        .name(ofNullable(r.getValue(SOURCE_NAME_FIELD)))
-                        .externalId(ofNullable(r.getValue(SOURCE_EXTERNAL_ID_FIELD)))
                         .build())
                 .target(ImmutableEntityReference.builder()
                         .kind(EntityKind.valueOf(record.getTargetEntityKind()))
                         .id(record.getTargetEntityId())
-                        .name(ofNullable(r.getValue(TARGET_NAME_FIELD)))
-                        .externalId(ofNullable(r.getValue(TARGET_EXTERNAL_ID_FIELD)))
                         .build())
                 .entityLifecycleStatus(readEnum(record.getEntityLifecycleStatus(), EntityLifecycleStatus.class, s -> EntityLifecycleStatus.ACTIVE))
                 .lastUpdatedBy(record.getLastUpdatedBy())
@@ -162,27 +138,33 @@ public class LogicalFlowDao {
     public static final Condition SPEC_NOT_REMOVED = PHYSICAL_SPECIFICATION.IS_REMOVED.isFalse();
 
     private final DSLContext dsl;
+    private final EntityReferenceCache entityReferenceCache;
 
 
     @Autowired
-    public LogicalFlowDao(DSLContext dsl) {
+    public LogicalFlowDao(DSLContext dsl,
+                          EntityReferenceCache entityReferenceCache) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(entityReferenceCache, "entityReferenceCache must not be null");
         this.dsl = dsl;
+        this.entityReferenceCache = entityReferenceCache;
     }
 
 
     public LogicalFlow getByFlowExternalId(String externalId) {
         return baseQuery()
                 .where(LOGICAL_FLOW.EXTERNAL_ID.eq(externalId))
-                .fetchOne(TO_DOMAIN_MAPPER);
+                .fetchOptional(TO_DOMAIN_MAPPER)
+                .map(this::withEndpointNames)
+                .orElse(null);
     }
 
 
     public List<LogicalFlow> findByEntityReference(EntityReference ref) {
-        return baseQuery()
+        return withEndpointNames(baseQuery()
                 .where(isSourceOrTargetCondition(ref))
                 .and(LOGICAL_NOT_REMOVED)
-                .fetch(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -191,7 +173,9 @@ public class LogicalFlowDao {
                 .where(isSourceCondition(source))
                 .and(isTargetCondition(target))
                 .and(LOGICAL_NOT_REMOVED)
-                .fetchOne(TO_DOMAIN_MAPPER);
+                .fetchOptional(TO_DOMAIN_MAPPER)
+                .map(this::withEndpointNames)
+                .orElse(null);
     }
 
 
@@ -208,9 +192,9 @@ public class LogicalFlowDao {
                 .reduce(Condition::or)
                 .get();
 
-        return baseQuery()
+        return withEndpointNames(baseQuery()
                 .where(condition)
-                .fetch(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -227,11 +211,10 @@ public class LogicalFlowDao {
                         .and(LOGICAL_FLOW.TARGET_ENTITY_ID.in(map(entry.getValue(), EntityReference::id))))
                 .collect(Collectors.reducing(DSL.falseCondition(), Condition::or));
 
-        return baseQuery()
+        return withEndpointNames(baseQuery()
                 .where(anyTargetMatches)
                 .and(LogicalFlowDao.LOGICAL_NOT_REMOVED)
-                .fetch()
-                .map(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -268,9 +251,9 @@ public class LogicalFlowDao {
                 .reduce(Condition::or)
                 .orElse(DSL.falseCondition());
 
-        List<LogicalFlow> existingFlows = baseQuery()
+        List<LogicalFlow> existingFlows = withEndpointNames(baseQuery()
                 .where(condition)
-                .fetch(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
 
         List<LogicalFlow> removedFlows = filter(
                 f -> f.entityLifecycleStatus().equals(REMOVED) || f.isRemoved(),
@@ -343,7 +326,9 @@ public class LogicalFlowDao {
     public LogicalFlow getByFlowId(long dataFlowId) {
         return baseQuery()
                 .where(LOGICAL_FLOW.ID.eq(dataFlowId))
-                .fetchOne(TO_DOMAIN_MAPPER);
+                .fetchOptional(TO_DOMAIN_MAPPER)
+                .map(this::withEndpointNames)
+                .orElse(null);
     }
 
     public long updateReadOnly(long flowId, boolean isReadOnly, String user) {
@@ -358,9 +343,9 @@ public class LogicalFlowDao {
 
 
     public List<LogicalFlow> findAllActive() {
-        return baseQuery()
+        return withEndpointNames(baseQuery()
                 .where(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()))
-                .fetch(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -375,9 +360,9 @@ public class LogicalFlowDao {
 
 
     public List<LogicalFlow> findBySelector(Select<Record1<Long>> flowIdSelector) {
-        return baseQuery()
-                .where(dsl.renderInlined(LOGICAL_FLOW.ID.in(flowIdSelector)))
-                .fetch(TO_DOMAIN_MAPPER);
+        return withEndpointNames(baseQuery()
+                .where(bindOrInline(dsl, LOGICAL_FLOW.ID.in(flowIdSelector)))
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -461,17 +446,60 @@ public class LogicalFlowDao {
     private SelectJoinStep<Record> baseQuery() {
         return dsl
                 .select(LOGICAL_FLOW.fields())
-                .select(SOURCE_NAME_FIELD, TARGET_NAME_FIELD)
-                .select(SOURCE_EXTERNAL_ID_FIELD, TARGET_EXTERNAL_ID_FIELD)
                 .from(LOGICAL_FLOW);
     }
 
 
+    private LogicalFlow withEndpointNames(LogicalFlow flow) {
+        return withEndpointNames(newArrayList(flow)).get(0);
+    }
+
+
+    /**
+     * Source and target names (and external ids) are resolved via the
+     * {@link EntityReferenceCache} rather than by correlated sub-selects
+     * as the endpoints may be of differing kinds.
+     */
+    private List<LogicalFlow> withEndpointNames(List<LogicalFlow> flows) {
+        Map<EntityKind, Map<Long, EntityReference>> resolvedByKind = flows
+                .stream()
+                .flatMap(f -> Stream.of(f.source(), f.target()))
+                .collect(Collectors.groupingBy(
+                        EntityReference::kind,
+                        Collectors.mapping(EntityReference::id, toSet())))
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        e -> entityReferenceCache.resolve(e.getKey(), e.getValue())));
+
+        return ListUtilities.map(flows, f -> ImmutableLogicalFlow
+                .copyOf(f)
+                .withSource(withName(f.source(), resolvedByKind))
+                .withTarget(withName(f.target(), resolvedByKind)));
+    }
+
+
+    private static EntityReference withName(EntityReference ref,
+                                            Map<EntityKind, Map<Long, EntityReference>> resolvedByKind) {
+        EntityReference resolved = resolvedByKind
+                .getOrDefault(ref.kind(), Collections.emptyMap())
+                .get(ref.id());
+
+        return resolved == null
+                ? ref
+                : ImmutableEntityReference
+                    .copyOf(ref)
+                    .withName(resolved.name())
+                    .withExternalId(resolved.externalId());
+    }
+
+
     private List<LogicalFlow> findByFlowIdsWithCondition(Collection<Long> dataFlowIds, Condition condition) {
-        return baseQuery()
-                .where(LOGICAL_FLOW.ID.in(dataFlowIds))
+        return withEndpointNames(baseQuery()
+                .where(inIds(dsl, LOGICAL_FLOW.ID, dataFlowIds))
                 .and(condition)
-                .fetch(TO_DOMAIN_MAPPER);
+                .fetch(TO_DOMAIN_MAPPER));
     }
 
 
@@ -0,0 +1,350 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.logical_flow;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowMeasures;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowStatistics;
+import org.finos.waltz.model.logical_flow.LogicalFlowMeasures;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.ImmutableTally;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.LogicalFlow;
+import org.finos.waltz.schema.tables.LogicalFlowDecorator;
+import org.finos.waltz.schema.tables.records.LogicalFlowStatsRollupRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record3;
+import org.jooq.Record6;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.rollup.RollupMembership.APP_ID;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_ID;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_KIND;
+import static org.finos.waltz.data.rollup.RollupMembership.mkMembershipTable;
+import static org.finos.waltz.data.rollup.RollupMembership.mkNodeCondition;
+import static org.finos.waltz.data.rollup.RollupMembership.mkNodesContainingApps;
+import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_DECORATOR;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_STATS_ROLLUP;
+
+
+/**
+ * Precomputed logical flow statistics (as given by {@link LogicalFlowStatsDao})
+ * for each rollup node (see {@link org.finos.waltz.data.rollup.RollupMembership}).
+ *
+ * Flows are classified per node as <code>INTRA</code> (both apps are members),
+ * <code>OUTBOUND</code> (only the source is a member) or <code>INBOUND</code>
+ * (only the target is a member) and then counted by flow, by counterpart
+ * app and by data type.
+ */
+@Repository
+public class LogicalFlowStatsRollupDao {
+
+    public static final String ROLLUP_NAME = "LOGICAL_FLOW_STATS";
+
+    private static final String APP_COUNT = "APP_COUNT";
+    private static final String FLOW_COUNT = "FLOW_COUNT";
+    private static final String DATA_TYPE_FLOW_COUNT = "DATA_TYPE_FLOW_COUNT";
+
+    private static final LogicalFlow lf = LOGICAL_FLOW.as("lf_rollup");
+    private static final LogicalFlowDecorator lfd = LOGICAL_FLOW_DECORATOR.as("lfd_rollup");
+
+    private static final Field<Long> FLOW_ID = DSL.field(DSL.name("flow_id"), Long.class);
+    private static final Field<Long> SOURCE_ID = DSL.field(DSL.name("source_id"), Long.class);
+    private static final Field<Long> TARGET_ID = DSL.field(DSL.name("target_id"), Long.class);
+    private static final Field<String> FLOW_TYPE = DSL.field(DSL.name("flow_type"), String.class);
+
+    private static final Condition BOTH_APPS = lf.SOURCE_ENTITY_KIND.eq(EntityKind.APPLICATION.name())
+            .and(lf.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name()));
+
+    private static final Condition NOT_REMOVED = lf.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name());
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public LogicalFlowStatsRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public LogicalFlowStatistics getStatistics(EntityReference node) {
+        checkNotNull(node, "node cannot be null");
+
+        Map<String, List<LogicalFlowStatsRollupRecord>> cellsByMeasure = dsl
+                .selectFrom(LOGICAL_FLOW_STATS_ROLLUP)
+                .where(LOGICAL_FLOW_STATS_ROLLUP.NODE_KIND.eq(node.kind().name()))
+                .and(LOGICAL_FLOW_STATS_ROLLUP.NODE_ID.eq(node.id()))
+                .fetch()
+                .stream()
+                .collect(groupingBy(LogicalFlowStatsRollupRecord::getMeasure));
+
+        List<TallyPack<String>> dataTypeCounts = cellsByMeasure
+                .getOrDefault(DATA_TYPE_FLOW_COUNT, emptyCells())
+                .stream()
+                .collect(groupingBy(LogicalFlowStatsRollupRecord::getDataTypeId))
+                .entrySet()
+                .stream()
+                .map(e -> ImmutableTallyPack.<String>builder()
+                        .entityReference(mkRef(EntityKind.DATA_TYPE, e.getKey()))
+                        .tallies(e.getValue()
+                                .stream()
+                                .map(cell -> ImmutableTally.<String>builder()
+                                        .id(cell.getFlowType())
+                                        .count(cell.getMeasureCount())
+                                        .build())
+                                .collect(toList()))
+                        .build())
+                .collect(toList());
+
+        return ImmutableLogicalFlowStatistics.builder()
+                .appCounts(mkMeasures(cellsByMeasure.getOrDefault(APP_COUNT, emptyCells())))
+                .flowCounts(mkMeasures(cellsByMeasure.getOrDefault(FLOW_COUNT, emptyCells())))
+                .dataTypeCounts(dataTypeCounts)
+                .build();
+    }
+
+
+    /**
+     * Gives the nodes with a member application which is the source or
+     * target of a flow (or flow decorator) updated after the given time.
+     */
+    public Set<EntityReference> findNodesWithChangesSince(LocalDateTime since) {
+        checkNotNull(since, "since cannot be null");
+
+        Timestamp sinceTs = Timestamp.valueOf(since);
+
+        Condition flowChanged = LOGICAL_FLOW.LAST_UPDATED_AT.gt(sinceTs)
+                .or(LOGICAL_FLOW.ID.in(DSL
+                        .select(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID)
+                        .from(LOGICAL_FLOW_DECORATOR)
+                        .where(LOGICAL_FLOW_DECORATOR.LAST_UPDATED_AT.gt(sinceTs))));
+
+        Select<Record1<Long>> changedAppIds = DSL
+                .select(LOGICAL_FLOW.SOURCE_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .where(flowChanged)
+                .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .union(DSL
+                        .select(LOGICAL_FLOW.TARGET_ENTITY_ID)
+                        .from(LOGICAL_FLOW)
+                        .where(flowChanged)
+                        .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())));
+
+        return dsl
+                .fetch(mkNodesContainingApps(changedAppIds))
+                .stream()
+                .map(r -> mkRef(EntityKind.valueOf(r.value1()), r.value2()))
+                .collect(toSet());
+    }
+
+
+    /**
+     * Discards all cells and recalculates them for every node.
+     *
+     * @return number of cells written
+     */
+    public int rebuild() {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(LOGICAL_FLOW_STATS_ROLLUP).execute();
+            return insertCells(tx, Optional.empty());
+        });
+    }
+
+
+    /**
+     * Recalculates the cells of the given nodes only.
+     *
+     * @return number of cells written
+     */
+    public int refresh(Set<EntityReference> nodes) {
+        checkNotNull(nodes, "nodes cannot be null");
+
+        if (nodes.isEmpty()) {
+            return 0;
+        }
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(LOGICAL_FLOW_STATS_ROLLUP)
+                    .where(mkNodeCondition(LOGICAL_FLOW_STATS_ROLLUP.NODE_KIND, LOGICAL_FLOW_STATS_ROLLUP.NODE_ID, nodes))
+                    .execute();
+            return insertCells(tx, Optional.of(nodes));
+        });
+    }
+
+
+    // -- HELPERS ---
+
+    private static int insertCells(DSLContext tx, Optional<Set<EntityReference>> nodes) {
+        Table<Record6<String, Long, Long, Long, Long, String>> nodeFlows = mkNodeFlowsTable(nodes);
+        Field<String> nodeKind = nodeFlows.field(NODE_KIND);
+        Field<Long> nodeId = nodeFlows.field(NODE_ID);
+        Field<String> flowType = nodeFlows.field(FLOW_TYPE);
+        Field<Long> noDataType = DSL.castNull(SQLDataType.BIGINT);
+
+        Select<Record6<String, Long, String, String, Long, Integer>> flowCounts = DSL
+                .select(nodeKind, nodeId, DSL.inline(FLOW_COUNT), flowType, noDataType, DSL.count())
+                .from(nodeFlows)
+                .groupBy(nodeKind, nodeId, flowType);
+
+        Select<Record6<String, Long, String, String, Long, Integer>> dataTypeFlowCounts = DSL
+                .select(nodeKind, nodeId, DSL.inline(DATA_TYPE_FLOW_COUNT), flowType, lfd.DECORATOR_ENTITY_ID, DSL.count())
+                .from(nodeFlows)
+                .innerJoin(lfd)
+                    .on(lfd.LOGICAL_FLOW_ID.eq(nodeFlows.field(FLOW_ID))
+                            .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))
+                .groupBy(nodeKind, nodeId, flowType, lfd.DECORATOR_ENTITY_ID);
+
+        Field<Long> counterpartId = DSL
+                .when(flowType.eq(FlowDirection.INBOUND.name()), nodeFlows.field(SOURCE_ID))
+                .otherwise(nodeFlows.field(TARGET_ID));
+
+        Select<Record6<String, Long, String, String, Long, Integer>> counterpartAppCounts = DSL
+                .select(nodeKind, nodeId, DSL.inline(APP_COUNT), flowType, noDataType, DSL.countDistinct(counterpartId))
+                .from(nodeFlows)
+                .where(flowType.in(FlowDirection.INBOUND.name(), FlowDirection.OUTBOUND.name()))
+                .groupBy(nodeKind, nodeId, flowType);
+
+        Table<Record3<String, Long, Long>> members = mkMembershipTable("members", nodes);
+
+        Select<Record6<String, Long, String, String, Long, Integer>> memberAppCounts = DSL
+                .select(members.field(NODE_KIND),
+                        members.field(NODE_ID),
+                        DSL.inline(APP_COUNT),
+                        DSL.inline(FlowDirection.INTRA.name()),
+                        noDataType,
+                        DSL.count())
+                .from(members)
+                .groupBy(members.field(NODE_KIND), members.field(NODE_ID));
+
+        return insert(tx, flowCounts)
+                + insert(tx, dataTypeFlowCounts)
+                + insert(tx, counterpartAppCounts)
+                + insert(tx, memberAppCounts);
+    }
+
+
+    private static int insert(DSLContext tx, Select<Record6<String, Long, String, String, Long, Integer>> cells) {
+        return tx
+                .insertInto(LOGICAL_FLOW_STATS_ROLLUP,
+                        LOGICAL_FLOW_STATS_ROLLUP.NODE_KIND,
+                        LOGICAL_FLOW_STATS_ROLLUP.NODE_ID,
+                        LOGICAL_FLOW_STATS_ROLLUP.MEASURE,
+                        LOGICAL_FLOW_STATS_ROLLUP.FLOW_TYPE,
+                        LOGICAL_FLOW_STATS_ROLLUP.DATA_TYPE_ID,
+                        LOGICAL_FLOW_STATS_ROLLUP.MEASURE_COUNT)
+                .select(cells)
+                .execute();
+    }
+
+
+    /**
+     * Gives rows of (node_kind, node_id, flow_id, source_id, target_id, flow_type)
+     * for every active app to app flow touching a member of the node.
+     */
+    private static Table<Record6<String, Long, Long, Long, Long, String>> mkNodeFlowsTable(Optional<Set<EntityReference>> nodes) {
+        Table<Record3<String, Long, Long>> source = mkMembershipTable("source_members", nodes);
+        Table<Record3<String, Long, Long>> target = mkMembershipTable("target_members", nodes);
+
+        Condition sameNode = target.field(NODE_KIND).eq(source.field(NODE_KIND))
+                .and(target.field(NODE_ID).eq(source.field(NODE_ID)));
+
+        Select<Record6<String, Long, Long, Long, Long, String>> outboundAndIntra = DSL
+                .select(source.field(NODE_KIND).as(NODE_KIND),
+                        source.field(NODE_ID).as(NODE_ID),
+                        lf.ID.as(FLOW_ID),
+                        lf.SOURCE_ENTITY_ID.as(SOURCE_ID),
+                        lf.TARGET_ENTITY_ID.as(TARGET_ID),
+                        DSL.when(target.field(NODE_ID).isNull(), DSL.inline(FlowDirection.OUTBOUND.name()))
+                                .otherwise(DSL.inline(FlowDirection.INTRA.name()))
+                                .as(FLOW_TYPE))
+                .from(lf)
+                .innerJoin(source).on(source.field(APP_ID).eq(lf.SOURCE_ENTITY_ID))
+                .leftJoin(target).on(target.field(APP_ID).eq(lf.TARGET_ENTITY_ID).and(sameNode))
+                .where(BOTH_APPS)
+                .and(NOT_REMOVED);
+
+        Select<Record6<String, Long, Long, Long, Long, String>> inbound = DSL
+                .select(target.field(NODE_KIND).as(NODE_KIND),
+                        target.field(NODE_ID).as(NODE_ID),
+                        lf.ID.as(FLOW_ID),
+                        lf.SOURCE_ENTITY_ID.as(SOURCE_ID),
+                        lf.TARGET_ENTITY_ID.as(TARGET_ID),
+                        DSL.inline(FlowDirection.INBOUND.name()).as(FLOW_TYPE))
+                .from(lf)
+                .innerJoin(target).on(target.field(APP_ID).eq(lf.TARGET_ENTITY_ID))
+                .leftJoin(source).on(source.field(APP_ID).eq(lf.SOURCE_ENTITY_ID).and(sameNode))
+                .where(source.field(NODE_ID).isNull())
+                .and(BOTH_APPS)
+                .and(NOT_REMOVED);
+
+        return outboundAndIntra
+                .unionAll(inbound)
+                .asTable("node_flows");
+    }
+
+
+    private static LogicalFlowMeasures mkMeasures(List<LogicalFlowStatsRollupRecord> cells) {
+        Map<String, Integer> countsByFlowType = cells
+                .stream()
+                .collect(toMap(
+                        LogicalFlowStatsRollupRecord::getFlowType,
+                        LogicalFlowStatsRollupRecord::getMeasureCount));
+
+        return ImmutableLogicalFlowMeasures.builder()
+                .inbound(countsByFlowType.getOrDefault(FlowDirection.INBOUND.name(), 0))
+                .outbound(countsByFlowType.getOrDefault(FlowDirection.OUTBOUND.name(), 0))
+                .intra(countsByFlowType.getOrDefault(FlowDirection.INTRA.name(), 0))
+                .build();
+    }
+
+
+    private static List<LogicalFlowStatsRollupRecord> emptyCells() {
+        return Collections.emptyList();
+    }
+}
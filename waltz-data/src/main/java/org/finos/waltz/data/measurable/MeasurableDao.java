@@ -57,6 +57,7 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.data.JooqUtilities.TO_ENTITY_REFERENCE;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
@@ -128,7 +129,7 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
         SelectConditionStep<Record> qry = dsl
                 .select(MEASURABLE.fields())
                 .from(MEASURABLE)
-                .where(dsl.renderInlined(MEASURABLE.ID.in(selector)));
+                .where(bindOrInline(dsl, MEASURABLE.ID.in(selector)));
 
         return qry.fetch(TO_DOMAIN_MAPPER);
     }
@@ -147,7 +148,7 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
                 .innerJoin(ENTITY_HIERARCHY).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID)
                         .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.MEASURABLE.name())))
                 .innerJoin(MEASURABLE_RATING).on(ENTITY_HIERARCHY.ID.eq(MEASURABLE_RATING.MEASURABLE_ID))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)));
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)));
 
         return qry.fetchSet(TO_DOMAIN_MAPPER);
     }
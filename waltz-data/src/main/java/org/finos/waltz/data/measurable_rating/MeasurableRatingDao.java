@@ -18,19 +18,18 @@
 
 package org.finos.waltz.data.measurable_rating;
 
-import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.data.SelectorUtilities;
+import org.finos.waltz.data.changelog.ChangeLogDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.ImmutableEntityReference;
 import org.finos.waltz.model.Operation;
-import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.measurable_rating.ImmutableMeasurableRating;
 import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.measurable_rating.MeasurableRatingChangeSummary;
@@ -40,8 +39,6 @@ import org.finos.waltz.model.tally.ImmutableMeasurableRatingTally;
 import org.finos.waltz.model.tally.MeasurableRatingTally;
 import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.schema.Tables;
-import org.finos.waltz.schema.tables.records.AllocationRecord;
-import org.finos.waltz.schema.tables.records.MeasurableRatingPlannedDecommissionRecord;
 import org.finos.waltz.schema.tables.records.MeasurableRatingRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
@@ -50,14 +47,12 @@ import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.Record2;
 import org.jooq.Record3;
-import org.jooq.Record9;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectHavingStep;
 import org.jooq.SelectJoinStep;
 import org.jooq.SelectOrderByStep;
-import org.jooq.UpdateConditionStep;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
@@ -83,8 +78,7 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.firstChar;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
-import static org.finos.waltz.schema.Tables.ALLOCATION;
-import static org.finos.waltz.schema.Tables.CHANGE_LOG;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
 import static org.finos.waltz.schema.Tables.MEASURABLE_RATING_PLANNED_DECOMMISSION;
 import static org.finos.waltz.schema.Tables.RATING_SCHEME_ITEM;
@@ -191,12 +185,16 @@ public class MeasurableRatingDao {
 
 
     private final DSLContext dsl;
+    private final ChangeLogDao changeLogDao;
 
 
     @Autowired
-    public MeasurableRatingDao(DSLContext dsl) {
+    public MeasurableRatingDao(DSLContext dsl,
+                               ChangeLogDao changeLogDao) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
         this.dsl = dsl;
+        this.changeLogDao = changeLogDao;
     }
 
     // --- save
@@ -280,7 +278,7 @@ public class MeasurableRatingDao {
     @Deprecated
     public List<MeasurableRating> findForCategoryAndSubjectIdSelector(Select<Record1<Long>> subjectIdSelector, long categoryId) {
         return mkExtendedBaseQuery()
-                .where(dsl.renderInlined(MEASURABLE_CATEGORY.ID.eq(categoryId)
+                .where(bindOrInline(dsl, MEASURABLE_CATEGORY.ID.eq(categoryId)
                                 .and(MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
                                         .and(MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector)))))
                 .fetch(TO_DOMAIN_MAPPER);
@@ -289,7 +287,7 @@ public class MeasurableRatingDao {
 
     public List<MeasurableRating> findForCategoryAndMeasurableRatingIdSelector(Select<Record1<Long>> ratingIdSelector, long categoryId) {
         SelectConditionStep<Record> q = mkExtendedBaseQuery()
-                .where(dsl.renderInlined(MEASURABLE_CATEGORY.ID.eq(categoryId)
+                .where(bindOrInline(dsl, MEASURABLE_CATEGORY.ID.eq(categoryId)
                         .and(MEASURABLE_RATING.ID.in(ratingIdSelector))));
         return q
                 .fetch(TO_DOMAIN_MAPPER);
@@ -332,7 +330,7 @@ public class MeasurableRatingDao {
         Condition condition = MEASURABLE_RATING.ENTITY_ID.in(selector)
                 .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
         return mkBaseQuery()
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
@@ -376,7 +374,7 @@ public class MeasurableRatingDao {
                 .from(MEASURABLE_RATING)
                 .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(MEASURABLE_RATING.MEASURABLE_ID))
                 .innerJoin(MEASURABLE_CATEGORY).on(MEASURABLE_CATEGORY.ID.eq(MEASURABLE.MEASURABLE_CATEGORY_ID))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)
                         .and(cond)))
                 .groupBy(MEASURABLE_RATING.MEASURABLE_ID, MEASURABLE_RATING.RATING);
 
@@ -513,258 +511,24 @@ public class MeasurableRatingDao {
      * @param userId       the user responsible for the change
      */
     public void migrateRatings(Long measurableId, Long targetId, String userId) {
-
         if (targetId == null) {
             throw new IllegalArgumentException("Cannot migrate ratings without specifying a new target");
         }
 
-        LOG.info("Migrating ratings from measurable: {} to {}",
-                measurableId,
-                targetId);
-
-        int sharedRatingCount = getSharedRatingsCount(measurableId, targetId);
-        int sharedDecomCount = getSharedDecommsCount(measurableId, targetId);
-
-        dsl.transaction(ctx -> {
-
-            DSLContext tx = ctx.dsl();
-
-            // RATINGS
-
-            SelectOrderByStep<Record2<Long, String>> allowableMigrations = selectRatingsThatCanBeModified(measurableId, targetId);
-            // Do not update the measurable where an existing mapping already exists
-
-            SelectConditionStep<Record9<Long, String, Long, String, String, Timestamp, String, String, Boolean>> ratingsToInsert = DSL
-                    .select(Tables.MEASURABLE_RATING.ENTITY_ID,
-                            Tables.MEASURABLE_RATING.ENTITY_KIND,
-                            DSL.val(targetId),
-                            Tables.MEASURABLE_RATING.RATING,
-                            Tables.MEASURABLE_RATING.DESCRIPTION,
-                            Tables.MEASURABLE_RATING.LAST_UPDATED_AT,
-                            Tables.MEASURABLE_RATING.LAST_UPDATED_BY,
-                            Tables.MEASURABLE_RATING.PROVENANCE,
-                            Tables.MEASURABLE_RATING.IS_READONLY)
-                    .from(Tables.MEASURABLE_RATING)
-                    .innerJoin(allowableMigrations).on(Tables.MEASURABLE_RATING.ENTITY_ID.eq(allowableMigrations.field(Tables.MEASURABLE_RATING.ENTITY_ID))
-                            .and(Tables.MEASURABLE_RATING.ENTITY_KIND.eq(allowableMigrations.field(Tables.MEASURABLE_RATING.ENTITY_KIND))))
-                    .where(Tables.MEASURABLE_RATING.MEASURABLE_ID.eq(measurableId));
-
-            int migratedRatings = tx
-                    .insertInto(Tables.MEASURABLE_RATING)
-                    .columns(Tables.MEASURABLE_RATING.ENTITY_ID,
-                            Tables.MEASURABLE_RATING.ENTITY_KIND,
-                            Tables.MEASURABLE_RATING.MEASURABLE_ID,
-                            Tables.MEASURABLE_RATING.RATING,
-                            Tables.MEASURABLE_RATING.DESCRIPTION,
-                            Tables.MEASURABLE_RATING.LAST_UPDATED_AT,
-                            Tables.MEASURABLE_RATING.LAST_UPDATED_BY,
-                            Tables.MEASURABLE_RATING.PROVENANCE,
-                            Tables.MEASURABLE_RATING.IS_READONLY)
-                    .select(ratingsToInsert)
-                    .execute();
-
-            if (migratedRatings > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.MEASURABLE_RATING,
-                        Operation.UPDATE,
-                        format("Migrated %d ratings from measurable: %d to %d", migratedRatings, measurableId, targetId),
-                        userId);
-            }
-
-            if (sharedRatingCount > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.MEASURABLE_RATING,
-                        Operation.REMOVE,
-                        format("Failed to migrate %d ratings from measurable: %d to %d due to existing ratings on the target", sharedRatingCount, measurableId, targetId),
-                        userId);
-            }
-
-            // DECOMMS
-
-            // all ratings that can be migrated, decomms automatically updated.
-            // Need to find the ratings that cannot be migrated, then see if there is a target decom to match
-
-            org.finos.waltz.schema.tables.MeasurableRating srcMr = MEASURABLE_RATING.as("srcMr");
-            org.finos.waltz.schema.tables.MeasurableRating trgMr = MEASURABLE_RATING.as("trgMr");
-
-            org.finos.waltz.schema.tables.MeasurableRatingPlannedDecommission srcDecom = MEASURABLE_RATING_PLANNED_DECOMMISSION.as("srcDecom");
-            org.finos.waltz.schema.tables.MeasurableRatingPlannedDecommission trgDecom = MEASURABLE_RATING_PLANNED_DECOMMISSION.as("trgDecom");
-
-            Field<Long> srcDecomId = srcDecom.ID.as("srcDecomId");
-            Field<Long> trgRatingId = trgMr.ID.as("trgRatingId");
-
-            SelectConditionStep<Record2<Long, Long>> decomsToUpdate = DSL
-                    .select(srcDecomId, trgRatingId)
-                    .from(srcDecom)
-                    .innerJoin(srcMr).on(srcDecom.MEASURABLE_RATING_ID.eq(srcMr.ID).and(srcMr.MEASURABLE_ID.eq(measurableId)))
-                    .innerJoin(trgMr).on(srcMr.ENTITY_KIND.eq(trgMr.ENTITY_KIND).and(srcMr.ENTITY_ID.eq(trgMr.ENTITY_ID).and(trgMr.MEASURABLE_ID.eq(targetId))))
-                    .leftJoin(trgDecom).on(trgMr.ID.eq(trgDecom.MEASURABLE_RATING_ID))
-                    .where(trgDecom.ID.isNull());
-
-            UpdateConditionStep<MeasurableRatingPlannedDecommissionRecord> updateDecomQry = tx
-                    .update(MEASURABLE_RATING_PLANNED_DECOMMISSION)
-                    .set(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID, decomsToUpdate.field(trgRatingId))
-                    .from(decomsToUpdate)
-                    .where(MEASURABLE_RATING_PLANNED_DECOMMISSION.ID.eq(decomsToUpdate.field(srcDecomId)));
-
-            int migratedDecoms = updateDecomQry.execute();
-
-            if (migratedDecoms > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION,
-                        Operation.UPDATE,
-                        format("Migrated %d decomms from measurable: %d to %d", migratedDecoms, measurableId, targetId),
-                        userId);
-            }
-
-            if (sharedDecomCount > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION,
-                        Operation.REMOVE,
-                        format("Failed to migrate %d decomms from measurable: %d to %d due to existing decomms on the target", sharedDecomCount, measurableId, targetId),
-                        userId);
-            }
-
-
-            // ALLOCATIONS
-
-
-            // Either automatically moved if measurable rating was moved,
-            // Migrated if existing measurable but no allocation
-            // Aggregated is existing allocation on target measurable
-
-            org.finos.waltz.schema.tables.Allocation srcAlloc = ALLOCATION.as("srcAlloc");
-            org.finos.waltz.schema.tables.Allocation trgAlloc = ALLOCATION.as("trgAlloc");
-
-            Field<Integer> totalAlloc = srcAlloc.ALLOCATION_PERCENTAGE.add(trgAlloc.ALLOCATION_PERCENTAGE).as("totalAlloc");
-            Field<Long> updateTargetAllocId = trgAlloc.ID.as("updateTargetAllocId");
-
-            SelectConditionStep<Record2<Long, Integer>> allocsToUpdate = DSL
-                    .select(updateTargetAllocId, totalAlloc)
-                    .from(srcAlloc)
-                    .innerJoin(srcMr).on(srcAlloc.MEASURABLE_RATING_ID.eq(srcMr.ID).and(srcMr.MEASURABLE_ID.eq(measurableId)))
-                    .innerJoin(trgMr).on(srcMr.ENTITY_KIND.eq(trgMr.ENTITY_KIND).and(srcMr.ENTITY_ID.eq(trgMr.ENTITY_ID).and(trgMr.MEASURABLE_ID.eq(targetId))))
-                    .leftJoin(trgAlloc).on(trgMr.ID.eq(trgAlloc.MEASURABLE_RATING_ID))
-                    .where(trgAlloc.ID.isNotNull());
-
-            Field<Long> migrateTargetAllocId = trgAlloc.ID.as("migrateTargetAllocId");
-            Field<Integer> allocPercentage = srcAlloc.ALLOCATION_PERCENTAGE.as("allocPercentage");
-
-            SelectConditionStep<Record2<Long, Integer>> allocsToMigrate = DSL
-                    .select(migrateTargetAllocId, allocPercentage)
-                    .from(srcAlloc)
-                    .innerJoin(srcMr).on(srcAlloc.MEASURABLE_RATING_ID.eq(srcMr.ID).and(srcMr.MEASURABLE_ID.eq(measurableId)))
-                    .innerJoin(trgMr).on(srcMr.ENTITY_KIND.eq(trgMr.ENTITY_KIND).and(srcMr.ENTITY_ID.eq(trgMr.ENTITY_ID).and(trgMr.MEASURABLE_ID.eq(targetId))))
-                    .leftJoin(trgAlloc).on(trgMr.ID.eq(trgAlloc.MEASURABLE_RATING_ID))
-                    .where(trgAlloc.ID.isNull());
-
-            UpdateConditionStep<AllocationRecord> mergeAllocQry = tx
-                    .update(ALLOCATION)
-                    .set(ALLOCATION.ALLOCATION_PERCENTAGE, totalAlloc)
-                    .from(allocsToUpdate)
-                    .where(ALLOCATION.ID.eq(allocsToUpdate.field(updateTargetAllocId)));
-
-            int mergedAllocs = mergeAllocQry
-                    .execute();
-
-            UpdateConditionStep<AllocationRecord> updateAllocQry = tx
-                    .update(ALLOCATION)
-                    .set(ALLOCATION.ALLOCATION_PERCENTAGE, allocsToMigrate.field(srcAlloc.ALLOCATION_PERCENTAGE))
-                    .from(allocsToMigrate)
-                    .where(ALLOCATION.ID.eq(allocsToMigrate.field(migrateTargetAllocId)));
-
-            int migratedAllocs = updateAllocQry
-                    .execute();
-
-            if (migratedAllocs > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.ALLOCATION,
-                        Operation.UPDATE,
-                        format("Migrated %d allocations from measurable: %d to %d", migratedAllocs, measurableId, targetId),
-                        userId);
-            }
-
-            if (mergedAllocs > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.ALLOCATION,
-                        Operation.UPDATE,
-                        format("Merged %d allocations from measurable: %d to %d where there was an existing allocation on the target", mergedAllocs, measurableId, targetId),
-                        userId);
-            }
-
-            LOG.info(format("Migrated %d ratings, %d decomms, %d/%d allocations (migrated/merged) from measurable: %d to %d",
-                    migratedRatings,
-                    migratedDecoms,
-                    migratedAllocs,
-                    mergedAllocs,
-                    measurableId,
-                    targetId));
-
-            int removedRatings = tx
-                    .deleteFrom(Tables.MEASURABLE_RATING)
-                    .where(Tables.MEASURABLE_RATING.MEASURABLE_ID.eq(measurableId))
-                    .execute();
-
-            if (removedRatings > 0) {
-                writeChangeLogForMerge(
-                        tx,
-                        targetId,
-                        EntityKind.ALLOCATION,
-                        Operation.UPDATE,
-                        format("Removed %d ratings from measurable: %d where they could not be migrated due to an existing rating on the target (%d)",
-                                removedRatings,
-                                measurableId,
-                                targetId),
-                        userId);
-            }
-
-            // allocations, decomms and replacements are automatically cleared up via cascade delete on fk
-            LOG.info("Removed {} measurable ratings and any associated allocations, planned decommissions and replacement applications after migration", removedRatings);
-        });
-    }
-
-
-    private void writeChangeLogForMerge(DSLContext tx, Long measurableId, EntityKind childKind, Operation operation, String message, String userId) {
-        tx
-                .insertInto(CHANGE_LOG)
-                .columns(CHANGE_LOG.PARENT_KIND,
-                        CHANGE_LOG.PARENT_ID,
-                        CHANGE_LOG.MESSAGE,
-                        CHANGE_LOG.USER_ID,
-                        CHANGE_LOG.SEVERITY,
-                        CHANGE_LOG.CREATED_AT,
-                        CHANGE_LOG.CHILD_KIND,
-                        CHANGE_LOG.OPERATION)
-                .values(EntityKind.MEASURABLE.name(),
-                        measurableId,
-                        message,
-                        userId,
-                        Severity.INFORMATION.name(),
-                        DateTimeUtilities.nowUtcTimestamp(),
-                        childKind.name(),
-                        operation.name())
-                .execute();
+        migrateRatings(asSet(tuple(measurableId, targetId)), userId);
     }
 
 
-    private SelectOrderByStep<Record2<Long, String>> selectRatingsThatCanBeModified(Long measurableId, Long targetId) {
-
-        SelectConditionStep<Record2<Long, String>> targets = mkEntitySelectForMeasurable(targetId);
-        SelectConditionStep<Record2<Long, String>> migrations = mkEntitySelectForMeasurable(measurableId);
-
-        return migrations.except(targets);
+    /**
+     * Bulk version of {@link #migrateRatings(Long, Long, String)}, all pairs are migrated
+     * in a single transaction using set based statements.
+     *
+     * @param sourceToTargetIds [tuple2{sourceMeasurableId, targetMeasurableId}], sources must be distinct and may not also be targets
+     * @param userId            the user responsible for the change
+     * @return number of source ratings which were migrated, or merged into an existing target rating
+     */
+    public int migrateRatings(Collection<Tuple2<Long, Long>> sourceToTargetIds, String userId) {
+        return MeasurableRatingMigrationHelper.migrateRatings(dsl, changeLogDao, sourceToTargetIds, userId);
     }
 
 
@@ -851,7 +615,7 @@ public class MeasurableRatingDao {
     @Deprecated
     public Set<MeasurableRating> findPrimaryRatingsForGenericSelector(GenericSelector selector) {
         return mkExtendedBaseQuery()
-                .where(dsl.renderInlined(MEASURABLE_RATING.ENTITY_KIND.eq(selector.kind().name())
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ENTITY_KIND.eq(selector.kind().name())
                         .and(MEASURABLE_RATING.ENTITY_ID.in(selector.selector()))
                         .and(MEASURABLE_RATING.IS_PRIMARY.isTrue())))
                 .fetchSet(TO_DOMAIN_MAPPER);
@@ -860,7 +624,7 @@ public class MeasurableRatingDao {
 
     public Set<MeasurableRating> findPrimaryRatingsForMeasurableIdSelector(Select<Record1<Long>> ratingIdSelector) {
         return mkExtendedBaseQuery()
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)
                         .and(MEASURABLE_RATING.IS_PRIMARY.isTrue())))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
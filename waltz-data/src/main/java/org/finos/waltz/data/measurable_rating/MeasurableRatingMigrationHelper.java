@@ -0,0 +1,504 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data.measurable_rating;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
+import org.finos.waltz.schema.tables.Allocation;
+import org.finos.waltz.schema.tables.MeasurableRating;
+import org.finos.waltz.schema.tables.MeasurableRatingPlannedDecommission;
+import org.finos.waltz.schema.tables.records.ChangeLogRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Record2;
+import org.jooq.Row2;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.SetUtilities.fromCollection;
+import static org.finos.waltz.common.SetUtilities.intersection;
+import static org.finos.waltz.schema.Tables.ALLOCATION;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING_PLANNED_DECOMMISSION;
+
+/**
+ * Set based migration of measurable ratings, and their planned decommissions,
+ * replacement applications and allocations, from source measurables to target
+ * measurables.
+ * <p>
+ * All (source, target) pairs are migrated in a single transaction with a fixed
+ * number of statements per table, regardless of how many pairs are given:
+ * <ul>
+ *     <li>Ratings with no counterpart on the target are moved, keeping their id
+ *     so decommissions, replacements and allocations move with them</li>
+ *     <li>Where the target is already rated the target rating is kept.  The source
+ *     decommission is moved if the target rating has none, source allocations
+ *     are moved or, if the target already has an allocation in that scheme,
+ *     added to it</li>
+ *     <li>Anything remaining against the source measurables is removed</li>
+ * </ul>
+ * If several sources map to the same target and rate the same entity, the
+ * rating (or decommission/allocation) with the lowest id is the one moved.
+ */
+public class MeasurableRatingMigrationHelper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MeasurableRatingMigrationHelper.class);
+
+    private static final String SOURCE_ID = "source_id";
+    private static final String TARGET_ID = "target_id";
+
+    private static final MeasurableRatingPlannedDecommission srcDecomm = MEASURABLE_RATING_PLANNED_DECOMMISSION.as("src_decomm");
+    private static final MeasurableRatingPlannedDecommission trgDecomm = MEASURABLE_RATING_PLANNED_DECOMMISSION.as("trg_decomm");
+    private static final Allocation srcAlloc = ALLOCATION.as("src_alloc");
+    private static final Allocation trgAlloc = ALLOCATION.as("trg_alloc");
+
+
+    /**
+     * The source/target measurables and ratings for every source rating whose
+     * entity is also rated against the corresponding target measurable.
+     */
+    private static class RatingPairs {
+
+        private final MeasurableRating source;
+        private final MeasurableRating target;
+        private final Field<Long> sourceMeasurableId;
+        private final Table<Record> table;
+
+        private RatingPairs(Map<Long, Long> targetsBySource, String alias) {
+            Table<Record2<Long, Long>> migration = mkMigrationTable(targetsBySource, alias + "_m");
+
+            source = MEASURABLE_RATING.as(alias + "_src");
+            target = MEASURABLE_RATING.as(alias + "_trg");
+            sourceMeasurableId = migration.field(SOURCE_ID, Long.class);
+
+            table = source
+                    .innerJoin(migration).on(source.MEASURABLE_ID.eq(sourceMeasurableId))
+                    .innerJoin(target).on(target.ENTITY_ID.eq(source.ENTITY_ID)
+                            .and(target.ENTITY_KIND.eq(source.ENTITY_KIND))
+                            .and(target.MEASURABLE_ID.eq(migration.field(TARGET_ID, Long.class))));
+        }
+    }
+
+
+    /**
+     * Migrates ratings for each of the given (source measurable id, target measurable id) pairs.
+     *
+     * @param dsl               database context to use
+     * @param changeLogDao      used to write the change log entries, in the migration transaction
+     * @param sourceToTargetIds [tuple2{sourceMeasurableId, targetMeasurableId}]
+     * @param userId            the user responsible for the change
+     * @return number of source ratings which were migrated, or merged into an existing target rating
+     */
+    public static int migrateRatings(DSLContext dsl,
+                                     ChangeLogDao changeLogDao,
+                                     Collection<Tuple2<Long, Long>> sourceToTargetIds,
+                                     String userId) {
+
+        Map<Long, Long> targetsBySource = mkTargetsBySource(sourceToTargetIds);
+
+        if (targetsBySource.isEmpty()) {
+            return 0;
+        }
+
+        LOG.info("Migrating ratings for {} measurables", targetsBySource.size());
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            Timestamp now = nowUtcTimestamp();
+            List<ChangeLogRecord> changeLogs = new ArrayList<>();
+
+            // RATINGS: move everything that does not clash with an existing rating on the target
+
+            Map<Long, Integer> movableRatingCounts = countMovableRatings(tx, targetsBySource);
+            int movedRatings = moveRatings(tx, targetsBySource);
+
+            movableRatingCounts.forEach((sourceId, count) -> changeLogs.add(mkChangeLog(
+                    tx,
+                    targetsBySource.get(sourceId),
+                    EntityKind.MEASURABLE_RATING,
+                    Operation.UPDATE,
+                    format("Migrated %d ratings from measurable: %d to %d", count, sourceId, targetsBySource.get(sourceId)),
+                    userId,
+                    now)));
+
+            // CLASHES: every remaining source rating now has a counterpart on the target
+
+            RatingPairs pairs = new RatingPairs(targetsBySource, "stats");
+
+            Field<Integer> ratingCount = DSL.countDistinct(pairs.source.ID).as("rating_count");
+            Field<Integer> decommCount = DSL.countDistinct(srcDecomm.ID).as("decomm_count");
+            Field<Integer> movableDecommCount = DSL.countDistinct(DSL.when(isMovableDecomm(targetsBySource, pairs), srcDecomm.ID)).as("movable_decomm_count");
+            Field<Integer> allocCount = DSL.countDistinct(srcAlloc.ID).as("alloc_count");
+            Field<Integer> movableAllocCount = DSL.countDistinct(DSL.when(isMovableAllocation(targetsBySource, pairs), srcAlloc.ID)).as("movable_alloc_count");
+
+            tx.select(pairs.sourceMeasurableId,
+                            ratingCount,
+                            decommCount,
+                            movableDecommCount,
+                            allocCount,
+                            movableAllocCount)
+                    .from(pairs.table)
+                    .leftJoin(srcDecomm).on(srcDecomm.MEASURABLE_RATING_ID.eq(pairs.source.ID))
+                    .leftJoin(trgDecomm).on(trgDecomm.MEASURABLE_RATING_ID.eq(pairs.target.ID))
+                    .leftJoin(srcAlloc).on(srcAlloc.MEASURABLE_RATING_ID.eq(pairs.source.ID))
+                    .leftJoin(trgAlloc).on(trgAlloc.MEASURABLE_RATING_ID.eq(pairs.target.ID)
+                            .and(trgAlloc.ALLOCATION_SCHEME_ID.eq(srcAlloc.ALLOCATION_SCHEME_ID)))
+                    .groupBy(pairs.sourceMeasurableId)
+                    .fetch()
+                    .forEach(r -> {
+                        Long sourceId = r.get(pairs.sourceMeasurableId);
+                        Long targetId = targetsBySource.get(sourceId);
+
+                        addChangeLog(changeLogs, tx, targetId, EntityKind.MEASURABLE_RATING, Operation.REMOVE, userId, now,
+                                r.get(ratingCount),
+                                "Failed to migrate %d ratings from measurable: %d to %d due to existing ratings on the target",
+                                sourceId);
+
+                        addChangeLog(changeLogs, tx, targetId, EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION, Operation.UPDATE, userId, now,
+                                r.get(movableDecommCount),
+                                "Migrated %d decomms from measurable: %d to %d",
+                                sourceId);
+
+                        addChangeLog(changeLogs, tx, targetId, EntityKind.MEASURABLE_RATING_PLANNED_DECOMMISSION, Operation.REMOVE, userId, now,
+                                r.get(decommCount) - r.get(movableDecommCount),
+                                "Failed to migrate %d decomms from measurable: %d to %d due to existing decomms on the target",
+                                sourceId);
+
+                        addChangeLog(changeLogs, tx, targetId, EntityKind.ALLOCATION, Operation.UPDATE, userId, now,
+                                r.get(movableAllocCount),
+                                "Migrated %d allocations from measurable: %d to %d",
+                                sourceId);
+
+                        addChangeLog(changeLogs, tx, targetId, EntityKind.ALLOCATION, Operation.UPDATE, userId, now,
+                                r.get(allocCount) - r.get(movableAllocCount),
+                                "Merged %d allocations from measurable: %d to %d where there was an existing allocation on the target",
+                                sourceId);
+                    });
+
+            int movedDecomms = moveDecomms(tx, targetsBySource);
+            int movedAllocs = moveAllocations(tx, targetsBySource);
+            int mergedAllocs = mergeAllocations(tx, targetsBySource);
+
+            // allocations, decomms and replacements are automatically cleared up via cascade delete on fk
+            int removedRatings = tx
+                    .deleteFrom(MEASURABLE_RATING)
+                    .where(MEASURABLE_RATING.MEASURABLE_ID.in(targetsBySource.keySet()))
+                    .execute();
+
+            changeLogDao.writeRecords(tx, changeLogs);
+
+            LOG.info("Migrated {}/{} ratings (moved/merged), {} decomms, {}/{} allocations (moved/merged) for {} measurables",
+                    movedRatings,
+                    removedRatings,
+                    movedDecomms,
+                    movedAllocs,
+                    mergedAllocs,
+                    targetsBySource.size());
+
+            return movedRatings + removedRatings;
+        });
+    }
+
+
+    private static Map<Long, Long> mkTargetsBySource(Collection<Tuple2<Long, Long>> sourceToTargetIds) {
+        checkNotNull(sourceToTargetIds, "sourceToTargetIds cannot be null");
+
+        Map<Long, Long> targetsBySource = new HashMap<>();
+
+        sourceToTargetIds.forEach(t -> {
+            checkNotNull(t.v1, "Cannot migrate ratings without specifying a source");
+            checkNotNull(t.v2, "Cannot migrate ratings without specifying a new target");
+            checkTrue(!t.v1.equals(t.v2), "Cannot migrate ratings from measurable: %d to itself", t.v1);
+
+            Long existingTarget = targetsBySource.put(t.v1, t.v2);
+            checkTrue(
+                    existingTarget == null || existingTarget.equals(t.v2),
+                    "Cannot migrate ratings from measurable: %d to more than one target",
+                    t.v1);
+        });
+
+        Set<Long> chained = intersection(targetsBySource.keySet(), fromCollection(targetsBySource.values()));
+        checkTrue(chained.isEmpty(), "Measurables cannot be both a source and a target of a migration: %s", chained);
+
+        return targetsBySource;
+    }
+
+
+    private static Map<Long, Integer> countMovableRatings(DSLContext tx,
+                                                          Map<Long, Long> targetsBySource) {
+        Table<Record2<Long, Long>> migration = mkMigrationTable(targetsBySource, "m");
+        MeasurableRating source = MEASURABLE_RATING.as("src_mr");
+        Field<Long> sourceId = migration.field(SOURCE_ID, Long.class);
+        Field<Integer> count = DSL.count().as("movable_count");
+
+        return tx
+                .select(sourceId, count)
+                .from(source)
+                .innerJoin(migration).on(source.MEASURABLE_ID.eq(sourceId))
+                .where(DSL.not(isBlockedRating(targetsBySource, source, migration.field(TARGET_ID, Long.class))))
+                .groupBy(sourceId)
+                .fetchMap(sourceId, count);
+    }
+
+
+    private static int moveRatings(DSLContext tx,
+                                   Map<Long, Long> targetsBySource) {
+        Table<Record2<Long, Long>> migration = mkMigrationTable(targetsBySource, "m");
+
+        Field<Long> newMeasurableId = DSL.field(DSL
+                .select(migration.field(TARGET_ID, Long.class))
+                .from(migration)
+                .where(migration.field(SOURCE_ID, Long.class).eq(MEASURABLE_RATING.MEASURABLE_ID)));
+
+        return tx
+                .update(MEASURABLE_RATING)
+                .set(MEASURABLE_RATING.MEASURABLE_ID, newMeasurableId)
+                .where(MEASURABLE_RATING.MEASURABLE_ID.in(targetsBySource.keySet()))
+                .and(DSL.not(isBlockedRating(targetsBySource, MEASURABLE_RATING, newMeasurableId)))
+                .execute();
+    }
+
+
+    private static int moveDecomms(DSLContext tx,
+                                   Map<Long, Long> targetsBySource) {
+        RatingPairs pairs = new RatingPairs(targetsBySource, "p");
+
+        return tx
+                .update(MEASURABLE_RATING_PLANNED_DECOMMISSION)
+                .set(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID,
+                        mkTargetRatingId(targetsBySource, MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID))
+                .where(MEASURABLE_RATING_PLANNED_DECOMMISSION.ID.in(DSL
+                        .select(srcDecomm.ID)
+                        .from(pairs.table)
+                        .innerJoin(srcDecomm).on(srcDecomm.MEASURABLE_RATING_ID.eq(pairs.source.ID))
+                        .leftJoin(trgDecomm).on(trgDecomm.MEASURABLE_RATING_ID.eq(pairs.target.ID))
+                        .where(isMovableDecomm(targetsBySource, pairs))))
+                .execute();
+    }
+
+
+    private static int moveAllocations(DSLContext tx,
+                                       Map<Long, Long> targetsBySource) {
+        RatingPairs pairs = new RatingPairs(targetsBySource, "p");
+
+        return tx
+                .update(ALLOCATION)
+                .set(ALLOCATION.MEASURABLE_RATING_ID, mkTargetRatingId(targetsBySource, ALLOCATION.MEASURABLE_RATING_ID))
+                .where(ALLOCATION.ID.in(DSL
+                        .select(srcAlloc.ID)
+                        .from(pairs.table)
+                        .innerJoin(srcAlloc).on(srcAlloc.MEASURABLE_RATING_ID.eq(pairs.source.ID))
+                        .leftJoin(trgAlloc).on(trgAlloc.MEASURABLE_RATING_ID.eq(pairs.target.ID)
+                                .and(trgAlloc.ALLOCATION_SCHEME_ID.eq(srcAlloc.ALLOCATION_SCHEME_ID)))
+                        .where(isMovableAllocation(targetsBySource, pairs))))
+                .execute();
+    }
+
+
+    /**
+     * Must be run after the movable allocations have been moved, any allocations
+     * left on the source ratings are added to the target allocation for the same scheme.
+     */
+    private static int mergeAllocations(DSLContext tx,
+                                        Map<Long, Long> targetsBySource) {
+        RatingPairs pairs = new RatingPairs(targetsBySource, "p");
+        RatingPairs mergePairs = new RatingPairs(targetsBySource, "mp");
+        Allocation mergedAlloc = ALLOCATION.as("merged_alloc");
+
+        Field<Integer> mergedPercentage = DSL.field(DSL
+                .select(DSL.sum(mergedAlloc.ALLOCATION_PERCENTAGE).cast(Integer.class))
+                .from(mergePairs.table)
+                .innerJoin(mergedAlloc).on(mergedAlloc.MEASURABLE_RATING_ID.eq(mergePairs.source.ID))
+                .where(mergePairs.target.ID.eq(ALLOCATION.MEASURABLE_RATING_ID))
+                .and(mergedAlloc.ALLOCATION_SCHEME_ID.eq(ALLOCATION.ALLOCATION_SCHEME_ID)));
+
+        return tx
+                .update(ALLOCATION)
+                .set(ALLOCATION.ALLOCATION_PERCENTAGE, ALLOCATION.ALLOCATION_PERCENTAGE.add(mergedPercentage))
+                .where(ALLOCATION.ID.in(DSL
+                        .select(trgAlloc.ID)
+                        .from(pairs.table)
+                        .innerJoin(srcAlloc).on(srcAlloc.MEASURABLE_RATING_ID.eq(pairs.source.ID))
+                        .innerJoin(trgAlloc).on(trgAlloc.MEASURABLE_RATING_ID.eq(pairs.target.ID)
+                                .and(trgAlloc.ALLOCATION_SCHEME_ID.eq(srcAlloc.ALLOCATION_SCHEME_ID)))))
+                .execute();
+    }
+
+
+    /**
+     * A rating cannot be moved if the entity is already rated against the target, or
+     * if another source rating (with a lower id) for the same entity is moving to the same target.
+     */
+    private static Condition isBlockedRating(Map<Long, Long> targetsBySource,
+                                             MeasurableRating rating,
+                                             Field<Long> targetMeasurableId) {
+        MeasurableRating existing = MEASURABLE_RATING.as("existing_mr");
+        MeasurableRating sibling = MEASURABLE_RATING.as("sibling_mr");
+        Table<Record2<Long, Long>> siblingMigration = mkMigrationTable(targetsBySource, "sibling_m");
+
+        Condition alreadyRated = DSL.exists(DSL
+                .selectOne()
+                .from(existing)
+                .where(existing.ENTITY_ID.eq(rating.ENTITY_ID))
+                .and(existing.ENTITY_KIND.eq(rating.ENTITY_KIND))
+                .and(existing.MEASURABLE_ID.eq(targetMeasurableId)));
+
+        Condition earlierSibling = DSL.exists(DSL
+                .selectOne()
+                .from(sibling)
+                .innerJoin(siblingMigration).on(sibling.MEASURABLE_ID.eq(siblingMigration.field(SOURCE_ID, Long.class)))
+                .where(siblingMigration.field(TARGET_ID, Long.class).eq(targetMeasurableId))
+                .and(sibling.ENTITY_ID.eq(rating.ENTITY_ID))
+                .and(sibling.ENTITY_KIND.eq(rating.ENTITY_KIND))
+                .and(sibling.ID.lt(rating.ID)));
+
+        return alreadyRated.or(earlierSibling);
+    }
+
+
+    /**
+     * Expects <code>srcDecomm</code> and <code>trgDecomm</code> to be joined to the given pairs.
+     */
+    private static Condition isMovableDecomm(Map<Long, Long> targetsBySource,
+                                             RatingPairs pairs) {
+        RatingPairs siblingPairs = new RatingPairs(targetsBySource, "sibling");
+        MeasurableRatingPlannedDecommission siblingDecomm = MEASURABLE_RATING_PLANNED_DECOMMISSION.as("sibling_decomm");
+
+        return trgDecomm.ID.isNull()
+                .and(DSL.notExists(DSL
+                        .selectOne()
+                        .from(siblingPairs.table)
+                        .innerJoin(siblingDecomm).on(siblingDecomm.MEASURABLE_RATING_ID.eq(siblingPairs.source.ID))
+                        .where(siblingPairs.target.ID.eq(pairs.target.ID))
+                        .and(siblingDecomm.ID.lt(srcDecomm.ID))));
+    }
+
+
+    /**
+     * Expects <code>srcAlloc</code> and <code>trgAlloc</code> to be joined to the given pairs.
+     */
+    private static Condition isMovableAllocation(Map<Long, Long> targetsBySource,
+                                                 RatingPairs pairs) {
+        RatingPairs siblingPairs = new RatingPairs(targetsBySource, "sibling");
+        Allocation siblingAlloc = ALLOCATION.as("sibling_alloc");
+
+        return trgAlloc.ID.isNull()
+                .and(DSL.notExists(DSL
+                        .selectOne()
+                        .from(siblingPairs.table)
+                        .innerJoin(siblingAlloc).on(siblingAlloc.MEASURABLE_RATING_ID.eq(siblingPairs.source.ID))
+                        .where(siblingPairs.target.ID.eq(pairs.target.ID))
+                        .and(siblingAlloc.ALLOCATION_SCHEME_ID.eq(srcAlloc.ALLOCATION_SCHEME_ID))
+                        .and(siblingAlloc.ID.lt(srcAlloc.ID))));
+    }
+
+
+    private static Field<Long> mkTargetRatingId(Map<Long, Long> targetsBySource,
+                                                Field<Long> sourceRatingId) {
+        RatingPairs pairs = new RatingPairs(targetsBySource, "t");
+
+        return DSL.field(DSL
+                .select(pairs.target.ID)
+                .from(pairs.table)
+                .where(pairs.source.ID.eq(sourceRatingId)));
+    }
+
+
+    /**
+     * Ids are inlined, the pairs table is repeated in several sub-selects of
+     * each statement and binding them would quickly exhaust parameter limits.
+     */
+    @SuppressWarnings("unchecked")
+    private static Table<Record2<Long, Long>> mkMigrationTable(Map<Long, Long> targetsBySource,
+                                                               String alias) {
+        Row2<Long, Long>[] rows = targetsBySource
+                .entrySet()
+                .stream()
+                .map(e -> DSL.row(DSL.inline(e.getKey()), DSL.inline(e.getValue())))
+                .toArray(Row2[]::new);
+
+        return DSL
+                .values(rows)
+                .as(alias, SOURCE_ID, TARGET_ID);
+    }
+
+
+    private static void addChangeLog(List<ChangeLogRecord> changeLogs,
+                                     DSLContext tx,
+                                     Long targetId,
+                                     EntityKind childKind,
+                                     Operation operation,
+                                     String userId,
+                                     Timestamp now,
+                                     int count,
+                                     String messageTemplate,
+                                     Long sourceId) {
+        if (count > 0) {
+            changeLogs.add(mkChangeLog(
+                    tx,
+                    targetId,
+                    childKind,
+                    operation,
+                    format(messageTemplate, count, sourceId, targetId),
+                    userId,
+                    now));
+        }
+    }
+
+
+    private static ChangeLogRecord mkChangeLog(DSLContext tx,
+                                               Long measurableId,
+                                               EntityKind childKind,
+                                               Operation operation,
+                                               String message,
+                                               String userId,
+                                               Timestamp now) {
+        ChangeLogRecord record = tx.newRecord(CHANGE_LOG);
+        record.setParentKind(EntityKind.MEASURABLE.name());
+        record.setParentId(measurableId);
+        record.setMessage(message);
+        record.setUserId(userId);
+        record.setSeverity(Severity.INFORMATION.name());
+        record.setCreatedAt(now);
+        record.setChildKind(childKind.name());
+        record.setOperation(operation.name());
+        return record;
+    }
+}
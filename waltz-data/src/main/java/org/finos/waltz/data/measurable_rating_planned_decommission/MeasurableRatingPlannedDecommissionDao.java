@@ -62,6 +62,7 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.firstChar;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.APPLICATION;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
@@ -174,7 +175,7 @@ public class MeasurableRatingPlannedDecommissionDao {
     @Deprecated
     public Set<MeasurableRatingPlannedDecommission> findForCategoryAndSelector(Select<Record1<Long>> subjectIdSelector, long categoryId){
         return mkBaseQry()
-                .where(dsl.renderInlined(MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector)
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
@@ -182,7 +183,7 @@ public class MeasurableRatingPlannedDecommissionDao {
 
     public Set<MeasurableRatingPlannedDecommission> findForCategoryAndMeasurableRatingIdSelector(Select<Record1<Long>> ratingIdSelector, long categoryId){
         return mkBaseQry()
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
@@ -48,6 +48,7 @@ import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
 import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
@@ -157,7 +158,7 @@ public class MeasurableRatingReplacementDao {
                 .on(MEASURABLE_RATING.ID.eq(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID))
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector)
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ENTITY_ID.in(subjectIdSelector)
                         .and(MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
@@ -174,7 +175,7 @@ public class MeasurableRatingReplacementDao {
                 .on(MEASURABLE_RATING.ID.eq(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID))
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID)
                         .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)))
-                .where(dsl.renderInlined(MEASURABLE_RATING.ID.in(ratingIdSelector)))
+                .where(bindOrInline(dsl, MEASURABLE_RATING.ID.in(ratingIdSelector)))
                 .fetchSet(TO_DOMAIN_MAPPER);
     }
 
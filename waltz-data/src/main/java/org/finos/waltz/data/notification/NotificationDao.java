@@ -37,6 +37,7 @@ import java.util.List;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.*;
 
 
@@ -96,8 +97,7 @@ public class NotificationDao {
         Select<Record2<String, Integer>> qry = attestationCount
                 .unionAll(surveyCount);
 
-        return dsl
-                .resultQuery(dsl.renderInlined(qry))
+        return bindOrInline(dsl, qry)
                 .fetch(TO_DOMAIN_MAPPER);
     }
 }
@@ -44,6 +44,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.USER_ROLE;
 import static org.finos.waltz.schema.tables.AttestationInstanceRecipient.ATTESTATION_INSTANCE_RECIPIENT;
@@ -139,7 +140,7 @@ public class PersonDao {
         checkNotEmpty(employeeId, "Cannot find directs without an employeeId");
         return dsl.select()
                 .from(PERSON)
-                .where(dsl.renderInlined(PERSON.MANAGER_EMPLOYEE_ID.eq(employeeId)))
+                .where(bindOrInline(dsl, PERSON.MANAGER_EMPLOYEE_ID.eq(employeeId)))
                 .andNot(PERSON.IS_REMOVED)
                 .orderBy(PERSON.DISPLAY_NAME)
                 .fetch(personMapper);
@@ -279,7 +280,7 @@ public class PersonDao {
         SelectSeekStep1<Record, String> qry = dsl
                 .select(PERSON.fields())
                 .from(PERSON)
-                .where(dsl.renderInlined(cond))
+                .where(bindOrInline(dsl, cond))
                 .orderBy(PERSON.DISPLAY_NAME);
 
         return qry
@@ -60,6 +60,8 @@ import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
+import static org.finos.waltz.data.datatype_decorator.PhysicalSpecDecoratorDao.markForRipple;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -304,32 +306,39 @@ public class PhysicalFlowDao {
         checkNotNull(flow, "flow cannot be null");
         checkFalse(flow.id().isPresent(), "flow must not have an id");
 
-        PhysicalFlowRecord record = dsl.newRecord(PHYSICAL_FLOW);
-        record.setLogicalFlowId(flow.logicalFlowId());
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
 
-        record.setName(flow.name());
-        record.setFrequency(flow.frequency().value());
-        record.setTransport(flow.transport().value());
-        record.setBasisOffset(flow.basisOffset());
-        record.setCriticality(flow.criticality().value());
+            PhysicalFlowRecord record = tx.newRecord(PHYSICAL_FLOW);
+            record.setLogicalFlowId(flow.logicalFlowId());
 
-        record.setSpecificationId(flow.specificationId());
+            record.setName(flow.name());
+            record.setFrequency(flow.frequency().value());
+            record.setTransport(flow.transport().value());
+            record.setBasisOffset(flow.basisOffset());
+            record.setCriticality(flow.criticality().value());
 
-        record.setDescription(flow.description());
-        record.setLastUpdatedBy(flow.lastUpdatedBy());
-        record.setLastUpdatedAt(Timestamp.valueOf(flow.lastUpdatedAt()));
-        record.setLastAttestedBy(flow.lastAttestedBy().orElse(null));
-        record.setLastAttestedAt(flow.lastAttestedAt().map(Timestamp::valueOf).orElse(null));
-        record.setIsRemoved(flow.isRemoved());
-        record.setProvenance("waltz");
+            record.setSpecificationId(flow.specificationId());
 
-        flow.externalId().ifPresent(record::setExternalId);
+            record.setDescription(flow.description());
+            record.setLastUpdatedBy(flow.lastUpdatedBy());
+            record.setLastUpdatedAt(Timestamp.valueOf(flow.lastUpdatedAt()));
+            record.setLastAttestedBy(flow.lastAttestedBy().orElse(null));
+            record.setLastAttestedAt(flow.lastAttestedAt().map(Timestamp::valueOf).orElse(null));
+            record.setIsRemoved(flow.isRemoved());
+            record.setProvenance("waltz");
 
-        record.setCreatedAt(flow.created().map(UserTimestamp::atTimestamp).orElse(Timestamp.valueOf(flow.lastUpdatedAt())));
-        record.setCreatedBy(flow.created().map(UserTimestamp::by).orElse(flow.lastUpdatedBy()));
+            flow.externalId().ifPresent(record::setExternalId);
 
-        record.store();
-        return record.getId();
+            record.setCreatedAt(flow.created().map(UserTimestamp::atTimestamp).orElse(Timestamp.valueOf(flow.lastUpdatedAt())));
+            record.setCreatedBy(flow.created().map(UserTimestamp::by).orElse(flow.lastUpdatedBy()));
+
+            record.store();
+
+            markForRipple(tx, PHYSICAL_SPECIFICATION.ID.eq(flow.specificationId()));
+
+            return record.getId();
+        });
     }
 
 
@@ -390,7 +399,7 @@ public class PhysicalFlowDao {
                 .on(PHYSICAL_SPECIFICATION.ID.eq(PHYSICAL_FLOW.SPECIFICATION_ID))
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(isSender))
+                .where(bindOrInline(dsl, isSender))
                 .and(PHYSICAL_FLOW_NOT_REMOVED);
     }
 
@@ -405,7 +414,7 @@ public class PhysicalFlowDao {
                 .from(PHYSICAL_FLOW)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(matchesLogicalFlow))
+                .where(bindOrInline(dsl, matchesLogicalFlow))
                 .and(PHYSICAL_FLOW_NOT_REMOVED);
     }
 
@@ -422,7 +431,7 @@ public class PhysicalFlowDao {
                 .from(PHYSICAL_FLOW)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(matchesLogicalFlow));
+                .where(bindOrInline(dsl, matchesLogicalFlow));
     }
 
 
@@ -475,12 +484,25 @@ public class PhysicalFlowDao {
 
 
     public int updateEntityLifecycleStatus(long flowId, EntityLifecycleStatus entityLifecycleStatus) {
-        return dsl
-                .update(PHYSICAL_FLOW)
-                .set(PHYSICAL_FLOW.ENTITY_LIFECYCLE_STATUS, entityLifecycleStatus.name())
-                .set(PHYSICAL_FLOW.IS_REMOVED, entityLifecycleStatus == EntityLifecycleStatus.REMOVED)
-                .where(PHYSICAL_FLOW.ID.eq(flowId))
-                .execute();
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int updated = tx
+                    .update(PHYSICAL_FLOW)
+                    .set(PHYSICAL_FLOW.ENTITY_LIFECYCLE_STATUS, entityLifecycleStatus.name())
+                    .set(PHYSICAL_FLOW.IS_REMOVED, entityLifecycleStatus == EntityLifecycleStatus.REMOVED)
+                    .where(PHYSICAL_FLOW.ID.eq(flowId))
+                    .execute();
+
+            if (updated > 0 && entityLifecycleStatus == EntityLifecycleStatus.ACTIVE) {
+                markForRipple(tx, PHYSICAL_SPECIFICATION.ID.in(DSL
+                        .select(PHYSICAL_FLOW.SPECIFICATION_ID)
+                        .from(PHYSICAL_FLOW)
+                        .where(PHYSICAL_FLOW.ID.eq(flowId))));
+            }
+
+            return updated;
+        });
     }
 
 
@@ -19,6 +19,8 @@
 package org.finos.waltz.data.physical_specification;
 
 import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.data.rollup.RollupDirtyNodeDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
@@ -35,6 +37,7 @@ import org.finos.waltz.schema.tables.LogicalFlow;
 import org.finos.waltz.schema.tables.LogicalFlowDecorator;
 import org.finos.waltz.schema.tables.PhysicalFlow;
 import org.finos.waltz.schema.tables.PhysicalSpecDataType;
+import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.finos.waltz.schema.tables.records.PhysicalSpecificationRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
@@ -60,6 +63,7 @@ import java.util.Set;
 
 import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
@@ -67,7 +71,6 @@ import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOV
 import static org.finos.waltz.data.physical_flow.PhysicalFlowDao.PHYSICAL_FLOW_NOT_REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.USER_ROLE;
-import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
 import static org.finos.waltz.schema.tables.DataType.DATA_TYPE;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
@@ -122,12 +125,20 @@ public class PhysicalSpecificationDao {
 
 
     private final DSLContext dsl;
+    private final ChangeLogDao changeLogDao;
+    private final RollupDirtyNodeDao rollupDirtyNodeDao;
 
 
     @Autowired
-    public PhysicalSpecificationDao(DSLContext dsl) {
+    public PhysicalSpecificationDao(DSLContext dsl,
+                                    ChangeLogDao changeLogDao,
+                                    RollupDirtyNodeDao rollupDirtyNodeDao) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
+        checkNotNull(rollupDirtyNodeDao, "rollupDirtyNodeDao cannot be null");
         this.dsl = dsl;
+        this.changeLogDao = changeLogDao;
+        this.rollupDirtyNodeDao = rollupDirtyNodeDao;
     }
 
 
@@ -334,16 +345,9 @@ public class PhysicalSpecificationDao {
                         val(userName))
                     .from(requiredQry);
 
-            tx.insertInto(CHANGE_LOG)
-                    .columns(
-                            CHANGE_LOG.PARENT_KIND,
-                            CHANGE_LOG.PARENT_ID,
-                            CHANGE_LOG.MESSAGE,
-                            CHANGE_LOG.USER_ID,
-                            CHANGE_LOG.SEVERITY,
-                            CHANGE_LOG.OPERATION)
-                    .select(requiredChangeLogs)
-                    .execute();
+            changeLogDao.writeRecords(
+                    tx,
+                    tx.fetch(requiredChangeLogs).map(PhysicalSpecificationDao::toChangeLogRecord));
 
             int insertCount = tx
                     .insertInto(lfd)
@@ -393,17 +397,15 @@ public class PhysicalSpecificationDao {
                         val(Operation.REMOVE.name()))
                 .from(flowsWithOtherDataTypes);
 
-        int changelogsInserted = tx
-                .insertInto(CHANGE_LOG)
-                .columns(
-                        CHANGE_LOG.PARENT_KIND,
-                        CHANGE_LOG.PARENT_ID,
-                        CHANGE_LOG.MESSAGE,
-                        CHANGE_LOG.USER_ID,
-                        CHANGE_LOG.SEVERITY,
-                        CHANGE_LOG.OPERATION)
-                .select(requiredChangeLogs)
-                .execute();
+        changeLogDao.writeRecords(
+                tx,
+                requiredChangeLogs.fetch(PhysicalSpecificationDao::toChangeLogRecord));
+
+        rollupDirtyNodeDao.markNodesContainingFlows(
+                tx,
+                DSL.select(lfd.LOGICAL_FLOW_ID)
+                        .from(lfd)
+                        .where(lfd.ID.in(unknownDecoratorsThatCanBeRemoved)));
 
         int removedUnknowns = tx
                 .deleteFrom(lfd)
@@ -412,6 +414,19 @@ public class PhysicalSpecificationDao {
     }
 
 
+    private static ChangeLogRecord toChangeLogRecord(Record6<String, Long, String, String, String, String> r) {
+        ChangeLogRecord record = new ChangeLogRecord();
+        record.setParentKind(r.value1());
+        record.setParentId(r.value2());
+        record.setMessage(r.value3());
+        record.setUserId(r.value4());
+        record.setSeverity(r.value5());
+        record.setOperation(r.value6());
+        record.setCreatedAt(nowUtcTimestamp());
+        return record;
+    }
+
+
     public int updateFormat(long specId, DataFormatKindValue format) {
         return dsl
                 .update(PHYSICAL_SPECIFICATION)
@@ -0,0 +1,290 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.replica;
+
+import org.finos.waltz.common.ReplicaSession;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.schema.Tables.REPLICA_HEARTBEAT;
+
+/**
+ * Routes reads which have been marked as safe to serve from a read replica.
+ *
+ * Reads are marked by running them via {@link #read(Supplier)}, while inside
+ * that call any connection taken from {@link #dataSource()} comes from the
+ * replica.  Everything else (including all writes) uses the primary.
+ *
+ * The replica is only used when:
+ * <ul>
+ *     <li>one has been configured,</li>
+ *     <li>the last health check could reach it and its replication lag was within the allowed maximum,</li>
+ *     <li>the current user (see {@link ReplicaSession}) has not written to the primary recently.</li>
+ * </ul>
+ *
+ * Replication lag is measured with a heartbeat: each check compares the
+ * current beat in the primary's <code>replica_heartbeat</code> table with the
+ * beat the replica has received, and then writes a new beat to the primary.
+ * Comparing the two beats, rather than the replica's beat with the time of the
+ * check, keeps the check interval out of the measured lag.  A user is held on
+ * the primary for the maximum lag plus the check interval after their last
+ * write, after which their change must have reached the replica.
+ *
+ * Recent writes are tracked in memory, per server.  When running more than
+ * one server the load balancer must keep each user on the same server (sticky
+ * sessions), otherwise a user's next request may be served by a server which
+ * has not seen their write and read stale data from the replica.
+ */
+public class ReadReplicaRouter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+    public static final long CHECK_INTERVAL_MILLIS = 10_000;
+
+    private static final int HEARTBEAT_ID = 1;
+    private static final ThreadLocal<Boolean> USE_REPLICA = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final DataSource dataSource;
+    private final DSLContext primaryDsl;
+    private final DSLContext replicaDsl;
+    private final long maxLagMillis;
+    private final long stickyMillis;
+
+    /**
+     * Per server, see class comment
+     */
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    private volatile boolean replicaHealthy = false;
+    private volatile Long lastLagMillis = null;
+
+
+    public static ReadReplicaRouter primaryOnly(DataSource primary) {
+        return new ReadReplicaRouter(primary, null, null, Duration.ZERO);
+    }
+
+
+    public ReadReplicaRouter(DataSource primary,
+                             DataSource replica,
+                             SQLDialect dialect,
+                             Duration maxLag) {
+        checkNotNull(primary, "primary cannot be null");
+        checkNotNull(maxLag, "maxLag cannot be null");
+        checkTrue(replica == null || dialect != null, "dialect must be provided when using a replica");
+
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+        this.stickyMillis = maxLagMillis + CHECK_INTERVAL_MILLIS;
+
+        if (replica == null) {
+            this.dataSource = primary;
+            this.primaryDsl = null;
+            this.replicaDsl = null;
+        } else {
+            this.dataSource = new RoutingDataSource();
+            this.primaryDsl = DSL.using(primary, dialect);
+            this.replicaDsl = DSL.using(replica, dialect);
+        }
+    }
+
+
+    /**
+     * @return the data source all application queries should use, this is
+     *     the primary unless a replica has been configured
+     */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+
+    /**
+     * Listener to register with the application's jOOQ configuration so that
+     * writes made on behalf of a user hold that user's reads on the primary.
+     */
+    public ExecuteListener writeListener() {
+        return new DefaultExecuteListener() {
+            @Override
+            public void executeStart(ExecuteContext ctx) {
+                if (ctx.type() != ExecuteType.READ && ! USE_REPLICA.get()) {
+                    ReplicaSession
+                            .currentUser()
+                            .ifPresent(user -> lastWriteByUser.put(user, System.currentTimeMillis()));
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Runs a read which may be served by the replica.  The supplier must not
+     * write, and any lazily fetched results must be consumed before it returns.
+     */
+    public <T> T read(Supplier<T> supplier) {
+        if (USE_REPLICA.get() || ! isReplicaUsable()) {
+            return supplier.get();
+        }
+
+        USE_REPLICA.set(true);
+        try {
+            return supplier.get();
+        } finally {
+            USE_REPLICA.set(false);
+        }
+    }
+
+
+    public boolean isReplicaConfigured() {
+        return replica != null;
+    }
+
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+
+    /**
+     * @return lag measured by the last health check, null if it could not be determined
+     */
+    public Long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+
+    /**
+     * Determines whether a read for the current user may be served by the replica.
+     */
+    public boolean isReplicaUsable() {
+        if (! isReplicaConfigured() || ! replicaHealthy) {
+            return false;
+        }
+
+        return ReplicaSession
+                .currentUser()
+                .map(lastWriteByUser::get)
+                .map(lastWrite -> System.currentTimeMillis() - lastWrite > stickyMillis)
+                .orElse(true);
+    }
+
+
+    @Scheduled(fixedDelay = CHECK_INTERVAL_MILLIS, initialDelay = CHECK_INTERVAL_MILLIS)
+    public void checkReplica() {
+        if (! isReplicaConfigured()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        try {
+            Timestamp primaryBeat = fetchBeat(primaryDsl);
+            Timestamp replicaBeat = fetchBeat(replicaDsl);
+
+            Long lag = primaryBeat == null || replicaBeat == null
+                    ? null
+                    : Math.max(0, primaryBeat.getTime() - replicaBeat.getTime());
+
+            boolean healthy = lag != null && lag <= maxLagMillis;
+            if (healthy != replicaHealthy) {
+                LOG.warn("Read replica is now {}, lag: {}ms", healthy ? "in use" : "not in use", lag);
+            }
+            lastLagMillis = lag;
+            replicaHealthy = healthy;
+        } catch (Exception e) {
+            if (replicaHealthy) {
+                LOG.warn("Read replica is unavailable, falling back to primary", e);
+            }
+            lastLagMillis = null;
+            replicaHealthy = false;
+        }
+
+        try {
+            Timestamp beatAt = new Timestamp(now);
+            int updated = primaryDsl
+                    .update(REPLICA_HEARTBEAT)
+                    .set(REPLICA_HEARTBEAT.BEAT_AT, beatAt)
+                    .where(REPLICA_HEARTBEAT.ID.eq(HEARTBEAT_ID))
+                    .execute();
+
+            if (updated == 0) {
+                primaryDsl
+                        .insertInto(REPLICA_HEARTBEAT)
+                        .set(REPLICA_HEARTBEAT.ID, HEARTBEAT_ID)
+                        .set(REPLICA_HEARTBEAT.BEAT_AT, beatAt)
+                        .execute();
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not write replica heartbeat to primary", e);
+        }
+
+        lastWriteByUser
+                .entrySet()
+                .removeIf(e -> now - e.getValue() > stickyMillis);
+    }
+
+
+    private static Timestamp fetchBeat(DSLContext dsl) {
+        return dsl
+                .select(REPLICA_HEARTBEAT.BEAT_AT)
+                .from(REPLICA_HEARTBEAT)
+                .where(REPLICA_HEARTBEAT.ID.eq(HEARTBEAT_ID))
+                .fetchOne(REPLICA_HEARTBEAT.BEAT_AT);
+    }
+
+
+    private class RoutingDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return USE_REPLICA.get()
+                    ? replica.getConnection()
+                    : primary.getConnection();
+        }
+
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return USE_REPLICA.get()
+                    ? replica.getConnection(username, password)
+                    : primary.getConnection(username, password);
+        }
+    }
+}
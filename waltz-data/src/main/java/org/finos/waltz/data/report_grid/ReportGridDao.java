@@ -27,8 +27,8 @@ import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.data.EntityReferenceCache;
 import org.finos.waltz.data.GenericSelector;
-import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.Cardinality;
 import org.finos.waltz.model.CommonTableFields;
 import org.finos.waltz.model.EntityKind;
@@ -98,6 +98,7 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -123,7 +124,6 @@ import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDate;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.ListUtilities.asList;
-import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
@@ -137,6 +137,7 @@ import static org.finos.waltz.common.StringUtilities.toHtmlTable;
 import static org.finos.waltz.common.StringUtilities.toMailbox;
 import static org.finos.waltz.common.StringUtilities.upper;
 import static org.finos.waltz.common.hierarchy.HierarchyUtilities.toForest;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.data.JooqUtilities.determineCommonTableFields;
 import static org.finos.waltz.data.JooqUtilities.fieldsWithout;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -193,6 +194,7 @@ public class ReportGridDao {
     private static final Logger LOG = LoggerFactory.getLogger(ReportGridDao.class);
 
     private final DSLContext dsl;
+    private final EntityReferenceCache entityReferenceCache;
 
     private final org.finos.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final org.finos.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
@@ -233,11 +235,7 @@ public class ReportGridDao {
     private final org.finos.waltz.schema.tables.EntityStatisticValue esv = ENTITY_STATISTIC_VALUE.as("esv");
     private final org.finos.waltz.schema.tables.EntityStatisticDefinition esd = ENTITY_STATISTIC_DEFINITION.as("esd");
 
-    private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
-                    SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_ID,
-                    SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_KIND,
-                    newArrayList(EntityKind.PERSON, EntityKind.APPLICATION))
-            .as("entity_name");
+    private static final Set<EntityKind> SURVEY_ENTITY_RESPONSE_KINDS = asSet(EntityKind.PERSON, EntityKind.APPLICATION);
 
 
     private static final RecordMapper<? super Record, ReportGridInfo> TO_GRID_INFO_MAPPER = r -> {
@@ -258,8 +256,10 @@ public class ReportGridDao {
 
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl,
+                         EntityReferenceCache entityReferenceCache) {
         this.dsl = dsl;
+        this.entityReferenceCache = entityReferenceCache;
     }
 
 
@@ -1952,7 +1952,7 @@ public class ReportGridDao {
             SelectHavingStep<Record2<Long, Integer>> costKindLastestYear = dsl
                     .select(COST.COST_KIND_ID, DSL.max(COST.YEAR).as("latest_year"))
                     .from(COST)
-                    .where(dsl.renderInlined(COST.ENTITY_ID.in(selector.selector())
+                    .where(bindOrInline(dsl, COST.ENTITY_ID.in(selector.selector())
                             .and(COST.ENTITY_KIND.eq(selector.kind().name()))))
                     .groupBy(COST.COST_KIND_ID);
 
@@ -1970,7 +1970,7 @@ public class ReportGridDao {
                             c.AMOUNT)
                     .from(c)
                     .innerJoin(costKindLastestYear).on(latestYearForKind)
-                    .where(dsl.renderInlined(c.COST_KIND_ID.in(costKindIdToDefIdMap.keySet())
+                    .where(bindOrInline(dsl, c.COST_KIND_ID.in(costKindIdToDefIdMap.keySet())
                             .and(c.ENTITY_KIND.eq(selector.kind().name()))
                             .and(c.ENTITY_ID.in(selector.selector()))))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
@@ -1999,7 +1999,7 @@ public class ReportGridDao {
                             cx.COMPLEXITY_KIND_ID,
                             cx.SCORE)
                     .from(cx)
-                    .where(dsl.renderInlined(cx.COMPLEXITY_KIND_ID.in(complexityKindIdToDefIdMap.keySet())
+                    .where(bindOrInline(dsl, cx.COMPLEXITY_KIND_ID.in(complexityKindIdToDefIdMap.keySet())
                             .and(cx.ENTITY_KIND.eq(selector.kind().name()))
                             .and(cx.ENTITY_ID.in(selector.selector()))))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
@@ -2062,8 +2062,7 @@ public class ReportGridDao {
                                 highIdToDefIdMap.keySet(),
                                 lowIdToDefIdMap.keySet()))));
 
-        return dsl
-                .resultQuery(dsl.renderInlined(ratings))
+        return bindOrInline(dsl, ratings)
                 .fetchGroups(
                         r -> tuple(
                                 mkRef(selector.kind(), r.get(mr.ENTITY_ID)),
@@ -2134,8 +2133,7 @@ public class ReportGridDao {
                     .and(mr.ENTITY_ID.in(selector.selector()))
                     .and(mr.ENTITY_KIND.eq(selector.kind().name()));
 
-            return dsl
-                    .resultQuery(dsl.renderInlined(qry))
+            return bindOrInline(dsl, qry)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2173,8 +2171,7 @@ public class ReportGridDao {
                     .and(mr.ENTITY_KIND.eq(selector.kind().name()))
                     .and(mr.IS_PRIMARY.isTrue());
 
-            return dsl
-                    .resultQuery(dsl.renderInlined(qry))
+            return bindOrInline(dsl, qry)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2377,7 +2374,8 @@ public class ReportGridDao {
                             SURVEY_INSTANCE.ENTITY_KIND,
                             SURVEY_QUESTION.ID)
                     .select(SURVEY_QUESTION.FIELD_TYPE)
-                    .select(ENTITY_NAME_FIELD)
+                    .select(SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_ID,
+                            SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_KIND)
                     .select(SURVEY_QUESTION_RESPONSE.COMMENT)
                     .select(DSL.coalesce(
                             SURVEY_QUESTION_RESPONSE.STRING_RESPONSE,
@@ -2419,13 +2417,19 @@ public class ReportGridDao {
                     .where(responsesWithQuestionTypeAndEntity.field(latestInstance)
                             .eq(responsesWithQuestionTypeAndEntity.field("sid", Long.class)));
 
-            return qry
-                    .fetchSet(r -> {
+            Result<Record> responses = qry.fetch();
+            Map<Tuple2<EntityKind, Long>, String> entityResponseNames = resolveEntityResponseNames(responses);
+
+            return responses
+                    .stream()
+                    .map(r -> {
                         String fieldType = r.get(SURVEY_QUESTION.FIELD_TYPE);
 
                         Long instanceId = r.get("sid", Long.class);
                         Long questionId = r.get(SURVEY_QUESTION.ID, Long.class);
-                        String entityName = r.get(ENTITY_NAME_FIELD);
+                        String entityName = toEntityResponseRef(r)
+                                .map(ref -> entityResponseNames.get(tuple(ref.kind(), ref.id())))
+                                .orElse(null);
                         String response = r.get("response", String.class);
 
                         List<String> listResponses = responsesByInstanceQuestionKey.getOrDefault(tuple(instanceId, questionId), emptyList());
@@ -2440,10 +2444,46 @@ public class ReportGridDao {
                                 .comment(r.get(SURVEY_QUESTION_RESPONSE.COMMENT))
                                 .options(options)
                                 .build();
-                    });
+                    })
+                    .collect(toSet());
         }
     }
 
+
+    /**
+     * Keyed by kind and id as the resolved references carry the entity's
+     * actual lifecycle status, which takes part in reference equality.
+     */
+    private Map<Tuple2<EntityKind, Long>, String> resolveEntityResponseNames(Result<Record> responses) {
+        List<EntityReference> refs = responses
+                .stream()
+                .map(this::toEntityResponseRef)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .distinct()
+                .collect(toList());
+
+        Map<Tuple2<EntityKind, Long>, String> namesByKindAndId = new HashMap<>();
+        entityReferenceCache
+                .resolve(refs)
+                .forEach(ref -> ref.name().ifPresent(name -> namesByKindAndId.put(tuple(ref.kind(), ref.id()), name)));
+        return namesByKindAndId;
+    }
+
+
+    private Optional<EntityReference> toEntityResponseRef(Record r) {
+        Long id = r.get(SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_ID);
+        String kind = r.get(SURVEY_QUESTION_RESPONSE.ENTITY_RESPONSE_KIND);
+
+        return id == null || kind == null
+                ? Optional.empty()
+                : Optional
+                    .of(EntityKind.valueOf(kind))
+                    .filter(SURVEY_ENTITY_RESPONSE_KINDS::contains)
+                    .map(k -> mkRef(k, id));
+    }
+
+
     private Condition determineInstanceStatusCondition(TableField<? extends Record, Long> idField,
                                                        SurveyInstance surveyInstance,
                                                        Map<AdditionalColumnOptions, Collection<Long>> colOptionsById) {
@@ -0,0 +1,196 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.rollup;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.schema.tables.records.RollupDirtyNodeRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_ID;
+import static org.finos.waltz.data.rollup.RollupMembership.NODE_KIND;
+import static org.finos.waltz.data.rollup.RollupMembership.mkNodesContainingApps;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.finos.waltz.schema.Tables.ROLLUP_DIRTY_NODE;
+
+
+/**
+ * Rollup nodes whose membership or contents have been changed by a write
+ * which the incremental refresh cannot detect from timestamps (e.g. deleted
+ * decorators, apps moving org unit or involvement changes).  Writers mark
+ * the affected nodes in the same transaction as the change, dirty nodes are
+ * answered by the live queries until the next refresh recalculates and
+ * clears them.
+ */
+@Repository
+public class RollupDirtyNodeDao {
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public RollupDirtyNodeDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * Marks every node (org units and people) which currently has any of
+     * the given applications as a member.
+     *
+     * @return number of nodes marked
+     */
+    public int markNodesContainingApps(DSLContext tx, Select<Record1<Long>> appIdSelector) {
+        return mark(tx, appIdSelector, DSL.trueCondition());
+    }
+
+
+    /**
+     * Marks every node which currently has the source or target application
+     * of any of the given logical flows as a member.
+     *
+     * @return number of nodes marked
+     */
+    public int markNodesContainingFlows(DSLContext tx, Select<Record1<Long>> flowIdSelector) {
+        checkNotNull(flowIdSelector, "flowIdSelector cannot be null");
+
+        Select<Record1<Long>> appIds = DSL
+                .select(LOGICAL_FLOW.SOURCE_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.ID.in(flowIdSelector))
+                .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .union(DSL
+                        .select(LOGICAL_FLOW.TARGET_ENTITY_ID)
+                        .from(LOGICAL_FLOW)
+                        .where(LOGICAL_FLOW.ID.in(flowIdSelector))
+                        .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())));
+
+        return markNodesContainingApps(tx, appIds);
+    }
+
+
+    /**
+     * Marks the people (and their managers) currently involved with any of
+     * the given applications, org units are unaffected by involvements.
+     *
+     * @return number of nodes marked
+     */
+    public int markPeopleInvolvedWithApps(DSLContext tx, Select<Record1<Long>> appIdSelector) {
+        return mark(tx, appIdSelector, NODE_KIND.eq(EntityKind.PERSON.name()));
+    }
+
+
+    public boolean isDirty(EntityReference node) {
+        checkNotNull(node, "node cannot be null");
+        return dsl.fetchExists(ROLLUP_DIRTY_NODE, mkNodeCondition(node));
+    }
+
+
+    /**
+     * @return dirty nodes and when they were (last) marked
+     */
+    public Map<EntityReference, Timestamp> findDirtyNodes() {
+        return dsl
+                .selectFrom(ROLLUP_DIRTY_NODE)
+                .fetch()
+                .stream()
+                .collect(toMap(
+                        r -> mkRef(EntityKind.valueOf(r.getNodeKind()), r.getNodeId()),
+                        RollupDirtyNodeRecord::getMarkedAt));
+    }
+
+
+    /**
+     * Clears the given nodes, unless they have been marked again since they
+     * were read by {@link #findDirtyNodes()}.
+     *
+     * @return number of nodes cleared
+     */
+    public int clear(Map<EntityReference, Timestamp> nodes) {
+        checkNotNull(nodes, "nodes cannot be null");
+
+        Query[] deletes = nodes
+                .entrySet()
+                .stream()
+                .map(e -> dsl
+                        .deleteFrom(ROLLUP_DIRTY_NODE)
+                        .where(mkNodeCondition(e.getKey()))
+                        .and(ROLLUP_DIRTY_NODE.MARKED_AT.eq(e.getValue())))
+                .toArray(Query[]::new);
+
+        return deletes.length == 0
+                ? 0
+                : IntStream.of(dsl.batch(deletes).execute()).sum();
+    }
+
+
+    // -- HELPERS ---
+
+    private static int mark(DSLContext tx,
+                            Select<Record1<Long>> appIdSelector,
+                            Condition nodeCondition) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(appIdSelector, "appIdSelector cannot be null");
+
+        Select<Record2<String, Long>> nodes = mkNodesContainingApps(appIdSelector);
+        Timestamp now = nowUtcTimestamp();
+
+        Query[] upserts = tx
+                .selectFrom(nodes.asTable("nodes"))
+                .where(nodeCondition)
+                .fetch()
+                .stream()
+                .map(r -> tx
+                        .insertInto(ROLLUP_DIRTY_NODE)
+                        .set(ROLLUP_DIRTY_NODE.NODE_KIND, r.get(NODE_KIND))
+                        .set(ROLLUP_DIRTY_NODE.NODE_ID, r.get(NODE_ID))
+                        .set(ROLLUP_DIRTY_NODE.MARKED_AT, now)
+                        .onDuplicateKeyUpdate()
+                        .set(ROLLUP_DIRTY_NODE.MARKED_AT, now))
+                .toArray(Query[]::new);
+
+        if (upserts.length > 0) {
+            tx.batch(upserts).execute();
+        }
+        return upserts.length;
+    }
+
+
+    private static Condition mkNodeCondition(EntityReference node) {
+        return ROLLUP_DIRTY_NODE.NODE_KIND.eq(node.kind().name())
+                .and(ROLLUP_DIRTY_NODE.NODE_ID.eq(node.id()));
+    }
+}
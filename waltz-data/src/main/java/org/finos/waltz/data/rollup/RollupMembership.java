@@ -0,0 +1,214 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.rollup;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.SelectionFilters;
+import org.finos.waltz.schema.tables.Application;
+import org.finos.waltz.schema.tables.Involvement;
+import org.finos.waltz.schema.tables.InvolvementKind;
+import org.finos.waltz.schema.tables.Person;
+import org.finos.waltz.schema.tables.PersonHierarchy;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Record3;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT_KIND;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.finos.waltz.schema.Tables.PERSON_HIERARCHY;
+
+
+/**
+ * Describes which applications belong to each node of the precomputed
+ * rollups.  Nodes are org units (apps of the unit and all its descendants)
+ * and people (apps the person, or any of their reportees via a transitive
+ * involvement kind, is involved with).  Only active applications are
+ * members.
+ *
+ * This mirrors the application id selectors for those kinds when used with
+ * <code>CHILDREN</code> scope and the default lifecycle statuses and
+ * filters, see {@link #isRollupSelector(IdSelectionOptions)}.  Any other
+ * selection must be answered by the live queries.
+ */
+public class RollupMembership {
+
+    public static final Field<String> NODE_KIND = DSL.field(DSL.name("node_kind"), String.class);
+    public static final Field<Long> NODE_ID = DSL.field(DSL.name("node_id"), Long.class);
+    public static final Field<Long> APP_ID = DSL.field(DSL.name("app_id"), Long.class);
+
+    public static final Set<EntityKind> NODE_KINDS = asSet(EntityKind.ORG_UNIT, EntityKind.PERSON);
+
+    private static final Application app = APPLICATION.as("app_rm");
+    private static final Person person = PERSON.as("p_rm");
+    private static final Person reportee = PERSON.as("pr_rm");
+    private static final PersonHierarchy personHierarchy = PERSON_HIERARCHY.as("ph_rm");
+    private static final Involvement involvement = INVOLVEMENT.as("inv_rm");
+    private static final InvolvementKind involvementKind = INVOLVEMENT_KIND.as("inv_kind_rm");
+
+    private static final Condition ACTIVE_APP = app.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name());
+
+
+    /**
+     * @return true if the application selector for these options is exactly
+     *   the membership of a rollup node
+     */
+    public static boolean isRollupSelector(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        return NODE_KINDS.contains(options.entityReference().kind())
+                && options.scope() == HierarchyQueryScope.CHILDREN
+                && options.entityLifecycleStatuses().equals(asSet(EntityLifecycleStatus.ACTIVE))
+                && options.filters().equals(SelectionFilters.NO_FILTERS);
+    }
+
+
+    /**
+     * Gives rows of (node_kind, node_id, app_id).  If nodes are given the
+     * membership is restricted to just those nodes.
+     */
+    public static Table<Record3<String, Long, Long>> mkMembershipTable(String alias,
+                                                                       Optional<Set<EntityReference>> nodes) {
+        Map<EntityKind, Set<Long>> nodeIdsByKind = nodes
+                .map(RollupMembership::groupIdsByKind)
+                .orElse(null);
+
+        Condition orgUnitCondition = mkNodeIdCondition(ENTITY_HIERARCHY.ANCESTOR_ID, EntityKind.ORG_UNIT, nodeIdsByKind);
+        Condition personCondition = mkNodeIdCondition(person.ID, EntityKind.PERSON, nodeIdsByKind);
+
+        Select<Record3<String, Long, Long>> orgUnitMembers = DSL
+                .select(DSL.inline(EntityKind.ORG_UNIT.name()).as(NODE_KIND),
+                        ENTITY_HIERARCHY.ANCESTOR_ID.as(NODE_ID),
+                        app.ID.as(APP_ID))
+                .from(app)
+                .innerJoin(ENTITY_HIERARCHY)
+                    .on(ENTITY_HIERARCHY.ID.eq(app.ORGANISATIONAL_UNIT_ID)
+                            .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.ORG_UNIT.name())))
+                .where(ACTIVE_APP)
+                .and(orgUnitCondition);
+
+        Select<Record3<String, Long, Long>> directInvolvements = DSL
+                .select(DSL.inline(EntityKind.PERSON.name()).as(NODE_KIND),
+                        person.ID.as(NODE_ID),
+                        app.ID.as(APP_ID))
+                .from(person)
+                .innerJoin(involvement).on(involvement.EMPLOYEE_ID.eq(person.EMPLOYEE_ID))
+                .innerJoin(involvementKind).on(involvementKind.ID.eq(involvement.KIND_ID))
+                .innerJoin(app).on(app.ID.eq(involvement.ENTITY_ID))
+                .where(involvement.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .and(ACTIVE_APP)
+                .and(personCondition);
+
+        Select<Record3<String, Long, Long>> reporteeInvolvements = DSL
+                .select(DSL.inline(EntityKind.PERSON.name()).as(NODE_KIND),
+                        person.ID.as(NODE_ID),
+                        app.ID.as(APP_ID))
+                .from(person)
+                .innerJoin(personHierarchy).on(personHierarchy.MANAGER_ID.eq(person.EMPLOYEE_ID))
+                .innerJoin(reportee)
+                    .on(reportee.EMPLOYEE_ID.eq(personHierarchy.EMPLOYEE_ID)
+                            .and(reportee.IS_REMOVED.isFalse()))
+                .innerJoin(involvement).on(involvement.EMPLOYEE_ID.eq(personHierarchy.EMPLOYEE_ID))
+                .innerJoin(involvementKind)
+                    .on(involvementKind.ID.eq(involvement.KIND_ID)
+                            .and(involvementKind.TRANSITIVE.isTrue()))
+                .innerJoin(app).on(app.ID.eq(involvement.ENTITY_ID))
+                .where(involvement.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .and(ACTIVE_APP)
+                .and(personCondition);
+
+        return orgUnitMembers
+                .unionAll(DSL.selectFrom(directInvolvements
+                        .union(reporteeInvolvements)
+                        .asTable("person_members")))
+                .asTable(alias);
+    }
+
+
+    /**
+     * Gives the (node_kind, node_id) of every node which has at least one of
+     * the given applications as a member.
+     */
+    public static Select<Record2<String, Long>> mkNodesContainingApps(Select<Record1<Long>> appIdSelector) {
+        Table<Record3<String, Long, Long>> members = mkMembershipTable("members", Optional.empty());
+        return DSL
+                .selectDistinct(members.field(NODE_KIND), members.field(NODE_ID))
+                .from(members)
+                .where(members.field(APP_ID).in(appIdSelector));
+    }
+
+
+    /**
+     * Restricts node kind/id columns (e.g. of a rollup table) to the given nodes.
+     */
+    public static Condition mkNodeCondition(Field<String> nodeKindField,
+                                            Field<Long> nodeIdField,
+                                            Collection<EntityReference> nodes) {
+        return groupIdsByKind(nodes)
+                .entrySet()
+                .stream()
+                .map(e -> nodeKindField.eq(e.getKey().name()).and(nodeIdField.in(e.getValue())))
+                .reduce(DSL.falseCondition(), Condition::or);
+    }
+
+
+    // -- HELPERS ---
+
+    private static Condition mkNodeIdCondition(Field<Long> nodeIdField,
+                                               EntityKind kind,
+                                               Map<EntityKind, Set<Long>> nodeIdsByKind) {
+        if (nodeIdsByKind == null) {
+            return DSL.trueCondition();
+        }
+
+        Set<Long> ids = nodeIdsByKind.get(kind);
+        return ids == null
+                ? DSL.falseCondition()
+                : nodeIdField.in(ids);
+    }
+
+
+    private static Map<EntityKind, Set<Long>> groupIdsByKind(Collection<EntityReference> nodes) {
+        return nodes
+                .stream()
+                .collect(groupingBy(
+                        EntityReference::kind,
+                        mapping(EntityReference::id, toSet())));
+    }
+}
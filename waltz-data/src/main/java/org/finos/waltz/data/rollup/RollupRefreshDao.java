@@ -0,0 +1,110 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.rollup;
+
+import org.finos.waltz.schema.tables.records.RollupRefreshRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.schema.Tables.ROLLUP_REFRESH;
+
+
+/**
+ * Records when each precomputed rollup was last incrementally refreshed and
+ * when it was last fully rebuilt.  A rollup without a row has never been
+ * built and must not be read.
+ */
+@Repository
+public class RollupRefreshDao {
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public RollupRefreshDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public Optional<LocalDateTime> getRefreshedAt(String rollupName) {
+        return getTimestamp(rollupName, ROLLUP_REFRESH.REFRESHED_AT);
+    }
+
+
+    public Optional<LocalDateTime> getRebuiltAt(String rollupName) {
+        return getTimestamp(rollupName, ROLLUP_REFRESH.REBUILT_AT);
+    }
+
+
+    /**
+     * Only valid for rollups which have previously been rebuilt.
+     */
+    public boolean markRefreshed(String rollupName, LocalDateTime refreshedAt) {
+        return dsl
+                .update(ROLLUP_REFRESH)
+                .set(ROLLUP_REFRESH.REFRESHED_AT, Timestamp.valueOf(refreshedAt))
+                .where(ROLLUP_REFRESH.ROLLUP_NAME.eq(rollupName))
+                .execute() == 1;
+    }
+
+
+    public void markRebuilt(String rollupName, LocalDateTime rebuiltAt) {
+        Timestamp ts = Timestamp.valueOf(rebuiltAt);
+        dsl.transaction(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(ROLLUP_REFRESH)
+                    .where(ROLLUP_REFRESH.ROLLUP_NAME.eq(rollupName))
+                    .execute();
+
+            RollupRefreshRecord record = tx.newRecord(ROLLUP_REFRESH);
+            record.setRollupName(rollupName);
+            record.setRefreshedAt(ts);
+            record.setRebuiltAt(ts);
+            record.insert();
+        });
+    }
+
+
+    public int clear(String rollupName) {
+        return dsl
+                .deleteFrom(ROLLUP_REFRESH)
+                .where(ROLLUP_REFRESH.ROLLUP_NAME.eq(rollupName))
+                .execute();
+    }
+
+
+    // -- HELPERS ---
+
+    private Optional<LocalDateTime> getTimestamp(String rollupName, Field<Timestamp> field) {
+        return dsl
+                .select(field)
+                .from(ROLLUP_REFRESH)
+                .where(ROLLUP_REFRESH.ROLLUP_NAME.eq(rollupName))
+                .fetchOptional(field)
+                .map(Timestamp::toLocalDateTime);
+    }
+}
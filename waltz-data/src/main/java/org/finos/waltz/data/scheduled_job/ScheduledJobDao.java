@@ -66,6 +66,36 @@ public class ScheduledJobDao {
     }
 
 
+    /**
+     * Requests the job is run, unless it is already running.
+     *
+     * @return true if the job is now runnable
+     */
+    public boolean markJobAsRunnable(JobKey jobKey) {
+        int updated = dsl
+                .update(SETTINGS)
+                .set(SETTINGS.VALUE, JobLifecycleStatus.RUNNABLE.name())
+                .where(SETTINGS.NAME.eq(jobKey.name()))
+                .and(SETTINGS.VALUE.isDistinctFrom(JobLifecycleStatus.RUNNING.name()))
+                .execute();
+
+        if (updated > 0) {
+            return true;
+        }
+
+        return dsl
+                .insertInto(SETTINGS)
+                .columns(SETTINGS.NAME, SETTINGS.VALUE)
+                .select(DSL
+                        .select(DSL.val(jobKey.name()), DSL.val(JobLifecycleStatus.RUNNABLE.name()))
+                        .whereNotExists(DSL
+                                .select(SETTINGS.NAME)
+                                .from(SETTINGS)
+                                .where(SETTINGS.NAME.eq(jobKey.name()))))
+                .execute() == 1;
+    }
+
+
     public void updateJobStatus(JobKey jobKey, JobLifecycleStatus newStatus) {
         dsl.update(SETTINGS)
                 .set(SETTINGS.VALUE, newStatus.name())
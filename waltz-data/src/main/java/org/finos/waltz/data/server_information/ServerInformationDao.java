@@ -57,6 +57,7 @@ import java.util.stream.Collectors;
 import static java.util.Collections.emptyList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.ServerInformation.SERVER_INFORMATION;
 import static org.finos.waltz.schema.tables.ServerUsage.SERVER_USAGE;
@@ -197,7 +198,7 @@ public class ServerInformationDao {
                 .selectDistinct(SERVER_INFORMATION.ID, SERVER_INFORMATION.IS_VIRTUAL)
                 .from(SERVER_INFORMATION)
                 .join(SERVER_USAGE).on(SERVER_USAGE.SERVER_ID.eq(SERVER_INFORMATION.ID))
-                .where(dsl.renderInlined(condition))
+                .where(bindOrInline(dsl, condition))
                 .fetchGroups(SERVER_INFORMATION.IS_VIRTUAL, r -> 1);
 
         return ImmutableServerSummaryBasicStatistics.builder()
@@ -231,8 +232,7 @@ public class ServerInformationDao {
                 .join(SERVER_USAGE).on(SERVER_USAGE.SERVER_ID.eq(SERVER_INFORMATION.ID))
                 .where(condition);
 
-        Result<? extends Record> serverInfo =  dsl
-                .resultQuery(dsl.renderInlined(qry))
+        Result<? extends Record> serverInfo =  bindOrInline(dsl, qry)
                 .fetch();
 
         // We want to use offsets as the column lookup by field can be considerably slower (+400ms) when volumes are high
@@ -314,8 +314,7 @@ public class ServerInformationDao {
                 .and(SERVER_USAGE.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
                 .groupBy(SERVER_USAGE.ENVIRONMENT);
 
-        return dsl
-                .resultQuery(dsl.renderInlined(qry))
+        return bindOrInline(dsl, qry)
                 .fetch()
                 .stream()
                 .map(r -> ImmutableTally.<String>builder()
@@ -21,6 +21,8 @@ package org.finos.waltz.data.survey;
 import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.data.bulk_load.BulkLoaders;
+import org.finos.waltz.data.changelog.ChangeLogDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.ReleaseLifecycleStatus;
@@ -59,8 +61,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -194,13 +198,17 @@ public class SurveyInstanceDao {
     };
 
     private final DSLContext dsl;
+    private final ChangeLogDao changeLogDao;
 
 
     @Autowired
-    public SurveyInstanceDao(DSLContext dsl) {
+    public SurveyInstanceDao(DSLContext dsl,
+                             ChangeLogDao changeLogDao) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
 
         this.dsl = dsl;
+        this.changeLogDao = changeLogDao;
     }
 
 
@@ -549,31 +557,53 @@ public class SurveyInstanceDao {
 
     }
 
-    public int[] createInstanceRecipients(Long instanceId, Collection<Long> personIds) {
-        Collection<SurveyInstanceRecipientRecord> records = map(
-                personIds,
-                p -> {
-                    SurveyInstanceRecipientRecord record = new SurveyInstanceRecipientRecord();
-                    record.setSurveyInstanceId(instanceId);
-                    record.setPersonId(p);
-                    return record;
-                });
+    public int createInstanceRecipients(Long instanceId, Collection<Long> personIds) {
+        return createRecipients(Collections.singletonMap(instanceId, personIds));
+    }
 
-        return dsl.batchInsert(records).execute();
+
+    public int createInstanceOwners(Long instanceId, Collection<Long> personIds) {
+        return createOwners(Collections.singletonMap(instanceId, personIds));
     }
 
 
-    public int[] createInstanceOwners(Long instanceId, Collection<Long> personIds) {
-        Collection<SurveyInstanceOwnerRecord> records = map(
-                personIds,
-                p -> {
-                    SurveyInstanceOwnerRecord record = new SurveyInstanceOwnerRecord();
-                    record.setSurveyInstanceId(instanceId);
-                    record.setPersonId(p);
-                    return record;
-                });
+    /**
+     * Creates recipients for many instances at once using the dialect's
+     * bulk load mechanism.
+     *
+     * @param personIdsByInstanceId  recipient person ids keyed by survey instance id
+     * @return number of recipients created
+     */
+    public int createRecipients(Map<Long, ? extends Collection<Long>> personIdsByInstanceId) {
+        List<SurveyInstanceRecipientRecord> records = new ArrayList<>();
+        personIdsByInstanceId.forEach((instanceId, personIds) -> personIds.forEach(p -> {
+            SurveyInstanceRecipientRecord record = new SurveyInstanceRecipientRecord();
+            record.setSurveyInstanceId(instanceId);
+            record.setPersonId(p);
+            records.add(record);
+        }));
+
+        return BulkLoaders.bulkLoad(dsl, records);
+    }
+
 
-        return dsl.batchInsert(records).execute();
+    /**
+     * Creates owners for many instances at once using the dialect's
+     * bulk load mechanism.
+     *
+     * @param personIdsByInstanceId  owner person ids keyed by survey instance id
+     * @return number of owners created
+     */
+    public int createOwners(Map<Long, ? extends Collection<Long>> personIdsByInstanceId) {
+        List<SurveyInstanceOwnerRecord> records = new ArrayList<>();
+        personIdsByInstanceId.forEach((instanceId, personIds) -> personIds.forEach(p -> {
+            SurveyInstanceOwnerRecord record = new SurveyInstanceOwnerRecord();
+            record.setSurveyInstanceId(instanceId);
+            record.setPersonId(p);
+            records.add(record);
+        }));
+
+        return BulkLoaders.bulkLoad(dsl, records);
     }
 
     public Set<SurveyInstance> findForOwner(Long personId) {
@@ -854,8 +884,7 @@ public class SurveyInstanceDao {
                     return clRecord;
 
                 })
-                .collect(collectingAndThen(toSet(), tx::batchInsert))
-                .execute();
+                .collect(collectingAndThen(toSet(), records -> changeLogDao.writeRecords(tx, records)));
     }
 
     private int[] createRemovalChangeLogs(DSLContext tx,
@@ -905,8 +934,7 @@ public class SurveyInstanceDao {
 
                     return clRecord;
                 })
-                .collect(collectingAndThen(toSet(), tx::batchInsert))
-                .execute();
+                .collect(collectingAndThen(toSet(), records -> changeLogDao.writeRecords(tx, records)));
     }
 
     private CommonTableExpression<Record6<Long, Long, String, Long, String, String>> getMembersToAddCTE(CommonTableExpression<Record6<Long, Long, String, Long, String, String>> existingRecipients,
@@ -134,21 +134,35 @@ public class SurveyQuestionResponseDao {
 
 
     public List<SurveyInstanceQuestionResponse> findForInstance(long surveyInstanceId) {
+        return findForInstanceIdSelector(DSL.select(DSL.val(surveyInstanceId)));
+    }
+
+
+    public List<SurveyInstanceQuestionResponse> findForSurveyRun(long surveyRunId) {
+        return findForInstanceIdSelector(DSL
+                .select(SURVEY_INSTANCE.ID)
+                .from(SURVEY_INSTANCE)
+                .where(SURVEY_INSTANCE.SURVEY_RUN_ID.eq(surveyRunId)));
+    }
+
+
+    private List<SurveyInstanceQuestionResponse> findForInstanceIdSelector(Select<Record1<Long>> instanceIdSelector) {
         // fetch list responses
         List<Tuple2<SurveyQuestionListResponseRecord, String>> listResponses = dsl
                 .select(SURVEY_QUESTION_LIST_RESPONSE.fields())
                 .select(EXTERNAL_ID_FIELD)
                 .from(SURVEY_QUESTION_LIST_RESPONSE)
-                .where(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID.eq(surveyInstanceId))
+                .where(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID.in(instanceIdSelector))
                 .orderBy(SURVEY_QUESTION_LIST_RESPONSE.POSITION)
                 .fetch()
                 .map(r -> tuple(r.into(SURVEY_QUESTION_LIST_RESPONSE), r.getValue(EXTERNAL_ID_FIELD)));
 
-        Map<Long, List<EntityReference>> entityListResponsesByQuestionId = listResponses
+        // keyed by (instance id, question id)
+        Map<Tuple2<Long, Long>, List<EntityReference>> entityListResponsesByQuestion = listResponses
                 .stream()
                 .filter(d -> d.v1.getEntityKind() != null)
                 .map(d -> tuple(
-                        d.v1.getQuestionId(),
+                        tuple(d.v1.getSurveyInstanceId(), d.v1.getQuestionId()),
                         mkRef(EntityKind.valueOf(d.v1.getEntityKind()),
                               d.v1.getEntityId(),
                               d.v1.getResponse(),
@@ -156,10 +170,10 @@ public class SurveyQuestionResponseDao {
                               d.v2)))
                 .collect(groupingBy(d -> d.v1, mapping(t -> t.v2, toList())));
 
-        Map<Long, List<String>> stringListResponsesByQuestionId = listResponses
+        Map<Tuple2<Long, Long>, List<String>> stringListResponsesByQuestion = listResponses
                 .stream()
                 .filter(d -> d.v1.getEntityKind() == null)
-                .map(d -> tuple(d.v1.getQuestionId(),d.v1.getResponse()))
+                .map(d -> tuple(tuple(d.v1.getSurveyInstanceId(), d.v1.getQuestionId()), d.v1.getResponse()))
                 .collect(groupingBy(
                         d -> d.v1,
                         mapping(t -> t.v2, toList())));
@@ -169,16 +183,19 @@ public class SurveyQuestionResponseDao {
                 .select(SURVEY_QUESTION_RESPONSE.fields())
                 .select(entityNameField)
                 .from(SURVEY_QUESTION_RESPONSE)
-                .where(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.eq(surveyInstanceId))
+                .where(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.in(instanceIdSelector))
                 .fetch(TO_DOMAIN_MAPPER);
 
         return responses
                 .stream()
-                .map(r -> ImmutableSurveyInstanceQuestionResponse
-                        .copyOf(r)
-                        .withQuestionResponse(ImmutableSurveyQuestionResponse.copyOf(r.questionResponse())
-                                .withListResponse(ofNullable(stringListResponsesByQuestionId.get(r.questionResponse().questionId())))
-                                .withEntityListResponse(ofNullable(entityListResponsesByQuestionId.get(r.questionResponse().questionId())))))
+                .map(r -> {
+                    Tuple2<Long, Long> key = tuple(r.surveyInstanceId(), r.questionResponse().questionId());
+                    return ImmutableSurveyInstanceQuestionResponse
+                            .copyOf(r)
+                            .withQuestionResponse(ImmutableSurveyQuestionResponse.copyOf(r.questionResponse())
+                                    .withListResponse(ofNullable(stringListResponsesByQuestion.get(key)))
+                                    .withEntityListResponse(ofNullable(entityListResponsesByQuestion.get(key))));
+                })
                 .collect(toList());
     }
 
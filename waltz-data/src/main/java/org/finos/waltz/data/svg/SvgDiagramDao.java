@@ -28,6 +28,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.common.StringUtilities.mkSafe;
@@ -96,7 +97,10 @@ public class SvgDiagramDao {
     }
 
 
-    public Boolean save(SvgDiagram diagram) {
+    /**
+     * @return the id of the saved diagram, or empty if nothing was stored
+     */
+    public Optional<Long> save(SvgDiagram diagram) {
 
         SvgDiagramRecord record = dsl.newRecord(SVG_DIAGRAM);
         record.setName(diagram.name());
@@ -115,6 +119,8 @@ public class SvgDiagramDao {
         });
 
         int store = record.store();
-        return store == 1;
+        return store == 1
+                ? Optional.of(record.getId())
+                : Optional.empty();
     }
 }
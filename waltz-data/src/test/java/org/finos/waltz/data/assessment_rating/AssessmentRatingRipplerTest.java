@@ -1,11 +1,16 @@
 package org.finos.waltz.data.assessment_rating;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.model.assessment_definition.AssessmentRipplerJobConfiguration;
 import org.finos.waltz.model.assessment_definition.AssessmentRipplerJobStep;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collection;
+import java.util.List;
+
 import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.ListUtilities.asList;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AssessmentRatingRipplerTest {
@@ -24,4 +29,25 @@ class AssessmentRatingRipplerTest {
         assertEquals("TO_DEF", step.toDef());
     }
 
+
+    @Test
+    public void configsSharingDefinitionsAreRippledInTheSameLane() throws JsonProcessingException {
+        AssessmentRipplerJobConfiguration a = AssessmentRatingRippler.parseConfig("a", "[ { \"from\" : \"A\", \"to\" : \"B\" } ]");
+        AssessmentRipplerJobConfiguration b = AssessmentRatingRippler.parseConfig("b", "[ { \"from\" : \"X\", \"to\" : \"Y\" } ]");
+        AssessmentRipplerJobConfiguration c = AssessmentRatingRippler.parseConfig("c", "[ { \"from\" : \"B\", \"to\" : \"C\" } ]");
+
+        Collection<List<AssessmentRipplerJobStep>> lanes = AssessmentRatingRippler.mkLanes(asList(c, b, a));
+
+        assertEquals(2, lanes.size());
+
+        List<String> chained = lanes
+                .stream()
+                .filter(lane -> lane.size() == 2)
+                .findFirst()
+                .map(lane -> ListUtilities.map(lane, AssessmentRipplerJobStep::fromDef))
+                .orElseThrow(() -> new AssertionError("expected a lane with two steps"));
+
+        assertEquals(asList("A", "B"), chained, "steps retain config (name) order within a lane");
+    }
+
 }
\ No newline at end of file
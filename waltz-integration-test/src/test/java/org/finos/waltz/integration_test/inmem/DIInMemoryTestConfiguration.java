@@ -6,6 +6,8 @@ import liquibase.integration.spring.SpringLiquibase;
 import org.finos.waltz.common.ExcludeFromIntegrationTesting;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.TransactionCallbacks;
+import org.finos.waltz.data.replica.ReadReplicaRouter;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.RenderNameCase;
@@ -51,6 +53,13 @@ public class DIInMemoryTestConfiguration {
     }
 
 
+    @Bean
+    @Autowired
+    public ReadReplicaRouter readReplicaRouter(DataSource dataSource) {
+        return ReadReplicaRouter.primaryOnly(dataSource);
+    }
+
+
     @Bean
     @Autowired
     public DSLContext dsl(DataSource dataSource) {
@@ -59,12 +68,14 @@ public class DIInMemoryTestConfiguration {
                 .withDebugInfoOnStackTrace(true)
                 .withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_QUOTED)
                 .withRenderNameCase(RenderNameCase.UPPER)
+                .withInListPadding(true)
                 .withExecuteLogging(true);
 
         org.jooq.Configuration configuration = new DefaultConfiguration()
                 .set(dataSource)
                 .set(dslSettings)
-                .set(SQLDialect.H2);
+                .set(SQLDialect.H2)
+                .set(TransactionCallbacks.LISTENER);
 
         return DSL.using(configuration);
     }
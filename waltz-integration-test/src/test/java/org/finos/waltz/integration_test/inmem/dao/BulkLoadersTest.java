@@ -0,0 +1,131 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.bulk_load.BatchInsertBulkLoader;
+import org.finos.waltz.data.bulk_load.BulkLoaders;
+import org.finos.waltz.data.bulk_load.MultiRowInsertBulkLoader;
+import org.finos.waltz.data.bulk_load.PostgresCopyBulkLoader;
+import org.finos.waltz.data.bulk_load.SqlServerBulkCopyLoader;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.schema.tables.records.EntityHierarchyRecord;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkLoadersTest extends BaseInMemoryIntegrationTest {
+
+    private static final String KIND = "BULK_LOAD_TEST";
+
+
+    @BeforeEach
+    public void clear() {
+        getDsl()
+                .deleteFrom(ENTITY_HIERARCHY)
+                .where(ENTITY_HIERARCHY.KIND.eq(KIND))
+                .execute();
+    }
+
+
+    @Test
+    public void loaderIsSelectedByDialect() {
+        assertTrue(BulkLoaders.forDialect(SQLDialect.H2) instanceof BatchInsertBulkLoader);
+        assertTrue(BulkLoaders.forDialect(SQLDialect.POSTGRES) instanceof PostgresCopyBulkLoader);
+        assertTrue(BulkLoaders.forDialect(SQLDialect.MARIADB) instanceof MultiRowInsertBulkLoader);
+    }
+
+
+    @Test
+    public void emptyCollectionsLoadNothing() {
+        assertEquals(0, BulkLoaders.bulkLoad(getDsl(), Collections.<EntityHierarchyRecord>emptyList()));
+    }
+
+
+    @Test
+    public void recordsCanBeBulkLoadedOnH2() {
+        List<EntityHierarchyRecord> records = mkRecords(2_500);
+
+        assertEquals(2_500, BulkLoaders.bulkLoad(getDsl(), records));
+        assertEquals(2_500, countLoaded());
+    }
+
+
+    @Test
+    public void recordsWithDifferingColumnsAreAllLoaded() {
+        List<EntityHierarchyRecord> records = mkRecords(10);
+        // roots do not set an ancestor, so have a different column set to the other records
+        records.get(0).changed(ENTITY_HIERARCHY.ANCESTOR_ID, false);
+        records.get(5).changed(ENTITY_HIERARCHY.ANCESTOR_ID, false);
+
+        assertEquals(10, new MultiRowInsertBulkLoader().load(getDsl(), records));
+        assertEquals(10, countLoaded());
+        assertEquals(
+                2,
+                getDsl().fetchCount(
+                        ENTITY_HIERARCHY,
+                        ENTITY_HIERARCHY.KIND.eq(KIND).and(ENTITY_HIERARCHY.ANCESTOR_ID.isNull())));
+    }
+
+
+    @Test
+    public void driverLoadersFallBackToBatchInsertsWhenTheDriverIsNotAvailable() {
+        DSLContext dsl = getDsl();
+
+        assertEquals(20, new PostgresCopyBulkLoader().load(dsl, mkRecords(20)));
+        assertEquals(20, new SqlServerBulkCopyLoader().load(dsl, mkRecords(20, 100)));
+        assertEquals(40, countLoaded());
+    }
+
+
+    // -- helpers ---
+
+    private List<EntityHierarchyRecord> mkRecords(int count) {
+        return mkRecords(count, 0);
+    }
+
+
+    private List<EntityHierarchyRecord> mkRecords(int count, long offset) {
+        List<EntityHierarchyRecord> records = new ArrayList<>();
+        for (long i = offset; i < offset + count; i++) {
+            EntityHierarchyRecord record = new EntityHierarchyRecord();
+            record.setKind(KIND);
+            record.setId(i);
+            record.setAncestorId(i);
+            record.setLevel(1);
+            record.setDescendantLevel(1);
+            records.add(record);
+        }
+        return records;
+    }
+
+
+    private int countLoaded() {
+        return getDsl().fetchCount(ENTITY_HIERARCHY, ENTITY_HIERARCHY.KIND.eq(KIND));
+    }
+
+}
@@ -24,21 +24,31 @@ import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.measurable_rating.ImmutableSaveMeasurableRatingCommand;
 import org.finos.waltz.model.measurable_rating.MeasurableRating;
+import org.finos.waltz.schema.tables.records.AllocationRecord;
+import org.finos.waltz.schema.tables.records.AllocationSchemeRecord;
 import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.MeasurableHelper;
 import org.jooq.DSLContext;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ALLOCATION;
+import static org.finos.waltz.schema.Tables.ALLOCATION_SCHEME;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING_PLANNED_DECOMMISSION;
 import static org.finos.waltz.schema.tables.MeasurableRating.MEASURABLE_RATING;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class MeasurableRatingDaoTest extends BaseInMemoryIntegrationTest {
@@ -189,6 +199,139 @@ public class MeasurableRatingDaoTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void ratingsCanBeMigratedInBulk() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("mc"));
+        long src1Id = measurableHelper.createMeasurable(mkName("src1"), categoryId);
+        long src2Id = measurableHelper.createMeasurable(mkName("src2"), categoryId);
+        long trg1Id = measurableHelper.createMeasurable(mkName("trg1"), categoryId);
+        long trg2Id = measurableHelper.createMeasurable(mkName("trg2"), categoryId);
+
+        EntityReference app1Ref = mkNewAppRef();
+        long app1RatingId = measurableHelper.createRating(app1Ref, src1Id);
+        measurableHelper.createDecomm(app1RatingId);
+
+        EntityReference app2Ref = mkNewAppRef();
+        long app2SrcRatingId = measurableHelper.createRating(app2Ref, src1Id);
+        long app2TrgRatingId = measurableHelper.createRating(app2Ref, trg1Id);
+        long app2DecommId = measurableHelper.createDecomm(app2SrcRatingId);
+
+        EntityReference app3Ref = mkNewAppRef();
+        measurableHelper.createRating(app3Ref, src2Id);
+
+        int migrated = dao.migrateRatings(asSet(tuple(src1Id, trg1Id), tuple(src2Id, trg2Id)), LAST_UPDATE_USER);
+
+        assertEquals("All source ratings are migrated or merged", 3, migrated);
+        assertTrue("Nothing remains on the sources", findMeasurableIds(app1Ref, app2Ref, app3Ref).stream().noneMatch(id -> id == src1Id || id == src2Id));
+        assertEquals("Rating moves to the target, keeping its id", asSet(app1RatingId), findRatingIds(app1Ref, trg1Id));
+        assertEquals("Decomm moves with the rating", 1, countDecomms(app1RatingId));
+        assertEquals("Existing target rating is kept", asSet(app2TrgRatingId), findRatingIds(app2Ref, trg1Id));
+        assertEquals(
+                "Source decomm moves to the existing target rating",
+                Long.valueOf(app2TrgRatingId),
+                dsl.select(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID)
+                        .from(MEASURABLE_RATING_PLANNED_DECOMMISSION)
+                        .where(MEASURABLE_RATING_PLANNED_DECOMMISSION.ID.eq(app2DecommId))
+                        .fetchOne(MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID));
+        assertEquals("Second pair is migrated too", 1, findRatingIds(app3Ref, trg2Id).size());
+    }
+
+
+    @Test
+    public void bulkMigrationMergesRatingsFromSeveralSourcesOntoTheSameTarget() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("mc"));
+        long src1Id = measurableHelper.createMeasurable(mkName("src1"), categoryId);
+        long src2Id = measurableHelper.createMeasurable(mkName("src2"), categoryId);
+        long trgId = measurableHelper.createMeasurable(mkName("trg"), categoryId);
+        long schemeId = mkAllocationScheme(categoryId);
+
+        EntityReference appRef = mkNewAppRef();
+        long src1RatingId = measurableHelper.createRating(appRef, src1Id);
+        long src2RatingId = measurableHelper.createRating(appRef, src2Id);
+        mkAllocation(schemeId, src1RatingId, 30);
+        mkAllocation(schemeId, src2RatingId, 20);
+
+        dao.migrateRatings(asSet(tuple(src1Id, trgId), tuple(src2Id, trgId)), LAST_UPDATE_USER);
+
+        assertEquals("Lowest source rating is moved, the other is merged into it", asSet(src1RatingId), findRatingIds(appRef, trgId));
+        assertEquals(
+                "Allocations in the same scheme are aggregated",
+                Integer.valueOf(50),
+                dsl.select(ALLOCATION.ALLOCATION_PERCENTAGE)
+                        .from(ALLOCATION)
+                        .where(ALLOCATION.MEASURABLE_RATING_ID.eq(src1RatingId))
+                        .and(ALLOCATION.ALLOCATION_SCHEME_ID.eq(schemeId))
+                        .fetchOne(ALLOCATION.ALLOCATION_PERCENTAGE));
+    }
+
+
+    @Test
+    public void bulkMigrationRejectsChainedOrAmbiguousPairs() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("mc"));
+        long m1Id = measurableHelper.createMeasurable(mkName("m1"), categoryId);
+        long m2Id = measurableHelper.createMeasurable(mkName("m2"), categoryId);
+        long m3Id = measurableHelper.createMeasurable(mkName("m3"), categoryId);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> dao.migrateRatings(asSet(tuple(m1Id, m2Id), tuple(m2Id, m3Id)), LAST_UPDATE_USER));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> dao.migrateRatings(asSet(tuple(m1Id, m2Id), tuple(m1Id, m3Id)), LAST_UPDATE_USER));
+    }
+
+
+    private Set<Long> findRatingIds(EntityReference ref, long measurableId) {
+        return dsl
+                .select(MEASURABLE_RATING.ID)
+                .from(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.ENTITY_ID.eq(ref.id()))
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(ref.kind().name()))
+                .and(MEASURABLE_RATING.MEASURABLE_ID.eq(measurableId))
+                .fetchSet(MEASURABLE_RATING.ID);
+    }
+
+
+    private Set<Long> findMeasurableIds(EntityReference... refs) {
+        Set<Long> measurableIds = new HashSet<>();
+        for (EntityReference ref : refs) {
+            dao.findForEntity(ref).forEach(r -> measurableIds.add(r.measurableId()));
+        }
+        return measurableIds;
+    }
+
+
+    private int countDecomms(long ratingId) {
+        return dsl.fetchCount(
+                MEASURABLE_RATING_PLANNED_DECOMMISSION,
+                MEASURABLE_RATING_PLANNED_DECOMMISSION.MEASURABLE_RATING_ID.eq(ratingId));
+    }
+
+
+    private long mkAllocationScheme(long categoryId) {
+        AllocationSchemeRecord record = dsl.newRecord(ALLOCATION_SCHEME);
+        record.setName(mkName("scheme"));
+        record.setExternalId(mkName("scheme"));
+        record.setDescription("test");
+        record.setMeasurableCategoryId(categoryId);
+        record.store();
+        return record.getId();
+    }
+
+
+    private void mkAllocation(long schemeId, long ratingId, int percentage) {
+        AllocationRecord record = dsl.newRecord(ALLOCATION);
+        record.setAllocationSchemeId(schemeId);
+        record.setMeasurableRatingId(ratingId);
+        record.setAllocationPercentage(percentage);
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy(LAST_UPDATE_USER);
+        record.setProvenance(PROVENANCE);
+        record.store();
+    }
+
+
     private void mkRatings(EntityReference appRef, long... measurableIds) {
         for (long measurableId : measurableIds) {
             dao.save(ImmutableSaveMeasurableRatingCommand.builder()
@@ -0,0 +1,127 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.data;
+
+import org.finos.waltz.data.cost.AllocatedCostCalculator;
+import org.finos.waltz.data.cost.CostUtils;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AllocationDerivation;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableMeasurableCostEntry;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.MeasurableCostEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AllocatedCostCalculatorTest {
+
+    @Test
+    public void singleRatingTakesEntireCost() {
+        AllocatedCostCalculator calculator = new AllocatedCostCalculator();
+        calculator.add(1L, 10L, null, new BigDecimal("123.45"));
+
+        BigDecimal[] result = calculator.calculate();
+
+        assertEquals(new BigDecimal("123.45"), result[0]);
+    }
+
+
+    @Test
+    public void costIsSharedEquallyWhenNoExplicitAllocations() {
+        AllocatedCostCalculator calculator = new AllocatedCostCalculator();
+        calculator.add(1L, 10L, null, new BigDecimal("100.00"));
+        calculator.add(2L, 10L, null, new BigDecimal("100.00"));
+        calculator.add(3L, 10L, null, new BigDecimal("100.00"));
+
+        BigDecimal[] result = calculator.calculate();
+
+        for (BigDecimal r : result) {
+            assertEquals(new BigDecimal("33.33"), r);
+        }
+    }
+
+
+    @Test
+    public void remainderIsSharedAcrossDerivedRatings() {
+        AllocatedCostCalculator calculator = new AllocatedCostCalculator();
+        calculator.add(1L, 10L, 50, new BigDecimal("200.00"));
+        calculator.add(2L, 10L, null, new BigDecimal("200.00"));
+        calculator.add(3L, 10L, null, new BigDecimal("200.00"));
+        calculator.add(4L, 20L, 40, new BigDecimal("10.00"));
+
+        BigDecimal[] result = calculator.calculate();
+
+        assertEquals(0, new BigDecimal("100").compareTo(result[0]));
+        assertEquals(0, new BigDecimal("50").compareTo(result[1]));
+        assertEquals(0, new BigDecimal("50").compareTo(result[2]));
+        assertEquals(0, new BigDecimal("4").compareTo(result[3]));
+    }
+
+
+    @Test
+    public void matchesCostUtils() {
+        Random rnd = new Random(42);
+        AllocatedCostCalculator calculator = new AllocatedCostCalculator();
+        List<MeasurableCostEntry> entries = new ArrayList<>();
+
+        long ratingId = 0;
+        for (long appId = 0; appId < 500; appId++) {
+            BigDecimal cost = BigDecimal.valueOf(rnd.nextInt(10_000_000), 2);
+            int ratingCount = 1 + rnd.nextInt(6);
+            for (int i = 0; i < ratingCount; i++) {
+                Integer pct = rnd.nextBoolean()
+                        ? null
+                        : rnd.nextInt(100 / ratingCount + 1);
+                calculator.add(ratingId, appId, pct, cost);
+                entries.add(ImmutableMeasurableCostEntry
+                        .builder()
+                        .measurableId(i)
+                        .measurableRatingId(ratingId)
+                        .appId(appId)
+                        .allocationPercentage(pct)
+                        .allocationDerivation(pct == null
+                                ? AllocationDerivation.DERIVED
+                                : AllocationDerivation.EXPLICIT)
+                        .overallCost(cost)
+                        .build());
+                ratingId++;
+            }
+        }
+
+        Map<Long, MeasurableCostEntry> expected = indexBy(
+                CostUtils.calculateAllocatedCosts(entries, groupBy(entries, MeasurableCostEntry::appId)),
+                MeasurableCostEntry::measurableRatingId);
+
+        BigDecimal[] result = calculator.calculate();
+
+        assertEquals(expected.size(), calculator.size());
+        for (int i = 0; i < calculator.size(); i++) {
+            assertEquals(
+                    expected.get(calculator.ratingId(i)).allocatedCost(),
+                    result[i],
+                    "rating " + calculator.ratingId(i));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.data;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+import org.jooq.conf.SettingsTools;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.data.JooqUtilities.MAX_BIND_VALUES;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
+import static org.finos.waltz.data.JooqUtilities.inIds;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JooqUtilities_bindOrInlineTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private AppHelper appHelper;
+
+
+    @Test
+    void smallConditionsAreLeftAsBindParameters() {
+        Condition condition = APPLICATION.ID.in(1L, 2L, 3L);
+        assertSame(condition, bindOrInline(dsl, condition));
+    }
+
+
+    @Test
+    void conditionsExceedingTheBindLimitAreInlined() {
+        EntityReference app = appHelper.createNewApp(mkName("bindOrInline"), ouIds.root);
+
+        Condition condition = APPLICATION.ID.in(mkIds(app.id(), MAX_BIND_VALUES + 1));
+        Condition prepared = bindOrInline(dsl, condition);
+
+        assertNotSame(condition, prepared);
+        assertTrue(dsl.extractBindValues(prepared).isEmpty(), "inlined condition should not carry bind values");
+        assertEquals(
+                asSet(app.id()),
+                fetchAppIds(prepared),
+                "inlined condition should behave like the original");
+    }
+
+
+    @Test
+    void resultQueriesRetainBindParameters() {
+        EntityReference app1 = appHelper.createNewApp(mkName("bindOrInline"), ouIds.root);
+        EntityReference app2 = appHelper.createNewApp(mkName("bindOrInline"), ouIds.root);
+
+        ResultQuery<Record> qry = bindOrInline(
+                dsl,
+                DSL.select(APPLICATION.ID)
+                        .from(APPLICATION)
+                        .where(APPLICATION.ID.in(app1.id(), app2.id())));
+
+        assertEquals(2, dsl.extractBindValues(qry).size());
+        assertEquals(
+                asSet(app1.id(), app2.id()),
+                qry.fetchSet(0, Long.class));
+    }
+
+
+    @Test
+    void inIdsMatchesTheGivenIds() {
+        EntityReference app1 = appHelper.createNewApp(mkName("inIds"), ouIds.root);
+        EntityReference app2 = appHelper.createNewApp(mkName("inIds"), ouIds.root);
+        appHelper.createNewApp(mkName("inIds"), ouIds.root);
+
+        assertEquals(
+                asSet(app1.id(), app2.id()),
+                fetchAppIds(inIds(dsl, APPLICATION.ID, asSet(app1.id(), app2.id()))));
+    }
+
+
+    @Test
+    void inIdsArePaddedToAPowerOfTwo() {
+        DSLContext unpadded = mkDslWithoutInListPadding();
+        assertEquals(4, unpadded.extractBindValues(inIds(unpadded, APPLICATION.ID, asSet(1L, 2L, 3L))).size());
+    }
+
+
+    @Test
+    void inIdsNearTheBindLimitArePaddedNoFurtherThanTheLimit() {
+        EntityReference app = appHelper.createNewApp(mkName("inIds"), ouIds.root);
+        DSLContext unpadded = mkDslWithoutInListPadding();
+
+        Condition condition = inIds(unpadded, APPLICATION.ID, mkIds(app.id(), MAX_BIND_VALUES - 100));
+
+        assertEquals(MAX_BIND_VALUES, unpadded.extractBindValues(condition).size());
+        assertEquals(asSet(app.id()), fetchAppIds(condition));
+    }
+
+
+    @Test
+    void inIdsJustOverTheBindLimitAreInlined() {
+        EntityReference app = appHelper.createNewApp(mkName("inIds"), ouIds.root);
+        DSLContext unpadded = mkDslWithoutInListPadding();
+
+        // jOOQ's padding would take 2050 values to 4096 binds, well over the SQL Server limit of 2100
+        Condition condition = inIds(unpadded, APPLICATION.ID, mkIds(app.id(), 2050));
+
+        assertTrue(unpadded.extractBindValues(condition).isEmpty(), "inlined condition should not carry bind values");
+        assertEquals(asSet(app.id()), fetchAppIds(condition));
+    }
+
+
+    // -- HELPERS ---
+
+    /**
+     * Mirrors the SQL Server configuration, where jOOQ's in-list padding is disabled.
+     */
+    private DSLContext mkDslWithoutInListPadding() {
+        return DSL.using(dsl
+                .configuration()
+                .derive(SettingsTools
+                        .clone(dsl.settings())
+                        .withInListPadding(false)));
+    }
+
+
+    private Set<Long> fetchAppIds(Condition condition) {
+        return dsl
+                .select(APPLICATION.ID)
+                .from(APPLICATION)
+                .where(condition)
+                .fetchSet(APPLICATION.ID);
+    }
+
+
+    private static List<Long> mkIds(long first, int count) {
+        return LongStream
+                .range(first, first + count)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+}
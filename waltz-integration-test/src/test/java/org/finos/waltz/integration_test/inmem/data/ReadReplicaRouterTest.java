@@ -0,0 +1,209 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.data;
+
+import org.finos.waltz.data.replica.ReadReplicaRouter;
+import org.finos.waltz.common.ReplicaSession;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+
+import static org.finos.waltz.schema.Tables.REPLICA_HEARTBEAT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadReplicaRouterTest {
+
+    private static final String PRIMARY = "REPLICA_TEST_PRIMARY";
+    private static final String REPLICA = "REPLICA_TEST_REPLICA";
+
+    private DSLContext primaryDsl;
+    private DSLContext replicaDsl;
+    private ReadReplicaRouter router;
+    private DSLContext routedDsl;
+
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource primary = mkDataSource(PRIMARY);
+        JdbcDataSource replica = mkDataSource(REPLICA);
+
+        primaryDsl = mkHeartbeatDsl(primary);
+        replicaDsl = mkHeartbeatDsl(replica);
+
+        router = new ReadReplicaRouter(primary, replica, SQLDialect.H2, Duration.ofSeconds(30));
+        routedDsl = DSL.using(new DefaultConfiguration()
+                .set(router.dataSource())
+                .set(SQLDialect.H2)
+                .set(router.writeListener()));
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        ReplicaSession.clear();
+        primaryDsl.dropTableIfExists(REPLICA_HEARTBEAT).execute();
+        replicaDsl.dropTableIfExists(REPLICA_HEARTBEAT).execute();
+    }
+
+
+    @Test
+    public void primaryOnlyRouterAlwaysReadsFromPrimary() {
+        ReadReplicaRouter primaryOnly = ReadReplicaRouter.primaryOnly(mkDataSource(PRIMARY));
+        primaryOnly.checkReplica();
+
+        assertFalse(primaryOnly.isReplicaConfigured());
+        assertFalse(primaryOnly.isReplicaUsable());
+        assertEquals(PRIMARY, primaryOnly.read(() -> currentDatabase(DSL.using(primaryOnly.dataSource(), SQLDialect.H2))));
+    }
+
+
+    @Test
+    public void replicaIsNotUsedUntilAHeartbeatHasReplicated() {
+        router.checkReplica();
+
+        assertFalse(router.isReplicaHealthy());
+        assertNull(router.getLastLagMillis());
+        assertEquals(PRIMARY, router.read(() -> currentDatabase(routedDsl)));
+        assertEquals(1, primaryDsl.fetchCount(REPLICA_HEARTBEAT), "check should write a heartbeat to the primary");
+    }
+
+
+    @Test
+    public void lagIsMeasuredBetweenThePrimaryAndReplicaBeats() {
+        long now = System.currentTimeMillis();
+        beat(primaryDsl, now - 10_000);
+        beat(replicaDsl, now - 12_000);
+        router.checkReplica();
+
+        assertEquals(2_000, router.getLastLagMillis(), "lag should not include the time since the last beat");
+        assertTrue(router.isReplicaHealthy());
+    }
+
+
+    @Test
+    public void markedReadsUseReplicaOnceHealthy() {
+        beatOnReplica(System.currentTimeMillis());
+        router.checkReplica();
+
+        assertTrue(router.isReplicaHealthy());
+        assertEquals(REPLICA, router.read(() -> currentDatabase(routedDsl)));
+        assertEquals(PRIMARY, currentDatabase(routedDsl), "unmarked reads should stay on the primary");
+    }
+
+
+    @Test
+    public void usersWhoHaveWrittenReadTheirOwnWritesFromPrimary() {
+        beatOnReplica(System.currentTimeMillis());
+        router.checkReplica();
+
+        ReplicaSession.bind("writer");
+        routedDsl
+                .update(REPLICA_HEARTBEAT)
+                .set(REPLICA_HEARTBEAT.BEAT_AT, new Timestamp(System.currentTimeMillis()))
+                .execute();
+
+        assertFalse(router.isReplicaUsable());
+        assertEquals(PRIMARY, router.read(() -> currentDatabase(routedDsl)));
+
+        ReplicaSession.bind("reader");
+        assertTrue(router.isReplicaUsable());
+        assertEquals(REPLICA, router.read(() -> currentDatabase(routedDsl)));
+    }
+
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary() {
+        beatOnReplica(System.currentTimeMillis() - Duration.ofMinutes(5).toMillis());
+        router.checkReplica();
+
+        assertFalse(router.isReplicaHealthy());
+        assertTrue(router.getLastLagMillis() >= Duration.ofMinutes(5).toMillis());
+        assertEquals(PRIMARY, router.read(() -> currentDatabase(routedDsl)));
+    }
+
+
+    @Test
+    public void unavailableReplicaFallsBackToPrimary() {
+        beatOnReplica(System.currentTimeMillis());
+        router.checkReplica();
+        assertTrue(router.isReplicaHealthy());
+
+        replicaDsl.dropTable(REPLICA_HEARTBEAT).execute();
+        router.checkReplica();
+
+        assertFalse(router.isReplicaHealthy());
+        assertEquals(PRIMARY, router.read(() -> currentDatabase(routedDsl)));
+        replicaDsl.createTable(REPLICA_HEARTBEAT).columns(REPLICA_HEARTBEAT.fields()).execute();
+    }
+
+
+    // -- HELPERS ---
+
+    /**
+     * Beats the primary now and the replica at the given time, as if the
+     * replica had received the primary's beat from that time
+     */
+    private void beatOnReplica(long millis) {
+        beat(primaryDsl, System.currentTimeMillis());
+        beat(replicaDsl, millis);
+    }
+
+
+    private static void beat(DSLContext dsl, long millis) {
+        dsl
+                .insertInto(REPLICA_HEARTBEAT)
+                .set(REPLICA_HEARTBEAT.ID, 1)
+                .set(REPLICA_HEARTBEAT.BEAT_AT, new Timestamp(millis))
+                .execute();
+    }
+
+
+    private static String currentDatabase(DSLContext dsl) {
+        return dsl
+                .select(DSL.field("DATABASE()", String.class))
+                .fetchOne()
+                .value1();
+    }
+
+
+    private static JdbcDataSource mkDataSource(String name) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return ds;
+    }
+
+
+    private static DSLContext mkHeartbeatDsl(JdbcDataSource ds) {
+        DSLContext dsl = DSL.using(ds, SQLDialect.H2);
+        dsl.dropTableIfExists(REPLICA_HEARTBEAT).execute();
+        dsl.createTable(REPLICA_HEARTBEAT).columns(REPLICA_HEARTBEAT.fields()).execute();
+        return dsl;
+    }
+}
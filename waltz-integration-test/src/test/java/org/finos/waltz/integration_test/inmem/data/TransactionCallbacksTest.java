@@ -0,0 +1,77 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.data;
+
+import org.finos.waltz.data.TransactionCallbacks;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionCallbacksTest extends BaseInMemoryIntegrationTest {
+
+    @Test
+    public void callbacksRunImmediatelyOutsideOfATransaction() {
+        List<String> calls = new ArrayList<>();
+        TransactionCallbacks.afterCommit(() -> calls.add("now"));
+        assertEquals(asList("now"), calls);
+    }
+
+
+    @Test
+    public void callbacksRunWhenTheOutermostTransactionCommits() {
+        List<String> calls = new ArrayList<>();
+
+        getDsl().transaction(outer -> {
+            TransactionCallbacks.afterCommit(() -> calls.add("outer"));
+
+            DSL.using(outer).transaction(inner -> TransactionCallbacks.afterCommit(() -> calls.add("inner")));
+
+            assertTrue(calls.isEmpty(), "nested commit should not run callbacks");
+        });
+
+        assertEquals(asList("outer", "inner"), calls);
+    }
+
+
+    @Test
+    public void callbacksAreDiscardedOnRollback() {
+        List<String> calls = new ArrayList<>();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> getDsl().transaction(ctx -> {
+                    TransactionCallbacks.afterCommit(() -> calls.add("discarded"));
+                    throw new IllegalStateException("rollback");
+                }));
+
+        assertTrue(calls.isEmpty());
+
+        TransactionCallbacks.afterCommit(() -> calls.add("now"));
+        assertEquals(asList("now"), calls, "rollback should leave no transaction state behind");
+    }
+
+}
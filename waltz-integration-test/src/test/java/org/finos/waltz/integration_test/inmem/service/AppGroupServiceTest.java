@@ -21,10 +21,15 @@ package org.finos.waltz.integration_test.inmem.service;
 import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.app_group.*;
 import org.finos.waltz.service.app_group.AppGroupService;
 import org.finos.waltz.service.app_group.AppGroupSubscription;
+import org.finos.waltz.test_common.helpers.AppHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -32,14 +37,25 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AppGroupServiceTest extends BaseInMemoryIntegrationTest {
 
+    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+
     @Autowired
     private AppGroupService appGroupSvc;
 
+    @Autowired
+    private AppGroupResolvedMemberDao appGroupResolvedMemberDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
 
     @Test
     public void getGroupDetailByIdReturnsNullIfNotFound() {
@@ -166,4 +182,47 @@ public class AppGroupServiceTest extends BaseInMemoryIntegrationTest {
         assertEquals(3, subs.size(), "Expected 3 subscriptions for user");
         assertEquals(asSet(gid1, gid2, gid3), SetUtilities.map(subs, d -> d.appGroup().id().get()));
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void resolvedMembersFollowDirectAndOrgUnitEntries() throws InsufficientPrivelegeException {
+        String userId = mkUserId("agtest");
+        Long gid = appGroupSvc.createNewGroup(userId);
+
+        EntityReference a1App = appHelper.createNewApp(mkName("a1App"), ouIds.a1);
+        EntityReference bApp = appHelper.createNewApp(mkName("bApp"), ouIds.b);
+        appHelper.createNewApp(mkName("rootApp"), ouIds.root);
+
+        appGroupSvc.addOrganisationalUnit(userId, gid, ouIds.a);
+        assertEquals(asSet(a1App.id()), findResolvedAppIds(gid), "org unit entries include apps in child org units");
+
+        appGroupSvc.addApplication(userId, gid, bApp.id());
+        assertEquals(asSet(a1App.id(), bApp.id()), findResolvedAppIds(gid), "direct entries are included");
+
+        appGroupSvc.removeApplication(userId, gid, bApp.id());
+        appGroupSvc.removeOrganisationalUnit(userId, gid, ouIds.a);
+        assertTrue(findResolvedAppIds(gid).isEmpty(), "removed entries are no longer members");
+    }
+
+
+    @Test
+    public void resolvedMembersPickUpAppsRegisteredInGroupOrgUnits() throws InsufficientPrivelegeException {
+        String userId = mkUserId("agtest");
+        Long gid = appGroupSvc.createNewGroup(userId);
+        appGroupSvc.addOrganisationalUnit(userId, gid, ouIds.a);
+
+        EntityReference newApp = appHelper.createNewApp(mkName("newApp"), ouIds.a1);
+
+        assertEquals(asSet(newApp.id()), findResolvedAppIds(gid), "newly registered apps are added to groups covering their org unit");
+    }
+
+
+    private Set<Long> findResolvedAppIds(Long groupId) {
+        Set<Long> viaSelector = getDsl()
+                .fetch(appIdSelectorFactory.apply(mkOpts(mkRef(EntityKind.APP_GROUP, groupId))))
+                .intoSet(0, Long.class);
+
+        assertEquals(appGroupResolvedMemberDao.findApplicationIdsForGroup(groupId), viaSelector, "selector reads the resolved members");
+        return viaSelector;
+    }
+}
@@ -19,6 +19,8 @@ import org.finos.waltz.test_common.helpers.RatingSchemeHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
@@ -125,6 +127,57 @@ public class AssessmentRipplerTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void rerippleOnlyPicksUpSourceRatingsChangedSinceTheLastRipple() throws JsonProcessingException {
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "ripple_app_a"), ouIds.root);
+        EntityReference appB = appHelper.createNewApp(mkName(stem, "ripple_app_b"), ouIds.root);
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(stem, "ripple_mc"));
+        long measurableA = measurableHelper.createMeasurable(mkName(stem, "ripple_m_a"), categoryId);
+        long measurableB = measurableHelper.createMeasurable(mkName(stem, "ripple_m_b"), categoryId);
+        measurableHelper.createRating(appA, measurableA);
+        measurableHelper.createRating(appB, measurableB);
+
+        long scheme = ratingSchemeHelper.createEmptyRatingScheme(mkName(stem, "incremental_ripple_scheme"));
+        Long rsiId = ratingSchemeHelper.saveRatingItem(scheme, mkName(stem, "ripple_rsi"), 0, "pink", "P");
+        long assmtA = assessmentHelper.createDefinition(scheme, mkName(stem, "ripple assmt A"), null, AssessmentVisibility.SECONDARY, stem, EntityKind.MEASURABLE, mkRef(EntityKind.MEASURABLE_CATEGORY, categoryId));
+        long assmtB = assessmentHelper.createDefinition(scheme, mkName(stem, "ripple assmt B"), null, AssessmentVisibility.SECONDARY, stem, EntityKind.APPLICATION, null);
+        String assmtA_extId = mkName(stem, "ASSMT_A");
+        String assmtB_extId = mkName(stem, "ASSMT_B");
+        assessmentHelper.setDefExtId(assmtA, assmtA_extId);
+        assessmentHelper.setDefExtId(assmtB, assmtB_extId);
+
+        assessmentHelper.createAssessment(assmtA, mkRef(EntityKind.MEASURABLE, measurableA), rsiId);
+
+        AssessmentRipplerJobStep rippleStep = ImmutableAssessmentRipplerJobStep
+                .builder()
+                .fromDef(assmtA_extId)
+                .toDef(assmtB_extId)
+                .build();
+        settingsDao.create(ImmutableSetting
+                .builder()
+                .name("job.RIPPLE_ASSESSMENTS." + mkName(stem, "incrementalRippleConfig"))
+                .value(getJsonMapper().writeValueAsString(asList(rippleStep)))
+                .build());
+
+        assessmentRatingRippler.rippleAssessments();
+        assertNull(fetchAssessmentRatingItemId(appB, assmtB), "Measurable B is not rated yet");
+
+        // rated after the first ripple, so it is above the step's high-water mark
+        assessmentHelper.createAssessment(assmtA, mkRef(EntityKind.MEASURABLE, measurableB), rsiId);
+        getDsl()
+                .update(ar)
+                .set(ar.LAST_UPDATED_AT, Timestamp.valueOf(LocalDateTime.now().plusMinutes(1)))
+                .where(ar.ASSESSMENT_DEFINITION_ID.eq(assmtA))
+                .and(ar.ENTITY_ID.eq(measurableB))
+                .execute();
+
+        assessmentRatingRippler.rippleAssessments();
+
+        assertEquals(rsiId, fetchAssessmentRatingItemId(appA, assmtB), "Earlier ripple is retained");
+        assertEquals(rsiId, fetchAssessmentRatingItemId(appB, assmtB), "Newly rated measurable has rippled to its app");
+    }
+
+
     @Test
     public void canRippleUsingTheSettingsTableDefinitions() {
         // setup app, measurable, and rating
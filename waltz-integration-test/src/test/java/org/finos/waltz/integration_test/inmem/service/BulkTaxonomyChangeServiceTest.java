@@ -12,6 +12,7 @@ import org.finos.waltz.model.bulk_upload.ChangeOperation;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidatedItem;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidationResult;
 import org.finos.waltz.model.bulk_upload.taxonomy.ChangedFieldType;
+import org.finos.waltz.model.bulk_upload.taxonomy.ValidationError;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.measurable.MeasurableService;
@@ -27,12 +28,15 @@ import java.util.Optional;
 import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.Collections.emptySet;
 import static org.finos.waltz.common.CollectionUtilities.all;
 import static org.finos.waltz.common.CollectionUtilities.find;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -291,6 +295,80 @@ public class BulkTaxonomyChangeServiceTest extends BaseInMemoryIntegrationTest {
                 "expected validation failure because externalId is empty");
     }
 
+    @Test
+    public void cyclesAreOnlyReportedAgainstItemsWhichIntroduceThem() {
+        EntityReference category = setupCategory();
+        String user = setupUser();
+
+        taxonomyChangeService.applyBulk(
+                category,
+                taxonomyChangeService.previewBulk(
+                        category,
+                        mkSimpleTsv(),
+                        BulkTaxonomyItemParser.InputFormat.CSV,
+                        BulkUpdateMode.ADD_ONLY),
+                user);
+
+        BulkTaxonomyValidationResult result = taxonomyChangeService.previewBulk(
+                category,
+                "externalId, parentExternalId, name, description, concrete\n" +
+                        "a1, a1.1, A1, Root node, false\n" +
+                        "a1.2, a1, A1_2, Second child, true\n",
+                BulkTaxonomyItemParser.InputFormat.CSV,
+                BulkUpdateMode.ADD_ONLY);
+
+        assertEquals(
+                asSet(ValidationError.CYCLE_DETECTED),
+                maybeFindItem(result, "a1").map(BulkTaxonomyValidatedItem::errors).orElse(null),
+                "moving a1 under its own child introduces a cycle");
+
+        assertEquals(
+                emptySet(),
+                maybeFindItem(result, "a1.2").map(BulkTaxonomyValidatedItem::errors).orElse(null),
+                "a1.2 is unchanged so should not be reported as cyclical");
+    }
+
+
+    @Test
+    public void applyRebuildsHierarchyForMovedSubtrees() {
+        EntityReference category = setupCategory();
+        String user = setupUser();
+
+        taxonomyChangeService.applyBulk(
+                category,
+                taxonomyChangeService.previewBulk(
+                        category,
+                        mkSimpleTsv() + "a1.1.1, a1.1, A1_1_1, Grandchild, true\n",
+                        BulkTaxonomyItemParser.InputFormat.CSV,
+                        BulkUpdateMode.ADD_ONLY),
+                user);
+
+        assertEquals(
+                asSet("a1", "a1.1", "a1.1.1"),
+                findAncestorExtIds("a1.1.1", category));
+
+        BulkTaxonomyValidationResult result = taxonomyChangeService.previewBulk(
+                category,
+                "externalId, parentExternalId, name, description, concrete\n" +
+                        "a1.1, a1.2, A1_1, First child, true\n",
+                BulkTaxonomyItemParser.InputFormat.CSV,
+                BulkUpdateMode.ADD_ONLY);
+
+        assertNoErrors(result);
+        taxonomyChangeService.applyBulk(category, result, user);
+
+        assertEquals(
+                asSet("a1", "a1.2", "a1.1", "a1.1.1"),
+                findAncestorExtIds("a1.1.1", category),
+                "descendants of a moved item should pick up its new ancestors");
+
+        assertEquals(
+                asSet("a1", "a1.2"),
+                findAncestorExtIds("a1.2", category),
+                "items which have not moved should be unaffected");
+    }
+
+
     // --- HELPERS -----
 
     private EntityReference setupCategory() {
@@ -308,6 +386,21 @@ public class BulkTaxonomyChangeServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    private Set<String> findAncestorExtIds(String extId,
+                                           EntityReference category) {
+        org.finos.waltz.schema.tables.Measurable ancestor = MEASURABLE.as("anc");
+        return getDsl()
+                .select(ancestor.EXTERNAL_ID)
+                .from(ENTITY_HIERARCHY)
+                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ID))
+                .innerJoin(ancestor).on(ancestor.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID))
+                .where(ENTITY_HIERARCHY.KIND.eq(EntityKind.MEASURABLE.name()))
+                .and(MEASURABLE.EXTERNAL_ID.eq(extId))
+                .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(category.id()))
+                .fetchSet(ancestor.EXTERNAL_ID);
+    }
+
+
     private void assertOperation(BulkTaxonomyValidationResult result,
                                  String externalId,
                                  ChangeOperation expectedOp) {
@@ -0,0 +1,237 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.data.client_cache_key.CacheInvalidationEventDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationListener;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
+import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityKind.APPLICATION;
+import static org.finos.waltz.model.EntityKind.PERSON;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.CACHE_INVALIDATION_EVENT;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheInvalidationServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private CacheInvalidationEventDao cacheInvalidationEventDao;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ClientCacheKeyService clientCacheKeyService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+
+    @Test
+    public void eventsAreDeliveredLocallyAndToOtherNodes() {
+        String key = mkName("cache_key");
+        CacheInvalidationService otherNode = mkOtherNode();
+
+        List<CacheInvalidationEvent> local = new ArrayList<>();
+        List<CacheInvalidationEvent> remote = new ArrayList<>();
+        cacheInvalidationService.subscribe(key, local::add);
+        otherNode.subscribe(key, remote::add);
+
+        cacheInvalidationService.publish(key, Operation.UPDATE, asList(mkRef(APPLICATION, 1L)));
+
+        assertEquals(1, local.size(), "publishing node should be told immediately");
+        assertTrue(remote.isEmpty(), "other nodes should be told when they poll");
+
+        assertEquals(1, otherNode.poll());
+        assertEquals(Optional.of(mkRef(APPLICATION, 1L)), first(remote).entityReference());
+        assertEquals(Operation.UPDATE, first(remote).operation());
+        assertEquals(0, otherNode.poll(), "events should only be delivered once");
+
+        cacheInvalidationService.poll();
+        assertEquals(1, local.size(), "nodes should not re-apply their own events");
+
+        assertTrue(otherNode.getStats().lastLagMillis().isPresent());
+        assertEquals(1, otherNode.getStats().receivedCount());
+    }
+
+
+    @Test
+    public void entityListenersEvictEntitiesOrEverything() {
+        String key = mkName("cache_key");
+        List<EntityReference> evicted = new ArrayList<>();
+        int[] evictAllCount = {0};
+
+        cacheInvalidationService.subscribe(key, CacheInvalidationListener.forEntities(evicted::add, () -> evictAllCount[0]++));
+
+        cacheInvalidationService.publish(key, Operation.REMOVE, asList(mkRef(PERSON, 2L), mkRef(PERSON, 3L)));
+        assertEquals(asList(mkRef(PERSON, 2L), mkRef(PERSON, 3L)), evicted);
+        assertEquals(0, evictAllCount[0]);
+
+        cacheInvalidationService.publish(key, Operation.UPDATE);
+        assertEquals(1, evictAllCount[0]);
+    }
+
+
+    @Test
+    public void lateCommittingEventsAreNotSkipped() {
+        String key = mkName("cache_key");
+        CacheInvalidationService otherNode = mkOtherNode();
+        List<CacheInvalidationEvent> remote = new ArrayList<>();
+        otherNode.subscribe(key, remote::add);
+        otherNode.poll();
+
+        long hwm = cacheInvalidationEventDao.getHighWaterMark();
+
+        // simulate the event with the lower id committing after the one with the higher id
+        insertEvent(hwm + 2, key, "another-node");
+        assertEquals(1, otherNode.poll());
+        assertEquals(1, otherNode.getStats().pendingGapCount());
+
+        insertEvent(hwm + 1, key, "another-node");
+        assertEquals(1, otherNode.poll());
+        assertEquals(0, otherNode.getStats().pendingGapCount());
+        assertEquals(2, remote.size());
+
+        getDsl().deleteFrom(CACHE_INVALIDATION_EVENT).where(CACHE_INVALIDATION_EVENT.ID.gt(hwm)).execute();
+    }
+
+
+    @Test
+    public void changeLogAndClientCacheKeyWritesArePublished() {
+        CacheInvalidationService otherNode = mkOtherNode();
+        List<CacheInvalidationEvent> entityEvents = new ArrayList<>();
+        List<CacheInvalidationEvent> keyEvents = new ArrayList<>();
+        String key = mkName("client_key");
+        otherNode.subscribe(ChangeLogDao.ENTITY_CACHE_KEY, entityEvents::add);
+        otherNode.subscribe(key, keyEvents::add);
+        otherNode.poll();
+
+        changeLogService.write(ImmutableChangeLog
+                .builder()
+                .parentReference(mkRef(APPLICATION, 10L))
+                .childKind(PERSON)
+                .childId(11L)
+                .message("test")
+                .userId("test")
+                .operation(Operation.ADD)
+                .build());
+
+        clientCacheKeyService.createOrUpdate(key);
+
+        otherNode.poll();
+
+        assertEquals(2, entityEvents.size(), "parent and child should be invalidated");
+        assertEquals(1, keyEvents.size());
+        assertFalse(first(keyEvents).entityReference().isPresent());
+    }
+
+
+    @Test
+    public void eventsAreOnlyPublishedWhenTheChangeCommits() {
+        CacheInvalidationService otherNode = mkOtherNode();
+        List<CacheInvalidationEvent> local = new ArrayList<>();
+        List<CacheInvalidationEvent> remote = new ArrayList<>();
+        String key = mkName("tx_key");
+        cacheInvalidationService.subscribe(key, local::add);
+        otherNode.subscribe(ChangeLogDao.ENTITY_CACHE_KEY, remote::add);
+        otherNode.subscribe(key, remote::add);
+
+        try {
+            getDsl().transaction(ctx -> {
+                changeLogService.write(Optional.of(ctx.dsl()), mkChange(appHelper.createNewApp(mkName("tx_rolled_back"), ouIds.a)));
+                cacheInvalidationService.publish(key, Operation.UPDATE);
+                assertTrue(local.isEmpty(), "local subscribers should not be told before the commit");
+                throw new IllegalStateException("rollback");
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        otherNode.poll();
+        assertTrue(local.isEmpty(), "rolled back changes should not be published");
+        assertTrue(remote.isEmpty(), "rolled back changes should not be published");
+
+        getDsl().transaction(ctx -> {
+            changeLogService.write(Optional.of(ctx.dsl()), mkChange(appHelper.createNewApp(mkName("tx_committed"), ouIds.a)));
+            cacheInvalidationService.publish(key, Operation.UPDATE);
+        });
+
+        otherNode.poll();
+        assertEquals(1, local.size());
+        assertEquals(2, remote.size(), "entity and key events should be published on commit");
+    }
+
+
+    // -- HELPERS ---
+
+    private static ImmutableChangeLog mkChange(EntityReference ref) {
+        return ImmutableChangeLog
+                .builder()
+                .parentReference(ref)
+                .message("test")
+                .userId("test")
+                .operation(Operation.UPDATE)
+                .build();
+    }
+
+
+
+    private CacheInvalidationService mkOtherNode() {
+        // a separate dao is a separate node
+        CacheInvalidationService otherNode = new CacheInvalidationService(new CacheInvalidationEventDao(getDsl()));
+        otherNode.poll();
+        return otherNode;
+    }
+
+
+    private void insertEvent(long id, String key, String nodeId) {
+        getDsl()
+                .insertInto(CACHE_INVALIDATION_EVENT)
+                .set(CACHE_INVALIDATION_EVENT.ID, id)
+                .set(CACHE_INVALIDATION_EVENT.CACHE_KEY, key)
+                .set(CACHE_INVALIDATION_EVENT.OPERATION, Operation.UPDATE.name())
+                .set(CACHE_INVALIDATION_EVENT.NODE_ID, nodeId)
+                .set(CACHE_INVALIDATION_EVENT.PUBLISHED_AT, new Timestamp(System.currentTimeMillis()))
+                .execute();
+    }
+}
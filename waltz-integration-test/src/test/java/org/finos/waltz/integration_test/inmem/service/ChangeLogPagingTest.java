@@ -0,0 +1,272 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.attestation.AttestationRunCreateCommand;
+import org.finos.waltz.model.attestation.ImmutableAttestationRunCreateCommand;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogPage;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.service.attestation.AttestationRunService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.InvolvementHelper;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ATTESTATION_INSTANCE;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeLogPagingTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogDao changeLogDao;
+
+    @Autowired
+    private AttestationRunService attestationRunService;
+
+    @Autowired
+    private InvolvementHelper involvementHelper;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+
+    @Test
+    public void pagingVisitsEachEntryOnceNewestFirst() {
+        String user = mkUserId("paging");
+        EntityReference app = appHelper.createNewApp(mkName("paging"), ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        // two entries share a timestamp so the id tie-break is exercised
+        changeLogService.write(asList(
+                mkChange(app, user, "a", now.minusHours(4)),
+                mkChange(app, user, "b", now.minusHours(3)),
+                mkChange(app, user, "c", now.minusHours(2)),
+                mkChange(app, user, "d", now.minusHours(2)),
+                mkChange(app, user, "e", now.minusHours(1))));
+
+        List<ChangeLog> byReference = readAllPages(cursor -> changeLogService.getPageByReference(app, cursor, Optional.of(2)));
+        List<ChangeLog> byUser = readAllPages(cursor -> changeLogService.getPageByUser(user, cursor, Optional.of(2)));
+
+        assertEquals(5, byReference.size());
+        assertEquals(5, byReference.stream().map(d -> d.id().get()).distinct().count(), "no entry should be repeated");
+        assertEquals("e", byReference.get(0).message());
+        assertEquals("a", byReference.get(4).message());
+        assertEquals(
+                toMessages(byReference),
+                toMessages(changeLogService.findByParentReference(app, Optional.empty(), Optional.empty())),
+                "paging should give the same order as the unpaged read");
+        assertEquals(toMessages(byReference), toMessages(byUser));
+    }
+
+
+    @Test
+    public void personPagesGiveEntriesAboutAndByThePersonOnce() {
+        String user = mkUserId("person");
+        EntityReference person = EntityReference.mkRef(EntityKind.PERSON, personHelper.createPerson(user));
+        EntityReference app = appHelper.createNewApp(mkName("person"), ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        changeLogService.write(asList(
+                mkChange(person, mkUserId("other"), "about", now.minusHours(4)),
+                mkChange(app, user, "by", now.minusHours(3)),
+                mkChange(person, user, "self", now.minusHours(2)),
+                mkChange(app, mkUserId("other"), "unrelated", now.minusHours(1))));
+
+        assertEquals(
+                asList("self", "by", "about"),
+                toMessages(readAllPages(cursor -> changeLogService.getPageByReference(person, cursor, Optional.of(1)))));
+        assertEquals(
+                asList("self", "by", "about"),
+                toMessages(changeLogService.findByPersonReference(person, Optional.empty(), Optional.empty())));
+    }
+
+
+    @Test
+    public void archivedEntriesAreStillRead() {
+        String user = mkUserId("archive");
+        EntityReference app = appHelper.createNewApp(mkName("archive"), ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        changeLogService.write(asList(
+                mkChange(app, user, "old", now.minusMonths(14)),
+                mkChange(app, user, "older", now.minusMonths(15)),
+                mkChange(app, user, "new", now)));
+
+        assertTrue(changeLogDao.archiveOlderThan(now.minusMonths(12), 1) >= 2);
+        assertEquals(
+                1,
+                getDsl().fetchCount(CHANGE_LOG, CHANGE_LOG.PARENT_ID.eq(app.id()).and(CHANGE_LOG.PARENT_KIND.eq(app.kind().name()))),
+                "only the recent entry should remain in the change log");
+
+        assertEquals(
+                asList("new", "old", "older"),
+                toMessages(changeLogService.findByParentReference(app, Optional.empty(), Optional.empty())));
+        assertEquals(
+                asList("new", "old", "older"),
+                toMessages(readAllPages(cursor -> changeLogService.getPageByUser(user, cursor, Optional.of(1)))));
+    }
+
+
+    @Test
+    public void unattestedChangesIncludeArchivedEntries() {
+        String user = mkUserId("archive");
+        EntityReference app = appHelper.createNewApp(mkName("archive"), ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        attest(app, EntityKind.LOGICAL_DATA_FLOW, now.minusMonths(14), user);
+
+        changeLogService.write(asList(
+                mkChange(app, user, "before attestation", now.minusMonths(15)).withChildKind(EntityKind.LOGICAL_DATA_FLOW),
+                mkChange(app, user, "archived", now.minusMonths(13)).withChildKind(EntityKind.LOGICAL_DATA_FLOW),
+                mkChange(app, user, "new", now).withChildKind(EntityKind.LOGICAL_DATA_FLOW),
+                mkChange(app, user, "not attested", now)));
+
+        changeLogDao.archiveOlderThan(now.minusMonths(12), 10);
+
+        assertEquals(
+                asSet("archived", "new"),
+                changeLogService
+                        .findUnattestedChanges(app)
+                        .stream()
+                        .map(ChangeLog::message)
+                        .collect(toSet()));
+    }
+
+
+    @Test
+    public void lastPageHasNoCursor() {
+        EntityReference app = appHelper.createNewApp(mkName("paging"), ouIds.root);
+        changeLogService.write(mkChange(app, mkUserId("paging"), "only", nowUtc()));
+
+        ChangeLogPage page = changeLogService.getPageByReference(app, Optional.empty(), Optional.of(1));
+
+        assertEquals(1, page.entries().size());
+        assertFalse(page.nextCursor().isPresent());
+    }
+
+
+    @Test
+    public void badCursorsAndPageSizesAreRejected() {
+        EntityReference app = appHelper.createNewApp(mkName("paging"), ouIds.root);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> changeLogService.getPageByReference(app, Optional.of("not-a-cursor"), Optional.empty()));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> changeLogService.getPageByReference(app, Optional.empty(), Optional.of(0)));
+    }
+
+
+    // -- HELPERS ---
+
+    private static List<ChangeLog> readAllPages(Function<Optional<String>, ChangeLogPage> pageReader) {
+        List<ChangeLog> result = new ArrayList<>();
+        Optional<String> cursor = Optional.empty();
+        do {
+            ChangeLogPage page = pageReader.apply(cursor);
+            result.addAll(page.entries());
+            cursor = page.nextCursor();
+        } while (cursor.isPresent());
+        return result;
+    }
+
+
+    private void attest(EntityReference ref,
+                        EntityKind attestedKind,
+                        LocalDateTime attestedAt,
+                        String user) {
+        AttestationRunCreateCommand cmd = ImmutableAttestationRunCreateCommand.builder()
+                .dueDate(attestedAt.toLocalDate().plusMonths(1))
+                .targetEntityKind(ref.kind())
+                .attestedEntityKind(attestedKind)
+                .selectionOptions(mkOpts(ref))
+                .addInvolvementKindIds(involvementHelper.mkInvolvementKind(mkName("archive")))
+                .name(mkName("archive"))
+                .description("archive")
+                .build();
+
+        Long runId = attestationRunService.create(user, cmd).id().get();
+
+        getDsl()
+                .insertInto(ATTESTATION_INSTANCE)
+                .set(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID, runId)
+                .set(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND, ref.kind().name())
+                .set(ATTESTATION_INSTANCE.PARENT_ENTITY_ID, ref.id())
+                .set(ATTESTATION_INSTANCE.ATTESTED_ENTITY_KIND, attestedKind.name())
+                .set(ATTESTATION_INSTANCE.ATTESTED_AT, Timestamp.valueOf(attestedAt))
+                .set(ATTESTATION_INSTANCE.ATTESTED_BY, user)
+                .execute();
+    }
+
+
+    private static List<String> toMessages(List<ChangeLog> entries) {
+        return entries
+                .stream()
+                .map(ChangeLog::message)
+                .collect(toList());
+    }
+
+
+    private static ImmutableChangeLog mkChange(EntityReference app,
+                                               String user,
+                                               String message,
+                                               LocalDateTime createdAt) {
+        return ImmutableChangeLog.builder()
+                .parentReference(app)
+                .userId(user)
+                .message(message)
+                .operation(Operation.UPDATE)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogRollupDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.tally.ChangeLogTally;
+import org.finos.waltz.model.tally.DateTally;
+import org.finos.waltz.service.changelog.ChangeLogRollupService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.changelog.ChangeLogSummariesService;
+import org.finos.waltz.service.user_contribution.UserContributionService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_ENTITY_ROLLUP;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_USER_ROLLUP;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeLogRollupServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogRollupService changeLogRollupService;
+
+    @Autowired
+    private ChangeLogRollupDao changeLogRollupDao;
+
+    @Autowired
+    private ChangeLogSummariesService changeLogSummariesService;
+
+    @Autowired
+    private UserContributionService userContributionService;
+
+
+    @Test
+    public void countsAreTheSameBeforeAndAfterRollup() {
+        // start as if the rollups have never been built, i.e. read everything from the change log
+        getDsl().deleteFrom(CHANGE_LOG_ENTITY_ROLLUP).execute();
+        getDsl().deleteFrom(CHANGE_LOG_USER_ROLLUP).execute();
+        assertEquals(Optional.empty(), changeLogRollupDao.getRolledUpUntil());
+
+        String user = mkUserId("rollup");
+        EntityReference app = appHelper.createNewApp(mkName("rollup"), ouIds.root);
+        LocalDateTime now = nowUtc();
+        LocalDate today = now.toLocalDate();
+
+        changeLogService.write(asList(
+                mkChange(app, user, now.minusDays(3)),
+                mkChange(app, user, now.minusDays(3)),
+                mkChange(app, user, now.minusDays(1)),
+                mkChange(app, user, now)));
+
+        Map<LocalDate, Long> beforeRollup = findCountsByDate(app);
+        assertEquals(3, beforeRollup.size());
+        assertEquals(Long.valueOf(2), beforeRollup.get(today.minusDays(3)));
+        assertEquals(Long.valueOf(1), beforeRollup.get(today.minusDays(1)));
+        assertEquals(Long.valueOf(1), beforeRollup.get(today));
+        assertEquals(4.0, userContributionService.getScoreForUser(user));
+
+        changeLogRollupService.rebuild();
+
+        assertEquals(
+                3,
+                getDsl().fetchCount(CHANGE_LOG_ENTITY_ROLLUP, CHANGE_LOG_ENTITY_ROLLUP.PARENT_ID.eq(app.id())),
+                "every day, including today, should be rolled up");
+        assertEquals(Optional.of(today.plusDays(1)), changeLogRollupDao.getRolledUpUntil());
+        assertEquals(beforeRollup, findCountsByDate(app), "rollups should give the same counts as the raw change log");
+        assertEquals(4.0, userContributionService.getScoreForUser(user));
+    }
+
+
+    @Test
+    public void changesAfterTheRollupAreAddedToIt() {
+        String user = mkUserId("rollup");
+        EntityReference app = appHelper.createNewApp(mkName("rollup"), ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        changeLogService.write(asList(
+                mkChange(app, user, now.minusDays(2)),
+                mkChange(app, user, now)));
+
+        changeLogRollupService.rebuild();
+
+        changeLogService.write(mkChange(app, user, now));
+        changeLogService.write(mkChange(app, user, now.minusDays(2)).withChildKind(EntityKind.MEASURABLE_RATING));
+
+        assertEquals(
+                Integer.valueOf(2),
+                getDsl()
+                        .select(CHANGE_LOG_ENTITY_ROLLUP.CHANGE_COUNT)
+                        .from(CHANGE_LOG_ENTITY_ROLLUP)
+                        .where(CHANGE_LOG_ENTITY_ROLLUP.PARENT_ID.eq(app.id()))
+                        .and(CHANGE_LOG_ENTITY_ROLLUP.ROLLUP_DATE.eq(toSqlDate(now.toLocalDate())))
+                        .fetchOne(CHANGE_LOG_ENTITY_ROLLUP.CHANGE_COUNT),
+                "today's rollup should be incremented by the write");
+
+        Map<LocalDate, Long> counts = findCountsByDate(app);
+        assertEquals(Long.valueOf(2), counts.get(now.toLocalDate().minusDays(2)));
+        assertEquals(Long.valueOf(2), counts.get(now.toLocalDate()));
+        assertEquals(4.0, userContributionService.getScoreForUser(user));
+        assertTrue(
+                userContributionService
+                        .getLeaderBoardLastMonth(Integer.MAX_VALUE)
+                        .stream()
+                        .anyMatch(t -> t.id().equals(user)),
+                "user should be on this month's leader board");
+    }
+
+
+    @Test
+    public void parentNamesAreReadFromTheRollups() {
+        String user = mkUserId("rollup");
+        String appName = mkName("rollup");
+        EntityReference app = appHelper.createNewApp(appName, ouIds.root);
+        LocalDateTime now = nowUtc();
+
+        changeLogService.write(mkChange(app, user, now.minusDays(1)));
+        changeLogRollupService.rebuild();
+        changeLogService.write(mkChange(app, user, now.minusDays(3)));
+
+        assertEquals(
+                asSet(appName),
+                getDsl()
+                        .selectDistinct(CHANGE_LOG_ENTITY_ROLLUP.PARENT_NAME)
+                        .from(CHANGE_LOG_ENTITY_ROLLUP)
+                        .where(CHANGE_LOG_ENTITY_ROLLUP.PARENT_ID.eq(app.id()))
+                        .fetchSet(CHANGE_LOG_ENTITY_ROLLUP.PARENT_NAME),
+                "names should be captured by both the rollup and the write");
+
+        List<ChangeLogTally> tallies = changeLogSummariesService.findCountByParentAndChildKindForDateRangeBySelector(
+                EntityKind.APPLICATION,
+                mkOpts(app),
+                toSqlDate(now.toLocalDate().minusDays(7)),
+                toSqlDate(now.toLocalDate()),
+                Optional.empty());
+
+        assertEquals(1, tallies.size());
+        assertEquals(Optional.of(appName), tallies.get(0).ref().name());
+        assertEquals(2, tallies.get(0).count());
+    }
+
+
+    @Test
+    public void rollingUpIsRepeatable() {
+        String user = mkUserId("rollup");
+        EntityReference app = appHelper.createNewApp(mkName("rollup"), ouIds.root);
+        LocalDateTime now = nowUtc();
+        LocalDate today = now.toLocalDate();
+
+        changeLogService.write(asList(
+                mkChange(app, user, now.minusDays(5)),
+                mkChange(app, user, now.minusDays(4))));
+
+        changeLogRollupService.rebuild();
+        Map<LocalDate, Long> afterRebuild = findCountsByDate(app);
+
+        changeLogRollupDao.rollupDays(today.minusDays(10), today);
+        changeLogRollupService.rollForward();
+
+        assertEquals(afterRebuild, findCountsByDate(app), "re-rolling days should not double count");
+        assertEquals(2.0, userContributionService.getScoreForUser(user));
+    }
+
+
+    // -- HELPERS ---
+
+    private Map<LocalDate, Long> findCountsByDate(EntityReference app) {
+        return changeLogService
+                .findCountByDateForParentKindBySelector(EntityKind.APPLICATION, mkOpts(app), Optional.empty())
+                .stream()
+                .collect(toMap(
+                        t -> t.date().toLocalDate(),
+                        DateTally::count));
+    }
+
+
+    private static ImmutableChangeLog mkChange(EntityReference app,
+                                               String user,
+                                               LocalDateTime createdAt) {
+        return ImmutableChangeLog.builder()
+                .parentReference(app)
+                .userId(user)
+                .message("test")
+                .operation(Operation.UPDATE)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.cost.AllocatedCostPopulationSummary;
+import org.finos.waltz.schema.tables.records.AllocatedCostDefinitionRecord;
+import org.finos.waltz.schema.tables.records.AllocationRecord;
+import org.finos.waltz.schema.tables.records.AllocationSchemeRecord;
+import org.finos.waltz.schema.tables.records.CostKindRecord;
+import org.finos.waltz.schema.tables.records.CostRecord;
+import org.finos.waltz.service.cost.CostService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.schema.Tables.ALLOCATED_COST_DEFINITION;
+import static org.finos.waltz.schema.Tables.ALLOCATION;
+import static org.finos.waltz.schema.Tables.ALLOCATION_SCHEME;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_KIND;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CostServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final int YEAR = 2024;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private CostService costService;
+
+
+    @Test
+    public void populateAllocatedCostsOnlyWritesChangedRows() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("cost_cat"));
+        long m1 = measurableHelper.createMeasurable(mkName("cost_m1"), categoryId);
+        long m2 = measurableHelper.createMeasurable(mkName("cost_m2"), categoryId);
+
+        EntityReference app = appHelper.createNewApp(mkName("cost_app"), ouIds.a);
+        long r1 = measurableHelper.createRating(app, m1);
+        long r2 = measurableHelper.createRating(app, m2);
+
+        long srcKind = createCostKind(EntityKind.APPLICATION);
+        long trgKind = createCostKind(EntityKind.MEASURABLE_RATING);
+        long schemeId = createAllocationScheme(categoryId);
+        createAllocation(schemeId, r1, 30);
+        createCost(srcKind, app, new BigDecimal("100.00"));
+        long defnId = createDefinition(schemeId, srcKind, trgKind);
+
+        AllocatedCostPopulationSummary initial = populate(defnId);
+        assertEquals(YEAR, initial.year());
+        assertEquals(2, initial.ratingCount());
+        assertEquals(2, initial.createdCount());
+        assertEquals(0, initial.updatedCount());
+        assertEquals(0, initial.removedCount());
+        assertEquals(new BigDecimal("30.00"), fetchAllocatedCost(trgKind, r1));
+        assertEquals(new BigDecimal("70.00"), fetchAllocatedCost(trgKind, r2));
+
+        AllocatedCostPopulationSummary rerun = populate(defnId);
+        assertEquals(0, rerun.createdCount(), "nothing has changed, so nothing should be written");
+        assertEquals(0, rerun.updatedCount());
+        assertEquals(0, rerun.removedCount());
+        assertEquals(2, rerun.unchangedCount());
+
+        getDsl()
+                .update(ALLOCATION)
+                .set(ALLOCATION.ALLOCATION_PERCENTAGE, 40)
+                .where(ALLOCATION.ALLOCATION_SCHEME_ID.eq(schemeId))
+                .and(ALLOCATION.MEASURABLE_RATING_ID.eq(r1))
+                .execute();
+
+        AllocatedCostPopulationSummary changed = populate(defnId);
+        assertEquals(0, changed.createdCount());
+        assertEquals(2, changed.updatedCount());
+        assertEquals(0, changed.removedCount());
+        assertEquals(new BigDecimal("40.00"), fetchAllocatedCost(trgKind, r1));
+        assertEquals(new BigDecimal("60.00"), fetchAllocatedCost(trgKind, r2));
+    }
+
+
+    // -- helpers
+
+    private AllocatedCostPopulationSummary populate(long defnId) {
+        Map<Long, AllocatedCostPopulationSummary> byDefnId = costService
+                .populateAllocatedCosts()
+                .stream()
+                .collect(toMap(s -> s.definition().id().get(), s -> s));
+
+        return byDefnId.get(defnId);
+    }
+
+
+    private BigDecimal fetchAllocatedCost(long costKindId, long ratingId) {
+        return getDsl()
+                .select(COST.AMOUNT)
+                .from(COST)
+                .where(COST.COST_KIND_ID.eq(costKindId))
+                .and(COST.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name()))
+                .and(COST.ENTITY_ID.eq(ratingId))
+                .and(COST.YEAR.eq(YEAR))
+                .fetchOne(COST.AMOUNT);
+    }
+
+
+    private long createCostKind(EntityKind subjectKind) {
+        CostKindRecord record = getDsl().newRecord(COST_KIND);
+        record.setName(mkName("cost_kind"));
+        record.setExternalId(mkName("cost_kind"));
+        record.setDescription("test");
+        record.setIsDefault(false);
+        record.setSubjectKind(subjectKind.name());
+        record.store();
+        return record.getId();
+    }
+
+
+    private long createAllocationScheme(long categoryId) {
+        AllocationSchemeRecord record = getDsl().newRecord(ALLOCATION_SCHEME);
+        record.setName(mkName("scheme"));
+        record.setExternalId(mkName("scheme"));
+        record.setDescription("test");
+        record.setMeasurableCategoryId(categoryId);
+        record.store();
+        return record.getId();
+    }
+
+
+    private void createAllocation(long schemeId, long ratingId, int percentage) {
+        AllocationRecord record = getDsl().newRecord(ALLOCATION);
+        record.setAllocationSchemeId(schemeId);
+        record.setMeasurableRatingId(ratingId);
+        record.setAllocationPercentage(percentage);
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy("test");
+        record.setProvenance(PROVENANCE);
+        record.store();
+    }
+
+
+    private void createCost(long costKindId, EntityReference ref, BigDecimal amount) {
+        CostRecord record = getDsl().newRecord(COST);
+        record.setCostKindId(costKindId);
+        record.setEntityKind(ref.kind().name());
+        record.setEntityId(ref.id());
+        record.setYear(YEAR);
+        record.setAmount(amount);
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy("test");
+        record.setProvenance(PROVENANCE);
+        record.store();
+    }
+
+
+    private long createDefinition(long schemeId, long srcKind, long trgKind) {
+        AllocatedCostDefinitionRecord record = getDsl().newRecord(ALLOCATED_COST_DEFINITION);
+        record.setAllocationSchemeId(schemeId);
+        record.setSourceCostKindId(srcKind);
+        record.setTargetCostKindId(trgKind);
+        record.store();
+        return record.getId();
+    }
+}
@@ -25,9 +25,15 @@ import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.datatype.DataType;
 import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleCreateCommand;
+import org.finos.waltz.model.logical_flow.DataTypeDecoratorView;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.service.data_type.DataTypeDecoratorService;
 import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.data_type.FlowReferenceDataService;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationService;
 import org.finos.waltz.test_common.helpers.*;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +50,8 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +78,15 @@ public class DataTypeDecoratorServiceTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private DataTypeHelper dataTypeHelper;
 
+    @Autowired
+    private FlowReferenceDataService flowReferenceDataService;
+
+    @Autowired
+    private FlowClassificationRuleService flowClassificationRuleService;
+
+    @Autowired
+    private FlowClassificationService flowClassificationService;
+
 
     @Test
     public void findByFlowIds() {
@@ -352,4 +369,81 @@ public class DataTypeDecoratorServiceTest extends BaseInMemoryIntegrationTest {
         assertEquals(asSet(dtId), map(usageCharacteristicsForSpec, DataTypeUsageCharacteristics::dataTypeId), "Returns usage characteristics for each data type associated to a spec");
         assertTrue(first(usageCharacteristicsForSpec).isRemovable(), "Specs should always be flagged as removable");
     }
+
+
+    @Test
+    public void getDecoratorView() {
+        String username = mkName("getDecoratorView");
+
+        EntityReference a = appHelper.createNewApp("a", ouIds.a);
+        EntityReference b = appHelper.createNewApp("b", ouIds.a1);
+        LogicalFlow flow = lfHelper.createLogicalFlow(a, b);
+
+        Long dtId = dataTypeHelper.createDataType("getDecoratorView");
+        Long dtId2 = dataTypeHelper.createDataType("getDecoratorView2");
+        dtdSvc.updateDecorators(username, flow.entityReference(), asSet(dtId, dtId2), emptySet());
+        flowReferenceDataService.invalidate();
+
+        String code = "DECORATOR_VIEW";
+        Long classificationId = getDsl()
+                .insertInto(FLOW_CLASSIFICATION)
+                .set(FLOW_CLASSIFICATION.NAME, code)
+                .set(FLOW_CLASSIFICATION.CODE, code)
+                .set(FLOW_CLASSIFICATION.COLOR, "#00ff00")
+                .returning(FLOW_CLASSIFICATION.ID)
+                .fetchOne()
+                .getId();
+
+        long ruleId = flowClassificationRuleService.insert(
+                ImmutableFlowClassificationRuleCreateCommand
+                        .builder()
+                        .classificationId(classificationId)
+                        .parentReference(b)
+                        .subjectReference(a)
+                        .description("test")
+                        .build(),
+                username);
+
+        getDsl()
+                .update(LOGICAL_FLOW_DECORATOR)
+                .set(LOGICAL_FLOW_DECORATOR.RATING, code)
+                .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, ruleId)
+                .set(LOGICAL_FLOW_DECORATOR.INBOUND_FLOW_CLASSIFICATION_RULE_ID, ruleId)
+                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(flow.entityReference().id()))
+                .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.eq(dtId))
+                .execute();
+
+        DataTypeDecoratorView flowView = dtdSvc.getDecoratorView(flow.entityReference());
+
+        assertEquals(2, flowView.dataTypeDecorators().size(), "Decorators with rules are not repeated");
+        assertEquals(asSet(dtId, dtId2), map(flowView.dataTypeDecorators(), DataTypeDecorator::dataTypeId));
+        assertEquals(asSet(dtId, dtId2), map(flowView.dataTypes(), d -> d.id().get()), "Includes the decorated data types");
+        assertTrue(map(flowView.classifications(), FlowClassification::code).contains(code), "Includes classifications used by decorator ratings");
+        assertEquals(asSet(ruleId), map(flowView.flowClassificationRules().flowClassificationRules(), r -> r.id().get()), "Includes rules applied to decorators");
+        assertEquals(asSet(classificationId), map(flowView.flowClassificationRules().flowClassifications(), c -> c.id().get()));
+    }
+
+
+    @Test
+    public void removingAClassificationRefreshesTheReferenceData() {
+        String code = "REMOVED_CLASSIFICATION";
+        Long classificationId = getDsl()
+                .insertInto(FLOW_CLASSIFICATION)
+                .set(FLOW_CLASSIFICATION.NAME, code)
+                .set(FLOW_CLASSIFICATION.CODE, code)
+                .set(FLOW_CLASSIFICATION.COLOR, "#ff0000")
+                .returning(FLOW_CLASSIFICATION.ID)
+                .fetchOne()
+                .getId();
+
+        flowReferenceDataService.invalidate();
+        assertTrue(
+                map(flowReferenceDataService.findAllClassifications(), FlowClassification::code).contains(code),
+                "Loaded classifications include the new classification");
+
+        assertEquals(1, flowClassificationService.remove(classificationId));
+        assertFalse(
+                map(flowReferenceDataService.findAllClassifications(), FlowClassification::code).contains(code),
+                "Removing a classification via the service drops it from the reference data");
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.client_cache_key.CacheInvalidationEventDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.datatype.DataTypeDecoratorRatingCharacteristics;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleCreateCommand;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
+import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolver;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolverService;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityKind.APPLICATION;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FlowClassificationRuleResolverServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private FlowClassificationRuleService flowClassificationRuleService;
+
+    @Autowired
+    private FlowClassificationRuleResolverService flowClassificationRuleResolverService;
+
+    @Autowired
+    private FlowClassificationRuleDao flowClassificationRuleDao;
+
+    @Autowired
+    private LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
+
+    @Autowired
+    private CacheInvalidationEventDao cacheInvalidationEventDao;
+
+    @Autowired
+    private EntityHierarchyService entityHierarchyService;
+
+
+    @Test
+    public void resolversAreReusedUntilRulesChange() {
+        FlowClassificationRuleResolver resolver = getOutboundResolver();
+        assertSame(resolver, getOutboundResolver());
+
+        long version = flowClassificationRuleResolverService.getVersion();
+        flowClassificationRuleResolverService.invalidate();
+
+        assertEquals(version + 1, flowClassificationRuleResolverService.getVersion());
+        assertNotSame(resolver, getOutboundResolver());
+    }
+
+
+    @Test
+    public void resolversAreRebuiltWhenTheOrgUnitHierarchyIsRebuilt() {
+        FlowClassificationRuleResolver resolver = getOutboundResolver();
+
+        long version = flowClassificationRuleResolverService.getVersion();
+        entityHierarchyService.buildFor(EntityKind.ORG_UNIT);
+
+        assertEquals(version + 1, flowClassificationRuleResolverService.getVersion());
+        assertNotSame(resolver, getOutboundResolver());
+    }
+
+
+    @Test
+    public void ratingPreviewsReflectRuleChanges() {
+        EntityReference source = appHelper.createNewApp(mkName("fcr_source"), ouIds.a);
+        EntityReference target = appHelper.createNewApp(mkName("fcr_target"), ouIds.b);
+        Long dtId = dataTypeHelper.createDataType("fcr_dt");
+        long classificationId = createClassification("PRIMARY");
+
+        assertEquals(AuthoritativenessRatingValue.NO_OPINION, previewOutboundRating(source, target, dtId));
+
+        long ruleId = flowClassificationRuleService.insert(
+                ImmutableFlowClassificationRuleCreateCommand
+                        .builder()
+                        .classificationId(classificationId)
+                        .parentReference(target)
+                        .subjectReference(source)
+                        .description("test")
+                        .build(),
+                "test");
+
+        assertEquals(AuthoritativenessRatingValue.of("PRIMARY"), previewOutboundRating(source, target, dtId));
+
+        flowClassificationRuleService.remove(ruleId, "test");
+
+        assertEquals(AuthoritativenessRatingValue.NO_OPINION, previewOutboundRating(source, target, dtId));
+    }
+
+
+    @Test
+    public void ruleChangesOnOneNodeAreSeenByOthers() {
+        EntityReference source = appHelper.createNewApp(mkName("fcr_source"), ouIds.a);
+        EntityReference target = appHelper.createNewApp(mkName("fcr_target"), ouIds.b);
+        long classificationId = createClassification("SECONDARY");
+
+        // a separate dao is a separate node
+        CacheInvalidationService otherNodeBus = new CacheInvalidationService(new CacheInvalidationEventDao(getDsl()));
+        otherNodeBus.poll();
+        FlowClassificationRuleResolverService otherNode = new FlowClassificationRuleResolverService(flowClassificationRuleDao, otherNodeBus);
+
+        assertEquals(AuthoritativenessRatingValue.NO_OPINION, resolveOutbound(otherNode, source, target));
+
+        flowClassificationRuleService.insert(
+                ImmutableFlowClassificationRuleCreateCommand
+                        .builder()
+                        .classificationId(classificationId)
+                        .parentReference(target)
+                        .subjectReference(source)
+                        .description("test")
+                        .build(),
+                "test");
+
+        assertEquals(AuthoritativenessRatingValue.NO_OPINION, resolveOutbound(otherNode, source, target), "other node has not polled yet");
+
+        otherNodeBus.poll();
+
+        assertEquals(AuthoritativenessRatingValue.of("SECONDARY"), resolveOutbound(otherNode, source, target));
+    }
+
+
+    // -- HELPERS ---
+
+    private FlowClassificationRuleResolver getOutboundResolver() {
+        return flowClassificationRuleResolverService.getResolver(
+                FlowDirection.OUTBOUND,
+                Collections.emptySet(),
+                Collections.emptySet());
+    }
+
+
+    private AuthoritativenessRatingValue previewOutboundRating(EntityReference source,
+                                                               EntityReference target,
+                                                               Long dtId) {
+        Set<DataTypeDecoratorRatingCharacteristics> ratings = ratingsCalculator.calculate(source, target, Optional.of(asList(dtId)));
+        return first(ratings).sourceOutboundRating();
+    }
+
+
+    private AuthoritativenessRatingValue resolveOutbound(FlowClassificationRuleResolverService resolverService,
+                                                         EntityReference source,
+                                                         EntityReference target) {
+        return resolverService
+                .getResolver(FlowDirection.OUTBOUND, Collections.singleton(target), Collections.emptySet())
+                .resolve(null, target, source, 1L)
+                .v1;
+    }
+
+
+    private long createClassification(String code) {
+        return getDsl()
+                .insertInto(FLOW_CLASSIFICATION)
+                .set(FLOW_CLASSIFICATION.NAME, mkName(code))
+                .set(FLOW_CLASSIFICATION.CODE, code)
+                .set(FLOW_CLASSIFICATION.COLOR, "#00ff00")
+                .set(FLOW_CLASSIFICATION.DIRECTION, FlowDirection.OUTBOUND.name())
+                .returning(FLOW_CLASSIFICATION.ID)
+                .fetchOne()
+                .getId();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.jooq.lambda.tuple.Tuple3;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.finos.waltz.schema.Tables.PERSON_HIERARCHY;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersonHierarchyServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private PersonHierarchyService personHierarchyService;
+
+
+    @Test
+    public void buildOnlyWritesChangedRows() {
+        Long a = personHelper.createPerson(mkName("ph_a"));
+        Long b = personHelper.createPerson(mkName("ph_b"));
+        Long c = personHelper.createPerson(mkName("ph_c"));
+        Long d = personHelper.createPerson(mkName("ph_d"));
+        personHelper.updateManager(b, a);
+        personHelper.updateManager(c, b);
+        personHelper.updateManager(d, a);
+
+        String aEmp = employeeId(a);
+        String bEmp = employeeId(b);
+        String cEmp = employeeId(c);
+        String dEmp = employeeId(d);
+
+        personHierarchyService.build();
+
+        assertEquals(
+                asSet(tuple(aEmp, bEmp, 1), tuple(aEmp, cEmp, 1), tuple(bEmp, cEmp, 2), tuple(aEmp, dEmp, 1)),
+                findRows(aEmp, bEmp, cEmp, dEmp));
+
+        assertEquals(0, personHierarchyService.build(), "nothing has changed, so nothing should be written");
+
+        personHelper.updateManager(c, d);
+
+        assertEquals(2, personHierarchyService.build(), "only (b, c) should be removed and (d, c) added");
+        assertEquals(
+                asSet(tuple(aEmp, bEmp, 1), tuple(aEmp, cEmp, 1), tuple(dEmp, cEmp, 2), tuple(aEmp, dEmp, 1)),
+                findRows(aEmp, bEmp, cEmp, dEmp));
+
+        personHelper.updateIsRemoved(d, true);
+        personHierarchyService.build();
+
+        assertEquals(
+                asSet(tuple(aEmp, bEmp, 1)),
+                findRows(aEmp, bEmp, cEmp, dEmp),
+                "c's manager has been removed, so c becomes a root");
+    }
+
+
+    @Test
+    public void managementCyclesDoNotPreventBuilding() {
+        Long x = personHelper.createPerson(mkName("ph_x"));
+        Long y = personHelper.createPerson(mkName("ph_y"));
+        Long z = personHelper.createPerson(mkName("ph_z"));
+        personHelper.updateManager(x, y);
+        personHelper.updateManager(y, x);
+        personHelper.updateManager(z, z);
+
+        personHierarchyService.build();
+
+        assertTrue(findRows(employeeId(x), employeeId(y), employeeId(z)).isEmpty());
+    }
+
+
+    // -- helpers
+
+    private String employeeId(Long personId) {
+        return getDsl()
+                .select(PERSON.EMPLOYEE_ID)
+                .from(PERSON)
+                .where(PERSON.ID.eq(personId))
+                .fetchOne(PERSON.EMPLOYEE_ID);
+    }
+
+
+    private Set<Tuple3<String, String, Integer>> findRows(String... employeeIds) {
+        return getDsl()
+                .selectFrom(PERSON_HIERARCHY)
+                .where(PERSON_HIERARCHY.EMPLOYEE_ID.in(employeeIds))
+                .fetchSet(r -> tuple(r.getManagerId(), r.getEmployeeId(), r.getLevel()));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.datatype_decorator.PhysicalSpecDecoratorDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.service.physical_specification_data_type.PhysicalSpecDataTypeService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.finos.waltz.test_common.helpers.PhysicalFlowHelper;
+import org.finos.waltz.test_common.helpers.PhysicalSpecHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.PHYSICAL_SPEC_DATA_TYPE;
+import static org.finos.waltz.schema.Tables.PHYSICAL_SPEC_DATA_TYPE_RIPPLE;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhysicalSpecDataTypeServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private PhysicalSpecDataTypeService physicalSpecDataTypeService;
+
+    @Autowired
+    private PhysicalSpecDecoratorDao physicalSpecDecoratorDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private PhysicalSpecHelper psHelper;
+
+    @Autowired
+    private PhysicalFlowHelper pfHelper;
+
+
+    @Test
+    public void onlyTouchedSpecificationsAreRippledIncrementally() {
+        EntityReference a = appHelper.createNewApp(mkName("a"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName("b"), ouIds.a1);
+        EntityReference c = appHelper.createNewApp(mkName("c"), ouIds.b);
+
+        LogicalFlow touchedFlow = lfHelper.createLogicalFlow(a, b);
+        LogicalFlow untouchedFlow = lfHelper.createLogicalFlow(a, c);
+
+        Long touchedSpecId = psHelper.createPhysicalSpec(a, "touched");
+        Long untouchedSpecId = psHelper.createPhysicalSpec(a, "untouched");
+
+        pfHelper.createPhysicalFlow(touchedFlow.entityReference().id(), touchedSpecId, mkName("touched"));
+        pfHelper.createPhysicalFlow(untouchedFlow.entityReference().id(), untouchedSpecId, mkName("untouched"));
+
+        // clear marks made by the physical flow creation above
+        physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+
+        Long dtId = dataTypeHelper.createDataType("ripple");
+
+        // goes via the dao so the change is only picked up by the ripple
+        physicalSpecDecoratorDao.addDecorators(asList(mkSpecDecorator(touchedSpecId, dtId)));
+
+        // simulates an external load, which does not mark the spec
+        getDsl()
+                .insertInto(PHYSICAL_SPEC_DATA_TYPE)
+                .set(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID, untouchedSpecId)
+                .set(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID, dtId)
+                .set(PHYSICAL_SPEC_DATA_TYPE.PROVENANCE, "test")
+                .set(PHYSICAL_SPEC_DATA_TYPE.LAST_UPDATED_AT, Timestamp.valueOf(nowUtc()))
+                .set(PHYSICAL_SPEC_DATA_TYPE.LAST_UPDATED_BY, "test")
+                .execute();
+
+        assertEquals(emptySet(), fetchFlowDataTypes(touchedFlow), "Spec data types are not rippled until the ripple runs");
+
+        int rippled = physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+
+        assertEquals(1, rippled);
+        assertEquals(asSet(dtId), fetchFlowDataTypes(touchedFlow), "Touched spec data types are rippled");
+        assertEquals(emptySet(), fetchFlowDataTypes(untouchedFlow), "Untouched specs are not rippled incrementally");
+        assertEquals(0, getDsl().fetchCount(PHYSICAL_SPEC_DATA_TYPE_RIPPLE), "Pending marks are cleared");
+        assertEquals(0, physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows(), "Nothing left to ripple");
+
+        physicalSpecDataTypeService.rippleDataTypesToLogicalFlows();
+
+        assertEquals(asSet(dtId), fetchFlowDataTypes(untouchedFlow), "Full sweep ripples all specs");
+    }
+
+
+    @Test
+    public void newPhysicalFlowsMarkTheirSpecification() {
+        EntityReference a = appHelper.createNewApp(mkName("a"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName("b"), ouIds.a1);
+        LogicalFlow flow = lfHelper.createLogicalFlow(a, b);
+
+        Long specId = psHelper.createPhysicalSpec(a, "newFlow");
+        Long dtId = dataTypeHelper.createDataType("newFlow");
+        physicalSpecDecoratorDao.addDecorators(asList(mkSpecDecorator(specId, dtId)));
+
+        // no physical flows yet, so nothing to ripple to
+        physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+        assertEquals(emptySet(), fetchFlowDataTypes(flow));
+
+        pfHelper.createPhysicalFlow(flow.entityReference().id(), specId, mkName("newFlow"));
+        physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+
+        assertEquals(asSet(dtId), fetchFlowDataTypes(flow), "Creating a physical flow ripples its spec data types");
+    }
+
+
+    @Test
+    public void specificationsAreMarkedOnlyWhenDataTypesAreAdded() {
+        EntityReference a = appHelper.createNewApp(mkName("a"), ouIds.a);
+        Long specId = psHelper.createPhysicalSpec(a, "marks");
+        Long dtId = dataTypeHelper.createDataType("marks");
+        physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+
+        assertFalse(physicalSpecDataTypeService.hasPendingRipples());
+
+        physicalSpecDecoratorDao.addDecorators(asList(mkSpecDecorator(specId, dtId)));
+        assertTrue(physicalSpecDataTypeService.hasPendingRipples());
+        physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows();
+
+        physicalSpecDecoratorDao.removeDataTypes(mkRef(EntityKind.PHYSICAL_SPECIFICATION, specId), asSet(dtId));
+        assertFalse(physicalSpecDataTypeService.hasPendingRipples(), "Removals do not need rippling");
+    }
+
+
+    // -- HELPERS ---
+
+    private DataTypeDecorator mkSpecDecorator(Long specId, Long dtId) {
+        return ImmutableDataTypeDecorator
+                .builder()
+                .entityReference(mkRef(EntityKind.PHYSICAL_SPECIFICATION, specId))
+                .decoratorEntity(mkRef(EntityKind.DATA_TYPE, dtId))
+                .provenance("test")
+                .lastUpdatedAt(nowUtc())
+                .lastUpdatedBy("test")
+                .isReadonly(false)
+                .build();
+    }
+
+
+    private Set<Long> fetchFlowDataTypes(LogicalFlow flow) {
+        return map(lfHelper.fetchDecoratorsForFlow(flow.entityReference().id()), DataTypeDecorator::dataTypeId);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_statistic.EntityStatisticRollupDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsRollupDao;
+import org.finos.waltz.data.rollup.RollupRefreshDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.records.EntityStatisticDefinitionRecord;
+import org.finos.waltz.schema.tables.records.EntityStatisticValueRecord;
+import org.finos.waltz.service.entity_statistic.EntityStatisticService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.rollup.SelectorRollupService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.InvolvementHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_DEFINITION;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_VALUE;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SelectorRollupServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private InvolvementHelper involvementHelper;
+
+    @Autowired
+    private LogicalFlowHelper logicalFlowHelper;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private EntityStatisticService entityStatisticService;
+
+    @Autowired
+    private LogicalFlowService logicalFlowService;
+
+    @Autowired
+    private SelectorRollupService selectorRollupService;
+
+    @Autowired
+    private RollupRefreshDao rollupRefreshDao;
+
+
+    @BeforeEach
+    public void clearRollups() {
+        // start each test reading from the live queries
+        rollupRefreshDao.clear(EntityStatisticRollupDao.ROLLUP_NAME);
+        rollupRefreshDao.clear(LogicalFlowStatsRollupDao.ROLLUP_NAME);
+    }
+
+
+    @Test
+    public void flowStatisticsFromRollupsMatchLiveQueries() {
+        EntityReference appA = appHelper.createNewApp(mkName("rollupA"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("rollupA1"), ouIds.a1);
+        EntityReference appB = appHelper.createNewApp(mkName("rollupB"), ouIds.b);
+        Long dt1 = dataTypeHelper.createDataType(mkName("rollupDt1"));
+        Long dt2 = dataTypeHelper.createDataType(mkName("rollupDt2"));
+
+        mkFlow(appA, appA1, asSet(dt1));
+        mkFlow(appA1, appB, asSet(dt1, dt2));
+        mkFlow(appB, appA, asSet(dt2));
+
+        Long manager = personHelper.createPerson(mkName("rollupManager"));
+        Long reportee = personHelper.createPerson(mkName("rollupReportee"));
+        personHelper.updateManager(reportee, manager);
+        rebuildHierarchy(EntityKind.PERSON);
+        long involvementKind = involvementHelper.mkInvolvementKind(mkName("rollupInv"));
+        involvementHelper.createInvolvement(manager, involvementKind, appA);
+        involvementHelper.createInvolvement(reportee, involvementKind, appB);
+
+        List<IdSelectionOptions> selectors = asList(
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN),
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN),
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a1), HierarchyQueryScope.CHILDREN),
+                mkOpts(mkRef(EntityKind.PERSON, manager), HierarchyQueryScope.CHILDREN),
+                mkOpts(mkRef(EntityKind.PERSON, reportee), HierarchyQueryScope.CHILDREN));
+
+        Map<IdSelectionOptions, LogicalFlowStatistics> live = selectors
+                .stream()
+                .collect(toMap(opts -> opts, logicalFlowService::calculateStats));
+
+        assertEquals(1.0, live.get(selectors.get(1)).flowCounts().intra(), "sanity check: a -> a1 is intra for ou 'a'");
+
+        selectorRollupService.rebuild();
+
+        selectors.forEach(opts -> assertSameStats(
+                live.get(opts),
+                logicalFlowService.calculateStats(opts),
+                opts.entityReference()));
+    }
+
+
+    @Test
+    public void incrementalRefreshPicksUpNewFlows() {
+        EntityReference appA = appHelper.createNewApp(mkName("rollupA"), ouIds.a);
+        EntityReference appB = appHelper.createNewApp(mkName("rollupB"), ouIds.b);
+        IdSelectionOptions ouA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        selectorRollupService.rebuild();
+        assertEquals(0.0, logicalFlowService.calculateStats(ouA).flowCounts().outbound());
+
+        mkFlow(appA, appB, asSet(dataTypeHelper.createDataType(mkName("rollupDt"))));
+        assertEquals(0.0, logicalFlowService.calculateStats(ouA).flowCounts().outbound(), "rollups are not yet refreshed");
+
+        assertTrue(selectorRollupService.refresh() > 0);
+        LogicalFlowStatistics stats = logicalFlowService.calculateStats(ouA);
+        assertEquals(1.0, stats.flowCounts().outbound());
+        assertEquals(1.0, stats.appCounts().outbound());
+        assertEquals(1, stats.dataTypeCounts().size());
+    }
+
+
+    @Test
+    public void statisticTalliesFromRollupsMatchLiveQueries() {
+        EntityReference appA = appHelper.createNewApp(mkName("rollupA"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("rollupA1"), ouIds.a1);
+        EntityReference appB = appHelper.createNewApp(mkName("rollupB"), ouIds.b);
+
+        long countStat = mkStatistic(RollupKind.COUNT_BY_ENTITY);
+        long sumStat = mkStatistic(RollupKind.SUM_BY_VALUE);
+        long avgStat = mkStatistic(RollupKind.AVG_BY_VALUE);
+
+        mkValue(countStat, appA, "yes", "not-a-number");
+        mkValue(countStat, appA1, "yes", "not-a-number");
+        mkValue(countStat, appB, "no", "not-a-number");
+        mkValue(sumStat, appA, "total", "10.5");
+        mkValue(sumStat, appA1, "total", "2.25");
+        mkValue(avgStat, appA, "avg", "1");
+        mkValue(avgStat, appA1, "avg", "2");
+        mkValue(avgStat, appB, "avg", "4");
+
+        List<Long> statIds = asList(countStat, sumStat, avgStat);
+        IdSelectionOptions root = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN);
+        IdSelectionOptions ouA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> liveRoot = entityStatisticService.findStatTallies(statIds, root);
+        List<TallyPack<String>> liveA = entityStatisticService.findStatTallies(statIds, ouA);
+
+        selectorRollupService.rebuild();
+
+        assertSameTallies(liveRoot, entityStatisticService.findStatTallies(statIds, root));
+        assertSameTallies(liveA, entityStatisticService.findStatTallies(statIds, ouA));
+
+        Map<String, Double> sumForA = toCountsById(entityStatisticService.calculateStatTally(sumStat, RollupKind.SUM_BY_VALUE, ouA).tallies());
+        assertEquals(12.75, sumForA.get("total"), 0.001);
+        Map<String, Double> avgForRoot = toCountsById(entityStatisticService.calculateStatTally(avgStat, RollupKind.AVG_BY_VALUE, root).tallies());
+        assertEquals(2.33, avgForRoot.get("avg"), 0.001);
+    }
+
+
+    @Test
+    public void involvementChangesAreAnsweredLiveUntilRefreshed() {
+        EntityReference appA = appHelper.createNewApp(mkName("rollupA"), ouIds.a);
+        EntityReference appB = appHelper.createNewApp(mkName("rollupB"), ouIds.b);
+        mkFlow(appA, appB, asSet(dataTypeHelper.createDataType(mkName("rollupDt"))));
+        Long person = personHelper.createPerson(mkName("rollupPerson"));
+        IdSelectionOptions personOpts = mkOpts(mkRef(EntityKind.PERSON, person), HierarchyQueryScope.CHILDREN);
+
+        selectorRollupService.rebuild();
+        assertTrue(selectorRollupService.findFlowStatistics(personOpts).isPresent());
+
+        involvementHelper.createInvolvement(person, involvementHelper.mkInvolvementKind(mkName("rollupInv")), appA);
+        assertFalse(selectorRollupService.findFlowStatistics(personOpts).isPresent(), "person node is dirty, so read live");
+        assertEquals(1.0, logicalFlowService.calculateStats(personOpts).flowCounts().outbound());
+
+        selectorRollupService.refresh();
+        Optional<LogicalFlowStatistics> fromRollup = selectorRollupService.findFlowStatistics(personOpts);
+        assertTrue(fromRollup.isPresent(), "refresh clears the dirty node");
+        assertEquals(1.0, fromRollup.get().flowCounts().outbound());
+    }
+
+
+    @Test
+    public void exactScopeIsNotAnsweredFromRollups() {
+        IdSelectionOptions exact = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.EXACT);
+        selectorRollupService.rebuild();
+        assertFalse(selectorRollupService.findFlowStatistics(exact).isPresent());
+        assertTrue(selectorRollupService
+                .findFlowStatistics(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN))
+                .isPresent());
+    }
+
+
+    // -- HELPERS ---
+
+    private void mkFlow(EntityReference source, EntityReference target, Set<Long> dataTypeIds) {
+        LogicalFlow flow = logicalFlowHelper.createLogicalFlow(source, target);
+        logicalFlowHelper.createLogicalFlowDecorators(flow.entityReference(), dataTypeIds);
+    }
+
+
+    private long mkStatistic(RollupKind rollupKind) {
+        EntityStatisticDefinitionRecord record = getDsl().newRecord(ENTITY_STATISTIC_DEFINITION);
+        record.setId(counter.incrementAndGet());
+        record.setName(mkName("rollupStat"));
+        record.setDescription("test");
+        record.setType("NUMERIC");
+        record.setCategory("TECHNICAL");
+        record.setActive(true);
+        record.setRenderer("test");
+        record.setHistoricRenderer("test");
+        record.setProvenance(PROVENANCE);
+        record.setEntityVisibility(true);
+        record.setRollupVisibility(true);
+        record.setRollupKind(rollupKind.name());
+        record.insert();
+        return record.getId();
+    }
+
+
+    private void mkValue(long statisticId, EntityReference app, String outcome, String value) {
+        EntityStatisticValueRecord record = getDsl().newRecord(ENTITY_STATISTIC_VALUE);
+        record.setStatisticId(statisticId);
+        record.setEntityKind(app.kind().name());
+        record.setEntityId(app.id());
+        record.setOutcome(outcome);
+        record.setValue(value);
+        record.setState("PROVIDED");
+        record.setCreatedAt(Timestamp.valueOf(nowUtc()));
+        record.setCurrent(true);
+        record.setProvenance(PROVENANCE);
+        record.insert();
+    }
+
+
+    private static void assertSameStats(LogicalFlowStatistics expected,
+                                        LogicalFlowStatistics actual,
+                                        EntityReference ref) {
+        assertEquals(expected.appCounts(), actual.appCounts(), "app counts for " + ref);
+        assertEquals(expected.flowCounts(), actual.flowCounts(), "flow counts for " + ref);
+        assertEquals(toComparable(expected.dataTypeCounts()), toComparable(actual.dataTypeCounts()), "data type counts for " + ref);
+    }
+
+
+    private static void assertSameTallies(List<TallyPack<String>> expected,
+                                          List<TallyPack<String>> actual) {
+        assertEquals(toComparable(expected), toComparable(actual));
+    }
+
+
+    private static Map<EntityReference, Map<String, Double>> toComparable(List<TallyPack<String>> packs) {
+        return packs
+                .stream()
+                .collect(toMap(
+                        TallyPack::entityReference,
+                        p -> toCountsById(p.tallies())));
+    }
+
+
+    private static Map<String, Double> toCountsById(List<Tally<String>> tallies) {
+        return tallies
+                .stream()
+                .collect(toMap(Tally::id, Tally::count));
+    }
+}
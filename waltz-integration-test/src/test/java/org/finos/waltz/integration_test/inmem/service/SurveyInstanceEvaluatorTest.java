@@ -0,0 +1,178 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.ReleaseLifecycleStatus;
+import org.finos.waltz.model.survey.ImmutableInstancesAndRecipientsCreateCommand;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestion;
+import org.finos.waltz.model.survey.ImmutableSurveyRunCreateCommand;
+import org.finos.waltz.model.survey.SurveyInstance;
+import org.finos.waltz.model.survey.SurveyInstanceFormDetails;
+import org.finos.waltz.model.survey.SurveyIssuanceKind;
+import org.finos.waltz.model.survey.SurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestionFieldType;
+import org.finos.waltz.model.survey.SurveyRunStatus;
+import org.finos.waltz.service.survey.SurveyInstanceEvaluator;
+import org.finos.waltz.service.survey.SurveyInstanceService;
+import org.finos.waltz.service.survey.SurveyQuestionService;
+import org.finos.waltz.service.survey.SurveyRunService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.InvolvementHelper;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.finos.waltz.test_common.helpers.SurveyTemplateHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.CollectionUtilities.find;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.DateTimeUtilities.toLocalDate;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SurveyInstanceEvaluatorTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private SurveyTemplateHelper templateHelper;
+
+    @Autowired
+    private SurveyQuestionService questionService;
+
+    @Autowired
+    private SurveyRunService runService;
+
+    @Autowired
+    private SurveyInstanceService instanceService;
+
+    @Autowired
+    private SurveyInstanceEvaluator evaluator;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private InvolvementHelper involvementHelper;
+
+
+    @Test
+    public void runEvaluationMatchesInstanceEvaluation() throws Exception {
+        String stem = "evalRun";
+        EntityReference appInA = appHelper.createNewApp(mkName(stem), ouIds.a1);
+        EntityReference appInB = appHelper.createNewApp(mkName(stem), ouIds.b);
+
+        String username = mkName(stem);
+        Long personId = personHelper.createPerson(username);
+        String invKindName = mkName(stem);
+        long invKindId = involvementHelper.mkInvolvementKind(invKindName);
+        involvementHelper.createInvolvement(personId, invKindId, appInA);
+        involvementHelper.createInvolvement(personId, invKindId, appInB);
+
+        long templateId = templateHelper.createTemplate(username, mkName(stem));
+        long alwaysQId = templateHelper.addQuestion(templateId);
+        long ouQId = questionService.create(mkQuestion(templateId, "belongsToOrgUnit('aName')"));
+        long invQId = questionService.create(mkQuestion(templateId, "hasInvolvement('" + invKindName.toUpperCase() + "')"));
+        templateHelper.updateStatus(username, templateId, ReleaseLifecycleStatus.ACTIVE);
+
+        Long runId = runService.createSurveyRun(username, mkRunCommand(templateId, invKindId)).id().get();
+        runService.createSurveyInstancesAndRecipients(ImmutableInstancesAndRecipientsCreateCommand.builder()
+                .surveyRunId(runId)
+                .dueDate(toLocalDate(nowUtcTimestamp()))
+                .approvalDueDate(toLocalDate(nowUtcTimestamp()))
+                .excludedRecipients(emptySet())
+                .build());
+
+        Set<SurveyInstance> instances = instanceService.findForSurveyRun(runId);
+        Long instanceA = find(instances, i -> i.surveyEntity().id() == appInA.id()).flatMap(SurveyInstance::id).get();
+        Long instanceB = find(instances, i -> i.surveyEntity().id() == appInB.id()).flatMap(SurveyInstance::id).get();
+
+        Map<Long, SurveyInstanceFormDetails> byInstance = evaluator.evalForSurveyRun(runId);
+
+        assertEquals(asSet(alwaysQId, ouQId, invQId), activeQuestionIds(byInstance.get(instanceA)));
+        assertEquals(asSet(alwaysQId, invQId), activeQuestionIds(byInstance.get(instanceB)), "app in 'b' is not in org unit 'a'");
+
+        assertEquals(activeQuestionIds(evaluator.eval(instanceA)), activeQuestionIds(byInstance.get(instanceA)));
+        assertEquals(activeQuestionIds(evaluator.eval(instanceB)), activeQuestionIds(byInstance.get(instanceB)));
+    }
+
+
+    @Test
+    public void unevaluablePredicatesAreReportedPerQuestionAndDoNotBlockIssuing() throws Exception {
+        String stem = "evalRunIssue";
+        EntityReference app = appHelper.createNewApp(mkName(stem), ouIds.a1);
+
+        String username = mkName(stem);
+        Long personId = personHelper.createPerson(username);
+        long invKindId = involvementHelper.mkInvolvementKind(mkName(stem));
+        involvementHelper.createInvolvement(personId, invKindId, app);
+
+        long templateId = templateHelper.createTemplate(username, mkName(stem));
+        long brokenQId = questionService.create(mkQuestion(templateId, "belongsToOrgUnit('aName'"));
+        long ouQId = questionService.create(mkQuestion(templateId, "belongsToOrgUnit('aName')"));
+        questionService.create(mkQuestion(templateId, "belongsToOrgUnit('bName')"));
+        templateHelper.updateStatus(username, templateId, ReleaseLifecycleStatus.ACTIVE);
+
+        Long runId = runService.createSurveyRun(username, mkRunCommand(templateId, invKindId)).id().get();
+        runService.createSurveyInstancesAndRecipients(ImmutableInstancesAndRecipientsCreateCommand.builder()
+                .surveyRunId(runId)
+                .dueDate(toLocalDate(nowUtcTimestamp()))
+                .approvalDueDate(toLocalDate(nowUtcTimestamp()))
+                .excludedRecipients(emptySet())
+                .build());
+
+        runService.updateSurveyRunStatus(username, runId, SurveyRunStatus.ISSUED);
+        assertEquals(SurveyRunStatus.ISSUED, runService.getById(runId).status());
+
+        Long instanceId = find(instanceService.findForSurveyRun(runId), i -> i.surveyEntity().id() == app.id()).flatMap(SurveyInstance::id).get();
+
+        assertEquals(
+                asSet(brokenQId, ouQId),
+                activeQuestionIds(evaluator.eval(instanceId)),
+                "the broken predicate's question stays active, the other predicates are still evaluated");
+    }
+
+
+    // -- helpers
+
+    private static Set<Long> activeQuestionIds(SurveyInstanceFormDetails details) {
+        return map(details.activeQuestions(), q -> q.id().get());
+    }
+
+
+    private static SurveyQuestion mkQuestion(long templateId, String predicate) {
+        return ImmutableSurveyQuestion
+                .builder()
+                .fieldType(SurveyQuestionFieldType.TEXT)
+                .sectionName("section")
+                .questionText("question")
+                .surveyTemplateId(templateId)
+                .inclusionPredicate(predicate)
+                .build();
+    }
+
+
+    private ImmutableSurveyRunCreateCommand mkRunCommand(Long templateId, Long invKindId) {
+        return ImmutableSurveyRunCreateCommand.builder()
+                .issuanceKind(SurveyIssuanceKind.GROUP)
+                .name(mkName("test run"))
+                .description("run desc")
+                .selectionOptions(IdSelectionOptions.mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root)))
+                .surveyTemplateId(templateId)
+                .addInvolvementKindIds(invKindId)
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .approvalDueDate(DateTimeUtilities.today().plusMonths(1))
+                .contactEmail("someone@somewhere.com")
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Describes the volume of data the scaled generators should produce.
+ *
+ * A scale factor of 1 (SF1) corresponds to 5k applications, SF100 to 500k
+ * applications.  All other volumes (flows, decorators, ratings etc.) are
+ * expressed relative to the number of applications so the shape of the
+ * generated estate stays the same as it grows.
+ */
+public class ScaleFactor {
+
+    public static final int APPS_PER_UNIT = 5_000;
+    public static final int MAX_FLOWS_PER_APP = 8;
+    public static final int MAX_DATA_TYPES_PER_FLOW = 3;
+    public static final int MAX_RATINGS_PER_APP = 10;
+    public static final int MAX_INVOLVEMENTS_PER_APP = 5;
+    public static final int MAX_RECIPIENTS_PER_SURVEY = 2;
+    public static final int APPS_PER_SURVEY_RUN = 1_000;
+    public static final double SURVEYED_APP_PROPORTION = 0.5;
+
+    private final int factor;
+
+
+    private ScaleFactor(int factor) {
+        checkTrue(factor > 0, "Scale factor must be a positive number");
+        this.factor = factor;
+    }
+
+
+    public static ScaleFactor of(int factor) {
+        return new ScaleFactor(factor);
+    }
+
+
+    public int factor() {
+        return factor;
+    }
+
+
+    public int numApps() {
+        return factor * APPS_PER_UNIT;
+    }
+
+
+    public int numSurveyRuns() {
+        return Math.max(1, numApps() / APPS_PER_SURVEY_RUN);
+    }
+
+
+    @Override
+    public String toString() {
+        return "SF" + factor;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.model.Criticality;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.schema.tables.records.ApplicationRecord;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.Unchecked;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.IOUtilities.readLines;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
+
+
+/**
+ * Creates <code>5000 * SF</code> applications spread across the existing
+ * org units.  Org units (and other reference data) are expected to have
+ * been created by the standard <code>LoadAll</code> generators.
+ */
+public class ScaledAppGenerator implements ScaledDataGenerator {
+
+    private static final String ASSET_CODE_PREFIX = "scaled-";
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        List<String> names = Unchecked.supplier(() -> readLines(getClass().getResourceAsStream("/app-names.txt"))).get();
+        List<Long> orgUnitIds = loadSortedIds(dsl, ORGANISATIONAL_UNIT.ID, DSL.trueCondition());
+        checkFalse(isEmpty(orgUnitIds), "No org units found, please generate reference data (LoadAll) first");
+
+        Timestamp now = nowUtcTimestamp();
+        int numApps = ctx.scaleFactor().numApps();
+        List<ApplicationRecord> records = new ArrayList<>(numApps);
+
+        for (int i = 0; i < numApps; i++) {
+            String name = pick(names, rnd) + " - " + i;
+
+            ApplicationRecord record = new ApplicationRecord();
+            record.setName(name);
+            record.setDescription("All about " + name);
+            record.setAssetCode(String.format("%s%07d", ASSET_CODE_PREFIX, i));
+            record.setOrganisationalUnitId(pick(orgUnitIds, rnd));
+            record.setKind(ApplicationKind.values()[rnd.nextInt(ApplicationKind.values().length)].name());
+            record.setLifecyclePhase(rnd.nextInt(10) > 7
+                    ? LifecyclePhase.values()[rnd.nextInt(LifecyclePhase.values().length)].name()
+                    : LifecyclePhase.PRODUCTION.name());
+            record.setBusinessCriticality(rnd.nextInt(10) > 7
+                    ? Criticality.values()[rnd.nextInt(Criticality.values().length)].name()
+                    : Criticality.HIGH.name());
+            record.setOverallRating(String.valueOf("RAAGG".charAt(rnd.nextInt(5))));
+            record.setEntityLifecycleStatus(EntityLifecycleStatus.ACTIVE.name());
+            record.setIsRemoved(false);
+            record.setProvenance(ScaledGenerationContext.PROVENANCE);
+            record.setCreatedAt(now);
+            record.setUpdatedAt(now);
+            records.add(record);
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(APPLICATION)
+                .where(APPLICATION.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+}
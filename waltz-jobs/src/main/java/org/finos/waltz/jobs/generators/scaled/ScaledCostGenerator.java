@@ -0,0 +1,110 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.jobs.WaltzUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.records.CostRecord;
+import org.jooq.DSLContext;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.COST;
+
+
+/**
+ * Creates an application development and infrastructure cost for each
+ * scaled application for the current year.  Amounts are normally
+ * distributed around a per-kind mean.
+ */
+public class ScaledCostGenerator implements ScaledDataGenerator {
+
+    private static final int YEAR = LocalDate.now().getYear();
+    private static final int APP_DEV_MEAN = 900_000;
+    private static final int INFRA_MEAN = 50_000;
+
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledAppGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        long appDevKind = WaltzUtilities.getOrCreateCostKind(dsl, "Application Development", "APPLICATION_DEVELOPMENT");
+        long infraKind = WaltzUtilities.getOrCreateCostKind(dsl, "Infrastructure", "INFRASTRUCTURE");
+
+        Timestamp now = nowUtcTimestamp();
+        List<CostRecord> records = new ArrayList<>();
+
+        for (Long appId : loadScaledAppIds(dsl)) {
+            records.add(mkCost(appId, appDevKind, mkAmount(rnd, APP_DEV_MEAN), now));
+            records.add(mkCost(appId, infraKind, mkAmount(rnd, INFRA_MEAN), now));
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(COST)
+                .where(COST.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+
+
+    private static CostRecord mkCost(long appId,
+                                     long costKindId,
+                                     BigDecimal amount,
+                                     Timestamp now) {
+        CostRecord record = new CostRecord();
+        record.setEntityId(appId);
+        record.setEntityKind(EntityKind.APPLICATION.name());
+        record.setCostKindId(costKindId);
+        record.setAmount(amount);
+        record.setYear(YEAR);
+        record.setProvenance(ScaledGenerationContext.PROVENANCE);
+        record.setLastUpdatedAt(now);
+        record.setLastUpdatedBy(ScaledGenerationContext.USER);
+        return record;
+    }
+
+
+    private static BigDecimal mkAmount(Random rnd, int mean) {
+        double val = Math.abs(rnd.nextGaussian() * (mean / 3.4) + mean);
+        return BigDecimal
+                .valueOf(val)
+                .setScale(2, RoundingMode.CEILING);
+    }
+}
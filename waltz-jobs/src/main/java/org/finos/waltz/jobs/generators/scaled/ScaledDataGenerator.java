@@ -0,0 +1,91 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.TableField;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+
+
+/**
+ * A generator which produces a volume of data proportional to a
+ * {@link ScaleFactor}.
+ *
+ * Generators declare the generators they depend upon, the
+ * {@link ScaledLoadAll} runner uses this to execute independent generators
+ * in parallel.
+ */
+public interface ScaledDataGenerator {
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+
+
+    default Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return Collections.emptySet();
+    }
+
+
+    /**
+     * @return number of rows created
+     */
+    int create(ScaledGenerationContext ctx);
+
+
+    /**
+     * @return number of rows removed
+     */
+    int remove(ScaledGenerationContext ctx);
+
+
+    default List<Long> loadScaledAppIds(DSLContext dsl) {
+        return loadSortedIds(dsl, APPLICATION.ID, APPLICATION.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE));
+    }
+
+
+    /**
+     * Ids are returned in ascending order so generators see the same
+     * inputs, and therefore produce the same outputs, on every run.
+     */
+    default <T> List<T> loadSortedIds(DSLContext dsl,
+                                      TableField<? extends Record, T> idCol,
+                                      Condition condition) {
+        return dsl
+                .select(idCol)
+                .from(idCol.getTable())
+                .where(condition)
+                .orderBy(idCol)
+                .fetch(idCol);
+    }
+
+
+    default <T> T pick(List<T> xs, Random rnd) {
+        return xs.get(rnd.nextInt(xs.size()));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.data.bulk_load.BulkLoaders;
+import org.jooq.DSLContext;
+import org.jooq.TableRecord;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Collection;
+import java.util.Random;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Shared state handed to each {@link ScaledDataGenerator}.
+ *
+ * Each generator should obtain its own <code>Random</code> via
+ * {@link #randomFor(ScaledDataGenerator)}.  As every generator has an
+ * independent, seeded, stream of random numbers the output is
+ * reproducible regardless of the order in which the parallel runner
+ * happens to schedule them.
+ */
+public class ScaledGenerationContext {
+
+    public static final String PROVENANCE = "waltz-scaled";
+    public static final String USER = "admin";
+
+    private final ApplicationContext ctx;
+    private final DSLContext dsl;
+    private final ScaleFactor scaleFactor;
+    private final long seed;
+
+
+    public ScaledGenerationContext(ApplicationContext ctx,
+                                   ScaleFactor scaleFactor,
+                                   long seed) {
+        this.ctx = checkNotNull(ctx, "ctx cannot be null");
+        this.scaleFactor = checkNotNull(scaleFactor, "scaleFactor cannot be null");
+        this.seed = seed;
+        this.dsl = ctx.getBean(DSLContext.class);
+    }
+
+
+    public ApplicationContext ctx() {
+        return ctx;
+    }
+
+
+    public DSLContext dsl() {
+        return dsl;
+    }
+
+
+    public ScaleFactor scaleFactor() {
+        return scaleFactor;
+    }
+
+
+    /**
+     * Inserts the records using the fastest mechanism available for the
+     * configured database (see {@link BulkLoaders}).
+     *
+     * @param records  records to insert, all should belong to the same table
+     * @param <R>  record type
+     * @return number of rows inserted
+     */
+    public <R extends TableRecord<R>> int bulkLoad(Collection<R> records) {
+        return BulkLoaders.bulkLoad(dsl, records);
+    }
+
+
+    public Random randomFor(ScaledDataGenerator generator) {
+        return new Random(seed * 31 + generator.name().hashCode());
+    }
+
+}
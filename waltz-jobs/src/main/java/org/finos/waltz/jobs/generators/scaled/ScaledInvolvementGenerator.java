@@ -0,0 +1,94 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.records.InvolvementRecord;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.tables.Involvement.INVOLVEMENT;
+import static org.finos.waltz.schema.tables.InvolvementKind.INVOLVEMENT_KIND;
+import static org.finos.waltz.schema.tables.Person.PERSON;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Associates between 1 and {@link ScaleFactor#MAX_INVOLVEMENTS_PER_APP}
+ * people with each scaled application.
+ */
+public class ScaledInvolvementGenerator implements ScaledDataGenerator {
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledAppGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        List<String> employeeIds = loadSortedIds(dsl, PERSON.EMPLOYEE_ID, PERSON.IS_REMOVED.isFalse());
+        List<Long> kindIds = loadSortedIds(dsl, INVOLVEMENT_KIND.ID, DSL.trueCondition());
+        checkFalse(isEmpty(employeeIds), "No people found, please generate reference data (LoadAll) first");
+        checkFalse(isEmpty(kindIds), "No involvement kinds found, please generate reference data (LoadAll) first");
+
+        List<InvolvementRecord> records = new ArrayList<>();
+
+        for (Long appId : loadScaledAppIds(dsl)) {
+            int howMany = 1 + rnd.nextInt(ScaleFactor.MAX_INVOLVEMENTS_PER_APP);
+            Set<Object> seen = new HashSet<>();
+            for (int i = 0; i < howMany; i++) {
+                String employeeId = pick(employeeIds, rnd);
+                Long kindId = pick(kindIds, rnd);
+                if (seen.add(tuple(employeeId, kindId))) {
+                    records.add(new InvolvementRecord(
+                            EntityKind.APPLICATION.name(),
+                            appId,
+                            employeeId,
+                            ScaledGenerationContext.PROVENANCE,
+                            kindId,
+                            true));
+                }
+            }
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(INVOLVEMENT)
+                .where(INVOLVEMENT.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+}
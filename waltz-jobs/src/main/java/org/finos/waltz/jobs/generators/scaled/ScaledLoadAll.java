@@ -0,0 +1,145 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.common.LoggingUtilities;
+import org.finos.waltz.service.DIConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Generates a deterministic, production-shaped, data set whose size is
+ * governed by a {@link ScaleFactor}.
+ *
+ * Usage: <code>ScaledLoadAll [scaleFactor=1] [seed=42] [parallelism=4]</code>
+ *
+ * Reference data (org units, people, data types, measurables, involvement
+ * kinds and survey templates) is <em>not</em> created here, run the standard
+ * <code>LoadAll</code> generators first.
+ *
+ * Previously generated scaled data is removed (dependents first) before
+ * generation starts.  Generators are then started as soon as all of their
+ * dependencies have completed, so independent generators (e.g. ratings,
+ * involvements, costs and surveys) run concurrently.
+ */
+public class ScaledLoadAll {
+
+    // must be declared in dependency order
+    private static final List<ScaledDataGenerator> generators = ListUtilities.asList(
+            new ScaledAppGenerator(),
+            new ScaledLogicalFlowGenerator(),
+            new ScaledLogicalFlowDecoratorGenerator(),
+            new ScaledMeasurableRatingGenerator(),
+            new ScaledInvolvementGenerator(),
+            new ScaledSurveyGenerator(),
+            new ScaledCostGenerator());
+
+
+    public static void main(String[] args) {
+        ScaleFactor scaleFactor = ScaleFactor.of(args.length > 0 ? Integer.parseInt(args[0]) : 1);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
+        LoggingUtilities.configureLogging();
+
+        ScaledGenerationContext genCtx = new ScaledGenerationContext(ctx, scaleFactor, seed);
+
+        log("Generating %s data, seed: %d, parallelism: %d", scaleFactor, seed, parallelism);
+        long st = System.currentTimeMillis();
+
+        removeAll(genCtx);
+        createAll(genCtx, parallelism);
+
+        log("Completed %s in %dms", scaleFactor, System.currentTimeMillis() - st);
+        ctx.close();
+    }
+
+
+    private static void removeAll(ScaledGenerationContext genCtx) {
+        List<ScaledDataGenerator> reversed = new ArrayList<>(generators);
+        Collections.reverse(reversed);
+        reversed.forEach(g -> log("Removed %d rows: %s", g.remove(genCtx), g.name()));
+    }
+
+
+    private static void createAll(ScaledGenerationContext genCtx,
+                                  int parallelism) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try {
+            Map<Class<?>, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
+
+            generators.forEach(g -> {
+                CompletableFuture<?>[] deps = g
+                        .dependencies()
+                        .stream()
+                        .map(d -> {
+                            checkTrue(futures.containsKey(d), "%s depends on %s which has not been declared before it", g.name(), d.getSimpleName());
+                            return futures.get(d);
+                        })
+                        .toArray(CompletableFuture[]::new);
+
+                futures.put(
+                        g.getClass(),
+                        CompletableFuture
+                                .allOf(deps)
+                                .thenApplyAsync(x -> runGenerator(g, genCtx), executor));
+            });
+
+            CompletableFuture
+                    .allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    private static int runGenerator(ScaledDataGenerator generator,
+                                    ScaledGenerationContext genCtx) {
+        log("Starting: %s", generator.name());
+        long st = System.currentTimeMillis();
+        int count = generator.create(genCtx);
+        long duration = System.currentTimeMillis() - st;
+        log("Finished: %s, rows: %d, duration: %dms, rows/sec: %d",
+                generator.name(),
+                count,
+                duration,
+                duration == 0 ? count : (count * 1000L) / duration);
+        return count;
+    }
+
+
+    private static void log(String s, Object... args) {
+        System.out.println(String.format(s, args));
+    }
+}
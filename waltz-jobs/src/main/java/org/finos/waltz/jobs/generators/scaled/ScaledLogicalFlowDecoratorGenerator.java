@@ -0,0 +1,87 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.jobs.WaltzUtilities;
+import org.finos.waltz.schema.tables.records.LogicalFlowDecoratorRecord;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.tables.DataType.DATA_TYPE;
+import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
+
+
+/**
+ * Decorates each scaled logical flow with between 1 and
+ * {@link ScaleFactor#MAX_DATA_TYPES_PER_FLOW} concrete data types.
+ */
+public class ScaledLogicalFlowDecoratorGenerator implements ScaledDataGenerator {
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledLogicalFlowGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        List<Long> dataTypeIds = loadSortedIds(dsl, DATA_TYPE.ID, DATA_TYPE.CONCRETE.isTrue());
+        checkFalse(isEmpty(dataTypeIds), "No data types found, please generate reference data (LoadAll) first");
+
+        List<Long> flowIds = loadSortedIds(dsl, LOGICAL_FLOW.ID, LOGICAL_FLOW.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE));
+
+        List<LogicalFlowDecoratorRecord> records = new ArrayList<>();
+        for (Long flowId : flowIds) {
+            int howMany = 1 + rnd.nextInt(ScaleFactor.MAX_DATA_TYPES_PER_FLOW);
+            Set<Long> dtIds = new HashSet<>();
+            for (int i = 0; i < howMany; i++) {
+                Long dtId = pick(dataTypeIds, rnd);
+                if (dtIds.add(dtId)) {
+                    records.add(WaltzUtilities.mkLogicalFlowDecoratorRecord(
+                            flowId,
+                            dtId,
+                            ScaledGenerationContext.PROVENANCE));
+                }
+            }
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(LOGICAL_FLOW_DECORATOR)
+                .where(LOGICAL_FLOW_DECORATOR.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+}
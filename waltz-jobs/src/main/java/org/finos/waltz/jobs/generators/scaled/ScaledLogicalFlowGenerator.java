@@ -0,0 +1,81 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.jobs.WaltzUtilities;
+import org.finos.waltz.schema.tables.records.LogicalFlowRecord;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+
+
+/**
+ * Creates between 0 and {@link ScaleFactor#MAX_FLOWS_PER_APP} outbound
+ * flows for each scaled application.  Self flows and duplicate
+ * (source, target) pairs are skipped.
+ */
+public class ScaledLogicalFlowGenerator implements ScaledDataGenerator {
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledAppGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        Random rnd = ctx.randomFor(this);
+        List<Long> appIds = loadScaledAppIds(ctx.dsl());
+
+        Set<Long> seenPairs = new HashSet<>();
+        List<LogicalFlowRecord> records = new ArrayList<>();
+
+        for (int sourceIdx = 0; sourceIdx < appIds.size(); sourceIdx++) {
+            int howMany = rnd.nextInt(ScaleFactor.MAX_FLOWS_PER_APP + 1);
+            for (int i = 0; i < howMany; i++) {
+                int targetIdx = rnd.nextInt(appIds.size());
+                long pairKey = (long) sourceIdx * appIds.size() + targetIdx;
+                if (targetIdx == sourceIdx || ! seenPairs.add(pairKey)) {
+                    continue;
+                }
+                records.add(WaltzUtilities.mkLogicalFlowRecord(
+                        appIds.get(sourceIdx),
+                        appIds.get(targetIdx),
+                        ScaledGenerationContext.PROVENANCE));
+            }
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+}
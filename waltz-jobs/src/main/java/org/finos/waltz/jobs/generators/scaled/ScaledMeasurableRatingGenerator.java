@@ -0,0 +1,100 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.records.MeasurableRatingRecord;
+import org.jooq.DSLContext;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+
+
+/**
+ * Rates each scaled application against up to
+ * {@link ScaleFactor#MAX_RATINGS_PER_APP} concrete measurables.
+ */
+public class ScaledMeasurableRatingGenerator implements ScaledDataGenerator {
+
+    private static final String[] RATINGS = {"R", "A", "G", "G"};
+
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledAppGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        List<Long> measurableIds = loadSortedIds(dsl, MEASURABLE.ID, MEASURABLE.CONCRETE.isTrue());
+        checkFalse(isEmpty(measurableIds), "No measurables found, please generate reference data (LoadAll) first");
+
+        Timestamp now = nowUtcTimestamp();
+        List<MeasurableRatingRecord> records = new ArrayList<>();
+
+        for (Long appId : loadScaledAppIds(dsl)) {
+            int howMany = rnd.nextInt(ScaleFactor.MAX_RATINGS_PER_APP + 1);
+            Set<Long> rated = new HashSet<>();
+            for (int i = 0; i < howMany; i++) {
+                Long measurableId = pick(measurableIds, rnd);
+                if (! rated.add(measurableId)) {
+                    continue;
+                }
+                MeasurableRatingRecord record = new MeasurableRatingRecord();
+                record.setEntityId(appId);
+                record.setEntityKind(EntityKind.APPLICATION.name());
+                record.setMeasurableId(measurableId);
+                record.setRating(RATINGS[rnd.nextInt(RATINGS.length)]);
+                record.setDescription("");
+                record.setLastUpdatedAt(now);
+                record.setLastUpdatedBy(ScaledGenerationContext.USER);
+                record.setProvenance(ScaledGenerationContext.PROVENANCE);
+                record.setIsReadonly(false);
+                record.setIsPrimary(false);
+                records.add(record);
+            }
+        }
+
+        return ctx.bulkLoad(records);
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        return ctx.dsl()
+                .deleteFrom(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.PROVENANCE.eq(ScaledGenerationContext.PROVENANCE))
+                .execute();
+    }
+}
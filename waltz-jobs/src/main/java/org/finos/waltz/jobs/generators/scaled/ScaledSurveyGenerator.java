@@ -0,0 +1,184 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scaled;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.survey.SurveyInstanceStatus;
+import org.finos.waltz.model.survey.SurveyIssuanceKind;
+import org.finos.waltz.model.survey.SurveyRunStatus;
+import org.finos.waltz.schema.tables.records.SurveyInstanceRecipientRecord;
+import org.finos.waltz.schema.tables.records.SurveyInstanceRecord;
+import org.finos.waltz.schema.tables.records.SurveyRunRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.SURVEY_INSTANCE;
+import static org.finos.waltz.schema.Tables.SURVEY_RUN;
+import static org.finos.waltz.schema.Tables.SURVEY_TEMPLATE;
+import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.tables.Person.PERSON;
+import static org.finos.waltz.schema.tables.SurveyInstanceRecipient.SURVEY_INSTANCE_RECIPIENT;
+
+
+/**
+ * Issues one survey run per {@link ScaleFactor#APPS_PER_SURVEY_RUN}
+ * applications.  Each run has instances for a proportion of the scaled
+ * applications and each instance has up to
+ * {@link ScaleFactor#MAX_RECIPIENTS_PER_SURVEY} recipients.
+ */
+public class ScaledSurveyGenerator implements ScaledDataGenerator {
+
+    private static final String SURVEY_RUN_SUFFIX = "(SCALED)"; // so we can delete previous generated data before rerun
+
+
+    @Override
+    public Set<Class<? extends ScaledDataGenerator>> dependencies() {
+        return asSet(ScaledAppGenerator.class);
+    }
+
+
+    @Override
+    public int create(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+        Random rnd = ctx.randomFor(this);
+
+        List<Long> templateIds = loadSortedIds(
+                dsl,
+                SURVEY_TEMPLATE.ID,
+                SURVEY_TEMPLATE.STATUS.eq("ACTIVE")
+                        .and(SURVEY_TEMPLATE.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())));
+        List<Long> personIds = loadSortedIds(dsl, PERSON.ID, PERSON.IS_REMOVED.isFalse());
+        List<Long> orgUnitIds = loadSortedIds(dsl, ORGANISATIONAL_UNIT.ID, ORGANISATIONAL_UNIT.PARENT_ID.isNull());
+
+        checkFalse(isEmpty(templateIds), "No active application survey templates found, please generate reference data (LoadAll) first");
+        checkFalse(isEmpty(personIds), "No people found, please generate reference data (LoadAll) first");
+        checkFalse(isEmpty(orgUnitIds), "No root org units found, please generate reference data (LoadAll) first");
+
+        List<Long> appIds = loadScaledAppIds(dsl);
+        LocalDate today = LocalDate.now();
+
+        int created = 0;
+        for (int runIdx = 0; runIdx < ctx.scaleFactor().numSurveyRuns(); runIdx++) {
+            SurveyRunRecord run = dsl.newRecord(SURVEY_RUN);
+            Long ownerId = pick(personIds, rnd);
+            run.setSurveyTemplateId(pick(templateIds, rnd));
+            run.setName(String.format("Scaled run %d %s", runIdx, SURVEY_RUN_SUFFIX));
+            run.setDescription("Generated by the scaled data generator");
+            run.setSelectorEntityKind(EntityKind.ORG_UNIT.name());
+            run.setSelectorEntityId(pick(orgUnitIds, rnd));
+            run.setSelectorHierarchyScope(HierarchyQueryScope.CHILDREN.name());
+            run.setIssuedOn(Date.valueOf(today));
+            run.setDueDate(Date.valueOf(today.plusDays(30 + rnd.nextInt(90))));
+            run.setApprovalDueDate(Date.valueOf(today.plusDays(120)));
+            run.setIssuanceKind(SurveyIssuanceKind.GROUP.name());
+            run.setOwnerId(ownerId);
+            run.setContactEmail("scaled-" + ownerId + "@example.com");
+            run.setStatus(SurveyRunStatus.ISSUED.name());
+            run.store();
+            created++;
+
+            List<SurveyInstanceRecord> instances = new ArrayList<>();
+            for (Long appId : appIds) {
+                if (rnd.nextDouble() >= ScaleFactor.SURVEYED_APP_PROPORTION) {
+                    continue;
+                }
+                SurveyInstanceRecord instance = new SurveyInstanceRecord();
+                instance.setSurveyRunId(run.getId());
+                instance.setEntityKind(EntityKind.APPLICATION.name());
+                instance.setEntityId(appId);
+                instance.setStatus(SurveyInstanceStatus.NOT_STARTED.name());
+                instance.setDueDate(run.getDueDate());
+                instance.setApprovalDueDate(run.getApprovalDueDate());
+                instance.setIssuedOn(run.getIssuedOn());
+                instance.setName(run.getName());
+                instances.add(instance);
+            }
+            created += ctx.bulkLoad(instances);
+
+            List<Long> instanceIds = loadSortedIds(dsl, SURVEY_INSTANCE.ID, SURVEY_INSTANCE.SURVEY_RUN_ID.eq(run.getId()));
+            List<SurveyInstanceRecipientRecord> recipients = new ArrayList<>();
+            for (Long instanceId : instanceIds) {
+                int howMany = 1 + rnd.nextInt(ScaleFactor.MAX_RECIPIENTS_PER_SURVEY);
+                Set<Long> seen = new HashSet<>();
+                for (int i = 0; i < howMany; i++) {
+                    Long personId = pick(personIds, rnd);
+                    if (seen.add(personId)) {
+                        SurveyInstanceRecipientRecord recipient = new SurveyInstanceRecipientRecord();
+                        recipient.setSurveyInstanceId(instanceId);
+                        recipient.setPersonId(personId);
+                        recipients.add(recipient);
+                    }
+                }
+            }
+            created += ctx.bulkLoad(recipients);
+        }
+
+        return created;
+    }
+
+
+    @Override
+    public int remove(ScaledGenerationContext ctx) {
+        DSLContext dsl = ctx.dsl();
+
+        Condition scaledRunCondition = SURVEY_RUN.NAME.like("% " + SURVEY_RUN_SUFFIX);
+
+        Select<Record1<Long>> surveyRunIdSelector = DSL
+                .select(SURVEY_RUN.ID)
+                .from(SURVEY_RUN)
+                .where(scaledRunCondition);
+
+        Select<Record1<Long>> surveyInstanceIdSelector = DSL
+                .select(SURVEY_INSTANCE.ID)
+                .from(SURVEY_INSTANCE)
+                .where(SURVEY_INSTANCE.SURVEY_RUN_ID.in(surveyRunIdSelector));
+
+        int recipientCount = dsl
+                .deleteFrom(SURVEY_INSTANCE_RECIPIENT)
+                .where(SURVEY_INSTANCE_RECIPIENT.SURVEY_INSTANCE_ID.in(surveyInstanceIdSelector))
+                .execute();
+
+        int instanceCount = dsl
+                .deleteFrom(SURVEY_INSTANCE)
+                .where(SURVEY_INSTANCE.SURVEY_RUN_ID.in(surveyRunIdSelector))
+                .execute();
+
+        int runCount = dsl
+                .deleteFrom(SURVEY_RUN)
+                .where(scaledRunCondition)
+                .execute();
+
+        return recipientCount + instanceCount + runCount;
+    }
+}
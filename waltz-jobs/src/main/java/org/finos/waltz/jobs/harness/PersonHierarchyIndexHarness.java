@@ -0,0 +1,150 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.harness;
+
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.common.hierarchy.Forest;
+import org.finos.waltz.common.hierarchy.HierarchyUtilities;
+import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compares the previous, forest based, person hierarchy calculation with
+ * {@link PersonHierarchyIndex} over a synthetic organisation.  No database
+ * is required.
+ *
+ * Usage: <code>PersonHierarchyIndexHarness [people=300000] [iterations=5]</code>
+ *
+ * For each approach the harness reports the mean time to derive every
+ * (manager, employee, level) row and the heap retained by the structure.
+ */
+public class PersonHierarchyIndexHarness {
+
+    private static final int MAX_REPORTS = 12;
+
+
+    public static void main(String[] args) {
+        int people = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String[][] pairs = mkOrganisation(people, new Random(42));
+
+        System.out.printf("People: %d, iterations: %d%n", people, iterations);
+
+        measure("forest", iterations, () -> mkForest(pairs), PersonHierarchyIndexHarness::countRows);
+        measure("index", iterations, () -> mkIndex(pairs), PersonHierarchyIndexHarness::countRows);
+    }
+
+
+    private static <T> void measure(String name,
+                                    int iterations,
+                                    Supplier<T> builder,
+                                    ToLongFunction<T> rowCounter) {
+        // warm up
+        rowCounter.applyAsLong(builder.get());
+
+        long rows = 0;
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            long st = System.nanoTime();
+            rows = rowCounter.applyAsLong(builder.get());
+            total += System.nanoTime() - st;
+        }
+
+        long before = usedHeap();
+        T retained = builder.get();
+        long after = usedHeap();
+
+        System.out.printf(
+                "[%s] rows: %d, mean: %dms, retained heap: %dKB (%s)%n",
+                name,
+                rows,
+                total / iterations / 1_000_000,
+                (after - before) / 1024,
+                retained.getClass().getSimpleName());
+    }
+
+
+    private static String[][] mkOrganisation(int people, Random rnd) {
+        String[][] pairs = new String[people][];
+        pairs[0] = new String[] {"E0", null};
+        for (int i = 1; i < people; i++) {
+            // managers are always earlier employees, giving a realistic, broad, tree
+            int manager = Math.max(0, (i - 1) / (1 + rnd.nextInt(MAX_REPORTS)));
+            pairs[i] = new String[] {"E" + i, "E" + manager};
+        }
+        return pairs;
+    }
+
+
+    private static Forest<String, String> mkForest(String[][] pairs) {
+        List<FlatNode<String, String>> flatNodes = new ArrayList<>(pairs.length);
+        for (String[] pair : pairs) {
+            flatNodes.add(new FlatNode<>(pair[0], Optional.ofNullable(pair[1]), pair[0]));
+        }
+        return HierarchyUtilities.toForest(flatNodes);
+    }
+
+
+    private static PersonHierarchyIndex mkIndex(String[][] pairs) {
+        PersonHierarchyIndex.Builder builder = PersonHierarchyIndex.builder();
+        for (String[] pair : pairs) {
+            builder.add(pair[0], pair[1]);
+        }
+        return builder.build();
+    }
+
+
+    private static long countRows(Forest<String, String> forest) {
+        long rows = 0;
+        for (Node<String, String> node : forest.getAllNodes().values()) {
+            rows += HierarchyUtilities.parents(node).size();
+        }
+        return rows;
+    }
+
+
+    private static long countRows(PersonHierarchyIndex index) {
+        long rows = 0;
+        for (int idx = 0; idx < index.size(); idx++) {
+            int ancestor = index.parent(idx);
+            for (int level = index.depth(idx); level >= 1; level--) {
+                rows++;
+                ancestor = index.parent(ancestor);
+            }
+        }
+        return rows;
+    }
+
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
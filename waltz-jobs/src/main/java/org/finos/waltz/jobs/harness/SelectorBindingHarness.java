@@ -0,0 +1,107 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.jobs.harness;
+
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.service.DIConfiguration;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.ResultQuery;
+import org.jooq.impl.DSL;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+
+/**
+ * Compares fetching applications for many different org unit selectors with the
+ * selector rendered inline (a distinct statement per org unit) against the selector
+ * sent with bind parameters (a single statement text, allowing plan re-use).
+ *
+ * Usage: <code>SelectorBindingHarness [orgUnitCount=200] [rounds=3]</code>
+ */
+public class SelectorBindingHarness {
+
+    public static void main(String[] args) {
+        int orgUnitCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
+        DSLContext dsl = ctx.getBean(DSLContext.class);
+        ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+
+        List<Long> orgUnitIds = dsl
+                .select(ORGANISATIONAL_UNIT.ID)
+                .from(ORGANISATIONAL_UNIT)
+                .orderBy(ORGANISATIONAL_UNIT.ID)
+                .limit(orgUnitCount)
+                .fetch(ORGANISATIONAL_UNIT.ID);
+
+        Function<Long, Condition> mkCondition = ouId -> APPLICATION.ID.in(factory.apply(mkOpts(
+                mkRef(EntityKind.ORG_UNIT, ouId),
+                HierarchyQueryScope.CHILDREN)));
+
+        for (int round = 1; round <= rounds; round++) {
+            HarnessUtilities.time("inlined, round " + round, () -> run(
+                    dsl,
+                    orgUnitIds,
+                    ouId -> inlined(dsl, mkCondition.apply(ouId))));
+
+            HarnessUtilities.time("bound, round " + round, () -> run(
+                    dsl,
+                    orgUnitIds,
+                    ouId -> bindOrInline(dsl, mkCondition.apply(ouId))));
+        }
+
+        ctx.close();
+    }
+
+
+    private static Condition inlined(DSLContext dsl, Condition condition) {
+        return DSL.condition(dsl.renderInlined(condition));
+    }
+
+
+    private static String run(DSLContext dsl,
+                              List<Long> orgUnitIds,
+                              Function<Long, Condition> conditionProvider) {
+        Set<String> statements = new HashSet<>();
+        int rows = 0;
+        for (Long ouId : orgUnitIds) {
+            ResultQuery<?> qry = dsl
+                    .select(APPLICATION.ID, APPLICATION.NAME)
+                    .from(APPLICATION)
+                    .where(conditionProvider.apply(ouId));
+            statements.add(qry.getSQL());
+            rows += qry.fetch().size();
+        }
+        return String.format("queries: %d, distinct statements: %d, rows: %d", orgUnitIds.size(), statements.size(), rows);
+    }
+}
@@ -20,6 +20,7 @@ import org.jooq.impl.DSL;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import static java.lang.String.format;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.Tables.*;
@@ -94,7 +95,7 @@ public class FlowDiagramFromMeasurableGenerator {
             .from(mr)
             .innerJoin(eh).on(mr.MEASURABLE_ID.eq(eh.ID).and(eh.KIND.eq(EntityKind.MEASURABLE.name())))
             .innerJoin(app).on(app.ID.eq(mr.ENTITY_ID).and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
-            .where(tx.renderInlined(eh.ANCESTOR_ID.in(baseSelector).and(activeAppCondition)));
+            .where(bindOrInline(tx, eh.ANCESTOR_ID.in(baseSelector).and(activeAppCondition)));
     }
 
 
@@ -264,7 +265,7 @@ public class FlowDiagramFromMeasurableGenerator {
                 .selectDistinct(mr.ENTITY_ID)
                 .from(mr)
                 .innerJoin(app).on(app.ID.eq(mr.ENTITY_ID).and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
-                .where(tx.renderInlined(cond));
+                .where(bindOrInline(tx, cond));
     }
 
 
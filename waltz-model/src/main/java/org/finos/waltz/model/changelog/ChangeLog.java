@@ -38,6 +38,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 @JsonDeserialize(as = ImmutableChangeLog.class)
 public abstract class ChangeLog {
 
+    public abstract Optional<Long> id();
     public abstract EntityReference parentReference();
     public abstract String message();
     public abstract String userId();
@@ -0,0 +1,76 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.changelog;
+
+import org.immutables.value.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+
+
+/**
+ * Position in a newest-first change log listing, change log entries are
+ * ordered by (<code>createdAt</code>, <code>id</code>) descending.  The
+ * cursor is exchanged with clients as an opaque token.
+ */
+@Value.Immutable
+public abstract class ChangeLogCursor {
+
+    private static final String SEPARATOR = "|";
+
+    public abstract LocalDateTime createdAt();
+    public abstract long id();
+
+
+    public String toToken() {
+        String raw = createdAt() + SEPARATOR + id();
+        return Base64
+                .getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    public static ChangeLogCursor mkCursor(LocalDateTime createdAt, long id) {
+        return ImmutableChangeLogCursor
+                .builder()
+                .createdAt(createdAt)
+                .id(id)
+                .build();
+    }
+
+
+    public static ChangeLogCursor parse(String token) {
+        checkNotEmpty(token, "token cannot be empty");
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            return mkCursor(
+                    LocalDateTime.parse(raw.substring(0, idx)),
+                    Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid change log cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.client_cache_key;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+
+/**
+ * Notification that data held under a cache key (the same keys used by
+ * {@link ClientCacheKey}) has changed.  If an entity reference is given only
+ * entries for that entity need to be invalidated, otherwise everything held
+ * under the key should be discarded.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableCacheInvalidationEvent.class)
+@JsonDeserialize(as = ImmutableCacheInvalidationEvent.class)
+public abstract class CacheInvalidationEvent {
+
+    public abstract Optional<Long> id();
+    public abstract String cacheKey();
+    public abstract Optional<EntityReference> entityReference();
+    public abstract Operation operation();
+
+    /**
+     * Identifies the node which published the event, nodes do not re-apply their own events.
+     */
+    public abstract String nodeId();
+
+
+    @Value.Default
+    public LocalDateTime publishedAt() {
+        return DateTimeUtilities.nowUtc();
+    }
+}
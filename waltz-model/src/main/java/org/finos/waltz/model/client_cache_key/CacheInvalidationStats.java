@@ -0,0 +1,48 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.client_cache_key;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+
+/**
+ * Point in time view of how far this node has read the cache invalidation
+ * events published by the cluster.  Lag is the time between an event being
+ * published and this node delivering it to its subscribers.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableCacheInvalidationStats.class)
+@JsonDeserialize(as = ImmutableCacheInvalidationStats.class)
+public abstract class CacheInvalidationStats {
+
+    public abstract String nodeId();
+    public abstract long highWaterMark();
+    public abstract int subscriberCount();
+    public abstract long publishedCount();
+    public abstract long receivedCount();
+    public abstract int pendingGapCount();
+    public abstract Optional<LocalDateTime> lastPolledAt();
+    public abstract Optional<Long> lastLagMillis();
+    public abstract long maxLagMillis();
+}
@@ -0,0 +1,43 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.cost;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+
+/**
+ * Outcome of populating the allocated costs for a single
+ * {@link AllocatedCostDefinition}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableAllocatedCostPopulationSummary.class)
+@JsonDeserialize(as = ImmutableAllocatedCostPopulationSummary.class)
+public abstract class AllocatedCostPopulationSummary {
+
+    public abstract AllocatedCostDefinition definition();
+    public abstract int year();
+    public abstract int ratingCount();
+    public abstract int createdCount();
+    public abstract int updatedCount();
+    public abstract int removedCount();
+    public abstract int unchangedCount();
+    public abstract long durationMillis();
+}
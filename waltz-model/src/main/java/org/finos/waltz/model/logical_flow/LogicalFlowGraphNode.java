@@ -0,0 +1,48 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+/**
+ * A node reached whilst traversing the logical flow graph along with the
+ * number of hops taken to reach it from the starting node.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLogicalFlowGraphNode.class)
+@JsonDeserialize(as = ImmutableLogicalFlowGraphNode.class)
+public abstract class LogicalFlowGraphNode {
+
+    public abstract EntityReference entityReference();
+
+    public abstract int depth();
+
+
+    public static LogicalFlowGraphNode mkNode(EntityReference ref, int depth) {
+        return ImmutableLogicalFlowGraphNode
+                .builder()
+                .entityReference(ref)
+                .depth(depth)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.Nullable;
+import org.immutables.value.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The cells of a single grid column held as parallel arrays.
+ *
+ * Position <code>i</code> of every array describes the cell for the subject at
+ * <code>subjectIndexes[i]</code>.  Text, error and comment values are indexes into
+ * {@link CompactReportGridInstance#strings()} (<code>-1</code> for null), option and
+ * rating values are indexes into the shared option set and rating id set dictionaries.
+ *
+ * Arrays which would hold no values for the whole column are omitted.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableCompactReportGridColumn.class)
+@JsonDeserialize(as = ImmutableCompactReportGridColumn.class)
+public abstract class CompactReportGridColumn {
+
+    public static final int NO_VALUE = -1;
+
+    public abstract long columnDefinitionId();
+
+    public abstract int[] subjectIndexes();
+
+    public abstract int[] optionSetIndexes();
+
+    @Nullable
+    public abstract int[] ratingIdSetIndexes();
+
+    @Nullable
+    public abstract BigDecimal[] numberValues();
+
+    @Nullable
+    public abstract int[] textValues();
+
+    @Nullable
+    public abstract int[] errorValues();
+
+    @Nullable
+    public abstract int[] comments();
+
+    @Nullable
+    public abstract LocalDateTime[] dateTimeValues();
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columnar, dictionary encoded, equivalent of a {@link ReportGridInstance}.
+ *
+ * Subjects are sent once and referred to by their position in {@link #subjects()},
+ * repeated strings, option sets and rating id sets are sent once and referred to by
+ * their position in the corresponding dictionary.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableCompactReportGridInstance.class)
+@JsonDeserialize(as = ImmutableCompactReportGridInstance.class)
+public abstract class CompactReportGridInstance {
+
+    public abstract List<ReportSubject> subjects();  // rows, referenced by index
+
+    public abstract Set<RatingSchemeItem> ratingSchemeItems();  // color scheme
+
+    public abstract List<String> strings();  // text, error and comment dictionary
+
+    public abstract List<Set<CellOption>> optionSets();
+
+    public abstract List<Set<Long>> ratingIdSets();
+
+    public abstract List<CompactReportGridColumn> columns();
+}
@@ -0,0 +1,55 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * A single page of a grid view.  The <code>instance</code> only holds the subjects
+ * (and their cells) on this page, <code>subjectIds</code> gives their order.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableReportGridPage.class)
+@JsonDeserialize(as = ImmutableReportGridPage.class)
+public abstract class ReportGridPage {
+
+    public abstract ReportGridDefinition definition();
+
+    public abstract ReportGridInstance instance();
+
+    public abstract List<Long> subjectIds();  // rows on this page, in order
+
+    public abstract int totalCount();  // all subjects in the grid
+
+    public abstract int matchingCount();  // subjects passing the filters
+
+    public abstract int offset();
+
+    public abstract int limit();
+
+    @Value.Default
+    public ReportGridMemberRole userRole() {
+        return ReportGridMemberRole.VIEWER;
+    }
+}
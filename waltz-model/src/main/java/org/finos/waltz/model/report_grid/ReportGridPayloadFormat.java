@@ -0,0 +1,32 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+/**
+ * Wire formats in which a report grid view can be returned.
+ *
+ * <ul>
+ *     <li>STANDARD: one object per cell, see {@link ReportGridInstance}</li>
+ *     <li>COMPACT: per-column arrays plus shared dictionaries, see {@link CompactReportGridInstance}</li>
+ * </ul>
+ */
+public enum ReportGridPayloadFormat {
+    STANDARD,
+    COMPACT
+}
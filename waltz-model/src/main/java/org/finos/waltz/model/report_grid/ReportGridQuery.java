@@ -0,0 +1,58 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes the window of a grid view to return.  Filters on different
+ * columns must all pass, the sort keys are applied in order (ties are broken
+ * by subject name) and <code>offset</code>/<code>limit</code> select the page.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableReportGridQuery.class)
+@JsonDeserialize(as = ImmutableReportGridQuery.class)
+public abstract class ReportGridQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 5000;
+
+    public abstract IdSelectionOptions selectionOptions();
+
+    public abstract Set<GridFilter> filters();
+
+    public abstract List<ReportGridSortKey> sortKeys();
+
+    @Value.Default
+    public int offset() {
+        return 0;
+    }
+
+    @Value.Default
+    public int limit() {
+        return DEFAULT_LIMIT;
+    }
+}
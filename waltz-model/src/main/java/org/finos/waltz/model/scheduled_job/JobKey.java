@@ -40,5 +40,11 @@ public enum JobKey {
 
     ALLOCATED_COSTS_POPULATOR,
     RIPPLE_ASSESSMENTS,
-    COMPLEXITY_REBUILD_MEASURABLE
+    COMPLEXITY_REBUILD_MEASURABLE,
+    CHANGE_LOG_ROLLUP_REBUILD,
+    CHANGE_LOG_ROLLUP_ROLL_FORWARD,
+    CHANGE_LOG_ARCHIVE,
+    SELECTOR_ROLLUP_REBUILD,
+    SELECTOR_ROLLUP_REFRESH,
+    APP_GROUP_RESOLVED_MEMBER_REBUILD
 }
@@ -3,6 +3,7 @@ import _ from "lodash";
 import {$http} from "../../../common/WaltzHttp"
 import {
     combineColDefs,
+    decodeCompactView,
     determineDefaultColumnOptions,
     mkRowFilter,
     prepareData,
@@ -29,17 +30,18 @@ function selectGrid(gridId, opts) {
     selectionOptions.set(opts);
 
     return $http
-        .post(`api/report-grid/view/id/${gridId}`, opts)
+        .post(`api/report-grid/view/id/${gridId}?format=compact`, opts)
         .then(d => {
-            const cols = combineColDefs(d.data.definition);
-            gridDefinition.set(d.data.definition);
-            gridInstance.set(d.data.instance);
-            gridMembers.set(d.data.members);
+            const view = decodeCompactView(d.data);
+            const cols = combineColDefs(view.definition);
+            gridDefinition.set(view.definition);
+            gridInstance.set(view.instance);
+            gridMembers.set(view.members);
             columnDefs.set(cols);
-            userRole.set(d.data.userRole);
+            userRole.set(view.userRole);
             hasDirtyColumns.set(false);
-            preparedTableData.set(prepareData(d.data.instance, cols));
-            return d.data;
+            preparedTableData.set(prepareData(view.instance, cols));
+            return view;
         });
 }
 
@@ -421,6 +421,56 @@ export function combineColDefs(definition) {
 }
 
 
+/**
+ * Expands a compact (columnar, dictionary encoded) grid instance, as returned by
+ * `view/id/:id?format=compact`, back into the standard `{subjects, ratingSchemeItems, cellData}`
+ * shape.  Mirrors `CompactReportGridCodec.decode` on the server.
+ *
+ * @param compact  compact grid instance
+ * @returns standard grid instance
+ */
+export function decodeCompactInstance(compact) {
+    const lookup = (indexes, i) => _.isNil(indexes) || indexes[i] === -1
+        ? null
+        : compact.strings[indexes[i]];
+
+    const cellData = _.flatMap(
+        compact.columns,
+        col => _.map(
+            col.subjectIndexes,
+            (subjectIdx, i) => ({
+                columnDefinitionId: col.columnDefinitionId,
+                subjectId: compact.subjects[subjectIdx].entityReference.id,
+                options: compact.optionSets[col.optionSetIndexes[i]],
+                ratingIdValues: _.isNil(col.ratingIdSetIndexes)
+                    ? []
+                    : compact.ratingIdSets[col.ratingIdSetIndexes[i]],
+                numberValue: _.isNil(col.numberValues) ? null : col.numberValues[i],
+                textValue: lookup(col.textValues, i),
+                errorValue: lookup(col.errorValues, i),
+                comment: lookup(col.comments, i),
+                dateTimeValue: _.isNil(col.dateTimeValues) ? null : col.dateTimeValues[i]
+            })));
+
+    return {
+        subjects: compact.subjects,
+        ratingSchemeItems: compact.ratingSchemeItems,
+        cellData
+    };
+}
+
+
+/**
+ * Converts a compact grid view into the standard view shape.
+ *
+ * @param view  compact grid view (definition, instance, members, userRole)
+ * @returns grid view with a standard instance
+ */
+export function decodeCompactView(view) {
+    return Object.assign({}, view, {instance: decodeCompactInstance(view.instance)});
+}
+
+
 export function prepareData(instance, columnDefs) {
 
     if (_.isEmpty(columnDefs)) {
@@ -16,6 +16,9 @@
  *
  */
 
+import {decodeCompactView} from "../components/svelte/report-grid-utils";
+
+
 function store($http, baseUrl) {
 
     const BASE = `${baseUrl}/report-grid`;
@@ -28,8 +31,8 @@ function store($http, baseUrl) {
 
     const getViewById = (id, selectionOptions) => {
         return $http
-            .post(`${BASE}/view/id/${id}`, selectionOptions)
-            .then(result => result.data);
+            .post(`${BASE}/view/id/${id}?format=compact`, selectionOptions)
+            .then(result => decodeCompactView(result.data));
     };
 
     const getDefinitionById = (id) => {
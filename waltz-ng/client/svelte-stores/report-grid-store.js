@@ -35,6 +35,14 @@ export function mkReportGridStore() {
     const getViewById = (id, selectionOptions, force = false) => remote
         .fetchViewData("POST", `api/report-grid/view/id/${id}`, selectionOptions, null, {force});
 
+    /**
+     * Returns a single filtered and sorted page of the grid plus the total and matching subject counts.
+     * The query is `{selectionOptions, filters: [{columnDefinitionId, filterOperator, filterValues}],
+     * sortKeys: [{columnDefinitionId, ascending}], offset, limit}`.
+     */
+    const queryViewById = (id, query, force = false) => remote
+        .fetchViewData("POST", `api/report-grid/view/id/${id}/query`, query, null, {force});
+
     const findAdditionalColumnOptionsForKind = (kind, force = false) => remote
         .fetchViewList("GET", `api/report-grid/additional-column-options/kind/${kind}`, [], {force});
 
@@ -68,6 +76,7 @@ export function mkReportGridStore() {
         findInfoForUser,
         findAdditionalColumnOptionsForKind,
         getViewById,
+        queryViewById,
         updateColumnDefinitions,
         create,
         update,
@@ -21,8 +21,12 @@ package org.finos.waltz.service;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.JooqUtilities;
+import org.finos.waltz.data.TransactionCallbacks;
+import org.finos.waltz.data.replica.ReadReplicaRouter;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
@@ -37,6 +41,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 
 @Configuration
@@ -74,6 +79,21 @@ public class DIBaseConfiguration {
     @Value("${database.performance.query.slow.threshold:10}")
     private int databasePerformanceQuerySlowThreshold;
 
+    @Value("${database.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${database.replica.user:${database.user}}")
+    private String replicaUser;
+
+    @Value("${database.replica.password:${database.password}}")
+    private String replicaPassword;
+
+    @Value("${database.replica.pool.max:${database.pool.max:10}}")
+    private int replicaPoolMax;
+
+    @Value("${database.replica.max.lag.seconds:30}")
+    private int replicaMaxLagSeconds;
+
     @Bean
     public DataSource dataSource() {
 
@@ -88,6 +108,30 @@ public class DIBaseConfiguration {
     }
 
 
+    @Bean
+    @Autowired
+    public ReadReplicaRouter readReplicaRouter(DataSource dataSource) {
+        if (StringUtilities.isEmpty(replicaUrl)) {
+            return ReadReplicaRouter.primaryOnly(dataSource);
+        }
+
+        HikariConfig dsConfig = new HikariConfig();
+        dsConfig.setJdbcUrl(replicaUrl);
+        dsConfig.setUsername(replicaUser);
+        dsConfig.setPassword(replicaPassword);
+        dsConfig.setDriverClassName(dbDriver);
+        dsConfig.setMaximumPoolSize(replicaPoolMax);
+        dsConfig.setMinimumIdle(dbPoolMin);
+        dsConfig.setReadOnly(true);
+
+        return new ReadReplicaRouter(
+                dataSource,
+                new HikariDataSource(dsConfig),
+                SQLDialect.valueOf(dialect),
+                Duration.ofSeconds(replicaMaxLagSeconds));
+    }
+
+
     @Bean
     public DBExecutorPoolInterface dbExecutorPool() {
         return new DBExecutorPool(dbPoolMin, dbPoolMax);
@@ -96,7 +140,7 @@ public class DIBaseConfiguration {
 
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(ReadReplicaRouter readReplicaRouter) {
         try {
             SQLDialect.valueOf(dialect);
         } catch (IllegalArgumentException iae) {
@@ -105,8 +149,12 @@ public class DIBaseConfiguration {
         }
 
         // TODO: remove sql server setting, see #4553
+        // in-list padding keeps the number of distinct statement texts (and therefore cached plans) bounded,
+        // but not on sql server where padding (e.g. 2049 values up to 4096) breaks the 2100 parameter limit,
+        // id lists there are padded by JooqUtilities.inIds instead
         Settings dslSettings = new Settings()
-                .withRenderOutputForSQLServerReturningClause(false);
+                .withRenderOutputForSQLServerReturningClause(false)
+                .withInListPadding(! JooqUtilities.isSQLServer(SQLDialect.valueOf(dialect)));
 
         if ("true".equals(System.getProperty(JOOQ_DEBUG_PROPERTY))) {
             dslSettings
@@ -115,13 +163,15 @@ public class DIBaseConfiguration {
         }
 
         org.jooq.Configuration configuration = new DefaultConfiguration()
-                .set(dataSource)
+                .set(readReplicaRouter.dataSource())
                 .set(SQLDialect.valueOf(dialect))
                 .set(dslSettings)
                 .set(
                     //new SlowDatabaseConnectionSimulator(2000),
                     new SlowQueryListener(databasePerformanceQuerySlowThreshold),
-                    new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
+                    new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()),
+                    readReplicaRouter.writeListener())
+                .set(TransactionCallbacks.LISTENER);
 
         return DSL.using(configuration);
     }
@@ -25,6 +25,7 @@ import org.finos.waltz.data.app_group.AppGroupDao;
 import org.finos.waltz.data.app_group.AppGroupEntryDao;
 import org.finos.waltz.data.app_group.AppGroupMemberDao;
 import org.finos.waltz.data.app_group.AppGroupOrganisationalUnitDao;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
 import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
@@ -87,6 +88,7 @@ public class AppGroupService {
     private final AppGroupEntryDao appGroupEntryDao;
     private final ApplicationDao applicationDao;
     private final AppGroupOrganisationalUnitDao appGroupOrganisationalUnitDao;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
     private final OrganisationalUnitDao organisationalUnitDao;
     private final EntityRelationshipDao entityRelationshipDao;
     private final ChangeInitiativeService changeInitiativeService;
@@ -99,6 +101,7 @@ public class AppGroupService {
                            AppGroupEntryDao appGroupEntryDao,
                            ApplicationDao applicationDao,
                            AppGroupOrganisationalUnitDao appGroupOrganisationalUnitDao,
+                           AppGroupResolvedMemberDao appGroupResolvedMemberDao,
                            OrganisationalUnitDao organisationalUnitDao,
                            EntityRelationshipDao entityRelationshipDao,
                            ChangeInitiativeService changeInitiativeService,
@@ -108,6 +111,7 @@ public class AppGroupService {
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(appGroupOrganisationalUnitDao, "appGroupOrganisationalUnitDao cannot be null");
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao cannot be null");
         checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
         checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
         checkNotNull(changeInitiativeService, "changeInitiativeService cannot be null");
@@ -118,6 +122,7 @@ public class AppGroupService {
         this.appGroupEntryDao = appGroupEntryDao;
         this.applicationDao = applicationDao;
         this.appGroupOrganisationalUnitDao = appGroupOrganisationalUnitDao;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
         this.organisationalUnitDao = organisationalUnitDao;
         this.entityRelationshipDao = entityRelationshipDao;
         this.changeInitiativeService = changeInitiativeService;
@@ -510,6 +515,7 @@ public class AppGroupService {
         LOG.debug("Additions: {}, Removals: {}", additions.size(), removals.size());
 
         appGroupDao.processAdditionsAndRemovals(additions, removals, userId);
+        appGroupResolvedMemberDao.refreshForGroups(groupIds);
 
         int changeLogCount = summarizeResults(Stream
                 .concat(additions.stream().map(t -> t.concat(Operation.ADD)),
@@ -18,6 +18,8 @@
 
 package org.finos.waltz.service.application;
 
+import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.application.search.ApplicationSearchDao;
@@ -42,6 +44,7 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -50,6 +53,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 
 
@@ -58,6 +62,7 @@ public class ApplicationService {
 
 
     private final ApplicationDao applicationDao;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
     private final TagService tagService;
     private final EntityAliasDao entityAliasDao;
     private final ApplicationSearchDao appSearchDao;
@@ -66,15 +71,18 @@ public class ApplicationService {
 
     @Autowired
     public ApplicationService(ApplicationDao appDao,
+                              AppGroupResolvedMemberDao appGroupResolvedMemberDao,
                               TagService tagService,
                               EntityAliasDao entityAliasDao,
                               ApplicationSearchDao appSearchDao) {
         checkNotNull(appDao, "appDao must not be null");
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao must not be null");
         checkNotNull(tagService, "tagService must not be null");
         checkNotNull(entityAliasDao, "entityAliasDao must not be null");
         checkNotNull(appSearchDao, "appSearchDao must not be null");
 
         this.applicationDao = appDao;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
         this.tagService = tagService;
         this.entityAliasDao = entityAliasDao;
         this.appSearchDao = appSearchDao;
@@ -132,6 +140,7 @@ public class ApplicationService {
                     request.aliases());
 
             tagService.updateTags(entityReference, request.tags(), username);
+            appGroupResolvedMemberDao.refreshForOrgUnits(asSet(request.organisationalUnitId()));
         }
 
         return response;
@@ -139,7 +148,22 @@ public class ApplicationService {
 
 
     public Integer update(Application application) {
-        return applicationDao.update(application);
+        Long previousOrgUnitId = application
+                .id()
+                .map(applicationDao::getById)
+                .map(Application::organisationalUnitId)
+                .orElse(null);
+
+        Integer result = applicationDao.update(application);
+
+        if (!Objects.equals(previousOrgUnitId, application.organisationalUnitId())) {
+            // app groups with org unit entries may have gained or lost this application
+            appGroupResolvedMemberDao.refreshForOrgUnits(SetUtilities.filter(
+                    asSet(previousOrgUnitId, application.organisationalUnitId()),
+                    Objects::nonNull));
+        }
+
+        return result;
     }
 
 
@@ -10,9 +10,12 @@ import org.finos.waltz.model.assessment_rating.bulk_upload.AssessmentRatingParse
 import org.finos.waltz.model.assessment_rating.bulk_upload.AssessmentRatingParsedResult;
 import org.finos.waltz.model.assessment_rating.bulk_upload.ImmutableAssessmentRatingParseError;
 import org.finos.waltz.model.assessment_rating.bulk_upload.ImmutableAssessmentRatingParsedResult;
+import org.finos.waltz.service.bulk_upload.XlsxRowReader;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -53,6 +56,29 @@ public class BulkAssessmentRatingItemParser {
         }
     }
 
+
+    /**
+     * Reads items from the first sheet of an xlsx workbook.  The sheet is
+     * streamed, rows are converted to items one at a time, so the workbook
+     * itself is never held in memory.  The first row must contain the same
+     * column headers as the delimited formats.
+     */
+    public AssessmentRatingParsedResult parseXlsx(InputStream input) {
+        List<AssessmentRatingParsedItem> items = new ArrayList<>();
+        try {
+            XlsxRowReader.readItems(input, AssessmentRatingParsedItem.class, items::add);
+            return AssessmentRatingParsedResult.mkResult(items, null);
+        } catch (IOException | IllegalArgumentException e) {
+            return ImmutableAssessmentRatingParsedResult
+                    .builder()
+                    .error(ImmutableAssessmentRatingParseError
+                            .builder()
+                            .message(e.getMessage())
+                            .build())
+                    .build();
+        }
+    }
+
     private AssessmentRatingParsedResult parseTSV(String input) throws IOException {
         List<AssessmentRatingParsedItem> items = attemptToParseDelimited(input, configureTSVSchema());
         return AssessmentRatingParsedResult.mkResult(items, input);
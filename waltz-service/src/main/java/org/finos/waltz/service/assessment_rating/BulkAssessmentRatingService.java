@@ -17,6 +17,7 @@ import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.records.AssessmentRatingRecord;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.finos.waltz.service.assessment_definition.AssessmentDefinitionService;
+import org.finos.waltz.service.changelog.ChangeLogRollupService;
 import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.finos.waltz.service.user.UserRoleService;
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -60,24 +62,45 @@ public class BulkAssessmentRatingService {
 
     private final UserRoleService userRoleService;
 
+    private final ChangeLogRollupService changeLogRollupService;
+
     private final DSLContext dsl;
 
     private final org.finos.waltz.schema.tables.AssessmentRating ar = Tables.ASSESSMENT_RATING;
 
 
     @Autowired
-    public BulkAssessmentRatingService(AssessmentDefinitionService assessmentDefinitionService, AssessmentRatingService assessmentRatingService, RatingSchemeService ratingSchemeService, UserRoleService userRoleService, DSLContext dsl) {
+    public BulkAssessmentRatingService(AssessmentDefinitionService assessmentDefinitionService, AssessmentRatingService assessmentRatingService, RatingSchemeService ratingSchemeService, UserRoleService userRoleService, ChangeLogRollupService changeLogRollupService, DSLContext dsl) {
         this.assessmentDefinitionService = assessmentDefinitionService;
         this.assessmentRatingService = assessmentRatingService;
         this.ratingSchemeService = ratingSchemeService;
         this.userRoleService = userRoleService;
+        this.changeLogRollupService = changeLogRollupService;
         this.dsl = dsl;
     }
 
     public AssessmentRatingValidationResult bulkPreview(EntityReference assessmentReference,
                                                         String inputStr) {
+        return bulkPreview(
+                assessmentReference,
+                new BulkAssessmentRatingItemParser().parse(inputStr, BulkAssessmentRatingItemParser.InputFormat.TSV));
+    }
+
+
+    /**
+     * As {@link #bulkPreview(EntityReference, String)} but reads the ratings
+     * from the first sheet of an xlsx workbook.
+     */
+    public AssessmentRatingValidationResult bulkPreview(EntityReference assessmentReference,
+                                                        InputStream xlsxInput) {
+        return bulkPreview(
+                assessmentReference,
+                new BulkAssessmentRatingItemParser().parseXlsx(xlsxInput));
+    }
+
 
-        AssessmentRatingParsedResult result = new BulkAssessmentRatingItemParser().parse(inputStr, BulkAssessmentRatingItemParser.InputFormat.TSV);
+    private AssessmentRatingValidationResult bulkPreview(EntityReference assessmentReference,
+                                                         AssessmentRatingParsedResult result) {
         if (result.error() != null) {
             return ImmutableAssessmentRatingValidationResult
                     .builder()
@@ -312,6 +335,7 @@ public class BulkAssessmentRatingService {
                     int updateCount = summarizeResults(tx.batch(toUpdate).execute());
                     int removalCount = 0;
                     int changeLogCount = summarizeResults(tx.batchInsert(auditLogs).execute());
+                    changeLogRollupService.recordChanges(tx, auditLogs);
 
                     LOG.info(
                             "Batch assessment rating: {} adds, {} updates, {} removes, {} changeLogs",
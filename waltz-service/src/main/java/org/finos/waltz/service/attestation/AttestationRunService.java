@@ -56,6 +56,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -67,6 +68,7 @@ import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.ListUtilities.isEmpty;
+import static org.finos.waltz.common.ListUtilities.map;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
@@ -261,16 +263,15 @@ public class AttestationRunService {
                 ));
 
 
-        // insert new instances and recipients
+        // insert new instances, their ids are needed for the recipients
+        Map<Long, List<String>> recipientUserIdsByInstanceId = new HashMap<>();
         instancesAndRecipientsToSave.forEach(
-                (k, v) -> {
-                    // create instance
-                    long instanceId = attestationInstanceDao.create(k);
-
-                    // create recipients for the instance
-                    v.forEach(r -> attestationInstanceRecipientDao.create(instanceId, r.userId()));
-                }
-        );
+                (k, v) -> recipientUserIdsByInstanceId.put(
+                        attestationInstanceDao.create(k),
+                        map(v, AttestationInstanceRecipient::userId)));
+
+        // then bulk load the recipients for all instances in one go
+        attestationInstanceRecipientDao.createAll(recipientUserIdsByInstanceId);
     }
 
 
@@ -0,0 +1,249 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.bulk_upload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.finos.waltz.common.StringUtilities;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.containsDuplicates;
+import static org.finos.waltz.common.StringUtilities.safeTrim;
+
+/**
+ * Reads the first sheet of an xlsx workbook using POI's event (SAX) model.
+ *
+ * Unlike <code>XSSFWorkbook</code> the sheet is never materialised, each
+ * row is handed to the consumer as soon as it has been parsed and is then
+ * discarded.  The content is spooled to a temporary file first, as opening
+ * a package from a stream would inflate every part into memory.  Only the
+ * shared strings and styles tables are held in memory.  Cell values are the
+ * formatted values as displayed by Excel.
+ */
+public class XlsxRowReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+
+    /**
+     * Streams each non-empty row of the first sheet to the consumer.  Missing
+     * cells within a row are represented by <code>null</code> values so that
+     * column offsets are preserved.
+     *
+     * @param input    xlsx content, the caller remains responsible for closing it
+     * @param consumer called with each row, in sheet order
+     * @return number of rows passed to the consumer
+     * @throws IOException if the content cannot be read as an xlsx workbook
+     */
+    public static int readRows(InputStream input,
+                               Consumer<TabularRow> consumer) throws IOException {
+        checkNotNull(input, "input cannot be null");
+        checkNotNull(consumer, "consumer cannot be null");
+
+        RowHandler handler = new RowHandler(consumer);
+        Path spooled = Files.createTempFile("waltz-xlsx-", ".xlsx");
+
+        try {
+            Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            readRows(spooled, handler);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+
+        return handler.rowCount;
+    }
+
+
+    private static void readRows(Path spooled,
+                                 RowHandler handler) throws IOException {
+        OPCPackage pkg = openPackage(spooled);
+
+        try {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+
+            if (! sheets.hasNext()) {
+                throw new IOException("Workbook does not contain any sheets");
+            }
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles,
+                        null,
+                        strings,
+                        handler,
+                        new DataFormatter(),
+                        false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Could not read xlsx content: " + e.getMessage(), e);
+        } finally {
+            // opened read-only, revert closes the package without attempting to save it
+            pkg.revert();
+        }
+    }
+
+
+    /**
+     * Treats the first row of the sheet as a header and maps every subsequent
+     * row onto the given type, using the header names as property names.  This
+     * allows the existing (Jackson annotated) bulk upload item types, and their
+     * aliases, to be used unchanged.  Empty cells are omitted so that defaults
+     * declared on the item type apply.
+     *
+     * @param input    xlsx content, the caller remains responsible for closing it
+     * @param itemType type each row is converted into
+     * @param consumer called with each item, in sheet order
+     * @param <T>      item type
+     * @return number of items passed to the consumer
+     * @throws IOException if the content cannot be read as an xlsx workbook
+     * @throws IllegalArgumentException if a row cannot be converted to the item type
+     */
+    public static <T> int readItems(InputStream input,
+                                    Class<T> itemType,
+                                    Consumer<T> consumer) throws IOException {
+        checkNotNull(itemType, "itemType cannot be null");
+        checkNotNull(consumer, "consumer cannot be null");
+
+        List<String> headers = new ArrayList<>();
+
+        int rowCount = readRows(input, row -> {
+            if (headers.isEmpty()) {
+                Arrays.stream(row.values())
+                        .map(StringUtilities::safeTrim)
+                        .forEach(headers::add);
+                if (containsDuplicates(headers)) {
+                    throw new IllegalArgumentException("Duplicate header columns provided");
+                }
+                return;
+            }
+
+            Map<String, String> valuesByHeader = new LinkedHashMap<>();
+            String[] values = row.values();
+            for (int i = 0; i < Math.min(values.length, headers.size()); i++) {
+                String value = safeTrim(values[i]);
+                if (StringUtilities.notEmpty(headers.get(i)) && StringUtilities.notEmpty(value)) {
+                    valuesByHeader.put(headers.get(i), value);
+                }
+            }
+
+            try {
+                consumer.accept(MAPPER.convertValue(valuesByHeader, itemType));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        String.format("Could not read row %d: %s", row.rowNumber(), e.getMessage()),
+                        e);
+            }
+        });
+
+        // the header row is not an item
+        return Math.max(0, rowCount - 1);
+    }
+
+
+    private static OPCPackage openPackage(Path file) throws IOException {
+        try {
+            return OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException | UnsupportedFileFormatException e) {
+            throw new IOException("Could not open xlsx content: " + e.getMessage(), e);
+        }
+    }
+
+
+    private static class RowHandler implements SheetContentsHandler {
+
+        private final Consumer<TabularRow> consumer;
+        private final List<String> currentRow = new ArrayList<>();
+        private int rowCount = 0;
+
+
+        private RowHandler(Consumer<TabularRow> consumer) {
+            this.consumer = consumer;
+        }
+
+
+        @Override
+        public void startRow(int rowNum) {
+            currentRow.clear();
+        }
+
+
+        @Override
+        public void endRow(int rowNum) {
+            if (currentRow.stream().allMatch(StringUtilities::isEmpty)) {
+                return;
+            }
+
+            rowCount++;
+            consumer.accept(ImmutableTabularRow
+                    .builder()
+                    .rowNumber(rowNum + 1)
+                    .values(currentRow.toArray(new String[0]))
+                    .build());
+        }
+
+
+        @Override
+        public void cell(String cellReference,
+                         String formattedValue,
+                         XSSFComment comment) {
+            int col = cellReference == null
+                    ? currentRow.size()
+                    : new CellReference(cellReference).getCol();
+
+            while (currentRow.size() < col) {
+                currentRow.add(null);
+            }
+            currentRow.add(formattedValue);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.service.settings.SettingsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+
+/**
+ * Moves change log entries older than the configured age into the
+ * change log archive table.  Archived entries remain visible through the
+ * change log reads, they simply no longer weigh down the hot table.  The
+ * scheduler runs this daily, on a single node, as the CHANGE_LOG_ARCHIVE job.
+ *
+ * Archival is disabled unless the <code>change_log.archive.age.months</code>
+ * setting is present and positive.
+ */
+@Service
+public class ChangeLogArchiveService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogArchiveService.class);
+
+    public static final String ARCHIVE_AGE_MONTHS_SETTING = "change_log.archive.age.months";
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final ChangeLogDao changeLogDao;
+    private final SettingsService settingsService;
+
+
+    @Autowired
+    public ChangeLogArchiveService(ChangeLogDao changeLogDao,
+                                   SettingsService settingsService) {
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
+        checkNotNull(settingsService, "settingsService cannot be null");
+        this.changeLogDao = changeLogDao;
+        this.settingsService = settingsService;
+    }
+
+
+    /**
+     * @return number of entries moved to the archive (zero if archival is disabled)
+     */
+    public int archiveAgedEntries() {
+        int ageInMonths = settingsService
+                .getValue(ARCHIVE_AGE_MONTHS_SETTING)
+                .map(this::parseAgeInMonths)
+                .orElse(0);
+
+        if (ageInMonths <= 0) {
+            return 0;
+        }
+
+        LocalDateTime cutoff = nowUtc().minusMonths(ageInMonths);
+        long st = System.currentTimeMillis();
+        int archived = changeLogDao.archiveOlderThan(cutoff, BATCH_SIZE);
+
+        if (archived > 0) {
+            LOG.info("Archived {} change log entries older than {} in {}ms", archived, cutoff, System.currentTimeMillis() - st);
+        }
+
+        return archived;
+    }
+
+
+    private int parseAgeInMonths(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for setting: {}, expected a number of months but was: '{}', change log archival is disabled",
+                    ARCHIVE_AGE_MONTHS_SETTING,
+                    value);
+            return 0;
+        }
+    }
+}
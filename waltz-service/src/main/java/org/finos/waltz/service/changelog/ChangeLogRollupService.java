@@ -0,0 +1,110 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.data.changelog.ChangeLogRollupDao;
+import org.finos.waltz.schema.tables.records.ChangeLogRecord;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+
+/**
+ * Keeps the daily change log rollups (used by the change log summaries and
+ * the contribution leader boards) up to date.
+ *
+ * Once a day has been rolled up new entries are added to the rollups by the
+ * writers which call {@link #recordChanges} (the {@link ChangeLogService} and
+ * the bulk uploads), the hourly {@link #rollForward()} only has to roll up
+ * the new day and reconcile the previous one.  Entries written elsewhere (e.g.
+ * directly by a DAO) are picked up by that reconciliation.
+ */
+@Service
+public class ChangeLogRollupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogRollupService.class);
+
+    /**
+     * Number of already rolled up days to recompute, reconciles the counts
+     * maintained on write for the previous day.
+     */
+    private static final int OVERLAP_DAYS = 1;
+
+    private final ChangeLogRollupDao changeLogRollupDao;
+
+
+    @Autowired
+    public ChangeLogRollupService(ChangeLogRollupDao changeLogRollupDao) {
+        checkNotNull(changeLogRollupDao, "changeLogRollupDao cannot be null");
+        this.changeLogRollupDao = changeLogRollupDao;
+    }
+
+
+    /**
+     * Adds just written change log entries to the rollups, must be called in
+     * the transaction which wrote them.
+     *
+     * @param tx  the transaction used to write the entries
+     * @param changes  the change log entries written
+     */
+    public void recordChanges(DSLContext tx, Collection<ChangeLogRecord> changes) {
+        changeLogRollupDao.recordChanges(tx, changes);
+    }
+
+
+    /**
+     * Rolls the rollups forward to include today, if they do not already.
+     * If the rollups have never been built this performs the full backfill.
+     *
+     * @return number of rollup rows written
+     */
+    public int rollForward() {
+        LocalDate tomorrow = nowUtc().toLocalDate().plusDays(1);
+
+        return changeLogRollupDao
+                .getRolledUpUntil()
+                .map(rolledUpUntil -> rolledUpUntil.isBefore(tomorrow)
+                        ? changeLogRollupDao.rollupDays(rolledUpUntil.minusDays(OVERLAP_DAYS), tomorrow)
+                        : 0)
+                .orElseGet(this::rebuild);
+    }
+
+
+    /**
+     * Discards and rebuilds all rollups from the full change log.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild() {
+        LOG.info("Rebuilding change log rollups");
+        long st = System.currentTimeMillis();
+        int rowCount = changeLogRollupDao.rebuild(nowUtc().toLocalDate().plusDays(1));
+        LOG.info("Rebuilt change log rollups, rows: {}, duration: {}ms", rowCount, System.currentTimeMillis() - st);
+        return rowCount;
+    }
+}
@@ -32,7 +32,10 @@ import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogCursor;
+import org.finos.waltz.model.changelog.ChangeLogPage;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLogPage;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.measurable_rating.MeasurableRating;
@@ -41,6 +44,7 @@ import org.finos.waltz.model.measurable_rating_replacement.MeasurableRatingRepla
 import org.finos.waltz.model.physical_flow.PhysicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.tally.DateTally;
+import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.jooq.DSLContext;
 import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,8 +58,11 @@ import java.util.Optional;
 import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.SetUtilities.*;
 import static org.finos.waltz.model.EntityKind.*;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -66,6 +73,9 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
 @Service
 public class ChangeLogService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final ChangeLogDao changeLogDao;
     private final ChangeLogSummariesDao changeLogSummariesDao;
     private final PhysicalFlowDao physicalFlowDao;
@@ -76,6 +86,8 @@ public class ChangeLogService {
     private final MeasurableRatingDao measurableRatingDao;
     private final MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao;
     private final EntityReferenceNameResolver nameResolver;
+    private final ChangeLogRollupService changeLogRollupService;
+    private final DSLContext dsl;
 
 
     @Autowired
@@ -88,7 +100,9 @@ public class ChangeLogService {
                             MeasurableRatingReplacementDao measurableRatingReplacementDao,
                             MeasurableRatingDao measurableRatingdao,
                             MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao,
-                            EntityReferenceNameResolver nameResolver) {
+                            EntityReferenceNameResolver nameResolver,
+                            ChangeLogRollupService changeLogRollupService,
+                            DSLContext dsl) {
         checkNotNull(changeLogDao, "changeLogDao must not be null");
         checkNotNull(changeLogSummariesDao, "changeLogSummariesDao must not be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
@@ -98,6 +112,8 @@ public class ChangeLogService {
         checkNotNull(measurableRatingReplacementDao, "measurableRatingReplacementDao cannot be null");
         checkNotNull(measurableRatingPlannedDecommissionDao, "measurableRatingPlannedDecommissionDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
+        checkNotNull(changeLogRollupService, "changeLogRollupService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
 
         this.changeLogDao = changeLogDao;
         this.changeLogSummariesDao = changeLogSummariesDao;
@@ -109,6 +125,8 @@ public class ChangeLogService {
         this.measurableRatingReplacementdao = measurableRatingReplacementDao;
         this.measurableRatingPlannedDecommissionDao = measurableRatingPlannedDecommissionDao;
         this.nameResolver = nameResolver;
+        this.changeLogRollupService = changeLogRollupService;
+        this.dsl = dsl;
     }
 
 
@@ -152,18 +170,65 @@ public class ChangeLogService {
     }
 
 
+    /**
+     * Gives a page of the change log for the given entity (newest first),
+     * for people this includes changes made by that person.
+     *
+     * @param ref  entity of interest
+     * @param cursor  token from a previous page, if absent the newest entries are returned
+     * @param limit  page size, defaults to {@link #DEFAULT_PAGE_SIZE}
+     */
+    public ChangeLogPage getPageByReference(EntityReference ref,
+                                            Optional<String> cursor,
+                                            Optional<Integer> limit) {
+        checkNotNull(ref, "ref must not be null");
+        int pageSize = toPageSize(limit);
+        Optional<ChangeLogCursor> after = cursor.map(ChangeLogCursor::parse);
+
+        List<ChangeLog> entries = ref.kind() == EntityKind.PERSON
+                ? changeLogDao.findPageByPersonReference(ref, after, pageSize + 1)
+                : changeLogDao.findPageByParentReference(ref, after, pageSize + 1);
+
+        return mkPage(entries, pageSize);
+    }
+
+
+    public ChangeLogPage getPageByUser(String userName,
+                                       Optional<String> cursor,
+                                       Optional<Integer> limit) {
+        checkNotEmpty(userName, "Username cannot be empty");
+        int pageSize = toPageSize(limit);
+        Optional<ChangeLogCursor> after = cursor.map(ChangeLogCursor::parse);
+
+        return mkPage(
+                changeLogDao.findPageByUser(userName, after, pageSize + 1),
+                pageSize);
+    }
+
+
     public int write(ChangeLog changeLog) {
-        return changeLogDao.write(Optional.empty(), changeLog);
+        return write(Optional.empty(), changeLog);
     }
 
 
     public int write(Optional<DSLContext> tx, ChangeLog changeLog) {
-        return changeLogDao.write(tx, changeLog);
+        checkNotNull(changeLog, "changeLog must not be null");
+        List<ChangeLogRecord> records = singletonList(ChangeLogDao.mkRecord(changeLog));
+
+        return tx
+                .map(t -> writeRecords(t, records))
+                .orElseGet(() -> dsl.transactionResult(ctx -> writeRecords(ctx.dsl(), records)))[0];
     }
 
 
     public int[] write(Collection<ChangeLog> changeLogs) {
-        return changeLogDao.write(changeLogs);
+        checkNotNull(changeLogs, "changeLogs must not be null");
+        List<ChangeLogRecord> records = changeLogs
+                .stream()
+                .map(ChangeLogDao::mkRecord)
+                .collect(toList());
+
+        return dsl.transactionResult(ctx -> writeRecords(ctx.dsl(), records));
     }
 
 
@@ -280,7 +345,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -302,7 +367,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -420,4 +485,52 @@ public class ChangeLogService {
                 .flatMap(EntityReference::name)
                 .orElse("UNKNOWN");
     }
+
+
+    // -- PAGING ---
+
+    private static int toPageSize(Optional<Integer> limit) {
+        int pageSize = limit.orElse(DEFAULT_PAGE_SIZE);
+        checkTrue(pageSize > 0 && pageSize <= MAX_PAGE_SIZE, "page size must be between 1 and %d", MAX_PAGE_SIZE);
+        return pageSize;
+    }
+
+
+    /**
+     * Entries should contain (up to) one more than the page size, the
+     * presence of that extra entry tells us there is a further page.
+     */
+    private static ChangeLogPage mkPage(List<ChangeLog> entries, int pageSize) {
+        if (entries.size() <= pageSize) {
+            return ImmutableChangeLogPage
+                    .builder()
+                    .entries(entries)
+                    .build();
+        }
+
+        List<ChangeLog> pageEntries = entries.subList(0, pageSize);
+        ChangeLog last = pageEntries.get(pageSize - 1);
+        long lastId = last
+                .id()
+                .orElseThrow(() -> new IllegalStateException("Cannot page through change log entries without ids"));
+
+        return ImmutableChangeLogPage
+                .builder()
+                .entries(pageEntries)
+                .nextCursor(ChangeLogCursor
+                        .mkCursor(last.createdAt(), lastId)
+                        .toToken())
+                .build();
+    }
+
+
+    /**
+     * Writes the entries and adds them to the change log rollups, in the
+     * same transaction.
+     */
+    private int[] writeRecords(DSLContext tx, List<ChangeLogRecord> records) {
+        int[] insertCounts = changeLogDao.writeRecords(tx, records);
+        changeLogRollupService.recordChanges(tx, records);
+        return insertCounts;
+    }
 }
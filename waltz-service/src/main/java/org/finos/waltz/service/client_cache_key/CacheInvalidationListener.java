@@ -0,0 +1,56 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.client_cache_key;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
+
+import java.util.function.Consumer;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Registered with the {@link CacheInvalidationService} to be told when data
+ * held under a cache key has changed, on this node or any other.
+ */
+@FunctionalInterface
+public interface CacheInvalidationListener {
+
+    void onInvalidation(CacheInvalidationEvent event);
+
+
+    /**
+     * Convenience for caches keyed by entity: events for a single entity
+     * evict that entity, events for the whole cache key evict everything.
+     */
+    static CacheInvalidationListener forEntities(Consumer<EntityReference> evict,
+                                                 Runnable evictAll) {
+        checkNotNull(evict, "evict cannot be null");
+        checkNotNull(evictAll, "evictAll cannot be null");
+
+        return event -> {
+            if (event.entityReference().isPresent()) {
+                evict.accept(event.entityReference().get());
+            } else {
+                evictAll.run();
+            }
+        };
+    }
+}
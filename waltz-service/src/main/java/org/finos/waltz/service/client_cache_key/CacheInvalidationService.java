@@ -0,0 +1,282 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.client_cache_key;
+
+import org.finos.waltz.data.TransactionCallbacks;
+import org.finos.waltz.data.client_cache_key.CacheInvalidationEventDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationStats;
+import org.finos.waltz.model.client_cache_key.ImmutableCacheInvalidationStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+
+/**
+ * Cluster wide cache invalidation without an external broker.
+ *
+ * Nodes publish events (cache key, optional entity, operation) to the
+ * <code>cache_invalidation_event</code> table and each node tails that table,
+ * polling for events with an id above the highest it has seen so far.
+ * Events are published once the publishing transaction (if any) commits,
+ * subscribers on the publishing node are told at that point, subscribers on
+ * other nodes within a poll interval.  Change log entries publish their
+ * events from within the writing transaction, see
+ * {@link org.finos.waltz.data.changelog.ChangeLogDao#writeRecords}.
+ *
+ * Ids which are skipped by a poll (e.g. inserted by a transaction which has
+ * not yet committed) are re-checked for a short while so late commits are
+ * not missed.  Events are pruned after {@link #RETENTION_HOURS}.
+ *
+ * Cache keys share the namespace of the client cache keys, publishing a key
+ * via the {@link ClientCacheKeyService} also notifies server side caches.
+ */
+@Service
+public class CacheInvalidationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    public static final long POLL_INTERVAL_MILLIS = 2_000;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_TRACKED_GAP = 1000;
+    private static final long GAP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int RETENTION_HOURS = 24;
+
+    private final CacheInvalidationEventDao cacheInvalidationEventDao;
+    private final ConcurrentMap<String, List<CacheInvalidationListener>> listenersByKey = new ConcurrentHashMap<>();
+
+    // guarded by 'this' (see poll)
+    private final Map<Long, Long> gapFirstSeenById = new HashMap<>();
+    private long highWaterMark = -1;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private volatile long lastHighWaterMark = -1;
+    private volatile int pendingGapCount = 0;
+    private volatile LocalDateTime lastPolledAt = null;
+    private volatile Long lastLagMillis = null;
+    private volatile long maxLagMillis = 0;
+
+
+    @Autowired
+    public CacheInvalidationService(CacheInvalidationEventDao cacheInvalidationEventDao) {
+        checkNotNull(cacheInvalidationEventDao, "cacheInvalidationEventDao cannot be null");
+        this.cacheInvalidationEventDao = cacheInvalidationEventDao;
+    }
+
+
+    public String getNodeId() {
+        return cacheInvalidationEventDao.getNodeId();
+    }
+
+
+    public void subscribe(String cacheKey, CacheInvalidationListener listener) {
+        checkNotEmpty(cacheKey, "cacheKey cannot be empty");
+        checkNotNull(listener, "listener cannot be null");
+        listenersByKey
+                .computeIfAbsent(cacheKey, k -> new CopyOnWriteArrayList<>())
+                .add(listener);
+    }
+
+
+    public boolean unsubscribe(String cacheKey, CacheInvalidationListener listener) {
+        return Optional
+                .ofNullable(listenersByKey.get(cacheKey))
+                .map(listeners -> listeners.remove(listener))
+                .orElse(false);
+    }
+
+
+    /**
+     * Invalidates everything held under the cache key.
+     */
+    public void publish(String cacheKey, Operation operation) {
+        publish(Collections.singletonList(cacheInvalidationEventDao.mkEvent(cacheKey, Optional.empty(), operation)));
+    }
+
+
+    /**
+     * Invalidates the given entities held under the cache key.
+     */
+    public void publish(String cacheKey, Operation operation, Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+        publish(refs
+                .stream()
+                .distinct()
+                .map(ref -> cacheInvalidationEventDao.mkEvent(cacheKey, Optional.of(ref), operation))
+                .collect(toList()));
+    }
+
+
+    /**
+     * Reads and delivers events published by other nodes since the last poll.
+     *
+     * @return number of events delivered
+     */
+    @Scheduled(fixedDelay = POLL_INTERVAL_MILLIS, initialDelay = POLL_INTERVAL_MILLIS)
+    public synchronized int poll() {
+        if (highWaterMark < 0) {
+            // caches start empty, so there is no need to replay history
+            highWaterMark = cacheInvalidationEventDao.getHighWaterMark();
+            lastHighWaterMark = highWaterMark;
+        }
+
+        int delivered = 0;
+        List<CacheInvalidationEvent> events;
+        do {
+            long now = System.currentTimeMillis();
+            events = cacheInvalidationEventDao.findAfter(highWaterMark, gapFirstSeenById.keySet(), BATCH_SIZE);
+
+            for (CacheInvalidationEvent event : events) {
+                long id = event.id().orElseThrow(() -> new IllegalStateException("Persisted event must have an id"));
+                if (id > highWaterMark) {
+                    trackGaps(highWaterMark, id, now);
+                    highWaterMark = id;
+                } else {
+                    gapFirstSeenById.remove(id);
+                }
+
+                if (! getNodeId().equals(event.nodeId())) {
+                    deliver(event);
+                    recordLag(event, now);
+                    delivered++;
+                }
+            }
+
+            gapFirstSeenById
+                    .values()
+                    .removeIf(firstSeen -> now - firstSeen > GAP_TIMEOUT_MILLIS);
+        } while (events.size() == BATCH_SIZE);
+
+        receivedCount.addAndGet(delivered);
+        lastHighWaterMark = highWaterMark;
+        pendingGapCount = gapFirstSeenById.size();
+        lastPolledAt = nowUtc();
+        return delivered;
+    }
+
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 1000)
+    public int prune() {
+        int removed = cacheInvalidationEventDao.deletePublishedBefore(nowUtc().minusHours(RETENTION_HOURS));
+        LOG.debug("Pruned {} cache invalidation events", removed);
+        return removed;
+    }
+
+
+    public CacheInvalidationStats getStats() {
+        return ImmutableCacheInvalidationStats
+                .builder()
+                .nodeId(getNodeId())
+                .highWaterMark(lastHighWaterMark)
+                .subscriberCount(listenersByKey
+                        .values()
+                        .stream()
+                        .mapToInt(List::size)
+                        .sum())
+                .publishedCount(publishedCount.get())
+                .receivedCount(receivedCount.get())
+                .pendingGapCount(pendingGapCount)
+                .lastPolledAt(Optional.ofNullable(lastPolledAt))
+                .lastLagMillis(Optional.ofNullable(lastLagMillis))
+                .maxLagMillis(maxLagMillis)
+                .build();
+    }
+
+
+    // -- helpers --
+
+    private void publish(List<CacheInvalidationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // publishing before the change commits would let other nodes (and our own subscribers) re-read the old data
+        TransactionCallbacks.afterCommit(() -> {
+            // a failure to publish should not fail the change which caused it, other nodes fall back to their cache expiry
+            try {
+                publishedCount.addAndGet(cacheInvalidationEventDao.publish(events));
+            } catch (Exception e) {
+                LOG.warn("Could not publish {} cache invalidation events for: {}", events.size(), events.get(0).cacheKey(), e);
+            }
+
+            events.forEach(this::deliver);
+        });
+    }
+
+
+    private void deliver(CacheInvalidationEvent event) {
+        List<CacheInvalidationListener> listeners = listenersByKey.get(event.cacheKey());
+        if (listeners == null) {
+            return;
+        }
+
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidation(event);
+            } catch (Exception e) {
+                LOG.warn("Cache invalidation listener failed for event: {}", event, e);
+            }
+        }
+    }
+
+
+    private void trackGaps(long previousHighWaterMark, long id, long now) {
+        if (id - previousHighWaterMark > MAX_TRACKED_GAP) {
+            // large jumps are typically sequence caching rather than in-flight transactions
+            return;
+        }
+        for (long missing = previousHighWaterMark + 1; missing < id; missing++) {
+            gapFirstSeenById.putIfAbsent(missing, now);
+        }
+    }
+
+
+    private void recordLag(CacheInvalidationEvent event, long now) {
+        long lag = Math.max(0, now - event.publishedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        lastLagMillis = lag;
+        if (lag > maxLagMillis) {
+            maxLagMillis = lag;
+        }
+    }
+}
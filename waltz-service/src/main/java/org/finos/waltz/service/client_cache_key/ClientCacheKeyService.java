@@ -20,6 +20,7 @@ package org.finos.waltz.service.client_cache_key;
 
 
 import org.finos.waltz.data.client_cache_key.ClientCacheKeyDao;
+import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.client_cache_key.ClientCacheKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -35,12 +36,16 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class ClientCacheKeyService {
 
     private final ClientCacheKeyDao clientCacheKeyDao;
+    private final CacheInvalidationService cacheInvalidationService;
 
 
     @Autowired
-    public ClientCacheKeyService(ClientCacheKeyDao clientCacheKeyDao) {
+    public ClientCacheKeyService(ClientCacheKeyDao clientCacheKeyDao,
+                                 CacheInvalidationService cacheInvalidationService) {
         checkNotNull(clientCacheKeyDao, "clientCacheKeyDao cannot be null");
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
         this.clientCacheKeyDao = clientCacheKeyDao;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
 
@@ -54,9 +59,15 @@ public class ClientCacheKeyService {
     }
 
 
+    /**
+     * Issues a new guid for the key, telling clients to refresh.  Server side
+     * caches subscribed to the key (see {@link CacheInvalidationService}) are
+     * also invalidated, on every node.
+     */
     public ClientCacheKey createOrUpdate(String key) {
         UUID guid = randomUUID();
         clientCacheKeyDao.createOrUpdate(key, guid.toString());
+        cacheInvalidationService.publish(key, Operation.UPDATE);
         return clientCacheKeyDao.getByKey(key);
     }
 
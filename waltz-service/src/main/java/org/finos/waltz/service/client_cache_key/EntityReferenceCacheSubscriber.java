@@ -0,0 +1,47 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.client_cache_key;
+
+import org.finos.waltz.data.EntityReferenceCache;
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Evicts entities changed on other nodes from this node's
+ * {@link EntityReferenceCache}.  Changes made on this node are evicted by the
+ * {@link ChangeLogDao} once they commit.
+ */
+@Service
+public class EntityReferenceCacheSubscriber {
+
+    @Autowired
+    public EntityReferenceCacheSubscriber(CacheInvalidationService cacheInvalidationService,
+                                          EntityReferenceCache entityReferenceCache) {
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
+        checkNotNull(entityReferenceCache, "entityReferenceCache cannot be null");
+
+        cacheInvalidationService.subscribe(
+                ChangeLogDao.ENTITY_CACHE_KEY,
+                CacheInvalidationListener.forEntities(entityReferenceCache::evict, entityReferenceCache::evictAll));
+    }
+}
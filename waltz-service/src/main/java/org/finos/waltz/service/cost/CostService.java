@@ -19,6 +19,7 @@
 package org.finos.waltz.service.cost;
 
 import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.cost.AllocatedCostDefinitionDao;
@@ -28,6 +29,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.cost.AllocatedCostDefinition;
+import org.finos.waltz.model.cost.AllocatedCostPopulationSummary;
 import org.finos.waltz.model.cost.CostKindWithYears;
 import org.finos.waltz.model.cost.EntityCost;
 import org.finos.waltz.model.cost.EntityCostsSummary;
@@ -39,14 +41,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import static java.lang.String.format;
 import static java.util.Comparator.comparingInt;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.jooq.lambda.Unchecked.supplier;
 
 @Service
 public class CostService {
@@ -56,18 +65,22 @@ public class CostService {
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final CostKindDao costKindDao;
     private final AllocatedCostDefinitionDao allocatedCostDefinitionDao;
+    private final DBExecutorPoolInterface dbExecutorPool;
 
 
     @Autowired
     CostService(CostDao costDao,
                 CostKindDao costKindDao,
-                AllocatedCostDefinitionDao allocatedCostDefinitionDao){
+                AllocatedCostDefinitionDao allocatedCostDefinitionDao,
+                DBExecutorPoolInterface dbExecutorPool){
 
         checkNotNull(allocatedCostDefinitionDao, "allocatedCostDefinitionDao must not be null");
         checkNotNull(costDao, "costDao must not be null");
         checkNotNull(costKindDao, "costKindDao must not be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool must not be null");
 
         this.allocatedCostDefinitionDao = allocatedCostDefinitionDao;
+        this.dbExecutorPool = dbExecutorPool;
         this.costKindDao = costKindDao;
         this.costDao = costDao;
     }
@@ -127,36 +140,74 @@ public class CostService {
                 .build();
     }
 
-    public void populateAllocatedCosts() {
+    /**
+     * Populates the allocated costs for every {@link AllocatedCostDefinition}.
+     *
+     * Definitions are computed concurrently on the db executor pool.  Definitions
+     * sharing a target cost kind are run one after another, as each definition
+     * reconciles the complete set of costs for its target kind.
+     *
+     * @return a summary (row counts and timing) for each definition
+     */
+    public Set<AllocatedCostPopulationSummary> populateAllocatedCosts() {
 
         Set<AllocatedCostDefinition> allocatedCostDefinitions = allocatedCostDefinitionDao.findAll();
         Map<Long, CostKindWithYears> costKindsById = indexBy(costKindDao.findAll(), d -> d.costKind().id().get());
 
-        allocatedCostDefinitions
-                .forEach(defn -> {
+        List<Future<List<AllocatedCostPopulationSummary>>> futures = groupBy(
+                allocatedCostDefinitions,
+                defn -> defn.targetCostKind().id())
+                .values()
+                .stream()
+                .map(defns -> dbExecutorPool.submit(() -> map(
+                        defns,
+                        defn -> populateAllocatedCosts(defn, costKindsById))))
+                .collect(toList());
+
+        return futures
+                .stream()
+                .flatMap(f -> supplier(f::get).get().stream())
+                .collect(toSet());
+    }
+
 
-                    CostKindWithYears sourceKind = costKindsById.get(defn.sourceCostKind().id());
-                    CostKindWithYears targetKind = costKindsById.get(defn.targetCostKind().id());
+    public AllocatedCostPopulationSummary allocateCostsByDefinition(AllocatedCostDefinition defn, int year) {
+        return allocatedCostDefinitionDao.allocateCostsByDefinition(defn, year);
+    }
 
-                    Integer maxYear = sourceKind.years()
-                            .stream()
-                            .max(comparingInt(k -> k))
-                            .orElse(DateTimeUtilities.today().getYear()); // Take the most recent year costs are for
 
-                    LOG.info(format("Allocating %s costs on %s to %s costs on %s using allocation scheme %s",
-                            defn.sourceCostKind().name().orElse("Unknown"),
-                            sourceKind.costKind().subjectKind(),
-                            defn.targetCostKind().name().orElse("Unknown"),
-                            targetKind.costKind().subjectKind(),
-                            defn.allocationScheme().name().orElse("Unknown")));
+    private AllocatedCostPopulationSummary populateAllocatedCosts(AllocatedCostDefinition defn,
+                                                                  Map<Long, CostKindWithYears> costKindsById) {
 
-                    allocateCostsByDefinition(defn, maxYear);
+        CostKindWithYears sourceKind = costKindsById.get(defn.sourceCostKind().id());
+        CostKindWithYears targetKind = costKindsById.get(defn.targetCostKind().id());
 
-                });
-    }
+        int maxYear = sourceKind.years()
+                .stream()
+                .max(comparingInt(k -> k))
+                .orElse(DateTimeUtilities.today().getYear()); // Take the most recent year costs are for
+
+        LOG.info(format("Allocating %s costs on %s to %s costs on %s using allocation scheme %s",
+                defn.sourceCostKind().name().orElse("Unknown"),
+                sourceKind.costKind().subjectKind(),
+                defn.targetCostKind().name().orElse("Unknown"),
+                targetKind.costKind().subjectKind(),
+                defn.allocationScheme().name().orElse("Unknown")));
+
+        AllocatedCostPopulationSummary summary = allocateCostsByDefinition(defn, maxYear);
+
+        LOG.info(format("Allocated %s costs for %d using allocation scheme %s: %d ratings, created %d, updated %d, removed %d, unchanged %d in %dms",
+                defn.targetCostKind().name().orElse("Unknown"),
+                summary.year(),
+                defn.allocationScheme().name().orElse("Unknown"),
+                summary.ratingCount(),
+                summary.createdCount(),
+                summary.updatedCount(),
+                summary.removedCount(),
+                summary.unchangedCount(),
+                summary.durationMillis()));
 
-    public void allocateCostsByDefinition(AllocatedCostDefinition defn, Integer year) {
-        allocatedCostDefinitionDao.allocateCostsByDefinition(defn, year);
+        return summary;
     }
 
 }
@@ -18,8 +18,6 @@
 
 package org.finos.waltz.service.data_flow_decorator;
 
-import org.finos.waltz.common.FunctionUtilities;
-import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -37,6 +35,7 @@ import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.finos.waltz.service.application.ApplicationService;
 import org.finos.waltz.service.data_type.DataTypeService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolver;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolverService;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,23 +65,23 @@ public class LogicalFlowDecoratorRatingsCalculator {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowDecoratorRatingsCalculator.class);
     private final ApplicationService applicationService;
-    private final FlowClassificationRuleDao flowClassificationRuleDao;
+    private final FlowClassificationRuleResolverService flowClassificationRuleResolverService;
     private final LogicalFlowDao logicalFlowDao;
     private final DataTypeService dataTypeService;
 
 
     @Autowired
     public LogicalFlowDecoratorRatingsCalculator(ApplicationService applicationService,
-                                                 FlowClassificationRuleDao flowClassificationRuleDao,
+                                                 FlowClassificationRuleResolverService flowClassificationRuleResolverService,
                                                  LogicalFlowDao logicalFlowDao,
                                                  DataTypeService dataTypeService) {
         checkNotNull(applicationService, "applicationService cannot be null");
-        checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao cannot be null");
+        checkNotNull(flowClassificationRuleResolverService, "flowClassificationRuleResolverService cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(dataTypeService, "dataTypeService cannot be null");
 
         this.applicationService = applicationService;
-        this.flowClassificationRuleDao = flowClassificationRuleDao;
+        this.flowClassificationRuleResolverService = flowClassificationRuleResolverService;
         this.logicalFlowDao = logicalFlowDao;
         this.dataTypeService = dataTypeService;
     }
@@ -105,8 +104,8 @@ public class LogicalFlowDecoratorRatingsCalculator {
 
         Set<Long> targetOrgIds = map(targetApps, OrganisationalUnitIdProvider::organisationalUnitId);
         Set<Long> sourceOrgIds = map(sourceApps, OrganisationalUnitIdProvider::organisationalUnitId);
-        FlowClassificationRuleResolver outboundResolver = createResolver(FlowDirection.OUTBOUND, outboundVantagePointEntities, targetOrgIds);
-        FlowClassificationRuleResolver inboundResolver = createResolver(FlowDirection.INBOUND, inboundVantagePointEntities, sourceOrgIds);
+        FlowClassificationRuleResolver outboundResolver = flowClassificationRuleResolverService.getResolver(FlowDirection.OUTBOUND, outboundVantagePointEntities, targetOrgIds);
+        FlowClassificationRuleResolver inboundResolver = flowClassificationRuleResolverService.getResolver(FlowDirection.INBOUND, inboundVantagePointEntities, sourceOrgIds);
 
 
         return decorators
@@ -163,8 +162,8 @@ public class LogicalFlowDecoratorRatingsCalculator {
 
         Collection<Long> dtIds = dataTypeIds.orElseGet(() -> toIds(dataTypeService.findAll()));
 
-        FlowClassificationRuleResolver outboundResolver = time("out res", () -> createResolver(FlowDirection.OUTBOUND, asSet(target), targetOrgIds));
-        FlowClassificationRuleResolver inboundResolver = time("in res", () -> createResolver(FlowDirection.INBOUND, asSet(source), sourceOrgIds));
+        FlowClassificationRuleResolver outboundResolver = flowClassificationRuleResolverService.getResolver(FlowDirection.OUTBOUND, asSet(target), targetOrgIds);
+        FlowClassificationRuleResolver inboundResolver = flowClassificationRuleResolverService.getResolver(FlowDirection.INBOUND, asSet(source), sourceOrgIds);
 
 
         return time("total dts", () -> dtIds
@@ -228,32 +227,6 @@ public class LogicalFlowDecoratorRatingsCalculator {
     }
 
 
-    private FlowClassificationRuleResolver createResolver(FlowDirection direction,
-                                                          Set<EntityReference> vantagePointEntityLookups,
-                                                          Set<Long> vantagePointOrgUnitIdLookups) {
-
-
-        Set<Long> appVantagePoints = getVantagePointIdsForKind(vantagePointEntityLookups, EntityKind.APPLICATION);
-        Set<Long> actorVantagePoints = getVantagePointIdsForKind(vantagePointEntityLookups, EntityKind.ACTOR);
-
-        // this brings back many expanded vantage points
-        List<FlowClassificationRuleVantagePoint> flowClassificationRuleVantagePoints =
-                FunctionUtilities.time("do find expanded",
-                        () -> flowClassificationRuleDao
-                                .findExpandedFlowClassificationRuleVantagePoints(direction, vantagePointOrgUnitIdLookups, appVantagePoints, actorVantagePoints));
-
-        return FunctionUtilities.time("mk resolver", () -> new FlowClassificationRuleResolver(direction, flowClassificationRuleVantagePoints));
-    }
-
-    private Set<Long> getVantagePointIdsForKind(Set<EntityReference> vantagePointEntityLookups, EntityKind entityKind) {
-        return vantagePointEntityLookups
-                .stream()
-                .filter(d -> d.kind().equals(entityKind))
-                .map(EntityReference::id)
-                .collect(Collectors.toSet());
-    }
-
-
     private Tuple2<AuthoritativenessRatingValue, Optional<FlowClassificationRuleVantagePoint>> lookupClassification(EntityReference vantagePointOrgUnit,
                                                                                                                     EntityReference vantagePointEntity,
                                                                                                                     EntityReference subject,
@@ -20,6 +20,7 @@ package org.finos.waltz.service.data_flow_decorator;
 
 
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.finos.waltz.common.Checks;
@@ -77,6 +78,7 @@ public class LogicalFlowDecoratorService {
     private final DataTypeDao dataTypeDao;
     private final LogicalFlowDao logicalFlowDao;
     private final ChangeLogService changeLogService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
 
 
     @Autowired
@@ -88,7 +90,8 @@ public class LogicalFlowDecoratorService {
                                        LogicalFlowDao logicalFlowDao,
                                        LogicalFlowService logicalFlowService,
                                        LogicalFlowStatsDao logicalFlowStatsDao,
-                                       ChangeLogService changeLogService) {
+                                       ChangeLogService changeLogService,
+                                       LogicalFlowGraphService logicalFlowGraphService) {
 
         checkNotNull(logicalFlowDecoratorSummaryDao, "logicalFlowDecoratorDao cannot be null");
         checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
@@ -98,6 +101,7 @@ public class LogicalFlowDecoratorService {
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
 
         this.logicalFlowDecoratorSummaryDao = logicalFlowDecoratorSummaryDao;
         this.ratingsCalculator = ratingsCalculator;
@@ -106,6 +110,7 @@ public class LogicalFlowDecoratorService {
         this.logicalFlowDao = logicalFlowDao;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
 
@@ -144,6 +149,7 @@ public class LogicalFlowDecoratorService {
 
         dataTypeUsageService.recalculateForApplications(effectedEntities);
         bulkAudit(actions, username, effectedFlows);
+        logicalFlowGraphService.refreshFlows(map(actions, UpdateDataFlowDecoratorsAction::flowId));
 
         return added;
     }
@@ -23,6 +23,7 @@ import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.datatype_decorator.DataTypeDecoratorDao;
 import org.finos.waltz.data.datatype_decorator.DataTypeDecoratorDaoSelectorFactory;
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowIdSelectorFactory;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
@@ -40,8 +41,10 @@ import org.finos.waltz.model.datatype.DataTypeDecoratorRatingCharacteristics;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
 import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRule;
 import org.finos.waltz.model.logical_flow.DataTypeDecoratorView;
 import org.finos.waltz.model.logical_flow.FlowClassificationRulesView;
+import org.finos.waltz.model.logical_flow.ImmutableFlowClassificationRulesView;
 import org.finos.waltz.model.logical_flow.ImmutableDataTypeDecoratorView;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
@@ -52,7 +55,7 @@ import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
-import org.finos.waltz.service.flow_classification_rule.FlowClassificationService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
@@ -60,6 +63,7 @@ import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -95,6 +99,7 @@ public class DataTypeDecoratorService {
     private final DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory;
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowService logicalFlowService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
     private final DataTypeUsageService dataTypeUsageService;
     private final DataTypeService dataTypeService;
@@ -103,7 +108,8 @@ public class DataTypeDecoratorService {
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final PhysicalSpecificationService physicalSpecificationService;
     private final AssessmentRatingService assessmentRatingService;
-    private final FlowClassificationService flowClassificationService;
+    private final FlowReferenceDataService flowReferenceDataService;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
 
     private final FlowClassificationRuleService flowClassificationRuleService;
 
@@ -113,6 +119,7 @@ public class DataTypeDecoratorService {
                                     DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory,
                                     LogicalFlowDao logicalFlowDao,
                                     LogicalFlowService logicalFlowService,
+                                    LogicalFlowGraphService logicalFlowGraphService,
                                     LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                     DataTypeUsageService dataTypeUsageService,
                                     DataTypeService dataTypeService,
@@ -121,15 +128,18 @@ public class DataTypeDecoratorService {
                                     AssessmentRatingService assessmentRatingService,
                                     AssessmentDefinitionService assessmentDefinitionService,
                                     RatingSchemeService ratingSchemeService,
-                                    FlowClassificationService flowClassificationService,
+                                    FlowReferenceDataService flowReferenceDataService,
+                                    LogicalFlowDecoratorDao logicalFlowDecoratorDao,
                                     FlowClassificationRuleService flowClassificationRuleService) {
 
         checkNotNull(assessmentDefinitionService, "assessmentDefinitionService cannot be null");
         checkNotNull(assessmentRatingService, "assessmentRatingService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
-        checkNotNull(flowClassificationService, "flowClassificationService cannot be null");
+        checkNotNull(flowReferenceDataService, "flowReferenceDataService cannot be null");
         checkNotNull(flowClassificationRuleService, "flowClassificationRuleService cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
         checkNotNull(logicalFlowDecoratorService, "logicalFlowDecoratorService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         checkNotNull(physicalSpecificationService, "physicalSpecificationService cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
 
@@ -138,10 +148,12 @@ public class DataTypeDecoratorService {
         this.dataTypeDecoratorDaoSelectorFactory = dataTypeDecoratorDaoSelectorFactory;
         this.dataTypeService = dataTypeService;
         this.dataTypeUsageService = dataTypeUsageService;
-        this.flowClassificationService = flowClassificationService;
+        this.flowReferenceDataService = flowReferenceDataService;
         this.flowClassificationRuleService = flowClassificationRuleService;
         this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
         this.logicalFlowService = logicalFlowService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.physicalSpecificationService = physicalSpecificationService;
         this.ratingsCalculator = ratingsCalculator;
@@ -230,6 +242,8 @@ public class DataTypeDecoratorService {
             physicalSpecificationService.propagateDataTypesToLogicalFlows(userName, entityReference.id());
         }
 
+        refreshLogicalFlowGraph(entityReference);
+
         return result;
     }
 
@@ -246,11 +260,22 @@ public class DataTypeDecoratorService {
                 entityReference, userName);
 
         recalculateDataTypeUsageForApplications(entityReference);
+        refreshLogicalFlowGraph(entityReference);
 
         return result;
     }
 
 
+    private void refreshLogicalFlowGraph(EntityReference associatedEntityReference) {
+        if (LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
+            logicalFlowGraphService.refreshFlows(newArrayList(associatedEntityReference.id()));
+        } else if (PHYSICAL_SPECIFICATION.equals(associatedEntityReference.kind())) {
+            // the data types of flows sharing the specification may have changed
+            logicalFlowGraphService.refreshFlows(associatedEntityReference);
+        }
+    }
+
+
     private void recalculateDataTypeUsageForApplications(EntityReference associatedEntityReference) {
         if(LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
             LogicalFlow flow = logicalFlowDao.getByFlowId(associatedEntityReference.id());
@@ -396,19 +421,49 @@ public class DataTypeDecoratorService {
 
 
     /**
-     * Given a entity (e.g. logical flow or physical specification) produces a view of decorators and related assessments
+     * Given a entity (e.g. logical flow or physical specification) produces a view of decorators and related assessments.
+     *
+     * Decorators and the rules which determined their ratings are fetched in a single query, data types
+     * and classifications are served from the {@link FlowReferenceDataService} snapshot.
+     *
      * @param parentEntityRef the reference of the parent page
      * @return DataTypeDecoratorView
      */
     public DataTypeDecoratorView getDecoratorView(EntityReference parentEntityRef) {
 
         IdSelectionOptions selectionOptions = mkOpts(parentEntityRef);
-        DataTypeDecoratorDao dao = dataTypeDecoratorDaoSelectorFactory.getDao(parentEntityRef.kind());
 
-        List<DataTypeDecorator> decorators = dao.findByEntityId(parentEntityRef.id());
-        Set<DataType> dataTypes = dataTypeService.findByIdSelector(selectionOptions);
+        List<DataTypeDecorator> decorators;
+        Set<FlowClassificationRule> rules;
+
+        if (parentEntityRef.kind() == LOGICAL_DATA_FLOW) {
+            List<Tuple2<DataTypeDecorator, Optional<FlowClassificationRule>>> decoratorsAndRules = logicalFlowDecoratorDao
+                    .findByEntityIdWithAppliedRules(parentEntityRef.id());
+
+            decorators = decoratorsAndRules
+                    .stream()
+                    .map(t -> t.v1)
+                    .distinct()
+                    .collect(Collectors.toList());
+
+            rules = decoratorsAndRules
+                    .stream()
+                    .map(t -> t.v2)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toSet());
+        } else {
+            // physical specification decorators are not rated by classification rules
+            decorators = dataTypeDecoratorDaoSelectorFactory
+                    .getDao(parentEntityRef.kind())
+                    .findByEntityId(parentEntityRef.id());
+            rules = Collections.emptySet();
+        }
+
+        Set<DataType> dataTypes = flowReferenceDataService.findDataTypesByIds(map(decorators, d -> d.decoratorEntity().id()));
         AssessmentsView assessmentsView = assessmentRatingService.getPrimaryAssessmentsViewForKindAndSelector(LOGICAL_DATA_FLOW_DATA_TYPE_DECORATOR, selectionOptions);
-        FlowClassificationRulesView classificationRulesView = flowClassificationRuleService.getFlowClassificationsViewForFlow(parentEntityRef.id());
+
+        Set<FlowClassification> allClassifications = flowReferenceDataService.findAllClassifications();
 
         Set<AuthoritativenessRatingValue> ratings = decorators
                 .stream()
@@ -417,9 +472,18 @@ public class DataTypeDecoratorService {
                 .collect(Collectors.toSet());
 
         Set<FlowClassification> classifications = filter(
-                flowClassificationService.findAll(),
+                allClassifications,
                 d -> ratings.contains(AuthoritativenessRatingValue.ofNullable(d.code()).orElse(null)));
 
+        Set<Long> ruleClassificationIds = map(rules, FlowClassificationRule::classificationId);
+
+        FlowClassificationRulesView classificationRulesView = ImmutableFlowClassificationRulesView
+                .builder()
+                .flowClassificationRules(rules)
+                .flowClassifications(filter(allClassifications, c -> ruleClassificationIds.contains(c.id().orElse(null))))
+                .dataTypes(flowReferenceDataService.findDataTypesByIds(map(rules, FlowClassificationRule::dataTypeId)))
+                .build();
+
         return ImmutableDataTypeDecoratorView.builder()
                 .dataTypeDecorators(decorators)
                 .dataTypes(dataTypes)
@@ -54,23 +54,29 @@ public class DataTypeService {
     private final DataTypeDao dataTypeDao;
     private final DataTypeSearchDao searchDao;
     private final LogicalFlowDao logicalFlowDao;
+    private final FlowReferenceDataService flowReferenceDataService;
 
 
     @Autowired
     public DataTypeService(DataTypeDao dataTypeDao,
                            DataTypeSearchDao searchDao,
-                           LogicalFlowDao logicalFlowDao) {
+                           LogicalFlowDao logicalFlowDao,
+                           FlowReferenceDataService flowReferenceDataService) {
         checkNotNull(dataTypeDao, "dataTypeDao must not be null");
         checkNotNull(searchDao, "searchDao cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowService cannot be null");
+        checkNotNull(flowReferenceDataService, "flowReferenceDataService cannot be null");
 
         this.dataTypeDao = dataTypeDao;
         this.searchDao = searchDao;
         this.logicalFlowDao = logicalFlowDao;
+        this.flowReferenceDataService = flowReferenceDataService;
     }
 
     public DataTypeMigrationResult migrate(Long fromId, Long toId, boolean deleteOldDataType) {
-        return dataTypeDao.migrate(fromId, toId, deleteOldDataType);
+        DataTypeMigrationResult result = dataTypeDao.migrate(fromId, toId, deleteOldDataType);
+        flowReferenceDataService.invalidate();
+        return result;
     }
 
     public List<DataType> findAll() {
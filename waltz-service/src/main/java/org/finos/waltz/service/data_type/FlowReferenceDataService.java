@@ -0,0 +1,210 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.data_type;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+
+
+/**
+ * In-process snapshot of the (slowly changing) reference data needed to
+ * display data type decorators: the data type tree and flow classifications.
+ *
+ * The snapshot is versioned in the same way as the flow classification rule
+ * resolvers.  Calling {@link #invalidate()} bumps the version on every node,
+ * via the {@link CacheInvalidationService}, and the snapshot is reloaded on
+ * next use.  Change log entries for data types and flow classifications
+ * written on other nodes bump the version too.  It is also reloaded after {@link #MAX_AGE_MILLIS} to pick up
+ * changes made by external loaders.  Asking for a data type which is not in
+ * the snapshot forces a reload (at most once every
+ * {@link #MIN_RELOAD_INTERVAL_MILLIS}) so new data types are seen straight away.
+ */
+@Service
+public class FlowReferenceDataService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowReferenceDataService.class);
+
+    public static final String CACHE_KEY = "FLOW_REFERENCE_DATA";
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long MIN_RELOAD_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final DataTypeDao dataTypeDao;
+    private final FlowClassificationDao flowClassificationDao;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final AtomicLong requiredVersion = new AtomicLong();
+
+    private volatile Snapshot current = null;
+
+
+    private static class Snapshot {
+        private final long version;
+        private final long builtAt;
+        private final Map<Long, DataType> dataTypesById;
+        private final Set<FlowClassification> classifications;
+
+        private Snapshot(long version,
+                         long builtAt,
+                         Map<Long, DataType> dataTypesById,
+                         Set<FlowClassification> classifications) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.dataTypesById = dataTypesById;
+            this.classifications = classifications;
+        }
+    }
+
+
+    @Autowired
+    public FlowReferenceDataService(DataTypeDao dataTypeDao,
+                                    FlowClassificationDao flowClassificationDao,
+                                    CacheInvalidationService cacheInvalidationService) {
+        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(flowClassificationDao, "flowClassificationDao cannot be null");
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
+
+        this.dataTypeDao = dataTypeDao;
+        this.flowClassificationDao = flowClassificationDao;
+        this.cacheInvalidationService = cacheInvalidationService;
+
+        cacheInvalidationService.subscribe(CACHE_KEY, e -> requiredVersion.incrementAndGet());
+        cacheInvalidationService.subscribe(ChangeLogDao.ENTITY_CACHE_KEY, e -> {
+            boolean isReferenceData = e
+                    .entityReference()
+                    .map(ref -> ref.kind() == EntityKind.DATA_TYPE || ref.kind() == EntityKind.FLOW_CLASSIFICATION)
+                    .orElse(true);
+            if (isReferenceData) {
+                requiredVersion.incrementAndGet();
+            }
+        });
+    }
+
+
+    /**
+     * @param ids  data type ids, unknown ids are ignored
+     * @return the data types with the given ids
+     */
+    public Set<DataType> findDataTypesByIds(Collection<Long> ids) {
+        checkNotNull(ids, "ids cannot be null");
+        Snapshot snapshot = getSnapshot();
+
+        boolean hasUnknownIds = ids
+                .stream()
+                .anyMatch(id -> id != null && ! snapshot.dataTypesById.containsKey(id));
+
+        Map<Long, DataType> dataTypesById = hasUnknownIds && System.currentTimeMillis() - snapshot.builtAt >= MIN_RELOAD_INTERVAL_MILLIS
+                ? reload(snapshot).dataTypesById
+                : snapshot.dataTypesById;
+
+        return ids
+                .stream()
+                .filter(Objects::nonNull)
+                .map(dataTypesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+
+    public Set<FlowClassification> findAllClassifications() {
+        return getSnapshot().classifications;
+    }
+
+
+    /**
+     * To be called whenever data types or flow classifications are changed.
+     */
+    public void invalidate() {
+        cacheInvalidationService.publish(CACHE_KEY, Operation.UPDATE);
+    }
+
+
+    // -- helpers --
+
+    private Snapshot getSnapshot() {
+        Snapshot snapshot = current;
+        if (isCurrent(snapshot)) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            snapshot = current;
+            if (! isCurrent(snapshot)) {
+                snapshot = load(requiredVersion.get());
+                current = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+
+    private synchronized Snapshot reload(Snapshot stale) {
+        if (current == stale) {
+            current = load(requiredVersion.get());
+        }
+        return current;
+    }
+
+
+    private boolean isCurrent(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.version == requiredVersion.get()
+                && System.currentTimeMillis() - snapshot.builtAt < MAX_AGE_MILLIS;
+    }
+
+
+    private Snapshot load(long version) {
+        long st = System.currentTimeMillis();
+
+        Map<Long, DataType> dataTypesById = indexBy(
+                dataTypeDao.findAll(),
+                dt -> dt.id().orElse(null));
+
+        Set<FlowClassification> classifications = flowClassificationDao.findAll();
+
+        LOG.debug("Loaded flow reference data, version: {}, in {}ms", version, System.currentTimeMillis() - st);
+        return new Snapshot(
+                version,
+                st,
+                unmodifiableMap(dataTypesById),
+                unmodifiableSet(classifications));
+    }
+}
@@ -19,10 +19,12 @@
 package org.finos.waltz.service.entity_hierarchy;
 
 import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.HierarchyUtilities;
 import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
 import org.finos.waltz.data.data_type.DataTypeDao;
 import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
@@ -33,6 +35,7 @@ import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.data.person.PersonDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchy;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
 import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchy;
@@ -40,6 +43,7 @@ import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyItem;
 import org.finos.waltz.model.tally.ImmutableTally;
 import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.schema.Tables;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
@@ -52,10 +56,15 @@ import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -69,7 +78,11 @@ import static org.jooq.impl.DSL.select;
 @Service
 public class EntityHierarchyService {
 
+    private static final int MAX_PARTIAL_REBUILD_SIZE = 1000;
+
     private final DSLContext dsl;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
     private final ChangeInitiativeDao changeInitiativeDao;
     private final DataTypeDao dataTypeDao;
     private final EntityHierarchyDao entityHierarchyDao;
@@ -82,6 +95,8 @@ public class EntityHierarchyService {
 
     @Autowired
     public EntityHierarchyService(DSLContext dsl,
+                                  CacheInvalidationService cacheInvalidationService,
+                                  AppGroupResolvedMemberDao appGroupResolvedMemberDao,
                                   ChangeInitiativeDao changeInitiativeDao,
                                   DataTypeDao dataTypeDao,
                                   EntityHierarchyDao entityHierarchyDao,
@@ -92,6 +107,8 @@ public class EntityHierarchyService {
                                   PersonDao personDao) {
 
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao cannot be null");
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
@@ -102,6 +119,8 @@ public class EntityHierarchyService {
         checkNotNull(personDao, "personDao cannot be null");
 
         this.dsl = dsl;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
         this.changeInitiativeDao = changeInitiativeDao;
         this.dataTypeDao = dataTypeDao;
         this.entityHierarchyDao = entityHierarchyDao;
@@ -113,6 +132,15 @@ public class EntityHierarchyService {
     }
 
 
+    /**
+     * Cache key published (cluster wide) whenever the hierarchy for the
+     * given kind is fully rebuilt, for caches derived from the hierarchy.
+     */
+    public static String mkCacheKey(EntityKind kind) {
+        return "ENTITY_HIERARCHY." + kind.name();
+    }
+
+
     public List<Tally<String>> tallyByKind() {
         return ListUtilities.append(
                 entityHierarchyDao.tallyByKind(),
@@ -157,11 +185,16 @@ public class EntityHierarchyService {
 
     public int buildFor(EntityKind kind) {
         if (kind == PERSON) {
-            int[] rc = personHierarchyService.build();
-            return rc.length;
+            return personHierarchyService.build();
         } else {
             Table<?> table = determineTableToRebuild(kind);
-            return buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            int count = buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            if (kind == EntityKind.ORG_UNIT) {
+                // app group org unit entries include child org units
+                appGroupResolvedMemberDao.refreshGroupsWithOrgUnitEntries();
+            }
+            cacheInvalidationService.publish(mkCacheKey(kind), Operation.UPDATE);
+            return count;
         }
     }
 
@@ -176,6 +209,52 @@ public class EntityHierarchyService {
     }
 
 
+    /**
+     * Rebuilds the hierarchy entries for the given measurables and all of
+     * their descendants, leaving the rest of the category untouched.  Use this
+     * when only a few nodes have been added or moved.  If the affected
+     * subtrees cover a large part of the category the whole category is
+     * rebuilt instead, as that is cheaper than a large <code>in</code> clause.
+     *
+     * @param categoryId category the measurables belong to
+     * @param measurableIds measurables which have been added or re-parented
+     * @return number of hierarchy entries written
+     */
+    public int buildForMeasurableSubtrees(long categoryId,
+                                          Collection<Long> measurableIds) {
+        checkNotNull(measurableIds, "measurableIds cannot be null");
+
+        if (measurableIds.isEmpty()) {
+            return 0;
+        }
+
+        Collection<FlatNode<Long, Long>> flatNodes = fetchFlatNodes(
+                MEASURABLE,
+                MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId));
+
+        Forest<Long, Long> forest = HierarchyUtilities.toForest(flatNodes);
+        Set<Node<Long, Long>> affectedNodes = findNodesAndDescendants(forest, measurableIds);
+
+        if (affectedNodes.size() > MAX_PARTIAL_REBUILD_SIZE) {
+            return buildForMeasurableByCategory(categoryId);
+        }
+
+        Map<Long, Integer> idToLevel = HierarchyUtilities.assignDepths(forest);
+
+        List<EntityHierarchyItem> hierarchyItems = affectedNodes
+                .stream()
+                .flatMap(streamItemsForNode(EntityKind.MEASURABLE, idToLevel))
+                .collect(Collectors.toList());
+
+        Set<Long> affectedIds = SetUtilities.map(affectedNodes, Node::getId);
+
+        return entityHierarchyDao.replaceHierarchy(
+                EntityKind.MEASURABLE,
+                hierarchyItems,
+                ENTITY_HIERARCHY.ID.in(affectedIds));
+    }
+
+
     private int buildFor(Table<?> table,
                          EntityKind kind,
                          Condition selectFilter,
@@ -219,6 +298,26 @@ public class EntityHierarchyService {
     }
 
 
+    private Set<Node<Long, Long>> findNodesAndDescendants(Forest<Long, Long> forest,
+                                                          Collection<Long> ids) {
+        Set<Node<Long, Long>> result = new HashSet<>();
+        Deque<Node<Long, Long>> toVisit = ids
+                .stream()
+                .map(id -> forest.getAllNodes().get(id))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayDeque::new));
+
+        while (! toVisit.isEmpty()) {
+            Node<Long, Long> node = toVisit.pop();
+            if (result.add(node)) {
+                toVisit.addAll(node.getChildren());
+            }
+        }
+
+        return result;
+    }
+
+
     private Function<Node<Long, Long>, Stream<? extends EntityHierarchyItem>> streamItemsForNode(EntityKind kind,
                                                                                                  Map<Long, Integer> idToLevel) {
         return node -> Stream
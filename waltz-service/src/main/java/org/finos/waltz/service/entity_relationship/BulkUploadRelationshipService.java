@@ -13,6 +13,7 @@ import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.finos.waltz.schema.tables.records.EntityRelationshipRecord;
+import org.finos.waltz.service.changelog.ChangeLogRollupService;
 import org.finos.waltz.service.relationship_kind.RelationshipKindService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.jooq.DSLContext;
@@ -49,16 +50,20 @@ public class BulkUploadRelationshipService {
 
     private final UserRoleService userRoleService;
 
+    private final ChangeLogRollupService changeLogRollupService;
+
     private final DSLContext dsl;
 
 
     public BulkUploadRelationshipService(RelationshipKindService relationshipKindService,
                                          EntityRelationshipService entityRelationshipService,
                                          UserRoleService userRoleService,
+                                         ChangeLogRollupService changeLogRollupService,
                                          DSLContext dsl) {
         this.relationshipKindService = relationshipKindService;
         this.entityRelationshipService = entityRelationshipService;
         this.userRoleService = userRoleService;
+        this.changeLogRollupService = changeLogRollupService;
         this.dsl = dsl;
     }
 
@@ -244,6 +249,7 @@ public class BulkUploadRelationshipService {
                     long insertCount = summarizeResults(tx.batchInsert(toInsert).execute());
                     long updateCount = summarizeResults(tx.batch(toUpdate).execute());
                     long changeLogCount = summarizeResults(tx.batchInsert(auditLogs).execute());
+                    changeLogRollupService.recordChanges(tx, auditLogs);
 
                     LOG.info(
                             "Batch Relationships: {} adds, {} updates, {} changelogs.",
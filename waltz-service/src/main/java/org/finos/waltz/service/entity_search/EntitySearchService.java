@@ -39,6 +39,8 @@ import org.finos.waltz.service.software_catalog.SoftwareCatalogService;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.SearchUtilities;
+import org.finos.waltz.data.replica.ReadReplicaRouter;
+import org.finos.waltz.common.ReplicaSession;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.WaltzEntity;
@@ -60,6 +62,7 @@ import static org.jooq.lambda.Unchecked.supplier;
 public class EntitySearchService {
 
     private final DBExecutorPoolInterface dbExecutorPool;
+    private final ReadReplicaRouter readReplicaRouter;
     private final ActorService actorService;
     private final ApplicationService applicationService;
     private final AppGroupService appGroupService;
@@ -82,6 +85,7 @@ public class EntitySearchService {
 
     @Autowired
     public EntitySearchService(DBExecutorPoolInterface dbExecutorPool,
+                               ReadReplicaRouter readReplicaRouter,
                                ActorService actorService,
                                ApplicationService applicationService,
                                AppGroupService appGroupService,
@@ -102,6 +106,7 @@ public class EntitySearchService {
                                LicenceService licenceService) {
 
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+        checkNotNull(readReplicaRouter, "readReplicaRouter cannot be null");
         checkNotNull(actorService, "actorService cannot be null");
         checkNotNull(applicationService, "applicationService cannot be null");
         checkNotNull(appGroupService, "appGroupService cannot be null");
@@ -123,6 +128,7 @@ public class EntitySearchService {
 
         this.actorService = actorService;
         this.dbExecutorPool = dbExecutorPool;
+        this.readReplicaRouter = readReplicaRouter;
         this.applicationService = applicationService;
         this.appGroupService = appGroupService;
         this.changeInitiativeService = changeInitiativeService;
@@ -154,7 +160,7 @@ public class EntitySearchService {
         List<Future<Collection<? extends WaltzEntity>>> futures = options
                 .entityKinds()
                 .stream()
-                .map(ek -> dbExecutorPool.submit(mkCallable(ek, options)))
+                .map(ek -> dbExecutorPool.submit(ReplicaSession.propagate(mkReplicaCallable(ek, options))))
                 .collect(toList());
 
         return futures
@@ -165,6 +171,17 @@ public class EntitySearchService {
     }
 
 
+    /**
+     * Search results tolerate a little staleness so, where a replica is usable,
+     * the per-kind queries are served from it.
+     */
+    private Callable<Collection<? extends WaltzEntity>> mkReplicaCallable(EntityKind entityKind,
+                                                                          EntitySearchOptions options) {
+        Callable<Collection<? extends WaltzEntity>> callable = mkCallable(entityKind, options);
+        return () -> readReplicaRouter.read(supplier(callable::call));
+    }
+
+
     private Callable<Collection<? extends WaltzEntity>> mkCallable(EntityKind entityKind,
                                                                    EntitySearchOptions options) {
         switch (entityKind) {
@@ -35,6 +35,7 @@ import org.finos.waltz.model.entity_statistic.RollupKind;
 import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchy;
 import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchyUtilities;
 import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.service.rollup.SelectorRollupService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,8 +44,11 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.concat;
 import static org.finos.waltz.common.MapUtilities.groupBy;
@@ -57,23 +61,27 @@ public class EntityStatisticService {
     private final EntityStatisticDefinitionDao definitionDao;
     private final EntityStatisticSummaryDao summaryDao;
     private final EntityStatisticDao statisticDao;
+    private final SelectorRollupService selectorRollupService;
 
 
     @Autowired
     public EntityStatisticService(EntityStatisticValueDao valueDao,
                                   EntityStatisticDefinitionDao definitionDao,
                                   EntityStatisticSummaryDao summaryDao,
-                                  EntityStatisticDao statisticDao)
+                                  EntityStatisticDao statisticDao,
+                                  SelectorRollupService selectorRollupService)
     {
         checkNotNull(valueDao, "valueDao cannot be null");
         checkNotNull(definitionDao, "definitionDao cannot be null");
         checkNotNull(summaryDao, "summaryDao cannot be null");
         checkNotNull(statisticDao, "statisticDao cannot be null");
+        checkNotNull(selectorRollupService, "selectorRollupService cannot be null");
 
         this.valueDao = valueDao;
         this.definitionDao = definitionDao;
         this.summaryDao = summaryDao;
         this.statisticDao = statisticDao;
+        this.selectorRollupService = selectorRollupService;
 
     }
 
@@ -117,15 +125,21 @@ public class EntityStatisticService {
 
 
         return concat(
-                summaryDao.generateWithCountByEntity(
+                summarise(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.COUNT_BY_ENTITY, emptyList()),
-                        appIdSelector),
-                summaryDao.generateWithSumByValue(
+                        RollupKind.COUNT_BY_ENTITY,
+                        options,
+                        ids -> summaryDao.generateWithCountByEntity(ids, appIdSelector)),
+                summarise(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.SUM_BY_VALUE, emptyList()),
-                        appIdSelector),
-                summaryDao.generateWithAvgByValue(
+                        RollupKind.SUM_BY_VALUE,
+                        options,
+                        ids -> summaryDao.generateWithSumByValue(ids, appIdSelector)),
+                summarise(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.AVG_BY_VALUE, emptyList()),
-                        appIdSelector),
+                        RollupKind.AVG_BY_VALUE,
+                        options,
+                        ids -> summaryDao.generateWithAvgByValue(ids, appIdSelector)),
                 summaryDao.generateWithNoRollup(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.NONE, emptyList()),
                         options.entityReference())
@@ -139,6 +153,14 @@ public class EntityStatisticService {
         Checks.checkNotNull(options, "options cannot be null");
         Checks.checkNotNull(rollupKind, "rollupKind cannot be null");
 
+        Optional<TallyPack<String>> fromRollup = selectorRollupService
+                .findStatisticTallies(singletonList(statisticId), rollupKind, options)
+                .map(tallies -> tallies.get(0));
+
+        if (fromRollup.isPresent()) {
+            return fromRollup.get();
+        }
+
         Select<Record1<Long>> appIdSelector = factory.apply(options);
 
         switch(rollupKind) {
@@ -182,6 +204,23 @@ public class EntityStatisticService {
     }
 
 
+    /**
+     * Answers from the precomputed rollups where possible, otherwise falls back to the live query
+     */
+    private List<TallyPack<String>> summarise(Collection<Long> statisticIds,
+                                              RollupKind rollupKind,
+                                              IdSelectionOptions options,
+                                              Function<Collection<Long>, List<TallyPack<String>>> liveSummariser) {
+        if (statisticIds.isEmpty()) {
+            return emptyList();
+        }
+
+        return selectorRollupService
+                .findStatisticTallies(statisticIds, rollupKind, options)
+                .orElseGet(() -> liveSummariser.apply(statisticIds));
+    }
+
+
     public EntityStatisticDefinition getDefinitionById(long id) {
         return definitionDao.getById(id);
     }
@@ -0,0 +1,241 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.flow_classification_rule;
+
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Gives {@link FlowClassificationRuleResolver}s, preferring pre-built ones
+ * covering every rule so ratings can be resolved without querying the rule
+ * tables.
+ *
+ * A pre-built resolver is held per direction, built on first use, unless the
+ * fully expanded rule set (org unit rules are expanded over all descendant
+ * org units, data type rules over all descendant data types) has more than
+ * {@link #MAX_HELD_VANTAGE_POINTS} entries.  Beyond that requests are given a
+ * resolver built just for the vantage points they need, as held resolvers
+ * would cost too much memory.
+ *
+ * Held resolvers are versioned.  Changing a rule (see {@link #invalidate()})
+ * or rebuilding the org unit or data type hierarchies bumps the version on
+ * every node, via the {@link CacheInvalidationService}, and the next request
+ * rebuilds the resolver and swaps it in atomically.  While a resolver is
+ * being rebuilt other requests keep using the previous one (or, before the
+ * first has been built, a resolver built just for their vantage points).
+ * Resolvers are also rebuilt after {@link #MAX_AGE_MILLIS} to pick up changes
+ * made elsewhere, e.g. bulk loads.
+ */
+@Service
+public class FlowClassificationRuleResolverService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowClassificationRuleResolverService.class);
+
+    public static final String CACHE_KEY = "FLOW_CLASSIFICATION_RULE";
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Roughly 200 bytes per vantage point once indexed by the resolver
+     */
+    public static final int MAX_HELD_VANTAGE_POINTS = 250_000;
+
+    private final FlowClassificationRuleDao flowClassificationRuleDao;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final AtomicLong requiredVersion = new AtomicLong();
+
+    // one slot per direction, populated on construction and never modified afterwards
+    private final Map<FlowDirection, Slot> slotsByDirection = new EnumMap<>(FlowDirection.class);
+
+
+    private static class Slot {
+        private final AtomicReference<Held> held = new AtomicReference<>();
+        private final AtomicBoolean building = new AtomicBoolean();
+    }
+
+
+    private static class Held {
+        private final long version;
+        private final long builtAt;
+
+        /**
+         * null if the expanded rule set was too large to hold
+         */
+        private final FlowClassificationRuleResolver resolver;
+
+        private Held(long version,
+                     long builtAt,
+                     FlowClassificationRuleResolver resolver) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.resolver = resolver;
+        }
+    }
+
+
+    @Autowired
+    public FlowClassificationRuleResolverService(FlowClassificationRuleDao flowClassificationRuleDao,
+                                                 CacheInvalidationService cacheInvalidationService) {
+        checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao cannot be null");
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
+
+        this.flowClassificationRuleDao = flowClassificationRuleDao;
+        this.cacheInvalidationService = cacheInvalidationService;
+
+        for (FlowDirection direction : FlowDirection.values()) {
+            slotsByDirection.put(direction, new Slot());
+        }
+
+        cacheInvalidationService.subscribe(CACHE_KEY, e -> requiredVersion.incrementAndGet());
+        cacheInvalidationService.subscribe(EntityHierarchyService.mkCacheKey(EntityKind.ORG_UNIT), e -> requiredVersion.incrementAndGet());
+        cacheInvalidationService.subscribe(EntityHierarchyService.mkCacheKey(EntityKind.DATA_TYPE), e -> requiredVersion.incrementAndGet());
+    }
+
+
+    /**
+     * @param direction  direction of the rules to resolve
+     * @param vantagePointEntities  entities (apps and actors) the resolver will be asked about,
+     *                              only used if a resolver has to be built for this request
+     * @param vantagePointOrgUnitIds  org units the resolver will be asked about,
+     *                                only used if a resolver has to be built for this request
+     */
+    public FlowClassificationRuleResolver getResolver(FlowDirection direction,
+                                                      Set<EntityReference> vantagePointEntities,
+                                                      Set<Long> vantagePointOrgUnitIds) {
+        checkNotNull(direction, "direction cannot be null");
+        checkNotNull(vantagePointEntities, "vantagePointEntities cannot be null");
+        checkNotNull(vantagePointOrgUnitIds, "vantagePointOrgUnitIds cannot be null");
+
+        FlowClassificationRuleResolver held = getHeldResolver(direction);
+        if (held != null) {
+            return held;
+        }
+
+        return new FlowClassificationRuleResolver(
+                direction,
+                flowClassificationRuleDao.findExpandedFlowClassificationRuleVantagePoints(
+                        direction,
+                        vantagePointOrgUnitIds,
+                        getIdsForKind(vantagePointEntities, EntityKind.APPLICATION),
+                        getIdsForKind(vantagePointEntities, EntityKind.ACTOR)));
+    }
+
+
+    /**
+     * @return version of the resolvers which will be used by the next request
+     */
+    public long getVersion() {
+        return requiredVersion.get();
+    }
+
+
+    /**
+     * To be called whenever rules are created, updated or removed.
+     */
+    public void invalidate() {
+        cacheInvalidationService.publish(CACHE_KEY, Operation.UPDATE);
+    }
+
+
+    // -- helpers --
+
+    /**
+     * @return the held resolver, or null if there is none (yet) or the rule set is too large to hold
+     */
+    private FlowClassificationRuleResolver getHeldResolver(FlowDirection direction) {
+        Slot slot = slotsByDirection.get(direction);
+        Held held = slot.held.get();
+
+        // only one request rebuilds, the others carry on with what is currently held
+        if (! isCurrent(held) && slot.building.compareAndSet(false, true)) {
+            try {
+                held = build(direction, requiredVersion.get());
+                slot.held.set(held);
+            } finally {
+                slot.building.set(false);
+            }
+        }
+
+        return held == null
+                ? null
+                : held.resolver;
+    }
+
+
+    private boolean isCurrent(Held held) {
+        return held != null
+                && held.version == requiredVersion.get()
+                && System.currentTimeMillis() - held.builtAt < MAX_AGE_MILLIS;
+    }
+
+
+    private Held build(FlowDirection direction, long version) {
+        long st = System.currentTimeMillis();
+
+        int vantagePointCount = flowClassificationRuleDao.countExpandedFlowClassificationRuleVantagePoints(direction);
+        if (vantagePointCount > MAX_HELD_VANTAGE_POINTS) {
+            LOG.info("Not holding {} flow classification rule resolver, {} vantage points exceeds limit of {}",
+                    direction,
+                    vantagePointCount,
+                    MAX_HELD_VANTAGE_POINTS);
+            return new Held(version, st, null);
+        }
+
+        FlowClassificationRuleResolver resolver = new FlowClassificationRuleResolver(
+                direction,
+                flowClassificationRuleDao.findExpandedFlowClassificationRuleVantagePoints(direction));
+
+        LOG.info("Built {} flow classification rule resolver, version: {}, vantage points: {}, in {}ms",
+                direction,
+                version,
+                vantagePointCount,
+                System.currentTimeMillis() - st);
+        return new Held(version, st, resolver);
+    }
+
+
+    private static Set<Long> getIdsForKind(Set<EntityReference> refs, EntityKind kind) {
+        return refs
+                .stream()
+                .filter(ref -> ref.kind() == kind)
+                .map(EntityReference::id)
+                .collect(toSet());
+    }
+}
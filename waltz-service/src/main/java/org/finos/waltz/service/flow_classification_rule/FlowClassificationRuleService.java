@@ -108,6 +108,7 @@ public class FlowClassificationRuleService {
     private final FlowClassificationCalculator ratingCalculator;
     private final FlowClassificationDao flowClassificationDao;
     private final FlowClassificationRuleDao flowClassificationRuleDao;
+    private final FlowClassificationRuleResolverService flowClassificationRuleResolverService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final OrganisationalUnitDao organisationalUnitDao;
 
@@ -129,7 +130,8 @@ public class FlowClassificationRuleService {
                                          ChangeLogService changeLogService,
                                          EntityHierarchyService entityHierarchyService,
                                          LogicalFlowDecoratorDao logicalFlowDecoratorDao,
-                                         EndUserAppDao endUserAppDao) {
+                                         EndUserAppDao endUserAppDao,
+                                         FlowClassificationRuleResolverService flowClassificationRuleResolverService) {
         checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao must not be null");
         checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
         checkNotNull(actorDao, "actorDao must not be null");
@@ -141,6 +143,7 @@ public class FlowClassificationRuleService {
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
         checkNotNull(entityHierarchyService, "entityHierarchyService cannot be null");
         checkNotNull(endUserAppDao, "endUserAppDao cannot be null");
+        checkNotNull(flowClassificationRuleResolverService, "flowClassificationRuleResolverService cannot be null");
 
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
@@ -153,6 +156,7 @@ public class FlowClassificationRuleService {
         this.organisationalUnitDao = organisationalUnitDao;
         this.ratingCalculator = ratingCalculator;
         this.endUserAppDao = endUserAppDao;
+        this.flowClassificationRuleResolverService = flowClassificationRuleResolverService;
     }
 
 
@@ -179,6 +183,7 @@ public class FlowClassificationRuleService {
     public int update(FlowClassificationRuleUpdateCommand command, String username) {
         command.id().orElseThrow(() -> new IllegalArgumentException("cannot update an flow classification rule without an id"));
         int updateCount = flowClassificationRuleDao.update(command);
+        flowClassificationRuleResolverService.invalidate();
         logUpdate(command, username);
 
         // TODO: need to recalc on demand (old call: FlowClassificationCalculator::update )
@@ -189,6 +194,7 @@ public class FlowClassificationRuleService {
 
     public long insert(FlowClassificationRuleCreateCommand command, String username) {
         long classificationRuleId = flowClassificationRuleDao.insert(command, username);
+        flowClassificationRuleResolverService.invalidate();
         logInsert(classificationRuleId, command, username);
 
         // TODO: need to recalc on demand (old call: FlowClassificationCalculator::update )
@@ -207,7 +213,9 @@ public class FlowClassificationRuleService {
 
         logRemoval(id, username);
 
-        return flowClassificationRuleDao.remove(id);
+        int removed = flowClassificationRuleDao.remove(id);
+        flowClassificationRuleResolverService.invalidate();
+        return removed;
 
         // TODO: need to recalc on demand (old calls:
         //      FlowClassificationCalculator::update,
@@ -354,6 +362,9 @@ public class FlowClassificationRuleService {
 
     public Integer cleanupOrphans(String userId) {
         Set<EntityReference> entityReferences = flowClassificationRuleDao.cleanupOrphans();
+        if (! entityReferences.isEmpty()) {
+            flowClassificationRuleResolverService.invalidate();
+        }
 
         entityReferences
                 .forEach(ref -> {
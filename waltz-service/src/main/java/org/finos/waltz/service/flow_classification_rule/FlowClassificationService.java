@@ -20,6 +20,7 @@ package org.finos.waltz.service.flow_classification_rule;
 
 import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
 import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.service.data_type.FlowReferenceDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -32,12 +33,16 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class FlowClassificationService {
 
     private final FlowClassificationDao flowClassificationDao;
+    private final FlowReferenceDataService flowReferenceDataService;
 
     @Autowired
-    public FlowClassificationService(FlowClassificationDao flowClassificationDao) {
+    public FlowClassificationService(FlowClassificationDao flowClassificationDao,
+                                     FlowReferenceDataService flowReferenceDataService) {
         checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
+        checkNotNull(flowReferenceDataService, "flowReferenceDataService must not be null");
 
         this.flowClassificationDao = flowClassificationDao;
+        this.flowReferenceDataService = flowReferenceDataService;
     }
 
     public FlowClassification getById(long id) {
@@ -46,4 +51,12 @@ public class FlowClassificationService {
 
     public Set<FlowClassification> findAll() { return flowClassificationDao.findAll(); }
 
+    public int remove(long id) {
+        int removed = flowClassificationDao.remove(id);
+        if (removed > 0) {
+            flowReferenceDataService.invalidate();
+        }
+        return removed;
+    }
+
 }
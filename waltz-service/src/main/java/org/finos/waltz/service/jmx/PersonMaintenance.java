@@ -42,7 +42,7 @@ public class PersonMaintenance {
     @ManagedOperation(description = "Rebuild the person hierarchy table")
     public int rebuildHierarchyTable() {
         LOG.warn("Rebuild person hierarchy (via jmx)");
-        return personHierarchyService.build().length;
+        return personHierarchyService.build();
     }
 
 
@@ -0,0 +1,403 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowGraphTraversal;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.model.logical_flow.LogicalFlowGraphNode.mkNode;
+
+/**
+ * Immutable, array backed, snapshot of the active logical flows.
+ *
+ * Nodes are identified by a packed <code>(kind, id)</code> key held in a
+ * sorted array, so lookups are a binary search.  Edges (flows) are stored in
+ * parallel arrays and indexed in both directions using compressed offset
+ * arrays.  Each edge is labelled with the (sorted) ids of the data types it
+ * carries.
+ *
+ * Instances are safe to share between threads, a new snapshot is built
+ * whenever the underlying flows change.
+ */
+public class LogicalFlowGraph {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    private static final long NO_DATA_TYPE = -1;
+
+    private final long[] nodeKeys;
+    private final EntityReference[] nodeRefs;
+
+    private final long[] edgeFlowIds;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+
+    private final int[] dataTypeOffsets;
+    private final long[] dataTypeIds;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+
+    /**
+     * A single logical flow as held by the graph.
+     */
+    public static class Edge {
+
+        private final long flowId;
+        private final EntityReference source;
+        private final EntityReference target;
+        private final long[] dataTypeIds;
+
+
+        public Edge(long flowId,
+                    EntityReference source,
+                    EntityReference target,
+                    Collection<Long> dataTypeIds) {
+            checkNotNull(source, "source cannot be null");
+            checkNotNull(target, "target cannot be null");
+            checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
+
+            this.flowId = flowId;
+            this.source = source;
+            this.target = target;
+            this.dataTypeIds = dataTypeIds
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+
+
+        public long flowId() {
+            return flowId;
+        }
+    }
+
+
+    private LogicalFlowGraph(Collection<Edge> edges) {
+        long[] keys = new long[edges.size() * 2];
+        int k = 0;
+        for (Edge edge : edges) {
+            keys[k++] = toKey(edge.source);
+            keys[k++] = toKey(edge.target);
+        }
+        Arrays.sort(keys);
+        nodeKeys = dedupe(keys);
+        nodeRefs = new EntityReference[nodeKeys.length];
+
+        int edgeCount = edges.size();
+        edgeFlowIds = new long[edgeCount];
+        edgeSources = new int[edgeCount];
+        edgeTargets = new int[edgeCount];
+        dataTypeOffsets = new int[edgeCount + 1];
+        dataTypeIds = new long[edges.stream().mapToInt(e -> e.dataTypeIds.length).sum()];
+
+        int e = 0;
+        for (Edge edge : edges) {
+            int src = Arrays.binarySearch(nodeKeys, toKey(edge.source));
+            int trg = Arrays.binarySearch(nodeKeys, toKey(edge.target));
+            nodeRefs[src] = edge.source;
+            nodeRefs[trg] = edge.target;
+
+            edgeFlowIds[e] = edge.flowId;
+            edgeSources[e] = src;
+            edgeTargets[e] = trg;
+            System.arraycopy(edge.dataTypeIds, 0, dataTypeIds, dataTypeOffsets[e], edge.dataTypeIds.length);
+            dataTypeOffsets[e + 1] = dataTypeOffsets[e] + edge.dataTypeIds.length;
+            e++;
+        }
+
+        outOffsets = new int[nodeKeys.length + 1];
+        outEdges = new int[edgeCount];
+        index(edgeSources, outOffsets, outEdges);
+
+        inOffsets = new int[nodeKeys.length + 1];
+        inEdges = new int[edgeCount];
+        index(edgeTargets, inOffsets, inEdges);
+    }
+
+
+    public static LogicalFlowGraph build(Collection<Edge> edges) {
+        checkNotNull(edges, "edges cannot be null");
+        return new LogicalFlowGraph(edges);
+    }
+
+
+    public int nodeCount() {
+        return nodeKeys.length;
+    }
+
+
+    public int edgeCount() {
+        return edgeFlowIds.length;
+    }
+
+
+    /**
+     * Walks the graph breadth first from the start node.
+     *
+     * @param start       where to start walking from
+     * @param downstream  follow flows from source to target
+     * @param upstream    follow flows from target to source
+     * @param dataTypeId  if given, only flows carrying this (exact) data type are followed
+     * @param maxDepth    maximum number of hops, use {@link #UNBOUNDED} for the full closure
+     * @return nodes reached (excluding the start) and the flows followed
+     */
+    public LogicalFlowGraphTraversal traverse(EntityReference start,
+                                              boolean downstream,
+                                              boolean upstream,
+                                              Optional<Long> dataTypeId,
+                                              int maxDepth) {
+        checkNotNull(start, "start cannot be null");
+        checkTrue(maxDepth >= 0, "maxDepth cannot be negative");
+
+        ImmutableLogicalFlowGraphTraversal.Builder result = ImmutableLogicalFlowGraphTraversal
+                .builder()
+                .start(start)
+                .dataTypeId(dataTypeId)
+                .maxDepth(maxDepth == UNBOUNDED ? Optional.empty() : Optional.of(maxDepth));
+
+        int startIdx = indexOf(start);
+        if (startIdx < 0) {
+            return result.build();
+        }
+
+        long dt = dataTypeId.orElse(NO_DATA_TYPE);
+        int[] depths = new int[nodeKeys.length];
+        Arrays.fill(depths, -1);
+        int[] queue = new int[nodeKeys.length];
+        int head = 0;
+        int tail = 0;
+
+        depths[startIdx] = 0;
+        queue[tail++] = startIdx;
+
+        Set<Long> flowIds = new TreeSet<>();
+
+        while (head < tail) {
+            int node = queue[head++];
+            int depth = depths[node];
+            if (depth >= maxDepth) {
+                continue;
+            }
+            if (downstream) {
+                tail = expand(node, depth, dt, outOffsets, outEdges, edgeTargets, depths, queue, tail, flowIds);
+            }
+            if (upstream) {
+                tail = expand(node, depth, dt, inOffsets, inEdges, edgeSources, depths, queue, tail, flowIds);
+            }
+        }
+
+        for (int i = 1; i < tail; i++) {
+            result.addNodes(mkNode(nodeRefs[queue[i]], depths[queue[i]]));
+        }
+
+        return result
+                .flowIds(flowIds)
+                .build();
+    }
+
+
+    /**
+     * Finds a shortest (fewest hops) route from source to target following
+     * flows in their natural direction.
+     *
+     * @param dataTypeId  if given the path is strict, every flow must carry this (exact) data type
+     */
+    public Optional<LogicalFlowGraphPath> findShortestPath(EntityReference source,
+                                                           EntityReference target,
+                                                           Optional<Long> dataTypeId) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+
+        int sourceIdx = indexOf(source);
+        int targetIdx = indexOf(target);
+        if (sourceIdx < 0 || targetIdx < 0 || sourceIdx == targetIdx) {
+            return Optional.empty();
+        }
+
+        long dt = dataTypeId.orElse(NO_DATA_TYPE);
+        int[] viaEdge = new int[nodeKeys.length];
+        Arrays.fill(viaEdge, -1);
+        boolean[] visited = new boolean[nodeKeys.length];
+        int[] queue = new int[nodeKeys.length];
+        int head = 0;
+        int tail = 0;
+
+        visited[sourceIdx] = true;
+        queue[tail++] = sourceIdx;
+
+        while (head < tail && ! visited[targetIdx]) {
+            int node = queue[head++];
+            for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+                int edge = outEdges[i];
+                int next = edgeTargets[edge];
+                if (! visited[next] && carries(edge, dt)) {
+                    visited[next] = true;
+                    viaEdge[next] = edge;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        if (! visited[targetIdx]) {
+            return Optional.empty();
+        }
+
+        List<EntityReference> nodes = new ArrayList<>();
+        List<Long> flowIds = new ArrayList<>();
+        for (int node = targetIdx; node != sourceIdx; node = edgeSources[viaEdge[node]]) {
+            nodes.add(nodeRefs[node]);
+            flowIds.add(edgeFlowIds[viaEdge[node]]);
+        }
+        nodes.add(nodeRefs[sourceIdx]);
+        Collections.reverse(nodes);
+        Collections.reverse(flowIds);
+
+        return Optional.of(ImmutableLogicalFlowGraphPath
+                .builder()
+                .source(nodeRefs[sourceIdx])
+                .target(nodeRefs[targetIdx])
+                .dataTypeId(dataTypeId)
+                .nodes(nodes)
+                .flowIds(flowIds)
+                .build());
+    }
+
+
+    /**
+     * Finds, for each data type leaving the source, the shortest route to the
+     * target where every flow carries that data type.
+     *
+     * @return one path per data type which can reach the target, shortest first
+     */
+    public List<LogicalFlowGraphPath> findStrictShortestPaths(EntityReference source,
+                                                              EntityReference target) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+
+        int sourceIdx = indexOf(source);
+        if (sourceIdx < 0) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> candidateDataTypes = new TreeSet<>();
+        for (int i = outOffsets[sourceIdx]; i < outOffsets[sourceIdx + 1]; i++) {
+            int edge = outEdges[i];
+            for (int j = dataTypeOffsets[edge]; j < dataTypeOffsets[edge + 1]; j++) {
+                candidateDataTypes.add(dataTypeIds[j]);
+            }
+        }
+
+        List<LogicalFlowGraphPath> paths = new ArrayList<>();
+        for (Long dt : candidateDataTypes) {
+            findShortestPath(source, target, Optional.of(dt)).ifPresent(paths::add);
+        }
+        paths.sort((a, b) -> Integer.compare(a.length(), b.length()));
+        return paths;
+    }
+
+
+    // -- helpers --
+
+    private int expand(int node,
+                       int depth,
+                       long dt,
+                       int[] offsets,
+                       int[] adjacentEdges,
+                       int[] farEnds,
+                       int[] depths,
+                       int[] queue,
+                       int tail,
+                       Set<Long> flowIds) {
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            int edge = adjacentEdges[i];
+            if (! carries(edge, dt)) {
+                continue;
+            }
+            flowIds.add(edgeFlowIds[edge]);
+            int next = farEnds[edge];
+            if (depths[next] < 0) {
+                depths[next] = depth + 1;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+
+    private boolean carries(int edge, long dt) {
+        return dt == NO_DATA_TYPE
+                || Arrays.binarySearch(dataTypeIds, dataTypeOffsets[edge], dataTypeOffsets[edge + 1], dt) >= 0;
+    }
+
+
+    private int indexOf(EntityReference ref) {
+        int idx = Arrays.binarySearch(nodeKeys, toKey(ref));
+        return idx < 0 ? -1 : idx;
+    }
+
+
+    private static long toKey(EntityReference ref) {
+        return ((long) ref.kind().ordinal() << 56) | ref.id();
+    }
+
+
+    private static long[] dedupe(long[] sorted) {
+        int len = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[len++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, len);
+    }
+
+
+    private static void index(int[] endpoints, int[] offsets, int[] edges) {
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 0; i < offsets.length - 1; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int e = 0; e < endpoints.length; e++) {
+            edges[cursor[endpoints[e]]++] = e;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.common.FunctionUtilities;
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowIdSelectorFactory;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationEvent;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.model.utils.IdUtilities.toIds;
+
+/**
+ * Keeps a resident, in-memory, graph of all active logical flows (labelled
+ * with their data types) so that lineage style questions can be answered
+ * without going back to the database.
+ *
+ * The graph is loaded lazily on first use.  Flow and decorator writes made
+ * via the services notify this service (see <code>refreshFlows</code>), the
+ * notification is published on {@link #CACHE_KEY} once the writing
+ * transaction commits so every node reloads just the affected flows.  Change
+ * log entries for flows written on other nodes are picked up from
+ * {@link ChangeLogDao#ENTITY_CACHE_KEY} too.
+ *
+ * Affected flows are reloaded, and the array based snapshot rebuilt, on a
+ * background thread, queries keep being answered from the previous
+ * snapshot until the new one is ready.  Notifications are coalesced so a
+ * burst of writes results in a single rebuild.  As flows may also be written
+ * by loaders which bypass the services, the whole graph is periodically
+ * reloaded.
+ */
+@Service
+public class LogicalFlowGraphService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowGraphService.class);
+
+    public static final String CACHE_KEY = "LOGICAL_FLOW_GRAPH";
+
+    private final LogicalFlowDao logicalFlowDao;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
+
+    private final Object lock = new Object();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread t = new Thread(runnable, "Logical Flow Graph Rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object pendingLock = new Object();
+
+    // guarded by pendingLock
+    private final Set<Long> pendingFlowIds = new HashSet<>();
+    private final Set<EntityReference> pendingSelections = new HashSet<>();
+    private boolean pendingReload = false;
+    private boolean rebuildQueued = false;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    // guarded by lock
+    private Map<Long, LogicalFlowGraph.Edge> edgesByFlowId = null;
+
+    // null only before the first load (or after an invalidation)
+    private volatile LogicalFlowGraph graph = null;
+
+
+    @Autowired
+    public LogicalFlowGraphService(LogicalFlowDao logicalFlowDao,
+                                   LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                   CacheInvalidationService cacheInvalidationService) {
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(cacheInvalidationService, "cacheInvalidationService cannot be null");
+
+        this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.cacheInvalidationService = cacheInvalidationService;
+
+        cacheInvalidationService.subscribe(CACHE_KEY, this::onInvalidation);
+        cacheInvalidationService.subscribe(ChangeLogDao.ENTITY_CACHE_KEY, this::onInvalidation);
+    }
+
+
+    public LogicalFlowGraphTraversal getUpstream(EntityReference ref,
+                                                 Optional<Long> dataTypeId,
+                                                 Optional<Integer> maxDepth) {
+        return getGraph().traverse(ref, false, true, dataTypeId, maxDepth.orElse(LogicalFlowGraph.UNBOUNDED));
+    }
+
+
+    public LogicalFlowGraphTraversal getDownstream(EntityReference ref,
+                                                   Optional<Long> dataTypeId,
+                                                   Optional<Integer> maxDepth) {
+        return getGraph().traverse(ref, true, false, dataTypeId, maxDepth.orElse(LogicalFlowGraph.UNBOUNDED));
+    }
+
+
+    public LogicalFlowGraphTraversal getNeighbourhood(EntityReference ref,
+                                                      int hops,
+                                                      Optional<Long> dataTypeId) {
+        checkTrue(hops >= 0, "hops cannot be negative");
+        return getGraph().traverse(ref, true, true, dataTypeId, hops);
+    }
+
+
+    public Optional<LogicalFlowGraphPath> findShortestPath(EntityReference source,
+                                                           EntityReference target) {
+        return getGraph().findShortestPath(source, target, Optional.empty());
+    }
+
+
+    /**
+     * Strict paths only follow flows which carry the same data type.
+     * If no data type is given a path is returned for each data type
+     * (leaving the source) which reaches the target.
+     */
+    public List<LogicalFlowGraphPath> findStrictShortestPaths(EntityReference source,
+                                                              EntityReference target,
+                                                              Optional<Long> dataTypeId) {
+        LogicalFlowGraph g = getGraph();
+        return dataTypeId
+                .map(dt -> g
+                        .findShortestPath(source, target, Optional.of(dt))
+                        .map(Collections::singletonList)
+                        .orElse(Collections.emptyList()))
+                .orElseGet(() -> g.findStrictShortestPaths(source, target));
+    }
+
+
+    /**
+     * Reloads the given flows (and their decorations) into the graph, on
+     * every node, once the current transaction commits.  Removed flows are
+     * dropped from the graph.
+     */
+    public void refreshFlows(Collection<Long> flowIds) {
+        if (isEmpty(flowIds)) {
+            return;
+        }
+
+        cacheInvalidationService.publish(
+                CACHE_KEY,
+                Operation.UPDATE,
+                flowIds
+                        .stream()
+                        .map(id -> mkRef(EntityKind.LOGICAL_DATA_FLOW, id))
+                        .collect(toList()));
+    }
+
+
+    /**
+     * Reloads the flows selected by the given entity (e.g. all flows sharing
+     * a physical specification), on every node, once the current transaction
+     * commits.  Selected flows which are no longer active are dropped from
+     * the graph.
+     */
+    public void refreshFlows(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        cacheInvalidationService.publish(CACHE_KEY, Operation.UPDATE, Collections.singletonList(ref));
+    }
+
+
+    /**
+     * Reloads the whole graph, on every node, once the current transaction
+     * commits.  Used after bulk operations where the affected flows are not
+     * known.  Queries are answered from the current snapshot meanwhile.
+     */
+    public void invalidate() {
+        cacheInvalidationService.publish(CACHE_KEY, Operation.UPDATE);
+    }
+
+
+    @Scheduled(fixedRate = 1_800_000, initialDelay = 1_800_000)
+    public void reload() {
+        synchronized (lock) {
+            if (edgesByFlowId == null) {
+                return; // nobody has asked for the graph yet
+            }
+            loadAll();
+            graph = buildGraph();
+        }
+    }
+
+
+    // -- helpers --
+
+    private LogicalFlowGraph getGraph() {
+        LogicalFlowGraph g = graph;
+        if (g != null) {
+            return g;
+        }
+
+        synchronized (lock) {
+            if (graph == null) {
+                if (edgesByFlowId == null) {
+                    loadAll();
+                }
+                graph = buildGraph();
+            }
+            return graph;
+        }
+    }
+
+
+    private void onInvalidation(CacheInvalidationEvent event) {
+        synchronized (pendingLock) {
+            if (! event.entityReference().isPresent()) {
+                pendingReload = true;
+            } else {
+                EntityReference ref = event.entityReference().get();
+                switch (ref.kind()) {
+                    case LOGICAL_DATA_FLOW:
+                        pendingFlowIds.add(ref.id());
+                        break;
+                    case PHYSICAL_FLOW:
+                    case PHYSICAL_SPECIFICATION:
+                        pendingSelections.add(ref);
+                        break;
+                    default:
+                        return; // other entities do not affect the graph
+                }
+            }
+
+            if (! rebuildQueued) {
+                rebuildQueued = true;
+                rebuildExecutor.execute(this::applyPending);
+            }
+        }
+    }
+
+
+    /**
+     * Reloads the flows notified since the last run and rebuilds the
+     * snapshot.  The pending notifications are taken before anything is
+     * loaded, so any notification arriving after that point queues a further
+     * run and is not lost.
+     */
+    private void applyPending() {
+        boolean reload;
+        Set<Long> flowIds;
+        Set<EntityReference> selections;
+        synchronized (pendingLock) {
+            reload = pendingReload;
+            flowIds = new HashSet<>(pendingFlowIds);
+            selections = new HashSet<>(pendingSelections);
+            pendingReload = false;
+            pendingFlowIds.clear();
+            pendingSelections.clear();
+            rebuildQueued = false;
+        }
+
+        try {
+            List<LogicalFlowGraph.Edge> edges;
+            synchronized (lock) {
+                if (edgesByFlowId == null) {
+                    return; // not loaded yet, will be loaded on next use
+                }
+                if (reload) {
+                    loadAll();
+                } else {
+                    reloadFlows(flowIds);
+                    selections.forEach(this::reloadFlows);
+                }
+                edges = new ArrayList<>(edgesByFlowId.values());
+            }
+
+            LogicalFlowGraph g = LogicalFlowGraph.build(edges);
+            synchronized (lock) {
+                if (edgesByFlowId != null) {
+                    graph = g;
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Could not rebuild logical flow graph, previous snapshot retained", e);
+        }
+    }
+
+
+    private void reloadFlows(Collection<Long> flowIds) {
+        if (isEmpty(flowIds)) {
+            return;
+        }
+        flowIds.forEach(edgesByFlowId::remove);
+        edgesByFlowId.putAll(mkEdges(
+                logicalFlowDao.findAllByFlowIds(flowIds),
+                logicalFlowDecoratorDao.findByFlowIds(flowIds)));
+    }
+
+
+    private void reloadFlows(EntityReference selection) {
+        Select<Record1<Long>> flowIdSelector = logicalFlowIdSelectorFactory.apply(mkOpts(selection));
+        List<LogicalFlow> flows = logicalFlowDao.findBySelector(flowIdSelector);
+        toIds(flows).forEach(edgesByFlowId::remove);
+        edgesByFlowId.putAll(mkEdges(
+                flows,
+                logicalFlowDecoratorDao.findByLogicalFlowIdSelector(flowIdSelector)));
+    }
+
+
+    private void loadAll() {
+        edgesByFlowId = FunctionUtilities.time(
+                "LogicalFlowGraphService.loadAll",
+                () -> new HashMap<>(mkEdges(
+                        logicalFlowDao.findAllActive(),
+                        logicalFlowDecoratorDao.findAll())));
+    }
+
+
+    private LogicalFlowGraph buildGraph() {
+        LogicalFlowGraph g = LogicalFlowGraph.build(edgesByFlowId.values());
+        LOG.debug("Built logical flow graph with {} nodes and {} edges", g.nodeCount(), g.edgeCount());
+        return g;
+    }
+
+
+    private static Map<Long, LogicalFlowGraph.Edge> mkEdges(Collection<LogicalFlow> flows,
+                                                            Collection<DataTypeDecorator> decorators) {
+        Map<Long, Set<Long>> dataTypesByFlowId = decorators
+                .stream()
+                .collect(groupingBy(
+                        DataTypeDecorator::dataFlowId,
+                        mapping(DataTypeDecorator::dataTypeId, toSet())));
+
+        Map<Long, LogicalFlowGraph.Edge> edges = new HashMap<>();
+        flows.stream()
+                .filter(f -> ! f.isRemoved())
+                .filter(f -> f.entityLifecycleStatus() == EntityLifecycleStatus.ACTIVE)
+                .filter(f -> f.id().isPresent())
+                .forEach(f -> {
+                    long flowId = f.id().get();
+                    edges.put(flowId, new LogicalFlowGraph.Edge(
+                            flowId,
+                            f.source(),
+                            f.target(),
+                            dataTypesByFlowId.getOrDefault(flowId, Collections.emptySet())));
+                });
+        return edges;
+    }
+}
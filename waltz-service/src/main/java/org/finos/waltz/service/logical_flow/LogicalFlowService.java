@@ -66,6 +66,7 @@ import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_type.DataTypeService;
 import org.finos.waltz.service.permission.permission_checker.FlowPermissionChecker;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
+import org.finos.waltz.service.rollup.SelectorRollupService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.jooq.Record1;
 import org.jooq.Select;
@@ -120,6 +121,7 @@ public class LogicalFlowService {
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowStatsDao logicalFlowStatsDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final FlowPermissionChecker flowPermissionChecker;
     private final PhysicalSpecDecoratorDao physicalSpecDecoratorDao;
 
@@ -129,6 +131,7 @@ public class LogicalFlowService {
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final RatingSchemeService ratingSchemeService;
+    private final SelectorRollupService selectorRollupService;
     private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
     private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
@@ -144,13 +147,15 @@ public class LogicalFlowService {
                               LogicalFlowDao logicalFlowDao,
                               LogicalFlowStatsDao logicalFlowStatsDao,
                               LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                              LogicalFlowGraphService logicalFlowGraphService,
                               FlowPermissionChecker flowPermissionChecker,
                               PhysicalSpecDecoratorDao physicalSpecDecoratorDao,
                               AssessmentRatingService assessmentRatingService,
                               AssessmentDefinitionService assessmentDefinitionService,
                               PhysicalFlowDao physicalFlowDao,
                               PhysicalSpecificationDao physicalSpecificationDao,
-                              RatingSchemeService ratingSchemeService) {
+                              RatingSchemeService ratingSchemeService,
+                              SelectorRollupService selectorRollupService) {
 
         checkNotNull(assessmentDefinitionService, "assessmentDefinitionService cannot be null");
         checkNotNull(assessmentRatingService, "assessmentRatingService cannot be null");
@@ -161,11 +166,13 @@ public class LogicalFlowService {
         checkNotNull(logicalFlowDao, "logicalFlowDao must not be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDataTypeDecoratorDao cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
         checkNotNull(physicalSpecDecoratorDao, "physicalSpecDecoratorDao cannot be null");
         checkNotNull(flowPermissionChecker, "flowPermissionChecker cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(selectorRollupService, "selectorRollupService cannot be null");
 
         this.assessmentDefinitionService = assessmentDefinitionService;
         this.assessmentRatingService = assessmentRatingService;
@@ -177,10 +184,12 @@ public class LogicalFlowService {
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowStatsDao = logicalFlowStatsDao;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.physicalFlowDao = physicalFlowDao;
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.physicalSpecDecoratorDao = physicalSpecDecoratorDao;
         this.ratingSchemeService = ratingSchemeService;
+        this.selectorRollupService = selectorRollupService;
     }
 
 
@@ -256,6 +265,7 @@ public class LogicalFlowService {
 
         LogicalFlow logicalFlow = logicalFlowDao.addFlow(flowToAdd);
         attemptToAddUnknownDecoration(logicalFlow, username);
+        logicalFlow.id().ifPresent(id -> logicalFlowGraphService.refreshFlows(asSet(id)));
 
         changeLogService.writeChangeLogEntries(logicalFlow, username, "Added", Operation.ADD);
 
@@ -304,7 +314,10 @@ public class LogicalFlowService {
                         .build())
                 .collect(toSet());
 
-        return logicalFlowDao.addFlows(flowsToAdd, username);
+        Set<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        logicalFlowGraphService.refreshFlows(toIds(addedFlows));
+
+        return addedFlows;
     }
 
 
@@ -369,6 +382,7 @@ public class LogicalFlowService {
             throw new IllegalArgumentException(format("Cannot find flow with id: %d, no logical flow removed", flowId));
         } else {
             int deleted = logicalFlowDao.removeFlow(flowId, username);
+            logicalFlowGraphService.refreshFlows(asSet(flowId));
 
             Set<EntityReference> affectedEntityRefs = SetUtilities.fromArray(logicalFlow.source(), logicalFlow.target());
 
@@ -409,6 +423,11 @@ public class LogicalFlowService {
     private LogicalFlowStatistics calculateStatsForAppIdSelector(IdSelectionOptions options) {
         checkNotNull(options, "options cannot be null");
 
+        Optional<LogicalFlowStatistics> fromRollup = selectorRollupService.findFlowStatistics(options);
+        if (fromRollup.isPresent()) {
+            return fromRollup.get();
+        }
+
         Select<Record1<Long>> appIdSelector = appIdSelectorFactory.apply(options);
 
         Future<List<TallyPack<String>>> dataTypeCounts = dbExecutorPool.submit(() ->
@@ -433,6 +452,7 @@ public class LogicalFlowService {
     public boolean restoreFlow(long logicalFlowId, String username) {
         boolean result = logicalFlowDao.restoreFlow(logicalFlowId, username);
         if (result) {
+            logicalFlowGraphService.refreshFlows(asSet(logicalFlowId));
             changeLogService.writeChangeLogEntries(mkRef(LOGICAL_DATA_FLOW, logicalFlowId), username, "Restored", Operation.ADD);
         }
         return result;
@@ -440,12 +460,20 @@ public class LogicalFlowService {
 
 
     public Integer cleanupOrphans() {
-        return logicalFlowDao.cleanupOrphans();
+        Integer removed = logicalFlowDao.cleanupOrphans();
+        if (removed > 0) {
+            logicalFlowGraphService.invalidate();
+        }
+        return removed;
     }
 
 
     public int cleanupSelfReferencingFlows() {
-        return logicalFlowDao.cleanupSelfReferencingFlows();
+        int removed = logicalFlowDao.cleanupSelfReferencingFlows();
+        if (removed > 0) {
+            logicalFlowGraphService.invalidate();
+        }
+        return removed;
     }
 
 
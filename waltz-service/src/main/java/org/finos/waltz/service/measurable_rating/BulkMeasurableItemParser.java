@@ -11,8 +11,11 @@ import org.finos.waltz.model.bulk_upload.measurable_rating.BulkMeasurableRatingI
 import org.finos.waltz.model.bulk_upload.measurable_rating.BulkMeasurableRatingParseResult;
 import org.finos.waltz.model.bulk_upload.measurable_rating.ImmutableBulkMeasurableRatingParseError;
 import org.finos.waltz.model.bulk_upload.measurable_rating.ImmutableBulkMeasurableRatingParseResult;
+import org.finos.waltz.service.bulk_upload.XlsxRowReader;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -57,6 +60,29 @@ public class BulkMeasurableItemParser {
     }
 
 
+
+    /**
+     * Reads items from the first sheet of an xlsx workbook.  The sheet is
+     * streamed, rows are converted to items one at a time, so the workbook
+     * itself is never held in memory.  The first row must contain the same
+     * column headers as the delimited formats.
+     */
+    public BulkMeasurableRatingParseResult parseXlsx(InputStream input) {
+        List<BulkMeasurableRatingItem> items = new ArrayList<>();
+        try {
+            XlsxRowReader.readItems(input, BulkMeasurableRatingItem.class, items::add);
+            return BulkMeasurableRatingParseResult.mkResult(items, null);
+        } catch (IOException | IllegalArgumentException e) {
+            return ImmutableBulkMeasurableRatingParseResult
+                    .builder()
+                    .error(ImmutableBulkMeasurableRatingParseError
+                            .builder()
+                            .message(e.getMessage())
+                            .build())
+                    .build();
+        }
+    }
+
     private BulkMeasurableRatingParseResult parseJSON(String input) throws IOException {
         ObjectMapper mapper = new ObjectMapper();
         MappingIterator<BulkMeasurableRatingItem> items = mapper
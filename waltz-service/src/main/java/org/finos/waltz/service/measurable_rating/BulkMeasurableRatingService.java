@@ -33,6 +33,7 @@ import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.finos.waltz.schema.tables.records.MeasurableRatingRecord;
+import org.finos.waltz.service.changelog.ChangeLogRollupService;
 import org.finos.waltz.service.measurable.MeasurableService;
 import org.finos.waltz.service.measurable_category.MeasurableCategoryService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
@@ -48,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.HashSet;
@@ -77,6 +79,7 @@ public class BulkMeasurableRatingService {
     private final MeasurableService measurableService;
     private final MeasurableCategoryService measurableCategoryService;
     private final ApplicationDao applicationDao;
+    private final ChangeLogRollupService changeLogRollupService;
     private final DSLContext dsl;
 
     private final org.finos.waltz.schema.tables.MeasurableRating mr = Tables.MEASURABLE_RATING;
@@ -88,6 +91,7 @@ public class BulkMeasurableRatingService {
                                        MeasurableService measurableService,
                                        MeasurableCategoryService measurableCategoryService,
                                        ApplicationDao applicationDao,
+                                       ChangeLogRollupService changeLogRollupService,
                                        DSLContext dsl) {
         this.userRoleService = userRoleService;
         this.measurableRatingDao = measurableRatingDao;
@@ -95,6 +99,7 @@ public class BulkMeasurableRatingService {
         this.measurableService = measurableService;
         this.measurableCategoryService = measurableCategoryService;
         this.applicationDao = applicationDao;
+        this.changeLogRollupService = changeLogRollupService;
         this.dsl = dsl;
     }
 
@@ -103,8 +108,30 @@ public class BulkMeasurableRatingService {
                                                             String inputStr,
                                                             BulkMeasurableItemParser.InputFormat format,
                                                             BulkUpdateMode mode) {
+        return bulkPreview(
+                categoryRef,
+                new BulkMeasurableItemParser().parse(inputStr, format),
+                mode);
+    }
+
+
+    /**
+     * As {@link #bulkPreview(EntityReference, String, BulkMeasurableItemParser.InputFormat, BulkUpdateMode)}
+     * but reads the ratings from the first sheet of an xlsx workbook.
+     */
+    public BulkMeasurableRatingValidationResult bulkPreview(EntityReference categoryRef,
+                                                            InputStream xlsxInput,
+                                                            BulkUpdateMode mode) {
+        return bulkPreview(
+                categoryRef,
+                new BulkMeasurableItemParser().parseXlsx(xlsxInput),
+                mode);
+    }
+
 
-        BulkMeasurableRatingParseResult result = new BulkMeasurableItemParser().parse(inputStr, format);
+    private BulkMeasurableRatingValidationResult bulkPreview(EntityReference categoryRef,
+                                                             BulkMeasurableRatingParseResult result,
+                                                             BulkUpdateMode mode) {
         if (result.error() != null) {
             return ImmutableBulkMeasurableRatingValidationResult
                     .builder()
@@ -340,6 +367,7 @@ public class BulkMeasurableRatingService {
                             ? summarizeResults(tx.batch(toRemove).execute())
                             : 0;
                     int changeLogCount = summarizeResults(tx.batchInsert(auditLogs).execute());
+                    changeLogRollupService.recordChanges(tx, auditLogs);
 
                     LOG.info(
                             "Batch measurable rating: {} adds, {} updates, {} removes, {} changeLogs",
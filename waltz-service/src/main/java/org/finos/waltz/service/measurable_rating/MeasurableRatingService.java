@@ -383,6 +383,18 @@ public class MeasurableRatingService {
     }
 
 
+    /**
+     * Migrates ratings for many (source, target) measurable pairs in a single transaction.
+     *
+     * @param sourceToTargetIds [tuple2{sourceMeasurableId, targetMeasurableId}]
+     * @param userId the user responsible for the change
+     * @return number of source ratings migrated, or merged into existing target ratings
+     */
+    public int migrateRatings(Collection<Tuple2<Long, Long>> sourceToTargetIds, String userId) {
+        return measurableRatingDao.migrateRatings(sourceToTargetIds, userId);
+    }
+
+
     public int getSharedRatingsCount(Long measurableId, Long targetMeasurableId) {
         return measurableRatingDao.getSharedRatingsCount(measurableId, targetMeasurableId);
     }
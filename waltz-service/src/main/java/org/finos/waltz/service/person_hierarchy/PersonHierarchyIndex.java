@@ -0,0 +1,219 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.person_hierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Compact, int-indexed, representation of the person (employee to manager)
+ * hierarchy.
+ *
+ * Only employee ids are retained, each person is given an index and the
+ * hierarchy is held as parallel arrays of parent index and depth.  Depths are
+ * assigned by a single depth-first walk from the roots, so the ancestors of a
+ * person can be recovered by following the parent array without materialising
+ * the (manager, employee, level) rows up front.
+ *
+ * People whose manager is missing (or is themselves) are treated as roots.
+ * People caught in a management cycle are not reachable from any root and
+ * have no ancestors.
+ */
+public class PersonHierarchyIndex {
+
+    public static final int NO_PARENT = -1;
+    public static final int UNREACHABLE = -1;
+
+    private final String[] employeeIds;
+    private final Map<String, Integer> indexByEmployeeId;
+    private final int[] parents;
+    private final int[] depths;
+    private final int unreachableCount;
+
+
+    private PersonHierarchyIndex(String[] employeeIds,
+                                 Map<String, Integer> indexByEmployeeId,
+                                 int[] parents) {
+        this.employeeIds = employeeIds;
+        this.indexByEmployeeId = indexByEmployeeId;
+        this.parents = parents;
+        this.depths = calculateDepths(parents);
+        this.unreachableCount = (int) Arrays
+                .stream(depths)
+                .filter(d -> d == UNREACHABLE)
+                .count();
+    }
+
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+
+    public int size() {
+        return employeeIds.length;
+    }
+
+
+    /**
+     * @return index of the employee, or -1 if the employee is unknown
+     */
+    public int indexOf(String employeeId) {
+        Integer idx = indexByEmployeeId.get(employeeId);
+        return idx == null ? -1 : idx;
+    }
+
+
+    public String employeeId(int idx) {
+        return employeeIds[idx];
+    }
+
+
+    public int parent(int idx) {
+        return parents[idx];
+    }
+
+
+    /**
+     * @return number of ancestors (0 for roots), or {@link #UNREACHABLE} for
+     *     people caught in a management cycle
+     */
+    public int depth(int idx) {
+        return depths[idx];
+    }
+
+
+    public int unreachableCount() {
+        return unreachableCount;
+    }
+
+
+    /**
+     * Person hierarchy levels are numbered from the top of the tree, level 1
+     * being the root-most ancestor.
+     *
+     * @return the index of the ancestor at the given level
+     */
+    public int ancestorAt(int idx, int level) {
+        checkTrue(level >= 1 && level <= depths[idx], "level %d is out of range for %s", level, employeeIds[idx]);
+        int ancestor = parents[idx];
+        for (int steps = depths[idx] - level; steps > 0; steps--) {
+            ancestor = parents[ancestor];
+        }
+        return ancestor;
+    }
+
+
+    private static int[] calculateDepths(int[] parents) {
+        int size = parents.length;
+
+        // children in compressed (offset + values) form
+        int[] childOffsets = new int[size + 1];
+        for (int parent : parents) {
+            if (parent != NO_PARENT) {
+                childOffsets[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        int[] children = new int[childOffsets[size]];
+        int[] fill = Arrays.copyOf(childOffsets, size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] != NO_PARENT) {
+                children[fill[parents[i]]++] = i;
+            }
+        }
+
+        int[] depths = new int[size];
+        Arrays.fill(depths, UNREACHABLE);
+
+        int[] stack = new int[size];
+        for (int root = 0; root < size; root++) {
+            if (parents[root] != NO_PARENT) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            depths[root] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                for (int c = childOffsets[node]; c < childOffsets[node + 1]; c++) {
+                    int child = children[c];
+                    depths[child] = depths[node] + 1;
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        return depths;
+    }
+
+
+    public static class Builder {
+
+        private final Map<String, Integer> indexByEmployeeId = new HashMap<>();
+        private final List<String> employeeIds = new ArrayList<>();
+        private final List<String> managerIds = new ArrayList<>();
+
+
+        /**
+         * Adds a person, if the employee id has already been added the
+         * first occurrence is kept.
+         */
+        public Builder add(String employeeId, String managerEmployeeId) {
+            checkNotNull(employeeId, "employeeId cannot be null");
+
+            if (! indexByEmployeeId.containsKey(employeeId)) {
+                indexByEmployeeId.put(employeeId, employeeIds.size());
+                employeeIds.add(employeeId);
+                managerIds.add(managerEmployeeId);
+            }
+            return this;
+        }
+
+
+        public PersonHierarchyIndex build() {
+            int size = employeeIds.size();
+            int[] parents = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                String managerId = managerIds.get(i);
+                Integer parent = managerId == null
+                        ? null
+                        : indexByEmployeeId.get(managerId);
+
+                parents[i] = parent == null || parent == i
+                        ? NO_PARENT
+                        : parent;
+            }
+
+            return new PersonHierarchyIndex(
+                    employeeIds.toArray(new String[0]),
+                    indexByEmployeeId,
+                    parents);
+        }
+    }
+}
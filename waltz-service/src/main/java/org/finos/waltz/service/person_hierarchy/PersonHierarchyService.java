@@ -19,13 +19,6 @@
 package org.finos.waltz.service.person_hierarchy;
 
 import org.finos.waltz.schema.tables.records.PersonHierarchyRecord;
-import org.finos.waltz.common.ListUtilities;
-import org.finos.waltz.common.hierarchy.FlatNode;
-import org.finos.waltz.common.hierarchy.Forest;
-import org.finos.waltz.common.hierarchy.HierarchyUtilities;
-import org.finos.waltz.common.hierarchy.Node;
-import org.finos.waltz.data.person.PersonDao;
-import org.finos.waltz.model.person.Person;
 import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.SelectConditionStep;
@@ -35,73 +28,133 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import static org.finos.waltz.data.JooqUtilities.summarizeResults;
+import static org.finos.waltz.schema.tables.Person.PERSON;
 import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
-import static java.util.stream.Collectors.toList;
 
 @Service
 public class PersonHierarchyService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PersonHierarchyService.class);
 
-    private final PersonDao personDao;
+    private static final int FETCH_SIZE = 10_000;
+    private static final int MAX_TRACKED_LEVEL = Long.SIZE;
+
     private final DSLContext dsl;
 
 
     @Autowired
-    public PersonHierarchyService(PersonDao personDao, DSLContext dsl) {
-        this.personDao = personDao;
+    public PersonHierarchyService(DSLContext dsl) {
         this.dsl = dsl;
     }
 
 
-    public int[] build() {
+    /**
+     * Rebuilds the person hierarchy table from the current manager
+     * relationships.  Only (manager, employee) pairs whose level has changed,
+     * appeared, or disappeared are written.
+     *
+     * @return number of rows deleted and inserted
+     */
+    public int build() {
         LOG.warn("Building person hierarchy");
-        List<Person> all = personDao.all();
 
-        Forest<Person, String> forest = toForest(all);
+        PersonHierarchyIndex index = loadIndex();
 
-        List<PersonHierarchyRecord> records = toHierarchyRecords(forest);
+        if (index.unreachableCount() > 0) {
+            LOG.warn("{} people are part of a management cycle and will have no ancestors", index.unreachableCount());
+        }
 
         return dsl.transactionResult(configuration -> {
             DSLContext txDsl = DSL.using(configuration);
-            txDsl.deleteFrom(PERSON_HIERARCHY).execute();
-            return txDsl.batchStore(records).execute();
+
+            // bit (level - 1) is set if the existing row for that level is still correct
+            long[] matchedLevels = new long[index.size()];
+            List<PersonHierarchyRecord> toRemove = new ArrayList<>();
+
+            txDsl.selectFrom(PERSON_HIERARCHY)
+                    .fetchSize(FETCH_SIZE)
+                    .forEach(r -> {
+                        int idx = index.indexOf(r.getEmployeeId());
+                        int level = r.getLevel();
+                        if (isExpected(index, idx, r.getManagerId(), level)) {
+                            matchedLevels[idx] |= 1L << (level - 1);
+                        } else {
+                            toRemove.add(r);
+                        }
+                    });
+
+            List<PersonHierarchyRecord> toAdd = new ArrayList<>();
+            for (int idx = 0; idx < index.size(); idx++) {
+                int depth = index.depth(idx);
+                if (depth <= 0 || isComplete(matchedLevels[idx], depth)) {
+                    continue;
+                }
+                String employeeId = index.employeeId(idx);
+                int ancestor = index.parent(idx);
+                for (int level = depth; level >= 1; level--) {
+                    if (! isMatched(matchedLevels[idx], level)) {
+                        toAdd.add(new PersonHierarchyRecord(index.employeeId(ancestor), employeeId, level));
+                    }
+                    ancestor = index.parent(ancestor);
+                }
+            }
+
+            int removed = summarizeResults(txDsl.batchDelete(toRemove).execute());
+            int added = summarizeResults(txDsl.batchInsert(toAdd).execute());
+
+            LOG.info("Person hierarchy updated, people: {}, removed: {}, added: {}", index.size(), removed, added);
+
+            return removed + added;
         });
     }
 
 
-    private List<PersonHierarchyRecord> toHierarchyRecords(Forest<Person, String> forest) {
-        List<PersonHierarchyRecord> records = new LinkedList<>();
+    private PersonHierarchyIndex loadIndex() {
+        PersonHierarchyIndex.Builder builder = PersonHierarchyIndex.builder();
 
-        for (Node<Person, String> node : forest.getAllNodes().values()) {
-            List<Person> ancestors =
-                    ListUtilities.reverse(
-                            HierarchyUtilities.parents(node)
-                                    .stream()
-                                    .map(Node::getData)
-                                    .collect(Collectors.toList()));
+        dsl.select(PERSON.EMPLOYEE_ID, PERSON.MANAGER_EMPLOYEE_ID)
+                .from(PERSON)
+                .where(PERSON.IS_REMOVED.isFalse())
+                .fetchSize(FETCH_SIZE)
+                .forEach(r -> builder.add(r.get(PERSON.EMPLOYEE_ID), r.get(PERSON.MANAGER_EMPLOYEE_ID)));
 
-            for (int i = 0; i < ancestors.size(); i++) {
-                String ancestorId = ancestors.get(i).employeeId();
-                String selfId = node.getData().employeeId();
-                PersonHierarchyRecord record = new PersonHierarchyRecord(ancestorId, selfId, i + 1);
-                records.add(record);
-            }
-        }
-        return records;
+        return builder.build();
     }
 
 
-    private Forest<Person, String> toForest(List<Person> all) {
-        List<FlatNode<Person, String>> allFlatNodes = all.stream()
-                .map(p -> new FlatNode<>(p.employeeId(), p.managerEmployeeId(), p))
-                .collect(toList());
+    private static boolean isExpected(PersonHierarchyIndex index,
+                                      int idx,
+                                      String managerId,
+                                      int level) {
+        return idx != -1
+                && level >= 1
+                && level <= index.depth(idx)
+                && level <= MAX_TRACKED_LEVEL
+                && index.employeeId(index.ancestorAt(idx, level)).equals(managerId);
+    }
+
 
-        return HierarchyUtilities.toForest(allFlatNodes);
+    /**
+     * Levels beyond {@link #MAX_TRACKED_LEVEL} are never marked as matched,
+     * the existing rows are removed and re-added.
+     */
+    private static boolean isMatched(long matchedLevels, int level) {
+        return level <= MAX_TRACKED_LEVEL && (matchedLevels & (1L << (level - 1))) != 0;
+    }
+
+
+    private static boolean isComplete(long matchedLevels, int depth) {
+        if (depth > MAX_TRACKED_LEVEL) {
+            return false;
+        }
+        long allLevels = depth == MAX_TRACKED_LEVEL
+                ? -1L
+                : (1L << depth) - 1;
+        return matchedLevels == allLevels;
     }
 
 
@@ -24,6 +24,7 @@ import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_type.DataTypeDecoratorService;
 import org.finos.waltz.service.external_identifier.ExternalIdentifierService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.permission.permission_checker.FlowPermissionChecker;
 import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
@@ -52,6 +53,7 @@ import static java.lang.String.format;
 import static java.util.Collections.emptySet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.model.EntityKind.PHYSICAL_FLOW;
@@ -66,6 +68,7 @@ public class PhysicalFlowService {
     private final DataTypeDecoratorService dataTypeDecoratorService;
     private final ChangeLogService changeLogService;
     private final LogicalFlowService logicalFlowService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final ExternalIdentifierService externalIdentifierService;
     private final PhysicalFlowIdSelectorFactory physicalFlowIdSelectorFactory = new PhysicalFlowIdSelectorFactory();
 
@@ -79,7 +82,8 @@ public class PhysicalFlowService {
                                PhysicalSpecificationService physicalSpecificationService,
                                ExternalIdentifierService externalIdentifierService,
                                DataTypeDecoratorService dataTypeDecoratorService,
-                               FlowPermissionChecker flowPermissionChecker) {
+                               FlowPermissionChecker flowPermissionChecker,
+                               LogicalFlowGraphService logicalFlowGraphService) {
 
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
@@ -87,6 +91,7 @@ public class PhysicalFlowService {
         checkNotNull(physicalSpecificationService, "physicalSpecificationService cannot be null");
         checkNotNull(dataTypeDecoratorService, "dataTypeDecoratorService cannot be null");
         checkNotNull(flowPermissionChecker, "flowPermissionChecker cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
 
         this.changeLogService = changeLogService;
         this.logicalFlowService = logicalFlowService;
@@ -95,6 +100,7 @@ public class PhysicalFlowService {
         this.externalIdentifierService = externalIdentifierService;
         this.dataTypeDecoratorService = dataTypeDecoratorService;
         this.flowPermissionChecker = flowPermissionChecker;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
 
@@ -283,6 +289,8 @@ public class PhysicalFlowService {
                 " created",
                 Operation.ADD);
 
+        logicalFlowGraphService.refreshFlows(asSet(command.logicalFlowId()));
+
         return ImmutablePhysicalFlowCreateCommandResponse.builder()
                 .originalCommand(command)
                 .outcome(CommandOutcome.SUCCESS)
@@ -45,13 +45,16 @@ import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecificati
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.service.data_type.DataTypeDecoratorService;
 import org.finos.waltz.service.enum_value.EnumValueAliasService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -75,6 +78,7 @@ public class PhysicalFlowUploadService {
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final EnumValueAliasService enumValueAliasService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
 
     private final Pattern basisOffsetRegex = Pattern.compile("T?(?<offset>[\\+\\-]?\\d+)");
 
@@ -86,7 +90,8 @@ public class PhysicalFlowUploadService {
                                      DataTypeDecoratorService dataTypeDecoratorService,
                                      PhysicalFlowDao physicalFlowDao,
                                      PhysicalSpecificationDao physicalSpecificationDao,
-                                     EnumValueAliasService enumValueAliasService) {
+                                     EnumValueAliasService enumValueAliasService,
+                                     LogicalFlowGraphService logicalFlowGraphService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
@@ -95,6 +100,7 @@ public class PhysicalFlowUploadService {
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
         checkNotNull(enumValueAliasService, "enumValueAliasService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
         this.dataTypeDao = dataTypeDao;
@@ -103,6 +109,7 @@ public class PhysicalFlowUploadService {
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.enumValueAliasService = enumValueAliasService;
         this.dataTypeDecoratorService = dataTypeDecoratorService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
 
@@ -172,6 +179,8 @@ public class PhysicalFlowUploadService {
                 .filter(v -> v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)
                 .collect(toList());
 
+        Set<Long> logicalFlowIds = new HashSet<>();
+
         // create physical flow with ids from the above two
         List<PhysicalFlowUploadCommandResponse> created = newFlowCmds.stream()
                 .map(v -> {
@@ -181,6 +190,7 @@ public class PhysicalFlowUploadService {
 
                     PhysicalFlowParsed flow = v.parsedFlow();
                     LogicalFlow logicalFlow = getOrCreateLogicalFlow(flow.source(), flow.target(), flow.dataType(), username);
+                    logicalFlowIds.add(logicalFlow.id().get());
                     PhysicalSpecification specification = getOrCreatePhysicalSpec(flow, username);
 
                     PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
@@ -203,6 +213,8 @@ public class PhysicalFlowUploadService {
                 })
                 .collect(toList());
 
+        logicalFlowGraphService.refreshFlows(logicalFlowIds);
+
         return created;
     }
 
@@ -19,6 +19,7 @@
 package org.finos.waltz.service.physical_specification_data_type;
 
 import org.finos.waltz.data.datatype_decorator.PhysicalSpecDecoratorDao;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -28,16 +29,47 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class PhysicalSpecDataTypeService {
 
     private final PhysicalSpecDecoratorDao physicalSpecDecoratorDao;
+    private final LogicalFlowGraphService logicalFlowGraphService;
 
 
     @Autowired
-    public PhysicalSpecDataTypeService(PhysicalSpecDecoratorDao physicalSpecDecoratorDao) {
+    public PhysicalSpecDataTypeService(PhysicalSpecDecoratorDao physicalSpecDecoratorDao,
+                                       LogicalFlowGraphService logicalFlowGraphService) {
         checkNotNull(physicalSpecDecoratorDao, "physicalSpecDataTypeDecoratorDao cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         this.physicalSpecDecoratorDao = physicalSpecDecoratorDao;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
+    /**
+     * Full sweep, ripples the data types of every specification to the
+     * logical flows which use them.
+     */
     public int rippleDataTypesToLogicalFlows() {
-        return physicalSpecDecoratorDao.rippleDataTypesToLogicalFlows();
+        return refreshLogicalFlowGraph(physicalSpecDecoratorDao.rippleDataTypesToLogicalFlows());
+    }
+
+
+    public boolean hasPendingRipples() {
+        return physicalSpecDecoratorDao.hasPendingRipples();
+    }
+
+
+    /**
+     * Ripples only the data types of specifications which have changed (or
+     * gained physical flows) since the last ripple.
+     */
+    public int ripplePendingDataTypesToLogicalFlows() {
+        return refreshLogicalFlowGraph(physicalSpecDecoratorDao.ripplePendingDataTypesToLogicalFlows());
+    }
+
+
+    private int refreshLogicalFlowGraph(int decoratorsCreated) {
+        if (decoratorsCreated > 0) {
+            // the ripple does not report which flows gained data types, so the graph is reloaded in the background
+            logicalFlowGraphService.invalidate();
+        }
+        return decoratorsCreated;
     }
 
 
@@ -0,0 +1,228 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.report_grid.CellOption;
+import org.finos.waltz.model.report_grid.CompactReportGridColumn;
+import org.finos.waltz.model.report_grid.CompactReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableCompactReportGridColumn;
+import org.finos.waltz.model.report_grid.ImmutableCompactReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.model.report_grid.CompactReportGridColumn.NO_VALUE;
+
+/**
+ * Converts between the cell per object {@link ReportGridInstance} and the
+ * columnar, dictionary encoded, {@link CompactReportGridInstance}.
+ *
+ * The client side equivalent of {@link #decode(CompactReportGridInstance)} lives in
+ * <code>report-grid-utils.js#decodeCompactInstance</code>, keep the two in step.
+ */
+public class CompactReportGridCodec {
+
+    public static CompactReportGridInstance encode(ReportGridInstance instance) {
+        checkNotNull(instance, "instance cannot be null");
+
+        List<ReportSubject> subjects = instance
+                .subjects()
+                .stream()
+                .sorted(Comparator.comparingLong(s -> s.entityReference().id()))
+                .collect(toList());
+
+        Map<Long, Integer> subjectIndexesById = new HashMap<>();
+        for (int i = 0; i < subjects.size(); i++) {
+            subjectIndexesById.put(subjects.get(i).entityReference().id(), i);
+        }
+
+        Dictionary<String> strings = new Dictionary<>();
+        Dictionary<Set<CellOption>> optionSets = new Dictionary<>();
+        Dictionary<Set<Long>> ratingIdSets = new Dictionary<>();
+
+        List<CompactReportGridColumn> columns = groupBy(instance.cellData(), ReportGridCell::columnDefinitionId)
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> encodeColumn(
+                        e.getKey(),
+                        e.getValue(),
+                        subjectIndexesById,
+                        strings,
+                        optionSets,
+                        ratingIdSets))
+                .collect(toList());
+
+        return ImmutableCompactReportGridInstance
+                .builder()
+                .subjects(subjects)
+                .ratingSchemeItems(instance.ratingSchemeItems())
+                .strings(strings.values)
+                .optionSets(optionSets.values)
+                .ratingIdSets(ratingIdSets.values)
+                .columns(columns)
+                .build();
+    }
+
+
+    public static ReportGridInstance decode(CompactReportGridInstance compact) {
+        checkNotNull(compact, "compact instance cannot be null");
+
+        List<ReportSubject> subjects = compact.subjects();
+        Set<ReportGridCell> cells = new HashSet<>();
+
+        for (CompactReportGridColumn column : compact.columns()) {
+            int[] subjectIndexes = column.subjectIndexes();
+            int[] optionSetIndexes = column.optionSetIndexes();
+            int[] ratingIdSetIndexes = column.ratingIdSetIndexes();
+            BigDecimal[] numberValues = column.numberValues();
+            int[] textValues = column.textValues();
+            int[] errorValues = column.errorValues();
+            int[] comments = column.comments();
+            LocalDateTime[] dateTimeValues = column.dateTimeValues();
+
+            for (int i = 0; i < subjectIndexes.length; i++) {
+                cells.add(ImmutableReportGridCell
+                        .builder()
+                        .columnDefinitionId(column.columnDefinitionId())
+                        .subjectId(subjects.get(subjectIndexes[i]).entityReference().id())
+                        .options(compact.optionSets().get(optionSetIndexes[i]))
+                        .ratingIdValues(ratingIdSetIndexes == null
+                                ? new HashSet<>()
+                                : compact.ratingIdSets().get(ratingIdSetIndexes[i]))
+                        .numberValue(numberValues == null ? null : numberValues[i])
+                        .textValue(lookup(compact.strings(), textValues, i))
+                        .errorValue(lookup(compact.strings(), errorValues, i))
+                        .comment(lookup(compact.strings(), comments, i))
+                        .dateTimeValue(dateTimeValues == null ? null : dateTimeValues[i])
+                        .build());
+            }
+        }
+
+        return ImmutableReportGridInstance
+                .builder()
+                .subjects(subjects)
+                .ratingSchemeItems(compact.ratingSchemeItems())
+                .cellData(cells)
+                .build();
+    }
+
+
+    // -- HELPERS ---
+
+    private static CompactReportGridColumn encodeColumn(Long columnDefinitionId,
+                                                        Collection<ReportGridCell> columnCells,
+                                                        Map<Long, Integer> subjectIndexesById,
+                                                        Dictionary<String> strings,
+                                                        Dictionary<Set<CellOption>> optionSets,
+                                                        Dictionary<Set<Long>> ratingIdSets) {
+        List<ReportGridCell> cells = columnCells
+                .stream()
+                .filter(c -> subjectIndexesById.containsKey(c.subjectId()))
+                .sorted(Comparator.comparingInt(c -> subjectIndexesById.get(c.subjectId())))
+                .collect(toList());
+
+        int[] subjectIndexes = new int[cells.size()];
+        int[] optionSetIndexes = new int[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            ReportGridCell cell = cells.get(i);
+            subjectIndexes[i] = subjectIndexesById.get(cell.subjectId());
+            optionSetIndexes[i] = optionSets.indexOf(cell.options());
+        }
+
+        return ImmutableCompactReportGridColumn
+                .builder()
+                .columnDefinitionId(columnDefinitionId)
+                .subjectIndexes(subjectIndexes)
+                .optionSetIndexes(optionSetIndexes)
+                .ratingIdSetIndexes(cells.stream().allMatch(c -> c.ratingIdValues().isEmpty())
+                        ? null
+                        : cells.stream().mapToInt(c -> ratingIdSets.indexOf(c.ratingIdValues())).toArray())
+                .numberValues(cells.stream().allMatch(c -> c.numberValue() == null)
+                        ? null
+                        : cells.stream().map(ReportGridCell::numberValue).toArray(BigDecimal[]::new))
+                .textValues(encodeStrings(cells, ReportGridCell::textValue, strings))
+                .errorValues(encodeStrings(cells, ReportGridCell::errorValue, strings))
+                .comments(encodeStrings(cells, ReportGridCell::comment, strings))
+                .dateTimeValues(cells.stream().allMatch(c -> c.dateTimeValue() == null)
+                        ? null
+                        : cells.stream().map(ReportGridCell::dateTimeValue).toArray(LocalDateTime[]::new))
+                .build();
+    }
+
+
+    private static int[] encodeStrings(List<ReportGridCell> cells,
+                                       Function<ReportGridCell, String> extractor,
+                                       Dictionary<String> strings) {
+        if (cells.stream().map(extractor).allMatch(Objects::isNull)) {
+            return null;
+        }
+
+        return cells
+                .stream()
+                .map(extractor)
+                .mapToInt(s -> s == null ? NO_VALUE : strings.indexOf(s))
+                .toArray();
+    }
+
+
+    private static String lookup(List<String> strings, int[] indexes, int i) {
+        if (indexes == null || indexes[i] == NO_VALUE) {
+            return null;
+        }
+        checkTrue(indexes[i] < strings.size(), "String index %d is outside the dictionary", indexes[i]);
+        return strings.get(indexes[i]);
+    }
+
+
+    /**
+     * Assigns each distinct value a stable position, in order of first use.
+     */
+    private static class Dictionary<T> {
+
+        private final List<T> values = new ArrayList<>();
+        private final Map<T, Integer> indexes = new HashMap<>();
+
+        int indexOf(T value) {
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
@@ -18,25 +18,16 @@
 
 package org.finos.waltz.service.report_grid;
 
-import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.report_grid.ReportGridDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
-import org.finos.waltz.model.EntityReferenceUtilities;
 import org.finos.waltz.model.IdSelectionOptions;
-import org.finos.waltz.model.NameProvider;
 import org.finos.waltz.model.entity_named_note.EntityNamedNote;
-import org.finos.waltz.model.rating.RatingSchemeItem;
-import org.finos.waltz.model.report_grid.CellOption;
-import org.finos.waltz.model.report_grid.FilterOperator;
 import org.finos.waltz.model.report_grid.GridFilter;
 import org.finos.waltz.model.report_grid.ImmutableReportGridFilterInfo;
-import org.finos.waltz.model.report_grid.ReportGridCell;
 import org.finos.waltz.model.report_grid.ReportGridDefinition;
 import org.finos.waltz.model.report_grid.ReportGridFilterInfo;
-import org.finos.waltz.model.report_grid.ReportGridInstance;
 import org.finos.waltz.model.report_grid.ReportSubject;
-import org.finos.waltz.model.utils.IdUtilities;
 import org.finos.waltz.service.app_group.AppGroupService;
 import org.finos.waltz.service.entity_named_note.EntityNamedNoteService;
 import org.jooq.lambda.tuple.Tuple2;
@@ -46,27 +37,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
-import static java.util.Collections.emptySet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.first;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
-import static org.finos.waltz.common.CollectionUtilities.notEmpty;
 import static org.finos.waltz.common.ListUtilities.map;
-import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
-import static org.finos.waltz.common.SetUtilities.intersection;
-import static org.finos.waltz.common.SetUtilities.minus;
-import static org.finos.waltz.common.SetUtilities.union;
-import static org.finos.waltz.common.StringUtilities.notEmpty;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.service.report_grid.ReportGridUtilities.parseGridFilterNoteText;
@@ -79,7 +64,6 @@ public class ReportGridFilterViewService {
     private static final Logger LOG = LoggerFactory.getLogger(ReportGridFilterViewService.class);
 
     private static final String REPORT_GRID_APP_GROUP_CREATION_NOTE_TYPE_EXT_ID = "WALTZ_REPORT_GRID_FILTER_PRESET";
-    private static final String NOT_PROVIDED_OPTION_CODE = "NOT_PROVIDED";
 
     private final ReportGridDao reportGridDao;
     private final ReportGridService reportGridService;
@@ -120,7 +104,9 @@ public class ReportGridFilterViewService {
         if (gridFilterInfo == null) {
             throw new IllegalArgumentException("Cannot parse filter grid info from note text");
         } else {
-            Tuple3<EntityKind, Long, Set<EntityReference>> appGroupIdToEntries = determineApplicationsInGroup(gridFilterInfo);
+            Tuple3<EntityKind, Long, Set<EntityReference>> appGroupIdToEntries = determineApplicationsInGroup(
+                    gridFilterInfo,
+                    new HashMap<>());
             appGroupService.synchGroupEntries(asSet(appGroupIdToEntries), userId);
             return appGroupIdToEntries.v3.size();
         }
@@ -159,9 +145,12 @@ public class ReportGridFilterViewService {
 
 
     private Set<Tuple3<EntityKind, Long, Set<EntityReference>>> determineAppGroupEntries(Set<ReportGridFilterInfo> gridInfoWithFilters) {
+        // many groups are typically derived from the same grid and vantage point, so only compute each once
+        Map<Tuple2<Long, IdSelectionOptions>, Optional<ReportGridIndex>> indexesByGridAndOptions = new HashMap<>();
+
         return gridInfoWithFilters
                 .stream()
-                .map(this::determineApplicationsInGroup)
+                .map(info -> determineApplicationsInGroup(info, indexesByGridAndOptions))
                 .collect(Collectors.toSet());
     }
 
@@ -169,29 +158,33 @@ public class ReportGridFilterViewService {
     /**
      *
      * @param reportGridFilterInfo group ref, filters etc
+     * @param indexesByGridAndOptions previously computed grids, added to if this grid has not been computed
      * @return tuple{subjectKind, appGroupId, [entries]}
      */
-    private Tuple3<EntityKind, Long, Set<EntityReference>> determineApplicationsInGroup(ReportGridFilterInfo reportGridFilterInfo) {
+    private Tuple3<EntityKind, Long, Set<EntityReference>> determineApplicationsInGroup(ReportGridFilterInfo reportGridFilterInfo,
+                                                                                        Map<Tuple2<Long, IdSelectionOptions>, Optional<ReportGridIndex>> indexesByGridAndOptions) {
         return reportGridFilterInfo
                 .gridDefinition()
                 .id()
-                .flatMap(id -> reportGridService.getByIdAndSelectionOptions(
-                    id,
-                    reportGridFilterInfo.idSelectionOptions(),
-                    "filter-note-user"))
-                .map(grid -> {
-                    ReportGridInstance instance = grid.instance();
-                    Set<ReportGridCell> cellData = instance.cellData();
-
-                    Set<EntityReference> subjectRefs = SetUtilities.map(
-                            instance.subjects(),
+                .flatMap(id -> indexesByGridAndOptions.computeIfAbsent(
+                        tuple(id, reportGridFilterInfo.idSelectionOptions()),
+                        k -> reportGridService
+                                .getByIdAndSelectionOptions(
+                                        k.v1,
+                                        k.v2,
+                                        "filter-note-user")
+                                .map(grid -> ReportGridIndex.of(grid.instance()))))
+                .map(index -> {
+                    Map<Long, EntityReference> subjectsById = indexBy(
+                            index.instance().subjects(),
+                            s -> s.entityReference().id(),
                             ReportSubject::entityReference);
 
-                    Set<EntityReference> subjectsPassingFilters = applyFilters(
-                            cellData,
-                            reportGridFilterInfo.gridFilters(),
-                            subjectRefs,
-                            instance.ratingSchemeItems());
+                    Set<EntityReference> subjectsPassingFilters = index
+                            .filter(reportGridFilterInfo.gridFilters())
+                            .stream()
+                            .map(subjectsById::get)
+                            .collect(Collectors.toSet());
 
                     return tuple(
                             reportGridFilterInfo.gridDefinition().subjectKind(),
@@ -202,102 +195,6 @@ public class ReportGridFilterViewService {
     }
 
 
-    private Set<EntityReference> applyFilters(Set<ReportGridCell> cellData,
-                                              Set<GridFilter> gridFilters,
-                                              Set<EntityReference> subjectRefs,
-                                              Set<RatingSchemeItem> ratingSchemeItems) {
-
-        if (isEmpty(gridFilters)) {
-            //If there are no filters all the apps should populate the group
-            return subjectRefs;
-        } else {
-            Map<Long, RatingSchemeItem> ratingSchemeItemById = IdUtilities.indexById(ratingSchemeItems);
-            Map<Long, EntityReference> subjectsById = EntityReferenceUtilities.indexById(subjectRefs);
-
-            Map<Long, Collection<ReportGridCell>> dataByCol = groupBy(cellData, ReportGridCell::columnDefinitionId);
-
-            Set<Set<Long>> appIdsPassingFilters = gridFilters
-                    .stream()
-                    .map(filter -> {
-                        Collection<ReportGridCell> cellDataForColumn = dataByCol.getOrDefault(filter.columnDefinitionId(), emptySet());
-
-                        if (filter.filterOperator().equals(FilterOperator.CONTAINS_ANY_OPTION)) {
-                            return determineAppsPassingContainsOperatorFilter(subjectsById.keySet(), ratingSchemeItemById, filter, cellDataForColumn);
-                        } else if (filter.filterOperator().equals(FilterOperator.CONTAINS_ANY_STRING)) {
-                            return determineAppsPassingContainsStringFilter(filter, cellDataForColumn);
-                        } else {
-                            return subjectsById.keySet(); // return all apps if filter operator not supported to support intersection
-                        }
-                    })
-                    .collect(Collectors.toSet());
-
-            return appIdsPassingFilters
-                    .stream()
-                    .reduce(first(appIdsPassingFilters), SetUtilities::intersection)
-                    .stream()
-                    .map(subjectsById::get)
-                    .collect(Collectors.toSet());
-        }
-    }
-
-
-    private Set<Long> determineAppsPassingContainsStringFilter(GridFilter filter,
-                                                               Collection<ReportGridCell> cellDataForColumn) {
-        return cellDataForColumn
-                .stream()
-                .filter(c -> notEmpty(c.textValue()) && containsAny(filter.filterValues(), c.textValue()))
-                .map(ReportGridCell::subjectId)
-                .collect(Collectors.toSet());
-    }
-
-
-    private boolean containsAny(Set<String> searchStrings, String lookupString) {
-        for (String text : searchStrings) {
-            if (lookupString.contains(text)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
-    private Set<Long> determineAppsPassingContainsOperatorFilter(Set<Long> subjectIds,
-                                                                 Map<Long, RatingSchemeItem> ratingSchemeItemByIdMap,
-                                                                 GridFilter filter,
-                                                                 Collection<ReportGridCell> cellDataForColumn) {
-        Set<Long> appsPassingFilter = cellDataForColumn
-                .stream()
-                .filter(c -> {
-                    // rating cells may want to look up on rating id / code / external id
-                    if (!isEmpty(c.ratingIdValues())) {
-                        Set<RatingSchemeItem> ratings = SetUtilities.map(
-                                c.ratingIdValues(),
-                                ratingSchemeItemByIdMap::get);
-                        Set<String> ratingIdentifiers = union(
-                                map(c.options(), CellOption::code),
-                                map(ratings, rating -> String.valueOf(rating.rating())),
-                                map(ratings, NameProvider::name),
-                                map(ratings, rating -> rating.externalId().orElse(null)));
-                        return notEmpty(intersection(filter.filterValues(), ratingIdentifiers));
-                    } else {
-                        Set<String> optionCodes = SetUtilities.map(c.options(), CellOption::code);
-                        return notEmpty(intersection(filter.filterValues(), optionCodes));
-                    }
-                })
-                .map(ReportGridCell::subjectId)
-                .collect(Collectors.toSet());
-
-        if (filter.filterValues().contains(NOT_PROVIDED_OPTION_CODE)) {
-            Set<Long> subjectIdsWithValues = SetUtilities.map(cellDataForColumn, ReportGridCell::subjectId);
-            Set<Long> subjectIdsWithoutValue = minus(subjectIds, subjectIdsWithValues);
-
-            return union(appsPassingFilter, subjectIdsWithoutValue);
-        } else {
-            return appsPassingFilter;
-        }
-    }
-
-
     private Set<ReportGridFilterInfo> findGridInfoWithFilters() {
 
         Set<EntityNamedNote> filterPresetNotes = entityNamedNoteService.findByNoteTypeExtId(REPORT_GRID_APP_GROUP_CREATION_NOTE_TYPE_EXT_ID);
@@ -0,0 +1,344 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.model.NameProvider;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+import org.finos.waltz.model.report_grid.CellOption;
+import org.finos.waltz.model.report_grid.FilterOperator;
+import org.finos.waltz.model.report_grid.GridFilter;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportGridSortKey;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.finos.waltz.model.utils.IdUtilities;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyMap;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.isEmpty;
+import static org.finos.waltz.common.CollectionUtilities.notEmpty;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.intersection;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.common.SetUtilities.minus;
+import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.common.StringUtilities.notEmpty;
+
+/**
+ * Read only view over a computed {@link ReportGridInstance} with the cells
+ * indexed by column and subject so that filters, sorts and page extraction
+ * do not need to rescan the whole cell set.
+ *
+ * A subject may have several cells in a column, all are kept.  A subject
+ * passes a filter if any of its cells do and is sorted by its first cell in
+ * the sort direction.
+ */
+public class ReportGridIndex {
+
+    public static final String NOT_PROVIDED_OPTION_CODE = "NOT_PROVIDED";
+
+    private static final Comparator<String> TEXT_ORDER = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+
+    private final ReportGridInstance instance;
+    private final Map<Long, ReportSubject> subjectsById;
+    private final Map<Long, RatingSchemeItem> ratingSchemeItemsById;
+    private final Map<Long, Map<Long, List<ReportGridCell>>> cellsByColumnThenSubject;
+
+
+    private ReportGridIndex(ReportGridInstance instance) {
+        this.instance = instance;
+        this.subjectsById = indexBy(instance.subjects(), s -> s.entityReference().id());
+        this.ratingSchemeItemsById = IdUtilities.indexById(instance.ratingSchemeItems());
+        this.cellsByColumnThenSubject = instance
+                .cellData()
+                .stream()
+                .collect(Collectors.groupingBy(
+                        ReportGridCell::columnDefinitionId,
+                        Collectors.groupingBy(ReportGridCell::subjectId)));
+    }
+
+
+    public static ReportGridIndex of(ReportGridInstance instance) {
+        checkNotNull(instance, "instance cannot be null");
+        return new ReportGridIndex(instance);
+    }
+
+
+    public ReportGridInstance instance() {
+        return instance;
+    }
+
+
+    public Set<Long> subjectIds() {
+        return subjectsById.keySet();
+    }
+
+
+    /**
+     * Filters on different columns must all pass.  Unsupported operators do not
+     * restrict the result.
+     *
+     * @param filters  filters to apply, may be empty
+     * @return ids of the subjects passing all the filters
+     */
+    public Set<Long> filter(Collection<GridFilter> filters) {
+        if (isEmpty(filters)) {
+            return subjectIds();
+        }
+
+        return filters
+                .stream()
+                .map(this::applyFilter)
+                .reduce(subjectIds(), SetUtilities::intersection);
+    }
+
+
+    /**
+     * Sorts the given subjects by the sort keys, in order.  Subjects without
+     * a cell in a sorted column always come last.  Ties are broken by subject
+     * name and then id so pages are stable.
+     */
+    public List<Long> sort(Collection<Long> subjectIds,
+                           List<ReportGridSortKey> sortKeys) {
+        Comparator<Long> comparator = sortKeys
+                .stream()
+                .map(this::mkComparator)
+                .reduce(Comparator::thenComparing)
+                .orElse((a, b) -> 0)
+                .thenComparing(this::subjectName, TEXT_ORDER)
+                .thenComparing(Comparator.naturalOrder());
+
+        List<Long> sorted = new ArrayList<>(subjectIds);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+
+    /**
+     * @return an instance restricted to the given subjects, their cells and the rating scheme items those cells use
+     */
+    public ReportGridInstance restrictTo(Collection<Long> subjectIds) {
+        Set<ReportGridCell> cells = cellsByColumnThenSubject
+                .values()
+                .stream()
+                .flatMap(cellsBySubject -> subjectIds
+                        .stream()
+                        .map(cellsBySubject::get)
+                        .filter(Objects::nonNull)
+                        .flatMap(List::stream))
+                .collect(Collectors.toSet());
+
+        Set<RatingSchemeItem> ratingSchemeItems = cells
+                .stream()
+                .flatMap(c -> c.ratingIdValues().stream())
+                .map(ratingSchemeItemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        return ImmutableReportGridInstance
+                .builder()
+                .subjects(subjectIds
+                        .stream()
+                        .map(subjectsById::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .cellData(cells)
+                .ratingSchemeItems(ratingSchemeItems)
+                .build();
+    }
+
+
+    // -- FILTERS ---
+
+    private Set<Long> applyFilter(GridFilter filter) {
+        Map<Long, List<ReportGridCell>> cellsBySubject = cellsByColumnThenSubject.getOrDefault(filter.columnDefinitionId(), emptyMap());
+
+        if (filter.filterOperator() == FilterOperator.CONTAINS_ANY_OPTION) {
+            return applyContainsAnyOptionFilter(filter, cellsBySubject);
+        } else if (filter.filterOperator() == FilterOperator.CONTAINS_ANY_STRING) {
+            return applyContainsAnyStringFilter(filter, cellsBySubject);
+        } else {
+            return subjectIds(); // return all subjects if filter operator not supported to support intersection
+        }
+    }
+
+
+    private Set<Long> applyContainsAnyStringFilter(GridFilter filter,
+                                                   Map<Long, List<ReportGridCell>> cellsBySubject) {
+        return streamCells(cellsBySubject)
+                .filter(c -> notEmpty(c.textValue()) && containsAny(filter.filterValues(), c.textValue()))
+                .map(ReportGridCell::subjectId)
+                .collect(Collectors.toSet());
+    }
+
+
+    private Set<Long> applyContainsAnyOptionFilter(GridFilter filter,
+                                                   Map<Long, List<ReportGridCell>> cellsBySubject) {
+        Set<Long> passing = streamCells(cellsBySubject)
+                .filter(c -> notEmpty(intersection(filter.filterValues(), optionIdentifiers(c))))
+                .map(ReportGridCell::subjectId)
+                .collect(Collectors.toSet());
+
+        if (filter.filterValues().contains(NOT_PROVIDED_OPTION_CODE)) {
+            return union(passing, minus(subjectIds(), cellsBySubject.keySet()));
+        } else {
+            return passing;
+        }
+    }
+
+
+    private static Stream<ReportGridCell> streamCells(Map<Long, List<ReportGridCell>> cellsBySubject) {
+        return cellsBySubject
+                .values()
+                .stream()
+                .flatMap(List::stream);
+    }
+
+
+    private Set<String> optionIdentifiers(ReportGridCell cell) {
+        Set<String> optionCodes = map(cell.options(), CellOption::code);
+
+        if (isEmpty(cell.ratingIdValues())) {
+            return optionCodes;
+        }
+
+        // rating cells may want to look up on rating id / code / external id
+        Set<RatingSchemeItem> ratings = map(cell.ratingIdValues(), ratingSchemeItemsById::get);
+        return union(
+                optionCodes,
+                map(ratings, rating -> String.valueOf(rating.rating())),
+                map(ratings, NameProvider::name),
+                map(ratings, rating -> rating.externalId().orElse(null)));
+    }
+
+
+    private static boolean containsAny(Set<String> searchStrings, String lookupString) {
+        for (String text : searchStrings) {
+            if (lookupString.contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    // -- SORTING ---
+
+    private Comparator<Long> mkComparator(ReportGridSortKey sortKey) {
+        if (sortKey.columnDefinitionId() == null) {
+            Comparator<String> byName = sortKey.ascending()
+                    ? TEXT_ORDER
+                    : Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER.reversed());
+            return Comparator.comparing(this::subjectName, byName);
+        }
+
+        Map<Long, List<ReportGridCell>> cellsBySubject = cellsByColumnThenSubject.getOrDefault(sortKey.columnDefinitionId(), emptyMap());
+        Comparator<ReportGridCell> byCell = sortKey.ascending() ? this::compareCells : (a, b) -> compareCells(b, a);
+
+        // missing cells are placed last, regardless of direction
+        return Comparator.comparing(
+                subjectId -> firstCell(cellsBySubject.get(subjectId), byCell),
+                Comparator.nullsLast(byCell));
+    }
+
+
+    private static ReportGridCell firstCell(List<ReportGridCell> cells,
+                                            Comparator<ReportGridCell> byCell) {
+        return cells == null
+                ? null
+                : cells.stream().min(byCell).orElse(null);
+    }
+
+
+    /**
+     * Cells with a numeric value (a number or a rating position) sort before, and
+     * separately from, cells which can only be compared by their text.
+     */
+    private int compareCells(ReportGridCell c1, ReportGridCell c2) {
+        BigDecimal n1 = numericSortValue(c1);
+        BigDecimal n2 = numericSortValue(c2);
+
+        if (n1 != null && n2 != null) {
+            return n1.compareTo(n2);
+        } else if (n1 != null) {
+            return -1;
+        } else if (n2 != null) {
+            return 1;
+        } else {
+            return TEXT_ORDER.compare(textSortValue(c1), textSortValue(c2));
+        }
+    }
+
+
+    private BigDecimal numericSortValue(ReportGridCell cell) {
+        if (cell.numberValue() != null) {
+            return cell.numberValue();
+        }
+
+        return cell
+                .ratingIdValues()
+                .stream()
+                .map(ratingSchemeItemsById::get)
+                .filter(Objects::nonNull)
+                .map(RatingSchemeItem::position)
+                .min(Integer::compare)
+                .map(BigDecimal::valueOf)
+                .orElse(null);
+    }
+
+
+    private String textSortValue(ReportGridCell cell) {
+        if (cell.textValue() != null) {
+            return cell.textValue();
+        } else if (cell.dateTimeValue() != null) {
+            return cell.dateTimeValue().toString();
+        } else if (cell.errorValue() != null) {
+            return cell.errorValue();
+        } else {
+            return cell
+                    .options()
+                    .stream()
+                    .map(CellOption::text)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+
+    private String subjectName(Long subjectId) {
+        ReportSubject subject = subjectsById.get(subjectId);
+        return subject == null
+                ? null
+                : subject.entityReference().name().orElse(null);
+    }
+}
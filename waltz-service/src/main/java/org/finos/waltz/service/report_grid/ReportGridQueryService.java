@@ -0,0 +1,210 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.report_grid.ImmutableReportGridPage;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridPage;
+import org.finos.waltz.model.report_grid.ReportGridQuery;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Serves filtered, sorted and paged windows over computed grid instances.
+ *
+ * Computing a grid is expensive, so the computed instance (and its
+ * {@link ReportGridIndex}) is held briefly, keyed by grid and selection
+ * options, allowing successive pages, sorts and filters to be served
+ * without recomputing the grid.  An entry is discarded once it is older
+ * than {@link #MAX_AGE} or the grid definition has changed.
+ *
+ * Held grids are limited to {@link #MAX_HELD_CELLS} cells in total, the
+ * least recently used grids are dropped to make room.  A grid with more
+ * cells than that is never held.
+ */
+@Service
+public class ReportGridQueryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridQueryService.class);
+
+    static final Duration MAX_AGE = Duration.ofMinutes(2);
+    static final int MAX_HELD_CELLS = 1_000_000;
+
+    private final ReportGridService reportGridService;
+
+    // access ordered, so iteration starts with the least recently used
+    private final Map<Tuple2<Long, IdSelectionOptions>, ComputedGrid> computedGrids = new LinkedHashMap<>(16, 0.75f, true);
+
+    // guarded by computedGrids
+    private long heldCellCount = 0;
+
+
+    @Autowired
+    public ReportGridQueryService(ReportGridService reportGridService) {
+        checkNotNull(reportGridService, "reportGridService cannot be null");
+        this.reportGridService = reportGridService;
+    }
+
+
+    public Optional<ReportGridPage> query(long gridId,
+                                          ReportGridQuery query,
+                                          String username) {
+        checkNotNull(query, "query cannot be null");
+        checkTrue(query.offset() >= 0, "offset cannot be negative");
+        checkTrue(
+                query.limit() > 0 && query.limit() <= ReportGridQuery.MAX_LIMIT,
+                "limit must be between 1 and %d",
+                ReportGridQuery.MAX_LIMIT);
+
+        return getComputedGrid(gridId, query.selectionOptions())
+                .map(computed -> {
+                    ReportGridIndex index = computed.index;
+
+                    Set<Long> matching = index.filter(query.filters());
+                    List<Long> sorted = index.sort(matching, query.sortKeys());
+                    List<Long> page = sorted.subList(
+                            Math.min(query.offset(), sorted.size()),
+                            Math.min(query.offset() + query.limit(), sorted.size()));
+
+                    return ImmutableReportGridPage
+                            .builder()
+                            .definition(computed.grid.definition())
+                            .instance(index.restrictTo(page))
+                            .subjectIds(page)
+                            .totalCount(index.subjectIds().size())
+                            .matchingCount(matching.size())
+                            .offset(query.offset())
+                            .limit(query.limit())
+                            .userRole(ReportGridService.determineUserRole(computed.grid.members(), username))
+                            .build();
+                });
+    }
+
+
+    /**
+     * @return the index over the computed grid instance, if the grid exists
+     */
+    public Optional<ReportGridIndex> getIndex(long gridId,
+                                              IdSelectionOptions selectionOptions) {
+        return getComputedGrid(gridId, selectionOptions)
+                .map(computed -> computed.index);
+    }
+
+
+    public void invalidate() {
+        synchronized (computedGrids) {
+            computedGrids.clear();
+            heldCellCount = 0;
+        }
+    }
+
+
+    // -- HELPERS ---
+
+    private Optional<ComputedGrid> getComputedGrid(long gridId,
+                                                   IdSelectionOptions selectionOptions) {
+        checkNotNull(selectionOptions, "selectionOptions cannot be null");
+
+        ReportGridDefinition currentDefinition = reportGridService.getGridDefinitionById(gridId);
+        if (currentDefinition == null) {
+            return Optional.empty();
+        }
+
+        Tuple2<Long, IdSelectionOptions> key = tuple(gridId, selectionOptions);
+
+        ComputedGrid existing;
+        synchronized (computedGrids) {
+            existing = computedGrids.get(key);
+        }
+
+        if (existing != null && existing.isUsableFor(currentDefinition)) {
+            return Optional.of(existing);
+        }
+
+        // computed outside the lock, concurrent requests for the same grid may both compute it
+        LOG.debug("Computing grid for query, id={}, options={}", gridId, selectionOptions);
+        return reportGridService
+                .getByIdAndSelectionOptions(gridId, selectionOptions, null)
+                .map(grid -> {
+                    ComputedGrid computed = new ComputedGrid(grid);
+                    hold(key, computed);
+                    return computed;
+                });
+    }
+
+
+    private void hold(Tuple2<Long, IdSelectionOptions> key,
+                      ComputedGrid computed) {
+        if (computed.cellCount > MAX_HELD_CELLS) {
+            LOG.debug("Not holding grid, {} cells exceeds limit of {}", computed.cellCount, MAX_HELD_CELLS);
+            return;
+        }
+
+        synchronized (computedGrids) {
+            ComputedGrid previous = computedGrids.put(key, computed);
+            if (previous != null) {
+                heldCellCount -= previous.cellCount;
+            }
+            heldCellCount += computed.cellCount;
+
+            Iterator<ComputedGrid> leastRecentlyUsed = computedGrids.values().iterator();
+            while (heldCellCount > MAX_HELD_CELLS) {
+                heldCellCount -= leastRecentlyUsed.next().cellCount;
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+
+    private static class ComputedGrid {
+
+        private final ReportGrid grid;
+        private final ReportGridIndex index;
+        private final int cellCount;
+        private final long computedAt = System.currentTimeMillis();
+
+        ComputedGrid(ReportGrid grid) {
+            this.grid = grid;
+            this.index = ReportGridIndex.of(grid.instance());
+            this.cellCount = grid.instance().cellData().size();
+        }
+
+        boolean isUsableFor(ReportGridDefinition currentDefinition) {
+            return System.currentTimeMillis() - computedAt < MAX_AGE.toMillis()
+                    && grid.definition().equals(currentDefinition);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
+import org.finos.waltz.data.replica.ReadReplicaRouter;
 import org.finos.waltz.data.report_grid.ReportGridDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.IdSelectionOptions;
@@ -60,6 +61,7 @@ public class ReportGridService {
     private final ReportGridDao reportGridDao;
     private final ReportGridMemberService reportGridMemberService;
     private final UserRoleService userRoleService;
+    private final ReadReplicaRouter readReplicaRouter;
 
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
@@ -69,12 +71,14 @@ public class ReportGridService {
                              RatingSchemeService ratingSchemeService,
                              ReportGridMemberService reportGridMemberService,
                              UserRoleService userRoleService,
-                             ChangeInitiativeDao changeInitiativeDao) {
+                             ChangeInitiativeDao changeInitiativeDao,
+                             ReadReplicaRouter readReplicaRouter) {
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(reportGridMemberService, "reportGridMemberService cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(readReplicaRouter, "readReplicaRouter cannot be null");
 
         this.reportGridDao = reportGridDao;
         this.reportGridMemberService = reportGridMemberService;
@@ -82,6 +86,7 @@ public class ReportGridService {
         this.ratingSchemeService = ratingSchemeService;
         this.changeInititativeDao = changeInitiativeDao;
         this.userRoleService = userRoleService;
+        this.readReplicaRouter = readReplicaRouter;
     }
 
 
@@ -124,12 +129,7 @@ public class ReportGridService {
 
         Set<ReportGridMember> members = reportGridMemberService.findByGridId(id);
 
-        ReportGridMemberRole userRole = members
-                .stream()
-                .filter(d -> d.user().userId().equals(username))
-                .findFirst()
-                .map(ReportGridMember::role)
-                .orElse(ReportGridMemberRole.VIEWER);
+        ReportGridMemberRole userRole = determineUserRole(members, username);
 
         if (!definition.derivedColumnDefinitions().isEmpty()) {
             Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
@@ -155,11 +155,44 @@ public class ReportGridService {
     }
 
 
+    /**
+     * As {@link #getByIdAndSelectionOptions(long, IdSelectionOptions, String)} but with the
+     * instance columnar and dictionary encoded, which is considerably smaller on the wire
+     * for large grids.
+     */
+    public Optional<CompactReportGrid> getCompactByIdAndSelectionOptions(
+            long id,
+            IdSelectionOptions idSelectionOptions,
+            String username) {
+
+        return getByIdAndSelectionOptions(id, idSelectionOptions, username)
+                .map(grid -> ImmutableCompactReportGrid
+                        .builder()
+                        .definition(grid.definition())
+                        .instance(CompactReportGridCodec.encode(grid.instance()))
+                        .members(grid.members())
+                        .userRole(grid.userRole())
+                        .build());
+    }
+
+
+    public static ReportGridMemberRole determineUserRole(Set<ReportGridMember> members,
+                                                         String username) {
+        return members
+                .stream()
+                .filter(d -> d.user().userId().equals(username))
+                .findFirst()
+                .map(ReportGridMember::role)
+                .orElse(ReportGridMemberRole.VIEWER);
+    }
+
+
     public ReportGridInstance mkInstance(long id, IdSelectionOptions idSelectionOptions, EntityKind targetKind) {
 
         GenericSelector genericSelector = genericSelectorFactory.applyForKind(targetKind, idSelectionOptions);
-        Set<ReportGridCell> cellData = reportGridDao.findCellDataByGridId(id, genericSelector);
-        Set<ReportSubject> subjects = getReportSubjects(genericSelector);
+        // grid data is read heavy and may be served by the replica
+        Set<ReportGridCell> cellData = readReplicaRouter.read(() -> reportGridDao.findCellDataByGridId(id, genericSelector));
+        Set<ReportSubject> subjects = readReplicaRouter.read(() -> getReportSubjects(genericSelector));
 
         Set<RatingSchemeItem> ratingSchemeItems = ratingSchemeService.findRatingSchemeItemsByIds(
                 cellData.stream().flatMap(d -> d.ratingIdValues().stream()).collect(Collectors.toSet()));
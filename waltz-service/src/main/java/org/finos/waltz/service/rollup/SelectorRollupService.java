@@ -0,0 +1,229 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.rollup;
+
+import org.finos.waltz.data.entity_statistic.EntityStatisticRollupDao;
+import org.finos.waltz.data.logical_flow.LogicalFlowStatsRollupDao;
+import org.finos.waltz.data.rollup.RollupDirtyNodeDao;
+import org.finos.waltz.data.rollup.RollupRefreshDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
+import org.finos.waltz.model.tally.TallyPack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.data.rollup.RollupMembership.isRollupSelector;
+
+
+/**
+ * Maintains, and answers from, the precomputed per org unit / per person
+ * rollups of entity statistics and logical flow statistics.
+ *
+ * Reads are only answered when the selection is exactly a rollup node (see
+ * {@link org.finos.waltz.data.rollup.RollupMembership#isRollupSelector(IdSelectionOptions)}),
+ * the rollup has been built and the node is not dirty, otherwise callers
+ * should fall back to the live queries.
+ *
+ * The rollups are refreshed incrementally, only nodes containing apps whose
+ * statistic values or flows have changed since the last refresh are
+ * recalculated.  Changes which leave no timestamp behind (apps moving org
+ * unit, involvement changes and deleted decorators) mark the affected nodes
+ * dirty as they are written, see {@link RollupDirtyNodeDao}, and those nodes
+ * are recalculated by the next refresh.  Changes made outside of Waltz
+ * (e.g. by feeds writing directly to the database) are picked up by the
+ * periodic full rebuild.
+ */
+@Service
+public class SelectorRollupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SelectorRollupService.class);
+
+    /**
+     * Changes committed shortly before the previous refresh may not have been visible to it
+     */
+    private static final int REFRESH_OVERLAP_MINUTES = 5;
+
+    private static final int REBUILD_INTERVAL_HOURS = 24;
+
+    private final EntityStatisticRollupDao entityStatisticRollupDao;
+    private final LogicalFlowStatsRollupDao logicalFlowStatsRollupDao;
+    private final RollupRefreshDao rollupRefreshDao;
+    private final RollupDirtyNodeDao rollupDirtyNodeDao;
+
+
+    @Autowired
+    public SelectorRollupService(EntityStatisticRollupDao entityStatisticRollupDao,
+                                 LogicalFlowStatsRollupDao logicalFlowStatsRollupDao,
+                                 RollupRefreshDao rollupRefreshDao,
+                                 RollupDirtyNodeDao rollupDirtyNodeDao) {
+        checkNotNull(entityStatisticRollupDao, "entityStatisticRollupDao cannot be null");
+        checkNotNull(logicalFlowStatsRollupDao, "logicalFlowStatsRollupDao cannot be null");
+        checkNotNull(rollupRefreshDao, "rollupRefreshDao cannot be null");
+        checkNotNull(rollupDirtyNodeDao, "rollupDirtyNodeDao cannot be null");
+
+        this.entityStatisticRollupDao = entityStatisticRollupDao;
+        this.logicalFlowStatsRollupDao = logicalFlowStatsRollupDao;
+        this.rollupRefreshDao = rollupRefreshDao;
+        this.rollupDirtyNodeDao = rollupDirtyNodeDao;
+    }
+
+
+    /**
+     * @return tallies for the statistics, or empty if they cannot be answered from the rollups
+     */
+    public Optional<List<TallyPack<String>>> findStatisticTallies(Collection<Long> statisticIds,
+                                                                  RollupKind rollupKind,
+                                                                  IdSelectionOptions options) {
+        checkNotNull(statisticIds, "statisticIds cannot be null");
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+
+        if (rollupKind == RollupKind.NONE || !canAnswer(EntityStatisticRollupDao.ROLLUP_NAME, options)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(entityStatisticRollupDao.findTallies(
+                options.entityReference(),
+                statisticIds,
+                rollupKind));
+    }
+
+
+    /**
+     * @return flow statistics, or empty if they cannot be answered from the rollups
+     */
+    public Optional<LogicalFlowStatistics> findFlowStatistics(IdSelectionOptions options) {
+        if (!canAnswer(LogicalFlowStatsRollupDao.ROLLUP_NAME, options)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(logicalFlowStatsRollupDao.getStatistics(options.entityReference()));
+    }
+
+
+    /**
+     * Brings the rollups up to date, either incrementally or, if they have
+     * never been built or are due, by rebuilding them.  Nodes which were
+     * dirty when the refresh started are recalculated and then cleared.
+     *
+     * @return number of rollup cells written
+     */
+    public int refresh() {
+        Map<EntityReference, Timestamp> dirtyNodes = rollupDirtyNodeDao.findDirtyNodes();
+
+        int cellCount = refresh(
+                    EntityStatisticRollupDao.ROLLUP_NAME,
+                    since -> union(entityStatisticRollupDao.findNodesWithChangesSince(since), dirtyNodes.keySet()),
+                    entityStatisticRollupDao::refresh,
+                    entityStatisticRollupDao::rebuild)
+                + refresh(
+                    LogicalFlowStatsRollupDao.ROLLUP_NAME,
+                    since -> union(logicalFlowStatsRollupDao.findNodesWithChangesSince(since), dirtyNodes.keySet()),
+                    logicalFlowStatsRollupDao::refresh,
+                    logicalFlowStatsRollupDao::rebuild);
+
+        rollupDirtyNodeDao.clear(dirtyNodes);
+        return cellCount;
+    }
+
+
+    /**
+     * Discards and recalculates all rollups.
+     *
+     * @return number of rollup cells written
+     */
+    public int rebuild() {
+        return rebuild(EntityStatisticRollupDao.ROLLUP_NAME, entityStatisticRollupDao::rebuild)
+                + rebuild(LogicalFlowStatsRollupDao.ROLLUP_NAME, logicalFlowStatsRollupDao::rebuild);
+    }
+
+
+    // -- HELPERS ---
+
+    private boolean canAnswer(String rollupName, IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        return isRollupSelector(options)
+                && rollupRefreshDao.getRebuiltAt(rollupName).isPresent()
+                && !rollupDirtyNodeDao.isDirty(options.entityReference());
+    }
+
+
+    private int refresh(String rollupName,
+                        Function<LocalDateTime, Set<EntityReference>> changedNodesFinder,
+                        Function<Set<EntityReference>, Integer> nodeRefresher,
+                        Supplier<Integer> rebuilder) {
+        LocalDateTime startedAt = nowUtc();
+        long st = System.currentTimeMillis();
+
+        boolean rebuildDue = rollupRefreshDao
+                .getRebuiltAt(rollupName)
+                .map(rebuiltAt -> rebuiltAt.plusHours(REBUILD_INTERVAL_HOURS).isBefore(startedAt))
+                .orElse(true);
+
+        if (rebuildDue) {
+            return rebuild(rollupName, rebuilder);
+        }
+
+        LocalDateTime since = rollupRefreshDao
+                .getRefreshedAt(rollupName)
+                .map(refreshedAt -> refreshedAt.minusMinutes(REFRESH_OVERLAP_MINUTES))
+                .orElse(startedAt);
+
+        Set<EntityReference> changedNodes = changedNodesFinder.apply(since);
+        int cellCount = nodeRefresher.apply(changedNodes);
+        rollupRefreshDao.markRefreshed(rollupName, startedAt);
+
+        if (!changedNodes.isEmpty()) {
+            LOG.info("Refreshed {} rollup, nodes: {}, cells: {}, duration: {}ms",
+                    rollupName,
+                    changedNodes.size(),
+                    cellCount,
+                    System.currentTimeMillis() - st);
+        }
+
+        return cellCount;
+    }
+
+
+    private int rebuild(String rollupName, Supplier<Integer> rebuilder) {
+        LOG.info("Rebuilding {} rollup", rollupName);
+        LocalDateTime startedAt = nowUtc();
+        long st = System.currentTimeMillis();
+        int cellCount = rebuilder.get();
+        rollupRefreshDao.markRebuilt(rollupName, startedAt);
+        LOG.info("Rebuilt {} rollup, cells: {}, duration: {}ms", rollupName, cellCount, System.currentTimeMillis() - st);
+        return cellCount;
+    }
+}
@@ -20,12 +20,15 @@ package org.finos.waltz.service.scheduled_job;
 
 
 import org.finos.waltz.common.ExcludeFromIntegrationTesting;
+import org.finos.waltz.data.app_group.AppGroupResolvedMemberDao;
 import org.finos.waltz.data.assessment_rating.AssessmentRatingRippler;
 import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
 import org.finos.waltz.service.attestation.AttestationRunService;
+import org.finos.waltz.service.changelog.ChangeLogArchiveService;
+import org.finos.waltz.service.changelog.ChangeLogRollupService;
 import org.finos.waltz.service.complexity.ComplexityService;
 import org.finos.waltz.service.cost.CostService;
 import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
@@ -33,6 +36,7 @@ import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleSe
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.physical_specification_data_type.PhysicalSpecDataTypeService;
 import org.finos.waltz.service.report_grid.ReportGridFilterViewService;
+import org.finos.waltz.service.rollup.SelectorRollupService;
 import org.finos.waltz.service.survey.SurveyInstanceActionQueueService;
 import org.finos.waltz.service.survey.SurveyInstanceService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
@@ -69,6 +73,10 @@ public class ScheduledJobService {
     private final SurveyInstanceActionQueueService surveyInstanceActionQueueService;
     private final ComplexityService complexityService;
     private final AssessmentRatingRippler assessmentRatingRippler;
+    private final ChangeLogRollupService changeLogRollupService;
+    private final ChangeLogArchiveService changeLogArchiveService;
+    private final SelectorRollupService selectorRollupService;
+    private final AppGroupResolvedMemberDao appGroupResolvedMemberDao;
 
 
     @Autowired
@@ -84,7 +92,11 @@ public class ScheduledJobService {
                                ScheduledJobDao scheduledJobDao,
                                SurveyInstanceActionQueueService surveyInstanceActionQueueService,
                                SurveyInstanceService surveyInstanceService,
-                               AssessmentRatingRippler assessmentRatingRippler) {
+                               AssessmentRatingRippler assessmentRatingRippler,
+                               ChangeLogRollupService changeLogRollupService,
+                               ChangeLogArchiveService changeLogArchiveService,
+                               SelectorRollupService selectorRollupService,
+                               AppGroupResolvedMemberDao appGroupResolvedMemberDao) {
 
 
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
@@ -99,6 +111,10 @@ public class ScheduledJobService {
         checkNotNull(surveyInstanceActionQueueService, "surveyInstanceActionQueueService cannot be null");
         checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
         checkNotNull(assessmentRatingRippler, "assessmentRatingRippler cannot be null");
+        checkNotNull(changeLogRollupService, "changeLogRollupService cannot be null");
+        checkNotNull(changeLogArchiveService, "changeLogArchiveService cannot be null");
+        checkNotNull(selectorRollupService, "selectorRollupService cannot be null");
+        checkNotNull(appGroupResolvedMemberDao, "appGroupResolvedMemberDao cannot be null");
 
         this.attestationRunService = attestationRunService;
         this.complexityService = complexityService;
@@ -113,6 +129,10 @@ public class ScheduledJobService {
         this.surveyInstanceActionQueueService = surveyInstanceActionQueueService;
         this.surveyInstanceService = surveyInstanceService;
         this.assessmentRatingRippler = assessmentRatingRippler;
+        this.changeLogRollupService = changeLogRollupService;
+        this.changeLogArchiveService = changeLogArchiveService;
+        this.selectorRollupService = selectorRollupService;
+        this.appGroupResolvedMemberDao = appGroupResolvedMemberDao;
     }
 
 
@@ -172,8 +192,87 @@ public class ScheduledJobService {
         runIfNeeded(JobKey.RIPPLE_ASSESSMENTS,
                 (jk) -> assessmentRatingRippler.rippleAssessments());
 
+        runIfNeeded(JobKey.CHANGE_LOG_ROLLUP_REBUILD,
+                (jk) -> changeLogRollupService.rebuild(),
+                asSet(JobKey.CHANGE_LOG_ROLLUP_ROLL_FORWARD));
+
+        runIfNeeded(JobKey.CHANGE_LOG_ROLLUP_ROLL_FORWARD,
+                (jk) -> changeLogRollupService.rollForward(),
+                asSet(JobKey.CHANGE_LOG_ROLLUP_REBUILD));
+
+        runIfNeeded(JobKey.CHANGE_LOG_ARCHIVE,
+                (jk) -> changeLogArchiveService.archiveAgedEntries(),
+                asSet(JobKey.CHANGE_LOG_ROLLUP_REBUILD));
+
+        runIfNeeded(JobKey.SELECTOR_ROLLUP_REBUILD,
+                (jk) -> selectorRollupService.rebuild(),
+                asSet(JobKey.SELECTOR_ROLLUP_REFRESH));
+
+        runIfNeeded(JobKey.SELECTOR_ROLLUP_REFRESH,
+                (jk) -> selectorRollupService.refresh(),
+                asSet(JobKey.SELECTOR_ROLLUP_REBUILD));
+
+        runIfNeeded(JobKey.APP_GROUP_RESOLVED_MEMBER_REBUILD,
+                (jk) -> appGroupResolvedMemberDao.rebuild());
+
         surveyInstanceActionQueueService.performActions();
 
+        ripplePendingSpecDataTypes();
+    }
+
+
+    /**
+     * Requests the periodic catch-up jobs.  Marking a job as runnable means
+     * it is picked up by a single node's next run cycle, rather than being
+     * run by every node.
+     */
+    @Scheduled(cron = "0 */5 * * * *")
+    public void requestFrequentJobs() {
+        requestJob(JobKey.SELECTOR_ROLLUP_REFRESH);
+    }
+
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void requestHourlyJobs() {
+        requestJob(JobKey.CHANGE_LOG_ROLLUP_ROLL_FORWARD);
+    }
+
+
+    @Scheduled(cron = "0 0 2 * * *")
+    public void requestDailyJobs() {
+        requestJob(JobKey.CHANGE_LOG_ARCHIVE);
+        // catches resolved app group members missed by the write paths, e.g. entries loaded directly into the database
+        requestJob(JobKey.APP_GROUP_RESOLVED_MEMBER_REBUILD);
+    }
+
+
+    /**
+     * Ripples specifications marked by writes since the last cycle, using the
+     * ripple job's status so it never overlaps a full ripple or the usage
+     * recalculation (on any node).
+     */
+    private void ripplePendingSpecDataTypes() {
+        try {
+            if (physicalSpecDataTypeService.hasPendingRipples()
+                    && !scheduledJobDao.anyJobsRunning(asSet(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION))) {
+                scheduledJobDao.markJobAsRunnable(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL);
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to check for pending physical specification data type ripples", e);
+        }
+
+        runIfNeeded(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                (jk) -> physicalSpecDataTypeService.ripplePendingDataTypesToLogicalFlows(),
+                asSet(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION));
+    }
+
+
+    private void requestJob(JobKey jobKey) {
+        try {
+            scheduledJobDao.markJobAsRunnable(jobKey);
+        } catch (Exception e) {
+            LOG.error("Failed to request job: " + jobKey, e);
+        }
     }
 
 
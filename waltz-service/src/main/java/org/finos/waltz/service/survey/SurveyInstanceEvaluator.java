@@ -3,20 +3,27 @@ package org.finos.waltz.service.survey;
 import org.finos.waltz.data.survey.SurveyInstanceDao;
 import org.finos.waltz.data.survey.SurveyQuestionDao;
 import org.finos.waltz.data.survey.SurveyQuestionResponseDao;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.*;
 import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateEvaluator;
 import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptyMap;
 import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.schema.Tables.SURVEY_INSTANCE;
 import static org.finos.waltz.service.survey.SurveyInstanceUtilities.getVal;
 
 @Service
@@ -57,6 +64,59 @@ public class SurveyInstanceEvaluator {
     }
 
 
+    /**
+     * Evaluates every instance in a survey run.  Predicate facts are
+     * loaded in bulk for all of the run's subjects so this is considerably
+     * cheaper than evaluating each instance individually.
+     *
+     * @param surveyRunId  survey run whose instances should be evaluated
+     * @return  form details for each instance, keyed by instance id
+     */
+    public Map<Long, SurveyInstanceFormDetails> evalForSurveyRun(long surveyRunId) {
+        List<SurveyQuestion> qs = questionDao.findForSurveyRun(surveyRunId);
+        Set<SurveyInstance> instances = instanceDao.findForSurveyRun(surveyRunId);
+
+        Map<Long, Map<Long, SurveyQuestionResponse>> responsesByInstanceId = responseDao
+                .findForSurveyRun(surveyRunId)
+                .stream()
+                .collect(Collectors.groupingBy(
+                        SurveyInstanceQuestionResponse::surveyInstanceId,
+                        Collectors.toMap(
+                                r -> r.questionResponse().questionId(),
+                                SurveyInstanceQuestionResponse::questionResponse)));
+
+        Map<EntityKind, Map<Long, Long>> subjectIdsByInstanceIdByKind = instances
+                .stream()
+                .collect(Collectors.groupingBy(
+                        i -> i.surveyEntity().kind(),
+                        Collectors.toMap(
+                                i -> i.id().get(),
+                                i -> i.surveyEntity().id())));
+
+        Map<Long, SurveyInstanceFormDetails> result = new HashMap<>();
+
+        subjectIdsByInstanceIdByKind.forEach((kind, subjectIdsByInstanceId) -> {
+            Select<Record1<Long>> subjectIdSelector = DSL
+                    .selectDistinct(SURVEY_INSTANCE.ENTITY_ID)
+                    .from(SURVEY_INSTANCE)
+                    .where(SURVEY_INSTANCE.SURVEY_RUN_ID.eq(surveyRunId))
+                    .and(SURVEY_INSTANCE.ENTITY_KIND.eq(kind.name()));
+
+            QuestionPredicateEvaluator
+                    .evalAll(dsl, qs, kind, subjectIdSelector, subjectIdsByInstanceId, responsesByInstanceId)
+                    .forEach((instanceId, activeQs) -> {
+                        Map<Long, SurveyQuestionResponse> responses = responsesByInstanceId.getOrDefault(instanceId, emptyMap());
+                        result.put(instanceId, ImmutableSurveyInstanceFormDetails.builder()
+                                .activeQuestions(activeQs)
+                                .missingMandatoryQuestionIds(determineMissingMandatoryQuestions(activeQs, responses))
+                                .build());
+                    });
+        });
+
+        return result;
+    }
+
+
     private static Set<Long> determineMissingMandatoryQuestions(List<SurveyQuestion> activeQs,
                                                                 Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
         return activeQs
@@ -445,29 +445,35 @@ public class SurveyRunService {
         // delete existing instances and recipients
         deleteSurveyInstancesAndRecipients(command.surveyRunId());
 
-        // insert new instances and recipients
+        // insert new instances, their ids are needed for the owners and recipients
+        Map<Long, Set<Long>> ownerIdsByInstanceId = new LinkedHashMap<>();
+        Map<Long, Set<Long>> recipientIdsByInstanceId = new LinkedHashMap<>();
         instancesAndRecipientsToSave.forEach(
                 (k,v) -> {
+                    Set<Long> ownerIds = new LinkedHashSet<>();
+                    ownerIds.add(surveyRun.ownerId());
+                    fromCollection(surveyOwnersByInstance.get(k)).forEach(o -> ownerIds.add(o.person().id().get()));
+
                     if (surveyRun.issuanceKind() == SurveyIssuanceKind.GROUP) {
                         // one instance per group
                         long instanceId = createSurveyInstance(k);
-                        createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                        Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                        fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                        v.forEach(r -> createSurveyInstanceRecipient(instanceId, r));
+                        ownerIdsByInstanceId.put(instanceId, ownerIds);
+                        recipientIdsByInstanceId.put(instanceId, v.stream().map(r -> r.person().id().get()).collect(Collectors.toSet()));
                     } else {
                         // one instance for each individual
                         v.forEach(r -> {
                             long instanceId = createSurveyInstance(k);
-                            createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                            Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                            fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                            createSurveyInstanceRecipient(instanceId, r);
+                            ownerIdsByInstanceId.put(instanceId, ownerIds);
+                            recipientIdsByInstanceId.put(instanceId, asSet(r.person().id().get()));
                         });
                     }
                 }
         );
 
+        // then bulk load the owners and recipients for all instances in one go
+        surveyInstanceDao.createOwners(ownerIdsByInstanceId);
+        surveyInstanceDao.createRecipients(recipientIdsByInstanceId);
+
         return true;
     }
 
@@ -492,21 +498,6 @@ public class SurveyRunService {
     }
 
 
-    private long createSurveyInstanceRecipient(long surveyInstanceId, SurveyInstanceRecipient surveyInstanceRecipient) {
-        return surveyInstanceRecipientDao.create(ImmutableSurveyInstanceRecipientCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(surveyInstanceRecipient.person().id().get())
-                .build());
-    }
-
-    private long createSurveyInstanceOwner(long surveyInstanceId, Long ownerId) {
-        return surveyInstanceOwnerDao.create(ImmutableSurveyInstanceOwnerCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(ownerId)
-                .build());
-    }
-
-
     private void validateSurveyRunUpdate(String userName, long surveyRunId) {
         Person owner = validateUser(userName);
         SurveyRun surveyRun = validateSurveyRun(surveyRunId);
@@ -659,11 +650,11 @@ public class SurveyRunService {
 
         long instanceId = surveyInstanceDao.create(instanceCreateCommand);
 
-        int[] recipientsCreated = surveyInstanceDao.createInstanceRecipients(
+        int recipientsCreated = surveyInstanceDao.createInstanceRecipients(
                 instanceId,
                 recipientIds);
 
-        int[] ownersCreated = surveyInstanceDao.createInstanceOwners(
+        int ownersCreated = surveyInstanceDao.createInstanceOwners(
                 instanceId,
                 ownersIds);
     }
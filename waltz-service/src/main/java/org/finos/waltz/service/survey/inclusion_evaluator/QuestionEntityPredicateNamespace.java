@@ -18,24 +18,13 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.finos.waltz.schema.tables.EntityHierarchy;
-import org.finos.waltz.schema.tables.OrganisationalUnit;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
-import org.jooq.Condition;
-import org.jooq.DSLContext;
-import org.jooq.Field;
-import org.jooq.Record1;
-import org.jooq.SelectConditionStep;
-import org.jooq.Table;
-import org.jooq.impl.DSL;
 
 import java.util.List;
 import java.util.Map;
 
-import static org.finos.waltz.schema.Tables.*;
-
 /**
  *
  * NOTE: methods in this class may show as unused.  This is to be expected as they are referred to via
@@ -43,32 +32,25 @@ import static org.finos.waltz.schema.Tables.*;
  */
 public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNamespace {
 
-    protected final DSLContext dsl;
     protected final EntityReference subjectRef;
+    protected final QuestionPredicateFacts facts;
 
 
-    public QuestionEntityPredicateNamespace(DSLContext dsl,
-                                            EntityReference subjectRef,
+    public QuestionEntityPredicateNamespace(EntityReference subjectRef,
+                                            QuestionPredicateFacts facts,
                                             List<SurveyQuestion> questions,
                                             Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
         super(questions, responsesByQuestionId);
-        this.dsl = dsl;
         this.subjectRef = subjectRef;
+        this.facts = facts;
     }
 
 
     public String assessmentRating(String name, String defaultVal) {
-        return dsl
-                .select(RATING_SCHEME_ITEM.CODE)
-                .from(ASSESSMENT_DEFINITION)
-                .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
-                .innerJoin(RATING_SCHEME).on(RATING_SCHEME.ID.eq(ASSESSMENT_DEFINITION.RATING_SCHEME_ID))
-                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
-                .where(ASSESSMENT_DEFINITION.EXTERNAL_ID.eq(name).or(ASSESSMENT_DEFINITION.NAME.eq(name)))
-                .and(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
-                .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
-                .fetchOptional(RATING_SCHEME_ITEM.CODE)
-                .orElse(defaultVal);
+        String rating = facts.assessmentRating(name);
+        return rating == null
+                ? defaultVal
+                : rating;
     }
 
 
@@ -78,61 +60,17 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public boolean hasInvolvement(String name) {
-        return dsl.fetchExists(DSL
-                .select()
-                .from(INVOLVEMENT)
-                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
-                .where(INVOLVEMENT_KIND.NAME.equalIgnoreCase(name))
-                .and(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
-                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name())));
+        return facts.hasInvolvement(name);
     }
 
 
-    // --- HELPER ---
-
-    protected boolean belongsToOrgUnit(String name,
-                                       Table<?> subjectTable,
-                                       Field<Long> subjectId,
-                                       Field<Long> subjectOu) {
-        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
-        OrganisationalUnit ou = OrganisationalUnit.ORGANISATIONAL_UNIT.as("ou");
-
-        SelectConditionStep<Record1<Long>> targetOrgUnitId = DSL
-                .select(ou.ID)
-                .from(ou)
-                .where(ou.NAME.eq(name))
-                .or(ou.EXTERNAL_ID.eq(name));
-
-        Condition subjectInTargetOuTree = subjectOu.in(DSL
-                .selectDistinct(eh.ID)
-                .from(eh)
-                .where(eh.ANCESTOR_ID.eq(targetOrgUnitId)));
-
-        Condition subjectEntitiesMatch = subjectId.eq(subjectRef.id());
-
-        SelectConditionStep<Record1<Long>> qry = DSL
-                .select(subjectId)
-                .from(subjectTable)
-                .where(subjectEntitiesMatch)
-                .and(subjectInTargetOuTree);
-
-        return dsl
-                .fetchExists(qry);
+    public boolean belongsToOrgUnit(String name) {
+        return facts.belongsToOrgUnit(name);
     }
 
 
-    protected boolean hasLifecyclePhase(String name,
-                                        Table<?> subjectTable,
-                                        Field<Long> subjectId,
-                                        Field<String> subjectLifecyclePhase) {
-
-
-        return dsl
-                .fetchExists(DSL
-                        .select()
-                        .from(subjectTable)
-                        .where(subjectLifecyclePhase.eq(name)
-                                .and(subjectId.eq(subjectRef.id()))));
+    public boolean hasLifecyclePhase(String name) {
+        return facts.hasLifecyclePhase(name);
     }
 
 }
@@ -0,0 +1,47 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+
+/**
+ * Evaluation context which binds the default (un-prefixed) function
+ * namespace to a subject specific predicate namespace.  This allows a
+ * single, shared, engine (and its compiled expressions) to be used for
+ * every subject.
+ */
+public class QuestionPredicateContext extends MapContext implements JexlContext.NamespaceResolver {
+
+    private final QuestionBasePredicateNamespace namespace;
+
+
+    public QuestionPredicateContext(QuestionBasePredicateNamespace namespace) {
+        this.namespace = namespace;
+    }
+
+
+    @Override
+    public Object resolveNamespace(String name) {
+        return name == null
+                ? namespace
+                : null;
+    }
+}
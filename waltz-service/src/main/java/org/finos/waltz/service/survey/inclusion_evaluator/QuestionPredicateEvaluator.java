@@ -18,55 +18,133 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.apache.commons.jexl3.*;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlException;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
 import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.common.MapUtilities.newHashMap;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 
 public class QuestionPredicateEvaluator {
 
+    private static final Logger LOG = LoggerFactory.getLogger(QuestionPredicateEvaluator.class);
+
+    /**
+     * Shared engine, expressions are parsed once (per distinct predicate) and
+     * held in the engine's cache.  Subject specific functions are bound at
+     * evaluation time via the {@link QuestionPredicateContext}.
+     */
+    private static final JexlEngine JEXL = new JexlBuilder()
+            .cache(1024)
+            .create();
+
+
     public static List<SurveyQuestion> eval(DSLContext dsl,
-                                     List<SurveyQuestion> qs,
-                                     EntityReference subjectRef,
-                                     Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+                                            List<SurveyQuestion> qs,
+                                            EntityReference subjectRef,
+                                            Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+        Map<Long, QuestionPredicateFacts> facts = QuestionPredicateFactLoader.load(
+                dsl,
+                subjectRef.kind(),
+                DSL.select(DSL.val(subjectRef.id())));
+
+        return eval(qs, subjectRef, facts.getOrDefault(subjectRef.id(), new QuestionPredicateFacts()), responsesByQuestionId);
+    }
 
-        QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(dsl, qs, subjectRef, responsesByQuestionId);
 
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder
-                .namespaces(newHashMap(null, namespace))
-                .create();
+    /**
+     * Evaluates the questions for many survey instances whose subjects are
+     * all of the same kind.  Facts read by the predicates are loaded for all
+     * subjects at once and the instances are evaluated in parallel.
+     *
+     * @param dsl  used to load predicate facts
+     * @param qs  questions to evaluate (typically all questions for a template)
+     * @param subjectKind  kind of all the subjects
+     * @param subjectIdSelector  selects the ids of the subjects being evaluated
+     * @param subjectIdsByInstanceId  subject id for each instance
+     * @param responsesByInstanceId  responses for each instance, indexed by question id
+     * @return  active questions for each instance in <code>subjectIdsByInstanceId</code>
+     */
+    public static Map<Long, List<SurveyQuestion>> evalAll(DSLContext dsl,
+                                                          List<SurveyQuestion> qs,
+                                                          EntityKind subjectKind,
+                                                          Select<Record1<Long>> subjectIdSelector,
+                                                          Map<Long, Long> subjectIdsByInstanceId,
+                                                          Map<Long, Map<Long, SurveyQuestionResponse>> responsesByInstanceId) {
+        Map<Long, QuestionPredicateFacts> factsBySubjectId = QuestionPredicateFactLoader.load(
+                dsl,
+                subjectKind,
+                subjectIdSelector);
+
+        return subjectIdsByInstanceId
+                .entrySet()
+                .parallelStream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        kv -> eval(
+                                qs,
+                                EntityReference.mkRef(subjectKind, kv.getValue()),
+                                factsBySubjectId.getOrDefault(kv.getValue(), new QuestionPredicateFacts()),
+                                responsesByInstanceId.get(kv.getKey()))));
+    }
 
-        namespace.usingEvaluator(jexl);
 
-        List<SurveyQuestion> activeQs = determineActiveQs(qs, jexl);
+    /**
+     * Evaluates a single predicate against the given namespace.
+     */
+    static boolean evaluate(String predicate,
+                            QuestionBasePredicateNamespace namespace) {
+        Object result = JEXL
+                .createExpression(predicate)
+                .evaluate(new QuestionPredicateContext(namespace));
 
-        return activeQs;
+        return Boolean.valueOf(String.valueOf(result));
     }
 
 
+    static List<SurveyQuestion> eval(List<SurveyQuestion> qs,
+                                     EntityReference subjectRef,
+                                     QuestionPredicateFacts facts,
+                                     Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+        QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(
+                qs,
+                subjectRef,
+                facts,
+                responsesByQuestionId == null ? Collections.emptyMap() : responsesByQuestionId);
+
+        return determineActiveQs(qs, namespace);
+    }
 
 
-    private static QuestionBasePredicateNamespace mkPredicateNameSpace(DSLContext dsl, List<SurveyQuestion> qs, EntityReference subjectRef, Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+    private static QuestionBasePredicateNamespace mkPredicateNameSpace(List<SurveyQuestion> qs,
+                                                                       EntityReference subjectRef,
+                                                                       QuestionPredicateFacts facts,
+                                                                       Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
         switch (subjectRef.kind()) {
             case APPLICATION:
                 return new QuestionAppPredicateNamespace(
-                        dsl,
                         subjectRef,
+                        facts,
                         qs,
                         responsesByQuestionId);
             case CHANGE_INITIATIVE:
                 return new QuestionChangeInitiativePredicateNamespace(
-                        dsl,
                         subjectRef,
+                        facts,
                         qs,
                         responsesByQuestionId);
             default:
@@ -75,25 +153,35 @@ public class QuestionPredicateEvaluator {
     }
 
 
-    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlEngine jexl) {
-        List<SurveyQuestion> activeQs = qs
+    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs,
+                                                          QuestionBasePredicateNamespace namespace) {
+        return qs
                 .stream()
                 .filter(q -> q
                         .inclusionPredicate()
-                        .map(p -> {
-                            if (isEmpty(p)) {
-                                return true;
-                            } else {
-                                JexlExpression expr = jexl.createExpression(p);
-                                JexlContext jexlCtx = new MapContext();
-                                return Boolean.valueOf(expr.evaluate(jexlCtx).toString());
-                            }
-                        })
+                        .map(p -> isEmpty(p) || isIncluded(q, p, namespace))
                         .orElse(true))
                 .collect(Collectors.toList());
-        return activeQs;
     }
 
 
+    /**
+     * A predicate which cannot be evaluated is reported against its own question,
+     * which stays active, rather than failing the evaluation of the whole survey.
+     */
+    private static boolean isIncluded(SurveyQuestion q,
+                                      String predicate,
+                                      QuestionBasePredicateNamespace namespace) {
+        try {
+            return evaluate(predicate, namespace);
+        } catch (JexlException e) {
+            LOG.warn("Cannot evaluate inclusion predicate of question: {} ({}), including it. Predicate: '{}', error: {}",
+                    q.id().orElse(null),
+                    q.externalId().orElse(q.questionText()),
+                    predicate,
+                    e.getMessage());
+            return true;
+        }
+    }
 
 }
@@ -0,0 +1,274 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.schema.tables.DataType;
+import org.finos.waltz.schema.tables.DataTypeUsage;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.OrganisationalUnit;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ASSESSMENT_DEFINITION;
+import static org.finos.waltz.schema.Tables.ASSESSMENT_RATING;
+import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE_USAGE;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT_KIND;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.RATING_SCHEME_ITEM;
+
+
+/**
+ * Loads the {@link QuestionPredicateFacts} for a batch of survey subjects.
+ *
+ * The subjects' own attributes are loaded up front.  The other groups of
+ * facts are loaded when a predicate first reads them: the first time any
+ * subject in the batch is asked for, say, its involvements, the involvements
+ * of every subject in the batch are loaded with a single query.  Groups no
+ * predicate reads are never loaded.
+ */
+public class QuestionPredicateFactLoader {
+
+    /**
+     * The groups of facts which are loaded on first use.
+     */
+    enum FactGroup {
+        ORG_UNIT,
+        INVOLVEMENT,
+        ASSESSMENT_RATING,
+        DATA_TYPE_USAGE
+    }
+
+
+    private final DSLContext dsl;
+    private final EntityKind subjectKind;
+    private final Select<Record1<Long>> subjectIdSelector;
+    private final Map<Long, QuestionPredicateFacts> factsBySubjectId = new HashMap<>();
+    private final Set<FactGroup> loadedGroups = ConcurrentHashMap.newKeySet();
+
+
+    private QuestionPredicateFactLoader(DSLContext dsl,
+                                        EntityKind subjectKind,
+                                        Select<Record1<Long>> subjectIdSelector) {
+        this.dsl = dsl;
+        this.subjectKind = subjectKind;
+        this.subjectIdSelector = subjectIdSelector;
+    }
+
+
+    public static Map<Long, QuestionPredicateFacts> load(DSLContext dsl,
+                                                         EntityKind subjectKind,
+                                                         Select<Record1<Long>> subjectIdSelector) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(subjectKind, "subjectKind cannot be null");
+        checkNotNull(subjectIdSelector, "subjectIdSelector cannot be null");
+
+        QuestionPredicateFactLoader loader = new QuestionPredicateFactLoader(dsl, subjectKind, subjectIdSelector);
+        loader.loadSubjects();
+        return Collections.unmodifiableMap(loader.factsBySubjectId);
+    }
+
+
+    /**
+     * Ensures the group of facts has been loaded for every subject in the batch.
+     * Called by the facts before they are read, possibly from several threads.
+     */
+    void require(FactGroup group) {
+        if (loadedGroups.contains(group)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loadedGroups.contains(group)) {
+                return;
+            }
+
+            switch (group) {
+                case ORG_UNIT:
+                    loadOrgUnitAncestors();
+                    break;
+                case INVOLVEMENT:
+                    loadInvolvements();
+                    break;
+                case ASSESSMENT_RATING:
+                    loadAssessmentRatings();
+                    break;
+                case DATA_TYPE_USAGE:
+                    loadDataTypeUsages();
+                    break;
+            }
+
+            // published after the facts are populated, so readers which see the group see its facts
+            loadedGroups.add(group);
+        }
+    }
+
+
+    private void loadSubjects() {
+        switch (subjectKind) {
+            case APPLICATION:
+                LocalDateTime now = nowUtc();
+                dsl.select(APPLICATION.ID,
+                           APPLICATION.KIND,
+                           APPLICATION.LIFECYCLE_PHASE,
+                           APPLICATION.ORGANISATIONAL_UNIT_ID,
+                           APPLICATION.PLANNED_RETIREMENT_DATE,
+                           APPLICATION.ACTUAL_RETIREMENT_DATE)
+                        .from(APPLICATION)
+                        .where(APPLICATION.ID.in(subjectIdSelector))
+                        .forEach(r -> {
+                            QuestionPredicateFacts facts = new QuestionPredicateFacts(this::require);
+                            facts.setKind(r.get(APPLICATION.KIND));
+                            facts.setLifecyclePhase(r.get(APPLICATION.LIFECYCLE_PHASE));
+                            facts.setOrgUnitId(r.get(APPLICATION.ORGANISATIONAL_UNIT_ID));
+                            Timestamp actualRetirement = r.get(APPLICATION.ACTUAL_RETIREMENT_DATE);
+                            facts.setRetiring(r.get(APPLICATION.PLANNED_RETIREMENT_DATE) != null
+                                    && (actualRetirement == null || ! actualRetirement.toLocalDateTime().isBefore(now)));
+                            factsBySubjectId.put(r.get(APPLICATION.ID), facts);
+                        });
+                break;
+            case CHANGE_INITIATIVE:
+                dsl.select(CHANGE_INITIATIVE.ID,
+                           CHANGE_INITIATIVE.LIFECYCLE_PHASE,
+                           CHANGE_INITIATIVE.ORGANISATIONAL_UNIT_ID)
+                        .from(CHANGE_INITIATIVE)
+                        .where(CHANGE_INITIATIVE.ID.in(subjectIdSelector))
+                        .forEach(r -> {
+                            QuestionPredicateFacts facts = new QuestionPredicateFacts(this::require);
+                            facts.setLifecyclePhase(r.get(CHANGE_INITIATIVE.LIFECYCLE_PHASE));
+                            facts.setOrgUnitId(r.get(CHANGE_INITIATIVE.ORGANISATIONAL_UNIT_ID));
+                            factsBySubjectId.put(r.get(CHANGE_INITIATIVE.ID), facts);
+                        });
+                break;
+            default:
+                dsl.fetchValues(subjectIdSelector)
+                        .forEach(id -> factsBySubjectId.put(id, new QuestionPredicateFacts(this::require)));
+        }
+    }
+
+
+    private void loadOrgUnitAncestors() {
+        Map<Long, Set<QuestionPredicateFacts>> factsByOrgUnitId = factsBySubjectId
+                .values()
+                .stream()
+                .filter(f -> f.getOrgUnitId() != null)
+                .collect(Collectors.groupingBy(QuestionPredicateFacts::getOrgUnitId, Collectors.toSet()));
+
+        if (factsByOrgUnitId.isEmpty()) {
+            return;
+        }
+
+        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+        OrganisationalUnit ou = ORGANISATIONAL_UNIT.as("ou");
+
+        dsl.select(eh.ID, ou.NAME, ou.EXTERNAL_ID)
+                .from(eh)
+                .innerJoin(ou).on(ou.ID.eq(eh.ANCESTOR_ID))
+                .where(eh.KIND.eq(EntityKind.ORG_UNIT.name()))
+                .and(eh.ID.in(factsByOrgUnitId.keySet()))
+                .forEach(r -> factsByOrgUnitId
+                        .get(r.get(eh.ID))
+                        .forEach(f -> f.addOrgUnitAncestor(r.get(ou.NAME), r.get(ou.EXTERNAL_ID))));
+    }
+
+
+    private void loadInvolvements() {
+        dsl.selectDistinct(INVOLVEMENT.ENTITY_ID, INVOLVEMENT_KIND.NAME)
+                .from(INVOLVEMENT)
+                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
+                .where(INVOLVEMENT.ENTITY_KIND.eq(subjectKind.name()))
+                .and(INVOLVEMENT.ENTITY_ID.in(subjectIdSelector))
+                .forEach(r -> withFacts(
+                        r.get(INVOLVEMENT.ENTITY_ID),
+                        f -> f.addInvolvementKind(r.get(INVOLVEMENT_KIND.NAME))));
+    }
+
+
+    private void loadAssessmentRatings() {
+        dsl.select(ASSESSMENT_RATING.ENTITY_ID,
+                   ASSESSMENT_DEFINITION.NAME,
+                   ASSESSMENT_DEFINITION.EXTERNAL_ID,
+                   RATING_SCHEME_ITEM.CODE)
+                .from(ASSESSMENT_RATING)
+                .innerJoin(ASSESSMENT_DEFINITION).on(ASSESSMENT_DEFINITION.ID.eq(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID))
+                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
+                .where(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectKind.name()))
+                .and(ASSESSMENT_RATING.ENTITY_ID.in(subjectIdSelector))
+                .orderBy(RATING_SCHEME_ITEM.POSITION, RATING_SCHEME_ITEM.NAME)
+                .forEach(r -> withFacts(
+                        r.get(ASSESSMENT_RATING.ENTITY_ID),
+                        f -> f.addAssessmentRating(
+                                r.get(ASSESSMENT_DEFINITION.NAME),
+                                r.get(ASSESSMENT_DEFINITION.EXTERNAL_ID),
+                                r.get(RATING_SCHEME_ITEM.CODE))));
+    }
+
+
+    private void loadDataTypeUsages() {
+        DataTypeUsage dtu = DATA_TYPE_USAGE.as("dtu");
+        DataType dt = DATA_TYPE.as("dt");
+        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+
+        dsl.selectDistinct(dtu.ENTITY_ID, dtu.USAGE_KIND, dt.NAME, dt.CODE)
+                .from(dtu)
+                .innerJoin(eh).on(eh.ID.eq(dtu.DATA_TYPE_ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
+                .innerJoin(dt).on(dt.ID.eq(eh.ANCESTOR_ID))
+                .where(dtu.ENTITY_KIND.eq(subjectKind.name()))
+                .and(dtu.ENTITY_ID.in(subjectIdSelector))
+                .forEach(r -> withFacts(
+                        r.get(dtu.ENTITY_ID),
+                        f -> f.addDataTypeUsage(
+                                r.get(dt.NAME),
+                                r.get(dt.CODE),
+                                r.get(dtu.USAGE_KIND))));
+    }
+
+
+    /**
+     * The batch's subjects are fixed once evaluation starts, facts for any other
+     * entity (e.g. a since removed application) are ignored.
+     */
+    private void withFacts(Long subjectId,
+                           Consumer<QuestionPredicateFacts> populator) {
+        QuestionPredicateFacts facts = factsBySubjectId.get(subjectId);
+        if (facts != null) {
+            populator.accept(facts);
+        }
+    }
+
+}
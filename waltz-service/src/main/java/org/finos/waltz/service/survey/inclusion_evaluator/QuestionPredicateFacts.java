@@ -0,0 +1,168 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.finos.waltz.common.StringUtilities.lower;
+
+/**
+ * The facts about a single survey subject which may be referred to by
+ * question inclusion predicates.  Instances are populated, for a batch of
+ * subjects, by the {@link QuestionPredicateFactLoader} so that predicate
+ * evaluation does not need to go back to the database for each subject.
+ * Before a group of facts is read the loader is asked to ensure it has
+ * been loaded.
+ */
+public class QuestionPredicateFacts {
+
+    private final Consumer<QuestionPredicateFactLoader.FactGroup> factLoader;
+
+    private String kind;
+    private String lifecyclePhase;
+    private boolean retiring;
+    private Long orgUnitId;
+    private final Set<String> orgUnitAncestorIdentifiers = new HashSet<>();
+    private final Set<String> involvementKindNames = new HashSet<>();
+    private final Map<String, String> assessmentRatingCodesByDefinitionIdentifier = new HashMap<>();
+    private final Map<String, Set<String>> dataTypeUsageKindsByDataTypeIdentifier = new HashMap<>();
+
+
+    public QuestionPredicateFacts() {
+        this(group -> {});
+    }
+
+
+    QuestionPredicateFacts(Consumer<QuestionPredicateFactLoader.FactGroup> factLoader) {
+        this.factLoader = factLoader;
+    }
+
+
+    public boolean isKind(String name) {
+        return name != null && name.equals(kind);
+    }
+
+
+    public boolean hasLifecyclePhase(String name) {
+        return name != null && name.equals(lifecyclePhase);
+    }
+
+
+    public boolean isRetiring() {
+        return retiring;
+    }
+
+
+    /**
+     * @param name  name or external id of an org unit
+     * @return true if the subject belongs to the given org unit or one of its descendants
+     */
+    public boolean belongsToOrgUnit(String name) {
+        factLoader.accept(QuestionPredicateFactLoader.FactGroup.ORG_UNIT);
+        return orgUnitAncestorIdentifiers.contains(name);
+    }
+
+
+    public boolean hasInvolvement(String name) {
+        factLoader.accept(QuestionPredicateFactLoader.FactGroup.INVOLVEMENT);
+        return name != null && involvementKindNames.contains(lower(name));
+    }
+
+
+    /**
+     * @param name  name or external id of an assessment definition
+     * @return the rating code, or null if the subject has no rating for the definition
+     */
+    public String assessmentRating(String name) {
+        factLoader.accept(QuestionPredicateFactLoader.FactGroup.ASSESSMENT_RATING);
+        return assessmentRatingCodesByDefinitionIdentifier.get(name);
+    }
+
+
+    /**
+     * @param name  name or code of a data type, usages of descendant data types are included
+     * @return the usage kinds the subject has against the data type
+     */
+    public Set<String> dataTypeUsages(String name) {
+        factLoader.accept(QuestionPredicateFactLoader.FactGroup.DATA_TYPE_USAGE);
+        return dataTypeUsageKindsByDataTypeIdentifier.getOrDefault(name, Collections.emptySet());
+    }
+
+
+    // --- population (see QuestionPredicateFactLoader) ---
+
+    void setKind(String kind) {
+        this.kind = kind;
+    }
+
+
+    void setLifecyclePhase(String lifecyclePhase) {
+        this.lifecyclePhase = lifecyclePhase;
+    }
+
+
+    void setRetiring(boolean retiring) {
+        this.retiring = retiring;
+    }
+
+
+    Long getOrgUnitId() {
+        return orgUnitId;
+    }
+
+
+    void setOrgUnitId(Long orgUnitId) {
+        this.orgUnitId = orgUnitId;
+    }
+
+
+    void addOrgUnitAncestor(String name, String externalId) {
+        orgUnitAncestorIdentifiers.add(name);
+        if (externalId != null) {
+            orgUnitAncestorIdentifiers.add(externalId);
+        }
+    }
+
+
+    void addInvolvementKind(String name) {
+        involvementKindNames.add(lower(name));
+    }
+
+
+    void addAssessmentRating(String definitionName, String definitionExternalId, String ratingCode) {
+        assessmentRatingCodesByDefinitionIdentifier.putIfAbsent(definitionName, ratingCode);
+        if (definitionExternalId != null) {
+            assessmentRatingCodesByDefinitionIdentifier.putIfAbsent(definitionExternalId, ratingCode);
+        }
+    }
+
+
+    void addDataTypeUsage(String dataTypeName, String dataTypeCode, String usageKind) {
+        dataTypeUsageKindsByDataTypeIdentifier.computeIfAbsent(dataTypeName, k -> new HashSet<>()).add(usageKind);
+        if (dataTypeCode != null) {
+            dataTypeUsageKindsByDataTypeIdentifier.computeIfAbsent(dataTypeCode, k -> new HashSet<>()).add(usageKind);
+        }
+    }
+}
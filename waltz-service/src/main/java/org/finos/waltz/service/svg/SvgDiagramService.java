@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.svg;
 
+import org.finos.waltz.common.DigestUtilities;
 import org.finos.waltz.common.SvgUtilities;
 import org.finos.waltz.data.svg.SvgDiagramDao;
 import org.finos.waltz.model.svg.ImmutableSvgDiagram;
@@ -25,81 +26,133 @@ import org.finos.waltz.model.svg.SvgDiagram;
 import org.jooq.lambda.Unchecked;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.util.stream.Collectors.toList;
-
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Product specific (e.g. Visio) diagrams are converted before being handed
+ * to the UI.  Conversion of large diagrams is expensive, so the result is
+ * cached per diagram along with a hash of the content it was derived from.
+ * A diagram is therefore only re-converted when its content (or key
+ * property) changes.  Saving a diagram converts it eagerly.
+ */
 @Service
 public class SvgDiagramService {
 
     private final SvgDiagramDao svgDiagramDao;
 
+    private final ConcurrentMap<Long, ConvertedSvg> convertedSvgsByDiagramId = new ConcurrentHashMap<>();
+
+
+    private static class ConvertedSvg {
+        private final String contentHash;
+        private final String svg;
+
+        private ConvertedSvg(String contentHash, String svg) {
+            this.contentHash = contentHash;
+            this.svg = svg;
+        }
+    }
+
 
     @Autowired
     public SvgDiagramService(SvgDiagramDao svgDiagramDao) {
+        checkNotNull(svgDiagramDao, "svgDiagramDao cannot be null");
         this.svgDiagramDao = svgDiagramDao;
     }
 
 
     public SvgDiagram getById(long id) {
         SvgDiagram diagram = svgDiagramDao.getById(id);
-        return Unchecked.supplier(() -> {
-            String updatedSvg = convertProductSpecificSvg(diagram);
-            return ImmutableSvgDiagram.copyOf(diagram)
-                    .withSvg(updatedSvg);
-        }).get();
+        return diagram == null
+                ? null
+                : withConvertedSvg(diagram);
     }
 
 
     public Collection<SvgDiagram> findByGroups(String... groups) {
-        return svgDiagramDao.findByGroups(groups)
-                .stream()
-                .map(Unchecked.function(diagram -> {
-                    String updatedSvg = convertProductSpecificSvg(diagram);
-                    return ImmutableSvgDiagram.copyOf(diagram)
-                            .withSvg(updatedSvg);
-                }))
+        List<SvgDiagram> diagrams = svgDiagramDao.findByGroups(groups);
+
+        // conversion is cpu bound, so large groups are converted in parallel on first load
+        return diagrams
+                .parallelStream()
+                .map(this::withConvertedSvg)
                 .collect(toList());
     }
 
 
-    private String convertProductSpecificSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
-        switch (diagram.product()) {
-            case "visio":
-                return convertVisioSvg(diagram);
-            default:
-                return diagram.svg();
-        }
+    public Set<SvgDiagram> findAll() {
+        return svgDiagramDao.findAll();
     }
 
 
-    private String convertVisioSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
-        String key = diagram.keyProperty();
-        String svgStr = diagram.svg();
+    public Boolean remove(long id) {
+        convertedSvgsByDiagramId.remove(id);
+        return svgDiagramDao.remove(id);
+    }
+
 
-        return SvgUtilities.convertVisioSvg(key, svgStr);
+    public Boolean save(SvgDiagram diagram) {
+        Optional<Long> savedId = svgDiagramDao.save(diagram);
+        savedId.ifPresent(id -> withConvertedSvg(ImmutableSvgDiagram
+                .copyOf(diagram)
+                .withId(id)));
+        return savedId.isPresent();
     }
 
 
-    public Set<SvgDiagram> findAll() {
-        return svgDiagramDao.findAll();
+    // -- helpers --
+
+    private SvgDiagram withConvertedSvg(SvgDiagram diagram) {
+        String contentHash = mkContentHash(diagram);
+
+        ConvertedSvg converted = diagram
+                .id()
+                .map(convertedSvgsByDiagramId::get)
+                .filter(c -> c.contentHash.equals(contentHash))
+                .orElseGet(() -> {
+                    ConvertedSvg c = new ConvertedSvg(contentHash, convertProductSpecificSvg(diagram));
+                    diagram.id().ifPresent(id -> convertedSvgsByDiagramId.put(id, c));
+                    return c;
+                });
+
+        return ImmutableSvgDiagram
+                .copyOf(diagram)
+                .withSvg(converted.svg);
     }
 
 
-    public Boolean remove(long id) {
-        return svgDiagramDao.remove(id);
+    private static String mkContentHash(SvgDiagram diagram) {
+        String content = String.join(
+                "\n",
+                diagram.product(),
+                diagram.keyProperty(),
+                diagram.svg());
+
+        return Unchecked
+                .supplier(() -> DigestUtilities.digest(content.getBytes(StandardCharsets.UTF_8)))
+                .get();
     }
 
 
-    public Boolean save(SvgDiagram diagram) {
-        return svgDiagramDao.save(diagram);
+    private static String convertProductSpecificSvg(SvgDiagram diagram) {
+        switch (diagram.product()) {
+            case "visio":
+                return Unchecked
+                        .supplier(() -> SvgUtilities.convertVisioSvg(diagram.keyProperty(), diagram.svg()))
+                        .get();
+            default:
+                return diagram.svg();
+        }
     }
 
-}
\ No newline at end of file
+}
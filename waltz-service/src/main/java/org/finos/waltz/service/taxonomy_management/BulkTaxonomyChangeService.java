@@ -20,7 +20,6 @@ package org.finos.waltz.service.taxonomy_management;
 
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.StringUtilities;
-import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
@@ -28,14 +27,12 @@ import org.finos.waltz.model.bulk_upload.BulkUpdateMode;
 import org.finos.waltz.model.bulk_upload.ChangeOperation;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyApplyResult;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyItem;
-import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyParseResult;
+import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyParseResult.BulkTaxonomyParseError;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidatedItem;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidationResult;
 import org.finos.waltz.model.bulk_upload.taxonomy.ChangedFieldType;
 import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyApplyResult;
-import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyValidatedItem;
 import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyValidationResult;
-import org.finos.waltz.model.bulk_upload.taxonomy.ValidationError;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.measurable_category.MeasurableCategory;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangeLifecycleStatus;
@@ -49,6 +46,7 @@ import org.finos.waltz.service.taxonomy_management.BulkTaxonomyItemParser.InputF
 import org.finos.waltz.service.user.UserRoleService;
 import org.jooq.DSLContext;
 import org.jooq.DeleteConditionStep;
+import org.jooq.Field;
 import org.jooq.UpdateConditionStep;
 import org.jooq.UpdateSetStep;
 import org.jooq.impl.DSL;
@@ -58,6 +56,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.StringReader;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.HashSet;
@@ -70,20 +69,11 @@ import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptySet;
-import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.MapUtilities.countBy;
-import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
-import static org.finos.waltz.common.SetUtilities.compact;
-import static org.finos.waltz.common.SetUtilities.filter;
-import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.common.StringUtilities.limit;
-import static org.finos.waltz.common.StringUtilities.mkSafe;
-import static org.finos.waltz.common.StringUtilities.safeEq;
-import static org.finos.waltz.common.hierarchy.HierarchyUtilities.hasCycle;
-import static org.finos.waltz.common.hierarchy.HierarchyUtilities.toForest;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
 import static org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities.verifyUserHasPermissions;
@@ -136,81 +126,38 @@ public class BulkTaxonomyChangeService {
                 taxonomyRef.id(),
                 asSet(EntityLifecycleStatus.values()));
 
-        Map<String, Measurable> existingByExtId = indexBy(existingMeasurables, m -> m.externalId().orElse(null));
-
         LOG.debug(
                 "category: {} = {}({})",
                 taxonomyRef,
                 category.name(),
                 category.externalId());
 
-        BulkTaxonomyParseResult result = new BulkTaxonomyItemParser().parse(inputStr, format);
-
-        if (result.error() != null) {
-            return ImmutableBulkTaxonomyValidationResult
-                    .builder()
-                    .error(result.error())
-                    .build();
-        }
-
-        Map<String, BulkTaxonomyItem> givenByExtId = indexBy(result.parsedItems(), BulkTaxonomyItem::externalId);
-        Set<String> allExtIds = union(existingByExtId.keySet(), givenByExtId.keySet());
-
          /*
           Validation checks:
 
           - unique external ids
           - all parent external id's exist either in file or in existing taxonomy
-          - check for cycles by converting to forest
+          - check new or moved items for cycles
           - do a diff to determine
               - new
               - removed, if mode == replace
               - updated, match on external id
          */
 
-        Map<String, Long> countByExtId = countBy(result.parsedItems(), BulkTaxonomyItem::externalId);
-
-        Boolean hasCycle = determineIfTreeHasCycle(existingMeasurables, result);
+        BulkTaxonomyValidator validator = new BulkTaxonomyValidator(existingMeasurables);
 
-        List<BulkTaxonomyValidatedItem> validatedItems = result
-                .parsedItems()
-                .stream()
-                .map(d -> tuple(
-                        d,
-                        existingByExtId.get(d.externalId())))  // => (parsedItem, existingItem?)
-                .map(t -> {
-                    Tuple2<ChangeOperation, Set<ChangedFieldType>> op = determineOperation(t.v1, t.v2);
-                    boolean isUnique = countByExtId.get(t.v1.externalId()) == 1;
-                    boolean parentExists = StringUtilities.isEmpty(t.v1.parentExternalId())
-                            || allExtIds.contains(t.v1.parentExternalId());
-                    boolean isCyclical = hasCycle;
-                    boolean isExternalIdEmpty = t.v1.externalId().isEmpty();
-                    return ImmutableBulkTaxonomyValidatedItem
-                            .builder()
-                            .parsedItem(t.v1)
-                            .changedFields(op.v2)
-                            .changeOperation(op.v1)
-                            .existingItemReference(ofNullable(t.v2)
-                                    .map(Measurable::entityReference)
-                                    .orElse(null))
-                            .errors(compact(
-                                    isUnique ? null : ValidationError.DUPLICATE_EXT_ID,
-                                    parentExists ? null : ValidationError.PARENT_NOT_FOUND,
-                                    isCyclical ? ValidationError.CYCLE_DETECTED : null,
-                                    isExternalIdEmpty ? ValidationError.EMPTY_EXTERNAL_ID_FOUND : null))
-                            .build();
-                })
-                .collect(Collectors.toList());
+        BulkTaxonomyParseError parseError = isEmpty(inputStr)
+                ? new BulkTaxonomyItemParser().parse(inputStr, format).error()
+                : new BulkTaxonomyItemParser().parse(new StringReader(inputStr), format, validator);
 
-        Set<Measurable> toRemove = mode == BulkUpdateMode.ADD_ONLY
-                ? emptySet()
-                : filter(existingMeasurables, m -> ! givenByExtId.containsKey(m.externalId().get()));
+        if (parseError != null) {
+            return ImmutableBulkTaxonomyValidationResult
+                    .builder()
+                    .error(parseError)
+                    .build();
+        }
 
-        return ImmutableBulkTaxonomyValidationResult
-                .builder()
-                .plannedRemovals(toRemove)
-                .validatedItems(validatedItems)
-                .build();
+        return validator.validate(mode);
     }
 
 
@@ -297,6 +244,10 @@ public class BulkTaxonomyChangeService {
 
         boolean requiresRebuild = requiresHierarchyRebuild(bulkRequest.validatedItems());
 
+        // only added items and items whose parent has changed need their hierarchy entries rebuilt
+        Set<String> addedExtIds = map(toAdd, MeasurableRecord::getExternalId);
+        Set<Long> affectedIds = new HashSet<>();
+
         BulkTaxonomyApplyResult changeResult = dsl
             .transactionResult(ctx -> {
                 DSLContext tx = ctx.dsl();
@@ -312,8 +263,10 @@ public class BulkTaxonomyChangeService {
                 LOG.debug("Added {} new change record entries", insertedChangeRecordCount);
 
                 if (requiresRebuild) {
-                    int updatedParents = updateParentIdsFromExternalIds(tx, taxonomyRef.id());
-                    LOG.debug("Updated parents: {}", updatedParents);
+                    Set<Long> reparentedIds = updateParentIdsFromExternalIds(tx, taxonomyRef.id());
+                    LOG.debug("Updated parents: {}", reparentedIds.size());
+                    affectedIds.addAll(reparentedIds);
+                    affectedIds.addAll(findIdsByExternalIds(tx, taxonomyRef.id(), addedExtIds));
                 }
 
                 return ImmutableBulkTaxonomyApplyResult
@@ -328,7 +281,7 @@ public class BulkTaxonomyChangeService {
 
         LOG.debug("Result of apply changes: {}", changeResult);
         if (requiresRebuild) {
-            int entriesCreated = entityHierarchyService.buildForMeasurableByCategory(taxonomyRef.id());
+            int entriesCreated = entityHierarchyService.buildForMeasurableSubtrees(taxonomyRef.id(), affectedIds);
             LOG.debug("Recreated hierarchy with {} new entries", entriesCreated);
         }
 
@@ -456,21 +409,53 @@ public class BulkTaxonomyChangeService {
 
     /**
      * This is achieved by doing a self join on the measurable table to find any matching parent and updating
-     * the child parent_id with the matching parent's id
+     * the child parent_id with the matching parent's id.  Only rows whose parent_id actually changes are
+     * updated, the ids of those rows are returned so the hierarchy can be rebuilt for just those subtrees.
      */
-    private int updateParentIdsFromExternalIds(DSLContext tx,
-                                               long categoryId) {
+    private Set<Long> updateParentIdsFromExternalIds(DSLContext tx,
+                                                     long categoryId) {
         org.finos.waltz.schema.tables.Measurable parent = MEASURABLE.as("p");
 
-        return tx
-                .update(MEASURABLE)
-                .set(MEASURABLE.PARENT_ID, DSL
-                        .select(parent.ID)
-                        .from(parent)
-                        .where(parent.EXTERNAL_ID.eq(MEASURABLE.EXTERNAL_PARENT_ID)
-                                .and(parent.MEASURABLE_CATEGORY_ID.eq(categoryId))))
+        Field<Long> resolvedParentId = DSL
+                .select(parent.ID)
+                .from(parent)
+                .where(parent.EXTERNAL_ID.eq(MEASURABLE.EXTERNAL_PARENT_ID)
+                        .and(parent.MEASURABLE_CATEGORY_ID.eq(categoryId)))
+                .asField();
+
+        Set<Long> changedIds = tx
+                .select(MEASURABLE.ID)
+                .from(MEASURABLE)
                 .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))
+                .and(MEASURABLE.PARENT_ID.isDistinctFrom(resolvedParentId))
+                .fetchSet(MEASURABLE.ID);
+
+        if (changedIds.isEmpty()) {
+            return changedIds;
+        }
+
+        tx.update(MEASURABLE)
+                .set(MEASURABLE.PARENT_ID, resolvedParentId)
+                .where(MEASURABLE.ID.in(changedIds))
                 .execute();
+
+        return changedIds;
+    }
+
+
+    private Set<Long> findIdsByExternalIds(DSLContext tx,
+                                           long categoryId,
+                                           Set<String> externalIds) {
+        if (externalIds.isEmpty()) {
+            return emptySet();
+        }
+
+        return tx
+                .select(MEASURABLE.ID)
+                .from(MEASURABLE)
+                .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))
+                .and(MEASURABLE.EXTERNAL_ID.in(externalIds))
+                .fetchSet(MEASURABLE.ID);
     }
 
 
@@ -493,50 +478,4 @@ public class BulkTaxonomyChangeService {
                 .anyMatch(requiresRebuild);
     }
 
-
-    private boolean determineIfTreeHasCycle(List<Measurable> existingMeasurables,
-                               BulkTaxonomyParseResult result) {
-        return Stream
-                .concat(
-                        existingMeasurables.stream().map(d -> new FlatNode<String, String>(
-                                d.externalId().orElse(null),
-                                d.externalParentId(),
-                                null)),
-                        result.parsedItems().stream().map(d -> new FlatNode<String, String>(
-                                d.externalId(),
-                                ofNullable(d.parentExternalId()),
-                                null)))
-                .collect(Collectors.collectingAndThen(toList(), xs -> hasCycle(toForest(xs))));
-    }
-
-
-    private Tuple2<ChangeOperation, Set<ChangedFieldType>> determineOperation(BulkTaxonomyItem requiredItem,
-                                                                              Measurable existingItem) {
-        if (existingItem == null) {
-            return tuple(ChangeOperation.ADD, emptySet());
-        }
-
-        boolean isRestore = existingItem.entityLifecycleStatus() != EntityLifecycleStatus.ACTIVE;
-        boolean nameMatches = safeEq(requiredItem.name(), existingItem.name());
-        boolean descMatches = safeEq(requiredItem.description(), existingItem.description());
-        boolean parentExtIdMatches = safeEq(mkSafe(requiredItem.parentExternalId()), mkSafe(existingItem.externalParentId().orElse(null)));
-        boolean concreteMatches = requiredItem.concrete() == existingItem.concrete();
-
-        Set<ChangedFieldType> changedFields = new HashSet<>();
-        if (!nameMatches) { changedFields.add(ChangedFieldType.NAME); }
-        if (!descMatches) { changedFields.add(ChangedFieldType.DESCRIPTION); }
-        if (!parentExtIdMatches) { changedFields.add(ChangedFieldType.PARENT_EXTERNAL_ID); }
-        if (!concreteMatches) { changedFields.add(ChangedFieldType.CONCRETE); }
-
-        ChangeOperation op = isRestore
-                ? ChangeOperation.RESTORE
-                : changedFields.isEmpty()
-                    ? ChangeOperation.NONE
-                    : ChangeOperation.UPDATE;
-
-        return tuple(op, changedFields);
-
-    }
-
-
 }
@@ -2,19 +2,22 @@ package org.finos.waltz.service.taxonomy_management;
 
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvParser;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
-import org.finos.waltz.common.StreamUtilities;
-import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyItem;
 import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyParseResult;
+import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyParseResult.BulkTaxonomyParseError;
 import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyParseError;
 import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyParseResult;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
@@ -33,73 +36,70 @@ public class BulkTaxonomyItemParser {
             return handleEmptyInput(input);
         }
 
-        try {
-            switch (format) {
-                case CSV:
-                    return parseCSV(clean(input));
-                case TSV:
-                    return parseTSV(clean(input));
-                case JSON:
-                    return parseJSON(input);
-                default:
-                    throw new IllegalArgumentException(format("Unknown format: %s", format));
-            }
-        } catch (IOException e) {
+        List<BulkTaxonomyItem> items = new ArrayList<>();
+        BulkTaxonomyParseError error = parse(new StringReader(input), format, items::add);
+
+        if (error != null) {
             return ImmutableBulkTaxonomyParseResult
                     .builder()
                     .input(input)
-                    .error(ImmutableBulkTaxonomyParseError
-                            .builder()
-                            .message(e.getMessage())
-                            .build())
+                    .error(error)
                     .build();
         }
-    }
-
-
-    private String clean(String input) {
-        return StreamUtilities
-                .lines(input)
-                .filter(StringUtilities::isDefined)
-                .filter(line -> ! line.startsWith("#"))
-                .collect(Collectors.joining("\n"));
-    }
-
-
-    private BulkTaxonomyParseResult parseJSON(String input) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        MappingIterator<BulkTaxonomyItem> items = mapper
-                .readerFor(BulkTaxonomyItem.class)
-                .readValues(input);
 
-        return BulkTaxonomyParseResult.mkResult(
-                items.readAll(),
-                input);
+        return BulkTaxonomyParseResult.mkResult(items, input);
     }
 
 
-    private BulkTaxonomyParseResult parseCSV(String input) throws IOException {
-        List<BulkTaxonomyItem> items = attemptToParseDelimited(input, configureCSVSchema());
-        return BulkTaxonomyParseResult.mkResult(items, input);
+    /**
+     * Parses the input one item at a time, handing each item to the consumer as
+     * soon as it has been read so callers need not hold the full item list.
+     * Blank lines and lines starting with a '#' are ignored in delimited input.
+     *
+     * @param input    the items, in the given format
+     * @param format   format of the input
+     * @param consumer called with each item, in input order
+     * @return null if all items were parsed, otherwise details of the parse failure
+     */
+    public BulkTaxonomyParseError parse(Reader input,
+                                        InputFormat format,
+                                        Consumer<BulkTaxonomyItem> consumer) {
+        try (MappingIterator<BulkTaxonomyItem> items = mkReader(format).readValues(input)) {
+            while (items.hasNextValue()) {
+                consumer.accept(items.nextValue());
+            }
+            return null;
+        } catch (IOException e) {
+            return ImmutableBulkTaxonomyParseError
+                    .builder()
+                    .message(e.getMessage())
+                    .build();
+        }
     }
 
 
-    private BulkTaxonomyParseResult parseTSV(String input) throws IOException {
-        List<BulkTaxonomyItem> items = attemptToParseDelimited(input, configureTSVSchema());
-        return BulkTaxonomyParseResult.mkResult(items, input);
+    private ObjectReader mkReader(InputFormat format) {
+        switch (format) {
+            case CSV:
+                return mkDelimitedReader(configureCSVSchema());
+            case TSV:
+                return mkDelimitedReader(configureTSVSchema());
+            case JSON:
+                return new ObjectMapper().readerFor(BulkTaxonomyItem.class);
+            default:
+                throw new IllegalArgumentException(format("Unknown format: %s", format));
+        }
     }
 
 
-    private List<BulkTaxonomyItem> attemptToParseDelimited(String input,
-                                                        CsvSchema bootstrapSchema) throws IOException {
+    private ObjectReader mkDelimitedReader(CsvSchema bootstrapSchema) {
         CsvMapper mapper = new CsvMapper();
         mapper.enable(CsvParser.Feature.TRIM_SPACES);
-        MappingIterator<BulkTaxonomyItem> items = mapper
+        mapper.enable(CsvParser.Feature.SKIP_EMPTY_LINES);
+        mapper.enable(CsvParser.Feature.ALLOW_COMMENTS);
+        return mapper
                 .readerFor(BulkTaxonomyItem.class)
-                .with(bootstrapSchema)
-                .readValues(input);
-
-        return items.readAll();
+                .with(bootstrapSchema);
     }
 
 
@@ -0,0 +1,226 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.taxonomy_management;
+
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.bulk_upload.BulkUpdateMode;
+import org.finos.waltz.model.bulk_upload.ChangeOperation;
+import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyItem;
+import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidatedItem;
+import org.finos.waltz.model.bulk_upload.taxonomy.BulkTaxonomyValidationResult;
+import org.finos.waltz.model.bulk_upload.taxonomy.ChangedFieldType;
+import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyValidatedItem;
+import org.finos.waltz.model.bulk_upload.taxonomy.ImmutableBulkTaxonomyValidationResult;
+import org.finos.waltz.model.bulk_upload.taxonomy.ValidationError;
+import org.finos.waltz.model.measurable.Measurable;
+import org.jooq.lambda.tuple.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.util.Collections.emptySet;
+import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.compact;
+import static org.finos.waltz.common.SetUtilities.filter;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
+import static org.finos.waltz.common.StringUtilities.mkSafe;
+import static org.finos.waltz.common.StringUtilities.safeEq;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Validates a stream of bulk taxonomy items against a snapshot of the
+ * existing measurables in a category.
+ *
+ * Items are handed to {@link #accept(BulkTaxonomyItem)} as they are parsed,
+ * only lightweight indexes (ext id counts and given parents) are maintained
+ * alongside them.  Cycle detection is incremental: only items which are new
+ * or which change their parent can introduce a cycle, so only the ancestor
+ * chains of those items are walked.  Each walk is memoised, so the overall
+ * cost is linear in the number of items rather than requiring the whole
+ * category to be rebuilt as a forest.
+ */
+class BulkTaxonomyValidator implements Consumer<BulkTaxonomyItem> {
+
+    private final Collection<Measurable> existingMeasurables;
+    private final Map<String, Measurable> existingByExtId = new HashMap<>();
+
+    private final List<BulkTaxonomyItem> items = new ArrayList<>();
+    private final Map<String, Integer> countByExtId = new HashMap<>();
+    private final Map<String, String> givenParentByExtId = new HashMap<>();  // first occurrence wins, value may be null
+
+
+    BulkTaxonomyValidator(Collection<Measurable> existingMeasurables) {
+        checkNotNull(existingMeasurables, "existingMeasurables cannot be null");
+        this.existingMeasurables = existingMeasurables;
+        existingMeasurables.forEach(m -> m
+                .externalId()
+                .ifPresent(extId -> existingByExtId.put(extId, m)));
+    }
+
+
+    @Override
+    public void accept(BulkTaxonomyItem item) {
+        items.add(item);
+        countByExtId.merge(item.externalId(), 1, Integer::sum);
+        if (! givenParentByExtId.containsKey(item.externalId())) {
+            givenParentByExtId.put(item.externalId(), item.parentExternalId());
+        }
+    }
+
+
+    BulkTaxonomyValidationResult validate(BulkUpdateMode mode) {
+        Map<String, Boolean> reachesRootByExtId = new HashMap<>();
+
+        List<BulkTaxonomyValidatedItem> validatedItems = items
+                .stream()
+                .map(item -> {
+                    Measurable existing = existingByExtId.get(item.externalId());
+                    Tuple2<ChangeOperation, Set<ChangedFieldType>> op = determineOperation(item, existing);
+
+                    boolean isUnique = countByExtId.get(item.externalId()) == 1;
+                    boolean parentExists = isEmpty(item.parentExternalId()) || isKnown(item.parentExternalId());
+                    boolean mayIntroduceCycle = existing == null || op.v2.contains(ChangedFieldType.PARENT_EXTERNAL_ID);
+                    boolean isCyclical = mayIntroduceCycle && ! reachesRoot(item.externalId(), reachesRootByExtId);
+                    boolean isExternalIdEmpty = item.externalId().isEmpty();
+
+                    return ImmutableBulkTaxonomyValidatedItem
+                            .builder()
+                            .parsedItem(item)
+                            .changedFields(op.v2)
+                            .changeOperation(op.v1)
+                            .existingItemReference(ofNullable(existing)
+                                    .map(Measurable::entityReference)
+                                    .orElse(null))
+                            .errors(compact(
+                                    isUnique ? null : ValidationError.DUPLICATE_EXT_ID,
+                                    parentExists ? null : ValidationError.PARENT_NOT_FOUND,
+                                    isCyclical ? ValidationError.CYCLE_DETECTED : null,
+                                    isExternalIdEmpty ? ValidationError.EMPTY_EXTERNAL_ID_FOUND : null))
+                            .build();
+                })
+                .collect(toList());
+
+        Set<Measurable> toRemove = mode == BulkUpdateMode.ADD_ONLY
+                ? emptySet()
+                : filter(existingMeasurables, m -> ! givenParentByExtId.containsKey(m.externalId().orElse(null)));
+
+        return ImmutableBulkTaxonomyValidationResult
+                .builder()
+                .plannedRemovals(toRemove)
+                .validatedItems(validatedItems)
+                .build();
+    }
+
+
+    // --- HELPERS ----
+
+    private boolean isKnown(String extId) {
+        return givenParentByExtId.containsKey(extId) || existingByExtId.containsKey(extId);
+    }
+
+
+    /**
+     * The parent an item will have once the changes are applied, given items
+     * take precedence over the existing taxonomy.
+     */
+    private String effectiveParent(String extId) {
+        if (givenParentByExtId.containsKey(extId)) {
+            return givenParentByExtId.get(extId);
+        } else {
+            Measurable existing = existingByExtId.get(extId);
+            return existing == null
+                    ? null
+                    : existing.externalParentId().orElse(null);
+        }
+    }
+
+
+    /**
+     * Walks up the effective parent chain until a root (or an unknown parent,
+     * which is reported separately) is found, or the walk revisits a node.
+     * The outcome is recorded against every node on the walked path so later
+     * walks stop as soon as they reach a previously visited node.
+     */
+    private boolean reachesRoot(String extId,
+                                Map<String, Boolean> reachesRootByExtId) {
+        Set<String> path = new HashSet<>();
+        String current = extId;
+        boolean result;
+
+        while (true) {
+            Boolean known = reachesRootByExtId.get(current);
+            if (known != null) {
+                result = known;
+                break;
+            }
+            if (isEmpty(current) || ! isKnown(current)) {
+                result = true;
+                break;
+            }
+            if (! path.add(current)) {
+                result = false;
+                break;
+            }
+            current = effectiveParent(current);
+        }
+
+        for (String node : path) {
+            reachesRootByExtId.put(node, result);
+        }
+
+        return result;
+    }
+
+
+    static Tuple2<ChangeOperation, Set<ChangedFieldType>> determineOperation(BulkTaxonomyItem requiredItem,
+                                                                             Measurable existingItem) {
+        if (existingItem == null) {
+            return tuple(ChangeOperation.ADD, emptySet());
+        }
+
+        boolean isRestore = existingItem.entityLifecycleStatus() != EntityLifecycleStatus.ACTIVE;
+        boolean nameMatches = safeEq(requiredItem.name(), existingItem.name());
+        boolean descMatches = safeEq(requiredItem.description(), existingItem.description());
+        boolean parentExtIdMatches = safeEq(mkSafe(requiredItem.parentExternalId()), mkSafe(existingItem.externalParentId().orElse(null)));
+        boolean concreteMatches = requiredItem.concrete() == existingItem.concrete();
+
+        Set<ChangedFieldType> changedFields = new HashSet<>();
+        if (!nameMatches) { changedFields.add(ChangedFieldType.NAME); }
+        if (!descMatches) { changedFields.add(ChangedFieldType.DESCRIPTION); }
+        if (!parentExtIdMatches) { changedFields.add(ChangedFieldType.PARENT_EXTERNAL_ID); }
+        if (!concreteMatches) { changedFields.add(ChangedFieldType.CONCRETE); }
+
+        ChangeOperation op = isRestore
+                ? ChangeOperation.RESTORE
+                : changedFields.isEmpty()
+                    ? ChangeOperation.NONE
+                    : ChangeOperation.UPDATE;
+
+        return tuple(op, changedFields);
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.finos.waltz.service.bulk_upload;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.finos.waltz.model.bulk_upload.measurable_rating.BulkMeasurableRatingItem;
+import org.finos.waltz.model.bulk_upload.measurable_rating.BulkMeasurableRatingParseResult;
+import org.finos.waltz.service.measurable_rating.BulkMeasurableItemParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XlsxRowReaderTest {
+
+    @Test
+    void rowsAreReadWithGapsPreservedAndBlankRowsSkipped() throws IOException {
+        InputStream xlsx = mkWorkbook(
+                new Object[]{"a", "b", "c"},
+                new Object[]{},
+                new Object[]{"x", null, 12});
+
+        List<TabularRow> rows = new ArrayList<>();
+        int count = XlsxRowReader.readRows(xlsx, rows::add);
+
+        assertEquals(2, count);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"a", "b", "c"}, rows.get(0).values());
+        assertEquals(1, rows.get(0).rowNumber());
+        assertArrayEquals(new String[]{"x", null, "12"}, rows.get(1).values());
+        assertEquals(3, rows.get(1).rowNumber(), "row numbers should reflect the position in the sheet");
+    }
+
+
+    @Test
+    void rowsCanBeMappedOntoItemsUsingTheHeaderNames() throws IOException {
+        InputStream xlsx = mkWorkbook(
+                new Object[]{"asset_code", "taxonomyExternalId", "ratingCode", "isPrimary", "comment"},
+                new Object[]{"app-1", "m-1", "G", "true", "first"},
+                new Object[]{"app-2", "m-2", "R", null, null});
+
+        List<BulkMeasurableRatingItem> items = new ArrayList<>();
+        int count = XlsxRowReader.readItems(xlsx, BulkMeasurableRatingItem.class, items::add);
+
+        assertEquals(2, count);
+        assertEquals("app-1", items.get(0).assetCode(), "aliases should be honoured");
+        assertEquals('G', items.get(0).ratingCode());
+        assertTrue(items.get(0).isPrimary());
+        assertEquals("first", items.get(0).comment());
+        assertFalse(items.get(1).isPrimary(), "empty cells should fall back to defaults");
+        assertNull(items.get(1).comment());
+    }
+
+
+    @Test
+    void parserReportsXlsxItems() throws IOException {
+        InputStream xlsx = mkWorkbook(
+                new Object[]{"assetCode", "taxonomyExternalId", "ratingCode"},
+                new Object[]{"app-1", "m-1", "G"});
+
+        BulkMeasurableRatingParseResult result = new BulkMeasurableItemParser().parseXlsx(xlsx);
+
+        assertNull(result.error());
+        assertEquals(1, result.parsedItems().size());
+    }
+
+
+    @Test
+    void parserReportsUnreadableContentAsAnError() {
+        BulkMeasurableRatingParseResult result = new BulkMeasurableItemParser()
+                .parseXlsx(new ByteArrayInputStream("not a workbook".getBytes()));
+
+        assertNotNull(result.error());
+        assertTrue(result.parsedItems().isEmpty());
+    }
+
+
+    @Test
+    void unreadableContentIsRejected() {
+        assertThrows(
+                IOException.class,
+                () -> XlsxRowReader.readRows(new ByteArrayInputStream("not a workbook".getBytes()), r -> {}));
+    }
+
+
+    // --- HELPERS ---
+
+    private InputStream mkWorkbook(Object[]... rows) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < rows[r].length; c++) {
+                    Object value = rows[r][c];
+                    if (value instanceof Number) {
+                        row.createCell(c).setCellValue(((Number) value).doubleValue());
+                    } else if (value != null) {
+                        row.createCell(c).setCellValue(value.toString());
+                    }
+                }
+            }
+            workbook.write(out);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+    }
+}
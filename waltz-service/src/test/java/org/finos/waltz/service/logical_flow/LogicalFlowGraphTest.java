@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphNode;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogicalFlowGraphTest {
+
+    private static final long TRADE = 10L;
+    private static final long PRICE = 20L;
+
+    private final EntityReference a = mkRef(EntityKind.APPLICATION, 1);
+    private final EntityReference b = mkRef(EntityKind.APPLICATION, 2);
+    private final EntityReference c = mkRef(EntityKind.APPLICATION, 3);
+    private final EntityReference d = mkRef(EntityKind.APPLICATION, 4);
+    private final EntityReference actor = mkRef(EntityKind.ACTOR, 1);
+
+    /*
+     *  a --(trade)--> b --(trade)--> c --(trade)--> d
+     *  a --(price)------------------------------->  d
+     *  actor(1) --(price)--> a
+     */
+    private final LogicalFlowGraph graph = LogicalFlowGraph.build(asList(
+            new LogicalFlowGraph.Edge(100, a, b, asSet(TRADE)),
+            new LogicalFlowGraph.Edge(101, b, c, asSet(TRADE, PRICE)),
+            new LogicalFlowGraph.Edge(102, c, d, asSet(TRADE)),
+            new LogicalFlowGraph.Edge(103, a, d, asSet(PRICE)),
+            new LogicalFlowGraph.Edge(104, actor, a, asSet(PRICE))));
+
+
+    @Test
+    public void nodesWithSameIdButDifferentKindsAreDistinct() {
+        assertEquals(5, graph.nodeCount());
+        assertEquals(5, graph.edgeCount());
+    }
+
+
+    @Test
+    public void downstreamClosureFollowsAllFlows() {
+        LogicalFlowGraphTraversal result = graph.traverse(a, true, false, Optional.empty(), LogicalFlowGraph.UNBOUNDED);
+
+        assertEquals(asSet(b, c, d), SetUtilities.map(result.nodes(), LogicalFlowGraphNode::entityReference));
+        assertEquals(asSet(100L, 101L, 102L, 103L), result.flowIds());
+        assertEquals(1, depthOf(result, d), "d is directly reachable from a");
+    }
+
+
+    @Test
+    public void upstreamClosureCanBeRestrictedByDataType() {
+        LogicalFlowGraphTraversal result = graph.traverse(d, false, true, Optional.of(TRADE), LogicalFlowGraph.UNBOUNDED);
+
+        assertEquals(asSet(a, b, c), SetUtilities.map(result.nodes(), LogicalFlowGraphNode::entityReference));
+        assertEquals(asSet(100L, 101L, 102L), result.flowIds());
+    }
+
+
+    @Test
+    public void neighbourhoodIsBoundedByHops() {
+        LogicalFlowGraphTraversal result = graph.traverse(a, true, true, Optional.empty(), 1);
+
+        assertEquals(asSet(b, d, actor), SetUtilities.map(result.nodes(), LogicalFlowGraphNode::entityReference));
+        assertEquals(Optional.of(1), result.maxDepth());
+    }
+
+
+    @Test
+    public void unknownNodesGiveEmptyResults() {
+        EntityReference unknown = mkRef(EntityKind.APPLICATION, 99);
+        assertTrue(graph.traverse(unknown, true, true, Optional.empty(), 3).nodes().isEmpty());
+        assertFalse(graph.findShortestPath(unknown, a, Optional.empty()).isPresent());
+    }
+
+
+    @Test
+    public void shortestPathIgnoresDataTypesWhenNotStrict() {
+        LogicalFlowGraphPath path = graph.findShortestPath(actor, d, Optional.empty()).get();
+
+        assertEquals(asList(actor, a, d), path.nodes());
+        assertEquals(asList(104L, 103L), path.flowIds());
+        assertEquals(2, path.length());
+    }
+
+
+    @Test
+    public void strictShortestPathOnlyFollowsFlowsWithTheDataType() {
+        LogicalFlowGraphPath path = graph.findShortestPath(a, d, Optional.of(TRADE)).get();
+        assertEquals(asList(a, b, c, d), path.nodes());
+
+        assertFalse(graph.findShortestPath(actor, d, Optional.of(TRADE)).isPresent());
+    }
+
+
+    @Test
+    public void strictShortestPathsAreFoundForEachOutboundDataType() {
+        List<LogicalFlowGraphPath> paths = graph.findStrictShortestPaths(a, d);
+
+        assertEquals(2, paths.size());
+        assertEquals(Optional.of(PRICE), paths.get(0).dataTypeId());
+        assertEquals(1, paths.get(0).length());
+        assertEquals(Optional.of(TRADE), paths.get(1).dataTypeId());
+        assertEquals(3, paths.get(1).length());
+    }
+
+
+    private static int depthOf(LogicalFlowGraphTraversal traversal, EntityReference ref) {
+        return traversal
+                .nodes()
+                .stream()
+                .filter(n -> n.entityReference().equals(ref))
+                .findFirst()
+                .map(LogicalFlowGraphNode::depth)
+                .orElse(-1);
+    }
+}
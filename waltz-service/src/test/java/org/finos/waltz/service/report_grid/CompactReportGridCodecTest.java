@@ -0,0 +1,122 @@
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.CompactReportGridColumn;
+import org.finos.waltz.model.report_grid.CompactReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.report_grid.CellOption.mkCellOption;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactReportGridCodecTest {
+
+    @Test
+    public void encodingAnEmptyInstanceGivesEmptyDictionaries() {
+        CompactReportGridInstance compact = CompactReportGridCodec.encode(ImmutableReportGridInstance.builder().build());
+
+        assertTrue(compact.subjects().isEmpty());
+        assertTrue(compact.columns().isEmpty());
+        assertTrue(compact.strings().isEmpty());
+        assertTrue(compact.optionSets().isEmpty());
+    }
+
+
+    @Test
+    public void repeatedValuesAreSharedViaTheDictionaries() {
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .subjects(asSet(mkSubject(1), mkSubject(2), mkSubject(3)))
+                .addCellData(mkTextCell(10L, 1, "Yes"))
+                .addCellData(mkTextCell(10L, 2, "Yes"))
+                .addCellData(mkTextCell(10L, 3, "No"))
+                .addCellData(mkTextCell(20L, 1, "Yes"))
+                .build();
+
+        CompactReportGridInstance compact = CompactReportGridCodec.encode(instance);
+
+        assertEquals(3, compact.subjects().size());
+        assertEquals(2, compact.strings().size(), "'Yes' and 'No' should each be held once");
+        assertEquals(1, compact.optionSets().size(), "all cells use the default option");
+        assertEquals(2, compact.columns().size());
+
+        CompactReportGridColumn first = compact.columns().get(0);
+        assertEquals(10L, first.columnDefinitionId());
+        assertArrayEquals(new int[]{0, 1, 2}, first.subjectIndexes());
+        assertEquals(first.textValues()[0], first.textValues()[1]);
+        assertNotEquals(first.textValues()[0], first.textValues()[2]);
+        assertNull(first.numberValues(), "unused value arrays should be omitted");
+        assertNull(first.ratingIdSetIndexes(), "unused value arrays should be omitted");
+        assertNull(first.comments(), "unused value arrays should be omitted");
+    }
+
+
+    @Test
+    public void decodingAnEncodedInstanceGivesTheOriginalCells() {
+        ReportGridCell mixed = ImmutableReportGridCell
+                .builder()
+                .columnDefinitionId(30L)
+                .subjectId(2)
+                .ratingIdValues(asSet(7L, 8L))
+                .numberValue(BigDecimal.valueOf(12.5))
+                .errorValue("oops")
+                .comment("a comment")
+                .dateTimeValue(LocalDateTime.of(2022, 1, 2, 3, 4))
+                .options(asSet(mkCellOption("R", "Red")))
+                .build();
+
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .subjects(asSet(mkSubject(1), mkSubject(2)))
+                .addCellData(mkTextCell(30L, 1, null))
+                .addCellData(mixed)
+                .addCellData(mkTextCell(40L, 2, "text"))
+                .build();
+
+        ReportGridInstance decoded = CompactReportGridCodec.decode(CompactReportGridCodec.encode(instance));
+
+        assertEquals(instance.subjects(), decoded.subjects());
+        assertEquals(instance.cellData(), decoded.cellData());
+
+        ReportGridCell decodedMixed = decoded
+                .cellData()
+                .stream()
+                .filter(c -> c.columnDefinitionId() == 30L && c.subjectId() == 2)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Expected decoded cell"));
+
+        assertEquals("a comment", decodedMixed.comment(), "comments are auxiliary so need checking explicitly");
+    }
+
+
+    // -- HELPERS ---
+
+    private static ReportSubject mkSubject(long id) {
+        return ImmutableReportSubject
+                .builder()
+                .entityReference(mkRef(EntityKind.APPLICATION, id))
+                .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                .build();
+    }
+
+
+    private static ReportGridCell mkTextCell(Long columnId, long subjectId, String text) {
+        return ImmutableReportGridCell
+                .builder()
+                .columnDefinitionId(columnId)
+                .subjectId(subjectId)
+                .textValue(text)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.FilterOperator;
+import org.finos.waltz.model.report_grid.GridFilter;
+import org.finos.waltz.model.report_grid.ImmutableGridFilter;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportGridSortKey;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.report_grid.CellOption.mkCellOption;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportGridIndexTest {
+
+    private static final long NUMBER_COL = 1L;
+    private static final long OPTION_COL = 2L;
+
+    // subjects: 1=Charlie, 2=alpha, 3=Bravo, 4=Delta (no cells)
+    private final ReportGridIndex index = ReportGridIndex.of(ImmutableReportGridInstance
+            .builder()
+            .subjects(asSet(mkSubject(1, "Charlie"), mkSubject(2, "alpha"), mkSubject(3, "Bravo"), mkSubject(4, "Delta")))
+            .addCellData(mkNumberCell(1, 30))
+            .addCellData(mkNumberCell(2, 10))
+            .addCellData(mkNumberCell(3, 20))
+            .addCellData(mkOptionCell(1, "Y"))
+            .addCellData(mkOptionCell(2, "N"))
+            .addCellData(mkOptionCell(3, "Y"))
+            .build());
+
+
+    @Test
+    public void noFiltersGivesAllSubjects() {
+        assertEquals(asSet(1L, 2L, 3L, 4L), index.filter(Collections.emptySet()));
+    }
+
+
+    @Test
+    public void optionFiltersCanIncludeSubjectsWithoutValues() {
+        assertEquals(asSet(1L, 3L), index.filter(asSet(mkFilter("Y"))));
+        assertEquals(asSet(2L, 4L), index.filter(asSet(mkFilter("N", ReportGridIndex.NOT_PROVIDED_OPTION_CODE))));
+    }
+
+
+    @Test
+    public void canSortByNameOrColumnWithMissingCellsLast() {
+        assertEquals(
+                asList(2L, 3L, 1L, 4L),
+                index.sort(index.subjectIds(), asList(ImmutableReportGridSortKey.builder().build())),
+                "name sort should be case insensitive");
+
+        assertEquals(
+                asList(1L, 3L, 2L, 4L),
+                index.sort(index.subjectIds(), asList(ImmutableReportGridSortKey.builder().columnDefinitionId(NUMBER_COL).ascending(false).build())),
+                "subject without a value should be last, even when descending");
+
+        assertEquals(
+                asList(2L, 3L, 1L, 4L),
+                index.sort(index.subjectIds(), asList(ImmutableReportGridSortKey.builder().columnDefinitionId(OPTION_COL).build())),
+                "ties should be broken by name");
+    }
+
+
+    @Test
+    public void restrictingGivesOnlyTheCellsForThoseSubjects() {
+        ReportGridInstance restricted = index.restrictTo(asList(3L, 4L));
+
+        assertEquals(2, restricted.subjects().size());
+        assertEquals(2, restricted.cellData().size());
+        assertTrue(restricted.cellData().stream().allMatch(c -> c.subjectId() == 3L));
+    }
+
+
+    @Test
+    public void subjectsWithSeveralCellsInAColumnKeepThemAll() {
+        ReportGridIndex multiIndex = ReportGridIndex.of(ImmutableReportGridInstance
+                .builder()
+                .subjects(asSet(mkSubject(1, "Charlie"), mkSubject(2, "alpha")))
+                .addCellData(mkNumberCell(1, 5))
+                .addCellData(mkNumberCell(1, 50))
+                .addCellData(mkNumberCell(2, 20))
+                .addCellData(mkOptionCell(1, "Y"))
+                .addCellData(mkOptionCell(1, "N"))
+                .build());
+
+        assertEquals(asSet(1L), multiIndex.filter(asSet(mkFilter("N"))), "any cell may pass the filter");
+
+        assertEquals(
+                asList(1L, 2L),
+                multiIndex.sort(multiIndex.subjectIds(), asList(ImmutableReportGridSortKey.builder().columnDefinitionId(NUMBER_COL).build())),
+                "ascending sorts use the smallest cell");
+
+        assertEquals(
+                asList(1L, 2L),
+                multiIndex.sort(multiIndex.subjectIds(), asList(ImmutableReportGridSortKey.builder().columnDefinitionId(NUMBER_COL).ascending(false).build())),
+                "descending sorts use the largest cell");
+
+        assertEquals(4, multiIndex.restrictTo(asList(1L)).cellData().size());
+    }
+
+
+    // -- HELPERS ---
+
+    private static GridFilter mkFilter(String... codes) {
+        return ImmutableGridFilter
+                .builder()
+                .columnDefinitionId(OPTION_COL)
+                .filterOperator(FilterOperator.CONTAINS_ANY_OPTION)
+                .filterValues(asSet(codes))
+                .build();
+    }
+
+
+    private static ReportSubject mkSubject(long id, String name) {
+        return ImmutableReportSubject
+                .builder()
+                .entityReference(mkRef(EntityKind.APPLICATION, id, name))
+                .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                .build();
+    }
+
+
+    private static ReportGridCell mkNumberCell(long subjectId, int value) {
+        return ImmutableReportGridCell
+                .builder()
+                .columnDefinitionId(NUMBER_COL)
+                .subjectId(subjectId)
+                .numberValue(BigDecimal.valueOf(value))
+                .build();
+    }
+
+
+    private static ReportGridCell mkOptionCell(long subjectId, String code) {
+        return ImmutableReportGridCell
+                .builder()
+                .columnDefinitionId(OPTION_COL)
+                .subjectId(subjectId)
+                .options(asSet(mkCellOption(code, code)))
+                .build();
+    }
+}
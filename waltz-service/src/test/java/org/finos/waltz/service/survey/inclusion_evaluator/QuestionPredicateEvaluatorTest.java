@@ -0,0 +1,128 @@
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestionFieldType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QuestionPredicateEvaluatorTest {
+
+    private static final List<SurveyQuestion> QUESTIONS = asList(
+            mkQuestion(1L, "Q1", "isAppKind('IN_HOUSE') && belongsToOrgUnit('OU_A')"),
+            mkQuestion(2L, "Q2", "ditto('Q1')"),
+            mkQuestion(3L, "Q3", "assessmentRating('CRITICALITY', 'X') == 'H'"));
+
+
+    @Test
+    public void predicatesAreEvaluatedAgainstThePrefetchedFacts() {
+        QuestionPredicateFacts facts = new QuestionPredicateFacts();
+        facts.setKind("IN_HOUSE");
+        facts.addOrgUnitAncestor("Org Unit A", "OU_A");
+        facts.addAssessmentRating("Criticality", "CRITICALITY", "H");
+
+        QuestionAppPredicateNamespace namespace = mkNamespace(facts);
+
+        assertTrue(QuestionPredicateEvaluator.evaluate("isAppKind('IN_HOUSE') && belongsToOrgUnit('OU_A')", namespace));
+        assertTrue(QuestionPredicateEvaluator.evaluate("belongsToOrgUnit('Org Unit A')", namespace));
+        assertTrue(QuestionPredicateEvaluator.evaluate("assessmentRating('Criticality') == 'H'", namespace));
+        assertTrue(QuestionPredicateEvaluator.evaluate("ditto('Q3')", namespace), "ditto evaluates the referenced question's predicate");
+        assertFalse(QuestionPredicateEvaluator.evaluate("hasInvolvement('Owner')", namespace));
+        assertFalse(QuestionPredicateEvaluator.evaluate("hasDataType('Trade')", namespace));
+    }
+
+
+    @Test
+    public void sameExpressionCanBeEvaluatedForDifferentSubjects() {
+        QuestionPredicateFacts inHouse = new QuestionPredicateFacts();
+        inHouse.setKind("IN_HOUSE");
+        QuestionPredicateFacts thirdParty = new QuestionPredicateFacts();
+        thirdParty.setKind("THIRD_PARTY");
+
+        String predicate = "isAppKind('IN_HOUSE')";
+        assertTrue(QuestionPredicateEvaluator.evaluate(predicate, mkNamespace(inHouse)));
+        assertFalse(QuestionPredicateEvaluator.evaluate(predicate, mkNamespace(thirdParty)));
+    }
+
+
+    @Test
+    public void onlyFactsReadByPredicatesAreLoaded() {
+        Set<QuestionPredicateFactLoader.FactGroup> loaded = new HashSet<>();
+        QuestionPredicateFacts facts = new QuestionPredicateFacts(loaded::add);
+        facts.setKind("IN_HOUSE");
+
+        QuestionPredicateEvaluator.eval(QUESTIONS, mkRef(EntityKind.APPLICATION, 1L), facts, Collections.emptyMap());
+
+        assertEquals(
+                asSet(QuestionPredicateFactLoader.FactGroup.ORG_UNIT, QuestionPredicateFactLoader.FactGroup.ASSESSMENT_RATING),
+                loaded);
+    }
+
+
+    @Test
+    public void namesWithinStringLiteralsDoNotLoadFacts() {
+        Set<QuestionPredicateFactLoader.FactGroup> loaded = new HashSet<>();
+
+        QuestionPredicateEvaluator.evaluate(
+                "isAppKind('hasInvolvement') || belongsToOrgUnit('OU_A')",
+                mkNamespace(new QuestionPredicateFacts(loaded::add)));
+
+        assertEquals(asSet(QuestionPredicateFactLoader.FactGroup.ORG_UNIT), loaded);
+    }
+
+
+    @Test
+    public void unevaluablePredicatesAreReportedAgainstTheirQuestionOnly() {
+        QuestionPredicateFacts facts = new QuestionPredicateFacts();
+        facts.setKind("THIRD_PARTY");
+
+        List<SurveyQuestion> qs = asList(
+                mkQuestion(1L, "Q1", "isAppKind('IN_HOUSE')"),
+                mkQuestion(2L, "Q2", "belongsToOrgUnit('OU_A'"),
+                mkQuestion(3L, "Q3", "isAppKind('THIRD_PARTY')"));
+
+        List<SurveyQuestion> active = QuestionPredicateEvaluator.eval(qs, mkRef(EntityKind.APPLICATION, 1L), facts, Collections.emptyMap());
+
+        assertEquals(
+                asList("Q2", "Q3"),
+                active.stream().map(q -> q.externalId().get()).collect(Collectors.toList()),
+                "the unparseable predicate keeps its question active without affecting the others");
+    }
+
+
+    // -- helpers
+
+    private static QuestionAppPredicateNamespace mkNamespace(QuestionPredicateFacts facts) {
+        return new QuestionAppPredicateNamespace(
+                mkRef(EntityKind.APPLICATION, 1L),
+                facts,
+                QUESTIONS,
+                Collections.emptyMap());
+    }
+
+
+    private static SurveyQuestion mkQuestion(long id, String externalId, String predicate) {
+        return ImmutableSurveyQuestion
+                .builder()
+                .id(id)
+                .externalId(externalId)
+                .surveyTemplateId(1L)
+                .questionText(externalId)
+                .fieldType(SurveyQuestionFieldType.BOOLEAN)
+                .inclusionPredicate(predicate)
+                .build();
+    }
+}
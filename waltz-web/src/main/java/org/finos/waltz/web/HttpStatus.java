@@ -7,4 +7,7 @@ public interface HttpStatus {
     int CONFLICT_409 = 409;
     int INTERNAL_SERVER_ERROR_500 = 500;
     int FORBIDDEN_403 = 403;
+    int ACCEPTED_202 = 202;
+    int TOO_MANY_REQUESTS_429 = 429;
+    int SERVICE_UNAVAILABLE_503 = 503;
 }
@@ -23,8 +23,10 @@ import org.finos.waltz.common.exception.DuplicateKeyException;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.common.exception.UpdateFailedException;
+import org.finos.waltz.common.ReplicaSession;
 import org.finos.waltz.service.DIConfiguration;
 import org.finos.waltz.service.settings.SettingsService;
+import org.finos.waltz.web.async.AsyncJobRejectedException;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.web.endpoints.EndpointUtilities;
 import org.finos.waltz.web.endpoints.api.StaticResourcesEndpoint;
@@ -45,6 +47,7 @@ import java.util.TimeZone;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.DateTimeUtilities.UTC;
+import static org.finos.waltz.web.WebUtilities.getUsername;
 import static org.finos.waltz.web.WebUtilities.reportException;
 import static spark.Spark.*;
 
@@ -139,6 +142,8 @@ public class Main {
 
         LOG.info("Completed endpoint registration");
 
+        bindReplicaSession();
+
         registerExceptionHandlers();
         enableGZIP();
         enableCORS();
@@ -235,6 +240,17 @@ public class Main {
                     LOG);
         });
 
+        EndpointUtilities.addExceptionHandler(AsyncJobRejectedException.class, (e, req, res) -> {
+            LOG.warn("Async job rejected: {}", e.getMessage());
+            res.header("Retry-After", "30");
+            reportException(
+                    e.getStatus(),
+                    e.getCode(),
+                    e.getMessage(),
+                    res,
+                    LOG);
+        });
+
         EndpointUtilities.addExceptionHandler(NotAuthorizedException.class, (e, req, res) -> {
             reportException(
                     HttpStatus.FORBIDDEN_403,
@@ -266,6 +282,17 @@ public class Main {
     }
 
 
+    /**
+     * Binds the authenticated user to the request thread so that reads made
+     * after a change by that user are not served from a lagging read replica.
+     * Registered after the endpoints so the authentication filters have run.
+     */
+    private void bindReplicaSession() {
+        before((req, res) -> ReplicaSession.bind(getUsername(req)));
+        afterAfter((req, res) -> ReplicaSession.clear());
+    }
+
+
     private void enableGZIP() {
         SettingsService settingsService = ctx.getBean(SettingsService.class);
 
@@ -0,0 +1,308 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.finos.waltz.web.WebException;
+import org.finos.waltz.web.json.AsyncJobInfo;
+import org.finos.waltz.web.json.ImmutableAsyncJobInfo;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+
+
+/**
+ * A unit of work submitted to the {@link AsyncJobLane}.
+ *
+ * Attached jobs hand their value straight back to the waiting request thread.
+ * Detached jobs convert their value to an {@link AsyncJobResult} which is
+ * retained until collected (or expired).  An attached job which still has a
+ * result function may be detached while it is outstanding, e.g. when its
+ * waiter gives up.
+ */
+public class AsyncJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String name;
+    private final String username;
+    private final Callable<?> task;
+    private final Function<Object, AsyncJobResult> resultFn;
+    private final LocalDateTime submittedAt = nowUtc();
+    private final long submittedNanos = System.nanoTime();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private AsyncJobStatus status = AsyncJobStatus.QUEUED;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long waitMillis;
+    private long runMillis;
+    private Thread runner;
+    private Object value;
+    private AsyncJobResult result;
+    private Exception failure;
+    private boolean detached;
+
+
+    /**
+     * @param resultFn  converts the task value into a collectable result, required if the job is (or may become) detached
+     * @param detached  whether the job starts detached
+     */
+    @SuppressWarnings("unchecked")
+    <T> AsyncJob(String name,
+                 String username,
+                 Callable<T> task,
+                 Function<T, AsyncJobResult> resultFn,
+                 boolean detached) {
+        this.name = name;
+        this.username = username;
+        this.task = task;
+        this.resultFn = (Function<Object, AsyncJobResult>) resultFn;
+        this.detached = detached;
+    }
+
+
+    public String id() {
+        return id;
+    }
+
+
+    public String name() {
+        return name;
+    }
+
+
+    public String username() {
+        return username;
+    }
+
+
+    public synchronized boolean isDetached() {
+        return detached;
+    }
+
+
+    public synchronized AsyncJobStatus status() {
+        return status;
+    }
+
+
+    public synchronized boolean isFinished() {
+        return finishedAt != null;
+    }
+
+
+    synchronized LocalDateTime finishedAt() {
+        return finishedAt;
+    }
+
+
+    synchronized long waitMillis() {
+        return waitMillis;
+    }
+
+
+    synchronized long runMillis() {
+        return runMillis;
+    }
+
+
+    public synchronized Optional<AsyncJobResult> result() {
+        return Optional.ofNullable(result);
+    }
+
+
+    synchronized Optional<Exception> failure() {
+        return Optional.ofNullable(failure);
+    }
+
+
+    /**
+     * Executes the task on the calling (lane) thread, unless the job has been cancelled.
+     *
+     * @param spoolThresholdBytes  detached results larger than this are written to disk
+     * @return false if the job was cancelled before it could start
+     */
+    boolean run(long spoolThresholdBytes) {
+        synchronized (this) {
+            if (status != AsyncJobStatus.QUEUED) {
+                return false;
+            }
+            status = AsyncJobStatus.RUNNING;
+            startedAt = nowUtc();
+            waitMillis = (System.nanoTime() - submittedNanos) / 1_000_000;
+            runner = Thread.currentThread();
+        }
+
+        long st = System.nanoTime();
+        Object taskValue = null;
+        AsyncJobResult taskResult = null;
+        Exception taskFailure = null;
+        try {
+            taskValue = task.call();
+            if (isDetached()) {
+                taskResult = toResult(taskValue, spoolThresholdBytes);
+                taskValue = null;
+            }
+        } catch (Exception e) {
+            taskFailure = e;
+        }
+
+        synchronized (this) {
+            runner = null;
+            if (detached && taskResult == null && taskFailure == null && status != AsyncJobStatus.CANCELLED) {
+                // detached whilst the task was finishing
+                try {
+                    taskResult = toResult(taskValue, spoolThresholdBytes);
+                    taskValue = null;
+                } catch (Exception e) {
+                    taskFailure = e;
+                }
+            }
+            runMillis = (System.nanoTime() - st) / 1_000_000;
+            if (status == AsyncJobStatus.CANCELLED) {
+                if (taskResult != null) {
+                    taskResult.discard();
+                }
+            } else if (taskFailure != null) {
+                status = AsyncJobStatus.FAILED;
+                failure = taskFailure;
+            } else {
+                status = AsyncJobStatus.COMPLETED;
+                value = taskValue;
+                result = taskResult;
+            }
+            finish();
+        }
+        // clear any interrupt raised by a late cancellation so it does not leak into the next job
+        Thread.interrupted();
+        return true;
+    }
+
+
+    /**
+     * Cancels the job.  Queued jobs will never start, running jobs are interrupted
+     * (note: jdbc calls may not respond to interruption, their result is discarded).
+     *
+     * @return true if the job was outstanding and is now cancelled
+     */
+    synchronized boolean cancel() {
+        if (isFinished() || status == AsyncJobStatus.CANCELLED) {
+            return false;
+        }
+        AsyncJobStatus priorStatus = status;
+        status = AsyncJobStatus.CANCELLED;
+        if (priorStatus == AsyncJobStatus.RUNNING) {
+            runner.interrupt();
+        } else {
+            finish();
+        }
+        return true;
+    }
+
+
+    /**
+     * Detaches an outstanding job so that its result is retained for collection
+     * rather than handed to a waiting request thread.
+     *
+     * @return false if the job has already finished (or cannot be detached),
+     *   in which case the outcome should be taken via {@link #await()}
+     */
+    synchronized boolean detach() {
+        if (isFinished() || resultFn == null) {
+            return false;
+        }
+        detached = true;
+        return true;
+    }
+
+
+    /**
+     * Waits, at most the given time, for the job to finish.
+     *
+     * @return true if the job has finished
+     */
+    boolean awaitFinish(long timeoutMillis) throws InterruptedException {
+        return done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Waits for the job to finish, returning the task value or re-throwing its failure.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T await() throws Exception {
+        done.await();
+        synchronized (this) {
+            switch (status) {
+                case COMPLETED:
+                    return (T) value;
+                case FAILED:
+                    throw failure;
+                default:
+                    throw new WebException("CANCELLED", "Job was cancelled: " + name);
+            }
+        }
+    }
+
+
+    synchronized void discardResult() {
+        if (result != null) {
+            result.discard();
+            result = null;
+        }
+    }
+
+
+    synchronized AsyncJobInfo toInfo(Optional<Integer> queuePosition) {
+        return ImmutableAsyncJobInfo.builder()
+                .id(id)
+                .name(name)
+                .username(username)
+                .status(status)
+                .submittedAt(submittedAt)
+                .startedAt(Optional.ofNullable(startedAt))
+                .finishedAt(Optional.ofNullable(finishedAt))
+                .message(Optional.ofNullable(failure).map(Throwable::getMessage))
+                .queuePosition(status == AsyncJobStatus.QUEUED ? queuePosition : Optional.empty())
+                .resultPath(mkPath("api", "async-job", "id", id, "result"))
+                .build();
+    }
+
+
+    private AsyncJobResult toResult(Object taskValue, long spoolThresholdBytes) throws IOException {
+        return resultFn
+                .apply(taskValue)
+                .spoolIfLargerThan(spoolThresholdBytes);
+    }
+
+
+    private void finish() {
+        finishedAt = nowUtc();
+        done.countDown();
+    }
+}
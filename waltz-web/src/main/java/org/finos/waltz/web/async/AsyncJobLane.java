@@ -0,0 +1,411 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.finos.waltz.common.ReplicaSession;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.HttpStatus;
+import org.finos.waltz.web.json.AsyncJobInfo;
+import org.finos.waltz.web.json.AsyncJobLaneStats;
+import org.finos.waltz.web.json.ImmutableAsyncJobLaneStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import spark.Request;
+import spark.Response;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.web.WebUtilities.getUsername;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+
+
+/**
+ * Execution lane for expensive reads (report grids, extracts, overlay widgets).
+ *
+ * Work runs on a small, bounded pool of lane threads rather than competing with
+ * cheap requests for database connections.  Jobs are queued per user and served
+ * round-robin so one user opening several large grids does not block everyone
+ * else.  A user may only have {@link #maxPerUser} jobs outstanding and the lane
+ * will queue at most {@link #maxQueued} jobs, beyond which submissions are
+ * rejected with 429 / 503 respectively.
+ *
+ * By default the request thread waits for the job to complete, but for no
+ * more than {@link #maxAttachedWaitMillis}.  If the job is still outstanding
+ * after that it is detached and the request is answered with <code>202 Accepted</code>
+ * and a job description, so slow work does not hold a Jetty thread.  Clients can
+ * also send <code>Prefer: respond-async</code> (or <code>?async=true</code>) to
+ * receive the <code>202</code> straight away.  Either way, the client then polls
+ * <code>api/async-job/id/:id</code> and collects the result from
+ * <code>api/async-job/id/:id/result</code>.  Detached results are retained for
+ * {@link #resultTtlMinutes} and spooled to disk when large.
+ */
+@Service
+public class AsyncJobLane implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncJobLane.class);
+
+    @FunctionalInterface
+    public interface Responder<T> {
+        Object apply(T t) throws Exception;
+    }
+
+    private static final String PREFER_HEADER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String ASYNC_PARAM = "async";
+
+    private final int poolSize;
+    private final int maxQueued;
+    private final int maxPerUser;
+    private final int resultTtlMinutes;
+    private final long spoolThresholdBytes;
+    private final long maxAttachedWaitMillis;
+
+    private final FairJobQueue queue = new FairJobQueue();
+    private final Map<String, AsyncJob> jobsById = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final LongAdder totalRunMillis = new LongAdder();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+
+    @Autowired
+    public AsyncJobLane(@Value("${web.async.pool.size:4}") int poolSize,
+                        @Value("${web.async.queue.max:100}") int maxQueued,
+                        @Value("${web.async.user.max:4}") int maxPerUser,
+                        @Value("${web.async.result.ttl.minutes:10}") int resultTtlMinutes,
+                        @Value("${web.async.spool.threshold.kb:1024}") int spoolThresholdKb,
+                        @Value("${web.async.attached.wait.seconds:20}") int maxAttachedWaitSeconds) {
+        checkTrue(poolSize > 0, "poolSize must be positive");
+        checkTrue(maxQueued > 0, "maxQueued must be positive");
+        checkTrue(maxPerUser > 0, "maxPerUser must be positive");
+        checkTrue(maxAttachedWaitSeconds > 0, "maxAttachedWaitSeconds must be positive");
+
+        this.poolSize = poolSize;
+        this.maxQueued = maxQueued;
+        this.maxPerUser = maxPerUser;
+        this.resultTtlMinutes = resultTtlMinutes;
+        this.spoolThresholdBytes = spoolThresholdKb * 1024L;
+        this.maxAttachedWaitMillis = maxAttachedWaitSeconds * 1000L;
+
+        for (int i = 0; i < poolSize; i++) {
+            Thread t = new Thread(this::work, "Async Job Lane " + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+
+    /**
+     * Wraps a route so its work executes on the lane.  The returned route
+     * yields either the task value or, for detached requests, the job info.
+     */
+    public <T> DatumRoute<Object> heavy(String name, AsyncRoute<T> route) {
+        checkNotNull(route, "route cannot be null");
+        return (request, response) -> execute(
+                name,
+                request,
+                response,
+                route.prepare(request, response),
+                AsyncJobResult::ofJson,
+                v -> v,
+                info -> info);
+    }
+
+
+    /**
+     * Executes the task on the lane.
+     *
+     * @param name  describes the job, used in logs and job info
+     * @param task  the work, must not refer to the request or response
+     * @param detachedResultFn  converts the task value into a collectable result (detached requests, or attached requests which time out)
+     * @param responder  produces the response body from the task value (attached requests)
+     * @param acceptedResponder  produces the response body from the job info (detached requests)
+     */
+    public <T> Object execute(String name,
+                              Request request,
+                              Response response,
+                              Callable<T> task,
+                              Function<T, AsyncJobResult> detachedResultFn,
+                              Responder<T> responder,
+                              Responder<AsyncJobInfo> acceptedResponder) throws Exception {
+        String username = getUsername(request);
+
+        if (isDetachRequested(request)) {
+            AsyncJob job = submit(name, username, task, detachedResultFn, true);
+            return accept(job, response, acceptedResponder);
+        } else {
+            AsyncJob job = submit(name, username, task, detachedResultFn, false);
+            boolean detached = false;
+            try {
+                if (! job.awaitFinish(maxAttachedWaitMillis) && job.detach()) {
+                    detached = true;
+                    LOG.info("Async job: {} for user: {}, not finished after {}ms, detaching", name, username, maxAttachedWaitMillis);
+                    return accept(job, response, acceptedResponder);
+                }
+                return responder.apply(job.await());
+            } catch (InterruptedException e) {
+                cancel(job);
+                throw e;
+            } finally {
+                if (! detached) {
+                    jobsById.remove(job.id());
+                }
+            }
+        }
+    }
+
+
+    public static boolean isDetachRequested(Request request) {
+        String prefer = request.headers(PREFER_HEADER);
+        return (prefer != null && prefer.toLowerCase().contains(RESPOND_ASYNC))
+                || Boolean.parseBoolean(request.queryParams(ASYNC_PARAM));
+    }
+
+
+    /**
+     * Queues a job.
+     *
+     * @param detachedResultFn  if provided the job is detached and its result is retained for collection
+     * @throws AsyncJobRejectedException  if the user, or the lane, has too much outstanding work
+     */
+    public <T> AsyncJob submit(String name,
+                               String username,
+                               Callable<T> task,
+                               Function<T, AsyncJobResult> detachedResultFn) {
+        return submit(name, username, task, detachedResultFn, detachedResultFn != null);
+    }
+
+
+    private <T> AsyncJob submit(String name,
+                                String username,
+                                Callable<T> task,
+                                Function<T, AsyncJobResult> resultFn,
+                                boolean detached) {
+        checkNotNull(name, "name cannot be null");
+        checkNotNull(task, "task cannot be null");
+
+        // bound so that the job's reads honour the user's read-your-writes window
+        AsyncJob job = new AsyncJob(name, username, ReplicaSession.bindTo(username, task), resultFn, detached);
+
+        synchronized (queue) {
+            if (countOutstandingForUser(username) >= maxPerUser) {
+                rejected.increment();
+                throw new AsyncJobRejectedException(
+                        HttpStatus.TOO_MANY_REQUESTS_429,
+                        "TOO_MANY_JOBS",
+                        String.format("You already have %d requests in progress, please wait for these to complete", maxPerUser));
+            }
+            if (queue.size() >= maxQueued) {
+                rejected.increment();
+                throw new AsyncJobRejectedException(
+                        HttpStatus.SERVICE_UNAVAILABLE_503,
+                        "LANE_FULL",
+                        "The server is busy, please try again shortly");
+            }
+            jobsById.put(job.id(), job);
+            queue.add(job);
+        }
+
+        return job;
+    }
+
+
+    public Optional<AsyncJob> find(String id) {
+        return Optional.ofNullable(jobsById.get(id));
+    }
+
+
+    public Collection<AsyncJobInfo> findForUser(String username) {
+        return jobsById
+                .values()
+                .stream()
+                .filter(j -> j.username().equals(username))
+                .map(this::toInfo)
+                .collect(toList());
+    }
+
+
+    public AsyncJobInfo toInfo(AsyncJob job) {
+        return job.toInfo(queue.positionOf(job));
+    }
+
+
+    public boolean cancel(AsyncJob job) {
+        boolean wasQueued = queue.remove(job);
+        boolean cancelledNow = job.cancel();
+        if (cancelledNow) {
+            cancelled.increment();
+            LOG.info("Cancelled {} job: {} for user: {}", wasQueued ? "queued" : "running", job.name(), job.username());
+        }
+        return cancelledNow;
+    }
+
+
+    /**
+     * Removes the job, discarding any retained result.  Called once a detached
+     * result has been collected.
+     */
+    public void remove(AsyncJob job) {
+        jobsById.remove(job.id());
+        job.discardResult();
+    }
+
+
+    public AsyncJobLaneStats getStats() {
+        long finishedCount = completed.sum() + failed.sum();
+        return ImmutableAsyncJobLaneStats.builder()
+                .poolSize(poolSize)
+                .maxQueued(maxQueued)
+                .maxPerUser(maxPerUser)
+                .queued(queue.size())
+                .running(running.get())
+                .retainedResults((int) jobsById.values().stream().filter(j -> j.result().isPresent()).count())
+                .retainedResultBytes(jobsById.values().stream().mapToLong(j -> j.result().map(AsyncJobResult::size).orElse(0L)).sum())
+                .completed(completed.sum())
+                .failed(failed.sum())
+                .cancelled(cancelled.sum())
+                .rejected(rejected.sum())
+                .averageWaitMillis(finishedCount == 0 ? 0 : totalWaitMillis.sum() / finishedCount)
+                .maxWaitMillis(maxWaitMillis.get())
+                .averageRunMillis(finishedCount == 0 ? 0 : totalRunMillis.sum() / finishedCount)
+                .build();
+    }
+
+
+    @Scheduled(fixedRate = 60_000)
+    public void evictExpired() {
+        LocalDateTime cutoff = nowUtc().minusMinutes(resultTtlMinutes);
+        List<AsyncJob> expired = jobsById
+                .values()
+                .stream()
+                .filter(AsyncJob::isDetached)
+                .filter(j -> j.isFinished() && j.finishedAt().isBefore(cutoff))
+                .collect(toList());
+
+        expired.forEach(this::remove);
+
+        if (! expired.isEmpty()) {
+            LOG.info("Evicted {} uncollected async job results", expired.size());
+        }
+    }
+
+
+    @Override
+    public void destroy() {
+        workers.forEach(Thread::interrupt);
+        jobsById.values().forEach(AsyncJob::discardResult);
+    }
+
+
+    // -- helpers ---
+
+    private Object accept(AsyncJob job,
+                          Response response,
+                          Responder<AsyncJobInfo> acceptedResponder) throws Exception {
+        response.status(HttpStatus.ACCEPTED_202);
+        response.header("Location", "/" + mkPath("api", "async-job", "id", job.id()));
+        return acceptedResponder.apply(toInfo(job));
+    }
+
+
+    private int countOutstandingForUser(String username) {
+        return (int) jobsById
+                .values()
+                .stream()
+                .filter(j -> j.username().equals(username) && ! j.isFinished())
+                .count();
+    }
+
+
+    private void work() {
+        while (! Thread.currentThread().isInterrupted()) {
+            AsyncJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            running.incrementAndGet();
+            try {
+                if (job.run(spoolThresholdBytes)) {
+                    recordOutcome(job);
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+
+    private void recordOutcome(AsyncJob job) {
+        long waited = job.waitMillis();
+        totalWaitMillis.add(waited);
+        totalRunMillis.add(job.runMillis());
+        maxWaitMillis.accumulateAndGet(waited, Math::max);
+
+        switch (job.status()) {
+            case COMPLETED:
+                completed.increment();
+                break;
+            case FAILED:
+                failed.increment();
+                break;
+            default:
+                break;
+        }
+
+        LOG.info(
+                "Async job: {} for user: {}, status: {}, waited: {}ms, ran: {}ms, detached: {}",
+                job.name(),
+                job.username(),
+                job.status(),
+                waited,
+                job.runMillis(),
+                job.isDetached());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.finos.waltz.web.WebException;
+
+
+/**
+ * Thrown when the {@link AsyncJobLane} is unable to accept more work, either
+ * because the lane is saturated or because the user already has too many
+ * outstanding jobs.
+ */
+public class AsyncJobRejectedException extends WebException {
+
+    private final int status;
+
+
+    public AsyncJobRejectedException(int status, String code, String message) {
+        super(code, message);
+        this.status = status;
+    }
+
+
+    public int getStatus() {
+        return status;
+    }
+}
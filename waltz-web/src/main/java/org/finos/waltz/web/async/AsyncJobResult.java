@@ -0,0 +1,142 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.finos.waltz.common.JacksonUtilities;
+import org.finos.waltz.web.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * The serialized outcome of a detached job, retained until the client collects
+ * it or it expires.  Large payloads are spooled to a temporary file so the heap
+ * is not held hostage by results nobody may come back for.
+ */
+public class AsyncJobResult {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncJobResult.class);
+
+    private final String contentType;
+    private final String fileName;
+    private final long size;
+    private final byte[] bytes;
+    private final Path spoolFile;
+
+
+    private AsyncJobResult(String contentType,
+                           String fileName,
+                           long size,
+                           byte[] bytes,
+                           Path spoolFile) {
+        this.contentType = contentType;
+        this.fileName = fileName;
+        this.size = size;
+        this.bytes = bytes;
+        this.spoolFile = spoolFile;
+    }
+
+
+    /**
+     * @param contentType  content type to send when the result is collected
+     * @param fileName  if provided the result is sent as an attachment with this name
+     * @param bytes  the payload
+     */
+    public static AsyncJobResult of(String contentType,
+                                    String fileName,
+                                    byte[] bytes) {
+        checkNotNull(contentType, "contentType cannot be null");
+        checkNotNull(bytes, "bytes cannot be null");
+        return new AsyncJobResult(contentType, fileName, bytes.length, bytes, null);
+    }
+
+
+    public static AsyncJobResult ofJson(Object value) {
+        try {
+            return of(
+                    MimeTypes.APPLICATION_JSON_UTF_8,
+                    null,
+                    JacksonUtilities.getJsonMapper().writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize job result", e);
+        }
+    }
+
+
+    public long size() {
+        return size;
+    }
+
+
+    public boolean isSpooled() {
+        return spoolFile != null;
+    }
+
+
+    /**
+     * Returns this result, or a copy backed by a temporary file if the payload
+     * is larger than the given threshold.
+     */
+    AsyncJobResult spoolIfLargerThan(long thresholdBytes) throws IOException {
+        if (isSpooled() || size <= thresholdBytes) {
+            return this;
+        }
+        Path file = Files.createTempFile("waltz-async-job-", ".tmp");
+        Files.write(file, bytes);
+        return new AsyncJobResult(contentType, fileName, size, null, file);
+    }
+
+
+    public void writeTo(HttpServletResponse response) throws IOException {
+        response.setHeader("Content-Type", contentType);
+        if (fileName != null) {
+            response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        }
+        response.setContentLengthLong(size);
+
+        ServletOutputStream out = response.getOutputStream();
+        if (isSpooled()) {
+            Files.copy(spoolFile, out);
+        } else {
+            out.write(bytes);
+        }
+        out.flush();
+        out.close();
+    }
+
+
+    void discard() {
+        if (isSpooled()) {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                LOG.warn("Could not remove spooled job result: {}", spoolFile, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import spark.Request;
+import spark.Response;
+
+import java.util.concurrent.Callable;
+
+
+/**
+ * A route whose work may be executed on the {@link AsyncJobLane}.
+ *
+ * The route is invoked on the request thread and should read everything it
+ * needs (parameters, body, user) from the request, returning a task which
+ * does the expensive work.  The task may run after the request has completed
+ * so must not refer to the request or response.
+ *
+ * @param <T> type of the task result
+ */
+@FunctionalInterface
+public interface AsyncRoute<T> {
+
+    Callable<T> prepare(Request request, Response response) throws Exception;
+}
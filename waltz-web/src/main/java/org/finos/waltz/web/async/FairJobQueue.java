@@ -0,0 +1,140 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * Queue of jobs which is fair between users.
+ *
+ * Each user has their own FIFO queue and {@link #take()} round-robins across
+ * the users with queued work, so a user submitting many jobs cannot starve a
+ * user who submits one.
+ */
+class FairJobQueue {
+
+    // iteration order is the round-robin order, users are moved to the back once served
+    private final Map<String, Deque<AsyncJob>> queuesByUser = new LinkedHashMap<>();
+    private int size = 0;
+
+
+    synchronized void add(AsyncJob job) {
+        queuesByUser
+                .computeIfAbsent(job.username(), k -> new ArrayDeque<>())
+                .addLast(job);
+        size++;
+        notifyAll();
+    }
+
+
+    synchronized AsyncJob take() throws InterruptedException {
+        while (size == 0) {
+            wait();
+        }
+
+        Iterator<Map.Entry<String, Deque<AsyncJob>>> iterator = queuesByUser.entrySet().iterator();
+        Map.Entry<String, Deque<AsyncJob>> next = iterator.next();
+        iterator.remove();
+
+        Deque<AsyncJob> userQueue = next.getValue();
+        AsyncJob job = userQueue.removeFirst();
+        if (! userQueue.isEmpty()) {
+            queuesByUser.put(next.getKey(), userQueue);
+        }
+        size--;
+        return job;
+    }
+
+
+    synchronized boolean remove(AsyncJob job) {
+        Deque<AsyncJob> userQueue = queuesByUser.get(job.username());
+        if (userQueue == null || ! userQueue.remove(job)) {
+            return false;
+        }
+        if (userQueue.isEmpty()) {
+            queuesByUser.remove(job.username());
+        }
+        size--;
+        return true;
+    }
+
+
+    synchronized int size() {
+        return size;
+    }
+
+
+    synchronized int sizeForUser(String username) {
+        Deque<AsyncJob> userQueue = queuesByUser.get(username);
+        return userQueue == null ? 0 : userQueue.size();
+    }
+
+
+    /**
+     * Approximate number of jobs which will be taken before the given job,
+     * assuming no further submissions.
+     */
+    synchronized Optional<Integer> positionOf(AsyncJob job) {
+        Deque<AsyncJob> userQueue = queuesByUser.get(job.username());
+        if (userQueue == null) {
+            return Optional.empty();
+        }
+
+        int idx = 0;
+        for (AsyncJob queued : userQueue) {
+            if (queued == job) {
+                break;
+            }
+            idx++;
+        }
+        if (idx == userQueue.size()) {
+            return Optional.empty();
+        }
+
+        // each round serves one job per user, users ahead of this one get an extra job in the final round
+        int userIdx = indexOfUser(job.username());
+        int position = 0;
+        int i = 0;
+        for (Deque<AsyncJob> queue : queuesByUser.values()) {
+            int rounds = i < userIdx ? idx + 1 : idx;
+            position += Math.min(queue.size(), rounds);
+            i++;
+        }
+        return Optional.of(position);
+    }
+
+
+    private int indexOfUser(String username) {
+        int idx = 0;
+        for (String user : queuesByUser.keySet()) {
+            if (user.equals(username)) {
+                return idx;
+            }
+            idx++;
+        }
+        return -1;
+    }
+}
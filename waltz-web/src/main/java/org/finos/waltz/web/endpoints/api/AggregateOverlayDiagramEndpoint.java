@@ -46,6 +46,8 @@ import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
 import org.finos.waltz.web.WebUtilities;
+import org.finos.waltz.web.async.AsyncJobLane;
+import org.finos.waltz.web.async.AsyncRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.web.json.OverlayDiagramAggregatedEntitiesWidgetInfo;
 import org.finos.waltz.web.json.OverlayDiagramAppChangeWidgetInfo;
@@ -81,16 +83,20 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
 
     private final AggregateOverlayDiagramService aggregateOverlayDiagramService;
     private final UserRoleService userRoleService;
+    private final AsyncJobLane asyncJobLane;
 
 
     @Autowired
     public AggregateOverlayDiagramEndpoint(AggregateOverlayDiagramService aggregateOverlayDiagramService,
-                                           UserRoleService userRoleService) {
+                                           UserRoleService userRoleService,
+                                           AsyncJobLane asyncJobLane) {
         checkNotNull(aggregateOverlayDiagramService, "aggregateOverlayDiagramService must not be null");
         checkNotNull(userRoleService, "userRoleService must not be null");
+        checkNotNull(asyncJobLane, "asyncJobLane must not be null");
 
         this.aggregateOverlayDiagramService = aggregateOverlayDiagramService;
         this.userRoleService = userRoleService;
+        this.asyncJobLane = asyncJobLane;
     }
 
 
@@ -134,85 +140,88 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         };
 
 
-        DatumRoute<AttestationWidgetData> getAttestationWidgetDataRoute = (request, response) -> {
-
+        AsyncRoute<AttestationWidgetData> getAttestationWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramAttestationWidgetInfo widgetInfo = readBody(request, OverlayDiagramAttestationWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAttestationWidgetData(
-                            getId(request),
+                            diagramId,
                             widgetInfo.assessmentBasedSelectionFilters(),
                             widgetInfo.idSelectionOptions(),
                             widgetInfo.overlayParameters());
         };
 
-        DatumRoute<CountWidgetData> getAppCountWidgetDataRoute = (request, response) -> {
-
+        AsyncRoute<CountWidgetData> getAppCountWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramAppCountWidgetInfo widgetInfo = readBody(request, OverlayDiagramAppCountWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAppCountWidgetData(
-                            getId(request),
+                            diagramId,
                             widgetInfo.idSelectionOptions(),
                             widgetInfo.assessmentBasedSelectionFilters(),
                             widgetInfo.overlayParameters());
         };
 
 
-        DatumRoute<TargetCostWidgetData> findTargetAppCostWidgetDataRoute = (request, response) -> {
-
+        AsyncRoute<TargetCostWidgetData> findTargetAppCostWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramTargetAppCostWidgetInfo widgetParameters = readBody(request, OverlayDiagramTargetAppCostWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getTargetAppCostWidgetData(
-                            getId(request),
+                            diagramId,
                             widgetParameters.idSelectionOptions(),
                             widgetParameters.assessmentBasedSelectionFilters(),
                             widgetParameters.overlayParameters());
         };
 
 
-        DatumRoute<CostWidgetData> getAppCostWidgetDataRoute = (request, response) -> {
+        AsyncRoute<CostWidgetData> getAppCostWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramWidgetInfo<AppCostWidgetParameters> appCostWidgetParameters = readBody(request, OverlayDiagramAppCostWidgetInfo.class);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAppCostWidgetData(
-                            getId(request),
+                            diagramId,
                             appCostWidgetParameters.assessmentBasedSelectionFilters(),
                             appCostWidgetParameters.idSelectionOptions(),
                             appCostWidgetParameters.overlayParameters());
         };
 
 
-        DatumRoute<CostWidgetData> getRatingCostWidgetDataRoute = (request, response) -> {
+        AsyncRoute<CostWidgetData> getRatingCostWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramWidgetInfo<RatingCostWidgetParameters> costWidgetParameters = readBody(request, OverlayDiagramRatingCostWidgetInfo.class);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getRatingCostWidgetData(
-                            getId(request),
+                            diagramId,
                             costWidgetParameters.assessmentBasedSelectionFilters(),
                             costWidgetParameters.idSelectionOptions(),
                             costWidgetParameters.overlayParameters());
         };
 
 
-        DatumRoute<ComplexityWidgetData> getComplexityWidgetDataRoute = (request, response) -> {
+        AsyncRoute<ComplexityWidgetData> getComplexityWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramWidgetInfo<AppComplexityWidgetParameters> appComplexityWidgetParameters = readBody(request, OverlayDiagramAppComplexityWidgetInfo.class);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAppComplexityWidgetData(
-                            getId(request),
+                            diagramId,
                             appComplexityWidgetParameters.assessmentBasedSelectionFilters(),
                             appComplexityWidgetParameters.idSelectionOptions(),
                             appComplexityWidgetParameters.overlayParameters());
         };
 
 
-        DatumRoute<AssessmentRatingsWidgetData> getAppAssessmentWidgetDataRoute = (request, response) -> {
+        AsyncRoute<AssessmentRatingsWidgetData> getAppAssessmentWidgetDataRoute = (request, response) -> {
             long diagramId = getId(request);
             OverlayDiagramWidgetInfo<AssessmentWidgetParameters> widgetParameters = readBody(request, OverlayDiagramAssessmentWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAppAssessmentWidgetData(
                             diagramId,
                             widgetParameters.assessmentBasedSelectionFilters(),
@@ -221,23 +230,25 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         };
 
 
-        DatumRoute<AggregatedEntitiesWidgetData> getAggregatedEntitiesWidgetDataRoute = (request, response) -> {
+        AsyncRoute<AggregatedEntitiesWidgetData> getAggregatedEntitiesWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramWidgetInfo<AggregatedEntitiesWidgetParameters> widgetParameters = readBody(request, OverlayDiagramAggregatedEntitiesWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getAggregatedEntitiesWidgetData(
-                            getId(request),
+                            diagramId,
                             widgetParameters.assessmentBasedSelectionFilters(),
                             widgetParameters.idSelectionOptions());
         };
 
 
-        DatumRoute<ApplicationChangeWidgetData> getApplicationChangeWidgetDataRoute = (request, response) -> {
+        AsyncRoute<ApplicationChangeWidgetData> getApplicationChangeWidgetDataRoute = (request, response) -> {
+            long diagramId = getId(request);
             OverlayDiagramWidgetInfo<AppChangeWidgetParameters> widgetParameters = readBody(request, OverlayDiagramAppChangeWidgetInfo.class, null);
 
-            return aggregateOverlayDiagramService
+            return () -> aggregateOverlayDiagramService
                     .getApplicationChangeWidgetData(
-                            getId(request),
+                            diagramId,
                             widgetParameters.idSelectionOptions(),
                             widgetParameters.overlayParameters());
         };
@@ -279,15 +290,15 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         getForDatum(getBackingEntityWidgetDataPath, getBackingEntityWidgetDataRoute);
         postForDatum(getBackingEntityWidgetDataPath, getBackingEntityWidgetDataRoute);
         getForList(findPresetsForDiagramPath, findPresetsForDiagramRoute);
-        postForDatum(getAppCountWidgetDataPath, getAppCountWidgetDataRoute);
-        postForDatum(getAttestationWidgetDataPath, getAttestationWidgetDataRoute);
-        postForDatum(findTargetAppCostWidgetDataPath, findTargetAppCostWidgetDataRoute);
-        postForDatum(getAppCostWidgetDataPath, getAppCostWidgetDataRoute);
-        postForDatum(getRatingCostWidgetDataPath, getRatingCostWidgetDataRoute);
-        postForDatum(getAppAssessmentWidgetDataPath, getAppAssessmentWidgetDataRoute);
-        postForDatum(getAggregatedEntitiesWidgetDataPath, getAggregatedEntitiesWidgetDataRoute);
-        postForDatum(getComplexityWidgetDataPath, getComplexityWidgetDataRoute);
-        postForDatum(getApplicationChangeWidgetDataPath, getApplicationChangeWidgetDataRoute);
+        postForDatum(getAppCountWidgetDataPath, asyncJobLane.heavy("overlay-app-count-widget", getAppCountWidgetDataRoute));
+        postForDatum(getAttestationWidgetDataPath, asyncJobLane.heavy("overlay-attestation-widget", getAttestationWidgetDataRoute));
+        postForDatum(findTargetAppCostWidgetDataPath, asyncJobLane.heavy("overlay-target-app-cost-widget", findTargetAppCostWidgetDataRoute));
+        postForDatum(getAppCostWidgetDataPath, asyncJobLane.heavy("overlay-app-cost-widget", getAppCostWidgetDataRoute));
+        postForDatum(getRatingCostWidgetDataPath, asyncJobLane.heavy("overlay-rating-cost-widget", getRatingCostWidgetDataRoute));
+        postForDatum(getAppAssessmentWidgetDataPath, asyncJobLane.heavy("overlay-app-assessment-widget", getAppAssessmentWidgetDataRoute));
+        postForDatum(getAggregatedEntitiesWidgetDataPath, asyncJobLane.heavy("overlay-aggregated-entities-widget", getAggregatedEntitiesWidgetDataRoute));
+        postForDatum(getComplexityWidgetDataPath, asyncJobLane.heavy("overlay-complexity-widget", getComplexityWidgetDataRoute));
+        postForDatum(getApplicationChangeWidgetDataPath, asyncJobLane.heavy("overlay-app-change-widget", getApplicationChangeWidgetDataRoute));
         postForDatum(createPresetPath, createPresetRoute);
         postForDatum(savePath, saveRoute);
         postForDatum(updateStatusPath, updateStatusRoute);
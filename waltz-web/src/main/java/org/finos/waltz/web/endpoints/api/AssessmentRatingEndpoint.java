@@ -51,6 +51,7 @@ import spark.Request;
 import spark.Response;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -117,8 +118,13 @@ public class AssessmentRatingEndpoint implements Endpoint {
         String bulkAssessmentDefinitionPreviewPath = mkPath(BASE_URL, "bulk", "preview", "ASSESSMENT_DEFINITION", ":id");
         String bulkAssessmentDefinitionApplyPath = mkPath(BASE_URL, "bulk", "apply", "ASSESSMENT_DEFINITION", ":id");
 
+        String bulkAssessmentDefinitionXlsxPreviewPath = mkPath(bulkAssessmentDefinitionPreviewPath, "xlsx");
+        String bulkAssessmentDefinitionXlsxApplyPath = mkPath(bulkAssessmentDefinitionApplyPath, "xlsx");
+
         registerPreviewBulkAssessmentRatingChanges(bulkAssessmentDefinitionPreviewPath);
         registerApplyBulkAssessmentRatingChanges(bulkAssessmentDefinitionApplyPath);
+        registerPreviewBulkAssessmentRatingXlsxChanges(bulkAssessmentDefinitionXlsxPreviewPath);
+        registerApplyBulkAssessmentRatingXlsxChanges(bulkAssessmentDefinitionXlsxApplyPath);
 
         getForList(findForEntityPath, this::findForEntityRoute);
         getForList(findByEntityKindPath, this::findByEntityKindRoute);
@@ -323,5 +329,23 @@ public class AssessmentRatingEndpoint implements Endpoint {
         });
     }
 
-}
+    private void registerPreviewBulkAssessmentRatingXlsxChanges(String path) {
+        postForDatum(path, (req, resp) -> {
+            EntityReference assessmentDefRef = mkRef(EntityKind.ASSESSMENT_DEFINITION, getId(req));
+            try (InputStream body = req.raw().getInputStream()) {
+                return bulkAssessmentRatingService.bulkPreview(assessmentDefRef, body);
+            }
+        });
+    }
 
+    private void registerApplyBulkAssessmentRatingXlsxChanges(String path) {
+        postForDatum(path, (req, resp) -> {
+            EntityReference assessmentDefRef = mkRef(EntityKind.ASSESSMENT_DEFINITION, getId(req));
+            try (InputStream body = req.raw().getInputStream()) {
+                AssessmentRatingValidationResult preview = bulkAssessmentRatingService.bulkPreview(assessmentDefRef, body);
+                return bulkAssessmentRatingService.apply(assessmentDefRef, preview, getUsername(req));
+            }
+        });
+    }
+
+}
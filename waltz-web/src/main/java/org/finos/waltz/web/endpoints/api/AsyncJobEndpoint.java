@@ -0,0 +1,137 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.common.exception.NotFoundException;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.HttpStatus;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.MimeTypes;
+import org.finos.waltz.web.NotAuthorizedException;
+import org.finos.waltz.web.async.AsyncJob;
+import org.finos.waltz.web.async.AsyncJobLane;
+import org.finos.waltz.web.async.AsyncJobResult;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.finos.waltz.web.json.AsyncJobInfo;
+import org.finos.waltz.web.json.AsyncJobLaneStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.getUsername;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.WebUtilities.reportException;
+import static org.finos.waltz.web.WebUtilities.transformer;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.deleteForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+
+
+/**
+ * Allows clients to poll, collect and cancel jobs submitted to the {@link AsyncJobLane}
+ * and exposes the lane statistics (queue depth, wait times) used to size the pool.
+ */
+@Service
+public class AsyncJobEndpoint implements Endpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncJobEndpoint.class);
+    private static final String BASE_URL = mkPath("api", "async-job");
+
+    private final AsyncJobLane asyncJobLane;
+
+
+    @Autowired
+    public AsyncJobEndpoint(AsyncJobLane asyncJobLane) {
+        checkNotNull(asyncJobLane, "asyncJobLane cannot be null");
+        this.asyncJobLane = asyncJobLane;
+    }
+
+
+    @Override
+    public void register() {
+        String getByIdPath = mkPath(BASE_URL, "id", ":id");
+        String getResultByIdPath = mkPath(BASE_URL, "id", ":id", "result");
+        String findForUserPath = mkPath(BASE_URL, "user");
+        String statsPath = mkPath(BASE_URL, "stats");
+
+        DatumRoute<AsyncJobInfo> getByIdRoute = (request, response) -> asyncJobLane.toInfo(getJob(request));
+
+        DatumRoute<Boolean> cancelRoute = (request, response) -> asyncJobLane.cancel(getJob(request));
+
+        ListRoute<AsyncJobInfo> findForUserRoute = (request, response) -> asyncJobLane.findForUser(getUsername(request));
+
+        DatumRoute<AsyncJobLaneStats> statsRoute = (request, response) -> asyncJobLane.getStats();
+
+        getForDatum(getByIdPath, getByIdRoute);
+        deleteForDatum(getByIdPath, cancelRoute);
+        getForList(findForUserPath, findForUserRoute);
+        getForDatum(statsPath, statsRoute);
+        Spark.get(getResultByIdPath, this::getResultRoute);
+    }
+
+
+    private Object getResultRoute(Request request,
+                                  Response response) throws Exception {
+        AsyncJob job = getJob(request);
+
+        switch (job.status()) {
+            case COMPLETED:
+                AsyncJobResult result = job
+                        .result()
+                        .orElseThrow(() -> new NotFoundException("ASYNC_JOB_RESULT_NOT_FOUND", "Result is no longer available"));
+                result.writeTo(response.raw());
+                asyncJobLane.remove(job);
+                return response.raw();
+            case FAILED:
+            case CANCELLED:
+                asyncJobLane.remove(job);
+                reportException(
+                        HttpStatus.INTERNAL_SERVER_ERROR_500,
+                        "ASYNC_JOB_" + job.status(),
+                        asyncJobLane.toInfo(job).message().orElse("Job " + job.status().name().toLowerCase()),
+                        response,
+                        LOG);
+                return response.body();
+            default:
+                response.status(HttpStatus.ACCEPTED_202);
+                response.type(MimeTypes.APPLICATION_JSON_UTF_8);
+                return transformer.render(asyncJobLane.toInfo(job));
+        }
+    }
+
+
+    private AsyncJob getJob(Request request) {
+        String id = request.params("id");
+        AsyncJob job = asyncJobLane
+                .find(id)
+                .orElseThrow(() -> new NotFoundException("ASYNC_JOB_NOT_FOUND", "No job found with id: " + id));
+
+        if (! job.username().equals(getUsername(request))) {
+            throw new NotAuthorizedException("Job belongs to another user");
+        }
+
+        return job;
+    }
+}
@@ -33,6 +33,7 @@ import java.util.Optional;
 
 import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
 import static org.finos.waltz.web.WebUtilities.*;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.postForList;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -60,6 +61,14 @@ public class ChangeLogEndpoint implements Endpoint {
                 mkPath(BASE_URL, "user", ":userId"),
                 (request, response) -> service.findByUser(request.params("userId"), getLimit(request)));
 
+        // registered before the ':kind/:id/page' route so 'user' is not mistaken for an entity kind
+        getForDatum(
+                mkPath(BASE_URL, "user", ":userId", "page"),
+                (request, response) -> service.getPageByUser(
+                        request.params("userId"),
+                        getCursor(request),
+                        getLimit(request)));
+
         postForList(
                 mkPath(BASE_URL, "summaries", ":kind"),
                 (request, response) -> service.findCountByDateForParentKindBySelector(
@@ -81,6 +90,13 @@ public class ChangeLogEndpoint implements Endpoint {
                     }
                 });
 
+        getForDatum(
+                mkPath(BASE_URL, ":kind", ":id", "page"),
+                (request, response) -> service.getPageByReference(
+                        getEntityReference(request),
+                        getCursor(request),
+                        getLimit(request)));
+
         getForList(
                 mkPath(BASE_URL, ":kind", ":id", "date-range"),
                 (request, response) -> {
@@ -107,6 +123,11 @@ public class ChangeLogEndpoint implements Endpoint {
     }
 
 
+    private Optional<String> getCursor(Request request) {
+        return Optional.ofNullable(request.queryParams("cursor"));
+    }
+
+
     private java.sql.Date getStartDate(Request request) throws ParseException {
         SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
         return toSqlDate(formatter.parse(request.queryParams("startDate")));
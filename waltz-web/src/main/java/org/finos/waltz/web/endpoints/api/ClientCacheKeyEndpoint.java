@@ -18,10 +18,12 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.service.client_cache_key.CacheInvalidationService;
 import org.finos.waltz.service.client_cache_key.ClientCacheKeyService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
+import org.finos.waltz.model.client_cache_key.CacheInvalidationStats;
 import org.finos.waltz.model.client_cache_key.ClientCacheKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -36,11 +38,14 @@ public class ClientCacheKeyEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "client-cache-key");
 
     private final ClientCacheKeyService clientCacheKeyService;
+    private final CacheInvalidationService cacheInvalidationService;
 
 
     @Autowired
-    public ClientCacheKeyEndpoint(ClientCacheKeyService clientCacheKeyService) {
+    public ClientCacheKeyEndpoint(ClientCacheKeyService clientCacheKeyService,
+                                  CacheInvalidationService cacheInvalidationService) {
         this.clientCacheKeyService = clientCacheKeyService;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
 
@@ -49,6 +54,7 @@ public class ClientCacheKeyEndpoint implements Endpoint {
         String findAllPath = mkPath(BASE_URL, "all");
         String getByKeyPath = mkPath(BASE_URL, "key", ":key");
         String createOrUpdatePath = mkPath(BASE_URL, "update", ":key");
+        String invalidationStatsPath = mkPath(BASE_URL, "invalidation", "stats");
 
         ListRoute<ClientCacheKey> findAllRoute = (req, res) -> clientCacheKeyService.findAll();
 
@@ -62,8 +68,11 @@ public class ClientCacheKeyEndpoint implements Endpoint {
             return clientCacheKeyService.createOrUpdate(key);
         };
 
+        DatumRoute<CacheInvalidationStats> invalidationStatsRoute = (req, res) -> cacheInvalidationService.getStats();
+
         getForList(findAllPath, findAllRoute);
         getForDatum(getByKeyPath, getByKeyRoute);
         postForDatum(createOrUpdatePath, createOrUpdateRoute);
+        getForDatum(invalidationStatsPath, invalidationStatsRoute);
     }
 }
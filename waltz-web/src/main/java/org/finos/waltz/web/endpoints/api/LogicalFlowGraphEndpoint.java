@@ -0,0 +1,131 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphPath;
+import org.finos.waltz.model.logical_flow.LogicalFlowGraphTraversal;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import spark.Request;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.getEntityReference;
+import static org.finos.waltz.web.WebUtilities.getInt;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+
+/**
+ * Lineage queries answered from the in-memory logical flow graph.
+ *
+ * Optional query parameters: <code>dataTypeId</code> restricts traversals
+ * (and strict paths) to flows carrying that data type, <code>maxDepth</code>
+ * limits the number of hops taken by upstream/downstream traversals.
+ */
+@Service
+public class LogicalFlowGraphEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "logical-flow-graph");
+
+    private final LogicalFlowGraphService logicalFlowGraphService;
+
+
+    @Autowired
+    public LogicalFlowGraphEndpoint(LogicalFlowGraphService logicalFlowGraphService) {
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
+        this.logicalFlowGraphService = logicalFlowGraphService;
+    }
+
+
+    @Override
+    public void register() {
+        String getUpstreamPath = mkPath(BASE_URL, "upstream", ":kind", ":id");
+        String getDownstreamPath = mkPath(BASE_URL, "downstream", ":kind", ":id");
+        String getNeighbourhoodPath = mkPath(BASE_URL, "neighbourhood", ":kind", ":id", ":hops");
+        String findShortestPathPath = mkPath(BASE_URL, "path", ":sourceKind", ":sourceId", ":targetKind", ":targetId");
+        String findStrictShortestPathsPath = mkPath(BASE_URL, "strict-path", ":sourceKind", ":sourceId", ":targetKind", ":targetId");
+
+        DatumRoute<LogicalFlowGraphTraversal> getUpstreamRoute = (request, response)
+                -> logicalFlowGraphService.getUpstream(
+                        getEntityReference(request),
+                        getDataTypeId(request),
+                        getMaxDepth(request));
+
+        DatumRoute<LogicalFlowGraphTraversal> getDownstreamRoute = (request, response)
+                -> logicalFlowGraphService.getDownstream(
+                        getEntityReference(request),
+                        getDataTypeId(request),
+                        getMaxDepth(request));
+
+        DatumRoute<LogicalFlowGraphTraversal> getNeighbourhoodRoute = (request, response)
+                -> logicalFlowGraphService.getNeighbourhood(
+                        getEntityReference(request),
+                        getInt(request, "hops"),
+                        getDataTypeId(request));
+
+        DatumRoute<LogicalFlowGraphPath> findShortestPathRoute = (request, response)
+                -> logicalFlowGraphService
+                    .findShortestPath(getSource(request), getTarget(request))
+                    .orElse(null);
+
+        ListRoute<LogicalFlowGraphPath> findStrictShortestPathsRoute = (request, response)
+                -> logicalFlowGraphService.findStrictShortestPaths(
+                        getSource(request),
+                        getTarget(request),
+                        getDataTypeId(request));
+
+        getForDatum(getUpstreamPath, getUpstreamRoute);
+        getForDatum(getDownstreamPath, getDownstreamRoute);
+        getForDatum(getNeighbourhoodPath, getNeighbourhoodRoute);
+        getForDatum(findShortestPathPath, findShortestPathRoute);
+        getForList(findStrictShortestPathsPath, findStrictShortestPathsRoute);
+    }
+
+
+    private static EntityReference getSource(Request request) {
+        return getEntityReference(request, "sourceKind", "sourceId");
+    }
+
+
+    private static EntityReference getTarget(Request request) {
+        return getEntityReference(request, "targetKind", "targetId");
+    }
+
+
+    private static Optional<Long> getDataTypeId(Request request) {
+        return Optional
+                .ofNullable(request.queryParams("dataTypeId"))
+                .map(Long::valueOf);
+    }
+
+
+    private static Optional<Integer> getMaxDepth(Request request) {
+        return Optional
+                .ofNullable(request.queryParams("maxDepth"))
+                .map(Integer::valueOf);
+    }
+}
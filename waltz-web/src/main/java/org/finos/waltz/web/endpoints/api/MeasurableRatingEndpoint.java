@@ -51,6 +51,7 @@ import spark.Request;
 import spark.Response;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Set;
 
@@ -130,8 +131,13 @@ public class MeasurableRatingEndpoint implements Endpoint {
         String bulkRatingPreviewPath = mkPath(BASE_URL, "bulk", "preview", "MEASURABLE_CATEGORY", ":id");
         String bulkRatingApplyPath = mkPath(BASE_URL, "bulk", "apply", "MEASURABLE_CATEGORY", ":id");
 
+        String bulkRatingXlsxPreviewPath = mkPath(bulkRatingPreviewPath, "xlsx");
+        String bulkRatingXlsxApplyPath = mkPath(bulkRatingApplyPath, "xlsx");
+
         registerPreviewBulkMeasurableRatingChanges(bulkRatingPreviewPath);
         registerApplyBulkMeasurableRatingChanges(bulkRatingApplyPath);
+        registerPreviewBulkMeasurableRatingXlsxChanges(bulkRatingXlsxPreviewPath);
+        registerApplyBulkMeasurableRatingXlsxChanges(bulkRatingXlsxApplyPath);
 
         DatumRoute<MeasurableRating> getByIdRoute = (request, response)
                 -> measurableRatingService.getById(getId(request));
@@ -293,4 +299,26 @@ public class MeasurableRatingEndpoint implements Endpoint {
             return bulkMeasurableRatingService.apply(categoryRef, preview, mode, getUsername(req));
         });
     }
+
+
+    private void registerPreviewBulkMeasurableRatingXlsxChanges(String path) {
+        postForDatum(path, (req, resp) -> {
+            EntityReference categoryRef = mkRef(EntityKind.MEASURABLE_CATEGORY, getId(req));
+            BulkUpdateMode mode = EnumUtilities.readEnum(req.queryParams("mode"), BulkUpdateMode.class, s -> BulkUpdateMode.ADD_ONLY);
+            try (InputStream body = req.raw().getInputStream()) {
+                return bulkMeasurableRatingService.bulkPreview(categoryRef, body, mode);
+            }
+        });
+    }
+
+    private void registerApplyBulkMeasurableRatingXlsxChanges(String path) {
+        postForDatum(path, (req, resp) -> {
+            EntityReference categoryRef = mkRef(EntityKind.MEASURABLE_CATEGORY, getId(req));
+            BulkUpdateMode mode = EnumUtilities.readEnum(req.queryParams("mode"), BulkUpdateMode.class, s -> BulkUpdateMode.ADD_ONLY);
+            try (InputStream body = req.raw().getInputStream()) {
+                BulkMeasurableRatingValidationResult preview = bulkMeasurableRatingService.bulkPreview(categoryRef, body, mode);
+                return bulkMeasurableRatingService.apply(categoryRef, preview, mode, getUsername(req));
+            }
+        });
+    }
 }
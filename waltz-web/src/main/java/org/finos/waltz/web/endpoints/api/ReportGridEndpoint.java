@@ -18,10 +18,14 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.common.EnumUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
+import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.report_grid.*;
+import org.finos.waltz.service.report_grid.ReportGridQueryService;
 import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.web.async.AsyncJobLane;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -30,6 +34,7 @@ import spark.Response;
 
 import java.io.IOException;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.finos.waltz.web.WebUtilities.*;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.*;
@@ -40,11 +45,17 @@ public class ReportGridEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "report-grid");
 
     private final ReportGridService reportGridService;
+    private final ReportGridQueryService reportGridQueryService;
+    private final AsyncJobLane asyncJobLane;
 
 
     @Autowired
-    public ReportGridEndpoint(ReportGridService reportGridService) {
+    public ReportGridEndpoint(ReportGridService reportGridService,
+                              ReportGridQueryService reportGridQueryService,
+                              AsyncJobLane asyncJobLane) {
         this.reportGridService = reportGridService;
+        this.reportGridQueryService = reportGridQueryService;
+        this.asyncJobLane = asyncJobLane;
     }
 
 
@@ -59,6 +70,7 @@ public class ReportGridEndpoint implements Endpoint {
         String clonePath = mkPath(BASE_URL, "id", ":id", "clone");
         String findForOwnerPath = mkPath(BASE_URL, "definition", "owner");
         String getViewByIdPath = mkPath(BASE_URL, "view", "id", ":id");
+        String queryViewByIdPath = mkPath(BASE_URL, "view", "id", ":id", "query");
         String getDefinitionByIdPath = mkPath(BASE_URL, "definition", "id", ":id");
         String updateColumnDefsPath = mkPath(BASE_URL, "id", ":id", "column-definitions", "update");
         String findAdditionalColumnOptionsForKindPath = mkPath(BASE_URL, "additional-column-options", "kind", ":kind");
@@ -68,7 +80,8 @@ public class ReportGridEndpoint implements Endpoint {
         getForList(findGridInfoForUserPath, (req, resp) -> reportGridService.findGridInfoForUser(getUsername(req)));
         getForList(findForOwnerPath, this::findDefinitionsForOwnerRoute);
         getForList(findAdditionalColumnOptionsForKindPath, this::findAdditionalColumnOptionsForKindRoute);
-        postForDatum(getViewByIdPath, this::getViewByIdRoute);
+        postForDatum(getViewByIdPath, asyncJobLane.heavy("report-grid-view", this::prepareViewByIdRoute));
+        postForDatum(queryViewByIdPath, asyncJobLane.heavy("report-grid-query", this::prepareQueryViewByIdRoute));
         getForDatum(getDefinitionByIdPath, this::getDefinitionByIdRoute);
         postForDatum(updateColumnDefsPath, this::updateColumnDefsRoute);
         postForDatum(createPath, this::createRoute);
@@ -86,16 +99,64 @@ public class ReportGridEndpoint implements Endpoint {
     }
 
 
-    public ReportGrid getViewByIdRoute(Request req,
-                                       Response resp) throws IOException {
-        return reportGridService
+    /**
+     * Prepares the grid view, the optional <code>format</code> query parameter
+     * (see {@link ReportGridPayloadFormat}) selects the payload shape, defaulting to STANDARD.
+     */
+    public Callable<?> prepareViewByIdRoute(Request req,
+                                            Response resp) throws IOException {
+        long id = getId(req);
+        IdSelectionOptions selectionOptions = readIdSelectionOptionsFromBody(req);
+        String username = getUsername(req);
+        ReportGridPayloadFormat format = readPayloadFormat(req);
+
+        if (format == ReportGridPayloadFormat.COMPACT) {
+            return () -> reportGridService
+                    .getCompactByIdAndSelectionOptions(
+                            id,
+                            selectionOptions,
+                            username)
+                    .orElseThrow(() -> new NotFoundException("404", "ID not found"));
+        }
+
+        return () -> reportGridService
                 .getByIdAndSelectionOptions(
-                        getId(req),
-                        readIdSelectionOptionsFromBody(req),
-                        getUsername(req))
+                        id,
+                        selectionOptions,
+                        username)
+                .orElseThrow(() -> new NotFoundException("404", "ID not found"));
+    }
+
+
+    public Callable<ReportGridPage> prepareQueryViewByIdRoute(Request req,
+                                                              Response resp) throws IOException {
+        long id = getId(req);
+        ReportGridQuery query = readBody(req, ReportGridQuery.class);
+        String username = getUsername(req);
+
+        return () -> reportGridQueryService
+                .query(
+                        id,
+                        query,
+                        username)
                 .orElseThrow(() -> new NotFoundException("404", "ID not found"));
     }
 
+
+    private ReportGridPayloadFormat readPayloadFormat(Request req) {
+        String format = req.queryParams("format");
+        if (format == null) {
+            return ReportGridPayloadFormat.STANDARD;
+        }
+        return EnumUtilities.readEnum(
+                format.toUpperCase(),
+                ReportGridPayloadFormat.class,
+                s -> {
+                    throw new IllegalArgumentException("Unknown report grid payload format: " + s);
+                });
+    }
+
+
     public ReportGridDefinition getDefinitionByIdRoute(Request req,
                                                        Response resp) throws IOException {
         return reportGridService.getGridDefinitionById(getId(req));
@@ -21,21 +21,19 @@ package org.finos.waltz.web.endpoints.extracts;
 import org.finos.waltz.data.changelog.ChangeLogDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
-import org.finos.waltz.schema.tables.ChangeLog;
 import org.finos.waltz.web.WebUtilities;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.Record4;
 import org.jooq.Select;
-import org.jooq.SelectConditionStep;
 import org.jooq.SelectJoinStep;
-import org.jooq.SelectQuery;
 import org.jooq.SelectSeekStep1;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
+import java.util.Optional;
 
 import static java.lang.String.format;
 import static org.finos.waltz.schema.Tables.CHANGE_LOG;
@@ -47,9 +45,14 @@ import static spark.Spark.post;
 @Service
 public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
 
+    private final ChangeLogDao changeLogDao;
+
+
     @Autowired
-    public ChangeLogExtractor(DSLContext dsl) {
+    public ChangeLogExtractor(DSLContext dsl,
+                              ChangeLogDao changeLogDao) {
         super(dsl);
+        this.changeLogDao = changeLogDao;
     }
 
     @Override
@@ -84,19 +87,15 @@ public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
 
 
     private Select<Record> mkQuery(EntityReference entityRef) {
-        Select<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(ChangeLog.CHANGE_LOG)
-                .where(ChangeLog.CHANGE_LOG.PARENT_ID.eq(entityRef.id()))
-                .and(ChangeLog.CHANGE_LOG.PARENT_KIND.eq(entityRef.kind().name()));
+        Select<Record> byParentRef = changeLogDao.mkChangeLogQuery(t -> t.PARENT_ID.eq(entityRef.id())
+                .and(t.PARENT_KIND.eq(entityRef.kind().name())));
 
         switch (entityRef.kind()) {
             case PERSON:
-                SelectConditionStep<Record> byUserId = DSL
-                        .select(CHANGE_LOG.fields())
-                        .from(ChangeLog.CHANGE_LOG)
-                        .innerJoin(PERSON).on(PERSON.EMAIL.eq(ChangeLog.CHANGE_LOG.USER_ID))
-                        .where(PERSON.ID.eq(entityRef.id()));
+                Select<Record> byUserId = changeLogDao.mkChangeLogQuery(t -> t.USER_ID.in(DSL
+                        .select(PERSON.EMAIL)
+                        .from(PERSON)
+                        .where(PERSON.ID.eq(entityRef.id()))));
                 return byParentRef.unionAll(byUserId);
             default:
                 return byParentRef;
@@ -124,21 +123,15 @@ public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
 
 
     private SelectJoinStep<Record4<String, String, String, Timestamp>> mkUnattestedChangesQuery(EntityReference entityRef, EntityKind childKind) {
-        org.finos.waltz.schema.tables.ChangeLog cl = org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG.as("cl");
-
-        SelectConditionStep<Record> qry = ChangeLogDao.mkUnattestedChangesQuery(entityRef);
-
-        SelectQuery<Record> selectQuery = dsl
-                .selectQuery(qry
-                        .and(cl.CHILD_KIND.eq(childKind.name())));
+        Select<Record> qry = changeLogDao.mkUnattestedChangesQuery(entityRef, Optional.of(childKind));
 
         return dsl
                 .select(
-                        selectQuery.field(cl.SEVERITY).as("Severity"),
-                        selectQuery.field(cl.MESSAGE).as("Message"),
-                        selectQuery.field(cl.USER_ID).as("User"),
-                        selectQuery.field(cl.CREATED_AT).as("Timestamp"))
-                .from(selectQuery);
+                        qry.field(CHANGE_LOG.SEVERITY).as("Severity"),
+                        qry.field(CHANGE_LOG.MESSAGE).as("Message"),
+                        qry.field(CHANGE_LOG.USER_ID).as("User"),
+                        qry.field(CHANGE_LOG.CREATED_AT).as("Timestamp"))
+                .from(qry);
     }
 
 }
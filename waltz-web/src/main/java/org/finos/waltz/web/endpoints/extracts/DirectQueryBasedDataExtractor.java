@@ -24,22 +24,34 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.finos.waltz.data.replica.ReadReplicaRouter;
 import org.finos.waltz.web.MimeTypes;
+import org.finos.waltz.web.WebException;
+import org.finos.waltz.web.WebUtilities;
+import org.finos.waltz.web.async.AsyncJobLane;
 import org.jooq.DSLContext;
 import org.jooq.JSONFormat;
 import org.jooq.Result;
 import org.jooq.Select;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.fi.util.function.CheckedSupplier;
 import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.springframework.beans.factory.annotation.Autowired;
 import spark.Request;
 import spark.Response;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.StringUtilities.mkSafe;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
@@ -47,12 +59,36 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
 
     protected DSLContext dsl;
 
+    private AsyncJobLane asyncJobLane;
+
+    private ReadReplicaRouter readReplicaRouter;
+
+
     public DirectQueryBasedDataExtractor(DSLContext dsl) {
         checkNotNull(dsl, "dsl cannot be null");
         this.dsl = dsl;
     }
 
 
+    /**
+     * If provided, extracts are prepared on the async job lane rather than the
+     * request thread (and may be detached, see {@link AsyncJobLane}).
+     */
+    @Autowired(required = false)
+    public void setAsyncJobLane(AsyncJobLane asyncJobLane) {
+        this.asyncJobLane = asyncJobLane;
+    }
+
+
+    /**
+     * If provided, extract queries may be served by the read replica.
+     */
+    @Autowired(required = false)
+    public void setReadReplicaRouter(ReadReplicaRouter readReplicaRouter) {
+        this.readReplicaRouter = readReplicaRouter;
+    }
+
+
     protected Object writeExtract(String suggestedFilenameStem,
                                   Select<?> qry,
                                   Request request,
@@ -63,10 +99,35 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
             throw new IllegalArgumentException(String.format("Client specified format=%s. This endpoint does not support JSON."+
                     "This is to prevent unintentional usage as a public API",extractFormat));
         }
-        return writeSupportedExtract(extractFormat, suggestedFilenameStem, qry, response);
 
+        if (asyncJobLane == null) {
+            return read(() -> writeSupportedExtract(extractFormat, suggestedFilenameStem, qry, response));
+        }
+
+        try {
+            return asyncJobLane.execute(
+                    "extract: " + suggestedFilenameStem,
+                    request,
+                    response,
+                    () -> tuple(extractFormat, suggestedFilenameStem, read(() -> prepareExtract(extractFormat, suggestedFilenameStem, qry))),
+                    ExtractorUtilities::toAsyncJobResult,
+                    report -> writePreparedExtract(report, response),
+                    WebUtilities.transformer::render);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebException("EXTRACT_FAILED", mkSafe(e.getMessage()), e);
+        }
     }
 
+    private <T> T read(CheckedSupplier<T> supplier) {
+        Supplier<T> unchecked = Unchecked.supplier(supplier);
+        return readReplicaRouter == null
+                ? unchecked.get()
+                : readReplicaRouter.read(unchecked);
+    }
+
+
     private Object writeSupportedExtract(ExtractFormat extractFormat,
                                          String suggestedFilenameStem,
                                          Select<?> qry,
@@ -83,9 +144,48 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
         }
     }
 
+
+    private byte[] prepareExtract(ExtractFormat extractFormat,
+                                  String suggestedFilenameStem,
+                                  Select<?> qry) throws IOException {
+        switch (extractFormat) {
+            case XLSX:
+                return ExtractorUtilities.convertExcelToByteArray(mkExcelWorkbook(suggestedFilenameStem, qry));
+            case CSV:
+                return qry.fetch().formatCSV().getBytes(StandardCharsets.UTF_8);
+            case JSON:
+                return formatJson(qry).getBytes(StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("Cannot prepare extract using unknown format: " + extractFormat);
+        }
+    }
+
+
+    private Object writePreparedExtract(Tuple3<ExtractFormat, String, byte[]> report,
+                                        Response response) throws IOException {
+        switch (report.v1) {
+            case XLSX:
+                return writeReportResults(response, report);
+            case CSV:
+                response.type(MimeTypes.TEXT_PLAIN);
+                response.header("Content-disposition", "attachment; filename=" + report.v2 + ".csv");
+                return new String(report.v3, StandardCharsets.UTF_8);
+            case JSON:
+                response.type(MimeTypes.APPLICATION_JSON_UTF_8);
+                return new String(report.v3, StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("Cannot write extract using unknown format: " + report.v1);
+        }
+    }
+
     private String writeAsJson(Select<?> qry,
                                Response response) {
         response.type(MimeTypes.APPLICATION_JSON_UTF_8);
+        return formatJson(qry);
+    }
+
+
+    private String formatJson(Select<?> qry) {
         return query(dsl, qry)
                 .formatJSON(new JSONFormat()
                         .header(false)
@@ -96,7 +196,7 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
     private Result<?> query(DSLContext dslContext, Select<?> qry){
         return dslContext == null
                 ? qry.fetch()
-                : dslContext.fetch(dslContext.renderInlined(qry));
+                : dslContext.fetch(bindOrInline(dslContext, qry));
     }
 
 
@@ -130,6 +230,12 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
     private static Object writeAsExcel(String suggestedFilenameStem,
                                        Select<?> qry,
                                        Response response) throws IOException {
+        return writeExcelToResponse(suggestedFilenameStem, response, mkExcelWorkbook(suggestedFilenameStem, qry));
+    }
+
+
+    private static SXSSFWorkbook mkExcelWorkbook(String suggestedFilenameStem,
+                                                 Select<?> qry) {
         SXSSFWorkbook workbook = new SXSSFWorkbook(2000);
         SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(suggestedFilenameStem));
 
@@ -143,7 +249,7 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
         sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
         sheet.createFreezePane(0, 1);
 
-        return writeExcelToResponse(suggestedFilenameStem, response, workbook);
+        return workbook;
     }
 
 
@@ -184,7 +290,7 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
 
         Result<?> records = dsl == null
                 ? qry.fetch()
-                : dsl.fetch(dsl.renderInlined(qry));
+                : dsl.fetch(bindOrInline(dsl, qry));
 
         int colCount = qry.fields().length;
         records.forEach(r -> {
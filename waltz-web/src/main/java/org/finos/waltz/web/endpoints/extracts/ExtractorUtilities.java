@@ -2,6 +2,9 @@ package org.finos.waltz.web.endpoints.extracts;
 
 
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.finos.waltz.web.MimeTypes;
+import org.finos.waltz.web.async.AsyncJobResult;
+import org.jooq.lambda.tuple.Tuple3;
 import spark.Request;
 
 import java.io.ByteArrayOutputStream;
@@ -13,6 +16,8 @@ import static org.finos.waltz.common.StringUtilities.mkSafe;
 
 public class ExtractorUtilities {
 
+    public static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
 
     public static byte[] convertExcelToByteArray(SXSSFWorkbook workbook) throws IOException {
         ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
@@ -48,4 +53,26 @@ public class ExtractorUtilities {
         return mkSafe(name).replaceAll("[:;*?/\\\\]", "");
     }
 
+
+    /**
+     * Converts a prepared report into a result which can be collected later from
+     * the async job lane, using the same content type and file naming as
+     * <code>DataExtractor.writeReportResults</code>.
+     *
+     * @param report  tuple of (format, filename stem, content)
+     * @return job result representing the report
+     */
+    public static AsyncJobResult toAsyncJobResult(Tuple3<ExtractFormat, String, byte[]> report) {
+        switch (report.v1) {
+            case CSV:
+                return AsyncJobResult.of(MimeTypes.TEXT_PLAIN, report.v2 + ".csv", report.v3);
+            case XLSX:
+                return AsyncJobResult.of(XLSX_CONTENT_TYPE, report.v2 + ".xlsx", report.v3);
+            case JSON:
+                return AsyncJobResult.of(MimeTypes.APPLICATION_JSON_UTF_8, null, report.v3);
+            default:
+                throw new IllegalArgumentException("Cannot convert report with unknown format: " + report.v1);
+        }
+    }
+
 }
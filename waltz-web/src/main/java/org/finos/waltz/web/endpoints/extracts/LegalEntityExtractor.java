@@ -35,6 +35,7 @@ import java.sql.Timestamp;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.LEGAL_ENTITY;
 import static org.finos.waltz.schema.Tables.LEGAL_ENTITY_RELATIONSHIP;
 import static org.finos.waltz.schema.Tables.LEGAL_ENTITY_RELATIONSHIP_KIND;
@@ -96,7 +97,7 @@ public class LegalEntityExtractor extends DirectQueryBasedDataExtractor {
                             .and(LEGAL_ENTITY_RELATIONSHIP_KIND.TARGET_KIND.eq(LEGAL_ENTITY_RELATIONSHIP.TARGET_KIND)))
                     .innerJoin(LEGAL_ENTITY)
                     .on(LEGAL_ENTITY.ID.eq(LEGAL_ENTITY_RELATIONSHIP.LEGAL_ENTITY_ID))
-                    .where(dsl.renderInlined(LEGAL_ENTITY_RELATIONSHIP.TARGET_KIND.eq(entityRef.kind().name())
+                    .where(bindOrInline(dsl, LEGAL_ENTITY_RELATIONSHIP.TARGET_KIND.eq(entityRef.kind().name())
                             .and(LEGAL_ENTITY_RELATIONSHIP.TARGET_ID.eq(entityRef.id()))))
                     .orderBy(LEGAL_ENTITY.NAME, LEGAL_ENTITY_RELATIONSHIP_KIND.NAME);
 
@@ -149,7 +150,7 @@ public class LegalEntityExtractor extends DirectQueryBasedDataExtractor {
                         .and(LEGAL_ENTITY_RELATIONSHIP_KIND.TARGET_KIND.eq(LEGAL_ENTITY_RELATIONSHIP.TARGET_KIND)))
                 .innerJoin(LEGAL_ENTITY)
                 .on(LEGAL_ENTITY.ID.eq(LEGAL_ENTITY_RELATIONSHIP.LEGAL_ENTITY_ID))
-                .where(dsl.renderInlined(LEGAL_ENTITY_RELATIONSHIP.LEGAL_ENTITY_ID.eq(id)))
+                .where(bindOrInline(dsl, LEGAL_ENTITY_RELATIONSHIP.LEGAL_ENTITY_ID.eq(id)))
                 .orderBy(targetEntityName, LEGAL_ENTITY_RELATIONSHIP_KIND.NAME);
     }
     
@@ -34,6 +34,7 @@ import org.springframework.stereotype.Service;
 import java.sql.Timestamp;
 
 import static java.lang.String.format;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.Tables.LICENCE;
 import static org.finos.waltz.schema.tables.SoftwareUsage.SOFTWARE_USAGE;
@@ -76,7 +77,7 @@ public class LicencesExtractor extends DirectQueryBasedDataExtractor {
                     .on(SOFTWARE_VERSION_LICENCE.SOFTWARE_VERSION_ID.eq(SOFTWARE_USAGE.SOFTWARE_VERSION_ID))
                     .innerJoin(LICENCE)
                     .on(LICENCE.ID.eq(SOFTWARE_VERSION_LICENCE.LICENCE_ID))
-                    .where(dsl.renderInlined(SOFTWARE_USAGE.APPLICATION_ID.in(appIdSelector)));
+                    .where(bindOrInline(dsl, SOFTWARE_USAGE.APPLICATION_ID.in(appIdSelector)));
 
             String filename = format("licences-%s/%s", entityRef.kind(), entityRef.id());
 
@@ -49,6 +49,7 @@ import static org.finos.waltz.common.ListUtilities.isEmpty;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.InlineSelectFieldFactory.mkExternalIdField;
 import static org.finos.waltz.data.InlineSelectFieldFactory.mkNameField;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
@@ -184,7 +185,7 @@ public class LogicalFlowExtractor extends CustomDataExtractor {
                 .innerJoin(targetClassification)
                 .on(targetClassification.CODE.eq(LOGICAL_FLOW_DECORATOR.TARGET_INBOUND_RATING)
                         .and(targetClassification.DIRECTION.eq(FlowDirection.INBOUND.name())))
-                .where(dsl.renderInlined(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name())
+                .where(bindOrInline(dsl, LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name())
                 .and(LOGICAL_FLOW.IS_REMOVED.isFalse())
                 .and(conditionForDataType)
                 .and(sourceIsApp.or(targetIsApp))));
@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static spark.Spark.get;
@@ -83,15 +84,13 @@ public class PersonApplicationExtractor extends DirectQueryBasedDataExtractor {
                 .and(APPLICATION.IS_REMOVED.isFalse());
 
         SelectConditionStep<Record9<Long, String, String, String, String, String, String, String, String>> directInvolvementQry = mkBaseInvolvementSelect(dsl, empId)
-                .where(dsl
-                        .renderInlined(INVOLVEMENT.EMPLOYEE_ID.eq(empId)
+                .where(bindOrInline(dsl, INVOLVEMENT.EMPLOYEE_ID.eq(empId)
                         .and(appIsActive)));
 
         SelectConditionStep<Record9<Long, String, String, String, String, String, String, String, String>> oversightInvolvementQry = mkBaseInvolvementSelect(dsl, empId)
                 .innerJoin(PERSON_HIERARCHY)
                 .on(PERSON_HIERARCHY.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
-                .where(dsl
-                        .renderInlined(PERSON_HIERARCHY.MANAGER_ID.eq(empId)
+                .where(bindOrInline(dsl, PERSON_HIERARCHY.MANAGER_ID.eq(empId)
                         .and(appIsActive)));
 
         return oversightInvolvementQry.union(directInvolvementQry);
@@ -32,6 +32,7 @@ import org.finos.waltz.model.report_grid.ReportSubject;
 import org.finos.waltz.service.report_grid.ReportGridService;
 import org.finos.waltz.service.settings.SettingsService;
 import org.finos.waltz.web.WebException;
+import org.finos.waltz.web.async.AsyncJobLane;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicCommaSeperatedValueFormatter;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicExcelFormatter;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicJSONFormatter;
@@ -88,6 +89,7 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
     private final DynamicJSONFormatter dynamicJSONFormatter;
     private final ReportGridService reportGridService;
     private final SettingsService settingsService;
+    private final AsyncJobLane asyncJobLane;
 
 
     @Autowired
@@ -95,13 +97,15 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
                                DynamicExcelFormatter dynamicExcelFormatter,
                                DynamicJSONFormatter dynamicJSONFormatter,
                                ReportGridService reportGridService,
-                               SettingsService settingsService) {
+                               SettingsService settingsService,
+                               AsyncJobLane asyncJobLane) {
 
         this.dynamicCommaSeperatedValueFormatter = dynamicCommaSeperatedValueFormatter;
         this.dynamicExcelFormatter = dynamicExcelFormatter;
         this.dynamicJSONFormatter = dynamicJSONFormatter;
         this.reportGridService = reportGridService;
         this.settingsService = settingsService;
+        this.asyncJobLane = asyncJobLane;
     }
 
 
@@ -185,10 +189,25 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
 
 
     private Object handleReportGridByExternalId(Request request,
-                                                Response response) throws IOException {
+                                                Response response) throws Exception {
         String externalId = request.params("externalId");
         IdSelectionOptions selectionOptions = readIdSelectionOptionsFromBody(request);
+        ExtractFormat extractFormat = parseExtractFormat(request);
+
+        return asyncJobLane.execute(
+                "report-grid-extract: " + externalId,
+                request,
+                response,
+                () -> prepareReportByExternalId(externalId, selectionOptions, extractFormat),
+                ExtractorUtilities::toAsyncJobResult,
+                report -> writeReportResults(response, report),
+                info -> info);
+    }
+
 
+    private Tuple3<ExtractFormat, String, byte[]> prepareReportByExternalId(String externalId,
+                                                                           IdSelectionOptions selectionOptions,
+                                                                           ExtractFormat extractFormat) {
         Optional<ReportGridDefinition> definition =
                 reportGridService.findByExternalId(externalId);
 
@@ -202,11 +221,8 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
                         return findReportGridById(reportGridIdentifier, selectionOptions)
                                 .map(Unchecked.function(reportGrid -> prepareReport(
                                         reportGrid,
-                                        parseExtractFormat(request),
+                                        extractFormat,
                                         selectionOptions)))
-                                .map(Unchecked.function(report -> writeReportResults(
-                                        response,
-                                        report)))
                                 .orElseThrow(() -> notFoundException.apply(reportGridIdentifier));
 
                     } catch(UncheckedIOException e) {
@@ -69,6 +69,7 @@ import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.fromArray;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
+import static org.finos.waltz.data.JooqUtilities.bindOrInline;
 import static org.finos.waltz.schema.Tables.APPLICATION;
 import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
 import static org.finos.waltz.schema.Tables.PERSON;
@@ -375,7 +376,7 @@ public class SurveyInstanceExtractor implements DataExtractor {
                 .innerJoin(si).on(si.SURVEY_RUN_ID.eq(sr.ID))
                 .leftJoin(app).on(si.ENTITY_KIND.eq(EntityKind.APPLICATION.name()).and(si.ENTITY_ID.eq(app.ID)))
                 .leftJoin(ci).on(si.ENTITY_KIND.eq(EntityKind.CHANGE_INITIATIVE.name()).and(si.ENTITY_ID.eq(ci.ID)))
-                .where(dsl.renderInlined(condition));
+                .where(bindOrInline(dsl, condition));
 
 
         SelectConditionStep<Record> responseQuery = dsl
@@ -395,7 +396,7 @@ public class SurveyInstanceExtractor implements DataExtractor {
                 .leftJoin(sqr).on(sqr.SURVEY_INSTANCE_ID.eq(si.ID))
                 .leftJoin(sqapp).on(sqr.ENTITY_RESPONSE_KIND.eq(EntityKind.APPLICATION.name()).and(sqr.ENTITY_RESPONSE_ID.eq(sqapp.ID)))
                 .leftJoin(sqp).on(sqr.ENTITY_RESPONSE_KIND.eq(EntityKind.PERSON.name()).and(sqr.ENTITY_RESPONSE_ID.eq(sqp.ID)))
-                .where(dsl.renderInlined(condition));
+                .where(bindOrInline(dsl, condition));
 
         Result<Record> instanceResults = instanceQuery.fetch();
         Map<Long, Result<Record>> responseResults = responseQuery.fetchGroups(si.ID);
@@ -0,0 +1,51 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.json;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.web.async.AsyncJobStatus;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Value.Immutable
+@JsonSerialize(as = ImmutableAsyncJobInfo.class)
+public abstract class AsyncJobInfo {
+
+    public abstract String id();
+    public abstract String name();
+    public abstract String username();
+    public abstract AsyncJobStatus status();
+    public abstract LocalDateTime submittedAt();
+    public abstract Optional<LocalDateTime> startedAt();
+    public abstract Optional<LocalDateTime> finishedAt();
+    public abstract Optional<String> message();
+
+    /**
+     * Position in the queue (zero is next), only present whilst queued
+     */
+    public abstract Optional<Integer> queuePosition();
+
+    /**
+     * Path the result can be collected from
+     */
+    public abstract String resultPath();
+}
@@ -0,0 +1,46 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.json;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+@Value.Immutable
+@JsonSerialize(as = ImmutableAsyncJobLaneStats.class)
+public abstract class AsyncJobLaneStats {
+
+    public abstract int poolSize();
+    public abstract int maxQueued();
+    public abstract int maxPerUser();
+
+    public abstract int queued();
+    public abstract int running();
+    public abstract int retainedResults();
+    public abstract long retainedResultBytes();
+
+    public abstract long completed();
+    public abstract long failed();
+    public abstract long cancelled();
+    public abstract long rejected();
+
+    public abstract long averageWaitMillis();
+    public abstract long maxWaitMillis();
+    public abstract long averageRunMillis();
+}
@@ -0,0 +1,195 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.finos.waltz.web.HttpStatus;
+import org.finos.waltz.web.WebException;
+import org.finos.waltz.web.endpoints.auth.AuthenticationUtilities;
+import org.finos.waltz.web.json.AsyncJobInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import spark.Request;
+import spark.Response;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncJobLaneTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AsyncJobLane lane = new AsyncJobLane(1, 2, 2, 10, 1, 1);
+
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        lane.destroy();
+    }
+
+
+    @Test
+    public void attachedJobsReturnTheirValue() throws Exception {
+        AsyncJob job = lane.submit("test", "a", () -> 42, null);
+        assertEquals(Integer.valueOf(42), job.await());
+        assertEquals(AsyncJobStatus.COMPLETED, job.status());
+        assertFalse(job.result().isPresent(), "attached jobs do not retain a result");
+    }
+
+
+    @Test
+    public void failuresAreRethrownToTheWaiter() {
+        AsyncJob job = lane.submit("test", "a", () -> { throw new IllegalStateException("boom"); }, null);
+        IllegalStateException e = assertThrows(IllegalStateException.class, job::await);
+        assertEquals("boom", e.getMessage());
+        assertEquals(AsyncJobStatus.FAILED, job.status());
+    }
+
+
+    @Test
+    public void detachedJobsRetainTheirResultAndSpoolLargeOnes() throws Exception {
+        AsyncJob small = lane.submit("small", "a", () -> "hello", AsyncJobResult::ofJson);
+        AsyncJob large = lane.submit("large", "b", () -> new char[4096], AsyncJobResult::ofJson);
+        small.await();
+        large.await();
+
+        assertFalse(small.result().get().isSpooled());
+        assertTrue(large.result().get().isSpooled(), "results over the threshold should be spooled to disk");
+        assertEquals(2, lane.getStats().retainedResults());
+
+        lane.remove(large);
+        assertFalse(lane.find(large.id()).isPresent());
+    }
+
+
+    @Test
+    public void usersCannotExceedTheirOutstandingLimit() {
+        lane.submit("blocker", "a", this::awaitRelease, null);
+        lane.submit("queued", "a", () -> 1, null);
+
+        AsyncJobRejectedException e = assertThrows(
+                AsyncJobRejectedException.class,
+                () -> lane.submit("rejected", "a", () -> 2, null));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS_429, e.getStatus());
+        assertEquals(1, lane.getStats().rejected());
+    }
+
+
+    @Test
+    public void laneRejectsWorkWhenQueueIsFull() throws InterruptedException {
+        AsyncJob blocker = lane.submit("blocker", "a", this::awaitRelease, null);
+        waitUntilRunning(blocker);
+
+        lane.submit("queued", "b", () -> 1, null);
+        lane.submit("queued", "c", () -> 1, null);
+
+        AsyncJobRejectedException e = assertThrows(
+                AsyncJobRejectedException.class,
+                () -> lane.submit("rejected", "d", () -> 2, null));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, e.getStatus());
+    }
+
+
+    @Test
+    public void queuedJobsCanBeCancelled() throws InterruptedException {
+        AsyncJob blocker = lane.submit("blocker", "a", this::awaitRelease, null);
+        waitUntilRunning(blocker);
+        AsyncJob queued = lane.submit("queued", "b", () -> 1, null);
+
+        assertEquals(1, lane.getStats().queued());
+        assertTrue(lane.cancel(queued));
+        assertEquals(AsyncJobStatus.CANCELLED, queued.status());
+        assertEquals(0, lane.getStats().queued());
+        assertThrows(WebException.class, queued::await);
+        assertFalse(lane.cancel(queued), "cannot cancel twice");
+    }
+
+
+    @Test
+    public void attachedRequestsAreDetachedWhenTheJobOutlivesTheWait() throws Exception {
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.attribute(AuthenticationUtilities.USER_KEY)).thenReturn("a");
+
+        Object body = lane.execute(
+                "slow",
+                request,
+                response,
+                this::awaitRelease,
+                AsyncJobResult::ofJson,
+                v -> v,
+                info -> info);
+
+        verify(response).status(HttpStatus.ACCEPTED_202);
+        AsyncJobInfo info = (AsyncJobInfo) body;
+        AsyncJob job = lane.find(info.id()).orElseThrow(() -> new AssertionError("detached job should be retained"));
+        assertTrue(job.isDetached());
+
+        release.countDown();
+        job.await();
+        assertTrue(job.result().isPresent(), "result should be retained for collection once detached");
+    }
+
+
+    @Test
+    public void attachedRequestsWhichFinishInTimeAreAnsweredDirectly() throws Exception {
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.attribute(AuthenticationUtilities.USER_KEY)).thenReturn("a");
+
+        Object body = lane.execute(
+                "quick",
+                request,
+                response,
+                () -> 42,
+                AsyncJobResult::ofJson,
+                v -> v,
+                info -> info);
+
+        assertEquals(42, body);
+        verify(response, never()).status(HttpStatus.ACCEPTED_202);
+        assertEquals(0, lane.findForUser("a").size(), "attached jobs are not retained");
+    }
+
+
+    // -- HELPERS ---
+
+    private Boolean awaitRelease() throws InterruptedException {
+        return release.await(10, TimeUnit.SECONDS);
+    }
+
+
+    private static void waitUntilRunning(AsyncJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && job.status() == AsyncJobStatus.QUEUED; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(AsyncJobStatus.RUNNING, job.status());
+    }
+}
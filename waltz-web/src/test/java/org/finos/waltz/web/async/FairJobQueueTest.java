@@ -0,0 +1,96 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.async;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FairJobQueueTest {
+
+    @Test
+    public void usersAreServedRoundRobin() throws InterruptedException {
+        FairJobQueue queue = new FairJobQueue();
+        AsyncJob a1 = mkJob("a");
+        AsyncJob a2 = mkJob("a");
+        AsyncJob a3 = mkJob("a");
+        AsyncJob b1 = mkJob("b");
+
+        queue.add(a1);
+        queue.add(a2);
+        queue.add(a3);
+        queue.add(b1);
+
+        assertEquals(4, queue.size());
+        assertSame(a1, queue.take());
+        assertSame(b1, queue.take(), "b should not wait behind all of a's jobs");
+        assertSame(a2, queue.take());
+        assertSame(a3, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+
+    @Test
+    public void positionReflectsRoundRobinOrder() {
+        FairJobQueue queue = new FairJobQueue();
+        AsyncJob a1 = mkJob("a");
+        AsyncJob a2 = mkJob("a");
+        AsyncJob a3 = mkJob("a");
+        AsyncJob b1 = mkJob("b");
+
+        queue.add(a1);
+        queue.add(a2);
+        queue.add(a3);
+        queue.add(b1);
+
+        assertEquals(Optional.of(0), queue.positionOf(a1));
+        assertEquals(Optional.of(1), queue.positionOf(b1));
+        assertEquals(Optional.of(2), queue.positionOf(a2));
+        assertEquals(Optional.of(3), queue.positionOf(a3));
+        assertEquals(Optional.empty(), queue.positionOf(mkJob("c")));
+    }
+
+
+    @Test
+    public void jobsCanBeRemoved() throws InterruptedException {
+        FairJobQueue queue = new FairJobQueue();
+        AsyncJob a1 = mkJob("a");
+        AsyncJob b1 = mkJob("b");
+
+        queue.add(a1);
+        queue.add(b1);
+
+        assertTrue(queue.remove(a1));
+        assertFalse(queue.remove(a1), "cannot remove twice");
+        assertEquals(0, queue.sizeForUser("a"));
+        assertEquals(1, queue.size());
+        assertSame(b1, queue.take());
+    }
+
+
+    private static AsyncJob mkJob(String username) {
+        return new AsyncJob("test", username, () -> username, null, false);
+    }
+}